@@ -0,0 +1,487 @@
+package org.djutils.data.eval;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.djunits.unit.AbsoluteLinearUnit;
+import org.djunits.unit.DimensionlessUnit;
+import org.djunits.unit.Unit;
+import org.djunits.unit.scale.Scale;
+import org.djunits.unit.si.SIDimensions;
+import org.djunits.value.vdouble.scalar.SIScalar;
+import org.djunits.value.vdouble.scalar.base.DoubleScalar;
+import org.djunits.value.vdouble.scalar.base.DoubleScalarAbs;
+import org.djunits.value.vdouble.scalar.base.DoubleScalarRel;
+import org.djutils.data.Column;
+import org.djutils.data.ListTable;
+import org.djutils.data.Row;
+import org.djutils.data.Table;
+import org.djutils.eval.CompiledExpression;
+import org.djutils.eval.Eval;
+import org.djutils.eval.Function;
+import org.djutils.eval.UnitParser;
+import org.djutils.exceptions.Throw;
+
+/**
+ * Evaluation of an expression for every row of a table, e.g., to derive a column {@code speed} from the columns
+ * {@code distance} and {@code duration}. The variables of the expression are bound to columns of the table; by default, a
+ * variable is bound to the column with the same id. The expression is compiled once, with the units of the bound columns,
+ * after which it is evaluated on primitive {@code double[]} arrays that hold the SI values of the bound columns, without a
+ * variable lookup per row. The rows are split in chunks that are extracted and evaluated in parallel on a fork-join pool. The
+ * evaluator can be used as follows:
+ *
+ * <pre>
+ * ListTable withSpeed = new ColumnEvaluator(table).appendColumn("speed", "average speed", "distance / duration");
+ * double[] siSpeeds = new ColumnEvaluator(table).bind("d", distanceColumn).evaluate("d / duration");
+ * </pre>
+ *
+ * The bound columns should contain numbers. The values of a column with a djunits scalar type carry their own unit; the values
+ * of a column with another number type are expressed in the unit of the unit string of the column, as {@code Column.getUnit}
+ * specifies, and are converted to SI when they are extracted. That unit string is resolved with the unit parser of the
+ * evaluator, if any, and otherwise as an SI unit string such as "m/s"; a column with another number type without unit is
+ * dimensionless. {@code null} values are evaluated as NaN.
+ * <p>
+ * User-defined functions are called from multiple threads and must therefore be thread-safe.
+ * </p>
+ * <p>
+ * Copyright (c) 2020-2025 Delft University of Technology, PO Box 5, 2600 AA, Delft, the Netherlands. All rights reserved. <br>
+ * BSD-style license. See <a href="https://djutils.org/docs/current/djutils/licenses.html">DJUTILS License</a>.
+ * </p>
+ * @author <a href="https://github.com/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://tudelft.nl/staff/p.knoppers-1">Peter Knoppers</a>
+ */
+public class ColumnEvaluator
+{
+    /** Number of rows per task. */
+    private static final int ROW_CHUNK = 8192;
+
+    /** Table to evaluate the expression on. */
+    private final Table table;
+
+    /** Columns bound to variables that do not have the id of the column. */
+    private final Map<String, Column<?>> bindings = new HashMap<>();
+
+    /** User-defined functions (may be null). */
+    private Map<String, Function> userDefinedFunctions = null;
+
+    /** Unit parser (may be null). */
+    private UnitParser unitParser = null;
+
+    /** Fork-join pool to use. */
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    /**
+     * Create an evaluator for expressions on the rows of a table.
+     * @param table the table
+     * @throws NullPointerException when table is null
+     */
+    public ColumnEvaluator(final Table table)
+    {
+        Throw.whenNull(table, "table may not be null");
+        this.table = table;
+    }
+
+    /**
+     * Bind a variable of the expression to a column. Variables that are not explicitly bound are bound to the column with the
+     * same id.
+     * @param variable the name of the variable
+     * @param column the column
+     * @return this evaluator for method chaining
+     * @throws NullPointerException when variable or column is null
+     * @throws IllegalArgumentException when the column is not in the table
+     */
+    public ColumnEvaluator bind(final String variable, final Column<?> column)
+    {
+        Throw.whenNull(variable, "variable may not be null");
+        Throw.whenNull(column, "column may not be null");
+        this.table.getColumnNumber(column); // throws exception when not in table
+        this.bindings.put(variable, column);
+        return this;
+    }
+
+    /**
+     * Set the user-defined functions.
+     * @param functions map that maps the name of the function to a (thread-safe) Function object
+     * @return this evaluator for method chaining
+     * @throws NullPointerException when functions is null
+     */
+    public ColumnEvaluator functions(final Map<String, Function> functions)
+    {
+        Throw.whenNull(functions, "functions may not be null");
+        this.userDefinedFunctions = new HashMap<>(functions);
+        return this;
+    }
+
+    /**
+     * Set the unit parser.
+     * @param parser the unit parser
+     * @return this evaluator for method chaining
+     * @throws NullPointerException when parser is null
+     */
+    public ColumnEvaluator unitParser(final UnitParser parser)
+    {
+        Throw.whenNull(parser, "parser may not be null");
+        this.unitParser = parser;
+        return this;
+    }
+
+    /**
+     * Set the fork-join pool for the evaluation. By default, the common pool is used.
+     * @param forkJoinPool the fork-join pool
+     * @return this evaluator for method chaining
+     * @throws NullPointerException when forkJoinPool is null
+     */
+    public ColumnEvaluator pool(final ForkJoinPool forkJoinPool)
+    {
+        Throw.whenNull(forkJoinPool, "forkJoinPool may not be null");
+        this.pool = forkJoinPool;
+        return this;
+    }
+
+    /**
+     * Compile an expression with its variables bound to columns of the table. The slots of the compiled expression are in
+     * the order in which the variables first appear in the expression, and the units of the variables are the units of the
+     * columns.
+     * @param expression the expression
+     * @return the compiled expression
+     * @throws NullPointerException when expression is null
+     * @throws IllegalArgumentException when a variable cannot be bound to a column that contains numbers
+     * @throws RuntimeException when the expression cannot be compiled
+     */
+    public CompiledExpression compile(final String expression)
+    {
+        return bound(expression).compiledExpression();
+    }
+
+    /**
+     * Evaluate an expression for every row of the table.
+     * @param expression the expression
+     * @return the SI values of the results, in the order of the rows
+     * @throws NullPointerException when expression is null
+     * @throws IllegalArgumentException when a variable cannot be bound to a column that contains numbers
+     * @throws RuntimeException when the expression cannot be compiled, or cannot be evaluated for one of the rows, or the
+     *             result is not a double value
+     */
+    public double[] evaluate(final String expression)
+    {
+        BoundExpression bound = bound(expression);
+        Row[] rows = rows();
+        double[] result = new double[rows.length];
+        this.pool.invoke(new EvaluateTask(bound, rows, result, null, 0, rows.length));
+        return result;
+    }
+
+    /**
+     * Evaluate a logical expression for every row of the table, e.g., to filter the rows.
+     * @param expression the expression
+     * @return the results, in the order of the rows
+     * @throws NullPointerException when expression is null
+     * @throws IllegalArgumentException when a variable cannot be bound to a column that contains numbers
+     * @throws RuntimeException when the expression cannot be compiled, or cannot be evaluated for one of the rows, or the
+     *             result is not a logical value
+     */
+    public boolean[] evaluateAsBoolean(final String expression)
+    {
+        BoundExpression bound = bound(expression);
+        Row[] rows = rows();
+        boolean[] result = new boolean[rows.length];
+        this.pool.invoke(new EvaluateTask(bound, rows, null, result, 0, rows.length));
+        return result;
+    }
+
+    /**
+     * Evaluate an expression for every row of the table, and return a new table with the columns and rows of the table and an
+     * additional column with the results. The type of the new column is inferred at compile time:
+     * <ul>
+     * <li>a {@code Boolean} column for a logical expression,</li>
+     * <li>a {@code Double} column without unit for a dimensionless expression,</li>
+     * <li>a column of the djunits scalar type that has the SI dimensions of the result, in its SI unit, otherwise; e.g., a
+     * {@code Speed} column in m/s for {@code distance / duration}. When no named quantity has the SI dimensions of the result,
+     * the column type is {@code SIScalar}.</li>
+     * </ul>
+     * When the type of the result cannot be determined at compile time (e.g., because the expression calls a user-defined
+     * function), the new column is a {@code Double} column with the SI values of the results, without unit.
+     * @param id id of the new column
+     * @param description description of the new column
+     * @param expression the expression
+     * @return a new table with the additional column; the id and description of the table are the same as those of the
+     *         original table
+     * @throws NullPointerException when id, description, or expression is null
+     * @throws IllegalArgumentException when the table already has a column with the id, or when a variable cannot be bound to
+     *             a column that contains numbers
+     * @throws RuntimeException when the expression cannot be compiled, or cannot be evaluated for one of the rows
+     */
+    public ListTable appendColumn(final String id, final String description, final String expression)
+    {
+        Throw.whenNull(id, "id may not be null");
+        Throw.whenNull(description, "description may not be null");
+        BoundExpression bound = bound(expression);
+        CompiledExpression compiled = bound.compiledExpression();
+        Row[] rows = rows();
+        Class<?> resultType = compiled.getResultType();
+        Unit<?> resultUnit = compiled.getResultUnit();
+        Column<?> column;
+        Object[] values = new Object[rows.length];
+        if (Boolean.class.equals(resultType))
+        {
+            boolean[] result = new boolean[rows.length];
+            this.pool.invoke(new EvaluateTask(bound, rows, null, result, 0, rows.length));
+            column = new Column<>(id, description, Boolean.class);
+            for (int r = 0; r < rows.length; r++)
+            {
+                values[r] = result[r];
+            }
+        }
+        else
+        {
+            double[] result = new double[rows.length];
+            this.pool.invoke(new EvaluateTask(bound, rows, result, null, 0, rows.length));
+            if (null == resultUnit || resultUnit.getQuantity().getSiDimensions().equals(SIDimensions.DIMLESS)
+                    || resultUnit.getId().isEmpty())
+            {
+                column = new Column<>(id, description, Double.class);
+                for (int r = 0; r < rows.length; r++)
+                {
+                    values[r] = result[r];
+                }
+            }
+            else
+            {
+                column = new Column<>(id, description, resultType, resultUnit.getId());
+                DoubleScalar<?, ?> prototype = SIScalar.instantiateAnonymous(0.0, resultUnit);
+                for (int r = 0; r < rows.length; r++)
+                {
+                    values[r] = instantiate(prototype, result[r]);
+                }
+            }
+        }
+        List<Column<?>> columns = new ArrayList<>(this.table.getColumns().toCollection());
+        columns.add(column);
+        ListTable resultTable = new ListTable(this.table.getId(), this.table.getDescription(), columns);
+        Object[] data = new Object[columns.size()];
+        for (int r = 0; r < rows.length; r++)
+        {
+            Object[] rowValues = rows[r].getValues();
+            System.arraycopy(rowValues, 0, data, 0, rowValues.length);
+            data[rowValues.length] = values[r];
+            resultTable.addRow(data);
+        }
+        return resultTable;
+    }
+
+    /**
+     * Compile an expression and bind its variables to columns.
+     * @param expression the expression
+     * @return the compiled expression, the column numbers of its variables and the scales to convert their values to SI
+     */
+    private BoundExpression bound(final String expression)
+    {
+        Throw.whenNull(expression, "expression may not be null");
+        Eval eval = new Eval().setUserDefinedFunctions(this.userDefinedFunctions).setUnitParser(this.unitParser);
+        List<String> names = eval.getVariableNames(expression);
+        int[] columnNumbers = new int[names.size()];
+        Unit<?>[] units = new Unit<?>[names.size()];
+        Scale[] scales = new Scale[names.size()];
+        for (int slot = 0; slot < names.size(); slot++)
+        {
+            String name = names.get(slot);
+            Column<?> column = this.bindings.get(name);
+            if (null == column)
+            {
+                Throw.when(!List.of(this.table.getColumnIds()).contains(name), IllegalArgumentException.class,
+                        "Variable %s is not bound to a column", name);
+                column = this.table.getColumn(this.table.getColumnNumber(name));
+            }
+            Throw.when(!Number.class.isAssignableFrom(column.getValueType()), IllegalArgumentException.class,
+                    "column %s bound to variable %s does not contain numbers", column.getId(), name);
+            columnNumbers[slot] = this.table.getColumnNumber(column);
+            units[slot] = unit(column);
+            if (!DoubleScalar.class.isAssignableFrom(column.getValueType()) && !units[slot].isBaseSIUnit())
+            {
+                // plain numbers are stored in the unit of the column; djunits scalars return their SI value
+                scales[slot] = units[slot].getScale();
+            }
+        }
+        CompiledExpression compiled = eval.compile(expression, names.toArray(new String[names.size()]), units);
+        return new BoundExpression(compiled, columnNumbers, scales);
+    }
+
+    /**
+     * Determine the unit of the values of a column.
+     * @param column the column
+     * @return the unit of the values of the column
+     * @throws IllegalArgumentException when the unit cannot be determined
+     */
+    private Unit<?> unit(final Column<?> column)
+    {
+        String unitString = column.getUnit();
+        try
+        {
+            if (DoubleScalar.class.isAssignableFrom(column.getValueType()))
+            {
+                // As in the constructor of Column, which has verified that this works
+                Method valueOfMethod = column.getValueType().getDeclaredMethod("valueOf", String.class);
+                return ((DoubleScalar<?, ?>) valueOfMethod.invoke(null, "1.0" + unitString)).getDisplayUnit();
+            }
+            if (null == unitString || unitString.isBlank())
+            {
+                return DimensionlessUnit.SI;
+            }
+            if (null != this.unitParser)
+            {
+                DoubleScalar<?, ?> parsed = this.unitParser.parseUnit(1.0, unitString);
+                if (null != parsed)
+                {
+                    return parsed.getDisplayUnit();
+                }
+            }
+            return SIScalar.valueOf("1.0 " + unitString).getDisplayUnit();
+        }
+        catch (ReflectiveOperationException | RuntimeException exception)
+        {
+            throw new IllegalArgumentException("Cannot determine the unit of column " + column.getId(), exception);
+        }
+    }
+
+    /**
+     * Instantiate a value of the same type and unit as a prototype.
+     * @param prototype the prototype
+     * @param si the SI value
+     * @return a value of the same type and unit as the prototype
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static DoubleScalar<?, ?> instantiate(final DoubleScalar<?, ?> prototype, final double si)
+    {
+        if (prototype instanceof DoubleScalarAbs abs)
+        {
+            return abs.instantiateAbs(si, (AbsoluteLinearUnit) abs.getDisplayUnit());
+        }
+        DoubleScalarRel rel = (DoubleScalarRel) prototype;
+        return rel.instantiateRel(si, rel.getDisplayUnit());
+    }
+
+    /**
+     * Return the rows of the table as an array, for random access by the tasks.
+     * @return the rows of the table
+     */
+    private Row[] rows()
+    {
+        List<Row> rowList = new ArrayList<>();
+        for (Row row : this.table)
+        {
+            rowList.add(row);
+        }
+        return rowList.toArray(new Row[rowList.size()]);
+    }
+
+    /**
+     * Compiled expression with the column numbers of its variables.
+     * @param compiledExpression the compiled expression
+     * @param columnNumbers the column numbers of the variables, indexed by slot
+     * @param scales the scales that convert the values of the variables to SI, indexed by slot; null for a variable of which
+     *            the values are already SI values
+     */
+    private record BoundExpression(CompiledExpression compiledExpression, int[] columnNumbers, Scale[] scales)
+    {
+    }
+
+    /**
+     * Task that extracts the SI values of the bound columns for a range of rows into primitive arrays, and evaluates the
+     * expression on these arrays.
+     */
+    private static class EvaluateTask extends RecursiveAction
+    {
+        /** */
+        private static final long serialVersionUID = 20261018L;
+
+        /** The expression and the columns of its variables. */
+        private final BoundExpression bound;
+
+        /** Rows. */
+        private final Row[] rows;
+
+        /** Numeric results, filled by the tasks (null for a logical expression). */
+        private final double[] result;
+
+        /** Logical results, filled by the tasks (null for a numeric expression). */
+        private final boolean[] booleanResult;
+
+        /** First row of the range. */
+        private final int from;
+
+        /** Row after the range. */
+        private final int to;
+
+        /**
+         * Create a task for a range of rows.
+         * @param bound the expression and the columns of its variables
+         * @param rows rows
+         * @param result numeric results, filled by the tasks (null for a logical expression)
+         * @param booleanResult logical results, filled by the tasks (null for a numeric expression)
+         * @param from first row of the range
+         * @param to row after the range
+         */
+        EvaluateTask(final BoundExpression bound, final Row[] rows, final double[] result, final boolean[] booleanResult,
+                final int from, final int to)
+        {
+            this.bound = bound;
+            this.rows = rows;
+            this.result = result;
+            this.booleanResult = booleanResult;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (this.to - this.from > ROW_CHUNK)
+            {
+                int mid = (this.from + this.to) >>> 1;
+                invokeAll(new EvaluateTask(this.bound, this.rows, this.result, this.booleanResult, this.from, mid),
+                        new EvaluateTask(this.bound, this.rows, this.result, this.booleanResult, mid, this.to));
+                return;
+            }
+            int length = this.to - this.from;
+            int[] columnNumbers = this.bound.columnNumbers();
+            Scale[] scales = this.bound.scales();
+            double[][] columns = new double[columnNumbers.length][length];
+            for (int r = 0; r < length; r++)
+            {
+                Row row = this.rows[this.from + r];
+                for (int slot = 0; slot < columnNumbers.length; slot++)
+                {
+                    Object value = row.getValue(columnNumbers[slot]);
+                    if (value == null)
+                    {
+                        columns[slot][r] = Double.NaN;
+                    }
+                    else
+                    {
+                        double number = ((Number) value).doubleValue();
+                        columns[slot][r] = null == scales[slot] ? number : scales[slot].toStandardUnit(number);
+                    }
+                }
+            }
+            CompiledExpression compiled = this.bound.compiledExpression();
+            if (null != this.result)
+            {
+                double[] chunkResult = new double[length];
+                compiled.evaluateColumns(columns, 0, length, chunkResult);
+                System.arraycopy(chunkResult, 0, this.result, this.from, length);
+            }
+            else
+            {
+                boolean[] chunkResult = new boolean[length];
+                compiled.evaluateColumnsAsBoolean(columns, 0, length, chunkResult);
+                System.arraycopy(chunkResult, 0, this.booleanResult, this.from, length);
+            }
+        }
+    }
+
+}
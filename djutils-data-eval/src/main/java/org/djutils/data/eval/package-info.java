@@ -0,0 +1,10 @@
+/**
+ * Expressions on data tables: evaluation of djutils-eval expressions on the columns of a djutils-data {@code Table}.
+ * <p>
+ * Copyright (c) 2020-2025 Delft University of Technology, PO Box 5, 2600 AA, Delft, the Netherlands. All rights reserved. <br>
+ * BSD-style license. See <a href="https://djutils.org/docs/current/djutils/licenses.html">DJUTILS License</a>.
+ * </p>
+ * @author <a href="https://github.com/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://tudelft.nl/staff/p.knoppers-1">Peter Knoppers</a>
+ */
+package org.djutils.data.eval;
@@ -0,0 +1,178 @@
+package org.djutils.data.eval;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.djunits.unit.DurationUnit;
+import org.djunits.unit.LengthUnit;
+import org.djunits.unit.SpeedUnit;
+import org.djunits.value.vdouble.scalar.Duration;
+import org.djunits.value.vdouble.scalar.Length;
+import org.djunits.value.vdouble.scalar.SIScalar;
+import org.djunits.value.vdouble.scalar.Speed;
+import org.djutils.data.Column;
+import org.djutils.data.ListTable;
+import org.djutils.data.Row;
+import org.djutils.eval.CompiledExpression;
+import org.djutils.eval.Function;
+import org.djutils.eval.UnitParser;
+import org.djutils.metadata.MetaData;
+import org.djutils.metadata.ObjectDescriptor;
+import org.djutils.test.UnitTest;
+import org.junit.jupiter.api.Test;
+
+/**
+ * ColumnEvaluatorTest tests the evaluation of expressions on the columns of a table.
+ * <p>
+ * Copyright (c) 2020-2025 Delft University of Technology, PO Box 5, 2600 AA, Delft, the Netherlands. All rights reserved. <br>
+ * BSD-style license. See <a href="https://djutils.org/docs/current/djutils/licenses.html">DJUTILS License</a>.
+ * </p>
+ * @author <a href="https://github.com/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://tudelft.nl/staff/p.knoppers-1">Peter Knoppers</a>
+ */
+public class ColumnEvaluatorTest
+{
+    /**
+     * Create a table that is large enough to be split over tasks.
+     * @param numRows number of rows
+     * @return a table with columns distance (km), duration (h), count, name and kilometers (plain numbers in km)
+     */
+    private static ListTable table(final int numRows)
+    {
+        Column<Length> distance = new Column<>("distance", "distance", Length.class, "km");
+        Column<Duration> duration = new Column<>("duration", "duration", Duration.class, "h");
+        Column<Integer> count = new Column<>("count", "count", int.class);
+        Column<String> name = new Column<>("name", "name", String.class);
+        Column<Double> kilometers = new Column<>("kilometers", "distance in km", Double.class, "km");
+        ListTable table = new ListTable("trips", "trips", List.of(distance, duration, count, name, kilometers));
+        for (int i = 0; i < numRows; i++)
+        {
+            table.addRow(new Object[] {new Length(i, LengthUnit.KILOMETER), new Duration(1 + i % 4, DurationUnit.HOUR),
+                    i % 10 == 9 ? null : i % 10, "trip" + i, (double) i});
+        }
+        return table;
+    }
+
+    /** Test evaluation of expressions on a table that is large enough to be split over tasks. */
+    @Test
+    public void testEvaluation()
+    {
+        int numRows = 50_000;
+        ListTable table = table(numRows);
+        double[] speeds = new ColumnEvaluator(table).evaluate("distance / duration");
+        assertEquals(numRows, speeds.length);
+        for (int i = 0; i < numRows; i++)
+        {
+            assertEquals(i * 1000.0 / ((1 + i % 4) * 3600.0), speeds[i], 1E-9);
+        }
+
+        // plain numbers are converted from the unit of their column to SI
+        UnitParser kilometer = (value, unit) -> "km".equals(unit) ? new Length(value, LengthUnit.KILOMETER) : null;
+        double[] plainSpeeds = new ColumnEvaluator(table).unitParser(kilometer).evaluate("kilometers / duration");
+        for (int i = 0; i < numRows; i++)
+        {
+            assertEquals(speeds[i], plainSpeeds[i], 1E-9);
+        }
+        boolean[] same = new ColumnEvaluator(table).unitParser(kilometer).evaluateAsBoolean("kilometers == distance");
+        assertTrue(same[0] && same[1234] && same[numRows - 1]);
+
+        double[] counts = new ColumnEvaluator(table).evaluate("2 * count + 1");
+        assertTrue(Double.isNaN(counts[9]), "null value is evaluated as NaN");
+        assertEquals(7.0, counts[3], 0.0);
+
+        boolean[] longTrips = new ColumnEvaluator(table).bind("d", table.getColumn(0)).evaluateAsBoolean("d > 100000[m]");
+        assertTrue(!longTrips[100] && longTrips[101] && longTrips[numRows - 1]);
+
+        CompiledExpression compiled = new ColumnEvaluator(table).compile("distance / duration");
+        assertTrue(compiled.isStaticallyTyped());
+        assertEquals(Speed.class, compiled.getResultType());
+
+        ForkJoinPool pool = new ForkJoinPool(3);
+        double[] pooled = new ColumnEvaluator(table).pool(pool).evaluate("distance / duration");
+        pool.shutdown();
+        for (int i = 0; i < numRows; i++)
+        {
+            assertEquals(speeds[i], pooled[i], 0.0);
+        }
+    }
+
+    /** Test appending a typed column. */
+    @Test
+    public void testAppendColumn()
+    {
+        ListTable table = table(1000);
+        ListTable result = new ColumnEvaluator(table).appendColumn("speed", "average speed", "distance / duration");
+        assertEquals(6, result.getNumberOfColumns());
+        Column<?> speed = result.getColumn(5);
+        assertEquals(Speed.class, speed.getValueType());
+        assertEquals(SpeedUnit.SI.getId(), speed.getUnit());
+        int r = 0;
+        for (Row row : result)
+        {
+            assertEquals("trip" + r, row.getValue("name"));
+            assertEquals(r * 1000.0 / ((1 + r % 4) * 3600.0), ((Speed) row.getValue("speed")).si, 1E-9);
+            r++;
+        }
+        assertEquals(1000, r);
+
+        ListTable logical = new ColumnEvaluator(table).appendColumn("long", "long trip", "distance > 500000[m]");
+        assertEquals(Boolean.class, logical.getColumn(5).getValueType());
+        ListTable ratio = new ColumnEvaluator(table).appendColumn("ratio", "ratio", "distance / 1[m]");
+        assertEquals(Double.class, ratio.getColumn(5).getValueType());
+        ListTable odd = new ColumnEvaluator(table).appendColumn("odd", "odd quantity", "distance * distance / duration");
+        assertEquals(SIScalar.class, odd.getColumn(5).getValueType());
+
+        // Type of user-defined function is not known at compile time
+        Function twiceFunction = new Function()
+        {
+            @Override
+            public String getId()
+            {
+                return "twice";
+            }
+
+            @Override
+            public MetaData getMetaData()
+            {
+                return new MetaData("twice", "twice", new ObjectDescriptor("length", "length", Length.class));
+            }
+
+            @Override
+            public Object function(final Object[] arguments)
+            {
+                return ((Length) arguments[0]).times(2);
+            }
+        };
+        Map<String, Function> functions = Map.of("twice", twiceFunction);
+        ListTable twice = new ColumnEvaluator(table).functions(functions).appendColumn("twice", "twice", "twice(distance)");
+        assertEquals(Double.class, twice.getColumn(5).getValueType());
+        Iterator<Row> iterator = twice.iterator();
+        iterator.next();
+        assertEquals(2000.0, (Double) iterator.next().getValue("twice"), 1E-9);
+    }
+
+    /** Test the argument checks. */
+    @Test
+    public void testErrors()
+    {
+        ListTable table = table(10);
+        UnitTest.testFail(() -> new ColumnEvaluator(null), NullPointerException.class);
+        UnitTest.testFail(() -> new ColumnEvaluator(table).evaluate(null), NullPointerException.class);
+        UnitTest.testFail(() -> new ColumnEvaluator(table).evaluate("unknown + 1"), IllegalArgumentException.class);
+        UnitTest.testFail(() -> new ColumnEvaluator(table).evaluate("name + 1"), IllegalArgumentException.class);
+        UnitTest.testFail(() -> new ColumnEvaluator(table).bind("x", new Column<>("x", "x", double.class)),
+                IllegalArgumentException.class);
+        UnitTest.testFail(() -> new ColumnEvaluator(table).appendColumn("name", "duplicate", "count"),
+                IllegalArgumentException.class);
+        UnitTest.testFail(() -> new ColumnEvaluator(table).evaluate("distance + duration"), RuntimeException.class);
+        UnitTest.testFail(() -> new ColumnEvaluator(table).evaluate("kilometers"), "km is not an SI unit string",
+                IllegalArgumentException.class);
+        UnitTest.testFail(() -> new ColumnEvaluator(table).evaluateAsBoolean("distance"), RuntimeException.class);
+    }
+
+}
@@ -0,0 +1,535 @@
+package org.djutils.data.stats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+import org.djutils.data.Column;
+import org.djutils.data.ListTable;
+import org.djutils.data.Row;
+import org.djutils.data.Table;
+import org.djutils.exceptions.Throw;
+import org.djutils.stats.summarizers.Tally;
+import org.djutils.stats.summarizers.quantileaccumulator.FullStorageAccumulator;
+import org.djutils.stats.summarizers.quantileaccumulator.QuantileAccumulator;
+
+/**
+ * Parallel group-by aggregation of the rows of a table into a {@code Tally} per group and value column. The aggregation
+ * takes place in two fork-join phases:
+ * <ol>
+ * <li>The rows are split in chunks. For each chunk, a task determines the group key of each row, collects the row numbers per
+ * group in a partial map, and unboxes the values of the value columns into primitive {@code double[]} arrays. The partial maps
+ * of the tasks are merged in row order.</li>
+ * <li>The groups are split over tasks. Each (group, value column) combination is aggregated into its own {@code Tally} by
+ * exactly one task, registering the values in row order. Since a {@code QuantileAccumulator} cannot be merged, partitioning on
+ * the group rather than on the rows keeps the quantiles exact and the result independent of the number of threads.</li>
+ * </ol>
+ * The result is a table in long format with the key columns, a column with the id of the value column, and columns with the
+ * statistics. The aggregator can be used as follows:
+ *
+ * <pre>
+ * ListTable statistics = new TableAggregator(table).groupBy(scenario, lane).values(travelTime, waitingTime)
+ *         .quantiles(0.5, 0.9, 0.99).toTable("stats", "travel and waiting time statistics");
+ * </pre>
+ *
+ * Values in the value columns are converted with {@code Number.doubleValue()}, which returns the SI value for djunits scalars.
+ * {@code null} values and NaN values are skipped.
+ * <p>
+ * Copyright (c) 2020-2025 Delft University of Technology, PO Box 5, 2600 AA, Delft, the Netherlands. All rights reserved. <br>
+ * BSD-style license. See <a href="https://djutils.org/docs/current/djutils/licenses.html">DJUTILS License</a>.
+ * </p>
+ * @author <a href="https://github.com/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://tudelft.nl/staff/p.knoppers-1">Peter Knoppers</a>
+ */
+public class TableAggregator
+{
+    /** Number of rows per task in the first phase. */
+    private static final int ROW_CHUNK = 8192;
+
+    /** Id of the column with the id of the value column in the result table. */
+    public static final String VARIABLE_COLUMN_ID = "variable";
+
+    /** Table to aggregate. */
+    private final Table table;
+
+    /** Key columns. */
+    private Column<?>[] keyColumns = new Column<?>[0];
+
+    /** Value columns. */
+    private Column<?>[] valueColumns = null;
+
+    /** Probabilities for which quantiles are reported. */
+    private double[] probabilities = new double[0];
+
+    /** Supplier of quantile accumulators for the tallies. */
+    private Supplier<? extends QuantileAccumulator> accumulatorSupplier = null;
+
+    /** Fork-join pool to use. */
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    /**
+     * Create an aggregator for the rows of a table.
+     * @param table the table to aggregate
+     * @throws NullPointerException when table is null
+     */
+    public TableAggregator(final Table table)
+    {
+        Throw.whenNull(table, "table may not be null");
+        this.table = table;
+    }
+
+    /**
+     * Set the key columns. Without key columns, all rows form one group.
+     * @param columns the key columns
+     * @return this aggregator for method chaining
+     * @throws NullPointerException when columns is null
+     * @throws IllegalArgumentException when a column is not in the table
+     */
+    public TableAggregator groupBy(final Column<?>... columns)
+    {
+        Throw.whenNull(columns, "columns may not be null");
+        for (Column<?> column : columns)
+        {
+            this.table.getColumnNumber(column); // throws exception when not in table
+        }
+        this.keyColumns = columns.clone();
+        return this;
+    }
+
+    /**
+     * Set the value columns to aggregate. The value type of each column should be a {@code Number}, e.g., a {@code Double} or
+     * a djunits scalar.
+     * @param columns the value columns
+     * @return this aggregator for method chaining
+     * @throws NullPointerException when columns is null
+     * @throws IllegalArgumentException when there are no value columns, when a column is not in the table, or when a column
+     *             does not contain numbers
+     */
+    public TableAggregator values(final Column<?>... columns)
+    {
+        Throw.whenNull(columns, "columns may not be null");
+        Throw.when(columns.length == 0, IllegalArgumentException.class, "there should be at least one value column");
+        for (Column<?> column : columns)
+        {
+            this.table.getColumnNumber(column); // throws exception when not in table
+            Throw.when(!Number.class.isAssignableFrom(column.getValueType()), IllegalArgumentException.class,
+                    "value column %s does not contain numbers", column.getId());
+        }
+        this.valueColumns = columns.clone();
+        return this;
+    }
+
+    /**
+     * Set the probabilities for which quantiles are reported. When quantiles are requested and no accumulator supplier is set,
+     * a {@code FullStorageAccumulator} is used for exact quantiles.
+     * @param quantileProbabilities the probabilities, each between 0 and 1 (inclusive)
+     * @return this aggregator for method chaining
+     * @throws NullPointerException when quantileProbabilities is null
+     * @throws IllegalArgumentException when a probability is not between 0 and 1
+     */
+    public TableAggregator quantiles(final double... quantileProbabilities)
+    {
+        Throw.whenNull(quantileProbabilities, "quantileProbabilities may not be null");
+        for (double p : quantileProbabilities)
+        {
+            Throw.when(!(p >= 0.0 && p <= 1.0), IllegalArgumentException.class, "probability %f not between 0 and 1", p);
+        }
+        this.probabilities = quantileProbabilities.clone();
+        return this;
+    }
+
+    /**
+     * Set the supplier of the quantile accumulator for each tally.
+     * @param supplier supplier of a new quantile accumulator for each tally
+     * @return this aggregator for method chaining
+     * @throws NullPointerException when supplier is null
+     */
+    public TableAggregator accumulator(final Supplier<? extends QuantileAccumulator> supplier)
+    {
+        Throw.whenNull(supplier, "supplier may not be null");
+        this.accumulatorSupplier = supplier;
+        return this;
+    }
+
+    /**
+     * Set the fork-join pool for the aggregation. By default, the common pool is used.
+     * @param forkJoinPool the fork-join pool
+     * @return this aggregator for method chaining
+     * @throws NullPointerException when forkJoinPool is null
+     */
+    public TableAggregator pool(final ForkJoinPool forkJoinPool)
+    {
+        Throw.whenNull(forkJoinPool, "forkJoinPool may not be null");
+        this.pool = forkJoinPool;
+        return this;
+    }
+
+    /**
+     * Carry out the aggregation, and return the tallies per group key. The array of tallies per group has the same order as
+     * the value columns.
+     * @return the tallies per group key, in the order in which the first row of each group appears in the table
+     * @throws IllegalStateException when no value columns have been set
+     */
+    public Map<List<Object>, Tally[]> aggregate()
+    {
+        Throw.when(this.valueColumns == null, IllegalStateException.class, "no value columns set");
+        Row[] rows = rows();
+        int[] keyNumbers = columnNumbers(this.keyColumns);
+        int[] valueNumbers = columnNumbers(this.valueColumns);
+        double[][] values = new double[valueNumbers.length][rows.length];
+        Map<List<Object>, IntList> groups =
+                this.pool.invoke(new ExtractTask(rows, keyNumbers, valueNumbers, values, 0, rows.length));
+
+        List<List<Object>> keys = new ArrayList<>(groups.keySet());
+        IntList[] rowNumbers = groups.values().toArray(new IntList[keys.size()]);
+        Tally[][] tallies = new Tally[keys.size()][];
+        this.pool.invoke(new TallyTask(keys, rowNumbers, values, tallies, 0, keys.size()));
+
+        Map<List<Object>, Tally[]> result = new LinkedHashMap<>();
+        for (int g = 0; g < keys.size(); g++)
+        {
+            result.put(keys.get(g), tallies[g]);
+        }
+        return result;
+    }
+
+    /**
+     * Carry out the aggregation, and return the statistics as a table. The table contains the key columns, a column
+     * {@code variable} with the id of the value column, and the columns {@code n}, {@code mean}, {@code stdev}, {@code min},
+     * {@code max}, {@code sum}, and a column {@code q<probability>} for each requested quantile. There is one row for each
+     * combination of group and value column.
+     * @param id id of the result table
+     * @param description description of the result table
+     * @return a table with the statistics per group and value column
+     * @throws IllegalStateException when no value columns have been set
+     * @throws IllegalArgumentException when the id of a key column equals the id of one of the statistics columns
+     */
+    public ListTable toTable(final String id, final String description)
+    {
+        Throw.when(this.valueColumns == null, IllegalStateException.class, "no value columns set");
+        List<Column<?>> statisticsColumns = new ArrayList<>();
+        statisticsColumns.add(new Column<>(VARIABLE_COLUMN_ID, "id of the value column", String.class));
+        statisticsColumns.add(new Column<>("n", "number of observations", long.class));
+        statisticsColumns.add(new Column<>("mean", "sample mean", double.class));
+        statisticsColumns.add(new Column<>("stdev", "sample standard deviation", double.class));
+        statisticsColumns.add(new Column<>("min", "minimum", double.class));
+        statisticsColumns.add(new Column<>("max", "maximum", double.class));
+        statisticsColumns.add(new Column<>("sum", "sum", double.class));
+        for (double p : this.probabilities)
+        {
+            statisticsColumns.add(new Column<>("q" + p, "quantile for probability " + p, double.class));
+        }
+        for (Column<?> keyColumn : this.keyColumns)
+        {
+            for (Column<?> statisticsColumn : statisticsColumns)
+            {
+                Throw.when(keyColumn.getId().equals(statisticsColumn.getId()), IllegalArgumentException.class,
+                        "key column %s has the same id as a statistics column of the result table", keyColumn.getId());
+            }
+        }
+        Map<List<Object>, Tally[]> aggregation = aggregate();
+        List<Column<?>> columns = new ArrayList<>(Arrays.asList(this.keyColumns));
+        columns.addAll(statisticsColumns);
+        ListTable result = new ListTable(id, description, columns);
+        Object[] data = new Object[columns.size()];
+        for (Map.Entry<List<Object>, Tally[]> entry : aggregation.entrySet())
+        {
+            for (int v = 0; v < this.valueColumns.length; v++)
+            {
+                int index = 0;
+                for (Object key : entry.getKey())
+                {
+                    data[index++] = key;
+                }
+                Tally tally = entry.getValue()[v];
+                data[index++] = this.valueColumns[v].getId();
+                data[index++] = tally.getN();
+                data[index++] = tally.getSampleMean();
+                data[index++] = tally.getSampleStDev();
+                data[index++] = tally.getMin();
+                data[index++] = tally.getMax();
+                data[index++] = tally.getSum();
+                for (double p : this.probabilities)
+                {
+                    data[index++] = tally.getN() == 0 ? Double.NaN : tally.getQuantile(p);
+                }
+                result.addRow(data);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Return the rows of the table as an array, for random access by the tasks.
+     * @return the rows of the table
+     */
+    private Row[] rows()
+    {
+        List<Row> rowList = new ArrayList<>();
+        for (Row row : this.table)
+        {
+            rowList.add(row);
+        }
+        return rowList.toArray(new Row[rowList.size()]);
+    }
+
+    /**
+     * Return the column numbers of columns in the table.
+     * @param columns the columns
+     * @return the column numbers
+     */
+    private int[] columnNumbers(final Column<?>[] columns)
+    {
+        int[] numbers = new int[columns.length];
+        for (int i = 0; i < columns.length; i++)
+        {
+            numbers[i] = this.table.getColumnNumber(columns[i]);
+        }
+        return numbers;
+    }
+
+    /**
+     * Create a new tally for a value column.
+     * @param valueIndex index of the value column
+     * @return a new tally for the value column
+     */
+    private Tally newTally(final int valueIndex)
+    {
+        String description = this.valueColumns[valueIndex].getId();
+        if (this.accumulatorSupplier != null)
+        {
+            return new Tally(description, this.accumulatorSupplier.get());
+        }
+        return this.probabilities.length > 0 ? new Tally(description, new FullStorageAccumulator()) : new Tally(description);
+    }
+
+    /**
+     * Growable list of primitive int values.
+     */
+    static class IntList
+    {
+        /** Values. */
+        private int[] data = new int[8];
+
+        /** Number of values. */
+        private int size = 0;
+
+        /**
+         * Add a value.
+         * @param value the value to add
+         */
+        void add(final int value)
+        {
+            if (this.size == this.data.length)
+            {
+                this.data = Arrays.copyOf(this.data, this.size * 2);
+            }
+            this.data[this.size++] = value;
+        }
+
+        /**
+         * Add all values of another list.
+         * @param other the other list
+         */
+        void addAll(final IntList other)
+        {
+            if (this.size + other.size > this.data.length)
+            {
+                this.data = Arrays.copyOf(this.data, Math.max(this.size + other.size, this.size * 2));
+            }
+            System.arraycopy(other.data, 0, this.data, this.size, other.size);
+            this.size += other.size;
+        }
+    }
+
+    /**
+     * Task that determines the group of each row in a range of rows, and unboxes the values of the value columns.
+     */
+    private static class ExtractTask extends RecursiveTask<Map<List<Object>, IntList>>
+    {
+        /** */
+        private static final long serialVersionUID = 20250601L;
+
+        /** Rows. */
+        private final Row[] rows;
+
+        /** Column numbers of the key columns. */
+        private final int[] keyNumbers;
+
+        /** Column numbers of the value columns. */
+        private final int[] valueNumbers;
+
+        /** Unboxed values per value column, filled by the tasks. */
+        private final double[][] values;
+
+        /** First row of the range. */
+        private final int from;
+
+        /** Row after the range. */
+        private final int to;
+
+        /**
+         * Create a task for a range of rows.
+         * @param rows rows
+         * @param keyNumbers column numbers of the key columns
+         * @param valueNumbers column numbers of the value columns
+         * @param values unboxed values per value column, filled by the tasks
+         * @param from first row of the range
+         * @param to row after the range
+         */
+        ExtractTask(final Row[] rows, final int[] keyNumbers, final int[] valueNumbers, final double[][] values, final int from,
+                final int to)
+        {
+            this.rows = rows;
+            this.keyNumbers = keyNumbers;
+            this.valueNumbers = valueNumbers;
+            this.values = values;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Map<List<Object>, IntList> compute()
+        {
+            if (this.to - this.from > ROW_CHUNK)
+            {
+                int mid = (this.from + this.to) >>> 1;
+                ExtractTask left = new ExtractTask(this.rows, this.keyNumbers, this.valueNumbers, this.values, this.from, mid);
+                ExtractTask right = new ExtractTask(this.rows, this.keyNumbers, this.valueNumbers, this.values, mid, this.to);
+                right.fork();
+                Map<List<Object>, IntList> result = left.compute();
+                for (Map.Entry<List<Object>, IntList> entry : right.join().entrySet())
+                {
+                    IntList rowNumbers = result.get(entry.getKey());
+                    if (rowNumbers == null)
+                    {
+                        result.put(entry.getKey(), entry.getValue());
+                    }
+                    else
+                    {
+                        rowNumbers.addAll(entry.getValue());
+                    }
+                }
+                return result;
+            }
+            Map<List<Object>, IntList> result = new LinkedHashMap<>();
+            for (int r = this.from; r < this.to; r++)
+            {
+                Row row = this.rows[r];
+                Object[] key = new Object[this.keyNumbers.length];
+                for (int k = 0; k < key.length; k++)
+                {
+                    key[k] = row.getValue(this.keyNumbers[k]);
+                }
+                result.computeIfAbsent(Arrays.asList(key), (k) -> new IntList()).add(r);
+                for (int v = 0; v < this.valueNumbers.length; v++)
+                {
+                    Object value = row.getValue(this.valueNumbers[v]);
+                    this.values[v][r] = value == null ? Double.NaN : ((Number) value).doubleValue();
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Task that aggregates the values of a range of groups into tallies.
+     */
+    private class TallyTask extends RecursiveAction
+    {
+        /** */
+        private static final long serialVersionUID = 20250601L;
+
+        /** Group keys. */
+        private final List<List<Object>> keys;
+
+        /** Row numbers per group. */
+        private final IntList[] rowNumbers;
+
+        /** Unboxed values per value column. */
+        private final double[][] values;
+
+        /** Tallies per group, filled by the tasks. */
+        private final Tally[][] tallies;
+
+        /** First group of the range. */
+        private final int from;
+
+        /** Group after the range. */
+        private final int to;
+
+        /**
+         * Create a task for a range of groups.
+         * @param keys group keys
+         * @param rowNumbers row numbers per group
+         * @param values unboxed values per value column
+         * @param tallies tallies per group, filled by the tasks
+         * @param from first group of the range
+         * @param to group after the range
+         */
+        TallyTask(final List<List<Object>> keys, final IntList[] rowNumbers, final double[][] values, final Tally[][] tallies,
+                final int from, final int to)
+        {
+            this.keys = keys;
+            this.rowNumbers = rowNumbers;
+            this.values = values;
+            this.tallies = tallies;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (this.to - this.from > 1)
+            {
+                // split on the number of rows, so large groups get their own task
+                long total = 0;
+                for (int g = this.from; g < this.to; g++)
+                {
+                    total += this.rowNumbers[g].size;
+                }
+                if (total > ROW_CHUNK)
+                {
+                    int mid = this.from;
+                    long half = 0;
+                    while (mid < this.to - 1 && half + this.rowNumbers[mid].size <= total / 2)
+                    {
+                        half += this.rowNumbers[mid++].size;
+                    }
+                    mid = Math.max(mid, this.from + 1);
+                    invokeAll(new TallyTask(this.keys, this.rowNumbers, this.values, this.tallies, this.from, mid),
+                            new TallyTask(this.keys, this.rowNumbers, this.values, this.tallies, mid, this.to));
+                    return;
+                }
+            }
+            for (int g = this.from; g < this.to; g++)
+            {
+                Tally[] groupTallies = new Tally[this.values.length];
+                IntList groupRows = this.rowNumbers[g];
+                for (int v = 0; v < this.values.length; v++)
+                {
+                    Tally tally = newTally(v);
+                    double[] columnValues = this.values[v];
+                    for (int i = 0; i < groupRows.size; i++)
+                    {
+                        double value = columnValues[groupRows.data[i]];
+                        if (!Double.isNaN(value))
+                        {
+                            tally.register(value);
+                        }
+                    }
+                    groupTallies[v] = tally;
+                }
+                this.tallies[g] = groupTallies;
+            }
+        }
+    }
+
+}
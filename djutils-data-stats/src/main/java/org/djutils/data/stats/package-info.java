@@ -0,0 +1,10 @@
+/**
+ * Statistics on data tables: aggregation of the rows of a djutils-data {@code Table} into djutils-stats summarizers.
+ * <p>
+ * Copyright (c) 2020-2025 Delft University of Technology, PO Box 5, 2600 AA, Delft, the Netherlands. All rights reserved. <br>
+ * BSD-style license. See <a href="https://djutils.org/docs/current/djutils/licenses.html">DJUTILS License</a>.
+ * </p>
+ * @author <a href="https://github.com/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://tudelft.nl/staff/p.knoppers-1">Peter Knoppers</a>
+ */
+package org.djutils.data.stats;
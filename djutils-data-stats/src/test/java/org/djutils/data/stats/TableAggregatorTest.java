@@ -0,0 +1,127 @@
+package org.djutils.data.stats;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.djutils.data.Column;
+import org.djutils.data.ListTable;
+import org.djutils.data.Row;
+import org.djutils.stats.summarizers.Tally;
+import org.djutils.stats.summarizers.quantileaccumulator.NoStorageAccumulator;
+import org.djutils.test.UnitTest;
+import org.junit.jupiter.api.Test;
+
+/**
+ * TableAggregatorTest tests the parallel group-by aggregation of a table into tallies.
+ * <p>
+ * Copyright (c) 2020-2025 Delft University of Technology, PO Box 5, 2600 AA, Delft, the Netherlands. All rights reserved. <br>
+ * BSD-style license. See <a href="https://djutils.org/docs/current/djutils/licenses.html">DJUTILS License</a>.
+ * </p>
+ * @author <a href="https://github.com/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://tudelft.nl/staff/p.knoppers-1">Peter Knoppers</a>
+ */
+public class TableAggregatorTest
+{
+    /** Test the aggregation on a table that is large enough to be split over tasks. */
+    @Test
+    public void testAggregation()
+    {
+        Column<String> scenario = new Column<>("scenario", "scenario", String.class);
+        Column<Integer> replication = new Column<>("replication", "replication", int.class);
+        Column<Double> time = new Column<>("time", "travel time [s]", double.class);
+        Column<Integer> stops = new Column<>("stops", "number of stops", int.class);
+        ListTable table = new ListTable("data", "data", List.of(scenario, replication, time, stops));
+        int numRows = 100_000;
+        for (int i = 0; i < numRows; i++)
+        {
+            table.addRow(new Object[] {i % 3 == 0 ? "base" : "alt", i % 5, (double) i, i % 7 == 0 ? null : i % 10});
+        }
+
+        Map<List<Object>, Tally[]> result =
+                new TableAggregator(table).groupBy(scenario, replication).values(time, stops).quantiles(0.5).aggregate();
+        assertEquals(10, result.size());
+        assertEquals(Arrays.asList("base", 0), result.keySet().iterator().next());
+        long n = 0;
+        for (Tally[] tallies : result.values())
+        {
+            assertEquals(2, tallies.length);
+            n += tallies[0].getN();
+            assertTrue(tallies[1].getN() < tallies[0].getN()); // null values skipped
+        }
+        assertEquals(numRows, n);
+
+        // compare with a sequential computation for one group
+        Tally check = new Tally("check");
+        for (int i = 0; i < numRows; i++)
+        {
+            if (i % 3 != 0 && i % 5 == 2)
+            {
+                check.register(i);
+            }
+        }
+        Tally tally = result.get(Arrays.asList("alt", 2))[0];
+        assertEquals(check.getN(), tally.getN());
+        assertEquals(check.getSampleMean(), tally.getSampleMean(), 1E-6);
+        assertEquals(check.getSampleStDev(), tally.getSampleStDev(), 1E-6);
+        assertEquals(check.getMin(), tally.getMin(), 0.0);
+        assertEquals(check.getMax(), tally.getMax(), 0.0);
+
+        ForkJoinPool pool = new ForkJoinPool(3);
+        ListTable statistics = new TableAggregator(table).groupBy(scenario).values(time).quantiles(0.0, 1.0).pool(pool)
+                .toTable("stats", "statistics");
+        pool.shutdown();
+        assertEquals(1 + 1 + 6 + 2, statistics.getNumberOfColumns());
+        int rows = 0;
+        for (Row row : statistics)
+        {
+            rows++;
+            assertEquals("time", row.getValue(TableAggregator.VARIABLE_COLUMN_ID));
+            assertEquals(row.getValue("min"), row.getValue("q0.0"));
+            assertEquals(row.getValue("max"), row.getValue("q1.0"));
+        }
+        assertEquals(2, rows);
+
+        // no key columns: one group
+        Map<List<Object>, Tally[]> all =
+                new TableAggregator(table).values(time).accumulator(NoStorageAccumulator::new).aggregate();
+        assertEquals(1, all.size());
+        assertEquals(numRows, all.values().iterator().next()[0].getN());
+    }
+
+    /** Test the argument checks. */
+    @Test
+    public void testErrors()
+    {
+        Column<String> name = new Column<>("name", "name", String.class);
+        Column<Double> value = new Column<>("value", "value", double.class);
+        ListTable table = new ListTable("data", "data", List.of(name, value));
+        UnitTest.testFail(() -> new TableAggregator(null), NullPointerException.class);
+        UnitTest.testFail(() -> new TableAggregator(table).aggregate(), IllegalStateException.class);
+        UnitTest.testFail(() -> new TableAggregator(table).values(), IllegalArgumentException.class);
+        UnitTest.testFail(() -> new TableAggregator(table).values(name), IllegalArgumentException.class);
+        UnitTest.testFail(() -> new TableAggregator(table).quantiles(1.5), IllegalArgumentException.class);
+        UnitTest.testFail(() -> new TableAggregator(table).groupBy(new Column<>("x", "x", String.class)),
+                IllegalArgumentException.class);
+        assertTrue(new TableAggregator(table).values(value).aggregate().isEmpty());
+
+        // key columns with the id of a statistics column of the result table
+        Column<String> variable = new Column<>("variable", "variable", String.class);
+        Column<Double> min = new Column<>("min", "min", double.class);
+        Column<Double> quantile = new Column<>("q0.5", "median", double.class);
+        ListTable clashes = new ListTable("clashes", "clashes", List.of(variable, min, quantile, value));
+        UnitTest.testFail(() -> new TableAggregator(clashes).groupBy(variable).values(value).toTable("t", "t"),
+                IllegalArgumentException.class);
+        UnitTest.testFail(() -> new TableAggregator(clashes).groupBy(min).values(value).toTable("t", "t"),
+                IllegalArgumentException.class);
+        UnitTest.testFail(() -> new TableAggregator(clashes).groupBy(quantile).values(value).quantiles(0.5).toTable("t", "t"),
+                IllegalArgumentException.class);
+        assertEquals(0, new TableAggregator(clashes).groupBy(quantile).values(value).toTable("t", "t").getNumberOfRows());
+        UnitTest.testFail(() -> new TableAggregator(table).toTable("t", "t"), IllegalStateException.class);
+    }
+
+}
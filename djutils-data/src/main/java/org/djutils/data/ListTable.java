@@ -42,6 +42,12 @@ public class ListTable extends Table
         return this.rows.iterator();
     }
 
+    @Override
+    public int getNumberOfRows()
+    {
+        return this.rows.size();
+    }
+
     @Override
     public boolean isEmpty()
     {
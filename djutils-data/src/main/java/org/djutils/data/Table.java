@@ -1,7 +1,9 @@
 package org.djutils.data;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
 
 import org.djutils.base.Identifiable;
@@ -32,6 +34,9 @@ public abstract class Table implements Iterable<Row>, Identifiable
     /** Columns. */
     private final ImmutableList<Column<?>> columns;
 
+    /** Column number per column id, for O(1) look-up of columns. */
+    private final Map<String, Integer> columnNumbers;
+
     /**
      * Constructor.
      * @param id id
@@ -53,6 +58,11 @@ public abstract class Table implements Iterable<Row>, Identifiable
         this.id = id;
         this.description = description;
         this.columns = new ImmutableArrayList<>(columns);
+        this.columnNumbers = new HashMap<>();
+        for (int columnNumber = 0; columnNumber < this.columns.size(); columnNumber++)
+        {
+            this.columnNumbers.put(this.columns.get(columnNumber).getId(), columnNumber);
+        }
     }
 
     @Override
@@ -107,9 +117,9 @@ public abstract class Table implements Iterable<Row>, Identifiable
      */
     public int getColumnNumber(final Column<?> column)
     {
-        Throw.when(!this.columns.contains(column), IllegalArgumentException.class, "Column %s is not in the table.",
-                column.getId());
-        return this.columns.indexOf(column);
+        Integer columnNumber = this.columnNumbers.get(column.getId());
+        Throw.when(columnNumber == null, IllegalArgumentException.class, "Column %s is not in the table.", column.getId());
+        return columnNumber;
     }
 
     /**
@@ -120,14 +130,9 @@ public abstract class Table implements Iterable<Row>, Identifiable
      */
     public int getColumnNumber(final String columnId)
     {
-        for (int columnNumber = 0; columnNumber < getNumberOfColumns(); columnNumber++)
-        {
-            if (this.columns.get(columnNumber).getId().equals(columnId))
-            {
-                return columnNumber;
-            }
-        }
-        throw new IllegalArgumentException("Column " + columnId + " is not in the table.");
+        Integer columnNumber = this.columnNumbers.get(columnId);
+        Throw.when(columnNumber == null, IllegalArgumentException.class, "Column %s is not in the table.", columnId);
+        return columnNumber;
     }
 
     /**
@@ -201,6 +206,15 @@ public abstract class Table implements Iterable<Row>, Identifiable
      */
     public abstract boolean isEmpty();
 
+    /**
+     * Returns the number of rows, when the table can report it without iterating over its rows.
+     * @return the number of rows, or -1 when the table cannot report it
+     */
+    public int getNumberOfRows()
+    {
+        return -1;
+    }
+
     @Override
     public String toString()
     {
@@ -20,6 +20,7 @@ import org.djutils.data.Column;
 import org.djutils.data.ListTable;
 import org.djutils.data.Row;
 import org.djutils.data.Table;
+import org.djutils.data.io.GzipStreams;
 import org.djutils.data.serialization.TextSerializationException;
 import org.djutils.data.serialization.TextSerializer;
 import org.djutils.exceptions.Throw;
@@ -246,19 +247,35 @@ public final class CsvData
     }
 
     /**
-     * Read the data from the CSV-file into the data table. Use the metadata to reconstruct the data table.
-     * @param reader the reader that can read the data, e.g. from a file
-     * @param metaReader the writer for the metadata
-     * @return Table the data table reconstructed from the meta data and filled with the data
-     * @param separator the delimiter to use for separating entries
-     * @param quotechar the character to use for quoted elements
-     * @throws IOException when the CSV data was not formatted right
+     * Write the data from the data table in CSV format to gzip-compressed files. The data file and the metadata file are
+     * compressed separately. Compression takes place on separate threads, overlapping with the serialization of the data.
+     * @param filename the file name to write the data to, e.g., ending in {@code .csv.gz}
+     * @param metaFilename the file name to write the metadata to
+     * @param table the data table to write
+     * @throws IOException on I/O error when writing the data
      * @throws TextSerializationException on unknown data type for serialization
      */
-    public static Table readData(final Reader reader, final Reader metaReader, final char separator, final char quotechar)
+    public static void writeGzippedData(final String filename, final String metaFilename, final Table table)
             throws IOException, TextSerializationException
     {
-        // Read the metadata file and reconstruct the data table
+        try (Writer writer = GzipStreams.writer(filename); Writer metaWriter = GzipStreams.writer(metaFilename))
+        {
+            writeData(writer, metaWriter, table);
+        }
+    }
+
+    /**
+     * Read the metadata of a table from a CSV metadata file.
+     * @param metaReader the reader for the metadata
+     * @param separator the delimiter to use for separating entries
+     * @param quotechar the character to use for quoted elements
+     * @param tableRow map that will be filled with the metadata of the table itself (id, description, className, unit)
+     * @return the columns of the table, in the order of the metadata file
+     * @throws IOException when the CSV metadata was not formatted right, or when a column class cannot be found
+     */
+    static List<Column<?>> readMetaData(final Reader metaReader, final char separator, final char quotechar,
+            final Map<String, String> tableRow) throws IOException
+    {
         try (NamedCsvReader csvMetaReader =
                 NamedCsvReader.builder().fieldSeparator(separator).quoteCharacter(quotechar).build(metaReader))
         {
@@ -272,7 +289,6 @@ public final class CsvData
 
             // table metadata
             List<Column<?>> columns = new ArrayList<>();
-            Map<String, String> tableRow = new LinkedHashMap<>();
             Iterator<NamedCsvRow> it = csvMetaReader.iterator();
             while (it.hasNext())
             {
@@ -304,58 +320,76 @@ public final class CsvData
                 }
             }
 
-            Throw.when(tableRow == null, IOException.class, "no table information in the metafile");
+            Throw.when(tableRow.size() == 0, IOException.class, "no table information in the metafile");
+            return columns;
+        }
+    }
 
-            // create table
-            Table table;
-            Consumer<Object[]> unserializableTable;
-            if (tableRow.get("className").equals(ListTable.class.getName()))
-            {
-                ListTable listTable = new ListTable(tableRow.get("id"), tableRow.get("description"), columns);
-                table = listTable;
-                unserializableTable = (data) -> listTable.addRow(data);
-            }
-            else
-            {
-                // fallback
-                ListTable listTable = new ListTable(tableRow.get("id"), tableRow.get("description"), columns);
-                table = listTable;
-                unserializableTable = (data) -> listTable.addRow(data);
-            }
+    /**
+     * Read the data from the CSV-file into the data table. Use the metadata to reconstruct the data table.
+     * @param reader the reader that can read the data, e.g. from a file
+     * @param metaReader the writer for the metadata
+     * @return Table the data table reconstructed from the meta data and filled with the data
+     * @param separator the delimiter to use for separating entries
+     * @param quotechar the character to use for quoted elements
+     * @throws IOException when the CSV data was not formatted right
+     * @throws TextSerializationException on unknown data type for serialization
+     */
+    public static Table readData(final Reader reader, final Reader metaReader, final char separator, final char quotechar)
+            throws IOException, TextSerializationException
+    {
+        // Read the metadata file and reconstruct the data table
+        Map<String, String> tableRow = new LinkedHashMap<>();
+        List<Column<?>> columns = readMetaData(metaReader, separator, quotechar, tableRow);
+        // create table
+        Table table;
+        Consumer<Object[]> unserializableTable;
+        if (tableRow.get("className").equals(ListTable.class.getName()))
+        {
+            ListTable listTable = new ListTable(tableRow.get("id"), tableRow.get("description"), columns);
+            table = listTable;
+            unserializableTable = (data) -> listTable.addRow(data);
+        }
+        else
+        {
+            // fallback
+            ListTable listTable = new ListTable(tableRow.get("id"), tableRow.get("description"), columns);
+            table = listTable;
+            unserializableTable = (data) -> listTable.addRow(data);
+        }
 
-            // Assemble the serializer array
-            TextSerializer<?>[] serializers = new TextSerializer[table.getNumberOfColumns()];
-            for (int i = 0; i < table.getNumberOfColumns(); i++)
+        // Assemble the serializer array
+        TextSerializer<?>[] serializers = new TextSerializer[table.getNumberOfColumns()];
+        for (int i = 0; i < table.getNumberOfColumns(); i++)
+        {
+            serializers[i] = TextSerializer.resolve(columns.get(i).getValueType());
+        }
+
+        // Read the data file
+        try (NamedCsvReader csvReader =
+                NamedCsvReader.builder().fieldSeparator(separator).quoteCharacter(quotechar).build(reader))
+        {
+            Set<String> header = csvReader.getHeader();
+            Throw.when(header.size() != columns.size(), IOException.class,
+                    "Number of columns in the data file does not match column metadata size");
+            for (int i = 0; i < columns.size(); i++)
             {
-                serializers[i] = TextSerializer.resolve(columns.get(i).getValueType());
+                Throw.when(!header.contains(columns.get(i).getId()), IOException.class,
+                        "Header with id %s not found in the data file", columns.get(i).getId());
             }
 
-            // Read the data file
-            try (NamedCsvReader csvReader =
-                    NamedCsvReader.builder().fieldSeparator(separator).quoteCharacter(quotechar).build(reader))
+            // Read the data file records
+            csvReader.forEach(row ->
             {
-                Set<String> header = csvReader.getHeader();
-                Throw.when(header.size() != columns.size(), IOException.class,
-                        "Number of columns in the data file does not match column metadata size");
+                Object[] values = new Object[columns.size()];
                 for (int i = 0; i < columns.size(); i++)
                 {
-                    Throw.when(!header.contains(columns.get(i).getId()), IOException.class,
-                            "Header with id %s not found in the data file", columns.get(i).getId());
+                    values[i] = TextSerializer.deserialize(serializers[i], row.getField(columns.get(i).getId()),
+                            columns.get(i));
                 }
-
-                // Read the data file records
-                csvReader.forEach(row ->
-                {
-                    Object[] values = new Object[columns.size()];
-                    for (int i = 0; i < columns.size(); i++)
-                    {
-                        values[i] = TextSerializer.deserialize(serializers[i], row.getField(columns.get(i).getId()),
-                                columns.get(i));
-                    }
-                    unserializableTable.accept(values); // addRow
-                });
-                return table;
-            }
+                unserializableTable.accept(values); // addRow
+            });
+            return table;
         }
     }
 
@@ -389,6 +423,24 @@ public final class CsvData
         }
     }
 
+    /**
+     * Read the data from a gzip-compressed CSV-file into the data table. Use the gzip-compressed metadata file to reconstruct
+     * the data table.
+     * @param filename the file name to read the data from
+     * @param metaFilename the file name to read the metadata from
+     * @return Table the data table reconstructed from the meta data and filled with the data
+     * @throws IOException when the CSV data was not formatted right
+     * @throws TextSerializationException on unknown data type for serialization
+     */
+    public static Table readGzippedData(final String filename, final String metaFilename)
+            throws IOException, TextSerializationException
+    {
+        try (Reader reader = GzipStreams.reader(filename); Reader metaReader = GzipStreams.reader(metaFilename))
+        {
+            return readData(reader, metaReader);
+        }
+    }
+
     /**
      * Read the data from a CSV-file inside a zip file. The metadata file should be in the same zipfile. Use the metadata to
      * reconstruct the data table.
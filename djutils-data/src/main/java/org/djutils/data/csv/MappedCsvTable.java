@@ -0,0 +1,514 @@
+package org.djutils.data.csv;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.djutils.data.Column;
+import org.djutils.data.Row;
+import org.djutils.data.Table;
+import org.djutils.data.serialization.TextSerializationException;
+import org.djutils.data.serialization.TextSerializer;
+import org.djutils.exceptions.Throw;
+
+/**
+ * Read-only table on top of a memory-mapped CSV file, as written by {@code CsvData}. Opening the table only reads the metadata
+ * and maps the data file in memory; nothing is parsed yet. On first access, one scan over the bytes of the file builds an
+ * index with the offset of each line. Rows are only parsed when they are iterated or fetched by row number, and the values of
+ * a column can be decoded for all rows at once and are then cached. The table can be used as follows:
+ *
+ * <pre>
+ * MappedCsvTable table = MappedCsvTable.open("c:/data/data.csv", "c:/data/data.meta.csv");
+ * Row row = table.getRow(1_000_000);
+ * Object[] speeds = table.getColumnValues(table.getColumnNumber("speed"));
+ * </pre>
+ *
+ * The file is mapped in segments of at most 1 GiB, so files larger than 2 GiB are supported. The file should be encoded in
+ * UTF-8 (or ASCII), and should not be changed while the table is in use. Lines are separated by LF or CRLF; line breaks within
+ * quoted fields are allowed.
+ * <p>
+ * Copyright (c) 2020-2025 Delft University of Technology, PO Box 5, 2600 AA, Delft, the Netherlands. All rights reserved. <br>
+ * BSD-style license. See <a href="https://djutils.org/docs/current/djutils/licenses.html">DJUTILS License</a>.
+ * </p>
+ * @author <a href="https://github.com/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://tudelft.nl/staff/p.knoppers-1">Peter Knoppers</a>
+ * @author <a href="https://dittlab.tudelft.nl">Wouter Schakel</a>
+ */
+public class MappedCsvTable extends Table
+{
+    /** Number of bits for the size of a mapped segment. */
+    private static final int SEGMENT_BITS = 30;
+
+    /** Size of a mapped segment (1 GiB). */
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_BITS;
+
+    /** Size of the buffer into which the file is copied in bulk while scanning for line breaks (64 kiB). */
+    private static final int SCAN_BUFFER_SIZE = 1 << 16;
+
+    /** Mapped segments of the file. */
+    private final MappedByteBuffer[] segments;
+
+    /** Size of the file in bytes. */
+    private final long fileSize;
+
+    /** Separator character. */
+    private final byte separator;
+
+    /** Quote character. */
+    private final byte quote;
+
+    /** Position of each table column in the fields of a line. */
+    private final int[] fieldPositions;
+
+    /** Serializers per table column. */
+    private final TextSerializer<?>[] serializers;
+
+    /** Start offsets of the data lines, plus the end offset of the data as last element; {@code null} until indexed. */
+    private volatile long[] lineOffsets = null;
+
+    /** Decoded values per column number. */
+    private final Map<Integer, Object[]> columnCache = new ConcurrentHashMap<>();
+
+    /**
+     * Create a table on a memory-mapped CSV file.
+     * @param path path of the CSV data file
+     * @param tableId id of the table
+     * @param description description of the table
+     * @param columns columns of the table
+     * @param separator the delimiter to use for separating entries
+     * @param quotechar the character to use for quoted elements
+     * @throws IOException when the file cannot be mapped, or when the header does not match the columns
+     * @throws TextSerializationException on unknown data type for serialization
+     */
+    public MappedCsvTable(final Path path, final String tableId, final String description, final List<Column<?>> columns,
+            final char separator, final char quotechar) throws IOException, TextSerializationException
+    {
+        super(tableId, description, columns);
+        Throw.when(separator > 127 || quotechar > 127, IllegalArgumentException.class,
+                "separator and quote character should be ASCII characters");
+        this.separator = (byte) separator;
+        this.quote = (byte) quotechar;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            this.fileSize = channel.size();
+            int numberOfSegments = (int) ((this.fileSize + SEGMENT_SIZE - 1) >>> SEGMENT_BITS);
+            this.segments = new MappedByteBuffer[numberOfSegments];
+            for (int i = 0; i < numberOfSegments; i++)
+            {
+                long start = ((long) i) << SEGMENT_BITS;
+                this.segments[i] =
+                        channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, this.fileSize - start));
+            }
+        }
+
+        // header
+        long headerEnd = nextLine(0L);
+        List<String> header = parseFields(0L, headerEnd);
+        Throw.when(header.size() != columns.size(), IOException.class,
+                "Number of columns in the data file does not match column metadata size");
+        this.fieldPositions = new int[columns.size()];
+        this.serializers = new TextSerializer[columns.size()];
+        for (int i = 0; i < columns.size(); i++)
+        {
+            this.fieldPositions[i] = header.indexOf(columns.get(i).getId());
+            Throw.when(this.fieldPositions[i] < 0, IOException.class, "Header with id %s not found in the data file",
+                    columns.get(i).getId());
+            this.serializers[i] = TextSerializer.resolve(columns.get(i).getValueType());
+        }
+    }
+
+    /**
+     * Open a memory-mapped CSV file with its metadata file, as written by {@code CsvData.writeData}.
+     * @param filename the file name of the CSV data file
+     * @param metaFilename the file name of the CSV metadata file
+     * @param separator the delimiter to use for separating entries
+     * @param quotechar the character to use for quoted elements
+     * @return a table on the memory-mapped CSV file
+     * @throws IOException when the files cannot be read, or when the metadata or header is not formatted right
+     * @throws TextSerializationException on unknown data type for serialization
+     */
+    public static MappedCsvTable open(final String filename, final String metaFilename, final char separator,
+            final char quotechar) throws IOException, TextSerializationException
+    {
+        try (Reader metaReader = Files.newBufferedReader(Path.of(metaFilename), StandardCharsets.UTF_8))
+        {
+            Map<String, String> tableRow = new LinkedHashMap<>();
+            List<Column<?>> columns = CsvData.readMetaData(metaReader, separator, quotechar, tableRow);
+            return new MappedCsvTable(Path.of(filename), tableRow.get("id"), tableRow.get("description"), columns, separator,
+                    quotechar);
+        }
+    }
+
+    /**
+     * Open a memory-mapped CSV file with its metadata file, as written by {@code CsvData.writeData}, with ',' as separator
+     * and '"' as quote character.
+     * @param filename the file name of the CSV data file
+     * @param metaFilename the file name of the CSV metadata file
+     * @return a table on the memory-mapped CSV file
+     * @throws IOException when the files cannot be read, or when the metadata or header is not formatted right
+     * @throws TextSerializationException on unknown data type for serialization
+     */
+    public static MappedCsvTable open(final String filename, final String metaFilename)
+            throws IOException, TextSerializationException
+    {
+        return open(filename, metaFilename, ',', '"');
+    }
+
+    /**
+     * Return the byte at a position in the file.
+     * @param position position in the file
+     * @return byte at the position
+     */
+    private byte byteAt(final long position)
+    {
+        return this.segments[(int) (position >>> SEGMENT_BITS)].get((int) (position & (SEGMENT_SIZE - 1)));
+    }
+
+    /**
+     * Copy a range of bytes of the file into an array.
+     * @param from first position
+     * @param to position after the last byte
+     * @return the bytes
+     */
+    private byte[] bytes(final long from, final long to)
+    {
+        byte[] result = new byte[(int) (to - from)];
+        copy(from, result, result.length);
+        return result;
+    }
+
+    /**
+     * Copy a range of bytes of the file into the start of an array, with one bulk get per mapped segment.
+     * @param from first position
+     * @param destination array to copy the bytes into
+     * @param length number of bytes to copy
+     */
+    private void copy(final long from, final byte[] destination, final int length)
+    {
+        long position = from;
+        int offset = 0;
+        while (offset < length)
+        {
+            int segment = (int) (position >>> SEGMENT_BITS);
+            int index = (int) (position & (SEGMENT_SIZE - 1));
+            int part = (int) Math.min(length - offset, SEGMENT_SIZE - index);
+            this.segments[segment].get(index, destination, offset, part);
+            position += part;
+            offset += part;
+        }
+    }
+
+    /**
+     * Return the start position of the next line, skipping line breaks within quoted fields.
+     * @param from start position of the current line
+     * @return start position of the next line, or the file size when there is no next line
+     */
+    private long nextLine(final long from)
+    {
+        byte[] buffer = new byte[(int) Math.min(SCAN_BUFFER_SIZE, this.fileSize - from)];
+        boolean inQuotes = false;
+        for (long chunkStart = from; chunkStart < this.fileSize; chunkStart += buffer.length)
+        {
+            int length = (int) Math.min(buffer.length, this.fileSize - chunkStart);
+            copy(chunkStart, buffer, length);
+            for (int i = 0; i < length; i++)
+            {
+                byte b = buffer[i];
+                if (b == this.quote)
+                {
+                    inQuotes = !inQuotes;
+                }
+                else if (b == '\n' && !inQuotes)
+                {
+                    return chunkStart + i + 1;
+                }
+            }
+        }
+        return this.fileSize;
+    }
+
+    /**
+     * Return the line offsets, building the index on the first call.
+     * @return the start offsets of the data lines, plus the end offset of the data as last element
+     */
+    private long[] lineOffsets()
+    {
+        long[] offsets = this.lineOffsets;
+        if (offsets == null)
+        {
+            synchronized (this)
+            {
+                offsets = this.lineOffsets;
+                if (offsets == null)
+                {
+                    offsets = buildIndex();
+                    this.lineOffsets = offsets;
+                }
+            }
+        }
+        return offsets;
+    }
+
+    /**
+     * Scan the file once, and build the index with the start offset of each data line. The file is copied in bulk into a
+     * local buffer, so the scan does not pay for a bounds-checked access of the mapped buffer per byte.
+     * @return the start offsets of the data lines, plus the end offset of the data as last element
+     */
+    private long[] buildIndex()
+    {
+        long[] offsets = new long[1024];
+        int count = 0;
+        long lineStart = nextLine(0L); // skip header
+        boolean inQuotes = false;
+        byte previous = 0;
+        byte[] buffer = new byte[(int) Math.min(SCAN_BUFFER_SIZE, this.fileSize - lineStart)];
+        for (long chunkStart = lineStart; chunkStart < this.fileSize; chunkStart += buffer.length)
+        {
+            int length = (int) Math.min(buffer.length, this.fileSize - chunkStart);
+            copy(chunkStart, buffer, length);
+            for (int i = 0; i < length; i++)
+            {
+                byte b = buffer[i];
+                if (b == this.quote)
+                {
+                    inQuotes = !inQuotes;
+                }
+                else if (b == '\n' && !inQuotes)
+                {
+                    long position = chunkStart + i;
+                    long lineLength = position - lineStart;
+                    if (lineLength > 1 || (lineLength == 1 && previous != '\r')) // skip empty lines
+                    {
+                        if (count == offsets.length)
+                        {
+                            Throw.when(count == Integer.MAX_VALUE - 8, IllegalStateException.class, "too many lines in file");
+                            offsets = Arrays.copyOf(offsets, (int) Math.min(Integer.MAX_VALUE - 8, 2L * count));
+                        }
+                        offsets[count++] = lineStart;
+                    }
+                    lineStart = position + 1;
+                }
+                previous = b;
+            }
+        }
+        if (lineStart < this.fileSize)
+        {
+            if (count == offsets.length)
+            {
+                offsets = Arrays.copyOf(offsets, count + 1);
+            }
+            offsets[count++] = lineStart;
+        }
+        offsets = Arrays.copyOf(offsets, count + 1);
+        offsets[count] = this.fileSize;
+        return offsets;
+    }
+
+    /**
+     * Return the end of a line, excluding the line terminator.
+     * @param lineStart start of the line
+     * @param nextLineStart start of the next line
+     * @return end of the line content
+     */
+    private long lineEnd(final long lineStart, final long nextLineStart)
+    {
+        long end = nextLineStart;
+        if (end > lineStart && byteAt(end - 1) == '\n')
+        {
+            end--;
+        }
+        if (end > lineStart && byteAt(end - 1) == '\r')
+        {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * Parse the fields of a line.
+     * @param from start of the line
+     * @param to start of the next line
+     * @return the fields of the line, unquoted
+     */
+    private List<String> parseFields(final long from, final long to)
+    {
+        String line = new String(bytes(from, lineEnd(from, to)), StandardCharsets.UTF_8);
+        char sep = (char) this.separator;
+        char q = (char) this.quote;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean inQuotes = false;
+        for (int i = 0; i < line.length(); i++)
+        {
+            char c = line.charAt(i);
+            if (inQuotes)
+            {
+                if (c == q)
+                {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == q)
+                    {
+                        field.append(q);
+                        i++;
+                    }
+                    else
+                    {
+                        inQuotes = false;
+                    }
+                }
+                else
+                {
+                    field.append(c);
+                }
+            }
+            else if (c == q)
+            {
+                inQuotes = true;
+            }
+            else if (c == sep)
+            {
+                fields.add(field.toString());
+                field.setLength(0);
+            }
+            else
+            {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Return the number of data rows in the file. The first call builds the line index.
+     * @return the number of data rows in the file
+     */
+    @Override
+    public int getNumberOfRows()
+    {
+        return lineOffsets().length - 1;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return getNumberOfRows() == 0;
+    }
+
+    /**
+     * Parse and return a row.
+     * @param rowNumber the row number, starting at 0 for the first line after the header
+     * @return the parsed row
+     * @throws IndexOutOfBoundsException when the row number is not valid
+     */
+    public Row getRow(final int rowNumber)
+    {
+        long[] offsets = lineOffsets();
+        Throw.when(rowNumber < 0 || rowNumber >= offsets.length - 1, IndexOutOfBoundsException.class,
+                "row number %d not in range [0, %d)", rowNumber, offsets.length - 1);
+        List<String> fields = parseFields(offsets[rowNumber], offsets[rowNumber + 1]);
+        Object[] values = new Object[getNumberOfColumns()];
+        for (int i = 0; i < values.length; i++)
+        {
+            Object[] cached = this.columnCache.get(i);
+            values[i] = cached != null ? cached[rowNumber] : deserialize(i, fields);
+        }
+        return new Row(this, values);
+    }
+
+    /**
+     * Deserialize the value of a column from the fields of a line.
+     * @param columnNumber column number
+     * @param fields fields of the line
+     * @return the value of the column
+     */
+    private Object deserialize(final int columnNumber, final List<String> fields)
+    {
+        int position = this.fieldPositions[columnNumber];
+        String text = position < fields.size() ? fields.get(position) : null;
+        return TextSerializer.deserialize(this.serializers[columnNumber], text, getColumn(columnNumber));
+    }
+
+    /**
+     * Return the values of a column for all rows. The values are decoded on the first call and cached afterwards.
+     * @param columnNumber the column number
+     * @return the values of the column for all rows, in row order; the array should not be changed
+     * @throws IndexOutOfBoundsException when the column number is not valid
+     */
+    public Object[] getColumnValues(final int columnNumber)
+    {
+        Throw.when(columnNumber < 0 || columnNumber >= getNumberOfColumns(), IndexOutOfBoundsException.class,
+                "column number %d not valid", columnNumber);
+        return this.columnCache.computeIfAbsent(columnNumber, (c) ->
+        {
+            long[] offsets = lineOffsets();
+            Object[] values = new Object[offsets.length - 1];
+            for (int r = 0; r < values.length; r++)
+            {
+                values[r] = deserialize(c, parseFields(offsets[r], offsets[r + 1]));
+            }
+            return values;
+        });
+    }
+
+    /**
+     * Clear the cached column values, to free memory.
+     */
+    public void clearColumnCache()
+    {
+        this.columnCache.clear();
+    }
+
+    @Override
+    public Iterator<Row> iterator()
+    {
+        int numberOfRows = getNumberOfRows();
+        return new Iterator<Row>()
+        {
+            /** Next row number. */
+            private int next = 0;
+
+            @Override
+            public boolean hasNext()
+            {
+                return this.next < numberOfRows;
+            }
+
+            @Override
+            public Row next()
+            {
+                Throw.when(!hasNext(), NoSuchElementException.class, "no more rows");
+                return getRow(this.next++);
+            }
+        };
+    }
+
+    /**
+     * Return the size of the mapped file.
+     * @return the size of the mapped file in bytes
+     */
+    public long getFileSize()
+    {
+        return this.fileSize;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "MappedCsvTable [id=" + getId() + ", fileSize=" + this.fileSize + ", indexed=" + (this.lineOffsets != null)
+                + "]";
+    }
+
+}
@@ -0,0 +1,273 @@
+package org.djutils.data.io;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPOutputStream;
+
+import org.djutils.exceptions.Throw;
+
+/**
+ * Output stream that gzip-compresses its data on a separate thread, so compression overlaps with the production of the data.
+ * The written bytes are collected in large chunks, which are handed over to the compressor thread through a bounded queue. A
+ * fixed number of chunks is recycled, so the memory use is bounded and no garbage is created per chunk. Errors of the
+ * compressor thread are reported by the next call to {@code write}, {@code flush} or {@code close}. The compressed data is
+ * only guaranteed to be complete after {@code close}. The stream is not thread-safe; it should be written by one thread.
+ * <p>
+ * Copyright (c) 2020-2025 Delft University of Technology, PO Box 5, 2600 AA, Delft, the Netherlands. All rights reserved. <br>
+ * BSD-style license. See <a href="https://djutils.org/docs/current/djutils/licenses.html">DJUTILS License</a>.
+ * </p>
+ * @author <a href="https://github.com/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://tudelft.nl/staff/p.knoppers-1">Peter Knoppers</a>
+ * @author <a href="https://dittlab.tudelft.nl">Wouter Schakel</a>
+ */
+public class AsyncGzipOutputStream extends OutputStream
+{
+    /** Size of a chunk that is handed over to the compressor thread. */
+    private static final int CHUNK_SIZE = 1 << 18;
+
+    /** Number of chunks in use. */
+    private static final int NUMBER_OF_CHUNKS = 4;
+
+    /** Size of the buffer of the underlying stream. */
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 20;
+
+    /** Size of the deflater buffer. */
+    private static final int DEFLATE_BUFFER_SIZE = 1 << 16;
+
+    /** Chunk that signals the end of the data to the compressor thread. */
+    private static final Chunk END = new Chunk(0);
+
+    /** Filled chunks, to be compressed. */
+    private final BlockingQueue<Chunk> filled = new ArrayBlockingQueue<>(NUMBER_OF_CHUNKS + 1);
+
+    /** Free chunks, to be filled. */
+    private final BlockingQueue<Chunk> free = new ArrayBlockingQueue<>(NUMBER_OF_CHUNKS);
+
+    /** Compressor thread. */
+    private final Thread compressor;
+
+    /** Error of the compressor thread, if any. */
+    private volatile IOException failure = null;
+
+    /** Chunk that is currently being filled. */
+    private Chunk current;
+
+    /** Whether the stream has been closed. */
+    private boolean closed = false;
+
+    /**
+     * Create a stream that gzip-compresses its data on a separate thread, and writes the compressed data to an underlying
+     * stream. The underlying stream is closed when this stream is closed.
+     * @param out the underlying stream
+     * @throws IOException when the gzip header cannot be written
+     * @throws NullPointerException when out is null
+     */
+    public AsyncGzipOutputStream(final OutputStream out) throws IOException
+    {
+        Throw.whenNull(out, "out may not be null");
+        GZIPOutputStream gzip = new GZIPOutputStream(new BufferedOutputStream(out, OUTPUT_BUFFER_SIZE), DEFLATE_BUFFER_SIZE);
+        for (int i = 0; i < NUMBER_OF_CHUNKS; i++)
+        {
+            this.free.add(new Chunk(CHUNK_SIZE));
+        }
+        this.current = this.free.poll();
+        this.compressor = new Thread(() -> compress(gzip), "gzip-compressor");
+        this.compressor.setDaemon(true);
+        this.compressor.start();
+    }
+
+    /**
+     * Compress the filled chunks until the end chunk is received. After an error or an interrupt, the remaining chunks are
+     * drained and returned to the free queue without being compressed, so the writing thread never blocks; it receives the
+     * error on its next call. The gzip stream, and with it the underlying stream, is always closed.
+     * @param gzip the gzip stream to write to
+     */
+    private void compress(final GZIPOutputStream gzip)
+    {
+        try
+        {
+            while (true)
+            {
+                Chunk chunk;
+                try
+                {
+                    chunk = this.filled.take();
+                }
+                catch (InterruptedException exception)
+                {
+                    fail(new InterruptedIOException("gzip compressor thread interrupted"));
+                    continue;
+                }
+                if (chunk == END)
+                {
+                    break;
+                }
+                if (this.failure == null)
+                {
+                    try
+                    {
+                        gzip.write(chunk.data, 0, chunk.length);
+                    }
+                    catch (IOException exception)
+                    {
+                        fail(exception);
+                    }
+                }
+                chunk.length = 0;
+                // never blocks or fails: the free queue can hold all chunks
+                this.free.offer(chunk);
+            }
+        }
+        finally
+        {
+            try
+            {
+                gzip.close();
+            }
+            catch (IOException exception)
+            {
+                fail(exception);
+            }
+        }
+    }
+
+    /**
+     * Record an error of the compressor thread, unless an earlier error was already recorded.
+     * @param exception the error
+     */
+    private void fail(final IOException exception)
+    {
+        if (this.failure == null)
+        {
+            this.failure = exception;
+        }
+    }
+
+    /**
+     * Throw the error of the compressor thread, if any.
+     * @throws IOException when the compressor thread failed
+     */
+    private void checkFailure() throws IOException
+    {
+        if (this.failure != null)
+        {
+            throw new IOException("gzip compression failed", this.failure);
+        }
+    }
+
+    /**
+     * Hand over the current chunk to the compressor thread, and take a free chunk.
+     * @throws IOException when the thread is interrupted or when the compressor thread failed
+     */
+    private void handOver() throws IOException
+    {
+        checkFailure();
+        try
+        {
+            this.filled.put(this.current);
+            this.current = this.free.take();
+        }
+        catch (InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for the gzip compressor thread");
+        }
+    }
+
+    @Override
+    public void write(final int b) throws IOException
+    {
+        Throw.when(this.closed, IOException.class, "stream closed");
+        if (this.current.length == CHUNK_SIZE)
+        {
+            handOver();
+        }
+        this.current.data[this.current.length++] = (byte) b;
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException
+    {
+        Throw.when(this.closed, IOException.class, "stream closed");
+        int offset = off;
+        int remaining = len;
+        while (remaining > 0)
+        {
+            if (this.current.length == CHUNK_SIZE)
+            {
+                handOver();
+            }
+            int n = Math.min(remaining, CHUNK_SIZE - this.current.length);
+            System.arraycopy(b, offset, this.current.data, this.current.length, n);
+            this.current.length += n;
+            offset += n;
+            remaining -= n;
+        }
+    }
+
+    /**
+     * Hand over the buffered data to the compressor thread. Note that this does not guarantee that the data has been written to
+     * the underlying stream.
+     */
+    @Override
+    public void flush() throws IOException
+    {
+        Throw.when(this.closed, IOException.class, "stream closed");
+        if (this.current.length > 0)
+        {
+            handOver();
+        }
+        checkFailure();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if (this.closed)
+        {
+            return;
+        }
+        this.closed = true;
+        try
+        {
+            if (this.current.length > 0)
+            {
+                this.filled.put(this.current);
+            }
+            this.filled.put(END);
+            this.compressor.join();
+        }
+        catch (InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for the gzip compressor thread");
+        }
+        checkFailure();
+    }
+
+    /**
+     * Chunk of data.
+     */
+    private static class Chunk
+    {
+        /** Data. */
+        private final byte[] data;
+
+        /** Number of bytes of data in the chunk. */
+        private int length = 0;
+
+        /**
+         * Create a chunk.
+         * @param size size of the chunk
+         */
+        Chunk(final int size)
+        {
+            this.data = new byte[size];
+        }
+    }
+
+}
@@ -0,0 +1,96 @@
+package org.djutils.data.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Factory methods for UTF-8 readers and writers on gzip-compressed streams and files, with large buffers. The writers compress
+ * on a separate thread using an {@link AsyncGzipOutputStream}.
+ * <p>
+ * Copyright (c) 2020-2025 Delft University of Technology, PO Box 5, 2600 AA, Delft, the Netherlands. All rights reserved. <br>
+ * BSD-style license. See <a href="https://djutils.org/docs/current/djutils/licenses.html">DJUTILS License</a>.
+ * </p>
+ * @author <a href="https://github.com/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://tudelft.nl/staff/p.knoppers-1">Peter Knoppers</a>
+ * @author <a href="https://dittlab.tudelft.nl">Wouter Schakel</a>
+ */
+public final class GzipStreams
+{
+    /** Size of the character buffers. */
+    private static final int CHAR_BUFFER_SIZE = 1 << 16;
+
+    /** Size of the buffer of the compressed input. */
+    private static final int INPUT_BUFFER_SIZE = 1 << 20;
+
+    /** Size of the inflater buffer. */
+    private static final int INFLATE_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Utility class, no public constructor.
+     */
+    private GzipStreams()
+    {
+        // utility class
+    }
+
+    /**
+     * Create a UTF-8 writer that gzip-compresses to an output stream. Closing the writer closes the output stream.
+     * @param out the output stream for the compressed data
+     * @return a buffered UTF-8 writer that compresses on a separate thread
+     * @throws IOException when the gzip header cannot be written
+     */
+    public static Writer writer(final OutputStream out) throws IOException
+    {
+        return new BufferedWriter(new OutputStreamWriter(new AsyncGzipOutputStream(out), StandardCharsets.UTF_8),
+                CHAR_BUFFER_SIZE);
+    }
+
+    /**
+     * Create a UTF-8 writer that gzip-compresses to a file.
+     * @param filename the name of the file
+     * @return a buffered UTF-8 writer that compresses on a separate thread
+     * @throws IOException when the file cannot be created
+     */
+    public static Writer writer(final String filename) throws IOException
+    {
+        return writer(Files.newOutputStream(Path.of(filename)));
+    }
+
+    /**
+     * Create a UTF-8 reader that decompresses gzip-compressed data from an input stream. Closing the reader closes the input
+     * stream.
+     * @param in the input stream with the compressed data
+     * @return a buffered UTF-8 reader of the decompressed data
+     * @throws IOException when the gzip header cannot be read
+     */
+    public static Reader reader(final InputStream in) throws IOException
+    {
+        return new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new BufferedInputStream(in, INPUT_BUFFER_SIZE), INFLATE_BUFFER_SIZE),
+                StandardCharsets.UTF_8), CHAR_BUFFER_SIZE);
+    }
+
+    /**
+     * Create a UTF-8 reader that decompresses a gzip-compressed file.
+     * @param filename the name of the file
+     * @return a buffered UTF-8 reader of the decompressed data
+     * @throws IOException when the file cannot be opened
+     */
+    public static Reader reader(final String filename) throws IOException
+    {
+        return reader(Files.newInputStream(Path.of(filename)));
+    }
+
+}
@@ -3,20 +3,25 @@ package org.djutils.data.json;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.IllegalFormatException;
 import java.util.List;
 import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import org.djutils.data.Column;
 import org.djutils.data.ListTable;
 import org.djutils.data.Row;
 import org.djutils.data.Table;
+import org.djutils.data.io.GzipStreams;
 import org.djutils.data.serialization.TextSerializationException;
 import org.djutils.data.serialization.TextSerializer;
 import org.djutils.exceptions.Throw;
+import org.djutils.io.CompressedFileWriter;
 import org.djutils.primitives.Primitive;
 
 import com.google.gson.stream.JsonReader;
@@ -94,10 +99,24 @@ public final class JsonData
      * @throws IOException on I/O error when writing the data
      * @throws TextSerializationException on unknown data type for serialization
      */
-    @SuppressWarnings("resource")
     public static void writeData(final Writer writer, final Table dataTable) throws IOException, TextSerializationException
     {
-        try (JsonWriter jw = new JsonWriter(writer);)
+        writeData(writer, true, dataTable);
+    }
+
+    /**
+     * Write the data from the data table in JSON format.
+     * @param writer the writer that writes the data, e.g. to a file
+     * @param closeWriter whether to close the writer; when false, the writer is flushed
+     * @param dataTable the data table to write
+     * @throws IOException on I/O error when writing the data
+     * @throws TextSerializationException on unknown data type for serialization
+     */
+    private static void writeData(final Writer writer, final boolean closeWriter, final Table dataTable)
+            throws IOException, TextSerializationException
+    {
+        JsonWriter jw = new JsonWriter(writer);
+        try
         {
 
             jw.setIndent("  ");
@@ -157,6 +176,17 @@ public final class JsonData
             jw.endArray(); // data array
             jw.endObject(); // data
         }
+        finally
+        {
+            if (closeWriter)
+            {
+                jw.close();
+            }
+            else
+            {
+                jw.flush();
+            }
+        }
     }
 
     /**
@@ -183,6 +213,34 @@ public final class JsonData
         }
     }
 
+    /**
+     * Write the data from the data table in JSON format as an entry in a zip file.
+     * @param writer the writer for the zip file
+     * @param jsonName name of the JSON file within the zip file
+     * @param dataTable the data table to write
+     * @throws IOException on I/O error when writing the data
+     * @throws TextSerializationException on unknown data type for serialization
+     */
+    public static void writeZippedData(final CompressedFileWriter writer, final String jsonName, final Table dataTable)
+            throws IOException, TextSerializationException
+    {
+        writeData(writer.next(jsonName), false, dataTable);
+    }
+
+    /**
+     * Write the data from the data table in JSON format to a gzip-compressed file. Compression takes place on a separate
+     * thread, overlapping with the serialization of the data.
+     * @param filename the file name to write the data to, e.g., ending in {@code .json.gz}
+     * @param dataTable the data table to write
+     * @throws IOException on I/O error when writing the data
+     * @throws TextSerializationException on unknown data type for serialization
+     */
+    public static void writeGzippedData(final String filename, final Table dataTable)
+            throws IOException, TextSerializationException
+    {
+        writeData(GzipStreams.writer(filename), true, dataTable);
+    }
+
     /**
      * Read the data from the csv-file into the data table. Use the metadata to reconstruct the data table.
      * @param reader the reader that can read the data, e.g. from a file
@@ -341,4 +399,35 @@ public final class JsonData
         }
     }
 
+    /**
+     * Read the data from a JSON file inside a zip file into the data table.
+     * @param fileName file name of the zip file
+     * @param jsonName name of the JSON file, without path
+     * @return dataTable the data table reconstructed from the meta data and filled with the data
+     * @throws IOException on I/O error when reading the data
+     * @throws TextSerializationException on unknown data type for serialization
+     */
+    public static Table readZippedData(final String fileName, final String jsonName)
+            throws IOException, TextSerializationException
+    {
+        try (ZipFile zipFile = new ZipFile(fileName))
+        {
+            ZipEntry zipEntry = zipFile.getEntry(jsonName);
+            Throw.whenNull(zipEntry, "File %s not found in %s.", jsonName, fileName);
+            return readData(new InputStreamReader(zipFile.getInputStream(zipEntry)));
+        }
+    }
+
+    /**
+     * Read the data from a gzip-compressed JSON file into the data table.
+     * @param filename the file name to read the data from
+     * @return dataTable the data table reconstructed from the meta data and filled with the data
+     * @throws IOException on I/O error when reading the data
+     * @throws TextSerializationException on unknown data type for serialization
+     */
+    public static Table readGzippedData(final String filename) throws IOException, TextSerializationException
+    {
+        return readData(GzipStreams.reader(filename));
+    }
+
 }
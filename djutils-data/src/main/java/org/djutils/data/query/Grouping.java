@@ -0,0 +1,168 @@
+package org.djutils.data.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.Supplier;
+
+import org.djutils.data.Column;
+import org.djutils.data.Row;
+import org.djutils.exceptions.Throw;
+
+/**
+ * Grouping of the rows of a query by the values of one or more key columns. Each group is identified by a list with the key
+ * values, in the order of the key columns. The groups are aggregated into summarizers of a free type, e.g., a {@code Tally}
+ * or a {@code Counter} from djutils-stats, as follows:
+ *
+ * <pre>
+ * Map&lt;List&lt;Object&gt;, Tally&gt; speeds = new Query(table).groupBy(scenario, lane)
+ *         .aggregate(speed, () -&gt; new Tally("speed"), Tally::register);
+ * </pre>
+ *
+ * The groups are returned in the order in which their first row was encountered.
+ * <p>
+ * Copyright (c) 2020-2025 Delft University of Technology, PO Box 5, 2600 AA, Delft, the Netherlands. All rights reserved. <br>
+ * BSD-style license. See <a href="https://djutils.org/docs/current/djutils/licenses.html">DJUTILS License</a>.
+ * </p>
+ * @author <a href="https://github.com/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://tudelft.nl/staff/p.knoppers-1">Peter Knoppers</a>
+ * @author <a href="https://dittlab.tudelft.nl">Wouter Schakel</a>
+ */
+public class Grouping
+{
+    /** Query that provides the rows. */
+    private final Query query;
+
+    /** Key columns. */
+    private final List<Column<?>> keyColumns;
+
+    /** Column numbers of the key columns. */
+    private final int[] keyColumnNumbers;
+
+    /**
+     * Create a grouping of the rows of a query. Use {@code Query.groupBy(...)} to create a grouping.
+     * @param query the query that provides the rows
+     * @param keyColumns the key columns
+     * @throws NullPointerException when query or keyColumns is null
+     * @throws IllegalArgumentException when there are no key columns, or when a key column is not in the table
+     */
+    Grouping(final Query query, final Column<?>... keyColumns)
+    {
+        Throw.whenNull(query, "query may not be null");
+        Throw.whenNull(keyColumns, "keyColumns may not be null");
+        Throw.when(keyColumns.length == 0, IllegalArgumentException.class, "there should be at least one key column");
+        this.query = query;
+        this.keyColumns = List.of(keyColumns);
+        this.keyColumnNumbers = new int[keyColumns.length];
+        for (int i = 0; i < keyColumns.length; i++)
+        {
+            this.keyColumnNumbers[i] = query.getTable().getColumnNumber(keyColumns[i]);
+        }
+    }
+
+    /**
+     * Returns the key columns.
+     * @return the key columns
+     */
+    public List<Column<?>> getKeyColumns()
+    {
+        return this.keyColumns;
+    }
+
+    /**
+     * Returns the key of a row.
+     * @param row the row
+     * @return the key values of the row, in the order of the key columns
+     */
+    public List<Object> key(final Row row)
+    {
+        Object[] key = new Object[this.keyColumnNumbers.length];
+        for (int i = 0; i < key.length; i++)
+        {
+            key[i] = row.getValue(this.keyColumnNumbers[i]);
+        }
+        return Arrays.asList(key);
+    }
+
+    /**
+     * Aggregate the rows of each group into a summarizer.
+     * @param factory supplier of a new summarizer for each group
+     * @param accumulator function that registers a row in the summarizer of its group
+     * @param <A> summarizer type
+     * @return the summarizer per group key
+     * @throws NullPointerException when factory or accumulator is null
+     */
+    public <A> Map<List<Object>, A> aggregate(final Supplier<? extends A> factory, final BiConsumer<? super A, Row> accumulator)
+    {
+        Throw.whenNull(factory, "factory may not be null");
+        Throw.whenNull(accumulator, "accumulator may not be null");
+        Map<List<Object>, A> result = new LinkedHashMap<>();
+        for (Row row : this.query)
+        {
+            accumulator.accept(result.computeIfAbsent(key(row), (k) -> factory.get()), row);
+        }
+        return result;
+    }
+
+    /**
+     * Aggregate the numeric values of a column for each group into a summarizer. {@code null} values are skipped, but still
+     * create the group. The values are converted with {@code Number.doubleValue()}, which returns the SI value for djunits
+     * scalars.
+     * @param valueColumn the column with the values to aggregate
+     * @param factory supplier of a new summarizer for each group
+     * @param accumulator function that registers a value in the summarizer of its group
+     * @param <A> summarizer type
+     * @return the summarizer per group key
+     * @throws NullPointerException when valueColumn, factory or accumulator is null
+     * @throws IllegalArgumentException when the value column is not in the table
+     */
+    public <A> Map<List<Object>, A> aggregate(final Column<? extends Number> valueColumn, final Supplier<? extends A> factory,
+            final ObjDoubleConsumer<? super A> accumulator)
+    {
+        Throw.whenNull(valueColumn, "valueColumn may not be null");
+        Throw.whenNull(accumulator, "accumulator may not be null");
+        int valueColumnNumber = this.query.getTable().getColumnNumber(valueColumn);
+        return aggregate(factory, (summarizer, row) ->
+        {
+            Object value = row.getValue(valueColumnNumber);
+            if (value != null)
+            {
+                accumulator.accept(summarizer, ((Number) value).doubleValue());
+            }
+        });
+    }
+
+    /**
+     * Returns the rows of each group.
+     * @return the rows per group key
+     */
+    public Map<List<Object>, List<Row>> getGroups()
+    {
+        return aggregate(ArrayList::new, List::add);
+    }
+
+    /**
+     * Returns the number of rows of each group.
+     * @return the number of rows per group key
+     */
+    public Map<List<Object>, Long> count()
+    {
+        Map<List<Object>, Long> result = new LinkedHashMap<>();
+        for (Row row : this.query)
+        {
+            result.merge(key(row), 1L, Long::sum);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Grouping [query=" + this.query + ", keyColumns=" + this.keyColumns + "]";
+    }
+
+}
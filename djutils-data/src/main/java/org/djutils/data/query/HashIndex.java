@@ -0,0 +1,109 @@
+package org.djutils.data.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.djutils.data.Column;
+import org.djutils.data.Row;
+import org.djutils.data.Table;
+import org.djutils.exceptions.Throw;
+
+/**
+ * Hash-based secondary index on one column of a table, offering O(1) look-up of the rows with a given value.
+ * <p>
+ * Copyright (c) 2020-2025 Delft University of Technology, PO Box 5, 2600 AA, Delft, the Netherlands. All rights reserved. <br>
+ * BSD-style license. See <a href="https://djutils.org/docs/current/djutils/licenses.html">DJUTILS License</a>.
+ * </p>
+ * @author <a href="https://github.com/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://tudelft.nl/staff/p.knoppers-1">Peter Knoppers</a>
+ * @author <a href="https://dittlab.tudelft.nl">Wouter Schakel</a>
+ * @param <T> value type of the indexed column
+ */
+public class HashIndex<T> implements TableIndex<T>
+{
+    /** Table. */
+    private final Table table;
+
+    /** Indexed column. */
+    private final Column<T> column;
+
+    /** Rows per value. */
+    private final Map<T, List<Row>> rowMap = new HashMap<>();
+
+    /** Number of indexed rows. */
+    private final int size;
+
+    /**
+     * Build a hash index on a column of a table.
+     * @param table the table to index
+     * @param column the column to index
+     * @throws NullPointerException when table or column is null
+     * @throws IllegalArgumentException when the column is not in the table
+     */
+    @SuppressWarnings("unchecked")
+    public HashIndex(final Table table, final Column<T> column)
+    {
+        Throw.whenNull(table, "table may not be null");
+        Throw.whenNull(column, "column may not be null");
+        this.table = table;
+        this.column = column;
+        int columnNumber = table.getColumnNumber(column);
+        int count = 0;
+        for (Row row : table)
+        {
+            this.rowMap.computeIfAbsent((T) row.getValue(columnNumber), (v) -> new ArrayList<>()).add(row);
+            count++;
+        }
+        this.size = count;
+    }
+
+    @Override
+    public Table getTable()
+    {
+        return this.table;
+    }
+
+    @Override
+    public Column<T> getColumn()
+    {
+        return this.column;
+    }
+
+    @Override
+    public List<Row> lookup(final T value)
+    {
+        List<Row> rows = this.rowMap.get(value);
+        return rows == null ? Collections.emptyList() : Collections.unmodifiableList(rows);
+    }
+
+    /**
+     * Returns the number of distinct values in the indexed column.
+     * @return the number of distinct values in the indexed column
+     */
+    public int getNumberOfDistinctValues()
+    {
+        return this.rowMap.size();
+    }
+
+    @Override
+    public int size()
+    {
+        return this.size;
+    }
+
+    @Override
+    public int getNumberOfTableRows()
+    {
+        return this.size;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "HashIndex [table=" + this.table.getId() + ", column=" + this.column.getId() + ", size=" + this.size + "]";
+    }
+
+}
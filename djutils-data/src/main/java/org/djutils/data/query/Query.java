@@ -0,0 +1,395 @@
+package org.djutils.data.query;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.djutils.data.Column;
+import org.djutils.data.ListTable;
+import org.djutils.data.Row;
+import org.djutils.data.Table;
+import org.djutils.exceptions.Throw;
+
+/**
+ * Query over the rows of a table, with filters, an optional projection, and optional use of secondary indexes. The filters
+ * are pushed down to the row level: column numbers are resolved once when a filter is added, and the filter is evaluated on
+ * the raw row values. When one or more index restrictions are given, the index with the fewest candidate rows drives the
+ * query and all other restrictions are evaluated as filters on those candidates. A query can be used as follows:
+ *
+ * <pre>
+ * HashIndex&lt;String&gt; scenarioIndex = new HashIndex&lt;&gt;(table, scenario);
+ * Table result = new Query(table).whereEquals(scenarioIndex, "base").where(speed, (v) -&gt; v &gt; 10.0)
+ *         .select(time, speed).toTable("fast", "fast vehicles in the base scenario");
+ * </pre>
+ *
+ * Indexes and queries are cheap to reuse: an index is built once, and each query is a lightweight object that is evaluated
+ * every time it is iterated.
+ * <p>
+ * Copyright (c) 2020-2025 Delft University of Technology, PO Box 5, 2600 AA, Delft, the Netherlands. All rights reserved. <br>
+ * BSD-style license. See <a href="https://djutils.org/docs/current/djutils/licenses.html">DJUTILS License</a>.
+ * </p>
+ * @author <a href="https://github.com/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://tudelft.nl/staff/p.knoppers-1">Peter Knoppers</a>
+ * @author <a href="https://dittlab.tudelft.nl">Wouter Schakel</a>
+ */
+public class Query implements Iterable<Row>
+{
+    /** Table. */
+    private final Table table;
+
+    /** Row filters. */
+    private final List<Predicate<Row>> filters = new ArrayList<>();
+
+    /** Candidate row lists from index restrictions. */
+    private final List<List<Row>> candidateLists = new ArrayList<>();
+
+    /** Filters equivalent to the index restrictions, in the same order as the candidate lists. */
+    private final List<Predicate<Row>> candidateFilters = new ArrayList<>();
+
+    /** Indexes of the index restrictions, to detect that they have become stale. */
+    private final List<TableIndex<?>> indexes = new ArrayList<>();
+
+    /** Projected columns, or {@code null} for all columns. */
+    private List<Column<?>> projection = null;
+
+    /**
+     * Create a query over all rows of a table.
+     * @param table the table to query
+     * @throws NullPointerException when table is null
+     */
+    public Query(final Table table)
+    {
+        Throw.whenNull(table, "table may not be null");
+        this.table = table;
+    }
+
+    /**
+     * Returns the queried table.
+     * @return the queried table
+     */
+    public Table getTable()
+    {
+        return this.table;
+    }
+
+    /**
+     * Add a filter on the values of a column. Rows for which the predicate returns false are excluded.
+     * @param column the column to filter on
+     * @param predicate the predicate on the value of the column; the value may be {@code null}
+     * @param <T> value type of the column
+     * @return this query for method chaining
+     * @throws NullPointerException when column or predicate is null
+     * @throws IllegalArgumentException when the column is not in the table
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Query where(final Column<T> column, final Predicate<? super T> predicate)
+    {
+        Throw.whenNull(column, "column may not be null");
+        Throw.whenNull(predicate, "predicate may not be null");
+        int columnNumber = this.table.getColumnNumber(column);
+        this.filters.add((row) -> predicate.test((T) row.getValue(columnNumber)));
+        return this;
+    }
+
+    /**
+     * Add a filter on complete rows. Rows for which the predicate returns false are excluded.
+     * @param predicate the predicate on the row
+     * @return this query for method chaining
+     * @throws NullPointerException when predicate is null
+     */
+    public Query where(final Predicate<Row> predicate)
+    {
+        Throw.whenNull(predicate, "predicate may not be null");
+        this.filters.add(predicate);
+        return this;
+    }
+
+    /**
+     * Restrict the query to the rows for which the indexed column has the given value, using the index for the look-up.
+     * @param index an index on a column of the queried table
+     * @param value the value to look up, may be {@code null}
+     * @param <T> value type of the indexed column
+     * @return this query for method chaining
+     * @throws NullPointerException when index is null
+     * @throws IllegalArgumentException when the index is not built on the queried table
+     * @throws IllegalStateException when rows were added to the table after the index was built
+     */
+    public <T> Query whereEquals(final TableIndex<T> index, final T value)
+    {
+        checkIndex(index);
+        this.indexes.add(index);
+        int columnNumber = this.table.getColumnNumber(index.getColumn());
+        this.candidateLists.add(index.lookup(value));
+        this.candidateFilters.add((row) -> Objects.equals(row.getValue(columnNumber), value));
+        return this;
+    }
+
+    /**
+     * Restrict the query to the rows for which the indexed column has a value in the given range, using the index for the
+     * look-up. When this restriction drives the query, rows are returned in the order of the index rather than in table order.
+     * @param index a sorted index on a column of the queried table
+     * @param from lower bound of the range, or {@code null} for no lower bound
+     * @param fromInclusive whether the lower bound is part of the range
+     * @param to upper bound of the range, or {@code null} for no upper bound
+     * @param toInclusive whether the upper bound is part of the range
+     * @param <T> value type of the indexed column
+     * @return this query for method chaining
+     * @throws NullPointerException when index is null
+     * @throws IllegalArgumentException when the index is not built on the queried table
+     * @throws IllegalStateException when rows were added to the table after the index was built
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Query whereRange(final SortedIndex<T> index, final T from, final boolean fromInclusive, final T to,
+            final boolean toInclusive)
+    {
+        checkIndex(index);
+        this.indexes.add(index);
+        int columnNumber = this.table.getColumnNumber(index.getColumn());
+        Comparator<? super T> comparator = index.getComparator();
+        this.candidateLists.add(index.range(from, fromInclusive, to, toInclusive));
+        this.candidateFilters.add((row) ->
+        {
+            T value = (T) row.getValue(columnNumber);
+            if (value == null)
+            {
+                return false;
+            }
+            if (from != null)
+            {
+                int c = comparator.compare(value, from);
+                if (c < 0 || (c == 0 && !fromInclusive))
+                {
+                    return false;
+                }
+            }
+            if (to != null)
+            {
+                int c = comparator.compare(value, to);
+                if (c > 0 || (c == 0 && !toInclusive))
+                {
+                    return false;
+                }
+            }
+            return true;
+        });
+        return this;
+    }
+
+    /**
+     * Check whether an index can be used for this query.
+     * @param index the index
+     * @throws NullPointerException when index is null
+     * @throws IllegalArgumentException when the index is not built on the queried table
+     * @throws IllegalStateException when rows were added to the table after the index was built
+     */
+    private void checkIndex(final TableIndex<?> index)
+    {
+        Throw.whenNull(index, "index may not be null");
+        Throw.when(index.getTable() != this.table, IllegalArgumentException.class, "index %s is not built on table %s",
+                index, this.table.getId());
+        checkStale(index);
+    }
+
+    /**
+     * Check that an index still covers all rows of the table, when the table can report its number of rows.
+     * @param index the index
+     * @throws IllegalStateException when the table has a different number of rows than when the index was built
+     */
+    private void checkStale(final TableIndex<?> index)
+    {
+        int numberOfRows = this.table.getNumberOfRows();
+        Throw.when(numberOfRows >= 0 && numberOfRows != index.getNumberOfTableRows(), IllegalStateException.class,
+                "index %s is stale: table %s has %d rows; rebuild the index", index, this.table.getId(), numberOfRows);
+    }
+
+    /**
+     * Set the columns that are part of the result table of {@code toTable}. Without a projection, all columns are used.
+     * @param columns the columns to select, in the order in which they should appear in the result
+     * @return this query for method chaining
+     * @throws NullPointerException when columns is null
+     * @throws IllegalArgumentException when a column is not in the table, or when there are no or duplicate columns
+     */
+    public Query select(final Column<?>... columns)
+    {
+        Throw.whenNull(columns, "columns may not be null");
+        Throw.when(columns.length == 0, IllegalArgumentException.class, "at least one column should be selected");
+        Set<Column<?>> selection = new LinkedHashSet<>();
+        for (Column<?> column : columns)
+        {
+            this.table.getColumnNumber(column); // throws exception when not in table
+            Throw.when(!selection.add(column), IllegalArgumentException.class, "column %s selected twice", column.getId());
+        }
+        this.projection = new ArrayList<>(selection);
+        return this;
+    }
+
+    /**
+     * Returns the columns of the result of this query.
+     * @return the selected columns, or all columns of the table when there is no projection
+     */
+    public List<Column<?>> getSelectedColumns()
+    {
+        return this.projection == null ? this.table.getColumns().toList() : new ArrayList<>(this.projection);
+    }
+
+    /**
+     * Returns an iterator over the rows of the table that satisfy all restrictions and filters. The rows are the original rows
+     * of the table; the projection is not applied.
+     * @return an iterator over the rows that satisfy all restrictions and filters
+     * @throws IllegalStateException when rows were added to the table after an index of an index restriction was built
+     */
+    @Override
+    public Iterator<Row> iterator()
+    {
+        for (TableIndex<?> index : this.indexes)
+        {
+            checkStale(index);
+        }
+        Iterable<Row> source = this.table;
+        List<Predicate<Row>> predicates = new ArrayList<>(this.filters.size() + this.candidateFilters.size());
+        int driver = -1;
+        for (int i = 0; i < this.candidateLists.size(); i++)
+        {
+            if (driver < 0 || this.candidateLists.get(i).size() < this.candidateLists.get(driver).size())
+            {
+                driver = i;
+            }
+        }
+        for (int i = 0; i < this.candidateFilters.size(); i++)
+        {
+            if (i != driver)
+            {
+                predicates.add(this.candidateFilters.get(i));
+            }
+        }
+        predicates.addAll(this.filters);
+        if (driver >= 0)
+        {
+            source = this.candidateLists.get(driver);
+        }
+        Iterator<Row> sourceIterator = source.iterator();
+        return new Iterator<Row>()
+        {
+            /** Next row that satisfies all predicates, or null when not yet determined or exhausted. */
+            private Row next = null;
+
+            @Override
+            public boolean hasNext()
+            {
+                while (this.next == null && sourceIterator.hasNext())
+                {
+                    Row candidate = sourceIterator.next();
+                    if (test(candidate))
+                    {
+                        this.next = candidate;
+                    }
+                }
+                return this.next != null;
+            }
+
+            /**
+             * Test the row against all predicates.
+             * @param row the row
+             * @return whether the row satisfies all predicates
+             */
+            private boolean test(final Row row)
+            {
+                for (int i = 0; i < predicates.size(); i++)
+                {
+                    if (!predicates.get(i).test(row))
+                    {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public Row next()
+            {
+                Throw.when(!hasNext(), NoSuchElementException.class, "no more rows in query result");
+                Row result = this.next;
+                this.next = null;
+                return result;
+            }
+        };
+    }
+
+    /**
+     * Returns the rows of the table that satisfy all restrictions and filters, as a list.
+     * @return the rows of the table that satisfy all restrictions and filters
+     */
+    public List<Row> getRows()
+    {
+        List<Row> rows = new ArrayList<>();
+        forEach(rows::add);
+        return rows;
+    }
+
+    /**
+     * Returns the number of rows that satisfy all restrictions and filters.
+     * @return the number of rows that satisfy all restrictions and filters
+     */
+    public long count()
+    {
+        long count = 0;
+        for (Iterator<Row> iterator = iterator(); iterator.hasNext(); iterator.next())
+        {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Evaluate the query, and store the projected rows in a new table.
+     * @param id id of the result table
+     * @param description description of the result table
+     * @return a new table with the selected columns and the rows that satisfy all restrictions and filters
+     */
+    public ListTable toTable(final String id, final String description)
+    {
+        List<Column<?>> columns = getSelectedColumns();
+        ListTable result = new ListTable(id, description, columns);
+        int[] columnNumbers = new int[columns.size()];
+        for (int i = 0; i < columnNumbers.length; i++)
+        {
+            columnNumbers[i] = this.table.getColumnNumber(columns.get(i));
+        }
+        Object[] values = new Object[columnNumbers.length];
+        for (Row row : this)
+        {
+            for (int i = 0; i < columnNumbers.length; i++)
+            {
+                values[i] = row.getValue(columnNumbers[i]);
+            }
+            result.addRow(values); // addRow makes a safe copy
+        }
+        return result;
+    }
+
+    /**
+     * Group the rows that satisfy all restrictions and filters by the values of one or more key columns.
+     * @param keyColumns the key columns
+     * @return a grouping of the rows of this query
+     * @throws NullPointerException when keyColumns is null
+     * @throws IllegalArgumentException when there are no key columns, or when a key column is not in the table
+     */
+    public Grouping groupBy(final Column<?>... keyColumns)
+    {
+        return new Grouping(this, keyColumns);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Query [table=" + this.table.getId() + ", filters=" + this.filters.size() + ", indexRestrictions="
+                + this.candidateLists.size() + ", projection=" + this.projection + "]";
+    }
+
+}
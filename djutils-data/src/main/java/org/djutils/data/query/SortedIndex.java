@@ -0,0 +1,213 @@
+package org.djutils.data.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.djutils.data.Column;
+import org.djutils.data.Row;
+import org.djutils.data.Table;
+import org.djutils.exceptions.Throw;
+
+/**
+ * Sorted secondary index on one column of a table, offering O(log n) look-up of the rows with a given value or with a value
+ * in a range. Rows with a {@code null} value in the indexed column are not part of the index.
+ * <p>
+ * Copyright (c) 2020-2025 Delft University of Technology, PO Box 5, 2600 AA, Delft, the Netherlands. All rights reserved. <br>
+ * BSD-style license. See <a href="https://djutils.org/docs/current/djutils/licenses.html">DJUTILS License</a>.
+ * </p>
+ * @author <a href="https://github.com/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://tudelft.nl/staff/p.knoppers-1">Peter Knoppers</a>
+ * @author <a href="https://dittlab.tudelft.nl">Wouter Schakel</a>
+ * @param <T> value type of the indexed column
+ */
+public class SortedIndex<T> implements TableIndex<T>
+{
+    /** Table. */
+    private final Table table;
+
+    /** Indexed column. */
+    private final Column<T> column;
+
+    /** Comparator for the values. */
+    private final Comparator<? super T> comparator;
+
+    /** Sorted values. */
+    private final T[] values;
+
+    /** Rows, in the same order as the values. */
+    private final Row[] rows;
+
+    /** Number of rows of the table, including the rows with a null value. */
+    private final int numberOfTableRows;
+
+    /**
+     * Build a sorted index on a column of a table, using the given comparator.
+     * @param table the table to index
+     * @param column the column to index
+     * @param comparator the comparator for the values in the column
+     * @throws NullPointerException when table, column or comparator is null
+     * @throws IllegalArgumentException when the column is not in the table
+     */
+    @SuppressWarnings("unchecked")
+    public SortedIndex(final Table table, final Column<T> column, final Comparator<? super T> comparator)
+    {
+        Throw.whenNull(table, "table may not be null");
+        Throw.whenNull(column, "column may not be null");
+        Throw.whenNull(comparator, "comparator may not be null");
+        this.table = table;
+        this.column = column;
+        this.comparator = comparator;
+        int columnNumber = table.getColumnNumber(column);
+        List<Row> rowList = new ArrayList<>();
+        int count = 0;
+        for (Row row : table)
+        {
+            if (row.getValue(columnNumber) != null)
+            {
+                rowList.add(row);
+            }
+            count++;
+        }
+        this.numberOfTableRows = count;
+        // stable sort, so rows with equal values remain in table order
+        rowList.sort((r1, r2) -> comparator.compare((T) r1.getValue(columnNumber), (T) r2.getValue(columnNumber)));
+        this.rows = rowList.toArray(new Row[rowList.size()]);
+        this.values = (T[]) new Object[this.rows.length];
+        for (int i = 0; i < this.rows.length; i++)
+        {
+            this.values[i] = (T) this.rows[i].getValue(columnNumber);
+        }
+    }
+
+    /**
+     * Build a sorted index on a column of a table with {@code Comparable} values, using their natural order.
+     * @param table the table to index
+     * @param column the column to index
+     * @param <C> comparable value type of the column
+     * @return a sorted index on the column using the natural order of the values
+     * @throws NullPointerException when table or column is null
+     * @throws IllegalArgumentException when the column is not in the table
+     */
+    public static <C extends Comparable<? super C>> SortedIndex<C> of(final Table table, final Column<C> column)
+    {
+        return new SortedIndex<>(table, column, Comparator.naturalOrder());
+    }
+
+    @Override
+    public Table getTable()
+    {
+        return this.table;
+    }
+
+    @Override
+    public Column<T> getColumn()
+    {
+        return this.column;
+    }
+
+    /**
+     * Returns the comparator that defines the order of the index.
+     * @return the comparator that defines the order of the index
+     */
+    public Comparator<? super T> getComparator()
+    {
+        return this.comparator;
+    }
+
+    @Override
+    public List<Row> lookup(final T value)
+    {
+        if (value == null)
+        {
+            return Collections.emptyList();
+        }
+        return range(value, true, value, true);
+    }
+
+    /**
+     * Returns the rows for which the indexed column has a value in the given range, in the order of the values.
+     * @param from lower bound of the range, or {@code null} for no lower bound
+     * @param fromInclusive whether the lower bound is part of the range
+     * @param to upper bound of the range, or {@code null} for no upper bound
+     * @param toInclusive whether the upper bound is part of the range
+     * @return the rows for which the indexed column has a value in the given range, in the order of the values
+     */
+    public List<Row> range(final T from, final boolean fromInclusive, final T to, final boolean toInclusive)
+    {
+        int fromIndex = from == null ? 0 : search(from, !fromInclusive);
+        int toIndex = to == null ? this.values.length : search(to, toInclusive);
+        if (fromIndex >= toIndex)
+        {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(Arrays.asList(this.rows).subList(fromIndex, toIndex));
+    }
+
+    /**
+     * Returns the first index with a value larger than (when {@code after} is true) or larger than or equal to (when
+     * {@code after} is false) the given value.
+     * @param value the value to search for
+     * @param after whether to return the first index after the values equal to the given value
+     * @return the first index with a value larger than, or larger than or equal to, the given value
+     */
+    private int search(final T value, final boolean after)
+    {
+        int low = 0;
+        int high = this.values.length;
+        while (low < high)
+        {
+            int mid = (low + high) >>> 1;
+            int c = this.comparator.compare(this.values[mid], value);
+            if (c < 0 || (after && c == 0))
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the smallest value in the index.
+     * @return the smallest value in the index, or {@code null} when the index is empty
+     */
+    public T getMin()
+    {
+        return this.values.length == 0 ? null : this.values[0];
+    }
+
+    /**
+     * Returns the largest value in the index.
+     * @return the largest value in the index, or {@code null} when the index is empty
+     */
+    public T getMax()
+    {
+        return this.values.length == 0 ? null : this.values[this.values.length - 1];
+    }
+
+    @Override
+    public int size()
+    {
+        return this.rows.length;
+    }
+
+    @Override
+    public int getNumberOfTableRows()
+    {
+        return this.numberOfTableRows;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "SortedIndex [table=" + this.table.getId() + ", column=" + this.column.getId() + ", size=" + this.rows.length
+                + "]";
+    }
+
+}
@@ -0,0 +1,55 @@
+package org.djutils.data.query;
+
+import java.util.List;
+
+import org.djutils.data.Column;
+import org.djutils.data.Row;
+import org.djutils.data.Table;
+
+/**
+ * Secondary index on one column of a table. An index is a snapshot of the table at the time of construction; rows that are
+ * added to the table afterwards are not part of the index. A {@link Query} throws an {@code IllegalStateException} for an
+ * index that was built on a different number of rows than the table reports, so the index has to be rebuilt after rows are
+ * added.
+ * <p>
+ * Copyright (c) 2020-2025 Delft University of Technology, PO Box 5, 2600 AA, Delft, the Netherlands. All rights reserved. <br>
+ * BSD-style license. See <a href="https://djutils.org/docs/current/djutils/licenses.html">DJUTILS License</a>.
+ * </p>
+ * @author <a href="https://github.com/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://tudelft.nl/staff/p.knoppers-1">Peter Knoppers</a>
+ * @author <a href="https://dittlab.tudelft.nl">Wouter Schakel</a>
+ * @param <T> value type of the indexed column
+ */
+public interface TableIndex<T>
+{
+    /**
+     * Returns the table on which this index was built.
+     * @return the table on which this index was built
+     */
+    Table getTable();
+
+    /**
+     * Returns the indexed column.
+     * @return the indexed column
+     */
+    Column<T> getColumn();
+
+    /**
+     * Returns the rows for which the indexed column has the given value.
+     * @param value the value to look up, may be {@code null}
+     * @return the rows for which the indexed column has the given value, in table order; empty when there are none
+     */
+    List<Row> lookup(T value);
+
+    /**
+     * Returns the number of rows in the index.
+     * @return the number of rows in the index
+     */
+    int size();
+
+    /**
+     * Returns the number of rows of the table at the time the index was built, including rows that are not part of the index.
+     * @return the number of rows of the table at the time the index was built
+     */
+    int getNumberOfTableRows();
+}
@@ -3,11 +3,14 @@ package org.djutils.data.xml;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLOutputFactory;
@@ -20,9 +23,11 @@ import org.djutils.data.Column;
 import org.djutils.data.ListTable;
 import org.djutils.data.Row;
 import org.djutils.data.Table;
+import org.djutils.data.io.GzipStreams;
 import org.djutils.data.serialization.TextSerializationException;
 import org.djutils.data.serialization.TextSerializer;
 import org.djutils.exceptions.Throw;
+import org.djutils.io.CompressedFileWriter;
 import org.djutils.primitives.Primitive;
 
 /**
@@ -198,6 +203,41 @@ public final class XmlData
         }
     }
 
+    /**
+     * Write the data from the data table in XML format as an entry in a zip file.
+     * @param writer the writer for the zip file
+     * @param xmlName name of the XML file within the zip file
+     * @param dataTable the data table to write
+     * @throws IOException on I/O error when writing the data
+     * @throws TextSerializationException on unknown data type for serialization
+     * @throws XMLStreamException on XML write error
+     */
+    public static void writeZippedData(final CompressedFileWriter writer, final String xmlName, final Table dataTable)
+            throws IOException, TextSerializationException, XMLStreamException
+    {
+        Writer entryWriter = writer.next(xmlName);
+        writeData(entryWriter, dataTable);
+        entryWriter.flush();
+    }
+
+    /**
+     * Write the data from the data table in XML format to a gzip-compressed file. Compression takes place on a separate
+     * thread, overlapping with the serialization of the data.
+     * @param filename the file name to write the data to, e.g., ending in {@code .xml.gz}
+     * @param dataTable the data table to write
+     * @throws IOException on I/O error when writing the data
+     * @throws TextSerializationException on unknown data type for serialization
+     * @throws XMLStreamException on XML write error
+     */
+    public static void writeGzippedData(final String filename, final Table dataTable)
+            throws IOException, TextSerializationException, XMLStreamException
+    {
+        try (Writer writer = GzipStreams.writer(filename))
+        {
+            writeData(writer, dataTable);
+        }
+    }
+
     /**
      * Read the data from the XML-file into the data table. Use the metadata to reconstruct the data table.
      * @param reader the reader that can read the data, e.g. from a file
@@ -431,4 +471,44 @@ public final class XmlData
         }
     }
 
+    /**
+     * Read the data from an XML file inside a zip file into the data table.
+     * @param fileName file name of the zip file
+     * @param xmlName name of the XML file, without path
+     * @return dataTable the data table reconstructed from the meta data and filled with the data
+     * @throws IOException on I/O error when reading the data
+     * @throws TextSerializationException on unknown data type for serialization
+     * @throws XMLStreamException on XML read error
+     */
+    public static Table readZippedData(final String fileName, final String xmlName)
+            throws IOException, TextSerializationException, XMLStreamException
+    {
+        try (ZipFile zipFile = new ZipFile(fileName))
+        {
+            ZipEntry zipEntry = zipFile.getEntry(xmlName);
+            Throw.whenNull(zipEntry, "File %s not found in %s.", xmlName, fileName);
+            try (Reader reader = new InputStreamReader(zipFile.getInputStream(zipEntry)))
+            {
+                return readData(reader);
+            }
+        }
+    }
+
+    /**
+     * Read the data from a gzip-compressed XML file into the data table.
+     * @param filename the file name to read the data from
+     * @return dataTable the data table reconstructed from the meta data and filled with the data
+     * @throws IOException on I/O error when reading the data
+     * @throws TextSerializationException on unknown data type for serialization
+     * @throws XMLStreamException on XML read error
+     */
+    public static Table readGzippedData(final String filename)
+            throws IOException, TextSerializationException, XMLStreamException
+    {
+        try (Reader reader = GzipStreams.reader(filename))
+        {
+            return readData(reader);
+        }
+    }
+
 }
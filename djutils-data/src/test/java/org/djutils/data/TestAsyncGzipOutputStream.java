@@ -0,0 +1,160 @@
+package org.djutils.data;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+
+import org.djutils.data.io.AsyncGzipOutputStream;
+import org.djutils.test.UnitTest;
+import org.junit.jupiter.api.Test;
+
+/**
+ * TestAsyncGzipOutputStream tests the compression on a separate thread, and the handling of errors of that thread.
+ * <p>
+ * Copyright (c) 2020-2025 Delft University of Technology, PO Box 5, 2600 AA, Delft, the Netherlands. All rights reserved. <br>
+ * BSD-style license. See <a href="https://djutils.org/docs/current/djutils/licenses.html">DJUTILS License</a>.
+ * </p>
+ * @author <a href="https://github.com/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://tudelft.nl/staff/p.knoppers-1">Peter Knoppers</a>
+ * @author <a href="https://dittlab.tudelft.nl">Wouter Schakel</a>
+ */
+public class TestAsyncGzipOutputStream
+{
+    /**
+     * Data that is written in pieces of all sizes is decompressed to the same data.
+     * @throws IOException on error
+     */
+    @Test
+    public void testRoundTrip() throws IOException
+    {
+        byte[] data = new byte[3_000_000];
+        Random random = new Random(1234);
+        for (int i = 0; i < data.length; i++)
+        {
+            data[i] = (byte) ('a' + random.nextInt(4));
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        AsyncGzipOutputStream out = new AsyncGzipOutputStream(compressed);
+        int offset = 0;
+        while (offset < data.length)
+        {
+            int length = Math.min(data.length - offset - 1, random.nextInt(400_000));
+            out.write(data, offset, length);
+            offset += length;
+            out.write(data[offset++]);
+            out.flush();
+        }
+        out.close();
+        out.close();
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray())))
+        {
+            assertArrayEquals(data, in.readAllBytes());
+        }
+        UnitTest.testFail(() -> out.write(1), IOException.class);
+        UnitTest.testFail(() -> out.write(data, 0, 10), IOException.class);
+        UnitTest.testFail(() -> out.flush(), IOException.class);
+    }
+
+    /**
+     * When the compressor thread is interrupted while the writing thread waits for a free chunk, the writing thread receives an
+     * error instead of blocking forever, and close reports the error and closes the underlying stream.
+     * @throws InterruptedException when that happens uncaught this test has failed
+     */
+    @Test
+    public void testInterruptedCompressor() throws InterruptedException
+    {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<Thread> compressor = new AtomicReference<>();
+        CountDownLatch underlyingClosed = new CountDownLatch(1);
+        OutputStream slow = new OutputStream()
+        {
+            @Override
+            public void write(final int b)
+            {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(final byte[] b, final int off, final int len)
+            {
+                compressor.compareAndSet(null, Thread.currentThread());
+                blocked.countDown();
+                // like most streams, ignore the interrupt but keep the interrupted status
+                boolean interrupted = false;
+                while (release.getCount() > 0)
+                {
+                    try
+                    {
+                        release.await();
+                    }
+                    catch (InterruptedException exception)
+                    {
+                        interrupted = true;
+                    }
+                }
+                if (interrupted)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void close()
+            {
+                underlyingClosed.countDown();
+            }
+        };
+
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () ->
+        {
+            AsyncGzipOutputStream out = new AsyncGzipOutputStream(slow);
+            AtomicReference<Throwable> writeError = new AtomicReference<>();
+            Thread writer = new Thread(() ->
+            {
+                byte[] data = new byte[1 << 20];
+                new Random(5678).nextBytes(data);
+                try
+                {
+                    for (int i = 0; i < 100; i++)
+                    {
+                        out.write(data);
+                    }
+                }
+                catch (IOException exception)
+                {
+                    writeError.set(exception);
+                }
+            });
+            writer.start();
+            assertTrue(blocked.await(10, TimeUnit.SECONDS), "compressor writes to the underlying stream");
+            // wait until the writer waits for a free chunk
+            while (writer.getState() != Thread.State.WAITING)
+            {
+                Thread.sleep(1);
+            }
+            compressor.get().interrupt();
+            release.countDown();
+            writer.join();
+            assertNotNull(writeError.get(), "the writer receives the error of the compressor thread");
+            UnitTest.testFail(() -> out.close(), IOException.class);
+            assertTrue(underlyingClosed.await(10, TimeUnit.SECONDS), "the underlying stream is closed");
+            compressor.get().join();
+            assertFalse(compressor.get().isAlive());
+        });
+    }
+
+}
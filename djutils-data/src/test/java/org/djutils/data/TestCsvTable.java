@@ -3,10 +3,15 @@ package org.djutils.data;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
@@ -16,8 +21,10 @@ import org.djunits.value.vdouble.scalar.Duration;
 import org.djunits.value.vdouble.scalar.Length;
 import org.djunits.value.vdouble.scalar.Speed;
 import org.djutils.data.csv.CsvData;
+import org.djutils.data.csv.MappedCsvTable;
 import org.djutils.data.serialization.TextSerializationException;
 import org.djutils.io.CompressedFileWriter;
+import org.djutils.test.UnitTest;
 import org.junit.jupiter.api.Test;
 
 import de.siegmar.fastcsv.writer.LineDelimiter;
@@ -263,4 +270,139 @@ public class TestCsvTable
         assertFalse(it2.hasNext());
     }
 
+    /**
+     * test reading a CSV file as a memory-mapped table.
+     * @throws IOException on error
+     * @throws TextSerializationException on unknown data type for (de)serialization
+     */
+    @Test
+    public void testMappedCsv() throws IOException, TextSerializationException
+    {
+        File tempDataFile = File.createTempFile("testdata", ".csv");
+        File tempMetaDataFile = File.createTempFile("testmetadata", ".csv");
+        tempDataFile.deleteOnExit();
+        tempMetaDataFile.deleteOnExit();
+
+        Column<Integer> column1 = new Column<>("time", "time, rounded to second [s]", int.class);
+        Column<Length> column2 = new Column<>("value", "measured value [m]", Length.class, "m");
+        Column<String> column3 = new Column<>("remark", "remark about the measurement", String.class);
+        List<Column<?>> columns = List.of(column1, column2, column3);
+        ListTable table1 = new ListTable("tableId", "table description, measured in \u00b5m", columns);
+        table1.addRow(new Object[] {1, Length.valueOf("1 mm"), "normal"});
+        table1.addRow(new Object[] {null, Length.valueOf("10.0 km"), "quoted, \"text\""});
+        table1.addRow(new Object[] {3, null, "multi\nline"});
+        table1.addRow(new Object[] {4, Length.ofSI(40.0), null});
+        table1.addRow(new Object[] {5, Length.ofSI(50.0), "last"});
+        // the mapped table decodes the data and the metadata as UTF-8, independent of the platform charset
+        try (Writer writer = Files.newBufferedWriter(tempDataFile.toPath(), StandardCharsets.UTF_8);
+                Writer metaWriter = Files.newBufferedWriter(tempMetaDataFile.toPath(), StandardCharsets.UTF_8))
+        {
+            CsvData.writeData(writer, metaWriter, table1);
+        }
+
+        MappedCsvTable table2 = MappedCsvTable.open(tempDataFile.getAbsolutePath(), tempMetaDataFile.getAbsolutePath());
+        assertEquals(table1.getId(), table2.getId());
+        assertEquals(table1.getDescription(), table2.getDescription());
+        assertArrayEquals(table1.getColumnIds(), table2.getColumnIds());
+        assertArrayEquals(table1.getColumnDataTypes(), table2.getColumnDataTypes());
+        assertEquals(tempDataFile.length(), table2.getFileSize());
+        assertTrue(table2.toString().contains("indexed=false"));
+        assertEquals(5, table2.getNumberOfRows());
+        assertFalse(table2.isEmpty());
+
+        Iterator<Row> it1 = table1.iterator();
+        Iterator<Row> it2 = table2.iterator();
+        while (it1.hasNext() && it2.hasNext())
+        {
+            assertArrayEquals(it1.next().getValues(), it2.next().getValues());
+        }
+        assertFalse(it1.hasNext());
+        assertFalse(it2.hasNext());
+
+        assertEquals("multi\nline", table2.getRow(2).getValue(column3));
+        Object[] values = table2.getColumnValues(1);
+        assertEquals(5, values.length);
+        assertNull(values[2]);
+        assertEquals(Length.ofSI(40.0), values[3]);
+        assertSame(values, table2.getColumnValues(1));
+        assertEquals(Length.ofSI(50.0), table2.getRow(4).getValue(column2));
+        table2.clearColumnCache();
+        assertEquals(Length.ofSI(50.0), table2.getRow(4).getValue(column2));
+        UnitTest.testFail(() -> table2.getRow(5), IndexOutOfBoundsException.class);
+        UnitTest.testFail(() -> table2.getColumnValues(3), IndexOutOfBoundsException.class);
+    }
+
+    /**
+     * test the line index of a memory-mapped CSV file that is larger than the buffer that is used to scan it, with quoted line
+     * breaks and line terminators on both sides of the buffer boundaries.
+     * @throws IOException on error
+     * @throws TextSerializationException on unknown data type for (de)serialization
+     */
+    @Test
+    public void testMappedCsvLarge() throws IOException, TextSerializationException
+    {
+        File tempDataFile = File.createTempFile("testdata", ".csv");
+        File tempMetaDataFile = File.createTempFile("testmetadata", ".csv");
+        tempDataFile.deleteOnExit();
+        tempMetaDataFile.deleteOnExit();
+
+        Column<Integer> column1 = new Column<>("number", "row number", int.class);
+        Column<String> column2 = new Column<>("remark", "remark of varying length", String.class);
+        ListTable table1 = new ListTable("tableId", "tableDescription", List.of(column1, column2));
+        for (int i = 0; i < 20_000; i++)
+        {
+            table1.addRow(new Object[] {i, i % 7 == 0 ? "line\nbreak " + i : "x".repeat(1 + i % 13)});
+        }
+        CsvData.writeData(tempDataFile.getAbsolutePath(), tempMetaDataFile.getAbsolutePath(), table1);
+
+        MappedCsvTable table2 = MappedCsvTable.open(tempDataFile.getAbsolutePath(), tempMetaDataFile.getAbsolutePath());
+        assertTrue(table2.getFileSize() > 3 * 65536);
+        assertEquals(20_000, table2.getNumberOfRows());
+        Iterator<Row> it1 = table1.iterator();
+        Iterator<Row> it2 = table2.iterator();
+        while (it1.hasNext() && it2.hasNext())
+        {
+            assertArrayEquals(it1.next().getValues(), it2.next().getValues());
+        }
+        assertFalse(it1.hasNext());
+        assertFalse(it2.hasNext());
+    }
+
+    /**
+     * test reading and writing of gzip-compressed CSV files.
+     * @throws IOException on error
+     * @throws TextSerializationException on unknown data type for (de)serialization
+     */
+    @Test
+    public void testReadWriteGzippedCsv() throws IOException, TextSerializationException
+    {
+        File tempDataFile = File.createTempFile("testdata", ".csv.gz");
+        File tempMetaDataFile = File.createTempFile("testmetadata", ".csv.gz");
+        tempDataFile.deleteOnExit();
+        tempMetaDataFile.deleteOnExit();
+
+        Column<Integer> column1 = new Column<>("time", "time, rounded to second [s]", int.class);
+        Column<Length> column2 = new Column<>("value", "measured value [m]", Length.class, "m");
+        Column<String> column3 = new Column<>("remark", "remark about the measurement", String.class);
+        List<Column<?>> columns = List.of(column1, column2, column3);
+        ListTable table1 = new ListTable("tableId", "tableDescription", columns);
+        for (int i = 0; i < 20000; i++)
+        {
+            table1.addRow(new Object[] {i, Length.ofSI(i / 10.0), i % 100 == 0 ? null : "remark " + i});
+        }
+        CsvData.writeGzippedData(tempDataFile.getAbsolutePath(), tempMetaDataFile.getAbsolutePath(), table1);
+        Table table2 = CsvData.readGzippedData(tempDataFile.getAbsolutePath(), tempMetaDataFile.getAbsolutePath());
+        assertEquals(table1.getId(), table2.getId());
+        assertArrayEquals(table1.getColumnIds(), table2.getColumnIds());
+
+        Iterator<Row> it1 = table1.iterator();
+        Iterator<Row> it2 = table2.iterator();
+        while (it1.hasNext() && it2.hasNext())
+        {
+            assertArrayEquals(it1.next().getValues(), it2.next().getValues());
+        }
+        assertFalse(it1.hasNext());
+        assertFalse(it2.hasNext());
+    }
+
 }
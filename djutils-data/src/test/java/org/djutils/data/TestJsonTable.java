@@ -11,12 +11,14 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.UUID;
 
 import org.djunits.value.vdouble.scalar.Duration;
 import org.djunits.value.vdouble.scalar.Length;
 import org.djunits.value.vdouble.scalar.Speed;
 import org.djutils.data.json.JsonData;
 import org.djutils.data.serialization.TextSerializationException;
+import org.djutils.io.CompressedFileWriter;
 import org.junit.jupiter.api.Test;
 
 /**
@@ -167,4 +169,56 @@ public class TestJsonTable
         assertFalse(it2.hasNext());
     }
 
+    /**
+     * test reading and writing of a gzip-compressed and a zipped JSON file.
+     * @throws IOException on error
+     * @throws TextSerializationException on unknown data type for (de)serialization
+     */
+    @Test
+    public void testReadWriteCompressedJson() throws IOException, TextSerializationException
+    {
+        File tempGzipFile = File.createTempFile("testdata", ".json.gz");
+        File tempZipFile = File.createTempFile(UUID.randomUUID().toString(), ".zip");
+        tempGzipFile.deleteOnExit();
+        tempZipFile.deleteOnExit();
+
+        Column<Integer> column1 = new Column<>("time", "time, rounded to second [s]", int.class);
+        Column<Length> column2 = new Column<>("value", "measured value [m]", Length.class, "m");
+        Column<String> column3 = new Column<>("remark", "remark about the measurement", String.class);
+        List<Column<?>> columns = List.of(column1, column2, column3);
+        ListTable table1 = new ListTable("tableId", "tableDescription", columns);
+        for (int i = 0; i < 20000; i++)
+        {
+            table1.addRow(new Object[] {i, Length.ofSI(i / 10.0), i % 100 == 0 ? null : "remark " + i});
+        }
+        JsonData.writeGzippedData(tempGzipFile.getAbsolutePath(), table1);
+        Table table2 = JsonData.readGzippedData(tempGzipFile.getAbsolutePath());
+        assertEquals(table1.getId(), table2.getId());
+        assertArrayEquals(table1.getColumnIds(), table2.getColumnIds());
+
+        Iterator<Row> it1 = table1.iterator();
+        Iterator<Row> it2 = table2.iterator();
+        while (it1.hasNext() && it2.hasNext())
+        {
+            assertArrayEquals(it1.next().getValues(), it2.next().getValues());
+        }
+        assertFalse(it1.hasNext());
+        assertFalse(it2.hasNext());
+
+        try (CompressedFileWriter cfw = new CompressedFileWriter(tempZipFile.getAbsolutePath()))
+        {
+            JsonData.writeZippedData(cfw, "testdata.json", table1);
+        }
+        table2 = JsonData.readZippedData(tempZipFile.getAbsolutePath(), "testdata.json");
+        assertEquals(table1.getId(), table2.getId());
+        it1 = table1.iterator();
+        it2 = table2.iterator();
+        while (it1.hasNext() && it2.hasNext())
+        {
+            assertArrayEquals(it1.next().getValues(), it2.next().getValues());
+        }
+        assertFalse(it1.hasNext());
+        assertFalse(it2.hasNext());
+    }
+
 }
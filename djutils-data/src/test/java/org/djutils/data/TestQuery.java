@@ -0,0 +1,162 @@
+package org.djutils.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.djutils.data.query.Grouping;
+import org.djutils.data.query.HashIndex;
+import org.djutils.data.query.Query;
+import org.djutils.data.query.SortedIndex;
+import org.djutils.test.UnitTest;
+import org.junit.jupiter.api.Test;
+
+/**
+ * TestQuery tests the query layer on tables: filters, projections, indexes and grouping.
+ * <p>
+ * Copyright (c) 2020-2025 Delft University of Technology, PO Box 5, 2600 AA, Delft, the Netherlands. All rights reserved. <br>
+ * BSD-style license. See <a href="https://djutils.org/docs/current/djutils/licenses.html">DJUTILS License</a>.
+ * </p>
+ * @author <a href="https://github.com/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://tudelft.nl/staff/p.knoppers-1">Peter Knoppers</a>
+ * @author <a href="https://dittlab.tudelft.nl">Wouter Schakel</a>
+ */
+public class TestQuery
+{
+    /** scenario column. */
+    private Column<String> scenario = new Column<>("scenario", "scenario name", String.class);
+
+    /** lane column. */
+    private Column<Integer> lane = new Column<>("lane", "lane number", int.class);
+
+    /** speed column. */
+    private Column<Double> speed = new Column<>("speed", "speed [m/s]", double.class);
+
+    /**
+     * Make a table with test data.
+     * @return a table with test data
+     */
+    private ListTable makeTable()
+    {
+        ListTable table = new ListTable("id", "description", List.of(this.scenario, this.lane, this.speed));
+        table.addRow(new Object[] {"base", 1, 10.0});
+        table.addRow(new Object[] {"base", 2, 20.0});
+        table.addRow(new Object[] {"alt", 1, 12.0});
+        table.addRow(new Object[] {"base", 1, 14.0});
+        table.addRow(new Object[] {"alt", 2, null});
+        table.addRow(new Object[] {"alt", 2, 30.0});
+        return table;
+    }
+
+    /** Test filters and projections. */
+    @Test
+    public void testFilterAndProjection()
+    {
+        ListTable table = makeTable();
+        Query query = new Query(table).where(this.scenario, (s) -> s.equals("base"));
+        assertEquals(3, query.count());
+        query.where(this.speed, (v) -> v != null && v > 11.0);
+        assertEquals(2, query.count());
+        assertEquals(Arrays.asList(20.0, 14.0), query.getRows().stream().map((r) -> r.getValue(this.speed)).toList());
+
+        ListTable result = query.select(this.speed, this.lane).toTable("result", "projected result");
+        assertEquals(2, result.getNumberOfColumns());
+        assertEquals("speed", result.getColumn(0).getId());
+        Row first = result.iterator().next();
+        assertEquals(20.0, first.getValue(this.speed));
+        assertEquals(2, first.getValue(this.lane));
+
+        assertEquals(3, new Query(table).where((row) -> ((Integer) row.getValue(1)) == 2).count());
+        assertEquals(6, new Query(table).getRows().size());
+
+        UnitTest.testFail(() -> new Query(null), NullPointerException.class);
+        Column<Double> other = new Column<>("other", "not in table", double.class);
+        UnitTest.testFail(() -> new Query(table).where(other, (v) -> true), IllegalArgumentException.class);
+        UnitTest.testFail(() -> new Query(table).select(), IllegalArgumentException.class);
+        UnitTest.testFail(() -> new Query(table).select(this.lane, this.lane), IllegalArgumentException.class);
+        UnitTest.testFail(() -> new Query(table).select(other), IllegalArgumentException.class);
+    }
+
+    /** Test the hash and sorted indexes. */
+    @Test
+    public void testIndexes()
+    {
+        ListTable table = makeTable();
+        HashIndex<String> scenarioIndex = new HashIndex<>(table, this.scenario);
+        assertEquals(6, scenarioIndex.size());
+        assertEquals(2, scenarioIndex.getNumberOfDistinctValues());
+        assertEquals(3, scenarioIndex.lookup("alt").size());
+        assertTrue(scenarioIndex.lookup("none").isEmpty());
+        assertEquals(table, scenarioIndex.getTable());
+        assertEquals(this.scenario, scenarioIndex.getColumn());
+
+        SortedIndex<Double> speedIndex = SortedIndex.of(table, this.speed);
+        assertEquals(5, speedIndex.size()); // null value is not indexed
+        assertEquals(10.0, speedIndex.getMin());
+        assertEquals(30.0, speedIndex.getMax());
+        assertEquals(1, speedIndex.lookup(14.0).size());
+        assertTrue(speedIndex.lookup(15.0).isEmpty());
+        assertTrue(speedIndex.lookup(null).isEmpty());
+        assertEquals(3, speedIndex.range(12.0, true, 20.0, true).size());
+        assertEquals(1, speedIndex.range(12.0, false, 20.0, false).size());
+        assertEquals(2, speedIndex.range(null, true, 12.0, true).size());
+        assertEquals(2, speedIndex.range(14.0, false, null, true).size());
+        assertTrue(speedIndex.range(20.0, false, 12.0, false).isEmpty());
+
+        Query query = new Query(table).whereEquals(scenarioIndex, "base").whereRange(speedIndex, 11.0, true, null, false);
+        assertEquals(2, query.count());
+        query = new Query(table).whereRange(speedIndex, 11.0, true, 25.0, true).whereEquals(scenarioIndex, "alt");
+        List<Row> rows = query.getRows();
+        assertEquals(1, rows.size());
+        assertEquals(12.0, rows.get(0).getValue(this.speed));
+
+        assertEquals(6, scenarioIndex.getNumberOfTableRows());
+        assertEquals(6, speedIndex.getNumberOfTableRows());
+        assertEquals(6, table.getNumberOfRows());
+        ListTable otherTable = makeTable();
+        UnitTest.testFail(() -> new Query(otherTable).whereEquals(scenarioIndex, "base"), IllegalArgumentException.class);
+
+        // an index does not see rows that are added later, so a query with a stale index fails instead of missing rows
+        Query staleQuery = new Query(table).whereEquals(scenarioIndex, "base");
+        table.addRow(new Object[] {"base", 2, 40.0});
+        UnitTest.testFail(() -> staleQuery.count(), IllegalStateException.class);
+        UnitTest.testFail(() -> new Query(table).whereEquals(scenarioIndex, "base"), IllegalStateException.class);
+        UnitTest.testFail(() -> new Query(table).whereRange(speedIndex, 11.0, true, null, false), IllegalStateException.class);
+        HashIndex<String> rebuilt = new HashIndex<>(table, this.scenario);
+        assertEquals(4, new Query(table).whereEquals(rebuilt, "base").count());
+        UnitTest.testFail(() -> new HashIndex<>(table, null), NullPointerException.class);
+    }
+
+    /** Test grouping and aggregation. */
+    @Test
+    public void testGrouping()
+    {
+        ListTable table = makeTable();
+        Grouping grouping = new Query(table).groupBy(this.scenario, this.lane);
+        Map<List<Object>, Long> counts = grouping.count();
+        assertEquals(4, counts.size());
+        assertEquals(2L, counts.get(Arrays.asList("base", 1)));
+        assertEquals(2L, counts.get(Arrays.asList("alt", 2)));
+        assertEquals(Arrays.asList("base", 1), counts.keySet().iterator().next());
+
+        Map<List<Object>, double[]> sums =
+                grouping.aggregate(this.speed, () -> new double[2], (s, v) -> { s[0] += v; s[1]++; });
+        assertEquals(24.0, sums.get(Arrays.asList("base", 1))[0], 1E-9);
+        assertEquals(1.0, sums.get(Arrays.asList("alt", 2))[1], 1E-9); // null skipped
+        assertEquals(4, grouping.getGroups().size());
+        assertEquals(2, grouping.getKeyColumns().size());
+
+        Map<List<Object>, List<Row>> filtered =
+                new Query(table).where(this.lane, (l) -> l == 1).groupBy(this.scenario).getGroups();
+        assertEquals(2, filtered.size());
+        assertNull(filtered.get(Arrays.asList("none")));
+        assertFalse(filtered.get(Arrays.asList("alt")).isEmpty());
+        UnitTest.testFail(() -> new Query(table).groupBy(), IllegalArgumentException.class);
+    }
+
+}
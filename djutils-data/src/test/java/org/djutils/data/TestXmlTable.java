@@ -11,6 +11,7 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.UUID;
 
 import javax.xml.stream.XMLStreamException;
 
@@ -19,6 +20,7 @@ import org.djunits.value.vdouble.scalar.Length;
 import org.djunits.value.vdouble.scalar.Speed;
 import org.djutils.data.serialization.TextSerializationException;
 import org.djutils.data.xml.XmlData;
+import org.djutils.io.CompressedFileWriter;
 import org.junit.jupiter.api.Test;
 
 /**
@@ -173,4 +175,57 @@ public class TestXmlTable
         assertFalse(it2.hasNext());
     }
 
+    /**
+     * test reading and writing of a gzip-compressed and a zipped XML file.
+     * @throws IOException on error
+     * @throws TextSerializationException on unknown data type for (de)serialization
+     * @throws XMLStreamException on XML error
+     */
+    @Test
+    public void testReadWriteCompressedXml() throws IOException, TextSerializationException, XMLStreamException
+    {
+        File tempGzipFile = File.createTempFile("testdata", ".xml.gz");
+        File tempZipFile = File.createTempFile(UUID.randomUUID().toString(), ".zip");
+        tempGzipFile.deleteOnExit();
+        tempZipFile.deleteOnExit();
+
+        Column<Integer> column1 = new Column<>("time", "time, rounded to second [s]", int.class);
+        Column<Length> column2 = new Column<>("value", "measured value [m]", Length.class, "m");
+        Column<String> column3 = new Column<>("remark", "remark about the measurement", String.class);
+        List<Column<?>> columns = List.of(column1, column2, column3);
+        ListTable table1 = new ListTable("tableId", "tableDescription", columns);
+        for (int i = 0; i < 20000; i++)
+        {
+            table1.addRow(new Object[] {i, Length.ofSI(i / 10.0), i % 100 == 0 ? null : "remark " + i});
+        }
+        XmlData.writeGzippedData(tempGzipFile.getAbsolutePath(), table1);
+        Table table2 = XmlData.readGzippedData(tempGzipFile.getAbsolutePath());
+        assertEquals(table1.getId(), table2.getId());
+        assertArrayEquals(table1.getColumnIds(), table2.getColumnIds());
+
+        Iterator<Row> it1 = table1.iterator();
+        Iterator<Row> it2 = table2.iterator();
+        while (it1.hasNext() && it2.hasNext())
+        {
+            assertArrayEquals(it1.next().getValues(), it2.next().getValues());
+        }
+        assertFalse(it1.hasNext());
+        assertFalse(it2.hasNext());
+
+        try (CompressedFileWriter cfw = new CompressedFileWriter(tempZipFile.getAbsolutePath()))
+        {
+            XmlData.writeZippedData(cfw, "testdata.xml", table1);
+        }
+        table2 = XmlData.readZippedData(tempZipFile.getAbsolutePath(), "testdata.xml");
+        assertEquals(table1.getId(), table2.getId());
+        it1 = table1.iterator();
+        it2 = table2.iterator();
+        while (it1.hasNext() && it2.hasNext())
+        {
+            assertArrayEquals(it1.next().getValues(), it2.next().getValues());
+        }
+        assertFalse(it1.hasNext());
+        assertFalse(it2.hasNext());
+    }
+
 }
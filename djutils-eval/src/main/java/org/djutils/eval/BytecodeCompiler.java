@@ -0,0 +1,730 @@
+package org.djutils.eval;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * BytecodeCompiler.java. Translates the optimized tree of a statically typed expression with a numeric result into a hidden
+ * class that implements DoubleExpression. The class is written directly in the class file format; variables are read from
+ * the <code>double[]</code> argument, shared subexpressions are kept in local variables and the built-in functions are
+ * invoked as static methods of <code>java.lang.Math</code>, so that the JIT compiler can treat the expression like any other
+ * small method.
+ * <p>
+ * The class file has version 49 (Java 5), which is verified by type inference and therefore needs no stack map frames.
+ * </p>
+ * <p>
+ * Copyright (c) 2023-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>.
+ * </p>
+ * @author <a href="https://www.tudelft.nl/pknoppers">Peter Knoppers</a>
+ */
+final class BytecodeCompiler
+{
+    /** Lookup in the package of the generated classes. */
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    /** Internal name of the generated classes (the JVM appends a unique suffix to the name of each hidden class). */
+    private static final String CLASS_NAME = "org/djutils/eval/GeneratedExpression";
+
+    /** Maximum size of the code of a method in the class file format. */
+    private static final int MAX_CODE_LENGTH = 65535;
+
+    /** Opcodes used by the generator. */
+    private static final int ICONST_0 = 0x03, ICONST_1 = 0x04, DCONST_0 = 0x0e, DCONST_1 = 0x0f, BIPUSH = 0x10,
+            SIPUSH = 0x11, LDC_W = 0x13, LDC2_W = 0x14, ILOAD = 0x15, DLOAD = 0x18, ALOAD_0 = 0x2a, ALOAD_1 = 0x2b,
+            DALOAD = 0x31, ISTORE = 0x36, DSTORE = 0x39, DUP2 = 0x5c, DADD = 0x63, DSUB = 0x67, DMUL = 0x6b, DDIV = 0x6f,
+            DNEG = 0x77, IAND = 0x7e, IOR = 0x80, IXOR = 0x82, DCMPL = 0x97, DCMPG = 0x98, IFEQ = 0x99, IFNE = 0x9a,
+            IFLT = 0x9b, IFGE = 0x9c, IFGT = 0x9d, IFLE = 0x9e, GOTO = 0xa7, DRETURN = 0xaf, RETURN = 0xb1,
+            INVOKESPECIAL = 0xb7, INVOKESTATIC = 0xb8, WIDE = 0xc4;
+
+    /** Provides the type of each node. */
+    private final Optimizer optimizer;
+
+    /** Slot of the first shared subexpression. */
+    private final int firstTemporary;
+
+    /** Number of shared subexpressions. */
+    private final int temporaries;
+
+    /** Whether each shared subexpression has a logical value (rather than a double value). */
+    private final boolean[] logical;
+
+    /** Constant pool entries, mapped to their index. */
+    private final Map<String, Integer> constants = new LinkedHashMap<>();
+
+    /** Serialized constant pool entries. */
+    private final ByteArrayOutputStream constantPool = new ByteArrayOutputStream();
+
+    /** Index of the next constant pool entry. */
+    private int nextConstant = 1;
+
+    /** The code of the eval method. */
+    private byte[] code = new byte[256];
+
+    /** Number of bytes in code. */
+    private int length = 0;
+
+    /** Current depth of the operand stack (in words). */
+    private int stack = 0;
+
+    /** Maximum depth of the operand stack (in words). */
+    private int maxStack = 0;
+
+    /**
+     * Construct a new BytecodeCompiler.
+     * @param optimizer provides the type of each node
+     * @param firstTemporary slot of the first shared subexpression
+     * @param temporaries number of shared subexpressions
+     */
+    private BytecodeCompiler(final Optimizer optimizer, final int firstTemporary, final int temporaries)
+    {
+        this.optimizer = optimizer;
+        this.firstTemporary = firstTemporary;
+        this.temporaries = temporaries;
+        this.logical = new boolean[temporaries];
+    }
+
+    /**
+     * Define a hidden class that evaluates an optimized tree with a numeric result and return an instance of it.
+     * @param root the root of the optimized tree; the type of every node must be known at compile time
+     * @param optimizer the optimizer that produced the tree
+     * @param firstTemporary slot of the first shared subexpression (the number of variables)
+     * @param temporaries number of shared subexpressions
+     * @return an instance of the hidden class, or null when the expression is too large for one method
+     */
+    static DoubleExpression compile(final Node root, final Optimizer optimizer, final int firstTemporary, final int temporaries)
+    {
+        byte[] classFile = new BytecodeCompiler(optimizer, firstTemporary, temporaries).classFile(root);
+        if (null == classFile)
+        {
+            return null;
+        }
+        try
+        {
+            MethodHandles.Lookup lookup = LOOKUP.defineHiddenClass(classFile, true);
+            return (DoubleExpression) lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class)).invoke();
+        }
+        catch (Throwable throwable)
+        {
+            throw new IllegalStateException("Could not define class for expression", throwable);
+        }
+    }
+
+    /**
+     * Write the class file.
+     * @param root the root of the optimized tree
+     * @return the class file, or null when the code of the eval method would be too large
+     */
+    private byte[] classFile(final Node root)
+    {
+        // Initialize the locals of the shared subexpressions, so that every path through the method sees the same types
+        collectShared(root);
+        for (int temporary = 0; temporary < this.temporaries; temporary++)
+        {
+            boolean logical = this.logical[temporary];
+            emit(logical ? ICONST_0 : DCONST_0, logical ? 1 : 2);
+            local(logical ? ISTORE : DSTORE, valueLocal(temporary), logical ? -1 : -2);
+            emit(ICONST_0, 1);
+            local(ISTORE, doneLocal(temporary), -1);
+        }
+        generateDouble(root);
+        emit(DRETURN, -2);
+        if (this.length > MAX_CODE_LENGTH)
+        {
+            return null;
+        }
+        byte[] evalCode = Arrays.copyOf(this.code, this.length);
+
+        int thisClass = classConstant(CLASS_NAME);
+        int superClass = classConstant("java/lang/Object");
+        int superInterface = classConstant("org/djutils/eval/DoubleExpression");
+        int objectInit = methodConstant("java/lang/Object", "<init>", "()V");
+        int initName = utf8("<init>");
+        int initDescriptor = utf8("()V");
+        int evalName = utf8("eval");
+        int evalDescriptor = utf8("([D)D");
+        int codeName = utf8("Code");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes))
+        {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0); // minor version
+            out.writeShort(49); // major version
+            out.writeShort(this.nextConstant);
+            this.constantPool.writeTo(out);
+            out.writeShort(0x1031); // ACC_PUBLIC | ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(1);
+            out.writeShort(superInterface);
+            out.writeShort(0); // fields
+            out.writeShort(2); // methods
+            byte[] initCode = new byte[] {(byte) ALOAD_0, (byte) INVOKESPECIAL, (byte) (objectInit >> 8), (byte) objectInit,
+                    (byte) RETURN};
+            writeMethod(out, initName, initDescriptor, codeName, 1, 1, initCode);
+            writeMethod(out, evalName, evalDescriptor, codeName, this.maxStack, valueLocal(this.temporaries), evalCode);
+            out.writeShort(0); // attributes
+        }
+        catch (IOException exception)
+        {
+            throw new UncheckedIOException(exception);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Write a public method with a Code attribute.
+     * @param out the output
+     * @param name constant pool index of the name of the method
+     * @param descriptor constant pool index of the descriptor of the method
+     * @param codeName constant pool index of "Code"
+     * @param maxStackDepth maximum depth of the operand stack
+     * @param maxLocals number of local variable slots
+     * @param methodCode the code of the method
+     * @throws IOException never, as it writes to a byte array
+     */
+    private static void writeMethod(final DataOutputStream out, final int name, final int descriptor, final int codeName,
+            final int maxStackDepth, final int maxLocals, final byte[] methodCode) throws IOException
+    {
+        out.writeShort(0x0001); // ACC_PUBLIC
+        out.writeShort(name);
+        out.writeShort(descriptor);
+        out.writeShort(1);
+        out.writeShort(codeName);
+        out.writeInt(12 + methodCode.length);
+        out.writeShort(maxStackDepth);
+        out.writeShort(maxLocals);
+        out.writeInt(methodCode.length);
+        out.write(methodCode);
+        out.writeShort(0); // exception table
+        out.writeShort(0); // attributes
+    }
+
+    /**
+     * Generate code that leaves the SI value of a numeric node on the operand stack.
+     * @param node the node
+     */
+    private void generateDouble(final Node node)
+    {
+        if (node instanceof Node.Constant constant)
+        {
+            double value = constant.evaluateDouble(null, null);
+            if (Double.doubleToRawLongBits(value) == 0L || value == 1.0)
+            {
+                emit(value == 1.0 ? DCONST_1 : DCONST_0, 2);
+            }
+            else
+            {
+                emit(LDC2_W, 2);
+                emitShort(doubleConstant(value));
+            }
+        }
+        else if (node instanceof Node.Variable variable)
+        {
+            emit(ALOAD_1, 1);
+            pushInt(variable.slot);
+            emit(DALOAD, 0);
+        }
+        else if (node instanceof Node.Shared shared)
+        {
+            generateShared(shared, false);
+        }
+        else if (node instanceof Node.Unary unary && Node.UnaryOperator.NEGATE == unary.operator)
+        {
+            generateDouble(unary.operand);
+            emit(DNEG, 0);
+        }
+        else if (node instanceof Node.Binary binary)
+        {
+            generateDouble(binary.left);
+            generateDouble(binary.right);
+            switch (binary.operator)
+            {
+                case POWER:
+                    invokeMath("pow", 2);
+                    break;
+                case MULTIPLY:
+                    emit(DMUL, -2);
+                    break;
+                case DIVIDE:
+                    emit(DUP2, 2);
+                    emit(DCONST_0, 2);
+                    emit(DCMPL, -3);
+                    int nonZero = branch(IFNE);
+                    emit(LDC_W, 1);
+                    emitShort(stringConstant("Division by 0"));
+                    pushInt(binary.position);
+                    emit(INVOKESTATIC, -2);
+                    emitShort(methodConstant("org/djutils/eval/Eval", "throwException", "(Ljava/lang/String;I)V"));
+                    land(nonZero);
+                    emit(DDIV, -2);
+                    break;
+                case ADD:
+                    emit(DADD, -2);
+                    break;
+                case SUBTRACT:
+                    emit(DSUB, -2);
+                    break;
+                default:
+                    throw new IllegalStateException("Operator " + binary.operator + " does not yield a double");
+            }
+        }
+        else if (node instanceof Node.Conditional conditional)
+        {
+            generateBoolean(conditional.condition);
+            int elsePart = branch(IFEQ);
+            generateDouble(conditional.thenPart);
+            int end = branch(GOTO);
+            this.stack -= 2;
+            land(elsePart);
+            generateDouble(conditional.elsePart);
+            land(end);
+        }
+        else if (node instanceof Node.Call call && (null != call.primitiveUnary || null != call.primitiveBinary))
+        {
+            for (Node argument : call.arguments)
+            {
+                generateDouble(argument);
+            }
+            invokeMath(call.function.getId(), call.arguments.length);
+        }
+        else
+        {
+            throw new IllegalStateException(node.describe() + " does not yield a double");
+        }
+    }
+
+    /**
+     * Generate code that leaves a logical value (0 or 1) on the operand stack.
+     * @param node the node
+     */
+    private void generateBoolean(final Node node)
+    {
+        if (node instanceof Node.Constant constant)
+        {
+            emit(constant.evaluateBoolean(null, null) ? ICONST_1 : ICONST_0, 1);
+        }
+        else if (node instanceof Node.Shared shared)
+        {
+            generateShared(shared, true);
+        }
+        else if (node instanceof Node.Unary unary && Node.UnaryOperator.NOT == unary.operator)
+        {
+            generateBoolean(unary.operand);
+            emit(ICONST_1, 1);
+            emit(IXOR, -1);
+        }
+        else if (node instanceof Node.Binary binary)
+        {
+            switch (binary.operator)
+            {
+                // Both operands are always evaluated, as in the interpreter
+                case AND:
+                case OR:
+                case EQUAL:
+                case NOT_EQUAL:
+                    generateBoolean(binary.left);
+                    generateBoolean(binary.right);
+                    emit(binary.operator == Node.BinaryOperator.AND ? IAND
+                            : binary.operator == Node.BinaryOperator.OR ? IOR : IXOR, -1);
+                    if (binary.operator == Node.BinaryOperator.EQUAL)
+                    {
+                        emit(ICONST_1, 1);
+                        emit(IXOR, -1);
+                    }
+                    break;
+                case LESS:
+                    compare(binary, DCMPG, IFGE);
+                    break;
+                case LESS_OR_EQUAL:
+                    compare(binary, DCMPG, IFGT);
+                    break;
+                case GREATER:
+                    compare(binary, DCMPL, IFLE);
+                    break;
+                case GREATER_OR_EQUAL:
+                    compare(binary, DCMPL, IFLT);
+                    break;
+                default:
+                    throw new IllegalStateException("Operator " + binary.operator + " does not yield a logical value");
+            }
+        }
+        else if (node instanceof Node.Conditional conditional)
+        {
+            generateBoolean(conditional.condition);
+            int elsePart = branch(IFEQ);
+            generateBoolean(conditional.thenPart);
+            int end = branch(GOTO);
+            this.stack -= 1;
+            land(elsePart);
+            generateBoolean(conditional.elsePart);
+            land(end);
+        }
+        else
+        {
+            throw new IllegalStateException(node.describe() + " does not yield a logical value");
+        }
+    }
+
+    /**
+     * Generate a comparison of two numeric operands. The comparison instruction is chosen such that a NaN operand yields
+     * false, as in Java.
+     * @param binary the comparison
+     * @param compareOpcode DCMPL or DCMPG
+     * @param falseOpcode conditional branch that is taken when the result is false
+     */
+    private void compare(final Node.Binary binary, final int compareOpcode, final int falseOpcode)
+    {
+        generateDouble(binary.left);
+        generateDouble(binary.right);
+        emit(compareOpcode, -3);
+        int falseBranch = branch(falseOpcode);
+        emit(ICONST_1, 1);
+        int end = branch(GOTO);
+        this.stack -= 1;
+        land(falseBranch);
+        emit(ICONST_0, 1);
+        land(end);
+    }
+
+    /**
+     * Generate code that evaluates a shared subexpression the first time that it is needed and leaves its value on the
+     * operand stack.
+     * @param shared the shared subexpression
+     * @param logical whether the value is a logical value
+     */
+    private void generateShared(final Node.Shared shared, final boolean logical)
+    {
+        int temporary = shared.index - this.firstTemporary;
+        local(ILOAD, doneLocal(temporary), 1);
+        int done = branch(IFNE);
+        if (logical)
+        {
+            generateBoolean(shared.expression);
+            local(ISTORE, valueLocal(temporary), -1);
+        }
+        else
+        {
+            generateDouble(shared.expression);
+            local(DSTORE, valueLocal(temporary), -2);
+        }
+        emit(ICONST_1, 1);
+        local(ISTORE, doneLocal(temporary), -1);
+        land(done);
+        local(logical ? ILOAD : DLOAD, valueLocal(temporary), logical ? 1 : 2);
+    }
+
+    /**
+     * Return the local variable that holds the value of a shared subexpression.
+     * @param temporary the number of the shared subexpression
+     * @return the local variable that holds the value of the shared subexpression
+     */
+    private static int valueLocal(final int temporary)
+    {
+        // Local 0 is this, local 1 is the double[] argument; each shared subexpression has a value (two words) and a flag
+        return 2 + 3 * temporary;
+    }
+
+    /**
+     * Return the local variable that records whether a shared subexpression has been evaluated.
+     * @param temporary the number of the shared subexpression
+     * @return the local variable that records whether the shared subexpression has been evaluated
+     */
+    private static int doneLocal(final int temporary)
+    {
+        return valueLocal(temporary) + 2;
+    }
+
+    /**
+     * Record the type of every shared subexpression in a tree.
+     * @param node the root of the tree
+     */
+    private void collectShared(final Node node)
+    {
+        if (node instanceof Node.Shared shared)
+        {
+            this.logical[shared.index - this.firstTemporary] = this.optimizer.typeOf(shared).isBoolean();
+        }
+        for (Node child : node.children())
+        {
+            collectShared(child);
+        }
+    }
+
+    /**
+     * Generate a call to a static method of java.lang.Math with double arguments and a double result.
+     * @param name the name of the method
+     * @param arguments the number of arguments
+     */
+    private void invokeMath(final String name, final int arguments)
+    {
+        emit(INVOKESTATIC, 2 - 2 * arguments);
+        emitShort(methodConstant("java/lang/Math", name, 1 == arguments ? "(D)D" : "(DD)D"));
+    }
+
+    /**
+     * Generate an instruction that pushes an int.
+     * @param value the value
+     */
+    private void pushInt(final int value)
+    {
+        if (value >= -1 && value <= 5)
+        {
+            emit(ICONST_0 + value, 1);
+        }
+        else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE)
+        {
+            emit(BIPUSH, 1);
+            emitByte(value);
+        }
+        else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE)
+        {
+            emit(SIPUSH, 1);
+            emitShort(value);
+        }
+        else
+        {
+            emit(LDC_W, 1);
+            emitShort(integerConstant(value));
+        }
+    }
+
+    /**
+     * Generate an instruction that loads or stores a local variable.
+     * @param opcode the opcode
+     * @param local the local variable
+     * @param stackChange the change of the depth of the operand stack
+     */
+    private void local(final int opcode, final int local, final int stackChange)
+    {
+        if (local > 255)
+        {
+            emit(WIDE, 0);
+            emit(opcode, stackChange);
+            emitShort(local);
+        }
+        else
+        {
+            emit(opcode, stackChange);
+            emitByte(local);
+        }
+    }
+
+    /**
+     * Generate a forward branch of which the target is set later with <code>land</code>.
+     * @param opcode the branch instruction
+     * @return the position of the branch instruction
+     */
+    private int branch(final int opcode)
+    {
+        int result = this.length;
+        emit(opcode, GOTO == opcode ? 0 : -1);
+        emitShort(0);
+        return result;
+    }
+
+    /**
+     * Set the target of a forward branch to the current position.
+     * @param branch the position of the branch instruction
+     */
+    private void land(final int branch)
+    {
+        int offset = this.length - branch;
+        if (offset <= Short.MAX_VALUE)
+        {
+            this.code[branch + 1] = (byte) (offset >> 8);
+            this.code[branch + 2] = (byte) offset;
+        }
+        else
+        {
+            // Branch cannot be encoded; make sure that the class file is not used
+            this.length = Math.max(this.length, MAX_CODE_LENGTH + 1);
+        }
+    }
+
+    /**
+     * Append an instruction.
+     * @param opcode the opcode
+     * @param stackChange the change of the depth of the operand stack
+     */
+    private void emit(final int opcode, final int stackChange)
+    {
+        emitByte(opcode);
+        this.stack += stackChange;
+        this.maxStack = Math.max(this.maxStack, this.stack);
+    }
+
+    /**
+     * Append a two-byte operand.
+     * @param value the operand
+     */
+    private void emitShort(final int value)
+    {
+        emitByte(value >> 8);
+        emitByte(value);
+    }
+
+    /**
+     * Append one byte.
+     * @param value the byte
+     */
+    private void emitByte(final int value)
+    {
+        if (this.length == this.code.length)
+        {
+            this.code = Arrays.copyOf(this.code, 2 * this.code.length);
+        }
+        this.code[this.length++] = (byte) value;
+    }
+
+    /**
+     * Return the constant pool index of a Utf8 entry.
+     * @param value the string
+     * @return the constant pool index
+     */
+    private int utf8(final String value)
+    {
+        return constant("U" + value, 1, (out) ->
+        {
+            out.writeByte(1);
+            out.writeUTF(value);
+        });
+    }
+
+    /**
+     * Return the constant pool index of a Class entry.
+     * @param internalName the internal name of the class
+     * @return the constant pool index
+     */
+    private int classConstant(final String internalName)
+    {
+        int name = utf8(internalName);
+        return constant("C" + internalName, 1, (out) ->
+        {
+            out.writeByte(7);
+            out.writeShort(name);
+        });
+    }
+
+    /**
+     * Return the constant pool index of a String entry.
+     * @param value the string
+     * @return the constant pool index
+     */
+    private int stringConstant(final String value)
+    {
+        int string = utf8(value);
+        return constant("S" + value, 1, (out) ->
+        {
+            out.writeByte(8);
+            out.writeShort(string);
+        });
+    }
+
+    /**
+     * Return the constant pool index of an Integer entry.
+     * @param value the value
+     * @return the constant pool index
+     */
+    private int integerConstant(final int value)
+    {
+        return constant("I" + value, 1, (out) ->
+        {
+            out.writeByte(3);
+            out.writeInt(value);
+        });
+    }
+
+    /**
+     * Return the constant pool index of a Double entry.
+     * @param value the value
+     * @return the constant pool index
+     */
+    private int doubleConstant(final double value)
+    {
+        long bits = Double.doubleToRawLongBits(value);
+        return constant("D" + bits, 2, (out) ->
+        {
+            out.writeByte(6);
+            out.writeLong(bits);
+        });
+    }
+
+    /**
+     * Return the constant pool index of a Methodref entry.
+     * @param owner the internal name of the class
+     * @param name the name of the method
+     * @param descriptor the descriptor of the method
+     * @return the constant pool index
+     */
+    private int methodConstant(final String owner, final String name, final String descriptor)
+    {
+        int ownerClass = classConstant(owner);
+        int methodName = utf8(name);
+        int methodDescriptor = utf8(descriptor);
+        int nameAndType = constant("N" + name + descriptor, 1, (out) ->
+        {
+            out.writeByte(12);
+            out.writeShort(methodName);
+            out.writeShort(methodDescriptor);
+        });
+        return constant("M" + owner + "." + name + descriptor, 1, (out) ->
+        {
+            out.writeByte(10);
+            out.writeShort(ownerClass);
+            out.writeShort(nameAndType);
+        });
+    }
+
+    /**
+     * Return the constant pool index of an entry, adding the entry if it is not yet in the constant pool.
+     * @param key key that identifies the entry
+     * @param size number of constant pool indices that the entry occupies
+     * @param writer writes the entry
+     * @return the constant pool index
+     */
+    private int constant(final String key, final int size, final EntryWriter writer)
+    {
+        Integer index = this.constants.get(key);
+        if (null == index)
+        {
+            index = this.nextConstant;
+            try (DataOutputStream out = new DataOutputStream(this.constantPool))
+            {
+                writer.write(out);
+            }
+            catch (IOException exception)
+            {
+                throw new UncheckedIOException(exception);
+            }
+            this.constants.put(key, index);
+            this.nextConstant += size;
+        }
+        return index;
+    }
+
+    /**
+     * Writes a constant pool entry.
+     */
+    @FunctionalInterface
+    private interface EntryWriter
+    {
+        /**
+         * Write the entry.
+         * @param out the output
+         * @throws IOException never, as it writes to a byte array
+         */
+        void write(DataOutputStream out) throws IOException;
+    }
+
+}
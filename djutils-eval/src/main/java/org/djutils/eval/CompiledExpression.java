@@ -0,0 +1,862 @@
+package org.djutils.eval;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.djunits.unit.AbsoluteLinearUnit;
+import org.djunits.unit.Unit;
+import org.djunits.unit.si.SIDimensions;
+import org.djunits.value.vdouble.scalar.SIScalar;
+import org.djunits.value.vdouble.scalar.base.DoubleScalar;
+import org.djunits.value.vdouble.scalar.base.DoubleScalarAbs;
+import org.djunits.value.vdouble.scalar.base.DoubleScalarRel;
+import org.djutils.exceptions.Throw;
+
+/**
+ * CompiledExpression.java. Expression that has been parsed once by Eval and can then be evaluated many times. The variables of
+ * the expression are bound to slots at compile time. Evaluation reads the value of each variable from the corresponding slot
+ * of a context that the caller fills, instead of looking up each variable by name every time it occurs in the expression. A
+ * context is either an <code>Object[]</code> holding DoubleScalar or Boolean values, or a <code>double[]</code> holding SI
+ * values for the units that were declared at compile time.
+ * <p>
+ * In a conditional expression, the else part extends as far to the right as possible; e.g. <code>c ? 1 : 2 + 3</code> is
+ * compiled as <code>c ? 1 : (2 + 3)</code> regardless of the value of <code>c</code>.
+ * </p>
+ * <p>
+ * The tree is optimized once at compile time: constant subtrees are folded, subexpressions that occur more than once are
+ * evaluated only once per evaluation, and, when the units of all variables are declared, the type of every node is determined.
+ * When the type of the result is known at compile time, <code>evaluateAsDouble(double[])</code>,
+ * <code>evaluateAsBoolean(double[])</code> and <code>evaluateBatchAsDouble</code> compute directly on SI values without
+ * creating any DoubleScalar objects. The <code>dump</code> method describes the optimized tree.
+ * </p>
+ * <p>
+ * Optionally, a statically typed expression with a numeric result can be translated into a class of its own with
+ * <code>toDoubleExpression</code>. Such a class contains the arithmetic of the expression as JVM instructions, which the JIT
+ * compiler can inline into the code that evaluates the expression.
+ * </p>
+ * <p>
+ * A CompiledExpression is immutable and can be evaluated concurrently by multiple threads, provided that the functions that
+ * it calls are thread-safe.
+ * </p>
+ * <p>
+ * Copyright (c) 2023-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>.
+ * </p>
+ * @author <a href="https://www.tudelft.nl/pknoppers">Peter Knoppers</a>
+ */
+public final class CompiledExpression
+{
+    /** The source text of the expression. */
+    private final String expression;
+
+    /** The root of the tree. */
+    private final Node root;
+
+    /** The names of the variables, indexed by slot. */
+    private final String[] variableNames;
+
+    /** Map from variable name to slot. */
+    private final Map<String, Integer> slots = new LinkedHashMap<>();
+
+    /** The SI units of the variables, indexed by slot; null if the units of one or more variables are not known. */
+    private final Unit<?>[] siUnits;
+
+    /** Values of the variables in their SI unit, indexed by slot, used to instantiate values of the same type. */
+    private final DoubleScalar<?, ?>[] prototypes;
+
+    /** Number of slots beyond the slots of the variables that are used to store the values of shared subexpressions. */
+    private final int temporaries;
+
+    /** Type of the result if it is known at compile time; null otherwise. */
+    private final Optimizer.Type resultType;
+
+    /** Value of the type and unit of the result (determined when first needed); null if not yet determined. */
+    private volatile DoubleScalar<?, ?> resultPrototype = null;
+
+    /** Bytecode-compiled form of this expression (created when first needed); null if not yet created. */
+    private volatile DoubleExpression doubleExpression = null;
+
+    /**
+     * Frame and flags per thread for the evaluation on SI values of an expression with shared subexpressions; null when the
+     * expression has no shared subexpressions.
+     */
+    private final ThreadLocal<Scratch> scratch;
+
+    /** Flags for the evaluation on SI values of an expression without shared subexpressions; these are never accessed. */
+    private static final boolean[] NO_SHARED_VALUES = new boolean[0];
+
+    /** Named quantities per SI dimensions; SIScalar if there is no named quantity for the SI dimensions. */
+    private static final Map<SIDimensions, DoubleScalar<?, ?>> NAMED_QUANTITIES = new ConcurrentHashMap<>();
+
+    /**
+     * Construct a new CompiledExpression.
+     * @param expression the source text of the expression
+     * @param root the root of the tree
+     * @param variableNames the names of the variables, indexed by slot
+     * @param variableUnits the units of the variables, indexed by slot (may be null)
+     */
+    CompiledExpression(final String expression, final Node root, final String[] variableNames, final Unit<?>[] variableUnits)
+    {
+        this.expression = expression;
+        this.variableNames = variableNames;
+        for (int slot = 0; slot < variableNames.length; slot++)
+        {
+            this.slots.put(variableNames[slot], slot);
+        }
+        Unit<?>[] units = new Unit<?>[variableNames.length];
+        for (int slot = 0; slot < variableNames.length; slot++)
+        {
+            if (null == variableUnits || null == variableUnits[slot])
+            {
+                units = null;
+                break;
+            }
+            units[slot] = variableUnits[slot].getStandardUnit();
+        }
+        this.siUnits = units;
+        if (null == units)
+        {
+            this.prototypes = null;
+        }
+        else
+        {
+            this.prototypes = new DoubleScalar<?, ?>[units.length];
+            synchronized (Eval.UNIT_REGISTRY_LOCK)
+            {
+                for (int slot = 0; slot < units.length; slot++)
+                {
+                    this.prototypes[slot] = SIScalar.instantiateAnonymous(0.0, units[slot]);
+                }
+            }
+        }
+        Optimizer optimizer = new Optimizer(this.prototypes, variableNames.length);
+        this.root = optimizer.optimize(root);
+        this.temporaries = optimizer.getNumberOfTemporaries();
+        this.resultType = optimizer.typeOf(this.root);
+        int frameLength = variableNames.length + this.temporaries;
+        this.scratch = 0 == this.temporaries ? null : ThreadLocal.withInitial(() -> new Scratch(frameLength));
+    }
+
+    /**
+     * Return the source text of the expression.
+     * @return the source text of the expression
+     */
+    public String getExpression()
+    {
+        return this.expression;
+    }
+
+    /**
+     * Return the number of slots that a context for this expression must have.
+     * @return the number of slots
+     */
+    public int getNumberOfSlots()
+    {
+        return this.variableNames.length;
+    }
+
+    /**
+     * Return the names of the variables in slot order.
+     * @return the names of the variables in slot order
+     */
+    public List<String> getVariableNames()
+    {
+        return Collections.unmodifiableList(Arrays.asList(this.variableNames));
+    }
+
+    /**
+     * Return the slot of a variable.
+     * @param name the name of the variable
+     * @return the slot of the variable
+     * @throws IllegalArgumentException when the expression has no slot for a variable with the given name
+     */
+    public int getSlot(final String name)
+    {
+        Integer slot = this.slots.get(name);
+        Throw.when(null == slot, IllegalArgumentException.class, "Expression has no variable %s", name);
+        return slot;
+    }
+
+    /**
+     * Return the SI unit in which the value of a variable must be provided in a <code>double[]</code> context.
+     * @param slot the slot of the variable
+     * @return the SI unit of the variable, or null if the units of the variables were not declared
+     */
+    public Unit<?> getSIUnit(final int slot)
+    {
+        Throw.when(slot < 0 || slot >= this.variableNames.length, IndexOutOfBoundsException.class, "Bad slot %d", slot);
+        return null == this.siUnits ? null : this.siUnits[slot];
+    }
+
+    /**
+     * Return whether the type of the result (and of every intermediate result) is known at compile time. If so, the
+     * <code>double[]</code> evaluation methods that return a double or a Boolean do not create any DoubleScalar objects.
+     * @return true if the type of the result is known at compile time
+     */
+    public boolean isStaticallyTyped()
+    {
+        return null != this.resultType;
+    }
+
+    /**
+     * Return the type of the result, if it is known at compile time. For a numeric result, this is the DoubleScalar subclass
+     * of the quantity that has the SI dimensions of the result. When a variable has the SI dimensions (and absoluteness) of
+     * the result, the quantity of that variable is used; otherwise the first named quantity (in alphabetical order) of which
+     * the SI dimensions match is used; e.g., <code>Frequency</code> rather than <code>RadioActivity</code> for 1/s. When no
+     * named quantity has the SI dimensions of the result, the type is <code>SIScalar</code>.
+     * @return Boolean.class, a subclass of DoubleScalar, or null if the type of the result is not known at compile time
+     */
+    public Class<?> getResultType()
+    {
+        if (null == this.resultType)
+        {
+            return null;
+        }
+        return this.resultType.isBoolean() ? Boolean.class : resultPrototype().getClass();
+    }
+
+    /**
+     * Return the SI (standard) unit of the quantity of the result, if the result is numeric and its type is known at compile
+     * time. The SI value of the result is expressed in this unit.
+     * @return the SI unit of the quantity of the result, or null if the result is a logical value or its type is not known
+     *         at compile time
+     */
+    public Unit<?> getResultUnit()
+    {
+        return null == this.resultType || this.resultType.isBoolean() ? null : resultPrototype().getDisplayUnit();
+    }
+
+    /**
+     * Return a value of the type and SI unit of the result.
+     * @return a value of the type and SI unit of the result
+     */
+    private DoubleScalar<?, ?> resultPrototype()
+    {
+        DoubleScalar<?, ?> result = this.resultPrototype;
+        if (null == result)
+        {
+            if (null != this.prototypes)
+            {
+                for (DoubleScalar<?, ?> prototype : this.prototypes)
+                {
+                    if (prototype.getDisplayUnit().getQuantity().getSiDimensions().equals(this.resultType.dimensions())
+                            && (prototype instanceof DoubleScalarAbs) == this.resultType.absolute())
+                    {
+                        result = prototype;
+                        break;
+                    }
+                }
+            }
+            if (null == result)
+            {
+                result = namedQuantity(this.resultType.dimensions());
+            }
+            this.resultPrototype = result;
+        }
+        return result;
+    }
+
+    /**
+     * Find the first named quantity (in alphabetical order) with some SI dimensions.
+     * @param siDimensions the SI dimensions
+     * @return a value of the named quantity in its SI unit, or an SIScalar if there is no named quantity with these dimensions
+     */
+    private static DoubleScalar<?, ?> namedQuantity(final SIDimensions siDimensions)
+    {
+        return NAMED_QUANTITIES.computeIfAbsent(siDimensions, (dimensions) ->
+        {
+            SIScalar value = new SIScalar(0.0, Eval.siUnit(dimensions));
+            List<Method> conversions = new ArrayList<>();
+            for (Method method : SIScalar.class.getMethods())
+            {
+                // Conversions to a named quantity are called asXxx and take no arguments
+                if (method.getName().startsWith("as") && 0 == method.getParameterCount()
+                        && DoubleScalar.class.isAssignableFrom(method.getReturnType()))
+                {
+                    conversions.add(method);
+                }
+            }
+            conversions.sort(Comparator.comparing(Method::getName));
+            synchronized (Eval.UNIT_REGISTRY_LOCK)
+            {
+                for (Method conversion : conversions)
+                {
+                    try
+                    {
+                        DoubleScalar<?, ?> result = (DoubleScalar<?, ?>) conversion.invoke(value);
+                        if (!(result instanceof SIScalar))
+                        {
+                            return result;
+                        }
+                    }
+                    catch (ReflectiveOperationException | RuntimeException exception)
+                    {
+                        // SI dimensions do not match; try the next one
+                    }
+                }
+            }
+            return value;
+        });
+    }
+
+    /**
+     * Return a multi-line description of the optimized tree of this expression, with the type of each node if it is known at
+     * compile time. Intended for debugging.
+     * @return a multi-line description of the optimized tree
+     */
+    public String dump()
+    {
+        return new Optimizer(this.prototypes, this.variableNames.length).dump(this.root);
+    }
+
+    /**
+     * Return a DoubleExpression that computes the SI value of the result of this expression from the SI values of the
+     * variables. When the type of the result is known at compile time and the result is numeric, the DoubleExpression is an
+     * instance of a hidden class that is generated for this expression; its <code>eval</code> method does the arithmetic of
+     * the expression directly on the <code>double[]</code> argument, without creating any objects. Otherwise (the result is
+     * a logical value, or the units of the variables were not declared, or the expression contains a function of which the
+     * result type is not known at compile time), the DoubleExpression evaluates the expression with
+     * <code>evaluateAsDouble(double[])</code>. The class is generated only once per CompiledExpression; it is unloaded when
+     * the DoubleExpression is no longer referenced. The generated code does not check the length of the argument; a too
+     * short array causes an ArrayIndexOutOfBoundsException.
+     * @return a DoubleExpression that evaluates this expression
+     */
+    public DoubleExpression toDoubleExpression()
+    {
+        DoubleExpression result = this.doubleExpression;
+        if (null == result)
+        {
+            if (null != this.resultType && this.resultType.isNumeric())
+            {
+                result = BytecodeCompiler.compile(this.root, new Optimizer(this.prototypes, this.variableNames.length),
+                        this.variableNames.length, this.temporaries);
+            }
+            if (null == result)
+            {
+                result = (siValues) -> evaluateAsDouble(siValues);
+            }
+            this.doubleExpression = result;
+        }
+        return result;
+    }
+
+    /**
+     * Evaluate the expression.
+     * @param context the values of the variables, indexed by slot (DoubleScalar or Boolean)
+     * @return the result of the evaluation (DoubleScalar or Boolean)
+     * @throws RuntimeException when the expression could not be evaluated
+     * @throws IllegalArgumentException when the context has too few slots
+     */
+    public Object evaluate(final Object[] context) throws RuntimeException
+    {
+        checkContext(context);
+        return this.root.evaluate(frame(context));
+    }
+
+    /**
+     * Evaluate the expression with variable values in SI units. This is only possible when the units of all variables were
+     * declared when the expression was compiled.
+     * @param siValues the SI values of the variables, indexed by slot
+     * @return the result of the evaluation (DoubleScalar or Boolean)
+     * @throws RuntimeException when the expression could not be evaluated
+     * @throws IllegalStateException when the units of the variables were not declared
+     * @throws IllegalArgumentException when siValues has too few slots
+     */
+    public Object evaluate(final double[] siValues) throws RuntimeException
+    {
+        return this.root.evaluate(toContext(siValues, new Object[this.variableNames.length + this.temporaries]));
+    }
+
+    /**
+     * Evaluate the expression, looking up each variable once with a RetrieveValue object.
+     * @param retrieveValue the RetrieveValue object
+     * @return the result of the evaluation (DoubleScalar or Boolean)
+     * @throws RuntimeException when the expression could not be evaluated
+     */
+    public Object evaluate(final RetrieveValue retrieveValue) throws RuntimeException
+    {
+        Throw.whenNull(retrieveValue, "retrieveValue may not be null");
+        Object[] context = new Object[this.variableNames.length + this.temporaries];
+        for (int slot = 0; slot < this.variableNames.length; slot++)
+        {
+            context[slot] = retrieveValue.lookup(this.variableNames[slot]);
+        }
+        return this.root.evaluate(context);
+    }
+
+    /**
+     * Evaluate the expression and return the SI value of the result.
+     * @param context the values of the variables, indexed by slot (DoubleScalar or Boolean)
+     * @return the SI value of the result
+     * @throws RuntimeException when the expression could not be evaluated, or the result is not a double value
+     */
+    public double evaluateAsDouble(final Object[] context) throws RuntimeException
+    {
+        return asDouble(evaluate(context));
+    }
+
+    /**
+     * Evaluate the expression with variable values in SI units and return the SI value of the result.
+     * @param siValues the SI values of the variables, indexed by slot
+     * @return the SI value of the result
+     * @throws RuntimeException when the expression could not be evaluated, or the result is not a double value
+     */
+    public double evaluateAsDouble(final double[] siValues) throws RuntimeException
+    {
+        if (null != this.resultType && this.resultType.isNumeric())
+        {
+            checkSIValues(siValues);
+            if (0 == this.temporaries)
+            {
+                return this.root.evaluateDouble(siValues, NO_SHARED_VALUES);
+            }
+            Scratch frame = this.scratch.get();
+            if (frame.inUse)
+            {
+                // nested evaluation of this expression on the same thread, by a function that the expression calls
+                return this.root.evaluateDouble(frame(siValues), new boolean[this.variableNames.length + this.temporaries]);
+            }
+            try
+            {
+                frame.load(siValues, this.variableNames.length);
+                return this.root.evaluateDouble(frame.values, frame.done);
+            }
+            finally
+            {
+                frame.inUse = false;
+            }
+        }
+        return asDouble(evaluate(siValues));
+    }
+
+    /**
+     * Evaluate the expression, looking up each variable once with a RetrieveValue object, and return the SI value of the result.
+     * @param retrieveValue the RetrieveValue object
+     * @return the SI value of the result
+     * @throws RuntimeException when the expression could not be evaluated, or the result is not a double value
+     */
+    public double evaluateAsDouble(final RetrieveValue retrieveValue) throws RuntimeException
+    {
+        return asDouble(evaluate(retrieveValue));
+    }
+
+    /**
+     * Evaluate the expression and return the result as a Boolean.
+     * @param context the values of the variables, indexed by slot (DoubleScalar or Boolean)
+     * @return the result of the evaluation
+     * @throws RuntimeException when the expression could not be evaluated, or the result is not a logical value
+     */
+    public Boolean evaluateAsBoolean(final Object[] context) throws RuntimeException
+    {
+        return asBoolean(evaluate(context));
+    }
+
+    /**
+     * Evaluate the expression with variable values in SI units and return the result as a Boolean.
+     * @param siValues the SI values of the variables, indexed by slot
+     * @return the result of the evaluation
+     * @throws RuntimeException when the expression could not be evaluated, or the result is not a logical value
+     */
+    public Boolean evaluateAsBoolean(final double[] siValues) throws RuntimeException
+    {
+        if (null != this.resultType && this.resultType.isBoolean())
+        {
+            checkSIValues(siValues);
+            if (0 == this.temporaries)
+            {
+                return this.root.evaluateBoolean(siValues, NO_SHARED_VALUES);
+            }
+            Scratch frame = this.scratch.get();
+            if (frame.inUse)
+            {
+                // nested evaluation of this expression on the same thread, by a function that the expression calls
+                return this.root.evaluateBoolean(frame(siValues),
+                        new boolean[this.variableNames.length + this.temporaries]);
+            }
+            try
+            {
+                frame.load(siValues, this.variableNames.length);
+                return this.root.evaluateBoolean(frame.values, frame.done);
+            }
+            finally
+            {
+                frame.inUse = false;
+            }
+        }
+        return asBoolean(evaluate(siValues));
+    }
+
+    /**
+     * Evaluate the expression, looking up each variable once with a RetrieveValue object, and return the result as a Boolean.
+     * @param retrieveValue the RetrieveValue object
+     * @return the result of the evaluation
+     * @throws RuntimeException when the expression could not be evaluated, or the result is not a logical value
+     */
+    public Boolean evaluateAsBoolean(final RetrieveValue retrieveValue) throws RuntimeException
+    {
+        return asBoolean(evaluate(retrieveValue));
+    }
+
+    /**
+     * Evaluate the expression for a number of contexts.
+     * @param contexts the contexts; each holds the values of the variables, indexed by slot
+     * @return the results of the evaluations, in the order of the contexts
+     * @throws RuntimeException when the expression could not be evaluated for one of the contexts
+     */
+    public Object[] evaluateBatch(final Object[][] contexts) throws RuntimeException
+    {
+        Throw.whenNull(contexts, "contexts may not be null");
+        Object[] result = new Object[contexts.length];
+        for (int i = 0; i < contexts.length; i++)
+        {
+            result[i] = evaluate(contexts[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Evaluate the expression for a number of contexts with variable values in SI units and return the SI values of the
+     * results. One scratch context is reused for all evaluations.
+     * @param siValues the contexts; each holds the SI values of the variables, indexed by slot
+     * @return the SI values of the results, in the order of the contexts
+     * @throws RuntimeException when the expression could not be evaluated for one of the contexts, or a result is not a double
+     *             value
+     */
+    public double[] evaluateBatchAsDouble(final double[][] siValues) throws RuntimeException
+    {
+        Throw.whenNull(siValues, "siValues may not be null");
+        double[] result = new double[siValues.length];
+        if (null != this.resultType && this.resultType.isNumeric())
+        {
+            int slots = this.variableNames.length;
+            double[] frame = new double[slots + this.temporaries];
+            boolean[] done = new boolean[frame.length];
+            for (int i = 0; i < siValues.length; i++)
+            {
+                checkSIValues(siValues[i]);
+                System.arraycopy(siValues[i], 0, frame, 0, slots);
+                Arrays.fill(done, slots, done.length, false);
+                result[i] = this.root.evaluateDouble(frame, done);
+            }
+            return result;
+        }
+        Object[] context = new Object[this.variableNames.length + this.temporaries];
+        for (int i = 0; i < siValues.length; i++)
+        {
+            Arrays.fill(context, this.variableNames.length, context.length, null);
+            result[i] = asDouble(this.root.evaluate(toContext(siValues[i], context)));
+        }
+        return result;
+    }
+
+    /**
+     * Check that a context is suitable for this expression.
+     * @param context the context
+     * @throws NullPointerException when context is null
+     * @throws IllegalArgumentException when context has too few slots
+     */
+    private void checkContext(final Object[] context)
+    {
+        Throw.whenNull(context, "context may not be null");
+        Throw.when(context.length < this.variableNames.length, IllegalArgumentException.class,
+                "context has %d slots; expression needs %d", context.length, this.variableNames.length);
+    }
+
+    /**
+     * Evaluate the expression for every row of a set of columns of SI values and return the SI values of the results. The
+     * columns are indexed by slot; the value of the variable in slot <code>s</code> for row <code>r</code> is
+     * <code>columns[s][r]</code>. When the type of the result is known at compile time, the evaluation works directly on the
+     * primitive columns without creating DoubleScalar objects.
+     * @param columns the columns of SI values of the variables, indexed by slot; all columns must have the same length
+     * @return the SI values of the results, indexed by row
+     * @throws RuntimeException when the expression could not be evaluated for one of the rows, or a result is not a double
+     *             value
+     * @throws IllegalStateException when the units of the variables were not declared
+     * @throws IllegalArgumentException when the number of columns is too small, or the columns do not have the same length
+     */
+    public double[] evaluateColumns(final double[][] columns) throws RuntimeException
+    {
+        double[] result = new double[Math.max(0, checkColumns(columns))];
+        evaluateColumns(columns, 0, result.length, result);
+        return result;
+    }
+
+    /**
+     * Evaluate the expression for a range of rows of a set of columns of SI values and store the SI values of the results.
+     * Ranges that do not overlap can be evaluated concurrently.
+     * @param columns the columns of SI values of the variables, indexed by slot; all columns must have the same length
+     * @param from the first row of the range
+     * @param to the row after the range
+     * @param result array to store the SI values of the results in, indexed by row
+     * @throws RuntimeException when the expression could not be evaluated for one of the rows, or a result is not a double
+     *             value
+     * @throws IllegalStateException when the units of the variables were not declared
+     * @throws IllegalArgumentException when the number of columns is too small, or the columns do not have the same length
+     * @throws IndexOutOfBoundsException when the range is not within the columns or the result
+     */
+    public void evaluateColumns(final double[][] columns, final int from, final int to, final double[] result)
+            throws RuntimeException
+    {
+        int rows = checkColumns(columns);
+        Throw.whenNull(result, "result may not be null");
+        Objects.checkFromToIndex(from, to, rows < 0 ? result.length : Math.min(rows, result.length));
+        int slots = this.variableNames.length;
+        double[] frame = new double[slots + this.temporaries];
+        if (null != this.resultType && this.resultType.isNumeric())
+        {
+            boolean[] done = new boolean[frame.length];
+            for (int row = from; row < to; row++)
+            {
+                for (int slot = 0; slot < slots; slot++)
+                {
+                    frame[slot] = columns[slot][row];
+                }
+                Arrays.fill(done, slots, done.length, false);
+                result[row] = this.root.evaluateDouble(frame, done);
+            }
+            return;
+        }
+        Object[] context = new Object[frame.length];
+        for (int row = from; row < to; row++)
+        {
+            for (int slot = 0; slot < slots; slot++)
+            {
+                frame[slot] = columns[slot][row];
+            }
+            Arrays.fill(context, slots, context.length, null);
+            result[row] = asDouble(this.root.evaluate(toContext(frame, context)));
+        }
+    }
+
+    /**
+     * Evaluate the expression for a range of rows of a set of columns of SI values and store the logical results. Ranges that
+     * do not overlap can be evaluated concurrently.
+     * @param columns the columns of SI values of the variables, indexed by slot; all columns must have the same length
+     * @param from the first row of the range
+     * @param to the row after the range
+     * @param result array to store the results in, indexed by row
+     * @throws RuntimeException when the expression could not be evaluated for one of the rows, or a result is not a logical
+     *             value
+     * @throws IllegalStateException when the units of the variables were not declared
+     * @throws IllegalArgumentException when the number of columns is too small, or the columns do not have the same length
+     * @throws IndexOutOfBoundsException when the range is not within the columns or the result
+     */
+    public void evaluateColumnsAsBoolean(final double[][] columns, final int from, final int to, final boolean[] result)
+            throws RuntimeException
+    {
+        int rows = checkColumns(columns);
+        Throw.whenNull(result, "result may not be null");
+        Objects.checkFromToIndex(from, to, rows < 0 ? result.length : Math.min(rows, result.length));
+        int slots = this.variableNames.length;
+        double[] frame = new double[slots + this.temporaries];
+        boolean[] done = new boolean[frame.length];
+        Object[] context = new Object[frame.length];
+        boolean primitive = null != this.resultType && this.resultType.isBoolean();
+        for (int row = from; row < to; row++)
+        {
+            for (int slot = 0; slot < slots; slot++)
+            {
+                frame[slot] = columns[slot][row];
+            }
+            if (primitive)
+            {
+                Arrays.fill(done, slots, done.length, false);
+                result[row] = this.root.evaluateBoolean(frame, done);
+            }
+            else
+            {
+                Arrays.fill(context, slots, context.length, null);
+                result[row] = asBoolean(this.root.evaluate(toContext(frame, context)));
+            }
+        }
+    }
+
+    /**
+     * Check that a set of columns is suitable for this expression.
+     * @param columns the columns
+     * @return the number of rows, or -1 if the expression has no variables
+     * @throws IllegalStateException when the units of the variables were not declared
+     * @throws NullPointerException when columns, or one of the columns is null
+     * @throws IllegalArgumentException when there are too few columns, or the columns do not have the same length
+     */
+    private int checkColumns(final double[][] columns)
+    {
+        Throw.when(null == this.siUnits, IllegalStateException.class, "Units of the variables were not declared");
+        Throw.whenNull(columns, "columns may not be null");
+        Throw.when(columns.length < this.siUnits.length, IllegalArgumentException.class,
+                "there are %d columns; expression needs %d", columns.length, this.siUnits.length);
+        int rows = -1;
+        for (int slot = 0; slot < this.siUnits.length; slot++)
+        {
+            Throw.whenNull(columns[slot], "column %d may not be null", slot);
+            Throw.when(rows >= 0 && columns[slot].length != rows, IllegalArgumentException.class,
+                    "columns do not have the same length");
+            rows = columns[slot].length;
+        }
+        return rows;
+    }
+
+    /**
+     * Check that an array of SI values is suitable for this expression.
+     * @param siValues the SI values
+     * @throws IllegalStateException when the units of the variables were not declared
+     * @throws NullPointerException when siValues is null
+     * @throws IllegalArgumentException when siValues has too few slots
+     */
+    private void checkSIValues(final double[] siValues)
+    {
+        Throw.when(null == this.siUnits, IllegalStateException.class, "Units of the variables were not declared");
+        Throw.whenNull(siValues, "siValues may not be null");
+        Throw.when(siValues.length < this.siUnits.length, IllegalArgumentException.class,
+                "siValues has %d slots; expression needs %d", siValues.length, this.siUnits.length);
+    }
+
+    /**
+     * Return a context with room for the values of the shared subexpressions.
+     * @param context the values of the variables, indexed by slot
+     * @return context if the expression has no shared subexpressions; a copy of the slots of the variables with additional
+     *         (empty) slots otherwise
+     */
+    private Object[] frame(final Object[] context)
+    {
+        if (0 == this.temporaries)
+        {
+            return context;
+        }
+        Object[] result = new Object[this.variableNames.length + this.temporaries];
+        System.arraycopy(context, 0, result, 0, this.variableNames.length);
+        return result;
+    }
+
+    /**
+     * Return a frame of SI values with room for the values of the shared subexpressions.
+     * @param siValues the SI values of the variables, indexed by slot
+     * @return siValues if the expression has no shared subexpressions; a copy of the slots of the variables with additional
+     *         slots otherwise
+     */
+    private double[] frame(final double[] siValues)
+    {
+        return 0 == this.temporaries ? siValues : Arrays.copyOf(siValues, this.variableNames.length + this.temporaries);
+    }
+
+    /**
+     * Convert SI values into strongly typed values.
+     * @param siValues the SI values of the variables, indexed by slot
+     * @param context the array to store the strongly typed values in
+     * @return context
+     * @throws IllegalStateException when the units of the variables were not declared
+     * @throws IllegalArgumentException when siValues has too few slots
+     */
+    private Object[] toContext(final double[] siValues, final Object[] context)
+    {
+        checkSIValues(siValues);
+        for (int slot = 0; slot < this.siUnits.length; slot++)
+        {
+            context[slot] = instantiate(this.prototypes[slot], siValues[slot]);
+        }
+        return context;
+    }
+
+    /**
+     * Instantiate a value of the same type and unit as a prototype.
+     * @param prototype the prototype
+     * @param si the SI value
+     * @return a value of the same type and unit as the prototype
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static DoubleScalar<?, ?> instantiate(final DoubleScalar<?, ?> prototype, final double si)
+    {
+        if (prototype instanceof DoubleScalarAbs abs)
+        {
+            return abs.instantiateAbs(si, (AbsoluteLinearUnit) abs.getDisplayUnit());
+        }
+        DoubleScalarRel rel = (DoubleScalarRel) prototype;
+        return rel.instantiateRel(si, rel.getDisplayUnit());
+    }
+
+    /**
+     * Check that a result is a DoubleScalar and return its SI value.
+     * @param result the result
+     * @return the SI value of the result
+     * @throws RuntimeException when the result is not a DoubleScalar
+     */
+    private static double asDouble(final Object result) throws RuntimeException
+    {
+        if (!(result instanceof DoubleScalar<?, ?>))
+        {
+            throw new RuntimeException("Result " + result + " can not be cast to a double");
+        }
+        return ((DoubleScalar<?, ?>) result).si;
+    }
+
+    /**
+     * Check that a result is a Boolean and return it.
+     * @param result the result
+     * @return the result as a Boolean
+     * @throws RuntimeException when the result is not a Boolean
+     */
+    private static Boolean asBoolean(final Object result) throws RuntimeException
+    {
+        if (!(result instanceof Boolean))
+        {
+            throw new RuntimeException("Result " + result + " can not be cast to a Boolean");
+        }
+        return (Boolean) result;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CompiledExpression [expression=" + this.expression + ", variables=" + Arrays.toString(this.variableNames) + "]";
+    }
+
+    /**
+     * Frame of SI values and flags of the shared subexpressions that one thread reuses for the evaluations of an expression, so
+     * that <code>evaluateAsDouble(double[])</code> and <code>evaluateAsBoolean(double[])</code> do not allocate them per call.
+     */
+    private static final class Scratch
+    {
+        /** The SI values of the variables, followed by the values of the shared subexpressions. */
+        final double[] values;
+
+        /** Flags that indicate which shared values have been computed, indexed by slot. */
+        final boolean[] done;
+
+        /** Whether an evaluation on this thread currently uses this frame. */
+        boolean inUse = false;
+
+        /**
+         * Construct a new scratch frame.
+         * @param length number of slots of the variables and the shared subexpressions
+         */
+        Scratch(final int length)
+        {
+            this.values = new double[length];
+            this.done = new boolean[length];
+        }
+
+        /**
+         * Copy the SI values of the variables into the frame, clear the flags of the shared subexpressions and mark the frame
+         * as in use.
+         * @param siValues the SI values of the variables, indexed by slot
+         * @param slots number of variables
+         */
+        void load(final double[] siValues, final int slots)
+        {
+            System.arraycopy(siValues, 0, this.values, 0, slots);
+            Arrays.fill(this.done, slots, this.done.length, false);
+            this.inUse = true;
+        }
+    }
+
+}
@@ -0,0 +1,24 @@
+package org.djutils.eval;
+
+/**
+ * DoubleExpression.java. Expression that computes the SI value of its result from the SI values of its variables. Instances are
+ * obtained from <code>CompiledExpression.toDoubleExpression()</code>.
+ * <p>
+ * Copyright (c) 2023-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>.
+ * </p>
+ * @author <a href="https://www.tudelft.nl/pknoppers">Peter Knoppers</a>
+ */
+@FunctionalInterface
+public interface DoubleExpression
+{
+    /**
+     * Evaluate the expression.
+     * @param slots the SI values of the variables, indexed by slot
+     * @return the SI value of the result
+     * @throws RuntimeException when the expression could not be evaluated
+     */
+    double eval(double[] slots) throws RuntimeException;
+}
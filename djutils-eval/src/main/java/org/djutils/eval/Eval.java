@@ -3,15 +3,23 @@ package org.djutils.eval;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
 
 import org.djunits.unit.AbsoluteLinearUnit;
 import org.djunits.unit.DimensionlessUnit;
+import org.djunits.unit.SIUnit;
 import org.djunits.unit.TimeUnit;
 import org.djunits.unit.Unit;
 import org.djunits.unit.si.SIDimensions;
+import org.djunits.unit.util.UnitException;
 import org.djunits.value.vdouble.scalar.Dimensionless;
 import org.djunits.value.vdouble.scalar.SIScalar;
 import org.djunits.value.vdouble.scalar.Time;
@@ -32,6 +40,10 @@ import org.djutils.metadata.ObjectDescriptor;
  * <a href="https://www.cs.bilkent.edu.tr/~guvenir/courses/CS101/op_precedence.html">Java Operator Precedence Table</a>,
  * skipping bitwise and other operators that make no sense for this evaluator and adding the exponentiation (^) operator.
  * </p>
+ * <p>
+ * An Eval object keeps its parse state in fields and must therefore not be used by multiple threads at the same time. The
+ * expressions that it compiles, and the EvalEngine that caches them, can be shared between threads.
+ * </p>
  * @author <a href="https://www.tudelft.nl/pknoppers">Peter Knoppers</a>
  */
 public class Eval
@@ -48,6 +60,15 @@ public class Eval
     /** Access to the variable pool. */
     private RetrieveValue retrieveValue = null;
 
+    /** If true, the parser builds a tree of nodes instead of evaluating the expression. */
+    private boolean compiling = false;
+
+    /** Map from variable name to slot, used while compiling. */
+    private Map<String, Integer> slots = null;
+
+    /** If true, no new slots may be allocated while compiling. */
+    private boolean fixedSlots = false;
+
     /** Binding strength of ternary conditional. */
     private static final int BIND_CONDITIONAL_EXPRESSION = 1;
 
@@ -78,9 +99,12 @@ public class Eval
     /** Object descriptor array for all zero argument functions. */
     private static final ObjectDescriptor[] noArguments = new ObjectDescriptor[] {};
 
+    /** Position that is used in error messages when the position in the expression is not known. */
+    static final int UNKNOWN_POSITION = -1;
+
     /** The built-in functions. */
     // @formatter:off
-    private final Function[] builtinFunctions = new Function[] {
+    private static final Function[] BUILTIN_FUNCTIONS = new Function[] {
         new F0("AVOGADRO", Constants.AVOGADRO, new MetaData("Avogadro constant", "Avogadro constant in 1/mol", noArguments)),
         new F0("BOLTZMANN", Constants.BOLTZMANN, new MetaData("Boltzmann constant",
                 "The exact value of the Boltzmann constant in Joule per Kelvin", noArguments)),
@@ -89,7 +113,7 @@ public class Eval
         new F0("CURRENTTIME", Time.ZERO.getClass(),
                 new MetaData("The current time in seconds since 1970 UTC", 
                         "The current time in seconds since 1970 UTC to the nearest ms as reported by the operating system", noArguments), 
-                (f) -> new Time(System.currentTimeMillis() / 1000d, TimeUnit.BASE_SECOND)),
+                (f, p) -> new Time(System.currentTimeMillis() / 1000d, TimeUnit.BASE_SECOND)),
         new F0("E", Constants.E, new MetaData("Euler\'s constant e", "Euler\'s constant e; the base of the natural logarithm")),
         new F0("ELECTRONCHARGE", Constants.ELECTRONCHARGE, new MetaData("Electrical charge of one electron", 
                 "The exact electrical charge of one electron", noArguments)),
@@ -124,69 +148,104 @@ public class Eval
         new F0("TRUE", Boolean.TRUE, new MetaData("The logical value TRUE", "The logical value TRUE", noArguments)),
         new F0("FALSE", Boolean.FALSE, new MetaData("The logical value FALSE", "The logical value FALSE", noArguments)),
         new F1("acos", Dimensionless.class, new MetaData("acos", "returns the angle of which the cosine equals the value of the argument",
-                new ObjectDescriptor("angle", "angle", Dimensionless.class)), (i, a) -> checkDimensionless(i, a).acos()),
+                new ObjectDescriptor("angle", "angle", Dimensionless.class)), (i, a, p) -> checkDimensionless(i, a, p).acos()),
         new F1("asin", Dimensionless.class, new MetaData("asin", "returns the angle of which the sine equals the value of the argument",
-                new ObjectDescriptor("angle", "angle", Dimensionless.class)), (i, a) -> checkDimensionless(i, a).asin()),
+                new ObjectDescriptor("angle", "angle", Dimensionless.class)), (i, a, p) -> checkDimensionless(i, a, p).asin()),
         new F1("atan", Dimensionless.class, new MetaData("atan", "returns the angle of which the tangent equals the value of the argument",
-                new ObjectDescriptor("angle", "angle", Dimensionless.class)), (i, a) -> checkDimensionless(i, a).atan()),
+                new ObjectDescriptor("angle", "angle", Dimensionless.class)), (i, a, p) -> checkDimensionless(i, a, p).atan()),
         new F1("cbrt", Dimensionless.class, new MetaData("cbrt", "returns the cubic root of the value of the argument",
-                new ObjectDescriptor("value", "value", Dimensionless.class)), (i, a) -> checkDimensionless(i, a).cbrt()),
+                new ObjectDescriptor("value", "value", Dimensionless.class)), (i, a, p) -> checkDimensionless(i, a, p).cbrt()),
         new F1("cos", Dimensionless.class, new MetaData("cos", "returns the cosine of the value of the argument",
-                new ObjectDescriptor("value", "value", Dimensionless.class)), (i, a) -> checkDimensionless(i, a).cos()),
+                new ObjectDescriptor("value", "value", Dimensionless.class)), (i, a, p) -> checkDimensionless(i, a, p).cos()),
         new F1("cosh", Dimensionless.class, new MetaData("cosh", "returns the hyperbolic cosine of the value of the argument",
-                new ObjectDescriptor("value", "value", Dimensionless.class)), (i, a) -> checkDimensionless(i, a).cosh()),
+                new ObjectDescriptor("value", "value", Dimensionless.class)), (i, a, p) -> checkDimensionless(i, a, p).cosh()),
         new F1("exp", Dimensionless.class, new MetaData("exp", "returns e to the power of the argument",
-                new ObjectDescriptor("value", "value", Dimensionless.class)), (i, a) -> checkDimensionless(i, a).exp()),
+                new ObjectDescriptor("value", "value", Dimensionless.class)), (i, a, p) -> checkDimensionless(i, a, p).exp()),
         new F1("expm1", Dimensionless.class, new MetaData("expm1", "returns e to the power of the argument minus 1",
-                new ObjectDescriptor("value", "value", Dimensionless.class)), (i, a) -> checkDimensionless(i, a).expm1()),
+                new ObjectDescriptor("value", "value", Dimensionless.class)), (i, a, p) -> checkDimensionless(i, a, p).expm1()),
         new F1("log", Dimensionless.class, new MetaData("log", "returns natural logarithm (logarithm base e) of the argument",
-                new ObjectDescriptor("value", "value", Dimensionless.class)), (i, a) -> checkDimensionless(i, a).log()),
+                new ObjectDescriptor("value", "value", Dimensionless.class)), (i, a, p) -> checkDimensionless(i, a, p).log()),
         new F1("log10", Dimensionless.class, new MetaData("log10", "returns logarithm base 10 of the argument",
-                new ObjectDescriptor("value", "value", Dimensionless.class)), (i, a) -> checkDimensionless(i, a).log10()),
+                new ObjectDescriptor("value", "value", Dimensionless.class)), (i, a, p) -> checkDimensionless(i, a, p).log10()),
         new F1("log1p", Dimensionless.class, new MetaData("log1p", "returns natural logarithm (logarithm base e) of the argument plus 1",
-                new ObjectDescriptor("value", "value", Dimensionless.class)), (i, a) -> checkDimensionless(i, a).log1p()),
+                new ObjectDescriptor("value", "value", Dimensionless.class)), (i, a, p) -> checkDimensionless(i, a, p).log1p()),
         new F1("signum", Dimensionless.class, new MetaData("signum", "returns sign of the argument (1 if positive, -1 if negative, 0 if zero)",
-                new ObjectDescriptor("value", "value", Dimensionless.class)), (i, a) -> checkDimensionless(i, a).signum()),
+                new ObjectDescriptor("value", "value", Dimensionless.class)), (i, a, p) -> checkDimensionless(i, a, p).signum()),
         new F1("sin", Dimensionless.class, new MetaData("cos", "returns the sine of the value of the argument",
-                new ObjectDescriptor("value", "value", Dimensionless.class)), (i, a) -> checkDimensionless(i, a).sin()),
+                new ObjectDescriptor("value", "value", Dimensionless.class)), (i, a, p) -> checkDimensionless(i, a, p).sin()),
         new F1("sinh", Dimensionless.class, new MetaData("cosh", "returns the hyperbolic sine of the value of the argument",
-                new ObjectDescriptor("value", "value", Dimensionless.class)), (i, a) -> checkDimensionless(i, a).sinh()),
+                new ObjectDescriptor("value", "value", Dimensionless.class)), (i, a, p) -> checkDimensionless(i, a, p).sinh()),
         new F1("sqrt", Dimensionless.class, new MetaData("cos", "returns the square root of the value of the argument",
-                new ObjectDescriptor("value", "value", Dimensionless.class)), (i, a) -> checkDimensionless(i, a).sqrt()),
+                new ObjectDescriptor("value", "value", Dimensionless.class)), (i, a, p) -> checkDimensionless(i, a, p).sqrt()),
         new F1("tan", Dimensionless.class, new MetaData("cos", "returns the tangent of the value of the argument",
-                new ObjectDescriptor("value", "value", Dimensionless.class)), (i, a) -> checkDimensionless(i, a).tan()),
+                new ObjectDescriptor("value", "value", Dimensionless.class)), (i, a, p) -> checkDimensionless(i, a, p).tan()),
         new F1("tanh", Dimensionless.class, new MetaData("cosh", "returns the hyperbolic tangent of the value of the argument",
-                new ObjectDescriptor("value", "value", Dimensionless.class)), (i, a) -> checkDimensionless(i, a).tanh()),
+                new ObjectDescriptor("value", "value", Dimensionless.class)), (i, a, p) -> checkDimensionless(i, a, p).tanh()),
         new F2("pow", new MetaData("pow", "raises the first argument to the power of the second argument",                
                 new ObjectDescriptor("base", "base", Dimensionless.class), 
                 new ObjectDescriptor("exponent", "exponent", Dimensionless.class)),
-                (i, b, p)-> performPower(b, p) ),
+                (i, b, e, p) -> performPower(b, e, p)),
         new F2("atan2", new MetaData("atan2", 
                 "atan2 function (needs two DoubleScalarRel parameters that have the same SI dimensions)", 
                 new ObjectDescriptor("y", "y", DoubleScalarRel.class),
-                new ObjectDescriptor("x", "x", DoubleScalarRel.class)), (i, y, x) -> performAtan2(y, x)),
+                new ObjectDescriptor("x", "x", DoubleScalarRel.class)), (i, y, x, p) -> performAtan2(y, x, p)),
         };
     
     // @formatter:on
-    /** Map of all the built-in functions. */
-    private Map<String, Function> functionData;
+    /** Map of all the built-in functions; built once and shared by all evaluators. */
+    private static final Map<String, Function> FUNCTION_DATA;
 
+    static
     {
-        this.functionData = new HashMap<>();
-        for (Function function : this.builtinFunctions)
+        Map<String, Function> functionData = new HashMap<>();
+        for (Function function : BUILTIN_FUNCTIONS)
         {
-            this.functionData.put(function.getId(), function);
+            functionData.put(function.getId(), function);
         }
+        FUNCTION_DATA = Collections.unmodifiableMap(functionData);
     }
 
+    /** Built-in functions that do not always return the same result for the same arguments. */
+    private static final Set<String> NON_DETERMINISTIC_FUNCTIONS = Set.of("CURRENTTIME");
+
+    /** Maximum number of unit strings in the cache of parsed unit literals. */
+    private static final int MAX_UNIT_LITERALS = 1000;
+
+    /** Cache of parsed unit literals (the text between square brackets) and the corresponding SI unit. */
+    private static final Map<String, SIUnit> UNIT_LITERALS = new ConcurrentHashMap<>();
+
+    /** Primitive implementations of the built-in one-argument functions; these all take and return a Dimensionless. */
+    // @formatter:off
+    private static final Map<String, DoubleUnaryOperator> PRIMITIVE_F1 = Map.ofEntries(
+            Map.entry("acos", Math::acos), Map.entry("asin", Math::asin), Map.entry("atan", Math::atan),
+            Map.entry("cbrt", Math::cbrt), Map.entry("cos", Math::cos), Map.entry("cosh", Math::cosh), 
+            Map.entry("exp", Math::exp), Map.entry("expm1", Math::expm1), Map.entry("log", Math::log), 
+            Map.entry("log10", Math::log10), Map.entry("log1p", Math::log1p), Map.entry("signum", Math::signum),
+            Map.entry("sin", Math::sin), Map.entry("sinh", Math::sinh), Map.entry("sqrt", Math::sqrt), 
+            Map.entry("tan", Math::tan), Map.entry("tanh", Math::tanh));
+    // @formatter:on
+
+    /** Primitive implementations of the built-in two-argument functions. */
+    private static final Map<String, DoubleBinaryOperator> PRIMITIVE_F2 =
+            Map.of("pow", Math::pow, "atan2", Math::atan2);
+
     /** User defined functions. */
     private Map<String, Function> userDefinedFunctions = null;
 
     /** User supplied unit parser. */
     private UnitParser userSuppliedUnitParser = null;
 
-    /** Map from DoubleScalar sub classes to Quantities */
-    private Map<Class<?>, SIDimensions> siDimensionsMap = new HashMap<>();
+    /**
+     * Lock that serializes the calls into djunits that may create and register new units; the unit registry of djunits is
+     * not thread-safe.
+     */
+    static final Object UNIT_REGISTRY_LOCK = new Object();
+
+    /** Map from SI dimensions to the corresponding SI unit (shared by all evaluators and compiled expressions). */
+    private static final Map<SIDimensions, SIUnit> SI_UNITS = new ConcurrentHashMap<>();
+
+    /** Map from DoubleScalar sub classes to Quantities (shared by all evaluators and compiled expressions). */
+    private static final Map<Class<?>, SIDimensions> SI_DIMENSIONS = new ConcurrentHashMap<>();
 
     /**
      * Construct a new evaluator with no RetrieveValue object and no added/overridden function and no added/overridden units.
@@ -269,7 +328,7 @@ public class Eval
      */
     public Collection<Function> builtInFunctions()
     {
-        return this.functionData.values();
+        return FUNCTION_DATA.values();
     }
 
     /**
@@ -291,17 +350,115 @@ public class Eval
      * @throws RuntimeException when the expression could not be evaluated, or the result is not a logical value
      */
     public Object evaluateExpression(final String expression) throws RuntimeException
+    {
+        return process(expression, null, false);
+    }
+
+    /**
+     * Compile an expression into a form that can be evaluated many times. Variables are assigned to slots in the order in
+     * which they first appear in the expression. The compiled expression looks up the functions and the unit parser of this
+     * evaluator once; it does not use the RetrieveValue object of this evaluator.
+     * @param expression the expression to compile
+     * @return the compiled expression
+     * @throws RuntimeException when the expression cannot be compiled
+     */
+    public CompiledExpression compile(final String expression) throws RuntimeException
+    {
+        return compile(expression, null, null);
+    }
+
+    /**
+     * Compile an expression into a form that can be evaluated many times. The variables are assigned to slots in the order of
+     * the provided names; this makes it possible to evaluate several expressions with one context. A variable that is not in
+     * the list of provided names causes a RuntimeException.
+     * @param expression the expression to compile
+     * @param variableNames the names of the variables; the index of each name is the slot of that variable
+     * @return the compiled expression
+     * @throws RuntimeException when the expression cannot be compiled
+     * @throws NullPointerException when variableNames is null
+     * @throws IllegalArgumentException when a variable name occurs more than once
+     */
+    public CompiledExpression compile(final String expression, final String... variableNames) throws RuntimeException
+    {
+        Throw.whenNull(variableNames, "variableNames may not be null");
+        return compile(expression, variableNames, null);
+    }
+
+    /**
+     * Compile an expression into a form that can be evaluated many times. The variables are assigned to slots in the order of
+     * the provided names and values are expressed in the SI unit that corresponds to the provided unit for that slot. This
+     * makes it possible to evaluate the compiled expression with a <code>double[]</code> context.
+     * @param expression the expression to compile
+     * @param variableNames the names of the variables; the index of each name is the slot of that variable; if null, slots are
+     *            assigned in the order in which variables first appear in the expression
+     * @param variableUnits the units of the variables (may be null; individual entries may also be null if those variables
+     *            will only be provided as objects)
+     * @return the compiled expression
+     * @throws RuntimeException when the expression cannot be compiled
+     * @throws IllegalArgumentException when a variable name occurs more than once, or the number of units does not match the
+     *             number of variable names
+     */
+    public CompiledExpression compile(final String expression, final String[] variableNames, final Unit<?>[] variableUnits)
+            throws RuntimeException
+    {
+        Throw.when(null != variableUnits && (null == variableNames || variableNames.length != variableUnits.length),
+                IllegalArgumentException.class, "Number of units must match the number of variable names");
+        Map<String, Integer> slotMap = new LinkedHashMap<>();
+        if (null != variableNames)
+        {
+            for (String name : variableNames)
+            {
+                Throw.whenNull(name, "variable name may not be null");
+                Throw.when(null != slotMap.put(name, slotMap.size()), IllegalArgumentException.class,
+                        "Duplicate variable name %s", name);
+            }
+        }
+        Node root = (Node) process(expression, slotMap, null != variableNames);
+        return new CompiledExpression(expression, root, slotMap.keySet().toArray(new String[slotMap.size()]), variableUnits);
+    }
+
+    /**
+     * Return the names of the variables of an expression in the order in which they first appear, which is the slot order of
+     * <code>compile(expression)</code>. The expression is only parsed; it is not optimized.
+     * @param expression the expression
+     * @return the names of the variables in the order in which they first appear in the expression
+     * @throws RuntimeException when the expression cannot be parsed
+     */
+    public List<String> getVariableNames(final String expression) throws RuntimeException
+    {
+        Map<String, Integer> slotMap = new LinkedHashMap<>();
+        process(expression, slotMap, false);
+        return List.copyOf(slotMap.keySet());
+    }
+
+    /**
+     * Evaluate or compile one expression.
+     * @param expression the expression to evaluate or compile
+     * @param slotMap map from variable name to slot that is used, and extended, while compiling; if null, the expression is
+     *            evaluated
+     * @param fixedSlotMap if true, variables that are not in the slot map cause a RuntimeException
+     * @return the result of the evaluation, or the root node of the compiled expression
+     * @throws RuntimeException when the expression could not be evaluated or compiled
+     */
+    private Object process(final String expression, final Map<String, Integer> slotMap, final boolean fixedSlotMap)
+            throws RuntimeException
     {
         Throw.whenNull(expression, "expression may not be null");
         Throw.when(expression.length() == 0, IllegalArgumentException.class, "Expression may not be the empty string");
         String savedExpression = this.expression;
         int savedPosition = this.position;
         List<Object> savedStack = new ArrayList<>(this.stack);
+        boolean savedCompiling = this.compiling;
+        Map<String, Integer> savedSlots = this.slots;
+        boolean savedFixedSlots = this.fixedSlots;
         try
         {
             this.expression = expression;
             this.position = 0;
             this.stack.clear();
+            this.compiling = null != slotMap;
+            this.slots = slotMap;
+            this.fixedSlots = fixedSlotMap;
             eatSpace();
             evalLhs(0);
             if (this.position < this.expression.length())
@@ -323,9 +480,32 @@ public class Eval
             this.expression = savedExpression;
             this.position = savedPosition;
             this.stack = savedStack;
+            this.compiling = savedCompiling;
+            this.slots = savedSlots;
+            this.fixedSlots = savedFixedSlots;
         }
     }
 
+    /**
+     * Return the slot of a variable; allocate a new slot if the variable does not have one yet and that is permitted.
+     * @param name the name of the variable
+     * @return the slot of the variable
+     */
+    private int slot(final String name)
+    {
+        Integer slot = this.slots.get(name);
+        if (null == slot)
+        {
+            if (this.fixedSlots)
+            {
+                throwException("Cannot resolve variable " + name);
+            }
+            slot = this.slots.size();
+            this.slots.put(name, slot);
+        }
+        return slot;
+    }
+
     /**
      * Increment position up to the next non-space character.
      */
@@ -356,13 +536,8 @@ public class Eval
             {
                 this.position++;
                 evalLhs(BIND_UMINUS);
-                Object value = pop();
-                if (value instanceof DoubleScalar<?, ?>)
-                {
-                    push(((DoubleScalar<?, ?>) value).neg());
-                    break;
-                }
-                throwException("Cannot apply unary minus on " + value);
+                unary(Node.UnaryOperator.NEGATE);
+                break;
             }
 
             case '!':
@@ -371,13 +546,7 @@ public class Eval
                     // unary logical negation
                     this.position++;
                     evalLhs(BIND_UMINUS);
-                    Object value = pop();
-                    if (value instanceof Boolean)
-                    {
-                        push(!((Boolean) value));
-                        break;
-                    }
-                    throwException("Cannot apply unary not operator on " + value);
+                    unary(Node.UnaryOperator.NOT);
                 }
                 break; // We should not get a "!=" operation here, but if we do, it results in an error later on
 
@@ -399,7 +568,8 @@ public class Eval
                 }
                 else if (Character.isDigit(token) || '.' == token)
                 {
-                    push(handleNumber());
+                    DoubleScalar<?, ?> number = handleNumber();
+                    push(this.compiling ? new Node.Constant(number, this.position) : number);
                 }
             }
         }
@@ -435,7 +605,7 @@ public class Eval
                     }
                     this.position++;
                     evalLhs(BIND_POW);
-                    power();
+                    binary(Node.BinaryOperator.POWER);
                     break;
 
                 case '*':
@@ -449,7 +619,7 @@ public class Eval
                     }
                     this.position++;
                     evalLhs(BIND_MUL);
-                    multiply();
+                    binary(Node.BinaryOperator.MULTIPLY);
                     break;
 
                 case '/':
@@ -463,7 +633,7 @@ public class Eval
                     }
                     this.position++;
                     evalLhs(BIND_MUL);
-                    divide();
+                    binary(Node.BinaryOperator.DIVIDE);
                     break;
 
                 case '+':
@@ -477,7 +647,7 @@ public class Eval
                     }
                     this.position++;
                     evalLhs(BIND_ADD);
-                    add();
+                    binary(Node.BinaryOperator.ADD);
                     break;
 
                 case '-':
@@ -491,7 +661,7 @@ public class Eval
                     }
                     this.position++;
                     evalLhs(BIND_ADD);
-                    subtract();
+                    binary(Node.BinaryOperator.SUBTRACT);
                     break;
 
                 case '&': // boolean and with something
@@ -509,7 +679,7 @@ public class Eval
                     }
                     this.position += 2;
                     evalLhs(BIND_AND);
-                    and();
+                    binary(Node.BinaryOperator.AND);
                     break;
 
                 case '|': // boolean or with something
@@ -527,7 +697,7 @@ public class Eval
                     }
                     this.position += 2;
                     evalLhs(BIND_OR);
-                    or();
+                    binary(Node.BinaryOperator.OR);
                     break;
 
                 case '<':
@@ -540,12 +710,12 @@ public class Eval
                     {
                         this.position++;
                         evalLhs(BIND_RELATIONAL);
-                        compareDoubleScalars((a, b) -> (a <= b));
+                        binary(Node.BinaryOperator.LESS_OR_EQUAL);
                     }
                     else
                     {
                         evalLhs(BIND_RELATIONAL);
-                        compareDoubleScalars((a, b) -> (a < b));
+                        binary(Node.BinaryOperator.LESS);
                     }
                     break;
 
@@ -559,12 +729,12 @@ public class Eval
                     {
                         this.position++;
                         evalLhs(BIND_RELATIONAL);
-                        compareDoubleScalars((a, b) -> (a >= b));
+                        binary(Node.BinaryOperator.GREATER_OR_EQUAL);
                     }
                     else
                     {
                         evalLhs(BIND_RELATIONAL);
-                        compareDoubleScalars((a, b) -> (a > b));
+                        binary(Node.BinaryOperator.GREATER);
                     }
                     break;
 
@@ -580,9 +750,7 @@ public class Eval
                     }
                     this.position += 2;
                     evalLhs(BIND_EQUAL);
-                    Object right = pop();
-                    Object left = pop();
-                    push(left.equals(right)); // This also works for Boolean operands.
+                    binary(Node.BinaryOperator.EQUAL);
                     break;
                 }
 
@@ -598,9 +766,7 @@ public class Eval
                     }
                     this.position += 2;
                     evalLhs(BIND_EQUAL);
-                    Object right = pop();
-                    Object left = pop();
-                    push(!left.equals(right)); // This also works for Boolean operands and mixed-type operands.
+                    binary(Node.BinaryOperator.NOT_EQUAL);
                     break;
                 }
 
@@ -611,6 +777,23 @@ public class Eval
                         return;
                     }
                     this.position++;
+                    if (this.compiling)
+                    {
+                        // Both parts are compiled; only the taken part will be evaluated
+                        int conditionPosition = this.position;
+                        Node condition = (Node) pop();
+                        evalLhs(0); // should consume everything up to the ':'
+                        if (this.position >= this.expression.length() || ':' != this.expression.charAt(this.position))
+                        {
+                            throwException("Missing \':\' of conditional expression");
+                        }
+                        this.position++; // skip the ':'
+                        evalLhs(BIND_CONDITIONAL_EXPRESSION);
+                        Node elsePart = (Node) pop();
+                        Node thenPart = (Node) pop();
+                        push(new Node.Conditional(condition, thenPart, elsePart, conditionPosition));
+                        break;
+                    }
                     // This is special as we really do not want to evaluate or cause side effects on the non-taken part
                     Object choice = pop();
                     if (!(choice instanceof Boolean))
@@ -672,20 +855,22 @@ public class Eval
     }
 
     /**
-     * Pop two operands from the stack and compare them using the provided comparator lambda expression
+     * Compare two operands using the provided comparator lambda expression
+     * @param left the left operand
+     * @param right the right operand
      * @param comparator a function that compares two DoubleScalar values.
+     * @param position position in the expression (for error messages)
+     * @return the result of the comparison
      */
-    private void compareDoubleScalars(final CompareValues comparator)
+    static Object performCompare(final Object left, final Object right, final CompareValues comparator, final int position)
     {
-        Object right = pop();
-        Object left = pop();
         if ((left instanceof DoubleScalar) && (right instanceof DoubleScalar)
                 && getDimensions((DoubleScalar<?, ?>) left).equals(getDimensions((DoubleScalar<?, ?>) right)))
         {
-            push(comparator.execute(((DoubleScalar<?, ?>) left).si, ((DoubleScalar<?, ?>) right).si));
-            return;
+            return comparator.execute(((DoubleScalar<?, ?>) left).si, ((DoubleScalar<?, ?>) right).si);
         }
-        throwException("Cannot compare " + left + " to " + right);
+        throwException("Cannot compare " + left + " to " + right, position);
+        return null; // Not reached
     }
 
     /**
@@ -695,7 +880,18 @@ public class Eval
      */
     private void throwException(final String description) throws RuntimeException
     {
-        throw new RuntimeException(description + " at position " + this.position);
+        throwException(description, this.position);
+    }
+
+    /**
+     * Throw an exception because the expression cannot be evaluated.
+     * @param description description of the problem
+     * @param position position in the expression where the problem was detected, or UNKNOWN_POSITION
+     * @throws RuntimeException always thrown
+     */
+    static void throwException(final String description, final int position) throws RuntimeException
+    {
+        throw new RuntimeException(UNKNOWN_POSITION == position ? description : description + " at position " + position);
     }
 
     /**
@@ -777,52 +973,112 @@ public class Eval
     }
 
     /**
-     * Perform the boolean AND operation on the two top-most elements on the stack and push the result back onto the stack.
+     * Pop two operands from the stack and apply a binary operator to them. When compiling, a node that applies the operator
+     * to the two operand nodes is pushed onto the stack; otherwise the result of the operation is pushed onto the stack.
+     * @param operator the binary operator
      */
-    private void and()
+    private void binary(final Node.BinaryOperator operator)
     {
         Object right = pop();
         Object left = pop();
-        if ((left instanceof Boolean) && (right instanceof Boolean))
+        if (this.compiling)
         {
-            push(((Boolean) left) && ((Boolean) right));
+            push(new Node.Binary(operator, (Node) left, (Node) right, this.position));
             return;
         }
-        throwException("Cannot compute logical AND of " + left + " and " + right);
+        push(operator.apply(left, right, this.position));
     }
 
     /**
-     * Perform the boolean OR operation on the two top-most elements on the stack and push the result back onto the stack.
+     * Pop one operand from the stack and apply a unary operator to it. When compiling, a node that applies the operator to the
+     * operand node is pushed onto the stack; otherwise the result of the operation is pushed onto the stack.
+     * @param operator the unary operator
      */
-    private void or()
+    private void unary(final Node.UnaryOperator operator)
     {
-        Object right = pop();
-        Object left = pop();
-        if ((left instanceof Boolean) && (right instanceof Boolean))
+        Object operand = pop();
+        if (this.compiling)
         {
-            push(((Boolean) left) || ((Boolean) right));
+            push(new Node.Unary(operator, (Node) operand, this.position));
             return;
         }
-        throwException("Cannot compute logical AND of " + left + " and " + right);
+        push(operator.apply(operand, this.position));
+    }
+
+    /**
+     * Apply the unary minus operation on a value.
+     * @param value the operand
+     * @param position position in the expression (for error messages)
+     * @return the negated value
+     */
+    static Object performNegate(final Object value, final int position)
+    {
+        if (value instanceof DoubleScalar<?, ?>)
+        {
+            return ((DoubleScalar<?, ?>) value).neg();
+        }
+        throwException("Cannot apply unary minus on " + value, position);
+        return null; // Not reached
+    }
+
+    /**
+     * Apply the logical negation operation on a value.
+     * @param value the operand
+     * @param position position in the expression (for error messages)
+     * @return the negated value
+     */
+    static Object performNot(final Object value, final int position)
+    {
+        if (value instanceof Boolean)
+        {
+            return !((Boolean) value);
+        }
+        throwException("Cannot apply unary not operator on " + value, position);
+        return null; // Not reached
+    }
+
+    /**
+     * Perform the boolean AND operation on two operands.
+     * @param left the left operand
+     * @param right the right operand
+     * @param position position in the expression (for error messages)
+     * @return the result of the AND operation
+     */
+    static Object performAnd(final Object left, final Object right, final int position)
+    {
+        if ((left instanceof Boolean) && (right instanceof Boolean))
+        {
+            return ((Boolean) left) && ((Boolean) right);
+        }
+        throwException("Cannot compute logical AND of " + left + " and " + right, position);
+        return null; // Not reached
     }
 
     /**
-     * Perform the power operation on the two top-most elements on stack and push the result back onto the stack.
+     * Perform the boolean OR operation on two operands.
+     * @param left the left operand
+     * @param right the right operand
+     * @param position position in the expression (for error messages)
+     * @return the result of the OR operation
      */
-    private void power()
+    static Object performOr(final Object left, final Object right, final int position)
     {
-        Object exponent = pop();
-        Object base = pop();
-        push(performPower(base, exponent));
+        if ((left instanceof Boolean) && (right instanceof Boolean))
+        {
+            return ((Boolean) left) || ((Boolean) right);
+        }
+        throwException("Cannot compute logical AND of " + left + " and " + right, position);
+        return null; // Not reached
     }
 
     /**
      * Perform the power operation on the two arguments and return the result
      * @param base the base operand of the power operation
      * @param exponent the exponent of the power operation
+     * @param position position in the expression (for error messages)
      * @return the result of the power operation
      */
-    private Object performPower(final Object base, final Object exponent)
+    static Object performPower(final Object base, final Object exponent, final int position)
     {
         if ((base instanceof DoubleScalarRel) && (exponent instanceof DoubleScalarRel)
                 && getDimensions((DoubleScalarRel<?, ?>) base).equals(getDimensions(DimensionlessUnit.SI))
@@ -832,7 +1088,7 @@ public class Eval
             // System.out.println(base + " ^ " + exponent + " = " + result);
             return result;
         }
-        throwException("Cannot raise " + base + " to power " + exponent);
+        throwException("Cannot raise " + base + " to power " + exponent, position);
         return null; // Not reached
     }
 
@@ -840,9 +1096,10 @@ public class Eval
      * Perform the atan2 function on the two arguments and return the result
      * @param y should be some kind of DoubleScalarRel
      * @param x should be some kind of DoubleScalarRel with the same SiDimensions as y
+     * @param position position in the expression (for error messages)
      * @return in fact a DoubleScalarRel with a quantity matching Dimensionless
      */
-    private Object performAtan2(final Object y, final Object x)
+    private static Object performAtan2(final Object y, final Object x, final int position)
     {
         if ((y instanceof DoubleScalarRel) && (x instanceof DoubleScalarRel)
                 && getDimensions((DoubleScalarRel<?, ?>) y).equals(getDimensions((DoubleScalarRel<?, ?>) x)))
@@ -851,60 +1108,70 @@ public class Eval
             // System.out.println(base + " ^ " + exponent + " = " + result);
             return result;
         }
-        throwException("Cannot compute atan2 of " + y + ", " + x + ")");
+        throwException("Cannot compute atan2 of " + y + ", " + x + ")", position);
         return null; // Not reached
 
     }
 
     /**
-     * Multiply the two top-most elements on the stack and push the result back onto the stack.
+     * Multiply two operands.
+     * @param left the left operand
+     * @param right the right operand
+     * @param position position in the expression (for error messages)
+     * @return the product
      */
-    private void multiply()
+    static Object performMultiply(final Object left, final Object right, final int position)
     {
-        Object right = pop();
-        Object left = pop();
         if ((right instanceof DoubleScalarRel) && (left instanceof DoubleScalarRel))
         {
-            push(((DoubleScalarRel<?, ?>) left).times((DoubleScalarRel<?, ?>) right));
-            return;
+            DoubleScalarRel<?, ?> dsl = (DoubleScalarRel<?, ?>) left;
+            DoubleScalarRel<?, ?> dsr = (DoubleScalarRel<?, ?>) right;
+            return new SIScalar(dsl.si * dsr.si, siUnit(getDimensions(dsl).plus(getDimensions(dsr))));
         }
-        throwException("Cannot multiply with " + right + " as right hand operand");
+        throwException("Cannot multiply with " + right + " as right hand operand", position);
+        return null; // Not reached
     }
 
     /**
-     * Divide the two top-most elements on the stack and push the result back onto the stack.
+     * Divide two operands.
+     * @param left the left operand
+     * @param right the right operand
+     * @param position position in the expression (for error messages)
+     * @return the quotient
      */
-    private void divide()
+    static Object performDivide(final Object left, final Object right, final int position)
     {
-        Object right = pop();
-        Object left = pop();
         if ((left instanceof DoubleScalarRel) && (right instanceof DoubleScalarRel))
         {
             if (0.0 == ((DoubleScalarRel<?, ?>) right).si)
             {
-                throwException("Division by 0");
+                throwException("Division by 0", position);
             }
-            push(((DoubleScalarRel<?, ?>) left).divide((DoubleScalarRel<?, ?>) right));
-            return;
+            DoubleScalarRel<?, ?> dsl = (DoubleScalarRel<?, ?>) left;
+            DoubleScalarRel<?, ?> dsr = (DoubleScalarRel<?, ?>) right;
+            return new SIScalar(dsl.si / dsr.si, siUnit(getDimensions(dsl).minus(getDimensions(dsr))));
         }
-        throwException("Cannot divide " + left + " by " + right);
+        throwException("Cannot divide " + left + " by " + right, position);
+        return null; // Not reached
     }
 
     /**
-     * Add the two top-most elements on the stack and push the result back onto the stack.
+     * Add two operands.
+     * @param left the left operand
+     * @param right the right operand
+     * @param position position in the expression (for error messages)
+     * @return the sum
      */
     @SuppressWarnings({"rawtypes", "unchecked"})
-    private void add()
+    static Object performAdd(final Object left, final Object right, final int position)
     {
-        Object right = pop();
-        Object left = pop();
         if (!(left instanceof DoubleScalar))
         {
-            throwException("Left operand of addition must be a scalar (got \"" + left + "\")");
+            throwException("Left operand of addition must be a scalar (got \"" + left + "\")", position);
         }
         if (!(right instanceof DoubleScalar))
         {
-            throwException("Right operand of addition must be a scalar (got \"" + right + "\")");
+            throwException("Right operand of addition must be a scalar (got \"" + right + "\")", position);
         }
         // Both operands are DoubleScalar
         if (!((DoubleScalar<?, ?>) left).getDisplayUnit()
@@ -914,7 +1181,7 @@ public class Eval
         {
             // System.out.println("left: " + getDimensions((DoubleScalar<?, ?>) left));
             // System.out.println("right: " + getDimensions((DoubleScalar<?, ?>) right));
-            throwException("Cannot add " + left + " to " + right + " because the types are incompatible");
+            throwException("Cannot add " + left + " to " + right + " because the types are incompatible", position);
         }
         // Operands are of compatible unit
         if ((left instanceof DoubleScalarRel) && (right instanceof DoubleScalarRel))
@@ -925,12 +1192,11 @@ public class Eval
             var sum = dsl.plus(dsr);
             // System.out.println(left + " + " + right + " = " + sum);
             // Set display unit???
-            push(sum);
-            return;
+            return sum;
         }
         if (right instanceof DoubleScalarAbs)
         {
-            throwException("Cannot add an absolute value to some other value");
+            throwException("Cannot add an absolute value to some other value", position);
         }
         // Abs + Rel -> Abs
         var dsl = (DoubleScalarAbs) left;
@@ -938,29 +1204,31 @@ public class Eval
         var sum = dsl.instantiateAbs(dsl.si + dsr.si, (AbsoluteLinearUnit) dsl.getDisplayUnit().getStandardUnit());
         // System.out.println(left + " + " + right + " = " + sum);
         // sum.setDisplayUnit(ds.getDisplayUnit());
-        push(sum);
+        return sum;
     }
 
     /**
-     * Subtract the two top-most elements on the stack and push the result back onto the stack.
+     * Subtract two operands.
+     * @param left the left operand
+     * @param right the right operand
+     * @param position position in the expression (for error messages)
+     * @return the difference
      */
     @SuppressWarnings({"rawtypes", "unchecked"})
-    private void subtract()
+    static Object performSubtract(final Object left, final Object right, final int position)
     {
-        Object right = pop();
-        Object left = pop();
         if (!(left instanceof DoubleScalar))
         {
-            throwException("Left operand of subtraction must be a scalar (got \"" + left + "\")");
+            throwException("Left operand of subtraction must be a scalar (got \"" + left + "\")", position);
         }
         if (!(right instanceof DoubleScalar))
         {
-            throwException("Right operand of subtraction must be a scalar (got \"" + right + "\")");
+            throwException("Right operand of subtraction must be a scalar (got \"" + right + "\")", position);
         }
         // Now we know that we're dealing with DoubleScalar objects
         if (!getDimensions((DoubleScalar<?, ?>) left).equals(getDimensions((DoubleScalar<?, ?>) right)))
         {
-            throwException("Cannot subtract " + right + " from " + left + " because the types are incompatible");
+            throwException("Cannot subtract " + right + " from " + left + " because the types are incompatible", position);
         }
         if ((left instanceof DoubleScalarAbs) && (right instanceof DoubleScalarAbs))
         {
@@ -969,8 +1237,7 @@ public class Eval
             var dsr = (DoubleScalarAbs) right;
             var difference = dsl.minus(dsr);
             // System.out.println(left + " - " + right + " = " + difference);
-            push(difference);
-            return;
+            return difference;
         }
         if ((left instanceof DoubleScalarAbs) && (right instanceof DoubleScalarRel))
         {
@@ -979,20 +1246,19 @@ public class Eval
             var dsr = (DoubleScalarRel) right;
             var difference = dsl.instantiateAbs(dsl.si - dsr.si, (AbsoluteLinearUnit) dsl.getDisplayUnit().getStandardUnit());
             // System.out.println(left + " - " + right + " = " + difference);
-            push(difference);
-            return;
+            return difference;
         }
         if ((left instanceof DoubleScalarRel) && (right instanceof DoubleScalarAbs))
         {
             // Rel - Abs -> error
-            throwException("Cannot subtract " + right + " from " + left + " because the right operand is absolute");
+            throwException("Cannot subtract " + right + " from " + left + " because the right operand is absolute", position);
         }
         // Rel - Rel -> Rel
         var dsl = (DoubleScalarRel) left;
         var dsr = (DoubleScalarRel) right;
         var difference = dsl.minus(dsr);
         // System.out.println(left + " - " + right + " = " + difference);
-        push(difference);
+        return difference;
     }
 
     /**
@@ -1081,7 +1347,7 @@ public class Eval
                     }
                     if (null == result)
                     {
-                        result = SIScalar.valueOf(number + " " + unit);
+                        result = siScalar(number, unit);
                     }
                     return result;
                 }
@@ -1096,7 +1362,7 @@ public class Eval
                 throwException("Missing closing bracket (\']\')");
             }
         }
-        return SIScalar.valueOf(number); // No unit specified
+        return siScalar(number, ""); // No unit specified
     }
 
     /**
@@ -1124,6 +1390,10 @@ public class Eval
         if (this.position >= this.expression.length() || this.expression.charAt(this.position) != '(')
         {
             // No opening parenthesis; name must be the name of a variable; look it up
+            if (this.compiling)
+            {
+                return new Node.Variable(slot(name), name, this.position);
+            }
             Object result = null == this.retrieveValue ? null : this.retrieveValue.lookup(name);
             if (null == result)
             {
@@ -1159,7 +1429,7 @@ public class Eval
         }
         if (null == f)
         {
-            f = this.functionData.get(name);
+            f = FUNCTION_DATA.get(name);
         }
         if (null == f)
         {
@@ -1170,6 +1440,29 @@ public class Eval
         {
             args[argCount - i - 1] = pop();
         }
+        if (this.compiling)
+        {
+            Node[] argumentNodes = new Node[argCount];
+            for (int i = 0; i < argCount; i++)
+            {
+                argumentNodes[i] = (Node) args[i];
+            }
+            return new Node.Call(f, name, argumentNodes, this.position);
+        }
+        return invoke(f, name, args, this.position);
+    }
+
+    /**
+     * Check the arguments of a function call against the meta data of the function and invoke the function.
+     * @param f the function
+     * @param name the name of the function
+     * @param args the arguments of the function
+     * @param position position in the expression (for error messages)
+     * @return the result of the function
+     */
+    static Object invoke(final Function f, final String name, final Object[] args, final int position)
+    {
+        int argCount = args.length;
         if (f.getMetaData() != MetaData.NO_META_DATA)
         {
             // MetaData.verifyComposition does not handle this case correctly.
@@ -1177,13 +1470,13 @@ public class Eval
             if (argsNeeded != argCount)
             {
                 throwException(name + " needs " + argsNeeded + " parameter" + (argsNeeded == 1 ? "" : "s") + " (got " + argCount
-                        + ")");
+                        + ")", position);
             }
             for (int i = 0; i < argCount; i++)
             {
                 if ((args[i] instanceof Boolean) && (!Boolean.class.isAssignableFrom(f.getMetaData().getObjectClass(i))))
                 {
-                    throwException(name + " does not take " + args[i] + " as parameter " + i);
+                    throwException(name + " does not take " + args[i] + " as parameter " + i, position);
                 }
                 else if ((args[i] instanceof DoubleScalar)
                         && (DoubleScalar.class.isAssignableFrom(f.getMetaData().getObjectClass(i))))
@@ -1192,7 +1485,7 @@ public class Eval
                     Class<?> clazz = f.getMetaData().getObjectClass(i);
                     if (!clazz.equals(DoubleScalarRel.class))
                     {
-                        SIDimensions siDimensions = this.siDimensionsMap.get(clazz);
+                        SIDimensions siDimensions = SI_DIMENSIONS.get(clazz);
                         if (null == siDimensions)
                         {
                             // Not in the cache
@@ -1201,27 +1494,28 @@ public class Eval
                                 Field field = clazz.getDeclaredField("ZERO"); // Every DoubleScalar type has this
                                 DoubleScalar<?, ?> zero = (DoubleScalar<?, ?>) field.get(clazz);
                                 siDimensions = zero.getDisplayUnit().getQuantity().getSiDimensions();
-                                this.siDimensionsMap.put(clazz, siDimensions); // Add this one to our map
+                                SI_DIMENSIONS.put(clazz, siDimensions); // Add this one to our map
                             }
                             catch (NoSuchFieldException | IllegalArgumentException | IllegalAccessException nsfe)
                             {
-                                throwException("ERROR: Cannot determine quantity for " + clazz.getCanonicalName());
+                                throwException("ERROR: Cannot determine quantity for " + clazz.getCanonicalName(), position);
                             }
                         }
                         if (!siDimensions.equals(getDimensions(ds)))
                         {
-                            throwException("parameter " + i + " of " + name + " has incompatible quantity");
+                            throwException("parameter " + i + " of " + name + " has incompatible quantity", position);
                         }
                     }
                 }
                 else
                 {
-                    throwException("Argument " + i + " of function " + name + " is of an unhandled type (" + args[i] + ")");
+                    throwException("Argument " + i + " of function " + name + " is of an unhandled type (" + args[i] + ")",
+                            position);
                 }
             }
         }
         // All parameters are apparently compatible; invoke the function
-        return (f.function(args));
+        return f instanceof PositionAwareFunction positionAware ? positionAware.function(args, position) : f.function(args);
     }
 
     /**
@@ -1251,22 +1545,115 @@ public class Eval
      * Convert an object to a Dimensionless if possible, or complain.
      * @param functionData meta data of the function that wants a Dimensionless
      * @param object object that supposedly can be converted to a Dimensionless
+     * @param position position in the expression (for error messages)
      * @return the result
      */
-    private Dimensionless checkDimensionless(final Function functionData, final Object object)
+    private static Dimensionless checkDimensionless(final Function functionData, final Object object, final int position)
     {
         if (!(object instanceof DoubleScalar))
         {
-            throwException("Function " + functionData.getId() + " cannot be applied to " + object);
+            throwException("Function " + functionData.getId() + " cannot be applied to " + object, position);
         }
         DoubleScalar<?, ?> ds = (DoubleScalar<?, ?>) object;
         if (!getDimensions(ds).equals(getDimensions(DimensionlessUnit.SI)))
         {
-            throwException("Function " + functionData.getId() + " cannot be applied to " + ds);
+            throwException("Function " + functionData.getId() + " cannot be applied to " + ds, position);
         }
         return new Dimensionless(ds.si, DimensionlessUnit.SI);
     }
 
+    /**
+     * Determine whether a function is one of the built-in functions.
+     * @param function the function
+     * @return true if the function is one of the built-in functions
+     */
+    static boolean isBuiltin(final Function function)
+    {
+        return FUNCTION_DATA.get(function.getId()) == function;
+    }
+
+    /**
+     * Determine whether a function is known to always return the same result for the same arguments, without side effects.
+     * Only built-in functions can be known to be pure.
+     * @param function the function
+     * @return true if the function is a built-in function that is pure
+     */
+    static boolean isPure(final Function function)
+    {
+        return isBuiltin(function) && !NON_DETERMINISTIC_FUNCTIONS.contains(function.getId());
+    }
+
+    /**
+     * Return the primitive implementation of a built-in one-argument function that takes and returns a Dimensionless.
+     * @param function the function
+     * @return the primitive implementation, or null if the function has no primitive implementation
+     */
+    static DoubleUnaryOperator primitiveUnaryFunction(final Function function)
+    {
+        return isBuiltin(function) ? PRIMITIVE_F1.get(function.getId()) : null;
+    }
+
+    /**
+     * Return the primitive implementation of a built-in two-argument function.
+     * @param function the function
+     * @return the primitive implementation, or null if the function has no primitive implementation
+     */
+    static DoubleBinaryOperator primitiveBinaryFunction(final Function function)
+    {
+        return isBuiltin(function) ? PRIMITIVE_F2.get(function.getId()) : null;
+    }
+
+    /**
+     * Retrieve the SI unit for some SI dimensions. The unit is looked up, or created, by djunits only once per SI dimensions.
+     * @param siDimensions the SI dimensions
+     * @return the SI unit
+     */
+    static SIUnit siUnit(final SIDimensions siDimensions)
+    {
+        SIUnit result = SI_UNITS.get(siDimensions);
+        if (null == result)
+        {
+            synchronized (UNIT_REGISTRY_LOCK)
+            {
+                result = Unit.lookupOrCreateUnitWithSIDimensions(siDimensions);
+            }
+            SI_UNITS.put(siDimensions, result);
+        }
+        return result;
+    }
+
+    /**
+     * Construct an SIScalar from a number and an SI unit string. The SI unit is looked up, or created, by djunits only once
+     * per SI dimensions.
+     * @param number the number
+     * @param unit the SI unit string (may be the empty string)
+     * @return the SIScalar
+     */
+    private static SIScalar siScalar(final String number, final String unit)
+    {
+        try
+        {
+            SIUnit siUnit = UNIT_LITERALS.get(unit);
+            if (null == siUnit)
+            {
+                siUnit = siUnit(SIDimensions.of(unit));
+                if (UNIT_LITERALS.size() < MAX_UNIT_LITERALS)
+                {
+                    UNIT_LITERALS.put(unit, siUnit);
+                }
+            }
+            return new SIScalar(Double.parseDouble(number), siUnit);
+        }
+        catch (UnitException | NumberFormatException exception)
+        {
+            // Let djunits produce the error
+            synchronized (UNIT_REGISTRY_LOCK)
+            {
+                return SIScalar.valueOf(number + " " + unit);
+            }
+        }
+    }
+
     /**
      * Retrieve the SIDimensions of a DoubleScalar.
      * @param doubleScalar the DoubleScalar
@@ -0,0 +1,350 @@
+package org.djutils.eval;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.djunits.unit.Unit;
+import org.djutils.exceptions.Throw;
+
+/**
+ * EvalEngine.java. Thread-safe expression evaluation service. An EvalEngine holds the user-defined functions and the unit
+ * parser once, and keeps a size-bounded cache that maps expressions to their compiled form. Callers on any number of threads
+ * can share one EvalEngine; each expression is parsed once (as long as it stays in the cache) and then evaluated from its
+ * compiled form.
+ * <p>
+ * The cache is split into segments that are each guarded by their own lock and that each evict their least recently used
+ * entry when they are full. Threads that use different expressions therefore rarely contend, and a lookup that hits the cache
+ * only locks one segment briefly. Compilation of an expression that is not in the cache happens outside any lock.
+ * </p>
+ * <p>
+ * The user-defined functions and the unit parser must be thread-safe.
+ * </p>
+ * <p>
+ * Copyright (c) 2023-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>.
+ * </p>
+ * @author <a href="https://www.tudelft.nl/pknoppers">Peter Knoppers</a>
+ */
+public final class EvalEngine
+{
+    /** Maximum number of cache segments. */
+    private static final int MAX_SEGMENTS = 16;
+
+    /** Minimum number of entries per cache segment. */
+    private static final int MIN_SEGMENT_SIZE = 8;
+
+    /** The user-defined functions (may be null). */
+    private final Map<String, Function> userDefinedFunctions;
+
+    /** The unit parser (may be null). */
+    private final UnitParser unitParser;
+
+    /** The maximum number of compiled expressions in the cache. */
+    private final int maximumCacheSize;
+
+    /** The segments of the cache. */
+    private final Segment[] segments;
+
+    /** Number of cache hits. */
+    private final LongAdder hits = new LongAdder();
+
+    /** Number of cache misses. */
+    private final LongAdder misses = new LongAdder();
+
+    /** Number of compiled expressions that were evicted from the cache. */
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Construct a new EvalEngine that only knows the built-in functions and units.
+     * @param maximumCacheSize the maximum number of compiled expressions in the cache (0 disables caching)
+     * @throws IllegalArgumentException when maximumCacheSize is negative
+     */
+    public EvalEngine(final int maximumCacheSize)
+    {
+        this(maximumCacheSize, null, null);
+    }
+
+    /**
+     * Construct a new EvalEngine.
+     * @param maximumCacheSize the maximum number of compiled expressions in the cache (0 disables caching)
+     * @param userDefinedFunctions map that maps the name of the function to a Function object (may be null); the map is
+     *            copied. If a built-in function has the same name as a user-defined function; the user-defined function takes
+     *            precedence.
+     * @param unitParser the unit parser (may be null); a user supplied unit parser takes precedence over the built-in unit
+     *            parser
+     * @throws IllegalArgumentException when maximumCacheSize is negative
+     */
+    public EvalEngine(final int maximumCacheSize, final Map<String, Function> userDefinedFunctions,
+            final UnitParser unitParser)
+    {
+        Throw.when(maximumCacheSize < 0, IllegalArgumentException.class, "maximumCacheSize may not be negative");
+        this.maximumCacheSize = maximumCacheSize;
+        this.userDefinedFunctions =
+                null == userDefinedFunctions ? null : Collections.unmodifiableMap(new HashMap<>(userDefinedFunctions));
+        this.unitParser = unitParser;
+        int segmentCount = Math.max(1, Math.min(MAX_SEGMENTS, Integer.highestOneBit(maximumCacheSize / MIN_SEGMENT_SIZE)));
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++)
+        {
+            // Distribute the capacity such that the total capacity equals maximumCacheSize
+            this.segments[i] = new Segment(maximumCacheSize / segmentCount + (i < maximumCacheSize % segmentCount ? 1 : 0));
+        }
+    }
+
+    /**
+     * Return the compiled form of an expression; variables are assigned to slots in the order in which they first appear in
+     * the expression.
+     * @param expression the expression
+     * @return the compiled expression
+     * @throws RuntimeException when the expression cannot be compiled
+     */
+    public CompiledExpression compile(final String expression) throws RuntimeException
+    {
+        Throw.whenNull(expression, "expression may not be null");
+        return lookup(new Key(expression, null, null));
+    }
+
+    /**
+     * Return the compiled form of an expression; the variables are assigned to slots in the order of the provided names.
+     * @param expression the expression
+     * @param variableNames the names of the variables; the index of each name is the slot of that variable
+     * @return the compiled expression
+     * @throws RuntimeException when the expression cannot be compiled
+     */
+    public CompiledExpression compile(final String expression, final String... variableNames) throws RuntimeException
+    {
+        Throw.whenNull(expression, "expression may not be null");
+        Throw.whenNull(variableNames, "variableNames may not be null");
+        return lookup(new Key(expression, Arrays.asList(variableNames.clone()), null));
+    }
+
+    /**
+     * Return the compiled form of an expression; the variables are assigned to slots in the order of the provided names and
+     * their values are expressed in the SI unit that corresponds to the provided units.
+     * @param expression the expression
+     * @param variableNames the names of the variables; the index of each name is the slot of that variable
+     * @param variableUnits the units of the variables
+     * @return the compiled expression
+     * @throws RuntimeException when the expression cannot be compiled
+     */
+    public CompiledExpression compile(final String expression, final String[] variableNames, final Unit<?>[] variableUnits)
+            throws RuntimeException
+    {
+        Throw.whenNull(expression, "expression may not be null");
+        Throw.whenNull(variableNames, "variableNames may not be null");
+        Throw.whenNull(variableUnits, "variableUnits may not be null");
+        return lookup(new Key(expression, Arrays.asList(variableNames.clone()), Arrays.asList(variableUnits.clone())));
+    }
+
+    /**
+     * Evaluate an expression that does not contain variables.
+     * @param expression the expression
+     * @return the result of the evaluation (DoubleScalar or Boolean)
+     * @throws RuntimeException when the expression cannot be evaluated
+     */
+    public Object evaluate(final String expression) throws RuntimeException
+    {
+        CompiledExpression compiledExpression = compile(expression);
+        return compiledExpression.evaluate(new Object[compiledExpression.getNumberOfSlots()]);
+    }
+
+    /**
+     * Evaluate an expression; each variable is looked up once with the provided RetrieveValue object.
+     * @param expression the expression
+     * @param retrieveValue the RetrieveValue object
+     * @return the result of the evaluation (DoubleScalar or Boolean)
+     * @throws RuntimeException when the expression cannot be evaluated
+     */
+    public Object evaluate(final String expression, final RetrieveValue retrieveValue) throws RuntimeException
+    {
+        return compile(expression).evaluate(retrieveValue);
+    }
+
+    /**
+     * Evaluate an expression and return the SI value of the result; each variable is looked up once with the provided
+     * RetrieveValue object.
+     * @param expression the expression
+     * @param retrieveValue the RetrieveValue object
+     * @return the SI value of the result
+     * @throws RuntimeException when the expression cannot be evaluated, or the result is not a double value
+     */
+    public double evaluateAsDouble(final String expression, final RetrieveValue retrieveValue) throws RuntimeException
+    {
+        return compile(expression).evaluateAsDouble(retrieveValue);
+    }
+
+    /**
+     * Evaluate an expression and return the result as a Boolean; each variable is looked up once with the provided
+     * RetrieveValue object.
+     * @param expression the expression
+     * @param retrieveValue the RetrieveValue object
+     * @return the result of the evaluation
+     * @throws RuntimeException when the expression cannot be evaluated, or the result is not a logical value
+     */
+    public Boolean evaluateAsBoolean(final String expression, final RetrieveValue retrieveValue) throws RuntimeException
+    {
+        return compile(expression).evaluateAsBoolean(retrieveValue);
+    }
+
+    /**
+     * Look up a compiled expression in the cache; compile and cache it when it is not found.
+     * @param key the key
+     * @return the compiled expression
+     */
+    private CompiledExpression lookup(final Key key)
+    {
+        Segment segment = this.segments[(key.hashCode() & 0x7FFFFFFF) % this.segments.length];
+        CompiledExpression result;
+        synchronized (segment)
+        {
+            result = segment.get(key);
+        }
+        if (null != result)
+        {
+            this.hits.increment();
+            return result;
+        }
+        this.misses.increment();
+        // A fresh Eval is cheap; the built-in function table is shared by all evaluators
+        Eval eval = new Eval().setUserDefinedFunctions(this.userDefinedFunctions).setUnitParser(this.unitParser);
+        result = eval.compile(key.expression(), null == key.variableNames() ? null : key.variableNames().toArray(new String[0]),
+                null == key.variableUnits() ? null : key.variableUnits().toArray(new Unit<?>[0]));
+        if (this.maximumCacheSize > 0)
+        {
+            synchronized (segment)
+            {
+                CompiledExpression existing = segment.putIfAbsent(key, result);
+                if (null != existing)
+                {
+                    return existing; // another thread compiled the same expression at the same time
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Return the number of times that a compiled expression was found in the cache.
+     * @return the number of cache hits
+     */
+    public long getCacheHits()
+    {
+        return this.hits.sum();
+    }
+
+    /**
+     * Return the number of times that an expression had to be compiled because it was not in the cache.
+     * @return the number of cache misses
+     */
+    public long getCacheMisses()
+    {
+        return this.misses.sum();
+    }
+
+    /**
+     * Return the number of compiled expressions that were evicted from the cache to make room for another one.
+     * @return the number of evictions
+     */
+    public long getCacheEvictions()
+    {
+        return this.evictions.sum();
+    }
+
+    /**
+     * Return the number of compiled expressions that are currently in the cache.
+     * @return the number of compiled expressions that are currently in the cache
+     */
+    public int getCacheSize()
+    {
+        int result = 0;
+        for (Segment segment : this.segments)
+        {
+            synchronized (segment)
+            {
+                result += segment.size();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Return the maximum number of compiled expressions in the cache.
+     * @return the maximum number of compiled expressions in the cache
+     */
+    public int getMaximumCacheSize()
+    {
+        return this.maximumCacheSize;
+    }
+
+    /**
+     * Remove all compiled expressions from the cache. The counters are not reset.
+     */
+    public void clearCache()
+    {
+        for (Segment segment : this.segments)
+        {
+            synchronized (segment)
+            {
+                segment.clear();
+            }
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "EvalEngine [cacheSize=" + getCacheSize() + ", maximumCacheSize=" + this.maximumCacheSize + ", hits="
+                + getCacheHits() + ", misses=" + getCacheMisses() + ", evictions=" + getCacheEvictions() + "]";
+    }
+
+    /**
+     * Key of the cache.
+     * @param expression the expression
+     * @param variableNames the names of the variables in slot order (null if slots are assigned in order of appearance)
+     * @param variableUnits the units of the variables in slot order (may be null)
+     */
+    private record Key(String expression, List<String> variableNames, List<Unit<?>> variableUnits)
+    {
+    }
+
+    /**
+     * One segment of the cache; a LinkedHashMap in access order that evicts its least recently used entry when it is full.
+     */
+    private final class Segment extends LinkedHashMap<Key, CompiledExpression>
+    {
+        /** */
+        private static final long serialVersionUID = 20261018L;
+
+        /** The maximum number of entries in this segment. */
+        private final int capacity;
+
+        /**
+         * Construct a new segment.
+         * @param capacity the maximum number of entries in this segment
+         */
+        Segment(final int capacity)
+        {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Key, CompiledExpression> eldest)
+        {
+            if (size() > this.capacity)
+            {
+                EvalEngine.this.evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+}
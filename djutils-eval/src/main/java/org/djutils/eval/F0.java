@@ -12,7 +12,7 @@ import org.djutils.metadata.MetaData;
  * </p>
  * @author <a href="https://www.tudelft.nl/pknoppers">Peter Knoppers</a>
  */
-class F0 implements Function
+class F0 implements PositionAwareFunction
 {
     /** Id of the function. */
     final String id;
@@ -49,7 +49,7 @@ class F0 implements Function
      */
     F0(final String id, final Object constantResult, final MetaData metaData)
     {
-        this(id, constantResult.getClass(), metaData, (f) -> constantResult);
+        this(id, constantResult.getClass(), metaData, (f, p) -> constantResult);
     }
 
     @Override
@@ -65,9 +65,9 @@ class F0 implements Function
     }
 
     @Override
-    public Object function(final Object[] arguments) throws RuntimeException
+    public Object function(final Object[] arguments, final int position) throws RuntimeException
     {
-        return this.f0.execute(this);
+        return this.f0.execute(this, position);
     }
     
     /**
@@ -78,9 +78,10 @@ class F0 implements Function
         /**
          * Prototype of the zero-argument function
          * @param functionData meta data of the function
+         * @param position position of the call in the expression (for error messages)
          * @return the result type of the function
          */
-        Object execute(Function functionData);
+        Object execute(Function functionData, int position);
     }
 
 }
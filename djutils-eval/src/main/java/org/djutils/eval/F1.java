@@ -12,7 +12,7 @@ import org.djutils.metadata.MetaData;
  * </p>
  * @author <a href="https://www.tudelft.nl/pknoppers">Peter Knoppers</a>
  */
-class F1 implements Function
+class F1 implements PositionAwareFunction
 {
     /** Id of the function. */
     final String id;
@@ -54,9 +54,9 @@ class F1 implements Function
     }
 
     @Override
-    public Object function(final Object[] arguments) throws RuntimeException
+    public Object function(final Object[] arguments, final int position) throws RuntimeException
     {
-        return this.f1.execute(this, arguments[0]);
+        return this.f1.execute(this, arguments[0], position);
     }
 
     /**
@@ -68,9 +68,10 @@ class F1 implements Function
          * Prototype of the one-argument function
          * @param functionData meta data of the function
          * @param argument the argument of the function
+         * @param position position of the call in the expression (for error messages)
          * @return the result type of the function
          */
-        Object execute(Function functionData, Object argument);
+        Object execute(Function functionData, Object argument, int position);
 
     }
 }
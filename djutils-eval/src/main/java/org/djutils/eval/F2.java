@@ -12,7 +12,7 @@ import org.djutils.metadata.MetaData;
  * </p>
  * @author <a href="https://www.tudelft.nl/pknoppers">Peter Knoppers</a>
  */
-class F2 implements Function
+class F2 implements PositionAwareFunction
 {
     /** Id of the function. */
     final String id;
@@ -49,9 +49,9 @@ class F2 implements Function
     }
 
     @Override
-    public Object function(final Object[] arguments) throws RuntimeException
+    public Object function(final Object[] arguments, final int position) throws RuntimeException
     {
-        return this.f2.execute(this, arguments[0], arguments[1]);
+        return this.f2.execute(this, arguments[0], arguments[1], position);
     }
 
     /**
@@ -64,9 +64,10 @@ class F2 implements Function
          * @param functionData meta data of the function
          * @param argument1 the first argument of the function
          * @param argument2 the second argument of the function
+         * @param position position of the call in the expression (for error messages)
          * @return the result type of the function
          */
-        Object execute(Function functionData, Object argument1, Object argument2);
+        Object execute(Function functionData, Object argument1, Object argument2, int position);
 
     }
 }
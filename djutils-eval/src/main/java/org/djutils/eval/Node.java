@@ -0,0 +1,884 @@
+package org.djutils.eval;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
+import org.djunits.value.vdouble.scalar.base.DoubleScalar;
+
+/**
+ * Node.java. Node of the tree that results from compiling an expression. Evaluating the tree yields the same results as
+ * evaluating the expression with the Eval interpreter. Variables are stored in slots of a context array that is filled by the
+ * caller; a variable node only retrieves the value that is stored in its slot.
+ * <p>
+ * Nodes are immutable. Two nodes are equal when they compute the same thing from the same slots; the position in the
+ * expression is not taken into account. Nodes whose type is known at compile time (see Optimizer) can also be evaluated on
+ * SI values in a <code>double[]</code> frame without creating DoubleScalar objects.
+ * </p>
+ * <p>
+ * Copyright (c) 2023-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>.
+ * </p>
+ * @author <a href="https://www.tudelft.nl/pknoppers">Peter Knoppers</a>
+ */
+abstract class Node
+{
+    /** Position in the expression where this node was completed (used in error messages). */
+    final int position;
+
+    /** Hash code of this node; nodes are immutable, so it is computed once. */
+    private final int hashCode;
+
+    /** Nodes without children. */
+    static final Node[] NO_CHILDREN = new Node[0];
+
+    /**
+     * Construct a new Node.
+     * @param position position in the expression where this node was completed
+     * @param hashCode hash code of the node (position excluded)
+     */
+    Node(final int position, final int hashCode)
+    {
+        this.position = position;
+        this.hashCode = hashCode;
+    }
+
+    /**
+     * Return the children of this node.
+     * @return the children of this node (must not be modified)
+     */
+    abstract Node[] children();
+
+    /**
+     * Return a node that does the same as this node, but with other children.
+     * @param newChildren the new children (same number as returned by children())
+     * @return a node that does the same as this node, but with other children
+     */
+    abstract Node withChildren(Node[] newChildren);
+
+    /**
+     * Return a one-line description of this node (without its children) for the dump of a tree.
+     * @return a one-line description of this node
+     */
+    abstract String describe();
+
+    /**
+     * Evaluate this node on SI values. Only nodes with a numeric type that is known at compile time can be evaluated this way.
+     * @param frame the SI values of the variables, indexed by slot, followed by room for shared values
+     * @param done flags that indicate which shared values have been computed, indexed by slot
+     * @return the SI value of this node
+     * @throws RuntimeException when the node cannot be evaluated
+     */
+    double evaluateDouble(final double[] frame, final boolean[] done) throws RuntimeException
+    {
+        throw new IllegalStateException(describe() + " cannot be evaluated as a double");
+    }
+
+    /**
+     * Evaluate this node on SI values. Only nodes with a logical type that is known at compile time can be evaluated this way.
+     * @param frame the SI values of the variables, indexed by slot, followed by room for shared values
+     * @param done flags that indicate which shared values have been computed, indexed by slot
+     * @return the logical value of this node
+     * @throws RuntimeException when the node cannot be evaluated
+     */
+    boolean evaluateBoolean(final double[] frame, final boolean[] done) throws RuntimeException
+    {
+        throw new IllegalStateException(describe() + " cannot be evaluated as a logical value");
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return this.hashCode;
+    }
+
+    /**
+     * Evaluate this node.
+     * @param context the values of the variables, indexed by slot
+     * @return the value of this node (DoubleScalar, Boolean, or any object that was provided as the value of a variable)
+     * @throws RuntimeException when the node cannot be evaluated
+     */
+    abstract Object evaluate(Object[] context) throws RuntimeException;
+
+    /**
+     * Node that holds a constant value.
+     */
+    static final class Constant extends Node
+    {
+        /** The value. */
+        final Object value;
+
+        /** The SI value (NaN if the value is not a DoubleScalar). */
+        private final double si;
+
+        /**
+         * Construct a new constant node.
+         * @param value the value
+         * @param position position in the expression
+         */
+        Constant(final Object value, final int position)
+        {
+            super(position, Objects.hashCode(value));
+            this.value = value;
+            this.si = value instanceof DoubleScalar<?, ?> ds ? ds.si : Double.NaN;
+        }
+
+        @Override
+        Object evaluate(final Object[] context)
+        {
+            return this.value;
+        }
+
+        @Override
+        double evaluateDouble(final double[] frame, final boolean[] done)
+        {
+            return this.si;
+        }
+
+        @Override
+        boolean evaluateBoolean(final double[] frame, final boolean[] done)
+        {
+            return Boolean.TRUE.equals(this.value);
+        }
+
+        @Override
+        Node[] children()
+        {
+            return NO_CHILDREN;
+        }
+
+        @Override
+        Node withChildren(final Node[] newChildren)
+        {
+            return this;
+        }
+
+        @Override
+        String describe()
+        {
+            return "Constant " + this.value;
+        }
+
+        @Override
+        public boolean equals(final Object obj)
+        {
+            return obj instanceof Constant other && Objects.equals(this.value, other.value);
+        }
+    }
+
+    /**
+     * Node that retrieves the value of a variable from a slot of the context.
+     */
+    static final class Variable extends Node
+    {
+        /** Slot of the variable in the context. */
+        final int slot;
+
+        /** Name of the variable. */
+        final String name;
+
+        /**
+         * Construct a new variable node.
+         * @param slot slot of the variable in the context
+         * @param name name of the variable
+         * @param position position in the expression
+         */
+        Variable(final int slot, final String name, final int position)
+        {
+            super(position, 31 * slot + 1);
+            this.slot = slot;
+            this.name = name;
+        }
+
+        @Override
+        Object evaluate(final Object[] context)
+        {
+            Object result = context[this.slot];
+            if (null == result)
+            {
+                Eval.throwException("Cannot resolve variable " + this.name, this.position);
+            }
+            return result;
+        }
+
+        @Override
+        double evaluateDouble(final double[] frame, final boolean[] done)
+        {
+            return frame[this.slot];
+        }
+
+        @Override
+        Node[] children()
+        {
+            return NO_CHILDREN;
+        }
+
+        @Override
+        Node withChildren(final Node[] newChildren)
+        {
+            return this;
+        }
+
+        @Override
+        String describe()
+        {
+            return "Variable " + this.name + " (slot " + this.slot + ")";
+        }
+
+        @Override
+        public boolean equals(final Object obj)
+        {
+            return obj instanceof Variable other && this.slot == other.slot;
+        }
+    }
+
+    /**
+     * Node that applies a unary operator to an operand.
+     */
+    static final class Unary extends Node
+    {
+        /** The operator. */
+        final UnaryOperator operator;
+
+        /** The operand. */
+        final Node operand;
+
+        /**
+         * Construct a new unary operator node.
+         * @param operator the operator
+         * @param operand the operand
+         * @param position position in the expression
+         */
+        Unary(final UnaryOperator operator, final Node operand, final int position)
+        {
+            super(position, Objects.hash(operator, operand));
+            this.operator = operator;
+            this.operand = operand;
+        }
+
+        @Override
+        Object evaluate(final Object[] context)
+        {
+            return this.operator.apply(this.operand.evaluate(context), this.position);
+        }
+
+        @Override
+        double evaluateDouble(final double[] frame, final boolean[] done)
+        {
+            if (UnaryOperator.NEGATE == this.operator)
+            {
+                return -this.operand.evaluateDouble(frame, done);
+            }
+            return super.evaluateDouble(frame, done);
+        }
+
+        @Override
+        boolean evaluateBoolean(final double[] frame, final boolean[] done)
+        {
+            if (UnaryOperator.NOT == this.operator)
+            {
+                return !this.operand.evaluateBoolean(frame, done);
+            }
+            return super.evaluateBoolean(frame, done);
+        }
+
+        @Override
+        Node[] children()
+        {
+            return new Node[] {this.operand};
+        }
+
+        @Override
+        Node withChildren(final Node[] newChildren)
+        {
+            return newChildren[0] == this.operand ? this : new Unary(this.operator, newChildren[0], this.position);
+        }
+
+        @Override
+        String describe()
+        {
+            return "Unary " + this.operator.symbol;
+        }
+
+        @Override
+        public boolean equals(final Object obj)
+        {
+            return obj instanceof Unary other && this.operator == other.operator && this.operand.equals(other.operand);
+        }
+    }
+
+    /**
+     * Node that applies a binary operator to two operands.
+     */
+    static final class Binary extends Node
+    {
+        /** The operator. */
+        final BinaryOperator operator;
+
+        /** The left operand. */
+        final Node left;
+
+        /** The right operand. */
+        final Node right;
+
+        /**
+         * Construct a new binary operator node.
+         * @param operator the operator
+         * @param left the left operand
+         * @param right the right operand
+         * @param position position in the expression
+         */
+        Binary(final BinaryOperator operator, final Node left, final Node right, final int position)
+        {
+            super(position, Objects.hash(operator, left, right));
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        Object evaluate(final Object[] context)
+        {
+            return this.operator.apply(this.left.evaluate(context), this.right.evaluate(context), this.position);
+        }
+
+        @Override
+        double evaluateDouble(final double[] frame, final boolean[] done)
+        {
+            double l = this.left.evaluateDouble(frame, done);
+            double r = this.right.evaluateDouble(frame, done);
+            switch (this.operator)
+            {
+                case POWER:
+                    return Math.pow(l, r);
+                case MULTIPLY:
+                    return l * r;
+                case DIVIDE:
+                    if (0.0 == r)
+                    {
+                        Eval.throwException("Division by 0", this.position);
+                    }
+                    return l / r;
+                case ADD:
+                    return l + r;
+                case SUBTRACT:
+                    return l - r;
+                default:
+                    return super.evaluateDouble(frame, done);
+            }
+        }
+
+        @Override
+        boolean evaluateBoolean(final double[] frame, final boolean[] done)
+        {
+            switch (this.operator)
+            {
+                // Both operands are always evaluated, as in the interpreter
+                case AND:
+                    return this.left.evaluateBoolean(frame, done) & this.right.evaluateBoolean(frame, done);
+                case OR:
+                    return this.left.evaluateBoolean(frame, done) | this.right.evaluateBoolean(frame, done);
+                case EQUAL:
+                    return this.left.evaluateBoolean(frame, done) == this.right.evaluateBoolean(frame, done);
+                case NOT_EQUAL:
+                    return this.left.evaluateBoolean(frame, done) != this.right.evaluateBoolean(frame, done);
+                case LESS:
+                    return this.left.evaluateDouble(frame, done) < this.right.evaluateDouble(frame, done);
+                case LESS_OR_EQUAL:
+                    return this.left.evaluateDouble(frame, done) <= this.right.evaluateDouble(frame, done);
+                case GREATER:
+                    return this.left.evaluateDouble(frame, done) > this.right.evaluateDouble(frame, done);
+                case GREATER_OR_EQUAL:
+                    return this.left.evaluateDouble(frame, done) >= this.right.evaluateDouble(frame, done);
+                default:
+                    return super.evaluateBoolean(frame, done);
+            }
+        }
+
+        @Override
+        Node[] children()
+        {
+            return new Node[] {this.left, this.right};
+        }
+
+        @Override
+        Node withChildren(final Node[] newChildren)
+        {
+            return newChildren[0] == this.left && newChildren[1] == this.right ? this
+                    : new Binary(this.operator, newChildren[0], newChildren[1], this.position);
+        }
+
+        @Override
+        String describe()
+        {
+            return "Binary " + this.operator.symbol;
+        }
+
+        @Override
+        public boolean equals(final Object obj)
+        {
+            return obj instanceof Binary other && this.operator == other.operator && this.left.equals(other.left)
+                    && this.right.equals(other.right);
+        }
+    }
+
+    /**
+     * Node of a conditional expression; only the selected part is evaluated.
+     */
+    static final class Conditional extends Node
+    {
+        /** The condition. */
+        final Node condition;
+
+        /** The part that is evaluated when the condition holds. */
+        final Node thenPart;
+
+        /** The part that is evaluated when the condition does not hold. */
+        final Node elsePart;
+
+        /**
+         * Construct a new conditional expression node.
+         * @param condition the condition
+         * @param thenPart the part that is evaluated when the condition holds
+         * @param elsePart the part that is evaluated when the condition does not hold
+         * @param position position in the expression
+         */
+        Conditional(final Node condition, final Node thenPart, final Node elsePart, final int position)
+        {
+            super(position, Objects.hash(condition, thenPart, elsePart));
+            this.condition = condition;
+            this.thenPart = thenPart;
+            this.elsePart = elsePart;
+        }
+
+        @Override
+        Object evaluate(final Object[] context)
+        {
+            Object choice = this.condition.evaluate(context);
+            if (!(choice instanceof Boolean))
+            {
+                Eval.throwException("Condition does not evaluate to a logical value", this.position);
+            }
+            return ((Boolean) choice) ? this.thenPart.evaluate(context) : this.elsePart.evaluate(context);
+        }
+
+        @Override
+        double evaluateDouble(final double[] frame, final boolean[] done)
+        {
+            return this.condition.evaluateBoolean(frame, done) ? this.thenPart.evaluateDouble(frame, done)
+                    : this.elsePart.evaluateDouble(frame, done);
+        }
+
+        @Override
+        boolean evaluateBoolean(final double[] frame, final boolean[] done)
+        {
+            return this.condition.evaluateBoolean(frame, done) ? this.thenPart.evaluateBoolean(frame, done)
+                    : this.elsePart.evaluateBoolean(frame, done);
+        }
+
+        @Override
+        Node[] children()
+        {
+            return new Node[] {this.condition, this.thenPart, this.elsePart};
+        }
+
+        @Override
+        Node withChildren(final Node[] newChildren)
+        {
+            return newChildren[0] == this.condition && newChildren[1] == this.thenPart && newChildren[2] == this.elsePart
+                    ? this : new Conditional(newChildren[0], newChildren[1], newChildren[2], this.position);
+        }
+
+        @Override
+        String describe()
+        {
+            return "Conditional ?:";
+        }
+
+        @Override
+        public boolean equals(final Object obj)
+        {
+            return obj instanceof Conditional other && this.condition.equals(other.condition)
+                    && this.thenPart.equals(other.thenPart) && this.elsePart.equals(other.elsePart);
+        }
+    }
+
+    /**
+     * Node that calls a function.
+     */
+    static final class Call extends Node
+    {
+        /** The function. */
+        final Function function;
+
+        /** The name under which the function was called. */
+        final String name;
+
+        /** The arguments. */
+        final Node[] arguments;
+
+        /** Primitive implementation of the function if it is a built-in function of one Dimensionless argument, or null. */
+        final DoubleUnaryOperator primitiveUnary;
+
+        /** Primitive implementation of the function if it is a built-in function of two arguments, or null. */
+        final DoubleBinaryOperator primitiveBinary;
+
+        /**
+         * Construct a new function call node.
+         * @param function the function
+         * @param name the name under which the function was called
+         * @param arguments the arguments
+         * @param position position in the expression
+         */
+        Call(final Function function, final String name, final Node[] arguments, final int position)
+        {
+            super(position, 31 * System.identityHashCode(function) + Arrays.hashCode(arguments));
+            this.function = function;
+            this.name = name;
+            this.arguments = arguments;
+            this.primitiveUnary = 1 == arguments.length ? Eval.primitiveUnaryFunction(function) : null;
+            this.primitiveBinary = 2 == arguments.length ? Eval.primitiveBinaryFunction(function) : null;
+        }
+
+        @Override
+        Object evaluate(final Object[] context)
+        {
+            Object[] args = new Object[this.arguments.length];
+            for (int i = 0; i < args.length; i++)
+            {
+                args[i] = this.arguments[i].evaluate(context);
+            }
+            return Eval.invoke(this.function, this.name, args, this.position);
+        }
+
+        @Override
+        double evaluateDouble(final double[] frame, final boolean[] done)
+        {
+            if (null != this.primitiveUnary)
+            {
+                return this.primitiveUnary.applyAsDouble(this.arguments[0].evaluateDouble(frame, done));
+            }
+            if (null != this.primitiveBinary)
+            {
+                return this.primitiveBinary.applyAsDouble(this.arguments[0].evaluateDouble(frame, done),
+                        this.arguments[1].evaluateDouble(frame, done));
+            }
+            return super.evaluateDouble(frame, done);
+        }
+
+        @Override
+        Node[] children()
+        {
+            return this.arguments;
+        }
+
+        @Override
+        Node withChildren(final Node[] newChildren)
+        {
+            return Arrays.equals(newChildren, this.arguments, (a, b) -> a == b ? 0 : 1) ? this
+                    : new Call(this.function, this.name, newChildren.clone(), this.position);
+        }
+
+        @Override
+        String describe()
+        {
+            return "Call " + this.name + "()";
+        }
+
+        @Override
+        public boolean equals(final Object obj)
+        {
+            return obj instanceof Call other && this.function == other.function && Arrays.equals(this.arguments, other.arguments);
+        }
+    }
+
+    /**
+     * Node that evaluates a subexpression that occurs more than once in the tree only once per evaluation. The value is stored
+     * in a slot of the context (or frame) beyond the slots of the variables the first time that it is needed.
+     */
+    static final class Shared extends Node
+    {
+        /** Slot where the value is stored. */
+        final int index;
+
+        /** The subexpression. */
+        final Node expression;
+
+        /**
+         * Construct a new shared subexpression node.
+         * @param index slot where the value is stored
+         * @param expression the subexpression
+         */
+        Shared(final int index, final Node expression)
+        {
+            super(expression.position, expression.hashCode());
+            this.index = index;
+            this.expression = expression;
+        }
+
+        @Override
+        Object evaluate(final Object[] context)
+        {
+            Object result = context[this.index];
+            if (null == result)
+            {
+                result = this.expression.evaluate(context);
+                context[this.index] = result;
+            }
+            return result;
+        }
+
+        @Override
+        double evaluateDouble(final double[] frame, final boolean[] done)
+        {
+            if (!done[this.index])
+            {
+                frame[this.index] = this.expression.evaluateDouble(frame, done);
+                done[this.index] = true;
+            }
+            return frame[this.index];
+        }
+
+        @Override
+        boolean evaluateBoolean(final double[] frame, final boolean[] done)
+        {
+            if (!done[this.index])
+            {
+                frame[this.index] = this.expression.evaluateBoolean(frame, done) ? 1.0 : 0.0;
+                done[this.index] = true;
+            }
+            return 0.0 != frame[this.index];
+        }
+
+        @Override
+        Node[] children()
+        {
+            return new Node[] {this.expression};
+        }
+
+        @Override
+        Node withChildren(final Node[] newChildren)
+        {
+            return newChildren[0] == this.expression ? this : new Shared(this.index, newChildren[0]);
+        }
+
+        @Override
+        String describe()
+        {
+            return "Shared #" + this.index;
+        }
+
+        @Override
+        public boolean equals(final Object obj)
+        {
+            return obj instanceof Shared other && this.index == other.index && this.expression.equals(other.expression);
+        }
+    }
+
+    /**
+     * The unary operators.
+     */
+    enum UnaryOperator
+    {
+        /** Unary minus. */
+        NEGATE("-")
+        {
+            @Override
+            Object apply(final Object operand, final int position)
+            {
+                return Eval.performNegate(operand, position);
+            }
+        },
+
+        /** Logical negation. */
+        NOT("!")
+        {
+            @Override
+            Object apply(final Object operand, final int position)
+            {
+                return Eval.performNot(operand, position);
+            }
+        };
+
+        /** The symbol of the operator. */
+        final String symbol;
+
+        /**
+         * Construct a unary operator.
+         * @param symbol the symbol of the operator
+         */
+        UnaryOperator(final String symbol)
+        {
+            this.symbol = symbol;
+        }
+
+        /**
+         * Apply the operator.
+         * @param operand the operand
+         * @param position position in the expression (for error messages)
+         * @return the result
+         */
+        abstract Object apply(Object operand, int position);
+    }
+
+    /**
+     * The binary operators.
+     */
+    enum BinaryOperator
+    {
+        /** Exponentiation. */
+        POWER("^")
+        {
+            @Override
+            Object apply(final Object left, final Object right, final int position)
+            {
+                return Eval.performPower(left, right, position);
+            }
+        },
+
+        /** Multiplication. */
+        MULTIPLY("*")
+        {
+            @Override
+            Object apply(final Object left, final Object right, final int position)
+            {
+                return Eval.performMultiply(left, right, position);
+            }
+        },
+
+        /** Division. */
+        DIVIDE("/")
+        {
+            @Override
+            Object apply(final Object left, final Object right, final int position)
+            {
+                return Eval.performDivide(left, right, position);
+            }
+        },
+
+        /** Addition. */
+        ADD("+")
+        {
+            @Override
+            Object apply(final Object left, final Object right, final int position)
+            {
+                return Eval.performAdd(left, right, position);
+            }
+        },
+
+        /** Subtraction. */
+        SUBTRACT("-")
+        {
+            @Override
+            Object apply(final Object left, final Object right, final int position)
+            {
+                return Eval.performSubtract(left, right, position);
+            }
+        },
+
+        /** Logical AND. */
+        AND("&&")
+        {
+            @Override
+            Object apply(final Object left, final Object right, final int position)
+            {
+                return Eval.performAnd(left, right, position);
+            }
+        },
+
+        /** Logical OR. */
+        OR("||")
+        {
+            @Override
+            Object apply(final Object left, final Object right, final int position)
+            {
+                return Eval.performOr(left, right, position);
+            }
+        },
+
+        /** Less than. */
+        LESS("<")
+        {
+            @Override
+            Object apply(final Object left, final Object right, final int position)
+            {
+                return Eval.performCompare(left, right, (a, b) -> (a < b), position);
+            }
+        },
+
+        /** Less than or equal. */
+        LESS_OR_EQUAL("<=")
+        {
+            @Override
+            Object apply(final Object left, final Object right, final int position)
+            {
+                return Eval.performCompare(left, right, (a, b) -> (a <= b), position);
+            }
+        },
+
+        /** Greater than. */
+        GREATER(">")
+        {
+            @Override
+            Object apply(final Object left, final Object right, final int position)
+            {
+                return Eval.performCompare(left, right, (a, b) -> (a > b), position);
+            }
+        },
+
+        /** Greater than or equal. */
+        GREATER_OR_EQUAL(">=")
+        {
+            @Override
+            Object apply(final Object left, final Object right, final int position)
+            {
+                return Eval.performCompare(left, right, (a, b) -> (a >= b), position);
+            }
+        },
+
+        /** Equality; this also works for Boolean operands. */
+        EQUAL("==")
+        {
+            @Override
+            Object apply(final Object left, final Object right, final int position)
+            {
+                return left.equals(right);
+            }
+        },
+
+        /** Inequality; this also works for Boolean operands and mixed-type operands. */
+        NOT_EQUAL("!=")
+        {
+            @Override
+            Object apply(final Object left, final Object right, final int position)
+            {
+                return !left.equals(right);
+            }
+        };
+
+        /** The symbol of the operator. */
+        final String symbol;
+
+        /**
+         * Construct a binary operator.
+         * @param symbol the symbol of the operator
+         */
+        BinaryOperator(final String symbol)
+        {
+            this.symbol = symbol;
+        }
+
+        /**
+         * Apply the operator.
+         * @param left the left operand
+         * @param right the right operand
+         * @param position position in the expression (for error messages)
+         * @return the result
+         */
+        abstract Object apply(Object left, Object right, int position);
+    }
+
+}
@@ -0,0 +1,451 @@
+package org.djutils.eval;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.djunits.unit.DimensionlessUnit;
+import org.djunits.unit.si.SIDimensions;
+import org.djunits.value.vdouble.scalar.base.DoubleScalar;
+import org.djunits.value.vdouble.scalar.base.DoubleScalarAbs;
+
+/**
+ * Optimizer.java. Optimizing pass over the tree of a compiled expression. The optimizer
+ * <ul>
+ * <li>folds constant subtrees (including calls to built-in constants such as <code>AVOGADRO()</code>) into a single constant;
+ * the unit literals of the expression have already been resolved by the parser, so a subtree like <code>PI()*2*3[m/s]</code>
+ * becomes one constant,</li>
+ * <li>replaces a conditional expression that has a constant condition by the selected part,</li>
+ * <li>merges subtrees that compute the same thing and evaluates a subtree that occurs more than once (like
+ * <code>x*x+y*y</code> in <code>sqrt(x*x+y*y)/sqrt(x*x+y*y+z*z)</code>) only once per evaluation, and</li>
+ * <li>infers the type (SI dimensions, and relative or absolute) of every node when the units of the variables are known. When
+ * the type of the whole tree is known, all dimension checks have been done once at compile time and the tree can be evaluated
+ * on SI values in a <code>double[]</code>.</li>
+ * </ul>
+ * Only built-in functions (except <code>CURRENTTIME()</code>) are considered free of side effects; calls to user-defined
+ * functions are never folded or shared. A subtree whose evaluation throws an exception is not folded; the exception is thrown
+ * when (and if) the subtree is evaluated.
+ * <p>
+ * Copyright (c) 2023-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>.
+ * </p>
+ * @author <a href="https://www.tudelft.nl/pknoppers">Peter Knoppers</a>
+ */
+final class Optimizer
+{
+    /** The SI dimensions of dimensionless values. */
+    private static final SIDimensions DIMENSIONLESS = DimensionlessUnit.SI.getQuantity().getSiDimensions();
+
+    /** The types of the variables, indexed by slot; entries are null for variables of unknown type. */
+    private final Type[] slotTypes;
+
+    /** The first slot that can be used to store a shared value. */
+    private final int firstTemporary;
+
+    /** The canonical instance of each distinct subtree. */
+    private final Map<Node, Node> canonical = new HashMap<>();
+
+    /** Number of references to each canonical subtree. */
+    private final Map<Node, Integer> references = new IdentityHashMap<>();
+
+    /** Result of the share step for each canonical subtree. */
+    private final Map<Node, Node> shared = new IdentityHashMap<>();
+
+    /** Cache of inferred types. */
+    private final Map<Node, Type> types = new IdentityHashMap<>();
+
+    /** Number of slots allocated for shared values. */
+    private int temporaries = 0;
+
+    /**
+     * Construct a new Optimizer.
+     * @param prototypes values of the variables in their SI unit, indexed by slot, or null if the units of the variables are not
+     *            known
+     * @param numberOfSlots the number of slots of the variables
+     */
+    Optimizer(final DoubleScalar<?, ?>[] prototypes, final int numberOfSlots)
+    {
+        this.slotTypes = new Type[numberOfSlots];
+        if (null != prototypes)
+        {
+            for (int slot = 0; slot < numberOfSlots; slot++)
+            {
+                this.slotTypes[slot] = typeOf(prototypes[slot]);
+            }
+        }
+        this.firstTemporary = numberOfSlots;
+    }
+
+    /**
+     * Optimize a tree.
+     * @param root the root of the tree
+     * @return the root of the optimized tree
+     */
+    Node optimize(final Node root)
+    {
+        Node result = canonicalize(fold(root));
+        count(result);
+        return share(result);
+    }
+
+    /**
+     * Return the number of slots that are needed (beyond the slots of the variables) to store the values of shared subtrees.
+     * @return the number of slots that are needed to store the values of shared subtrees
+     */
+    int getNumberOfTemporaries()
+    {
+        return this.temporaries;
+    }
+
+    /**
+     * Fold constant subtrees.
+     * @param node the root of the (sub)tree
+     * @return the folded (sub)tree
+     */
+    private Node fold(final Node node)
+    {
+        Node[] children = node.children();
+        Node[] folded = new Node[children.length];
+        boolean allConstant = true;
+        for (int i = 0; i < children.length; i++)
+        {
+            folded[i] = fold(children[i]);
+            allConstant &= folded[i] instanceof Node.Constant;
+        }
+        Node result = node.withChildren(folded);
+        if (result instanceof Node.Conditional conditional && conditional.condition instanceof Node.Constant condition
+                && condition.value instanceof Boolean choice)
+        {
+            return choice ? conditional.thenPart : conditional.elsePart;
+        }
+        if (!allConstant || result instanceof Node.Constant || result instanceof Node.Variable
+                || (result instanceof Node.Call call && !Eval.isPure(call.function)))
+        {
+            return result;
+        }
+        try
+        {
+            return new Node.Constant(result.evaluate(new Object[0]), result.position);
+        }
+        catch (RuntimeException exception)
+        {
+            return result; // Report the problem when (and if) the subtree is evaluated
+        }
+    }
+
+    /**
+     * Replace all subtrees that compute the same thing by one instance.
+     * @param node the root of the (sub)tree
+     * @return the canonical instance of the (sub)tree
+     */
+    private Node canonicalize(final Node node)
+    {
+        Node[] children = node.children();
+        Node[] canonicalChildren = new Node[children.length];
+        for (int i = 0; i < children.length; i++)
+        {
+            canonicalChildren[i] = canonicalize(children[i]);
+        }
+        Node result = node.withChildren(canonicalChildren);
+        Node existing = this.canonical.putIfAbsent(result, result);
+        return null == existing ? result : existing;
+    }
+
+    /**
+     * Count the references to each canonical subtree. The children of a subtree are only counted the first time that the
+     * subtree is encountered, because a shared subtree is evaluated only once.
+     * @param node the root of the (sub)tree
+     */
+    private void count(final Node node)
+    {
+        Integer previous = this.references.get(node);
+        this.references.put(node, null == previous ? 1 : previous + 1);
+        if (null == previous)
+        {
+            for (Node child : node.children())
+            {
+                count(child);
+            }
+        }
+    }
+
+    /**
+     * Wrap each subtree that is referenced more than once, is free of side effects, and is worth sharing in a Shared node.
+     * @param node the root of the (sub)tree
+     * @return the (sub)tree with the shared subtrees wrapped
+     */
+    private Node share(final Node node)
+    {
+        Node result = this.shared.get(node);
+        if (null != result)
+        {
+            return result;
+        }
+        Node[] children = node.children();
+        Node[] sharedChildren = new Node[children.length];
+        for (int i = 0; i < children.length; i++)
+        {
+            sharedChildren[i] = share(children[i]);
+        }
+        result = node.withChildren(sharedChildren);
+        if (this.references.get(node) > 1 && !(node instanceof Node.Constant) && !(node instanceof Node.Variable) && isPure(node))
+        {
+            result = new Node.Shared(this.firstTemporary + this.temporaries++, result);
+        }
+        this.shared.put(node, result);
+        return result;
+    }
+
+    /**
+     * Determine whether a (sub)tree is free of side effects.
+     * @param node the root of the (sub)tree
+     * @return true if the (sub)tree only calls built-in functions that are free of side effects
+     */
+    private static boolean isPure(final Node node)
+    {
+        if (node instanceof Node.Call call && !Eval.isPure(call.function))
+        {
+            return false;
+        }
+        for (Node child : node.children())
+        {
+            if (!isPure(child))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Infer the type of a (sub)tree. The rules mirror the checks that the Eval.perform... methods do at evaluation time.
+     * @param node the root of the (sub)tree
+     * @return the type of the (sub)tree, or null if the type cannot be determined at compile time (or the (sub)tree will fail
+     *         to evaluate)
+     */
+    Type typeOf(final Node node)
+    {
+        if (this.types.containsKey(node))
+        {
+            return this.types.get(node);
+        }
+        Type result = inferType(node);
+        this.types.put(node, result);
+        return result;
+    }
+
+    /**
+     * Infer the type of a (sub)tree (uncached).
+     * @param node the root of the (sub)tree
+     * @return the type of the (sub)tree, or null if it cannot be determined
+     */
+    private Type inferType(final Node node)
+    {
+        if (node instanceof Node.Constant constant)
+        {
+            return constant.value instanceof Boolean ? Type.BOOLEAN
+                    : constant.value instanceof DoubleScalar<?, ?> ds ? typeOf(ds) : null;
+        }
+        if (node instanceof Node.Variable variable)
+        {
+            return this.slotTypes[variable.slot];
+        }
+        if (node instanceof Node.Shared sharedNode)
+        {
+            return typeOf(sharedNode.expression);
+        }
+        if (node instanceof Node.Unary unary)
+        {
+            Type operand = typeOf(unary.operand);
+            if (null == operand)
+            {
+                return null;
+            }
+            return switch (unary.operator)
+            {
+                case NEGATE -> operand.isRelative() ? operand : null;
+                case NOT -> operand.isBoolean() ? operand : null;
+            };
+        }
+        if (node instanceof Node.Binary binary)
+        {
+            return binaryType(binary.operator, typeOf(binary.left), typeOf(binary.right));
+        }
+        if (node instanceof Node.Conditional conditional)
+        {
+            Type thenType = typeOf(conditional.thenPart);
+            return Type.BOOLEAN.equals(typeOf(conditional.condition)) && null != thenType
+                    && thenType.equals(typeOf(conditional.elsePart)) ? thenType : null;
+        }
+        if (node instanceof Node.Call call)
+        {
+            if (null != call.primitiveUnary)
+            {
+                return Type.DIMENSIONLESS.equals(typeOf(call.arguments[0])) ? Type.DIMENSIONLESS : null;
+            }
+            if (null != call.primitiveBinary)
+            {
+                Type first = typeOf(call.arguments[0]);
+                Type second = typeOf(call.arguments[1]);
+                if ("pow".equals(call.function.getId()))
+                {
+                    return Type.DIMENSIONLESS.equals(first) && Type.DIMENSIONLESS.equals(second) ? Type.DIMENSIONLESS : null;
+                }
+                // atan2
+                return null != first && first.isRelative() && first.equals(second) ? Type.DIMENSIONLESS : null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Infer the type of the result of a binary operator.
+     * @param operator the operator
+     * @param left type of the left operand (may be null)
+     * @param right type of the right operand (may be null)
+     * @return the type of the result, or null if it cannot be determined
+     */
+    private static Type binaryType(final Node.BinaryOperator operator, final Type left, final Type right)
+    {
+        if (null == left || null == right)
+        {
+            return null;
+        }
+        switch (operator)
+        {
+            case POWER:
+                return Type.DIMENSIONLESS.equals(left) && Type.DIMENSIONLESS.equals(right) ? Type.DIMENSIONLESS : null;
+            case MULTIPLY:
+                return left.isRelative() && right.isRelative()
+                        ? new Type(left.dimensions().plus(right.dimensions()), false) : null;
+            case DIVIDE:
+                return left.isRelative() && right.isRelative()
+                        ? new Type(left.dimensions().minus(right.dimensions()), false) : null;
+            case ADD:
+                return left.isNumeric() && right.isRelative() && left.dimensions().equals(right.dimensions()) ? left : null;
+            case SUBTRACT:
+                if (!left.isNumeric() || !right.isNumeric() || !left.dimensions().equals(right.dimensions())
+                        || (left.isRelative() && right.absolute()))
+                {
+                    return null;
+                }
+                return new Type(left.dimensions(), left.absolute() && !right.absolute());
+            case AND:
+            case OR:
+            case EQUAL:
+            case NOT_EQUAL:
+                return left.isBoolean() && right.isBoolean() ? Type.BOOLEAN : null;
+            default: // comparisons
+                return left.isNumeric() && right.isNumeric() && left.dimensions().equals(right.dimensions()) ? Type.BOOLEAN
+                        : null;
+        }
+    }
+
+    /**
+     * Return the type of a value.
+     * @param value the value
+     * @return the type of the value
+     */
+    private static Type typeOf(final DoubleScalar<?, ?> value)
+    {
+        return new Type(value.getDisplayUnit().getQuantity().getSiDimensions(), value instanceof DoubleScalarAbs);
+    }
+
+    /**
+     * Return a multi-line description of a tree; one line per node, indented according to the depth of the node. A shared
+     * subtree is only described the first time it occurs.
+     * @param root the root of the tree
+     * @return a multi-line description of the tree
+     */
+    String dump(final Node root)
+    {
+        StringBuilder result = new StringBuilder();
+        dump(root, 0, Set.of(), result);
+        return result.toString();
+    }
+
+    /**
+     * Append the description of a (sub)tree to a StringBuilder.
+     * @param node the root of the (sub)tree
+     * @param depth the depth of the node in the tree
+     * @param seen the shared nodes that have already been described
+     * @param output the StringBuilder
+     * @return the shared nodes that have been described so far
+     */
+    private Set<Node> dump(final Node node, final int depth, final Set<Node> seen, final StringBuilder output)
+    {
+        output.append("  ".repeat(depth)).append(node.describe());
+        Type type = typeOf(node);
+        output.append(" : ").append(null == type ? "?" : type);
+        if (node instanceof Node.Shared && seen.contains(node))
+        {
+            output.append(" (see above)\n");
+            return seen;
+        }
+        output.append("\n");
+        Set<Node> result = seen;
+        if (node instanceof Node.Shared)
+        {
+            result = new HashSet<>(seen);
+            result.add(node);
+        }
+        for (Node child : node.children())
+        {
+            result = dump(child, depth + 1, result, output);
+        }
+        return result;
+    }
+
+    /**
+     * Type of a node that is known at compile time.
+     * @param dimensions the SI dimensions, or null for a logical value
+     * @param absolute whether the value is an absolute value
+     */
+    record Type(SIDimensions dimensions, boolean absolute)
+    {
+        /** The type of logical values. */
+        static final Type BOOLEAN = new Type(null, false);
+
+        /** The type of relative dimensionless values. */
+        static final Type DIMENSIONLESS = new Type(Optimizer.DIMENSIONLESS, false);
+
+        /**
+         * Return whether this is the type of a logical value.
+         * @return true if this is the type of a logical value
+         */
+        boolean isBoolean()
+        {
+            return null == this.dimensions;
+        }
+
+        /**
+         * Return whether this is the type of an absolute or relative scalar.
+         * @return true if this is the type of an absolute or relative scalar
+         */
+        boolean isNumeric()
+        {
+            return null != this.dimensions;
+        }
+
+        /**
+         * Return whether this is the type of a relative scalar.
+         * @return true if this is the type of a relative scalar
+         */
+        boolean isRelative()
+        {
+            return null != this.dimensions && !this.absolute;
+        }
+
+        @Override
+        public String toString()
+        {
+            return isBoolean() ? "Boolean"
+                    : ("[" + this.dimensions.toString(true, true) + "]" + (this.absolute ? " absolute" : ""));
+        }
+    }
+
+}
@@ -0,0 +1,31 @@
+package org.djutils.eval;
+
+/**
+ * PositionAwareFunction.java. Function that is told where in the expression it is called, so that its error messages can
+ * report that position. The built-in functions implement this interface; user defined functions need not.
+ * <p>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>.
+ * </p>
+ * @author <a href="https://www.tudelft.nl/pknoppers">Peter Knoppers</a>
+ */
+interface PositionAwareFunction extends Function
+{
+    /**
+     * The function itself, called from a known position in the expression.
+     * @param arguments the arguments of the function
+     * @param position position of the call in the expression (for error messages)
+     * @return the result of the function (must currently be either some type of DoubleScalar or Boolean).
+     * @throws RuntimeException thrown when the function is unable to produce a result
+     */
+    Object function(Object[] arguments, int position) throws RuntimeException;
+
+    @Override
+    default Object function(final Object[] arguments) throws RuntimeException
+    {
+        return function(arguments, Eval.UNKNOWN_POSITION);
+    }
+
+}
@@ -0,0 +1,183 @@
+package org.djutils.eval;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import org.djunits.unit.DimensionlessUnit;
+import org.djunits.unit.DurationUnit;
+import org.djunits.unit.LengthUnit;
+import org.djunits.unit.PositionUnit;
+import org.djunits.unit.Unit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * TestBytecode.java. Test the translation of compiled expressions into hidden classes.
+ * <p>
+ * Copyright (c) 2023-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>.
+ * </p>
+ * @author Peter Knoppers
+ */
+public class TestBytecode
+{
+    /** Names of the variables. */
+    private static final String[] NAMES = new String[] {"x", "y", "p", "q", "d", "t"};
+
+    /** Units of the variables. */
+    private static final Unit<?>[] UNITS = new Unit<?>[] {LengthUnit.METER, LengthUnit.KILOMETER, PositionUnit.METER,
+            PositionUnit.METER, DimensionlessUnit.SI, DurationUnit.SECOND};
+
+    /**
+     * Return whether a DoubleExpression is an instance of a class that was generated for the expression. Note that lambda
+     * expressions are implemented as hidden classes as well.
+     * @param doubleExpression the DoubleExpression
+     * @return whether the DoubleExpression is an instance of a generated class
+     */
+    private static boolean isGenerated(final DoubleExpression doubleExpression)
+    {
+        return doubleExpression.getClass().isHidden()
+                && doubleExpression.getClass().getName().startsWith("org.djutils.eval.GeneratedExpression");
+    }
+
+    /**
+     * The generated classes must yield the same results as the interpreter.
+     */
+    @Test
+    public void testResults()
+    {
+        Eval eval = new Eval();
+        double[][] contexts = new double[][] {{3, 4000, 10, 7, 0.5, 2}, {-3, 0.25, -10, 7, 0, 1E-3},
+                {0, 0, 0, 0, 0.99, 1E6}, {Double.NaN, 1, 2, 3, 0.1, 4}};
+        for (String expression : new String[] {"x + y", "x - y", "-x", "x * y / 2[m]", "x / t", "p + x", "p - x", "p - q",
+                "atan2(y, x)", "pow(d, 3)", "d ^ 2", "sin(d) + cos(d) + sqrt(d) + exp(d) + log1p(d) + signum(d)",
+                "x < y ? x : y", "(p - 2[m]) > q ? p - q : x", "(x > y && !(p <= q)) || (d >= 0.5) ? 1 : 2",
+                "((x > y) == (p < q)) ? d : -d", "((x > y) != (p < q)) ? d : -d", "sqrt(d*d+1)/sqrt(d*d+1+d)",
+                "(x > y) ? (d*d + 1) / (d*d + 1) : 0", "((x > y) || (p > q)) && ((x > y) || (p > q)) ? 3 : 4",
+                "123.456 * x + 1000000 * y - 0.001 * x", "TRUE() ? x : y", "PI() * d"})
+        {
+            CompiledExpression compiled = eval.compile(expression, NAMES, UNITS);
+            assertTrue(compiled.isStaticallyTyped(), expression);
+            DoubleExpression doubleExpression = compiled.toDoubleExpression();
+            assertTrue(isGenerated(doubleExpression), expression);
+            assertSame(doubleExpression, compiled.toDoubleExpression(), "class is generated only once");
+            for (double[] context : contexts)
+            {
+                assertEquals(compiled.evaluateAsDouble(context), doubleExpression.eval(context), 0.0, expression);
+            }
+        }
+    }
+
+    /**
+     * Expressions with many variables and constants need the wider forms of the instructions.
+     */
+    @Test
+    public void testLargeExpression()
+    {
+        int count = 300;
+        String[] names = new String[count];
+        Unit<?>[] units = new Unit<?>[count];
+        double[] values = new double[count];
+        StringBuilder expression = new StringBuilder();
+        double expected = 0;
+        for (int i = 0; i < count; i++)
+        {
+            names[i] = "v" + i;
+            units[i] = DimensionlessUnit.SI;
+            values[i] = i;
+            // The product with a variable is shared; this yields more than 255 local variables
+            expression.append(i > 0 ? " + " : "").append("(v" + i + " * " + (i + 0.5) + ") / (v" + i + " * " + (i + 0.5)
+                    + " + 1)");
+            expected += i * (i + 0.5) / (i * (i + 0.5) + 1);
+        }
+        CompiledExpression compiled = new Eval().compile(expression.toString(), names, units);
+        assertTrue(compiled.dump().contains("Shared #" + (2 * count - 1)));
+        DoubleExpression doubleExpression = compiled.toDoubleExpression();
+        assertTrue(isGenerated(doubleExpression));
+        assertEquals(expected, doubleExpression.eval(values), 1E-9);
+        assertEquals(compiled.evaluateAsDouble(values), doubleExpression.eval(values), 0.0);
+    }
+
+    /**
+     * Expressions that are not translated into a class are evaluated by the interpreter; errors are reported in the same way.
+     */
+    @Test
+    public void testFallbackAndErrors()
+    {
+        Eval eval = new Eval();
+        double[] siValues = new double[] {3, 4000, 10, 7, 0.5, 2};
+
+        CompiledExpression compiled = eval.compile("x + d", NAMES, UNITS);
+        assertFalse(compiled.isStaticallyTyped());
+        assertFalse(isGenerated(compiled.toDoubleExpression()), "expression that is not typed is interpreted");
+        try
+        {
+            compiled.toDoubleExpression().eval(siValues);
+            fail("adding a length and a dimensionless value should have thrown a RuntimeException");
+        }
+        catch (RuntimeException rte)
+        {
+            // Ignore expected exception
+        }
+
+        compiled = eval.compile("x < y", NAMES, UNITS);
+        assertFalse(isGenerated(compiled.toDoubleExpression()), "logical result is interpreted");
+        try
+        {
+            compiled.toDoubleExpression().eval(siValues);
+            fail("logical result can not be returned as a double");
+        }
+        catch (RuntimeException rte)
+        {
+            assertTrue(rte.getMessage().contains("can not be cast to a double"));
+        }
+
+        compiled = eval.compile("x + 2[m]");
+        assertFalse(isGenerated(compiled.toDoubleExpression()), "units of the variables are not known");
+        try
+        {
+            compiled.toDoubleExpression().eval(siValues);
+            fail("SI values can not be used when the units of the variables are not declared");
+        }
+        catch (IllegalStateException ise)
+        {
+            // Ignore expected exception
+        }
+
+        compiled = eval.compile("x / (y - y)", NAMES, UNITS);
+        assertTrue(isGenerated(compiled.toDoubleExpression()));
+        try
+        {
+            compiled.toDoubleExpression().eval(siValues);
+            fail("division by zero should have thrown a RuntimeException");
+        }
+        catch (RuntimeException rte)
+        {
+            assertTrue(rte.getMessage().contains("Division by 0"), "Message describes the problem");
+            try
+            {
+                compiled.evaluateAsDouble(siValues);
+                fail("division by zero should have thrown a RuntimeException");
+            }
+            catch (RuntimeException interpreted)
+            {
+                assertEquals(interpreted.getMessage(), rte.getMessage(), "same message as the interpreter");
+            }
+        }
+
+        try
+        {
+            eval.compile("x + y", NAMES, UNITS).toDoubleExpression().eval(new double[1]);
+            fail("too few SI values should have thrown an ArrayIndexOutOfBoundsException");
+        }
+        catch (ArrayIndexOutOfBoundsException aioobe)
+        {
+            // Ignore expected exception
+        }
+    }
+
+}
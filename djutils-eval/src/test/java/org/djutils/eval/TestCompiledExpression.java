@@ -0,0 +1,311 @@
+package org.djutils.eval;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.djunits.unit.DimensionlessUnit;
+import org.djunits.unit.DurationUnit;
+import org.djunits.unit.LengthUnit;
+import org.djunits.unit.PositionUnit;
+import org.djunits.unit.SpeedUnit;
+import org.djunits.unit.Unit;
+import org.djunits.value.vdouble.scalar.Dimensionless;
+import org.djunits.value.vdouble.scalar.Duration;
+import org.djunits.value.vdouble.scalar.Frequency;
+import org.djunits.value.vdouble.scalar.Length;
+import org.djunits.value.vdouble.scalar.Position;
+import org.djunits.value.vdouble.scalar.Speed;
+import org.djunits.value.vdouble.scalar.base.DoubleScalar;
+import org.junit.jupiter.api.Test;
+
+/**
+ * TestCompiledExpression.java. Test the slot-based evaluation of compiled expressions.
+ * <p>
+ * Copyright (c) 2023-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>.
+ * </p>
+ * @author Peter Knoppers
+ */
+public class TestCompiledExpression
+{
+    /**
+     * Compiled expressions must produce the same results as the interpreter.
+     */
+    @Test
+    public void testSameResultsAsInterpreter()
+    {
+        Map<String, Object> map = new HashMap<>();
+        map.put("x", new Length(3, LengthUnit.METER));
+        map.put("y", new Length(4, LengthUnit.METER));
+        map.put("t", new Duration(2, DurationUnit.SECOND));
+        map.put("p", new Position(10, PositionUnit.METER));
+        map.put("b", Boolean.TRUE);
+        RetrieveValue retrieveValue = (name) -> map.get(name);
+        Eval eval = new Eval().setRetrieveValue(retrieveValue);
+        for (String expression : new String[] {"1+2*3", "2^3^2", "-x", "x*x+y*y", "sqrt((x*x+y*y)/1[m^2])", "x/t", "p+x", "p-x",
+                "p-p", "x<y", "x<=y", "x>y", "x>=y", "x==y", "x!=y", "b&&!b", "b||!b", "!b", "x>y?x:y", "b?1:2", "-(x-y)",
+                "atan2(y,x)", "pow(2,10)", "PI()*2*3[m/s]", "AVOGADRO()", "E()", "12>16?3:5>4", "x/t*t+y"})
+        {
+            Object expected = eval.evaluate(expression);
+            CompiledExpression compiled = eval.compile(expression);
+            Object[] context = new Object[compiled.getNumberOfSlots()];
+            for (String name : compiled.getVariableNames())
+            {
+                context[compiled.getSlot(name)] = map.get(name);
+            }
+            assertEquals(expected, compiled.evaluate(context), expression);
+            assertEquals(expected, compiled.evaluate(retrieveValue), expression);
+        }
+    }
+
+    /**
+     * Test slot assignment.
+     */
+    @Test
+    public void testSlots()
+    {
+        Eval eval = new Eval();
+        CompiledExpression compiled = eval.compile("b * a + b * c");
+        assertEquals(List.of("b", "a", "c"), compiled.getVariableNames(), "slots in order of first occurrence");
+        assertEquals(compiled.getVariableNames(), eval.getVariableNames("b * a + b * c"), "parsing gives the same order");
+        assertEquals(List.of("x"), eval.getVariableNames("0 * x + 1"), "variables that are optimized away are included");
+        assertEquals(3, compiled.getNumberOfSlots());
+        assertEquals(0, compiled.getSlot("b"));
+        assertEquals(1, compiled.getSlot("a"));
+        assertEquals(2, compiled.getSlot("c"));
+        assertEquals("b * a + b * c", compiled.getExpression());
+        assertTrue(compiled.toString().contains("b * a + b * c"));
+        assertNull(compiled.getSIUnit(0), "no units declared");
+        try
+        {
+            compiled.getSlot("d");
+            fail("unknown variable should have thrown an IllegalArgumentException");
+        }
+        catch (IllegalArgumentException iae)
+        {
+            // Ignore expected exception
+        }
+
+        compiled = eval.compile("c + a", "a", "b", "c");
+        assertEquals(List.of("a", "b", "c"), compiled.getVariableNames(), "slots in order of the provided names");
+        assertEquals(3.0, compiled.evaluateAsDouble(new Object[] {Dimensionless.ofSI(1), null, Dimensionless.ofSI(2)}), 0.0);
+        assertEquals(0, eval.compile("1 + 2", new String[0]).getNumberOfSlots());
+
+        try
+        {
+            eval.compile("a + d", "a", "b", "c");
+            fail("variable that is not in the list of names should have thrown a RuntimeException");
+        }
+        catch (RuntimeException rte)
+        {
+            assertTrue(rte.getMessage().toLowerCase().contains("cannot resolve variable "), "Message describes the problem");
+        }
+
+        try
+        {
+            eval.compile("a + b", "a", "b", "a");
+            fail("duplicate variable name should have thrown an IllegalArgumentException");
+        }
+        catch (IllegalArgumentException iae)
+        {
+            // Ignore expected exception
+        }
+
+        try
+        {
+            eval.compile("a + b", new String[] {"a", "b"}, new Unit<?>[] {LengthUnit.METER});
+            fail("number of units that does not match the number of names should have thrown an IllegalArgumentException");
+        }
+        catch (IllegalArgumentException iae)
+        {
+            // Ignore expected exception
+        }
+
+        try
+        {
+            compiled.evaluate(new Object[2]);
+            fail("context that is too short should have thrown an IllegalArgumentException");
+        }
+        catch (IllegalArgumentException iae)
+        {
+            // Ignore expected exception
+        }
+
+        try
+        {
+            compiled.evaluate(new Object[3]);
+            fail("empty slot should have thrown a RuntimeException");
+        }
+        catch (RuntimeException rte)
+        {
+            assertTrue(rte.getMessage().toLowerCase().contains("cannot resolve variable "), "Message describes the problem");
+        }
+
+        try
+        {
+            compiled.evaluate(new double[3]);
+            fail("double context without declared units should have thrown an IllegalStateException");
+        }
+        catch (IllegalStateException ise)
+        {
+            // Ignore expected exception
+        }
+
+        try
+        {
+            eval.compile("a + ");
+            fail("bad expression should have thrown a RuntimeException");
+        }
+        catch (RuntimeException rte)
+        {
+            assertTrue(rte.getMessage().toLowerCase().contains("missing operand"), "Message describes the problem");
+        }
+
+        try
+        {
+            eval.compile("noSuchFunction(1)");
+            fail("unknown function should have thrown a RuntimeException");
+        }
+        catch (RuntimeException rte)
+        {
+            assertTrue(rte.getMessage().toLowerCase().contains("unknown function"), "Message describes the problem");
+        }
+    }
+
+    /**
+     * Test evaluation with double contexts and batch evaluation.
+     */
+    @Test
+    public void testDoubleContextsAndBatches()
+    {
+        Eval eval = new Eval();
+        CompiledExpression compiled = eval.compile("distance / duration", new String[] {"distance", "duration"},
+                new Unit<?>[] {LengthUnit.KILOMETER, DurationUnit.HOUR});
+        assertEquals(LengthUnit.SI, compiled.getSIUnit(0), "values are provided in SI units");
+        assertEquals(DurationUnit.SI, compiled.getSIUnit(1), "values are provided in SI units");
+        Object result = compiled.evaluate(new double[] {100, 20});
+        assertTrue(result instanceof DoubleScalar);
+        assertEquals(SpeedUnit.SI.getQuantity().getSiDimensions(),
+                ((DoubleScalar<?, ?>) result).getDisplayUnit().getQuantity().getSiDimensions(), "result is a speed");
+        assertEquals(5.0, compiled.evaluateAsDouble(new double[] {100, 20}), 1e-10);
+
+        int n = 1000;
+        double[][] contexts = new double[n][];
+        Object[][] objectContexts = new Object[n][];
+        for (int i = 0; i < n; i++)
+        {
+            contexts[i] = new double[] {i, 1 + i % 7};
+            objectContexts[i] = new Object[] {Length.ofSI(i), Duration.ofSI(1 + i % 7)};
+        }
+        double[] results = compiled.evaluateBatchAsDouble(contexts);
+        Object[] objectResults = compiled.evaluateBatch(objectContexts);
+        for (int i = 0; i < n; i++)
+        {
+            assertEquals(i / (1.0 + i % 7), results[i], 1e-10);
+            assertEquals(results[i], ((DoubleScalar<?, ?>) objectResults[i]).si, 1e-10);
+        }
+
+        compiled = eval.compile("(position - 2[m]) > reference", new String[] {"position", "reference"},
+                new Unit<?>[] {PositionUnit.KILOMETER, PositionUnit.METER});
+        assertTrue(compiled.evaluateAsBoolean(new double[] {10, 7}));
+        assertTrue(!compiled.evaluateAsBoolean(new double[] {10, 9}));
+        assertTrue(compiled.evaluateAsBoolean(new Object[] {Position.ofSI(10), Position.ofSI(7)}));
+
+        // shared subexpressions are computed again for every evaluation
+        compiled = eval.compile("(x + y) * (x + y) + sqrt(x * y)", new String[] {"x", "y"},
+                new Unit<?>[] {DimensionlessUnit.SI, DimensionlessUnit.SI});
+        CompiledExpression condition = eval.compile("((x + y) * (x + y)) > (2 * x * y + 10)", new String[] {"x", "y"},
+                new Unit<?>[] {DimensionlessUnit.SI, DimensionlessUnit.SI});
+        for (int i = 0; i < 10; i++)
+        {
+            double x = i;
+            double y = 2 + i % 3;
+            assertEquals((x + y) * (x + y) + Math.sqrt(x * y), compiled.evaluateAsDouble(new double[] {x, y}), 1e-10);
+            assertEquals(x * x + y * y > 10, condition.evaluateAsBoolean(new double[] {x, y}));
+        }
+
+        compiled = eval.compile("x < 3 ? x : 3", new String[] {"x"}, new Unit<?>[] {DimensionlessUnit.SI});
+        assertEquals(2.0, compiled.evaluateAsDouble(new double[] {2}), 0.0);
+        assertEquals(3.0, compiled.evaluateAsDouble(new double[] {5}), 0.0);
+        try
+        {
+            compiled.evaluateAsBoolean(new double[] {2});
+            fail("numeric result should not be returned as a Boolean");
+        }
+        catch (RuntimeException rte)
+        {
+            // Ignore expected exception
+        }
+        try
+        {
+            eval.compile("1 < 2").evaluateAsDouble(new Object[0]);
+            fail("logical result should not be returned as a double");
+        }
+        catch (RuntimeException rte)
+        {
+            // Ignore expected exception
+        }
+        try
+        {
+            compiled.evaluate(new double[0]);
+            fail("double context that is too short should have thrown an IllegalArgumentException");
+        }
+        catch (IllegalArgumentException iae)
+        {
+            // Ignore expected exception
+        }
+    }
+
+    /**
+     * Test evaluation on columns and the inference of the type of the result.
+     */
+    @Test
+    public void testColumns()
+    {
+        Eval eval = new Eval();
+        CompiledExpression compiled = eval.compile("distance / duration", new String[] {"distance", "duration"},
+                new Unit<?>[] {LengthUnit.KILOMETER, DurationUnit.HOUR});
+        double[] result = compiled.evaluateColumns(new double[][] {{100, 200, 300}, {10, 10, 0.5}});
+        assertEquals(10.0, result[0], 1e-10);
+        assertEquals(20.0, result[1], 1e-10);
+        assertEquals(600.0, result[2], 1e-10);
+        assertEquals(Speed.class, compiled.getResultType());
+        assertEquals(SpeedUnit.SI, compiled.getResultUnit());
+
+        assertEquals(Frequency.class, eval.compile("1 / duration", new String[] {"duration"},
+                new Unit<?>[] {DurationUnit.SI}).getResultType(), "first named quantity in alphabetical order");
+        compiled = eval.compile("p + x", new String[] {"x", "p"}, new Unit<?>[] {LengthUnit.SI, PositionUnit.METER});
+        assertEquals(Position.class, compiled.getResultType(), "type of a variable with the same dimensions");
+        assertEquals(Boolean.class, eval.compile("x > 1[m]", new String[] {"x"}, new Unit<?>[] {LengthUnit.SI})
+                .getResultType());
+        assertNull(eval.compile("x > 1[m]", new String[] {"x"}, new Unit<?>[] {LengthUnit.SI}).getResultUnit());
+        assertNull(eval.compile("x + 1").getResultType(), "type is not known at compile time");
+
+        boolean[] logical = new boolean[3];
+        compiled = eval.compile("x > 1[m]", new String[] {"x"}, new Unit<?>[] {LengthUnit.SI});
+        compiled.evaluateColumnsAsBoolean(new double[][] {{0, 1, 2}}, 1, 3, logical);
+        assertTrue(!logical[0] && !logical[1] && logical[2]);
+        double[] constant = new double[2];
+        eval.compile("1 + 2", new String[0], new Unit<?>[0]).evaluateColumns(new double[0][], 0, 2, constant);
+        assertEquals(3.0, constant[1], 0.0, "expression without variables is evaluated for the rows of the result");
+        try
+        {
+            eval.compile("x + y", new String[] {"x", "y"}, new Unit<?>[] {LengthUnit.SI, LengthUnit.SI})
+                    .evaluateColumns(new double[][] {{0, 1}, {0}});
+            fail("columns of different lengths should have thrown an IllegalArgumentException");
+        }
+        catch (IllegalArgumentException iae)
+        {
+            // Ignore expected exception
+        }
+    }
+
+}
@@ -20,6 +20,7 @@ import org.djunits.unit.TimeUnit;
 import org.djunits.unit.si.SIDimensions;
 import org.djunits.value.vdouble.scalar.Dimensionless;
 import org.djunits.value.vdouble.scalar.Duration;
+import org.djunits.value.vdouble.scalar.Length;
 import org.djunits.value.vdouble.scalar.Position;
 import org.djunits.value.vdouble.scalar.Speed;
 import org.djunits.value.vdouble.scalar.base.Constants;
@@ -862,6 +863,18 @@ public class TestEval
         catch (RuntimeException rte)
         {
             assertTrue(rte.getMessage().toLowerCase().contains("cannot compute atan2 of "), "Message describes the problem");
+            assertTrue(rte.getMessage().contains("at position 16"), "Message describes position of problem");
+        }
+
+        try
+        {
+            new Eval().compile("1 + atan2(y, x)", "y", "x").evaluate(new Object[] {Length.ofSI(1), Duration.ofSI(2)});
+            fail("Attempt to use atan2 with parameters of different types should have thrown a RuntimeException");
+        }
+        catch (RuntimeException rte)
+        {
+            assertTrue(rte.getMessage().toLowerCase().contains("cannot compute atan2 of "), "Message describes the problem");
+            assertTrue(rte.getMessage().contains("at position 15"), "Message describes position of problem");
         }
 
         try
@@ -0,0 +1,181 @@
+package org.djutils.eval;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.djunits.unit.LengthUnit;
+import org.djunits.unit.Unit;
+import org.djunits.value.vdouble.scalar.Dimensionless;
+import org.djunits.value.vdouble.scalar.Length;
+import org.djunits.value.vdouble.scalar.base.DoubleScalar;
+import org.djutils.metadata.MetaData;
+import org.djutils.metadata.ObjectDescriptor;
+import org.junit.jupiter.api.Test;
+
+/**
+ * TestEvalEngine.java. Test the thread-safe evaluation service and its cache.
+ * <p>
+ * Copyright (c) 2023-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>.
+ * </p>
+ * @author Peter Knoppers
+ */
+public class TestEvalEngine
+{
+    /**
+     * Test the cache and its counters.
+     */
+    @Test
+    public void testCache()
+    {
+        EvalEngine engine = new EvalEngine(4);
+        assertEquals(4, engine.getMaximumCacheSize());
+        assertEquals(0, engine.getCacheSize());
+        CompiledExpression first = engine.compile("1 + 2");
+        assertEquals(1, engine.getCacheMisses());
+        assertEquals(0, engine.getCacheHits());
+        assertSame(first, engine.compile("1 + 2"), "second compilation is served from the cache");
+        assertEquals(1, engine.getCacheHits());
+        assertEquals(3.0, ((DoubleScalar<?, ?>) engine.evaluate("1 + 2")).si, 0.0);
+        assertEquals(2, engine.getCacheHits());
+
+        // Same text with a different slot layout is a different entry
+        CompiledExpression withNames = engine.compile("a + b", "b", "a");
+        assertEquals(0, withNames.getSlot("b"));
+        assertEquals(withNames, engine.compile("a + b", "b", "a"));
+        assertTrue(engine.compile("a + b") != withNames);
+        assertEquals(3, engine.getCacheSize());
+
+        // Fill the cache; the least recently used entry (a + b with free layout) must be evicted
+        engine.compile("1 + 2"); // touch
+        engine.compile("a + b", "b", "a"); // touch
+        engine.compile("3 * 4");
+        engine.compile("5 * 6");
+        assertEquals(4, engine.getCacheSize());
+        assertEquals(1, engine.getCacheEvictions());
+        long misses = engine.getCacheMisses();
+        engine.compile("1 + 2");
+        assertEquals(misses, engine.getCacheMisses(), "recently used entry was not evicted");
+        engine.compile("a + b");
+        assertEquals(misses + 1, engine.getCacheMisses(), "least recently used entry was evicted");
+        assertTrue(engine.toString().contains("evictions=2"));
+
+        engine.clearCache();
+        assertEquals(0, engine.getCacheSize());
+
+        EvalEngine noCache = new EvalEngine(0);
+        assertTrue(noCache.compile("1") != noCache.compile("1"));
+        assertEquals(0, noCache.getCacheSize());
+        assertEquals(2, noCache.getCacheMisses());
+
+        try
+        {
+            new EvalEngine(-1);
+            fail("negative cache size should have thrown an IllegalArgumentException");
+        }
+        catch (IllegalArgumentException iae)
+        {
+            // Ignore expected exception
+        }
+
+        try
+        {
+            engine.compile("1 +");
+            fail("bad expression should have thrown a RuntimeException");
+        }
+        catch (RuntimeException rte)
+        {
+            assertTrue(rte.getMessage().toLowerCase().contains("missing operand"), "Message describes the problem");
+        }
+    }
+
+    /**
+     * Test user-defined functions, units and the evaluate methods.
+     */
+    @Test
+    public void testEvaluation()
+    {
+        Map<String, Function> functions = new HashMap<>();
+        functions.put("twice", new F1("twice", Length.class,
+                new MetaData("twice", "twice", new ObjectDescriptor("length", "length", Length.class)),
+                (f, a, p) -> ((Length) a).times(2)));
+        EvalEngine engine = new EvalEngine(100, functions, null);
+        functions.clear(); // engine must have made a copy
+        Map<String, Object> values = new HashMap<>();
+        values.put("x", new Length(3, LengthUnit.METER));
+        values.put("b", Boolean.TRUE);
+        assertEquals(6.0, engine.evaluateAsDouble("twice(x)", (name) -> values.get(name)), 1e-10);
+        assertTrue(engine.evaluateAsBoolean("b && twice(x) > x", (name) -> values.get(name)));
+        assertEquals(new Length(6, LengthUnit.METER), engine.evaluate("twice(x)", (name) -> values.get(name)));
+        CompiledExpression compiled =
+                engine.compile("twice(x) + 1[m]", new String[] {"x"}, new Unit<?>[] {LengthUnit.KILOMETER});
+        assertEquals(2001.0, compiled.evaluateAsDouble(new double[] {1000}), 1e-10);
+
+        try
+        {
+            engine.evaluate("x + 1[m]");
+            fail("variable without value should have thrown a RuntimeException");
+        }
+        catch (RuntimeException rte)
+        {
+            assertTrue(rte.getMessage().toLowerCase().contains("cannot resolve variable "), "Message describes the problem");
+        }
+    }
+
+    /**
+     * Share one engine between many threads.
+     * @throws Exception on error
+     */
+    @Test
+    public void testConcurrentUse() throws Exception
+    {
+        EvalEngine engine = new EvalEngine(64);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try
+        {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int task = 0; task < 32; task++)
+            {
+                final int taskNumber = task;
+                futures.add(executor.submit(() ->
+                {
+                    for (int i = 0; i < 500; i++)
+                    {
+                        int k = (i + taskNumber) % 100;
+                        double value = engine.evaluateAsDouble("x * " + k + " + 1",
+                                (name) -> Dimensionless.ofSI(taskNumber));
+                        if (value != taskNumber * k + 1)
+                        {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> future : futures)
+            {
+                assertTrue(future.get(), "all evaluations return the correct value");
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+        assertEquals(32 * 500, engine.getCacheHits() + engine.getCacheMisses());
+        assertTrue(engine.getCacheSize() <= 64);
+        assertTrue(engine.getCacheEvictions() > 0);
+    }
+
+}
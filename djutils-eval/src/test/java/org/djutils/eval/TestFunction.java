@@ -37,7 +37,7 @@ public class TestFunction
      */
     // @formatter:off
     Function f = new F2("id", new MetaData("short", "long", new ObjectDescriptor("bool", "boolean", Boolean.class)), 
-            (x, a, b) -> (int) a > (int) b);
+            (x, a, b, p) -> (int) a > (int) b);
     // @formatter:on
 
 }
@@ -0,0 +1,189 @@
+package org.djutils.eval;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.djunits.unit.DimensionlessUnit;
+import org.djunits.unit.LengthUnit;
+import org.djunits.unit.PositionUnit;
+import org.djunits.unit.Unit;
+import org.djunits.value.vdouble.scalar.Dimensionless;
+import org.djunits.value.vdouble.scalar.Length;
+import org.djunits.value.vdouble.scalar.Position;
+import org.djunits.value.vdouble.scalar.base.DoubleScalar;
+import org.djutils.metadata.MetaData;
+import org.djutils.metadata.ObjectDescriptor;
+import org.junit.jupiter.api.Test;
+
+/**
+ * TestOptimizer.java. Test constant folding, common subexpression elimination and the evaluation of statically typed
+ * expressions on SI values.
+ * <p>
+ * Copyright (c) 2023-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>.
+ * </p>
+ * @author Peter Knoppers
+ */
+public class TestOptimizer
+{
+    /**
+     * Test constant folding.
+     */
+    @Test
+    public void testConstantFolding()
+    {
+        Eval eval = new Eval();
+        CompiledExpression compiled = eval.compile("PI()*2*3[m/s]");
+        assertTrue(compiled.dump().startsWith("Constant "), "whole expression is folded into one constant");
+        assertEquals(1, compiled.dump().split("\n").length);
+        assertEquals(eval.evaluate("PI()*2*3[m/s]"), compiled.evaluate(new Object[0]));
+        assertTrue(compiled.isStaticallyTyped());
+
+        compiled = eval.compile("AVOGADRO() * x");
+        assertTrue(compiled.dump().contains("Constant "), "F0 constant is folded");
+        assertFalse(compiled.dump().contains("AVOGADRO"), "F0 constant is folded");
+
+        compiled = eval.compile("CURRENTTIME() - CURRENTTIME()");
+        assertTrue(compiled.dump().contains("Call CURRENTTIME()"), "CURRENTTIME is not folded");
+        assertFalse(compiled.dump().contains("Shared"), "CURRENTTIME is not shared");
+
+        compiled = eval.compile("1 < 2 ? x : y");
+        assertTrue(compiled.dump().startsWith("Variable x"), "constant condition selects the then part at compile time");
+        assertEquals(2, compiled.getNumberOfSlots(), "slot of the eliminated variable remains");
+
+        // A subtree that cannot be evaluated is not folded; the problem is reported when it is evaluated
+        compiled = eval.compile("TRUE() ? 1 : 1 / 0");
+        assertEquals(1.0, compiled.evaluateAsDouble(new Object[0]), 0.0);
+        compiled = eval.compile("x > 0 ? 1 : 1 / 0");
+        assertTrue(compiled.dump().contains("Binary /"));
+        try
+        {
+            compiled.evaluate(new Object[] {Dimensionless.ofSI(-1)});
+            fail("division by zero should have thrown a RuntimeException");
+        }
+        catch (RuntimeException rte)
+        {
+            assertTrue(rte.getMessage().contains("Division by 0"), "Message describes the problem");
+        }
+
+        // User-defined functions are neither folded nor shared
+        AtomicInteger calls = new AtomicInteger();
+        Map<String, Function> functions = new HashMap<>();
+        functions.put("counter", new F0("counter", Dimensionless.class, new MetaData("counter", "counter", new ObjectDescriptor[0]),
+                (f, p) -> Dimensionless.ofSI(calls.incrementAndGet())));
+        eval.setUserDefinedFunctions(functions);
+        compiled = eval.compile("counter() + counter()");
+        assertEquals(3.0, compiled.evaluateAsDouble(new Object[0]), 0.0);
+        assertEquals(2, calls.get());
+    }
+
+    /**
+     * Test common subexpression elimination.
+     */
+    @Test
+    public void testCommonSubexpressions()
+    {
+        Eval eval = new Eval();
+        String expression = "sqrt(x*x+y*y)/sqrt(x*x+y*y+z*z)";
+        Unit<?>[] units = new Unit<?>[] {DimensionlessUnit.SI, DimensionlessUnit.SI, DimensionlessUnit.SI};
+        CompiledExpression compiled = eval.compile(expression, new String[] {"x", "y", "z"}, units);
+        String dump = compiled.dump();
+        assertTrue(dump.contains("Shared #3"), "x*x+y*y is shared");
+        assertTrue(dump.contains("(see above)"), "second use of x*x+y*y refers to the first");
+        assertFalse(dump.contains("Shared #4"), "x*x and y*y are only used within the shared subexpression");
+        assertTrue(compiled.isStaticallyTyped());
+
+        Map<String, Object> map = new HashMap<>();
+        map.put("x", Dimensionless.ofSI(3));
+        map.put("y", Dimensionless.ofSI(4));
+        map.put("z", Dimensionless.ofSI(12));
+        Object expected = new Eval().setRetrieveValue((name) -> map.get(name)).evaluate(expression);
+        assertEquals(expected, compiled.evaluate((name) -> map.get(name)));
+        assertEquals(5.0 / 13.0, compiled.evaluateAsDouble(new double[] {3, 4, 12}), 1e-12);
+        assertEquals(5.0 / 13.0, compiled.evaluateAsDouble(new Object[] {map.get("x"), map.get("y"), map.get("z")}), 1e-12);
+        double[] batch = compiled.evaluateBatchAsDouble(new double[][] {{3, 4, 12}, {0, 0, 1}, {6, 8, 0}});
+        assertEquals(5.0 / 13.0, batch[0], 1e-12);
+        assertEquals(0.0, batch[1], 0.0);
+        assertEquals(1.0, batch[2], 1e-12);
+
+        // Shared subexpression that is only evaluated in one of the parts of a conditional expression
+        compiled = eval.compile("x > 0 ? (x*x + 1) / (x*x + 1) : 0", new String[] {"x"}, new Unit<?>[] {DimensionlessUnit.SI});
+        assertEquals(1.0, compiled.evaluateAsDouble(new double[] {2}), 0.0);
+        assertEquals(0.0, compiled.evaluateAsDouble(new double[] {-2}), 0.0);
+    }
+
+    /**
+     * Statically typed expressions must yield the same results on SI values as on strongly typed values.
+     */
+    @Test
+    public void testStaticTyping()
+    {
+        Eval eval = new Eval();
+        String[] names = new String[] {"x", "y", "p", "q", "d"};
+        Unit<?>[] units = new Unit<?>[] {LengthUnit.METER, LengthUnit.KILOMETER, PositionUnit.METER, PositionUnit.METER,
+                DimensionlessUnit.SI};
+        double[] siValues = new double[] {3, 4000, 10, 7, 0.5};
+        Object[] context = new Object[] {Length.ofSI(3), Length.ofSI(4000), Position.ofSI(10), Position.ofSI(7),
+                Dimensionless.ofSI(0.5)};
+        for (String expression : new String[] {"x + y", "x - y", "-x", "x * y / 2[m]", "p + x", "p - x", "p - q",
+                "atan2(y, x)", "pow(d, 3)", "d ^ 2", "sin(d) + cos(d) + sqrt(d) + exp(d) + log(d)", "x < y ? x : y",
+                "(p - 2[m]) > q ? p - q : x"})
+        {
+            CompiledExpression compiled = eval.compile(expression, names, units);
+            assertTrue(compiled.isStaticallyTyped(), expression);
+            assertEquals(((DoubleScalar<?, ?>) compiled.evaluate(context)).si, compiled.evaluateAsDouble(siValues), 1e-9,
+                    expression);
+        }
+        for (String expression : new String[] {"x < y", "x >= y && p > q", "!(x <= y) || d > 1", "(x > y) == (p < q)",
+                "(x > y) != (p < q)"})
+        {
+            CompiledExpression compiled = eval.compile(expression, names, units);
+            assertTrue(compiled.isStaticallyTyped(), expression);
+            assertEquals(compiled.evaluate(context), compiled.evaluateAsBoolean(siValues), expression);
+        }
+        for (String expression : new String[] {"x + d", "sqrt(x)", "q - x + p", "x == y"})
+        {
+            assertFalse(eval.compile(expression, names, units).isStaticallyTyped(), expression);
+        }
+        assertFalse(eval.compile("x + y").isStaticallyTyped(), "units of the variables are not known");
+
+        CompiledExpression compiled = eval.compile("x + y", names, units);
+        assertTrue(compiled.dump().contains("Variable y (slot 1)"));
+        try
+        {
+            compiled.evaluateAsBoolean(siValues);
+            fail("numeric result should not be returned as a Boolean");
+        }
+        catch (RuntimeException rte)
+        {
+            // Ignore expected exception
+        }
+        try
+        {
+            eval.compile("x / (y - y)", names, units).evaluateAsDouble(siValues);
+            fail("division by zero should have thrown a RuntimeException");
+        }
+        catch (RuntimeException rte)
+        {
+            assertTrue(rte.getMessage().contains("Division by 0"), "Message describes the problem");
+        }
+        try
+        {
+            compiled.evaluateAsDouble(new double[2]);
+            fail("too few SI values should have thrown an IllegalArgumentException");
+        }
+        catch (IllegalArgumentException iae)
+        {
+            // Ignore expected exception
+        }
+    }
+
+}
@@ -0,0 +1,674 @@
+package org.djutils.serialization.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.RecordComponentElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+import org.djutils.serialization.GenerateSerializer;
+
+/**
+ * Annotation processor that generates a <code>Serializer</code> for every record or class that is annotated with
+ * <code>GenerateSerializer</code>. For a type <code>Name</code> the class <code>NameSerializer</code> is generated in the same
+ * package; for a nested type <code>Outer.Name</code> the names of the enclosing types are included, as in
+ * <code>Outer_NameSerializer</code>, so that nested types with the same simple name get different serializers. The generated
+ * code reads and writes the fields directly with the methods of <code>Endianness</code>, using the wire format of a compound
+ * array with one element, so no reflection and no boxing of the fields take place at runtime. A field that is null results
+ * in a <code>SerializationException</code> that names the field.
+ * <p>
+ * The processor is used by adding djutils-serialization-processor to the annotation processor path of the compiler.
+ * </p>
+ * <p>
+ * Copyright (c) 2016-2025 Delft University of Technology, PO Box 5, 2600 AA, Delft, the Netherlands. All rights reserved. <br>
+ * BSD-style license. See <a href="https://sim0mq.org/docs/current/license.html">OpenTrafficSim License</a>.
+ * </p>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://www.tudelft.nl/staff/p.knoppers/">Peter Knoppers</a>
+ */
+@SupportedAnnotationTypes("org.djutils.serialization.GenerateSerializer")
+public class SerializerProcessor extends AbstractProcessor
+{
+    @Override
+    public SourceVersion getSupportedSourceVersion()
+    {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv)
+    {
+        for (Element element : roundEnv.getElementsAnnotatedWith(GenerateSerializer.class))
+        {
+            try
+            {
+                if (element.getKind() != ElementKind.CLASS && element.getKind() != ElementKind.RECORD)
+                {
+                    throw new IllegalArgumentException("GenerateSerializer can only be used on a class or a record");
+                }
+                generate((TypeElement) element);
+            }
+            catch (IllegalArgumentException exception)
+            {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, exception.getMessage(), element);
+            }
+            catch (IOException exception)
+            {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Could not write serializer: " + exception.getMessage(), element);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Generate the serializer for a type.
+     * @param type the annotated type
+     * @throws IllegalArgumentException when the type or one of its fields is not supported
+     * @throws IOException when the source file cannot be written
+     */
+    private void generate(final TypeElement type) throws IOException
+    {
+        if (type.getModifiers().contains(Modifier.ABSTRACT) || !type.getTypeParameters().isEmpty()
+                || type.getNestingKind().isNested() && !type.getModifiers().contains(Modifier.STATIC)
+                        && type.getKind() != ElementKind.RECORD)
+        {
+            throw new IllegalArgumentException("GenerateSerializer needs a concrete, non-generic top-level or static type");
+        }
+        boolean utf8 = type.getAnnotation(GenerateSerializer.class).utf8();
+        List<Field> fields = type.getKind() == ElementKind.RECORD ? recordFields(type, utf8) : classFields(type, utf8);
+
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String className = serializerName(type);
+        String typeName = type.getQualifiedName().toString();
+        StringBuilder s = new StringBuilder();
+        if (!packageName.isEmpty())
+        {
+            s.append("package ").append(packageName).append(";\n\n");
+        }
+        s.append("import org.djutils.serialization.Endianness;\n");
+        s.append("import org.djutils.serialization.FieldTypes;\n");
+        s.append("import org.djutils.serialization.SerializationException;\n");
+        s.append("import org.djutils.serialization.serializers.ObjectSerializer;\n");
+        s.append("import org.djutils.serialization.serializers.Pointer;\n\n");
+        s.append("/**\n * Serializer for ").append(type.getSimpleName()).append(", generated by SerializerProcessor.\n */\n");
+        s.append("@javax.annotation.processing.Generated(\"").append(getClass().getName()).append("\")\n");
+        s.append("public final class ").append(className).append(" extends ObjectSerializer<").append(typeName).append(">\n{\n");
+        s.append("    /** The instance of the serializer. */\n");
+        s.append("    public static final ").append(className).append(" INSTANCE = new ").append(className).append("();\n\n");
+        s.append("    /** The field types of the fields. */\n");
+        s.append("    private static final byte[] FIELD_TYPES = new byte[] {");
+        for (int i = 0; i < fields.size(); i++)
+        {
+            s.append(i > 0 ? ", " : "").append("FieldTypes.").append(fields.get(i).fieldType);
+        }
+        s.append("};\n\n");
+        s.append("    /** Create the serializer; use INSTANCE. */\n");
+        s.append("    public ").append(className).append("()\n    {\n");
+        s.append("        super(FieldTypes.").append(compoundType(utf8)).append(", \"Compound\");\n    }\n\n");
+
+        // size
+        s.append("    @Override\n");
+        s.append("    public int size(final ").append(typeName).append(" object) throws SerializationException\n    {\n");
+        s.append("        int size = 8 + FIELD_TYPES.length;\n");
+        for (Field field : fields)
+        {
+            s.append("        {\n");
+            s.append("            ").append(field.typeName).append(" v = object.").append(field.accessor).append(";\n");
+            s.append(field.size());
+            s.append("        }\n");
+        }
+        s.append("        return size;\n    }\n\n");
+
+        // serialize
+        s.append("    @Override\n");
+        s.append("    public void serialize(final ").append(typeName).append(" object, final byte[] buffer, final Pointer pointer,\n");
+        s.append("            final Endianness endianness) throws SerializationException\n    {\n");
+        s.append("        endianness.encodeInt(1, buffer, pointer.getAndIncrement(4));\n");
+        s.append("        endianness.encodeInt(FIELD_TYPES.length, buffer, pointer.getAndIncrement(4));\n");
+        s.append("        System.arraycopy(FIELD_TYPES, 0, buffer, pointer.getAndIncrement(FIELD_TYPES.length), FIELD_TYPES.length);\n");
+        for (Field field : fields)
+        {
+            s.append("        {\n");
+            s.append("            ").append(field.typeName).append(" v = object.").append(field.accessor).append(";\n");
+            s.append(field.serialize());
+            s.append("        }\n");
+        }
+        s.append("    }\n\n");
+
+        // deSerialize
+        s.append("    @Override\n");
+        s.append("    public ").append(typeName)
+                .append(" deSerialize(final byte[] buffer, final Pointer pointer, final Endianness endianness)\n");
+        s.append("            throws SerializationException\n    {\n");
+        s.append("        int count = endianness.decodeInt(buffer, pointer.getAndIncrement(4));\n");
+        s.append("        int fieldCount = endianness.decodeInt(buffer, pointer.getAndIncrement(4));\n");
+        s.append("        if (count != 1 || fieldCount != FIELD_TYPES.length)\n        {\n");
+        s.append("            throw new SerializationException(\"Expected 1 object with \" + FIELD_TYPES.length + \" fields, got \"\n");
+        s.append("                    + count + \" objects with \" + fieldCount + \" fields\");\n        }\n");
+        s.append("        for (int i = 0; i < FIELD_TYPES.length; i++)\n        {\n");
+        s.append("            if (buffer[pointer.get() + i] != FIELD_TYPES[i])\n            {\n");
+        s.append("                throw new SerializationException(\"Field \" + i + \" has field type \" + buffer[pointer.get() + i]\n");
+        s.append("                        + \" instead of \" + FIELD_TYPES[i]);\n            }\n        }\n");
+        s.append("        pointer.inc(FIELD_TYPES.length);\n");
+        for (int f = 0; f < fields.size(); f++)
+        {
+            s.append(fields.get(f).deSerialize("f" + f));
+        }
+        s.append("        return new ").append(typeName).append("(");
+        for (int f = 0; f < fields.size(); f++)
+        {
+            s.append(f > 0 ? ", " : "").append("f").append(f);
+        }
+        s.append(");\n    }\n");
+
+        if (fields.stream().anyMatch(field -> field.element == Kind.STRING))
+        {
+            s.append("\n    /**\n     * Decode a String and move the pointer beyond it.\n");
+            s.append("     * @param buffer the buffer\n     * @param pointer the position of the String\n");
+            s.append("     * @param endianness the endianness\n     * @return the String\n");
+            s.append("     * @throws SerializationException when the String cannot be decoded\n     */\n");
+            s.append("    private static String decodeString(final byte[] buffer, final Pointer pointer, final Endianness endianness)\n");
+            s.append("            throws SerializationException\n    {\n");
+            s.append("        String result = endianness.").append(utf8 ? "decodeUTF8String" : "decodeUTF16String")
+                    .append("(buffer, pointer.get());\n");
+            s.append("        pointer.inc(4 + ").append(utf8 ? "" : "2 * ")
+                    .append("endianness.decodeInt(buffer, pointer.get()));\n");
+            s.append("        return result;\n    }\n");
+        }
+        s.append("}\n");
+
+        try (Writer writer = processingEnv.getFiler()
+                .createSourceFile((packageName.isEmpty() ? "" : packageName + ".") + className, type).openWriter())
+        {
+            writer.write(s.toString());
+        }
+    }
+
+    /**
+     * Return the serialized fields of a record.
+     * @param type the record
+     * @param utf8 whether Strings and chars are encoded in UTF-8
+     * @return the fields
+     * @throws IllegalArgumentException when a field type is not supported
+     */
+    private List<Field> recordFields(final TypeElement type, final boolean utf8)
+    {
+        List<Field> fields = new ArrayList<>();
+        for (RecordComponentElement component : type.getRecordComponents())
+        {
+            fields.add(new Field(component.getSimpleName().toString(), component.getAccessor().getSimpleName() + "()",
+                    component.asType(), utf8));
+        }
+        return fields;
+    }
+
+    /**
+     * Return the serialized fields of a class, and check that the class has a suitable constructor.
+     * @param type the class
+     * @param utf8 whether Strings and chars are encoded in UTF-8
+     * @return the fields
+     * @throws IllegalArgumentException when a field cannot be accessed, a field type is not supported, or there is no suitable
+     *             constructor
+     */
+    private List<Field> classFields(final TypeElement type, final boolean utf8)
+    {
+        List<ExecutableElement> methods = ElementFilter.methodsIn(type.getEnclosedElements());
+        List<Field> fields = new ArrayList<>();
+        for (VariableElement variable : ElementFilter.fieldsIn(type.getEnclosedElements()))
+        {
+            if (variable.getModifiers().contains(Modifier.STATIC) || variable.getModifiers().contains(Modifier.TRANSIENT))
+            {
+                continue;
+            }
+            String name = variable.getSimpleName().toString();
+            String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+            String accessor = null;
+            for (ExecutableElement method : methods)
+            {
+                String methodName = method.getSimpleName().toString();
+                if (method.getParameters().isEmpty() && !method.getModifiers().contains(Modifier.PRIVATE)
+                        && !method.getModifiers().contains(Modifier.STATIC)
+                        && processingEnv.getTypeUtils().isSameType(method.getReturnType(), variable.asType())
+                        && (methodName.equals("get" + capitalized) || methodName.equals(name)
+                                || methodName.equals("is" + capitalized) && variable.asType().getKind() == TypeKind.BOOLEAN))
+                {
+                    accessor = methodName + "()";
+                    break;
+                }
+            }
+            if (null == accessor && !variable.getModifiers().contains(Modifier.PRIVATE))
+            {
+                accessor = name;
+            }
+            if (null == accessor)
+            {
+                throw new IllegalArgumentException("Field " + name + " is private and has no getter");
+            }
+            fields.add(new Field(name, accessor, variable.asType(), utf8));
+        }
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements()))
+        {
+            if (constructor.getModifiers().contains(Modifier.PRIVATE) || constructor.getParameters().size() != fields.size())
+            {
+                continue;
+            }
+            boolean match = true;
+            for (int i = 0; i < fields.size(); i++)
+            {
+                match &= processingEnv.getTypeUtils().isSameType(constructor.getParameters().get(i).asType(),
+                        fields.get(i).type);
+            }
+            if (match)
+            {
+                return fields;
+            }
+        }
+        throw new IllegalArgumentException(
+                "Class " + type.getSimpleName() + " has no non-private constructor with the types of its fields as parameters");
+    }
+
+    /**
+     * Return the simple name of the generated serializer for a type: the simple names of the enclosing types and the type,
+     * separated by underscores, followed by <code>Serializer</code>.
+     * @param type the annotated type
+     * @return the simple name of the generated serializer
+     */
+    static String serializerName(final TypeElement type)
+    {
+        StringBuilder name = new StringBuilder(type.getSimpleName()).append("Serializer");
+        for (Element enclosing = type.getEnclosingElement(); enclosing instanceof TypeElement;
+                enclosing = enclosing.getEnclosingElement())
+        {
+            name.insert(0, enclosing.getSimpleName() + "_");
+        }
+        return name.toString();
+    }
+
+    /**
+     * Return the name of the compound field type in FieldTypes.
+     * @param utf8 whether Strings and chars are encoded in UTF-8
+     * @return the name of the compound field type
+     */
+    static String compoundType(final boolean utf8)
+    {
+        return utf8 ? "COMPOUND_ARRAY_UTF8" : "COMPOUND_ARRAY_UTF16";
+    }
+
+    /**
+     * The kinds of elements that the generated code can encode.
+     */
+    enum Kind
+    {
+        /** byte. */
+        BYTE("BYTE_8", "1", "buffer[pointer.getAndIncrement(1)] = %s;", "buffer[pointer.getAndIncrement(1)]"),
+
+        /** short. */
+        SHORT("SHORT_16", "2", "endianness.encodeShort(%s, buffer, pointer.getAndIncrement(2));",
+                "endianness.decodeShort(buffer, pointer.getAndIncrement(2))"),
+
+        /** int. */
+        INT("INT_32", "4", "endianness.encodeInt(%s, buffer, pointer.getAndIncrement(4));",
+                "endianness.decodeInt(buffer, pointer.getAndIncrement(4))"),
+
+        /** long. */
+        LONG("LONG_64", "8", "endianness.encodeLong(%s, buffer, pointer.getAndIncrement(8));",
+                "endianness.decodeLong(buffer, pointer.getAndIncrement(8))"),
+
+        /** float. */
+        FLOAT("FLOAT_32", "4", "endianness.encodeFloat(%s, buffer, pointer.getAndIncrement(4));",
+                "endianness.decodeFloat(buffer, pointer.getAndIncrement(4))"),
+
+        /** double. */
+        DOUBLE("DOUBLE_64", "8", "endianness.encodeDouble(%s, buffer, pointer.getAndIncrement(8));",
+                "endianness.decodeDouble(buffer, pointer.getAndIncrement(8))"),
+
+        /** boolean. */
+        BOOLEAN("BOOLEAN_8", "1", "buffer[pointer.getAndIncrement(1)] = (byte) (%s ? 1 : 0);",
+                "buffer[pointer.getAndIncrement(1)] != 0"),
+
+        /** char, encoded in UTF-8. */
+        CHAR8("CHAR_8", "1", "buffer[pointer.getAndIncrement(1)] = (byte) %s;", "(char) buffer[pointer.getAndIncrement(1)]"),
+
+        /** char, encoded in UTF-16. */
+        CHAR16("CHAR_16", "2", "endianness.encodeChar(%s, buffer, pointer.getAndIncrement(2));",
+                "endianness.decodeChar(buffer, pointer.getAndIncrement(2))"),
+
+        /** String; the size and the encoding depend on UTF-8 or UTF-16. */
+        STRING(null, null, null, "decodeString(buffer, pointer, endianness)"),
+
+        /** Type with a generated serializer. */
+        NESTED(null, null, null, null);
+
+        /** Name of the field type for a scalar in FieldTypes; the array and matrix types append _ARRAY and _MATRIX. */
+        private final String fieldType;
+
+        /** Number of bytes of one element, or null for a variable size. */
+        private final String size;
+
+        /** Statement that encodes a value. */
+        private final String encode;
+
+        /** Expression that decodes a value. */
+        private final String decode;
+
+        /**
+         * @param fieldType name of the field type for a scalar in FieldTypes
+         * @param size number of bytes of one element, or null for a variable size
+         * @param encode statement that encodes a value
+         * @param decode expression that decodes a value
+         */
+        Kind(final String fieldType, final String size, final String encode, final String decode)
+        {
+            this.fieldType = fieldType;
+            this.size = size;
+            this.encode = encode;
+            this.decode = decode;
+        }
+    }
+
+    /**
+     * A serialized field of a record or class.
+     */
+    final class Field
+    {
+        /** Name of the field. */
+        private final String name;
+
+        /** Expression that obtains the value from the object, without the object. */
+        private final String accessor;
+
+        /** Type of the field. */
+        private final TypeMirror type;
+
+        /** Type of the field in source code. */
+        private final String typeName;
+
+        /** Kind of the elements of the field. */
+        private final Kind element;
+
+        /** Number of dimensions: 0 for a scalar, 1 for an array, 2 for a matrix. */
+        private final int dimensions;
+
+        /** Name of the field type in FieldTypes. */
+        private final String fieldType;
+
+        /** Whether Strings and chars are encoded in UTF-8. */
+        private final boolean utf8;
+
+        /** Qualified name of the generated serializer for a nested type; null for other kinds. */
+        private final String nestedSerializer;
+
+        /** Whether the nested type encodes its Strings and chars in UTF-8. */
+        private final boolean utf8Nested;
+
+        /**
+         * Create a field and determine how it is encoded.
+         * @param name name of the field
+         * @param accessor expression that obtains the value from the object
+         * @param type type of the field
+         * @param utf8 whether Strings and chars are encoded in UTF-8
+         * @throws IllegalArgumentException when the type of the field is not supported
+         */
+        Field(final String name, final String accessor, final TypeMirror type, final boolean utf8)
+        {
+            this.name = name;
+            this.accessor = accessor;
+            this.type = type;
+            this.typeName = type.toString();
+            this.utf8 = utf8;
+            TypeMirror elementType = type;
+            int dims = 0;
+            while (elementType.getKind() == TypeKind.ARRAY && dims < 3)
+            {
+                elementType = ((ArrayType) elementType).getComponentType();
+                dims++;
+            }
+            this.dimensions = dims;
+            String nested = null;
+            boolean nestedUtf8 = true;
+            switch (elementType.getKind())
+            {
+                case BYTE:
+                    this.element = Kind.BYTE;
+                    break;
+                case SHORT:
+                    this.element = Kind.SHORT;
+                    break;
+                case INT:
+                    this.element = Kind.INT;
+                    break;
+                case LONG:
+                    this.element = Kind.LONG;
+                    break;
+                case FLOAT:
+                    this.element = Kind.FLOAT;
+                    break;
+                case DOUBLE:
+                    this.element = Kind.DOUBLE;
+                    break;
+                case BOOLEAN:
+                    this.element = Kind.BOOLEAN;
+                    break;
+                case CHAR:
+                    this.element = utf8 ? Kind.CHAR8 : Kind.CHAR16;
+                    break;
+                case DECLARED:
+                    TypeElement declared = (TypeElement) ((DeclaredType) elementType).asElement();
+                    if (declared.getQualifiedName().contentEquals("java.lang.String"))
+                    {
+                        this.element = Kind.STRING;
+                    }
+                    else if (null != declared.getAnnotation(GenerateSerializer.class))
+                    {
+                        this.element = Kind.NESTED;
+                        String packageName =
+                                processingEnv.getElementUtils().getPackageOf(declared).getQualifiedName().toString();
+                        nested = (packageName.isEmpty() ? "" : packageName + ".") + serializerName(declared);
+                        nestedUtf8 = declared.getAnnotation(GenerateSerializer.class).utf8();
+                    }
+                    else
+                    {
+                        this.element = null;
+                    }
+                    break;
+                default:
+                    this.element = null;
+                    break;
+            }
+            this.nestedSerializer = nested;
+            this.utf8Nested = nestedUtf8;
+            boolean supported = null != this.element && (this.dimensions == 0
+                    || this.dimensions == 1 && this.element != Kind.CHAR8 && this.element != Kind.CHAR16
+                            && this.element != Kind.NESTED
+                    || this.dimensions == 2 && null != this.element.size && this.element != Kind.CHAR8
+                            && this.element != Kind.CHAR16);
+            if (!supported)
+            {
+                throw new IllegalArgumentException("Type " + this.typeName + " of field " + name + " is not supported");
+            }
+            String scalarType = this.element == Kind.STRING ? (utf8 ? "STRING_UTF8" : "STRING_UTF16")
+                    : this.element == Kind.NESTED ? compoundType(this.utf8Nested) : this.element.fieldType;
+            this.fieldType = scalarType + (this.dimensions == 1 ? "_ARRAY" : this.dimensions == 2 ? "_MATRIX" : "");
+        }
+
+        /**
+         * Return the statement that encodes one element.
+         * @param value the expression of the element
+         * @return the statement that encodes one element
+         */
+        private String encodeElement(final String value)
+        {
+            if (this.element == Kind.STRING)
+            {
+                return "pointer.inc(endianness." + (this.utf8 ? "encodeUTF8String(" : "encodeUTF16String(") + value
+                        + ", buffer, pointer.get()));";
+            }
+            if (this.element == Kind.NESTED)
+            {
+                return this.nestedSerializer + ".INSTANCE.serialize(" + value + ", buffer, pointer, endianness);";
+            }
+            return String.format(this.element.encode, value);
+        }
+
+        /**
+         * Return the expression with the size of one element.
+         * @param value the expression of the element
+         * @return the expression with the size of one element
+         */
+        private String elementSize(final String value)
+        {
+            if (this.element == Kind.STRING)
+            {
+                return this.utf8 ? "4 + Endianness.utf8Length(" + value + ")" : "4 + 2 * " + value + ".length()";
+            }
+            if (this.element == Kind.NESTED)
+            {
+                return this.nestedSerializer + ".INSTANCE.size(" + value + ")";
+            }
+            return this.element.size;
+        }
+
+        /**
+         * Return the statements that add the size of the field in local variable <code>v</code> to <code>size</code>.
+         * @return the statements that add the size of the field to <code>size</code>
+         */
+        String size()
+        {
+            String indent = "            ";
+            switch (this.dimensions)
+            {
+                case 0:
+                    return nullCheck(indent) + indent + "size += " + elementSize("v") + ";\n";
+                case 1:
+                    if (this.element == Kind.STRING)
+                    {
+                        return nullCheck(indent) + indent + "size += 4;\n" + indent + "for (String s : v)\n" + indent
+                                + "{\n" + throwIf(indent + "    ", "s == null", "Field " + this.name + " contains null")
+                                + indent + "    size += " + elementSize("s") + ";\n" + indent + "}\n";
+                    }
+                    return nullCheck(indent) + indent + "size += 4 + v.length * " + this.element.size + ";\n";
+                default:
+                    return matrixCheck(indent) + indent + "size += 8 + v.length * v[0].length * " + this.element.size
+                            + ";\n";
+            }
+        }
+
+        /**
+         * Return the statements that throw a SerializationException that names the field when the field in local variable
+         * <code>v</code> is null; empty for a field of a primitive type.
+         * @param indent the indentation of the statements
+         * @return the statements that check that the field is not null
+         */
+        private String nullCheck(final String indent)
+        {
+            if (this.dimensions == 0 && this.element != Kind.STRING && this.element != Kind.NESTED)
+            {
+                return "";
+            }
+            return throwIf(indent, "v == null", "Field " + this.name + " is null");
+        }
+
+        /**
+         * Return the statements that throw a SerializationException when the matrix in local variable <code>v</code> is null,
+         * contains a null row, or has size zero.
+         * @param indent the indentation of the statements
+         * @return the statements that check the matrix
+         */
+        private String matrixCheck(final String indent)
+        {
+            return nullCheck(indent) + indent + "for (Object row : v)\n" + indent + "{\n"
+                    + throwIf(indent + "    ", "row == null", "Field " + this.name + " contains null") + indent + "}\n"
+                    + throwIf(indent, "v.length == 0 || v[0].length == 0", "Matrix " + this.name + " has size zero");
+        }
+
+        /**
+         * Return the statements that throw a SerializationException when a condition holds.
+         * @param indent the indentation of the statements
+         * @param condition the condition
+         * @param message the message of the exception
+         * @return the statements that throw a SerializationException when the condition holds
+         */
+        private String throwIf(final String indent, final String condition, final String message)
+        {
+            return indent + "if (" + condition + ")\n" + indent + "{\n" + indent + "    throw new SerializationException(\""
+                    + message + "\");\n" + indent + "}\n";
+        }
+
+        /**
+         * Return the statements that encode the field in local variable <code>v</code>.
+         * @return the statements that encode the field
+         */
+        String serialize()
+        {
+            String indent = "            ";
+            switch (this.dimensions)
+            {
+                case 0:
+                    return nullCheck(indent) + indent + encodeElement("v") + "\n";
+                case 1:
+                    return nullCheck(indent) + indent + "endianness.encodeInt(v.length, buffer, pointer.getAndIncrement(4));\n"
+                            + indent + "for (int i = 0; i < v.length; i++)\n" + indent + "{\n"
+                            + (this.element == Kind.STRING
+                                    ? throwIf(indent + "    ", "v[i] == null", "Field " + this.name + " contains null") : "")
+                            + indent + "    " + encodeElement("v[i]") + "\n" + indent + "}\n";
+                default:
+                    return matrixCheck(indent) + indent + "endianness.encodeInt(v.length, buffer, pointer.getAndIncrement(4));\n" + indent
+                            + "endianness.encodeInt(v[0].length, buffer, pointer.getAndIncrement(4));\n" + indent
+                            + "for (int i = 0; i < v.length; i++)\n" + indent + "{\n"
+                            + throwIf(indent + "    ", "v[i].length != v[0].length", "Matrix " + this.name + " is jagged")
+                            + indent + "    for (int j = 0; j < v[i].length; j++)\n" + indent + "    {\n"
+                            + indent + "        " + encodeElement("v[i][j]") + "\n" + indent + "    }\n" + indent + "}\n";
+            }
+        }
+
+        /**
+         * Return the statements that decode the field into a new local variable.
+         * @param variable the name of the local variable
+         * @return the statements that decode the field
+         */
+        String deSerialize(final String variable)
+        {
+            String indent = "        ";
+            String decode = this.element == Kind.NESTED
+                    ? this.nestedSerializer + ".INSTANCE.deSerialize(buffer, pointer, endianness)" : this.element.decode;
+            String elementTypeName = this.typeName.substring(0, this.typeName.length() - 2 * this.dimensions);
+            switch (this.dimensions)
+            {
+                case 0:
+                    return indent + this.typeName + " " + variable + " = " + decode + ";\n";
+                case 1:
+                    return indent + this.typeName + " " + variable + " = new " + elementTypeName
+                            + "[endianness.decodeInt(buffer, pointer.getAndIncrement(4))];\n" + indent + "for (int i = 0; i < "
+                            + variable + ".length; i++)\n" + indent + "{\n" + indent + "    " + variable + "[i] = " + decode
+                            + ";\n" + indent + "}\n";
+                default:
+                    return indent + this.typeName + " " + variable + " = new " + elementTypeName
+                            + "[endianness.decodeInt(buffer, pointer.getAndIncrement(4))]"
+                            + "[endianness.decodeInt(buffer, pointer.getAndIncrement(4))];\n" + indent + "for (int i = 0; i < "
+                            + variable + ".length; i++)\n" + indent + "{\n" + indent + "    for (int j = 0; j < " + variable
+                            + "[i].length; j++)\n" + indent + "    {\n" + indent + "        " + variable + "[i][j] = "
+                            + decode + ";\n" + indent + "    }\n" + indent + "}\n";
+            }
+        }
+    }
+
+}
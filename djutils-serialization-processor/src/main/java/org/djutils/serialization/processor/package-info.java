@@ -0,0 +1,11 @@
+/**
+ * Annotation processor that generates djutils-serialization {@code Serializer} classes for records and classes that are
+ * annotated with {@code GenerateSerializer}.
+ * <p>
+ * Copyright (c) 2016-2025 Delft University of Technology, PO Box 5, 2600 AA, Delft, the Netherlands. All rights reserved. <br>
+ * BSD-style license. See <a href="https://djutils.org/docs/current/djutils/licenses.html">DJUTILS License</a>.
+ * </p>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://www.tudelft.nl/staff/p.knoppers/">Peter Knoppers</a>
+ */
+package org.djutils.serialization.processor;
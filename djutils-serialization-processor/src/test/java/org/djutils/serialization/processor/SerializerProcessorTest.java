@@ -0,0 +1,357 @@
+package org.djutils.serialization.processor;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.djutils.exceptions.Throw;
+import org.djutils.serialization.Endianness;
+import org.djutils.serialization.FieldTypes;
+import org.djutils.serialization.GenerateSerializer;
+import org.djutils.serialization.SerializableObject;
+import org.djutils.serialization.SerializationException;
+import org.djutils.serialization.TypedMessage;
+import org.djutils.serialization.serializers.Pointer;
+import org.djutils.serialization.serializers.Serializer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * SerializerProcessorTest compiles annotated sources with the SerializerProcessor and tests the generated serializers.
+ * <p>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>.
+ * </p>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ */
+public class SerializerProcessorTest
+{
+    /** Record with scalars and a String. */
+    private static final String POINT = """
+            package test;
+
+            @org.djutils.serialization.GenerateSerializer
+            public record Point(double x, double y, String name)
+            {
+            }
+            """;
+
+    /** Class with all supported kinds of fields. */
+    private static final String SAMPLE = """
+            package test;
+
+            @org.djutils.serialization.GenerateSerializer(utf8 = false)
+            public class Sample
+            {
+                private static int counter = 0;
+                private final int id;
+                private final long[] longs;
+                final boolean flag;
+                private final String[] names;
+                private final double[][] matrix;
+                private final Point point;
+                private final char c;
+                protected byte b;
+                private final String text;
+                private transient int cache = 0;
+
+                public Sample(int id, long[] longs, boolean flag, String[] names, double[][] matrix, Point point, char c, byte b,
+                        String text)
+                {
+                    this.id = id;
+                    this.longs = longs;
+                    this.flag = flag;
+                    this.names = names;
+                    this.matrix = matrix;
+                    this.point = point;
+                    this.c = c;
+                    this.b = b;
+                    this.text = text;
+                }
+
+                public int getId() { return this.id; }
+                public long[] getLongs() { return this.longs; }
+                public String[] names() { return this.names; }
+                public double[][] getMatrix() { return this.matrix; }
+                public Point getPoint() { return this.point; }
+                public char getC() { return this.c; }
+                public String getText() { return this.text; }
+            }
+            """;
+
+    /**
+     * The generated serializers encode and decode the fields, and the result can be decoded without the generated classes.
+     * @param dir temporary directory for sources and classes
+     * @throws Exception when that happens uncaught this test has failed
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testGeneratedSerializers(@TempDir final Path dir) throws Exception
+    {
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        assertTrue(compile(dir, diagnostics, "Point", POINT, "Sample", SAMPLE), diagnostics.getDiagnostics().toString());
+        assertTrue(Files.exists(dir.resolve("generated/test/SampleSerializer.java")));
+        try (URLClassLoader loader = new URLClassLoader(new URL[] {dir.resolve("classes").toUri().toURL()},
+                getClass().getClassLoader()))
+        {
+            Class<?> pointClass = loader.loadClass("test.Point");
+            Object point = pointClass.getConstructors()[0].newInstance(1.5, -2.0, "pé");
+            Serializer<Object> pointSerializer =
+                    (Serializer<Object>) loader.loadClass("test.PointSerializer").getField("INSTANCE").get(null);
+            assertEquals(FieldTypes.COMPOUND_ARRAY_UTF8, pointSerializer.fieldType());
+            Class<?> sampleClass = loader.loadClass("test.Sample");
+            Object sample = sampleClass.getConstructors()[0].newInstance(42, new long[] {1L, -2L, 3L << 40}, true,
+                    new String[] {"a", "bcd", ""}, new double[][] {{1, 2, 3}, {4, 5, 6}}, point, '€', (byte) -7, "text");
+            Serializer<Object> sampleSerializer =
+                    (Serializer<Object>) loader.loadClass("test.SampleSerializer").getField("INSTANCE").get(null);
+            assertEquals(FieldTypes.COMPOUND_ARRAY_UTF16, sampleSerializer.fieldType());
+
+            for (Endianness endianness : new Endianness[] {Endianness.BIG_ENDIAN, Endianness.LITTLE_ENDIAN})
+            {
+                // record round trip
+                byte[] pointBytes = encode(pointSerializer, point, endianness);
+                Pointer pointer = new Pointer();
+                pointer.inc(1);
+                Object decodedPoint = pointSerializer.deSerialize(pointBytes, pointer, endianness);
+                assertEquals(point, decodedPoint);
+                assertNotSame(point, decodedPoint);
+                assertEquals(pointBytes.length, pointer.get());
+
+                // class round trip; the decoded object must encode to the same bytes
+                byte[] sampleBytes = encode(sampleSerializer, sample, endianness);
+                pointer = new Pointer();
+                pointer.inc(1);
+                Object decodedSample = sampleSerializer.deSerialize(sampleBytes, pointer, endianness);
+                assertEquals(sampleBytes.length, pointer.get());
+                assertArrayEquals(sampleBytes, encode(sampleSerializer, decodedSample, endianness));
+                assertEquals(point, sampleClass.getMethod("getPoint").invoke(decodedSample));
+
+                // the generic decoder understands the generated encoding
+                Object[] decoded = TypedMessage.decodeToObjectDataTypes(endianness, sampleBytes);
+                assertEquals(1, decoded.length);
+                List<Object> fields = ((SerializableObject<?>[]) decoded[0])[0].exportAsList();
+                assertEquals(9, fields.size(), "static and transient fields are not serialized");
+                assertEquals(42, fields.get(0));
+                assertArrayEquals(new long[] {1L, -2L, 3L << 40}, (long[]) fields.get(1));
+                assertEquals(true, fields.get(2));
+                assertArrayEquals(new String[] {"a", "bcd", ""}, (String[]) fields.get(3));
+                assertEquals('€', fields.get(6));
+                assertEquals((byte) -7, fields.get(7));
+                assertEquals("text", fields.get(8));
+                List<Object> pointFields = ((SerializableObject<?>[]) fields.get(5))[0].exportAsList();
+                assertEquals(List.of(1.5, -2.0, "pé"), pointFields);
+
+                // a compound with other fields is rejected
+                try
+                {
+                    pointSerializer.deSerialize(TypedMessage.encodeUTF8(endianness, 1, 2, 3), new Pointer(), endianness);
+                    throw new AssertionError("bad structure should have thrown a SerializationException");
+                }
+                catch (SerializationException exception)
+                {
+                    // Ignore expected exception
+                }
+            }
+
+            Object jagged = sampleClass.getConstructors()[0].newInstance(1, new long[0], false, new String[0],
+                    new double[][] {{1, 2}, {3}}, point, 'c', (byte) 0, "");
+            try
+            {
+                encode(sampleSerializer, jagged, Endianness.BIG_ENDIAN);
+                throw new AssertionError("jagged matrix should have thrown a SerializationException");
+            }
+            catch (SerializationException exception)
+            {
+                assertTrue(exception.getMessage().contains("jagged"));
+            }
+
+            // null references result in a SerializationException that names the field
+            Object[][] nulls = new Object[][] {{null, new String[0], new double[][] {{1}}, point, "", "longs"},
+                    {new long[0], new String[] {"a", null}, new double[][] {{1}}, point, "", "names"},
+                    {new long[0], new String[0], new double[][] {{1}, null}, point, "", "matrix"},
+                    {new long[0], new String[0], new double[][] {{1}}, null, "", "point"},
+                    {new long[0], new String[0], new double[][] {{1}}, point, null, "text"}};
+            for (Object[] n : nulls)
+            {
+                Object withNull = sampleClass.getConstructors()[0].newInstance(1, n[0], false, n[1], n[2], n[3], 'c',
+                        (byte) 0, n[4]);
+                try
+                {
+                    encode(sampleSerializer, withNull, Endianness.BIG_ENDIAN);
+                    throw new AssertionError("null field should have thrown a SerializationException");
+                }
+                catch (SerializationException exception)
+                {
+                    assertTrue(exception.getMessage().contains("Field " + n[5]), exception.getMessage());
+                }
+                try
+                {
+                    sampleSerializer.serialize(withNull, new byte[1000], new Pointer(), Endianness.BIG_ENDIAN);
+                    throw new AssertionError("null field should have thrown a SerializationException");
+                }
+                catch (SerializationException exception)
+                {
+                    assertTrue(exception.getMessage().contains("Field " + n[5]), exception.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Nested types with the same simple name get serializers with different names.
+     * @param dir temporary directory for sources and classes
+     * @throws Exception when that happens uncaught this test has failed
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testNestedTypes(@TempDir final Path dir) throws Exception
+    {
+        String a = """
+                package test;
+
+                public class A
+                {
+                    @org.djutils.serialization.GenerateSerializer
+                    public record Point(double x, double y)
+                    {
+                    }
+                }
+                """;
+        String b = """
+                package test;
+
+                public class B
+                {
+                    @org.djutils.serialization.GenerateSerializer
+                    public record Point(int x, A.Point other)
+                    {
+                    }
+                }
+                """;
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        assertTrue(compile(dir, diagnostics, "A", a, "B", b), diagnostics.getDiagnostics().toString());
+        assertTrue(Files.exists(dir.resolve("generated/test/A_PointSerializer.java")));
+        assertTrue(Files.exists(dir.resolve("generated/test/B_PointSerializer.java")));
+        try (URLClassLoader loader = new URLClassLoader(new URL[] {dir.resolve("classes").toUri().toURL()},
+                getClass().getClassLoader()))
+        {
+            Object aPoint = loader.loadClass("test.A$Point").getConstructors()[0].newInstance(1.5, -2.0);
+            Object bPoint = loader.loadClass("test.B$Point").getConstructors()[0].newInstance(3, aPoint);
+            Serializer<Object> serializer =
+                    (Serializer<Object>) loader.loadClass("test.B_PointSerializer").getField("INSTANCE").get(null);
+            byte[] bytes = encode(serializer, bPoint, Endianness.LITTLE_ENDIAN);
+            Pointer pointer = new Pointer();
+            pointer.inc(1);
+            assertEquals(bPoint, serializer.deSerialize(bytes, pointer, Endianness.LITTLE_ENDIAN));
+        }
+    }
+
+    /**
+     * Unsupported types result in a compilation error.
+     * @param dir temporary directory for sources and classes
+     * @throws IOException when that happens uncaught this test has failed
+     * @throws URISyntaxException when that happens uncaught this test has failed
+     */
+    @Test
+    public void testErrors(@TempDir final Path dir) throws IOException, URISyntaxException
+    {
+        String[][] cases = new String[][] {
+                {"public record Bad(java.util.List<String> list) {}", "is not supported"},
+                {"public record Bad(char[] chars) {}", "is not supported"},
+                {"public class Bad { private final int x; public Bad() { this.x = 0; } public int getX() { return x; } }",
+                        "constructor"},
+                {"public class Bad { private final int x; public Bad(int x) { this.x = x; } }", "no getter"},
+                {"public abstract class Bad { }", "concrete"}, {"public interface Bad { }", "class or a record"}};
+        for (int i = 0; i < cases.length; i++)
+        {
+            DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+            Path caseDir = dir.resolve("case" + i);
+            assertFalse(compile(caseDir, diagnostics, "Bad",
+                    "package test;\n@org.djutils.serialization.GenerateSerializer\n" + cases[i][0] + "\n"), cases[i][0]);
+            String messages = diagnostics.getDiagnostics().stream().filter(d -> d.getKind() == Diagnostic.Kind.ERROR)
+                    .map(d -> d.getMessage(null)).collect(Collectors.joining("; "));
+            assertTrue(messages.contains(cases[i][1]), messages);
+        }
+    }
+
+    /**
+     * Encode an object with its prefix.
+     * @param serializer the serializer
+     * @param object the object
+     * @param endianness the endianness
+     * @return the encoded object
+     * @throws SerializationException when the object cannot be encoded
+     */
+    private static byte[] encode(final Serializer<Object> serializer, final Object object, final Endianness endianness)
+            throws SerializationException
+    {
+        byte[] buffer = new byte[serializer.sizeWithPrefix(object)];
+        Pointer pointer = new Pointer();
+        serializer.serializeWithPrefix(object, buffer, pointer, endianness);
+        assertEquals(buffer.length, pointer.get(), "size matches the number of bytes written");
+        return buffer;
+    }
+
+    /**
+     * Compile sources with the SerializerProcessor.
+     * @param dir directory for the sources, generated sources and classes
+     * @param diagnostics collector for the diagnostics of the compiler
+     * @param namesAndSources alternating class names and source code, all in package test
+     * @return whether the compilation succeeded
+     * @throws IOException when the sources cannot be written
+     * @throws URISyntaxException when the class path cannot be determined
+     */
+    private static boolean compile(final Path dir, final DiagnosticCollector<JavaFileObject> diagnostics,
+            final String... namesAndSources) throws IOException, URISyntaxException
+    {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        List<File> files = new ArrayList<>();
+        Files.createDirectories(dir.resolve("src/test"));
+        Files.createDirectories(dir.resolve("generated"));
+        Files.createDirectories(dir.resolve("classes"));
+        for (int i = 0; i < namesAndSources.length; i += 2)
+        {
+            Path file = dir.resolve("src/test/" + namesAndSources[i] + ".java");
+            Files.writeString(file, namesAndSources[i + 1], StandardCharsets.UTF_8);
+            files.add(file.toFile());
+        }
+        StringBuilder classPath = new StringBuilder(System.getProperty("java.class.path"));
+        for (Class<?> clazz : new Class<?>[] {GenerateSerializer.class, SerializerProcessor.class, Throw.class})
+        {
+            classPath.append(File.pathSeparator)
+                    .append(Path.of(clazz.getProtectionDomain().getCodeSource().getLocation().toURI()));
+        }
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8))
+        {
+            List<String> options = List.of("-classpath", classPath.toString(), "-processor",
+                    SerializerProcessor.class.getName(), "-d", dir.resolve("classes").toString(), "-s",
+                    dir.resolve("generated").toString(), "-Xlint:all");
+            return compiler.getTask(null, fileManager, diagnostics, options, null, fileManager.getJavaFileObjectsFromFiles(files))
+                    .call();
+        }
+    }
+
+}
@@ -0,0 +1,935 @@
+package org.djutils.serialization;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.djunits.unit.Unit;
+import org.djutils.exceptions.Throw;
+import org.djutils.serialization.serializers.Serializer;
+
+/**
+ * Decoder for inspection of large logs of serialized messages. Where the SerialDataDecoder processes one byte at a time, the
+ * BulkSerialDataDecoder walks whole messages field by field over a memory-mapped file, and streams the formatted output to a
+ * Writer. The output has one line per message, followed by one line per field with the address, the type and the value(s) of
+ * the field. The fields that are printed can be limited to a set of field types; messages without printed fields are skipped
+ * entirely. Optionally, the log is partitioned at message boundaries into segments that are formatted in parallel; the
+ * output is still written in the order of the log.
+ * <p>
+ * A log is a sequence of messages, each preceded by its length in bytes, encoded as a 32-bit int with the endianness of the
+ * decoder. Messages with a field that cannot be decoded are reported with an error line; the next message is decoded
+ * normally. A bad message length ends the dump with an error line, because the next message can not be found.
+ * </p>
+ * <p>
+ * Copyright (c) 2013-2025 Delft University of Technology, PO Box 5, 2600 AA, Delft, the Netherlands. All rights reserved. <br>
+ * BSD-style license. See <a href="https://djutils.org/docs/current/djutils/licenses.html">DJUTILS License</a>.
+ * </p>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://www.tudelft.nl/staff/p.knoppers/">Peter Knoppers</a>
+ */
+public class BulkSerialDataDecoder
+{
+    /** Names of the field types, as returned by the dataClassName method of their serializers. */
+    private static final String[] NAMES = new String[256];
+
+    static
+    {
+        for (Serializer<?> serializer : TypedObject.PRIMITIVE_DATA_DECODERS.values())
+        {
+            NAMES[serializer.fieldType() & 0xFF] = serializer.dataClassName();
+        }
+        NAMES[FieldTypes.STRING_DICT] = "String_dict";
+        NAMES[FieldTypes.STRING_DICT_ARRAY] = "String_dict_array";
+    }
+
+    /** Hexadecimal digits. */
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /** The endianness of the lengths and the messages. */
+    private final Endianness endianness;
+
+    /** Which field types are printed, indexed by the unsigned field type. */
+    private final boolean[] printed = new boolean[256];
+
+    /** Whether all field types are printed. */
+    private boolean printAll = true;
+
+    /** Number of threads that format the messages. */
+    private int parallelism = 1;
+
+    /** Approximate number of bytes of the log in one segment that is formatted by one task. */
+    private int segmentSize = 1 << 22;
+
+    /** Maximum number of bytes of the file that are mapped at the same time. */
+    private long windowSize = 1L << 30;
+
+    /**
+     * Construct a new BulkSerialDataDecoder that prints all fields, using one thread.
+     * @param endianness the endianness of the message lengths and of the messages
+     */
+    public BulkSerialDataDecoder(final Endianness endianness)
+    {
+        Throw.whenNull(endianness, "endianness may not be null");
+        this.endianness = endianness;
+        Arrays.fill(this.printed, true);
+    }
+
+    /**
+     * Limit the fields that are printed to the given field types. Without field types, all fields are printed.
+     * @param fieldTypes the field types to print (see FieldTypes)
+     * @return this decoder for method chaining
+     */
+    public BulkSerialDataDecoder setFieldTypes(final byte... fieldTypes)
+    {
+        Throw.whenNull(fieldTypes, "fieldTypes may not be null");
+        this.printAll = fieldTypes.length == 0;
+        Arrays.fill(this.printed, this.printAll);
+        for (byte fieldType : fieldTypes)
+        {
+            this.printed[fieldType & 0xFF] = true;
+        }
+        return this;
+    }
+
+    /**
+     * Set the number of threads that format the messages. With one thread, all work is done in the calling thread.
+     * @param parallelism the number of threads
+     * @return this decoder for method chaining
+     * @throws IllegalArgumentException when parallelism &lt; 1
+     */
+    public BulkSerialDataDecoder setParallelism(final int parallelism)
+    {
+        Throw.when(parallelism < 1, IllegalArgumentException.class, "parallelism must be at least 1");
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Set the approximate number of bytes of the log that is formatted by one task, and written to the Writer at once.
+     * @param segmentSize the number of bytes of the log per segment
+     * @return this decoder for method chaining
+     * @throws IllegalArgumentException when segmentSize &lt; 1
+     */
+    public BulkSerialDataDecoder setSegmentSize(final int segmentSize)
+    {
+        Throw.when(segmentSize < 1, IllegalArgumentException.class, "segmentSize must be at least 1");
+        this.segmentSize = segmentSize;
+        return this;
+    }
+
+    /**
+     * Set the maximum number of bytes of the file that are mapped at the same time; for testing.
+     * @param windowSize the maximum number of mapped bytes
+     */
+    void setWindowSize(final long windowSize)
+    {
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Dump a log of messages to a Writer. The Writer is flushed, but not closed.
+     * @param log the file with the log
+     * @param writer the Writer for the output
+     * @return the number of messages in the log
+     * @throws IOException when the log cannot be read or the output cannot be written
+     */
+    public long dump(final Path log, final Writer writer) throws IOException
+    {
+        Throw.whenNull(log, "log may not be null");
+        Throw.whenNull(writer, "writer may not be null");
+        ExecutorService executor = this.parallelism > 1 ? Executors.newFixedThreadPool(this.parallelism) : null;
+        Deque<Future<String>> pending = new ArrayDeque<>();
+        byte[] lengthBytes = new byte[4];
+        long messageNumber = 0;
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.READ))
+        {
+            long fileSize = channel.size();
+            ByteBuffer window = null;
+            long windowStart = 0;
+            long windowEnd = 0;
+            long segmentStart = 0;
+            long segmentNumber = 0;
+            long position = 0;
+            String error = null;
+            while (position < fileSize)
+            {
+                if (fileSize - position < 4)
+                {
+                    error = "Error: truncated message length at address " + hex(position);
+                    break;
+                }
+                if (null == window || position + 4 > windowEnd)
+                {
+                    output(executor, pending, writer, window, windowStart, segmentStart, position, segmentNumber);
+                    windowStart = position;
+                    windowEnd = position + Math.min(this.windowSize, fileSize - position);
+                    window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowEnd - windowStart);
+                    segmentStart = position;
+                    segmentNumber = messageNumber;
+                }
+                window.get((int) (position - windowStart), lengthBytes);
+                int length = this.endianness.decodeInt(lengthBytes, 0);
+                if (length < 0 || position + 4 + length > fileSize)
+                {
+                    error = "Error: bad message length " + length + " at address " + hex(position);
+                    break;
+                }
+                if (position + 4 + length > windowEnd)
+                {
+                    if (4L + length > this.windowSize)
+                    {
+                        error = "Error: message of " + length + " bytes at address " + hex(position) + " is too large";
+                        break;
+                    }
+                    output(executor, pending, writer, window, windowStart, segmentStart, position, segmentNumber);
+                    windowStart = position;
+                    windowEnd = position + Math.min(this.windowSize, fileSize - position);
+                    window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowEnd - windowStart);
+                    segmentStart = position;
+                    segmentNumber = messageNumber;
+                }
+                position += 4 + length;
+                messageNumber++;
+                if (position - segmentStart >= this.segmentSize)
+                {
+                    output(executor, pending, writer, window, windowStart, segmentStart, position, segmentNumber);
+                    segmentStart = position;
+                    segmentNumber = messageNumber;
+                }
+            }
+            output(executor, pending, writer, window, windowStart, segmentStart, position, segmentNumber);
+            while (!pending.isEmpty())
+            {
+                writer.write(result(pending.poll()));
+            }
+            if (null != error)
+            {
+                writer.write(error);
+                writer.write('\n');
+            }
+            writer.flush();
+        }
+        finally
+        {
+            if (null != executor)
+            {
+                executor.shutdownNow();
+            }
+        }
+        return messageNumber;
+    }
+
+    /**
+     * Format a segment of messages, or schedule it for formatting, and write the segments that are ready.
+     * @param executor the executor for parallel formatting; null to format in the calling thread
+     * @param pending the segments that are scheduled for formatting, in the order of the log
+     * @param writer the Writer for the output
+     * @param window the mapped part of the file; may be null when the segment is empty
+     * @param windowStart address of the first byte of the window
+     * @param start address of the first message of the segment
+     * @param end address just beyond the last message of the segment
+     * @param firstMessage number of the first message of the segment
+     * @throws IOException when the output cannot be written
+     */
+    @SuppressWarnings("checkstyle:parameternumber")
+    private void output(final ExecutorService executor, final Deque<Future<String>> pending, final Writer writer,
+            final ByteBuffer window, final long windowStart, final long start, final long end, final long firstMessage)
+            throws IOException
+    {
+        if (end <= start)
+        {
+            return;
+        }
+        if (null == executor)
+        {
+            writer.write(formatSegment(window, windowStart, start, end, firstMessage));
+            return;
+        }
+        pending.add(executor.submit(() -> formatSegment(window, windowStart, start, end, firstMessage)));
+        while (pending.size() > 2 * this.parallelism || !pending.isEmpty() && pending.peek().isDone())
+        {
+            writer.write(result(pending.poll()));
+        }
+    }
+
+    /**
+     * Wait for the result of a formatting task.
+     * @param future the task
+     * @return the formatted segment
+     * @throws IOException when formatting failed or the thread was interrupted
+     */
+    private static String result(final Future<String> future) throws IOException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while formatting the log");
+        }
+        catch (ExecutionException exception)
+        {
+            throw new IOException("formatting the log failed", exception.getCause());
+        }
+    }
+
+    /**
+     * Format the messages of a segment. Only absolute get methods of the window are used, so segments of the same window can be
+     * formatted concurrently.
+     * @param window the mapped part of the file
+     * @param windowStart address of the first byte of the window
+     * @param start address of the first message of the segment
+     * @param end address just beyond the last message of the segment
+     * @param firstMessage number of the first message of the segment
+     * @return the formatted messages
+     */
+    private String formatSegment(final ByteBuffer window, final long windowStart, final long start, final long end,
+            final long firstMessage)
+    {
+        Formatter formatter = new Formatter((int) Math.min(1 << 24, 4 * (end - start)));
+        byte[] message = new byte[64];
+        long messageNumber = firstMessage;
+        int offset = (int) (start - windowStart);
+        int endOffset = (int) (end - windowStart);
+        while (offset < endOffset)
+        {
+            window.get(offset, message, 0, 4);
+            int length = this.endianness.decodeInt(message, 0);
+            if (message.length < length)
+            {
+                message = new byte[Math.max(length, 2 * message.length)];
+            }
+            window.get(offset + 4, message, 0, length);
+            formatter.formatMessage(messageNumber++, windowStart + offset + 4, message, length);
+            offset += 4 + length;
+        }
+        return formatter.out.toString();
+    }
+
+    /**
+     * Dump one message (without a length prefix) to a String, using the field type filter of this decoder.
+     * @param message the message
+     * @return the formatted message
+     */
+    public String dumpMessage(final byte[] message)
+    {
+        Throw.whenNull(message, "message may not be null");
+        Formatter formatter = new Formatter(4 * message.length);
+        formatter.formatMessage(0, 0, message, message.length);
+        return formatter.out.toString();
+    }
+
+    /**
+     * Formatter of the messages of one segment. The methods return the position just beyond the part of the message that they
+     * processed. Positions beyond the end of the message are detected after each field, so values are only printed when they
+     * fit in the message.
+     */
+    private final class Formatter
+    {
+        /** The output. */
+        private final StringBuilder out;
+
+        /** The message that is formatted; may be longer than the message. */
+        private byte[] m;
+
+        /** The length of the message. */
+        private int limit;
+
+        /**
+         * Create a formatter.
+         * @param capacity initial capacity of the output
+         */
+        Formatter(final int capacity)
+        {
+            this.out = new StringBuilder(capacity);
+        }
+
+        /**
+         * Format a message and its fields.
+         * @param messageNumber the number of the message in the log
+         * @param address address of the first byte of the message
+         * @param message buffer with the message
+         * @param length the length of the message
+         */
+        void formatMessage(final long messageNumber, final long address, final byte[] message, final int length)
+        {
+            this.m = message;
+            this.limit = length;
+            int mark = this.out.length();
+            this.out.append("Message ").append(messageNumber).append(" at ");
+            appendHex(this.out, address);
+            this.out.append(", length ").append(length).append('\n');
+            int fieldsStart = this.out.length();
+            int pointer = 0;
+            try
+            {
+                while (pointer < length)
+                {
+                    byte fieldType = message[pointer];
+                    if (null == NAMES[fieldType & 0xFF])
+                    {
+                        throw new SerializationException("unknown field type " + fieldType);
+                    }
+                    boolean print = BulkSerialDataDecoder.this.printed[fieldType & 0xFF];
+                    int fieldStart = this.out.length();
+                    if (print)
+                    {
+                        this.out.append("  ");
+                        appendHex(this.out, address + pointer);
+                        this.out.append(' ').append(NAMES[fieldType & 0xFF]).append(": ");
+                    }
+                    int next = formatBody(fieldType, pointer + 1, print);
+                    if (next > length)
+                    {
+                        this.out.setLength(fieldStart);
+                        throw new SerializationException("field extends beyond the end of the message");
+                    }
+                    pointer = next;
+                    if (print)
+                    {
+                        this.out.append('\n');
+                    }
+                }
+            }
+            catch (SerializationException | RuntimeException exception)
+            {
+                this.out.append("  Error at ");
+                appendHex(this.out, address + pointer);
+                this.out.append(": ")
+                        .append(null == exception.getMessage() ? exception.getClass().getSimpleName() : exception.getMessage())
+                        .append('\n');
+                return;
+            }
+            if (!BulkSerialDataDecoder.this.printAll && this.out.length() == fieldsStart)
+            {
+                this.out.setLength(mark);
+            }
+        }
+
+        /**
+         * Format the value(s) of a field, without the field type byte.
+         * @param fieldType the field type
+         * @param p the position of the first byte after the field type
+         * @param print whether to print the value(s) or only to skip them
+         * @return the position just beyond the field
+         * @throws SerializationException when the field type is not known or the field is corrupt
+         */
+        private int formatBody(final byte fieldType, final int p, final boolean print) throws SerializationException
+        {
+            switch (fieldType)
+            {
+                case FieldTypes.BYTE_8:
+                case FieldTypes.SHORT_16:
+                case FieldTypes.INT_32:
+                case FieldTypes.LONG_64:
+                case FieldTypes.FLOAT_32:
+                case FieldTypes.DOUBLE_64:
+                case FieldTypes.BOOLEAN_8:
+                    return print && p + primitiveSize(fieldType) <= this.limit ? appendPrimitive(fieldType, p)
+                            : p + primitiveSize(fieldType);
+                case FieldTypes.CHAR_8:
+                    if (print && p < this.limit)
+                    {
+                        appendChar((char) this.m[p]);
+                    }
+                    return p + 1;
+                case FieldTypes.CHAR_16:
+                    if (print && p + 2 <= this.limit)
+                    {
+                        appendChar(BulkSerialDataDecoder.this.endianness.decodeChar(this.m, p));
+                    }
+                    return p + 2;
+                case FieldTypes.STRING_UTF8:
+                case FieldTypes.STRING_UTF16:
+                    return formatString(fieldType == FieldTypes.STRING_UTF8, p, print);
+                case FieldTypes.BYTE_8_ARRAY:
+                case FieldTypes.SHORT_16_ARRAY:
+                case FieldTypes.INT_32_ARRAY:
+                case FieldTypes.LONG_64_ARRAY:
+                case FieldTypes.FLOAT_32_ARRAY:
+                case FieldTypes.DOUBLE_64_ARRAY:
+                case FieldTypes.BOOLEAN_8_ARRAY:
+                    return formatPrimitives((byte) (fieldType - FieldTypes.BYTE_8_ARRAY), p + 4, false, 1, count(p), print);
+                case FieldTypes.BYTE_8_MATRIX:
+                case FieldTypes.SHORT_16_MATRIX:
+                case FieldTypes.INT_32_MATRIX:
+                case FieldTypes.LONG_64_MATRIX:
+                case FieldTypes.FLOAT_32_MATRIX:
+                case FieldTypes.DOUBLE_64_MATRIX:
+                case FieldTypes.BOOLEAN_8_MATRIX:
+                    return formatPrimitives((byte) (fieldType - FieldTypes.BYTE_8_MATRIX), p + 8, true, count(p),
+                            count(p + 4), print);
+                case FieldTypes.FLOAT_32_UNIT:
+                case FieldTypes.DOUBLE_64_UNIT:
+                    return formatUnitValues(fieldType == FieldTypes.FLOAT_32_UNIT, p, 0, 1, 1, print);
+                case FieldTypes.FLOAT_32_UNIT_ARRAY:
+                case FieldTypes.DOUBLE_64_UNIT_ARRAY:
+                    return formatUnitValues(fieldType == FieldTypes.FLOAT_32_UNIT_ARRAY, p + 4, 1, 1, count(p), print);
+                case FieldTypes.FLOAT_32_UNIT_MATRIX:
+                case FieldTypes.DOUBLE_64_UNIT_MATRIX:
+                    return formatUnitValues(fieldType == FieldTypes.FLOAT_32_UNIT_MATRIX, p + 8, 2, count(p), count(p + 4),
+                            print);
+                case FieldTypes.FLOAT_32_UNIT_COLUMN_MATRIX:
+                case FieldTypes.DOUBLE_64_UNIT_COLUMN_MATRIX:
+                    return formatColumnMatrix(fieldType == FieldTypes.FLOAT_32_UNIT_COLUMN_MATRIX, p, print);
+                case FieldTypes.STRING_UTF8_ARRAY:
+                case FieldTypes.STRING_UTF16_ARRAY:
+                    return formatStrings(fieldType == FieldTypes.STRING_UTF8_ARRAY, p + 4, false, 1, count(p), print);
+                case FieldTypes.STRING_UTF8_MATRIX:
+                case FieldTypes.STRING_UTF16_MATRIX:
+                    return formatStrings(fieldType == FieldTypes.STRING_UTF8_MATRIX, p + 8, true, count(p), count(p + 4),
+                            print);
+                case FieldTypes.STRING_DICT:
+                    return formatDictString(p, print);
+                case FieldTypes.STRING_DICT_ARRAY:
+                {
+                    int n = count(p);
+                    if (print)
+                    {
+                        this.out.append("length ").append(n).append(": ");
+                    }
+                    int q = p + 4;
+                    for (int i = 0; i < n && q < this.limit; i++)
+                    {
+                        q = formatDictString(q, print);
+                        if (print)
+                        {
+                            this.out.append(' ');
+                        }
+                    }
+                    return q;
+                }
+                case FieldTypes.COMPOUND_ARRAY_UTF16:
+                case FieldTypes.COMPOUND_ARRAY_UTF8:
+                    return formatCompound(p, print);
+                default:
+                    throw new SerializationException("unknown field type " + fieldType);
+            }
+        }
+
+        /**
+         * Append a primitive value.
+         * @param fieldType the field type of the primitive value (BYTE_8 to BOOLEAN_8)
+         * @param p the position of the value
+         * @return the position just beyond the value
+         */
+        private int appendPrimitive(final byte fieldType, final int p)
+        {
+            Endianness e = BulkSerialDataDecoder.this.endianness;
+            switch (fieldType)
+            {
+                case FieldTypes.BYTE_8:
+                    this.out.append(this.m[p]);
+                    return p + 1;
+                case FieldTypes.SHORT_16:
+                    this.out.append(e.decodeShort(this.m, p));
+                    return p + 2;
+                case FieldTypes.INT_32:
+                    this.out.append(e.decodeInt(this.m, p));
+                    return p + 4;
+                case FieldTypes.LONG_64:
+                    this.out.append(e.decodeLong(this.m, p));
+                    return p + 8;
+                case FieldTypes.FLOAT_32:
+                    this.out.append(e.decodeFloat(this.m, p));
+                    return p + 4;
+                case FieldTypes.DOUBLE_64:
+                    this.out.append(e.decodeDouble(this.m, p));
+                    return p + 8;
+                default:
+                    this.out.append(this.m[p] != 0);
+                    return p + 1;
+            }
+        }
+
+        /**
+         * Decode a number of rows, columns or elements.
+         * @param p the position of the number
+         * @return the number
+         * @throws SerializationException when the number is negative or beyond the end of the message
+         */
+        private int count(final int p) throws SerializationException
+        {
+            if (p + 4 > this.limit)
+            {
+                throw new SerializationException("size beyond the end of the message");
+            }
+            int count = BulkSerialDataDecoder.this.endianness.decodeInt(this.m, p);
+            if (count < 0)
+            {
+                throw new SerializationException("negative size " + count);
+            }
+            return count;
+        }
+
+        /**
+         * Append the size of an array or matrix.
+         * @param matrix whether the value is a matrix
+         * @param rows the number of rows
+         * @param cols the number of columns, or the length of an array
+         */
+        private void appendSize(final boolean matrix, final int rows, final int cols)
+        {
+            if (matrix)
+            {
+                this.out.append("height ").append(rows).append(", width ").append(cols).append(": ");
+            }
+            else
+            {
+                this.out.append("length ").append(cols).append(": ");
+            }
+        }
+
+        /**
+         * Format an array or matrix of primitive values.
+         * @param elementType the field type of the elements (BYTE_8 to BOOLEAN_8)
+         * @param p the position of the first element
+         * @param matrix whether the values are a matrix
+         * @param rows the number of rows (1 for an array)
+         * @param cols the number of columns
+         * @param print whether to print or only to skip the values
+         * @return the position just beyond the last element
+         */
+        private int formatPrimitives(final byte elementType, final int p, final boolean matrix, final int rows,
+                final int cols, final boolean print)
+        {
+            long end = p + (long) rows * cols * primitiveSize(elementType);
+            if (!print || end > this.limit)
+            {
+                return (int) Math.min(Integer.MAX_VALUE, end);
+            }
+            appendSize(matrix, rows, cols);
+            int q = p;
+            while (q < end)
+            {
+                q = appendPrimitive(elementType, q);
+                this.out.append(' ');
+            }
+            return q;
+        }
+
+        /**
+         * Append a character, replacing control characters by a dot.
+         * @param c the character
+         */
+        private void appendChar(final char c)
+        {
+            this.out.append(Character.isISOControl(c) ? '.' : c);
+        }
+
+        /**
+         * Format a String.
+         * @param utf8 whether the String is encoded in UTF-8 or in UTF-16
+         * @param p the position of the length of the String
+         * @param print whether to print or only to skip the String
+         * @return the position just beyond the String
+         * @throws SerializationException when the length is negative or beyond the end of the message
+         */
+        private int formatString(final boolean utf8, final int p, final boolean print) throws SerializationException
+        {
+            int length = count(p);
+            long end = p + 4 + (utf8 ? length : 2L * length);
+            if (print && end <= this.limit)
+            {
+                this.out.append('"');
+                if (utf8)
+                {
+                    String string = new String(this.m, p + 4, length, StandardCharsets.UTF_8);
+                    for (int i = 0; i < string.length(); i++)
+                    {
+                        appendChar(string.charAt(i));
+                    }
+                }
+                else
+                {
+                    for (int i = 0; i < length; i++)
+                    {
+                        appendChar(BulkSerialDataDecoder.this.endianness.decodeChar(this.m, p + 4 + 2 * i));
+                    }
+                }
+                this.out.append('"');
+            }
+            return (int) Math.min(Integer.MAX_VALUE, end);
+        }
+
+        /**
+         * Format an array or matrix of Strings.
+         * @param utf8 whether the Strings are encoded in UTF-8 or in UTF-16
+         * @param p the position of the first String
+         * @param matrix whether the Strings are a matrix
+         * @param rows the number of rows (1 for an array)
+         * @param cols the number of columns
+         * @param print whether to print or only to skip the Strings
+         * @return the position just beyond the last String
+         * @throws SerializationException when a length is negative or beyond the end of the message
+         */
+        private int formatStrings(final boolean utf8, final int p, final boolean matrix, final int rows, final int cols,
+                final boolean print) throws SerializationException
+        {
+            if (print)
+            {
+                appendSize(matrix, rows, cols);
+            }
+            int q = p;
+            long n = (long) rows * cols;
+            for (long i = 0; i < n; i++)
+            {
+                q = formatString(utf8, q, print);
+                if (print)
+                {
+                    this.out.append(' ');
+                }
+            }
+            return q;
+        }
+
+        /**
+         * Format a String of a session-scoped string dictionary as its id, followed by the String if it is new.
+         * @param p the position of the code
+         * @param print whether to print or only to skip the String
+         * @return the position just beyond the String
+         * @throws SerializationException when the code is too long or beyond the end of the message
+         */
+        private int formatDictString(final int p, final boolean print) throws SerializationException
+        {
+            long code = 0;
+            int q = p;
+            for (int shift = 0;; shift += 7)
+            {
+                if (shift > 35 || q >= this.limit)
+                {
+                    throw new SerializationException("bad dictionary code");
+                }
+                byte b = this.m[q++];
+                code |= (long) (b & 0x7F) << shift;
+                if (b >= 0)
+                {
+                    break;
+                }
+            }
+            if (print)
+            {
+                this.out.append('#').append(code >>> 1);
+            }
+            if ((code & 1) != 0)
+            {
+                if (print)
+                {
+                    this.out.append('=');
+                }
+                q = formatString(true, q, print);
+            }
+            return q;
+        }
+
+        /**
+         * Format a scalar, array or matrix with a unit.
+         * @param isFloat whether the values are floats or doubles
+         * @param p the position of the unit
+         * @param dimensions 0 for a scalar, 1 for an array, 2 for a matrix
+         * @param rows the number of rows (1 for a scalar or an array)
+         * @param cols the number of columns (1 for a scalar)
+         * @param print whether to print or only to skip the values
+         * @return the position just beyond the last value
+         * @throws SerializationException when the unit is not known
+         */
+        private int formatUnitValues(final boolean isFloat, final int p, final int dimensions, final int rows, final int cols,
+                final boolean print) throws SerializationException
+        {
+            int size = isFloat ? 4 : 8;
+            long end = p + 2 + (long) rows * cols * size;
+            if (!print || end > this.limit)
+            {
+                return (int) Math.min(Integer.MAX_VALUE, end);
+            }
+            Unit<?> unit = unit(p);
+            if (dimensions > 0)
+            {
+                appendSize(dimensions == 2, rows, cols);
+            }
+            int q = p + 2;
+            while (q < end)
+            {
+                appendValue(isFloat ? BulkSerialDataDecoder.this.endianness.decodeFloat(this.m, q)
+                        : BulkSerialDataDecoder.this.endianness.decodeDouble(this.m, q), unit);
+                this.out.append(dimensions > 0 ? " " : "");
+                q += size;
+            }
+            return q;
+        }
+
+        /**
+         * Format a matrix with a unit per column.
+         * @param isFloat whether the values are floats or doubles
+         * @param p the position of the number of rows
+         * @param print whether to print or only to skip the values
+         * @return the position just beyond the last value
+         * @throws SerializationException when a unit is not known
+         */
+        private int formatColumnMatrix(final boolean isFloat, final int p, final boolean print) throws SerializationException
+        {
+            int rows = count(p);
+            int cols = count(p + 4);
+            int size = isFloat ? 4 : 8;
+            long end = p + 8 + 2L * cols + (long) rows * cols * size;
+            if (!print || end > this.limit)
+            {
+                return (int) Math.min(Integer.MAX_VALUE, end);
+            }
+            Unit<?>[] units = new Unit<?>[cols];
+            for (int col = 0; col < cols; col++)
+            {
+                units[col] = unit(p + 8 + 2 * col);
+            }
+            appendSize(true, rows, cols);
+            int q = p + 8 + 2 * cols;
+            for (int row = 0; row < rows; row++)
+            {
+                for (int col = 0; col < cols; col++, q += size)
+                {
+                    appendValue(isFloat ? BulkSerialDataDecoder.this.endianness.decodeFloat(this.m, q)
+                            : BulkSerialDataDecoder.this.endianness.decodeDouble(this.m, q), units[col]);
+                    this.out.append(' ');
+                }
+            }
+            return q;
+        }
+
+        /**
+         * Decode a unit.
+         * @param p the position of the unit type byte
+         * @return the unit
+         * @throws SerializationException when the unit is not known
+         */
+        private Unit<?> unit(final int p) throws SerializationException
+        {
+            Unit<?> unit = UnitType.getUnit(this.m[p], this.m[p + 1]);
+            if (null == unit)
+            {
+                throw new SerializationException("unknown unit type " + this.m[p] + ", display unit " + this.m[p + 1]);
+            }
+            return unit;
+        }
+
+        /**
+         * Append an SI value in its display unit.
+         * @param si the SI value
+         * @param unit the display unit
+         */
+        private void appendValue(final double si, final Unit<?> unit)
+        {
+            this.out.append(unit.getScale().fromStandardUnit(si)).append(unit.getDefaultDisplayAbbreviation());
+        }
+
+        /**
+         * Format an array of compound objects.
+         * @param p the position of the number of objects
+         * @param print whether to print or only to skip the objects
+         * @return the position just beyond the last object
+         * @throws SerializationException when a field type is not known or the compound is corrupt
+         */
+        private int formatCompound(final int p, final boolean print) throws SerializationException
+        {
+            int count = count(p);
+            int fieldCount = count(p + 4);
+            if (fieldCount > this.limit - p - 8)
+            {
+                throw new SerializationException("bad field count " + fieldCount);
+            }
+            if (print)
+            {
+                this.out.append("length ").append(count).append(", fields ").append(fieldCount).append(": ");
+            }
+            int q = p + 8 + fieldCount;
+            for (int i = 0; i < count && q <= this.limit; i++)
+            {
+                if (print)
+                {
+                    this.out.append('{');
+                }
+                for (int field = 0; field < fieldCount && q <= this.limit; field++)
+                {
+                    q = formatBody(this.m[p + 8 + field], q, print);
+                    if (print && field < fieldCount - 1)
+                    {
+                        this.out.append(", ");
+                    }
+                }
+                if (print)
+                {
+                    this.out.append("} ");
+                }
+            }
+            return q;
+        }
+    }
+
+    /**
+     * Return the size of a primitive value.
+     * @param fieldType the field type of the primitive value (BYTE_8 to BOOLEAN_8)
+     * @return the size of a primitive value
+     */
+    private static int primitiveSize(final byte fieldType)
+    {
+        switch (fieldType)
+        {
+            case FieldTypes.SHORT_16:
+                return 2;
+            case FieldTypes.INT_32:
+            case FieldTypes.FLOAT_32:
+                return 4;
+            case FieldTypes.LONG_64:
+            case FieldTypes.DOUBLE_64:
+                return 8;
+            default:
+                return 1;
+        }
+    }
+
+    /**
+     * Append a number in hexadecimal notation, with at least 8 digits.
+     * @param out the output
+     * @param value the number
+     */
+    private static void appendHex(final StringBuilder out, final long value)
+    {
+        int digits = Math.max(8, (64 - Long.numberOfLeadingZeros(value) + 3) / 4);
+        for (int i = digits - 1; i >= 0; i--)
+        {
+            out.append(HEX[(int) (value >>> (4 * i)) & 0xF]);
+        }
+    }
+
+    /**
+     * Return a number in hexadecimal notation, with at least 8 digits.
+     * @param value the number
+     * @return the number in hexadecimal notation
+     */
+    private static String hex(final long value)
+    {
+        StringBuilder out = new StringBuilder();
+        appendHex(out, value);
+        return out.toString();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "BulkSerialDataDecoder [endianness=" + this.endianness + ", parallelism=" + this.parallelism + "]";
+    }
+
+}
@@ -1,7 +1,7 @@
 package org.djutils.serialization;
 
-import java.io.UnsupportedEncodingException;
 import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Method to help with Little Endian / Big Endian conversions for the Sim0MQ messages. All Sim0MQ messages are encoded Big
@@ -179,19 +179,7 @@ public final class Endianness
     public String decodeUTF8String(final byte[] message, final int pointer) throws SerializationException
     {
         int len = decodeInt(message, pointer);
-        byte[] c = new byte[len];
-        for (int i = 0; i < len; i++)
-        {
-            c[i] = message[pointer + i + 4];
-        }
-        try
-        {
-            return new String(c, "UTF-8");
-        }
-        catch (UnsupportedEncodingException e)
-        {
-            throw new SerializationException(e);
-        }
+        return new String(message, pointer + 4, len, StandardCharsets.UTF_8);
     }
 
     /**
@@ -246,6 +234,135 @@ public final class Endianness
         return encodeShort((short) v, message, pointer);
     }
 
+    /**
+     * Return the number of bytes that the UTF-8 encoding of a String takes, without encoding the String. Unpaired surrogates
+     * count as one byte, as they are encoded as '?', which is what <code>String.getBytes</code> does as well.
+     * @param string the String
+     * @return the number of bytes of the UTF-8 encoding of the String (excluding the length int)
+     */
+    public static int utf8Length(final String string)
+    {
+        int length = string.length();
+        int result = length;
+        int i = 0;
+        // Fast path for ASCII characters, which take one byte each
+        while (i < length && string.charAt(i) < 0x80)
+        {
+            i++;
+        }
+        for (; i < length; i++)
+        {
+            char c = string.charAt(i);
+            if (c >= 0x800)
+            {
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(string.charAt(i + 1)))
+                {
+                    // Two chars; four bytes
+                    result += 2;
+                    i++;
+                }
+                else if (!Character.isSurrogate(c))
+                {
+                    result += 2;
+                }
+            }
+            else if (c >= 0x80)
+            {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Encode a String including the length int into a message buffer, using UTF-8. The characters are encoded directly into
+     * the buffer; the length int is filled in afterwards. The result is identical to <code>string.getBytes(UTF_8)</code>,
+     * preceded by the length.
+     * @param string the String to encode
+     * @param message the message buffer to encode the String into
+     * @param pointer the pointer to start writing
+     * @return the number of bytes written, including the 4 bytes of the length int
+     */
+    public int encodeUTF8String(final String string, final byte[] message, final int pointer)
+    {
+        int length = string.length();
+        int p = pointer + 4;
+        int i = 0;
+        // Fast path for ASCII characters, which take one byte each
+        for (char c; i < length && (c = string.charAt(i)) < 0x80; i++)
+        {
+            message[p++] = (byte) c;
+        }
+        for (; i < length; i++)
+        {
+            char c = string.charAt(i);
+            if (c < 0x80)
+            {
+                message[p++] = (byte) c;
+            }
+            else if (c < 0x800)
+            {
+                message[p++] = (byte) (0xC0 | (c >> 6));
+                message[p++] = (byte) (0x80 | (c & 0x3F));
+            }
+            else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(string.charAt(i + 1)))
+            {
+                int codePoint = Character.toCodePoint(c, string.charAt(++i));
+                message[p++] = (byte) (0xF0 | (codePoint >> 18));
+                message[p++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                message[p++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                message[p++] = (byte) (0x80 | (codePoint & 0x3F));
+            }
+            else if (Character.isSurrogate(c))
+            {
+                // Unpaired surrogate; replaced, as String.getBytes does
+                message[p++] = (byte) '?';
+            }
+            else
+            {
+                message[p++] = (byte) (0xE0 | (c >> 12));
+                message[p++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                message[p++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        encodeInt(p - pointer - 4, message, pointer);
+        return p - pointer;
+    }
+
+    /**
+     * Encode a String including the length int into a message buffer, using UTF-16. The length int holds the number of chars
+     * (16-bit code units) of the String; each char is encoded with the endianness of this Endianness.
+     * @param string the String to encode
+     * @param message the message buffer to encode the String into
+     * @param pointer the pointer to start writing
+     * @return the number of bytes written, including the 4 bytes of the length int
+     */
+    public int encodeUTF16String(final String string, final byte[] message, final int pointer)
+    {
+        int length = string.length();
+        encodeInt(length, message, pointer);
+        int p = pointer + 4;
+        if (this.bigEndian)
+        {
+            for (int i = 0; i < length; i++)
+            {
+                char c = string.charAt(i);
+                message[p++] = (byte) (c >> 8);
+                message[p++] = (byte) c;
+            }
+        }
+        else
+        {
+            for (int i = 0; i < length; i++)
+            {
+                char c = string.charAt(i);
+                message[p++] = (byte) c;
+                message[p++] = (byte) (c >> 8);
+            }
+        }
+        return 4 + 2 * length;
+    }
+
     /**
      * Encode a int into a message buffer.
      * @param v the variable to encode
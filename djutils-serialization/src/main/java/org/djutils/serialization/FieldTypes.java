@@ -733,6 +733,70 @@ public final class FieldTypes
      */
     public static final byte STRING_UTF16_MATRIX = 36;
 
+    /**
+     * <p>
+     * <b>Big endian and Little endian encoding</b>
+     * </p>
+     * String from a session-scoped string dictionary (see <code>StringDictionary</code>). The string is coded as an unsigned
+     * variable length integer (7 bits per byte, least significant group first, high bit set on all but the last byte). The
+     * value divided by two is the id of the string in the dictionary. When the value is odd, the string is new (or replaces
+     * the string that had this id before) and its UTF-8 encoding follows, preceded by a 32-bit int with the number of bytes,
+     * as for STRING_UTF8; when the value is even, the string was transmitted before with this id. As an example, a new string
+     * "abc" that gets id 1, followed by a reference to it, is coded as follows:
+     * 
+     * <pre>
+     * | 37 | 3 | 0 | 0 | 0 | 3 | a | b | c |
+     * | 37 | 2 |
+     * </pre>
+     * 
+     * The little-endian coding differs only in the int for the number of bytes.
+     */
+    public static final byte STRING_DICT = 37;
+
+    /**
+     * <p>
+     * <b>Big endian and Little endian encoding</b>
+     * </p>
+     * Array of Strings from a session-scoped string dictionary (see <code>StringDictionary</code>). The number of strings is
+     * provided in a 32-bit int (using the endianness of the message), followed by each string coded as for STRING_DICT,
+     * without the field type byte. As an example, an array with a new string "abc" that gets id 0, a reference to the string
+     * with id 5 and a reference to "abc" is coded (big-endian) as follows:
+     * 
+     * <pre>
+     * | 38 | 0 | 0 | 0 | 3 | 
+     * | 1 | 0 | 0 | 0 | 3 | a | b | c | 
+     * | 10 |
+     * | 0 |
+     * </pre>
+     */
+    public static final byte STRING_DICT_ARRAY = 38;
+
+    /**
+     * <p>
+     * <b>Big endian and Little endian encoding</b>
+     * </p>
+     * Array of compound objects with the same structure, using UTF-16 for strings and characters. The number of objects and
+     * the number of fields per object are provided in two 32-bit ints (using the endianness of the message), followed by the
+     * field type byte of each field. Then, for each object, the fields follow without their field type byte. As an example, an
+     * array of two objects with an int and a double field is coded (big-endian) as follows:
+     * 
+     * <pre>
+     * | 120 | 0 | 0 | 0 | 2 | 0 | 0 | 0 | 2 | 2 | 5 | 
+     * | I | I | I | I | D | D | D | D | D | D | D | D |
+     * | I | I | I | I | D | D | D | D | D | D | D | D |
+     * </pre>
+     */
+    public static final byte COMPOUND_ARRAY_UTF16 = 120;
+
+    /**
+     * <p>
+     * <b>Big endian and Little endian encoding</b>
+     * </p>
+     * Array of compound objects with the same structure, using UTF-8 for strings and characters. The coding is the same as for
+     * COMPOUND_ARRAY_UTF16.
+     */
+    public static final byte COMPOUND_ARRAY_UTF8 = 121;
+
     /**
      * Utility class, cannot be instantiated.
      */
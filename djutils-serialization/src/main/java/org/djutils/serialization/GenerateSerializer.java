@@ -0,0 +1,40 @@
+package org.djutils.serialization;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a record or class for which the annotation processor of djutils-serialization-processor generates a
+ * <code>Serializer</code> at compile time. For a type <code>Name</code>, the processor generates the class
+ * <code>NameSerializer</code> in the same package, with a static <code>INSTANCE</code>. The generated serializer encodes an
+ * object as a compound array of one element (see <code>FieldTypes.COMPOUND_ARRAY_UTF8</code>), so the result can also be
+ * decoded by <code>TypedMessage</code> without the generated class. No reflection is used at runtime.
+ * <p>
+ * The serialized fields of a record are its components. The serialized fields of a class are its non-static, non-transient
+ * fields in order of declaration; each field must be readable through a non-private getter (<code>getX()</code>,
+ * <code>isX()</code> or <code>x()</code>) or be non-private itself, and the class must have a non-private constructor with
+ * the types of the fields, in the same order, as parameters. Supported field types are the primitive types,
+ * <code>String</code>, one-dimensional arrays of Strings and of primitives other than char, two-dimensional arrays of
+ * primitives other than char, and other types that are annotated with <code>GenerateSerializer</code>.
+ * </p>
+ * <p>
+ * Copyright (c) 2016-2025 Delft University of Technology, PO Box 5, 2600 AA, Delft, the Netherlands. All rights reserved. <br>
+ * BSD-style license. See <a href="https://sim0mq.org/docs/current/license.html">OpenTrafficSim License</a>.
+ * </p>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://www.tudelft.nl/staff/p.knoppers/">Peter Knoppers</a>
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface GenerateSerializer
+{
+    /**
+     * Whether Strings and chars are encoded in UTF-8 (the default) or in UTF-16.
+     * @return whether Strings and chars are encoded in UTF-8
+     */
+    boolean utf8() default true;
+}
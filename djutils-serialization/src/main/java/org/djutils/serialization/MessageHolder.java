@@ -0,0 +1,548 @@
+package org.djutils.serialization;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.djunits.unit.Unit;
+import org.djutils.serialization.serializers.Pointer;
+import org.djutils.serialization.serializers.Serializer;
+
+/**
+ * Reusable holder for decoded messages. <code>TypedMessage.decodeInto(endianness, buffer, holder)</code> stores the fields of a
+ * message in preallocated primitive arrays of the holder instead of creating new objects for every field. The arrays are only
+ * replaced by larger ones when a field needs more room than before, so decoding a stream of messages with the same shape
+ * into the same holder does not allocate memory in steady state (except for the String objects of String fields).
+ * <p>
+ * Each field stores its values in the array that matches the type of its elements: <code>getBytes()</code> for BYTE_8,
+ * <code>getShorts()</code> for SHORT_16, <code>getInts()</code> for INT_32, <code>getLongs()</code> for LONG_64,
+ * <code>getFloats()</code> for FLOAT_32 (also with a unit), <code>getDoubles()</code> for DOUBLE_64 (also with a unit),
+ * <code>getBooleans()</code> for BOOLEAN_8, <code>getChars()</code> for CHAR_8 and CHAR_16, and <code>getStrings()</code> for
+ * the String types. Scalars are stored in element 0, arrays in elements 0 to length - 1 and matrices row by row. Values with a
+ * unit are stored as SI values; the display unit is returned by <code>getUnit()</code>. Fields of other types (compound
+ * arrays, column matrices) are decoded into the objects that <code>TypedMessage.decodeToPrimitiveDataTypes</code> returns;
+ * <code>getObject()</code> returns these.
+ * </p>
+ * <p>
+ * The arrays that are returned are the buffers of the holder; they may be longer than the number of elements of the field,
+ * and they are overwritten by the next decode. A MessageHolder is not thread-safe.
+ * </p>
+ * <p>
+ * Copyright (c) 2016-2025 Delft University of Technology, PO Box 5, 2600 AA, Delft, the Netherlands. All rights reserved. <br>
+ * BSD-style license. See <a href="https://sim0mq.org/docs/current/license.html">OpenTrafficSim License</a>.
+ * </p>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://www.tudelft.nl/staff/p.knoppers/">Peter Knoppers</a>
+ */
+public final class MessageHolder
+{
+    /** The fields; the list only grows, so that Field objects are reused. */
+    private final List<Field> fields = new ArrayList<>();
+
+    /** Number of fields of the last decoded message. */
+    private int numberOfFields = 0;
+
+    /** Position in the message that is decoded; reused to avoid allocation. */
+    private final Pointer pointer = new Pointer();
+
+    /**
+     * Return the number of fields of the last decoded message.
+     * @return the number of fields of the last decoded message
+     */
+    public int getNumberOfFields()
+    {
+        return this.numberOfFields;
+    }
+
+    /**
+     * Return a field of the last decoded message.
+     * @param index the index of the field
+     * @return the field
+     * @throws IndexOutOfBoundsException when index is not a valid field index
+     */
+    public Field getField(final int index)
+    {
+        return this.fields.get(Objects.checkIndex(index, this.numberOfFields));
+    }
+
+    /**
+     * Decode a message into this holder.
+     * @param endianness use big-endian or little-endian encoding
+     * @param buffer the byte array to decode
+     * @param decoderMap decoders for the fields that are not stored in primitive arrays
+     * @throws SerializationException on unknown data type
+     */
+    void decode(final Endianness endianness, final byte[] buffer, final Map<Byte, Serializer<?>> decoderMap)
+            throws SerializationException
+    {
+        this.numberOfFields = 0;
+        this.pointer.inc(-this.pointer.get());
+        while (this.pointer.get() < buffer.length)
+        {
+            if (this.numberOfFields == this.fields.size())
+            {
+                this.fields.add(new Field());
+            }
+            this.fields.get(this.numberOfFields++).decode(endianness, buffer, this.pointer, decoderMap);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder result = new StringBuilder("MessageHolder [");
+        for (int i = 0; i < this.numberOfFields; i++)
+        {
+            result.append(i > 0 ? ", " : "").append(this.fields.get(i));
+        }
+        return result.append("]").toString();
+    }
+
+    /** Element type: byte. */
+    private static final int BYTE = 1;
+
+    /** Element type: short. */
+    private static final int SHORT = 2;
+
+    /** Element type: int. */
+    private static final int INT = 3;
+
+    /** Element type: long. */
+    private static final int LONG = 4;
+
+    /** Element type: float. */
+    private static final int FLOAT = 5;
+
+    /** Element type: double. */
+    private static final int DOUBLE = 6;
+
+    /** Element type: boolean. */
+    private static final int BOOLEAN = 7;
+
+    /** Element type: 8-bit char. */
+    private static final int CHAR8 = 8;
+
+    /** Element type: 16-bit char. */
+    private static final int CHAR16 = 9;
+
+    /** Element type: UTF-8 String. */
+    private static final int STRING8 = 10;
+
+    /** Element type: UTF-16 String. */
+    private static final int STRING16 = 11;
+
+    /** Element type per field type; 0 for field types that are decoded into objects. */
+    private static final int[] ELEMENT_TYPE = new int[FieldTypes.STRING_UTF16_MATRIX + 1];
+
+    /** Number of dimensions per field type. */
+    private static final int[] DIMENSIONS = new int[FieldTypes.STRING_UTF16_MATRIX + 1];
+
+    /** Whether the field type has a unit. */
+    private static final boolean[] UNIT = new boolean[FieldTypes.STRING_UTF16_MATRIX + 1];
+
+    static
+    {
+        define(BYTE, FieldTypes.BYTE_8, FieldTypes.BYTE_8_ARRAY, FieldTypes.BYTE_8_MATRIX, false);
+        define(SHORT, FieldTypes.SHORT_16, FieldTypes.SHORT_16_ARRAY, FieldTypes.SHORT_16_MATRIX, false);
+        define(INT, FieldTypes.INT_32, FieldTypes.INT_32_ARRAY, FieldTypes.INT_32_MATRIX, false);
+        define(LONG, FieldTypes.LONG_64, FieldTypes.LONG_64_ARRAY, FieldTypes.LONG_64_MATRIX, false);
+        define(FLOAT, FieldTypes.FLOAT_32, FieldTypes.FLOAT_32_ARRAY, FieldTypes.FLOAT_32_MATRIX, false);
+        define(DOUBLE, FieldTypes.DOUBLE_64, FieldTypes.DOUBLE_64_ARRAY, FieldTypes.DOUBLE_64_MATRIX, false);
+        define(BOOLEAN, FieldTypes.BOOLEAN_8, FieldTypes.BOOLEAN_8_ARRAY, FieldTypes.BOOLEAN_8_MATRIX, false);
+        define(FLOAT, FieldTypes.FLOAT_32_UNIT, FieldTypes.FLOAT_32_UNIT_ARRAY, FieldTypes.FLOAT_32_UNIT_MATRIX, true);
+        define(DOUBLE, FieldTypes.DOUBLE_64_UNIT, FieldTypes.DOUBLE_64_UNIT_ARRAY, FieldTypes.DOUBLE_64_UNIT_MATRIX, true);
+        define(STRING8, FieldTypes.STRING_UTF8, FieldTypes.STRING_UTF8_ARRAY, FieldTypes.STRING_UTF8_MATRIX, false);
+        define(STRING16, FieldTypes.STRING_UTF16, FieldTypes.STRING_UTF16_ARRAY, FieldTypes.STRING_UTF16_MATRIX, false);
+        ELEMENT_TYPE[FieldTypes.CHAR_8] = CHAR8;
+        ELEMENT_TYPE[FieldTypes.CHAR_16] = CHAR16;
+    }
+
+    /**
+     * Register the scalar, array and matrix field types of an element type.
+     * @param elementType the element type
+     * @param scalar the field type of a scalar
+     * @param array the field type of an array
+     * @param matrix the field type of a matrix
+     * @param unit whether the field types have a unit
+     */
+    private static void define(final int elementType, final byte scalar, final byte array, final byte matrix,
+            final boolean unit)
+    {
+        for (byte fieldType : new byte[] {scalar, array, matrix})
+        {
+            ELEMENT_TYPE[fieldType] = elementType;
+            UNIT[fieldType] = unit;
+        }
+        DIMENSIONS[array] = 1;
+        DIMENSIONS[matrix] = 2;
+    }
+
+    /**
+     * One field of a decoded message. The arrays are reused for the same field of the next message that is decoded in the same
+     * MessageHolder.
+     */
+    public static final class Field
+    {
+        /** The field type of the last decoded value. */
+        private byte fieldType;
+
+        /** Number of dimensions: 0 for a scalar, 1 for an array, 2 for a matrix. */
+        private int numberOfDimensions;
+
+        /** Number of rows (1 for a scalar or an array). */
+        private int rows;
+
+        /** Number of columns (1 for a scalar; the length for an array). */
+        private int cols;
+
+        /** Buffer for byte values; null until needed. */
+        private byte[] bytes;
+
+        /** Buffer for short values; null until needed. */
+        private short[] shorts;
+
+        /** Buffer for int values; null until needed. */
+        private int[] ints;
+
+        /** Buffer for long values; null until needed. */
+        private long[] longs;
+
+        /** Buffer for float values; null until needed. */
+        private float[] floats;
+
+        /** Buffer for double values; null until needed. */
+        private double[] doubles;
+
+        /** Buffer for boolean values; null until needed. */
+        private boolean[] booleans;
+
+        /** Buffer for char values; null until needed. */
+        private char[] chars;
+
+        /** Buffer for String values; null until needed. */
+        private String[] strings;
+
+        /** The display unit of the values; null if the field type has no unit or the value is stored as an object. */
+        private Unit<?> unit;
+
+        /** The decoded object for field types that are not stored in the primitive buffers; null otherwise. */
+        private Object object;
+
+        /**
+         * Decode one field.
+         * @param endianness use big-endian or little-endian encoding
+         * @param buffer the byte array to decode
+         * @param pointer position of the field type byte of the field
+         * @param decoderMap decoders for the fields that are not stored in primitive arrays
+         * @throws SerializationException on unknown data type
+         */
+        void decode(final Endianness endianness, final byte[] buffer, final Pointer pointer,
+                final Map<Byte, Serializer<?>> decoderMap) throws SerializationException
+        {
+            this.fieldType = buffer[pointer.getAndIncrement(1)];
+            this.unit = null;
+            this.object = null;
+            int elementType = this.fieldType >= 0 && this.fieldType < ELEMENT_TYPE.length ? ELEMENT_TYPE[this.fieldType] : 0;
+            if (0 == elementType)
+            {
+                Serializer<?> serializer = decoderMap.get(this.fieldType);
+                if (null == serializer)
+                {
+                    throw new SerializationException("Bad FieldType or no defined decoder for fieldType " + this.fieldType
+                            + " at position " + (pointer.get() - 1));
+                }
+                this.object = serializer.deSerialize(buffer, pointer, endianness);
+                this.numberOfDimensions = serializer.getNumberOfDimensions();
+                this.rows = 0;
+                this.cols = 0;
+                return;
+            }
+            this.numberOfDimensions = DIMENSIONS[this.fieldType];
+            this.rows = 2 == this.numberOfDimensions ? endianness.decodeInt(buffer, pointer.getAndIncrement(4)) : 1;
+            this.cols = 0 == this.numberOfDimensions ? 1 : endianness.decodeInt(buffer, pointer.getAndIncrement(4));
+            // Every element takes at least one byte; this also guards against huge buffers for a corrupt message
+            if (this.rows < 0 || this.cols < 0 || (long) this.rows * this.cols > buffer.length - pointer.get())
+            {
+                throw new SerializationException("Bad size " + this.rows + " x " + this.cols + " at position " + pointer.get());
+            }
+            if (UNIT[this.fieldType])
+            {
+                UnitType displayType = UnitType.getDisplayType(buffer[pointer.get()], buffer[pointer.get() + 1]);
+                if (null == displayType)
+                {
+                    throw new SerializationException("Unknown unit at position " + pointer.get());
+                }
+                this.unit = displayType.getDjunitsType();
+                pointer.inc(2);
+            }
+            int n = this.rows * this.cols;
+            int p = pointer.get();
+            switch (elementType)
+            {
+                case BYTE:
+                    if (null == this.bytes || this.bytes.length < n)
+                    {
+                        this.bytes = new byte[grow(null == this.bytes ? 0 : this.bytes.length, n)];
+                    }
+                    System.arraycopy(buffer, p, this.bytes, 0, n);
+                    p += n;
+                    break;
+                case SHORT:
+                    if (null == this.shorts || this.shorts.length < n)
+                    {
+                        this.shorts = new short[grow(null == this.shorts ? 0 : this.shorts.length, n)];
+                    }
+                    for (int i = 0; i < n; i++, p += 2)
+                    {
+                        this.shorts[i] = endianness.decodeShort(buffer, p);
+                    }
+                    break;
+                case INT:
+                    if (null == this.ints || this.ints.length < n)
+                    {
+                        this.ints = new int[grow(null == this.ints ? 0 : this.ints.length, n)];
+                    }
+                    for (int i = 0; i < n; i++, p += 4)
+                    {
+                        this.ints[i] = endianness.decodeInt(buffer, p);
+                    }
+                    break;
+                case LONG:
+                    if (null == this.longs || this.longs.length < n)
+                    {
+                        this.longs = new long[grow(null == this.longs ? 0 : this.longs.length, n)];
+                    }
+                    for (int i = 0; i < n; i++, p += 8)
+                    {
+                        this.longs[i] = endianness.decodeLong(buffer, p);
+                    }
+                    break;
+                case FLOAT:
+                    if (null == this.floats || this.floats.length < n)
+                    {
+                        this.floats = new float[grow(null == this.floats ? 0 : this.floats.length, n)];
+                    }
+                    for (int i = 0; i < n; i++, p += 4)
+                    {
+                        this.floats[i] = endianness.decodeFloat(buffer, p);
+                    }
+                    break;
+                case DOUBLE:
+                    if (null == this.doubles || this.doubles.length < n)
+                    {
+                        this.doubles = new double[grow(null == this.doubles ? 0 : this.doubles.length, n)];
+                    }
+                    for (int i = 0; i < n; i++, p += 8)
+                    {
+                        this.doubles[i] = endianness.decodeDouble(buffer, p);
+                    }
+                    break;
+                case BOOLEAN:
+                    if (null == this.booleans || this.booleans.length < n)
+                    {
+                        this.booleans = new boolean[grow(null == this.booleans ? 0 : this.booleans.length, n)];
+                    }
+                    for (int i = 0; i < n; i++)
+                    {
+                        this.booleans[i] = buffer[p++] != 0;
+                    }
+                    break;
+                case CHAR8:
+                case CHAR16:
+                    if (null == this.chars)
+                    {
+                        this.chars = new char[1];
+                    }
+                    this.chars[0] = CHAR8 == elementType ? (char) buffer[p] : endianness.decodeChar(buffer, p);
+                    p += CHAR8 == elementType ? 1 : 2;
+                    break;
+                default: // Strings
+                    if (null == this.strings || this.strings.length < n)
+                    {
+                        this.strings = new String[grow(null == this.strings ? 0 : this.strings.length, n)];
+                    }
+                    for (int i = 0; i < n; i++)
+                    {
+                        if (STRING8 == elementType)
+                        {
+                            this.strings[i] = endianness.decodeUTF8String(buffer, p);
+                            p += 4 + endianness.decodeInt(buffer, p);
+                        }
+                        else
+                        {
+                            this.strings[i] = endianness.decodeUTF16String(buffer, p);
+                            p += 4 + 2 * endianness.decodeInt(buffer, p);
+                        }
+                    }
+                    break;
+            }
+            pointer.inc(p - pointer.get());
+        }
+
+        /**
+         * Return the new length of a buffer that is too small.
+         * @param current the length of the current buffer
+         * @param needed the number of elements that is needed
+         * @return the new length of the buffer
+         */
+        private static int grow(final int current, final int needed)
+        {
+            return (int) Math.max(needed, Math.min(2L * current, Integer.MAX_VALUE - 8));
+        }
+
+        /**
+         * Return the field type of the field.
+         * @return the field type of the field (see FieldTypes)
+         */
+        public byte getFieldType()
+        {
+            return this.fieldType;
+        }
+
+        /**
+         * Return the number of dimensions of the field.
+         * @return 0 for a scalar, 1 for an array, 2 for a matrix
+         */
+        public int getNumberOfDimensions()
+        {
+            return this.numberOfDimensions;
+        }
+
+        /**
+         * Return the number of values in the primitive buffer of the field.
+         * @return the number of values in the primitive buffer of the field; 0 if the field is stored as an object
+         */
+        public int getLength()
+        {
+            return this.rows * this.cols;
+        }
+
+        /**
+         * Return the number of rows of the field.
+         * @return the number of rows of a matrix; 1 for a scalar or an array; 0 if the field is stored as an object
+         */
+        public int getRows()
+        {
+            return this.rows;
+        }
+
+        /**
+         * Return the number of columns of the field.
+         * @return the number of columns of a matrix; the length of an array; 1 for a scalar; 0 if the field is stored as an
+         *         object
+         */
+        public int getCols()
+        {
+            return this.cols;
+        }
+
+        /**
+         * Return the buffer with the byte values of the field.
+         * @return the buffer with the byte values of the field (may be longer than the number of values), or null
+         */
+        public byte[] getBytes()
+        {
+            return this.bytes;
+        }
+
+        /**
+         * Return the buffer with the short values of the field.
+         * @return the buffer with the short values of the field (may be longer than the number of values), or null
+         */
+        public short[] getShorts()
+        {
+            return this.shorts;
+        }
+
+        /**
+         * Return the buffer with the int values of the field.
+         * @return the buffer with the int values of the field (may be longer than the number of values), or null
+         */
+        public int[] getInts()
+        {
+            return this.ints;
+        }
+
+        /**
+         * Return the buffer with the long values of the field.
+         * @return the buffer with the long values of the field (may be longer than the number of values), or null
+         */
+        public long[] getLongs()
+        {
+            return this.longs;
+        }
+
+        /**
+         * Return the buffer with the float values of the field; the SI values for a field with a unit.
+         * @return the buffer with the float values of the field (may be longer than the number of values), or null
+         */
+        public float[] getFloats()
+        {
+            return this.floats;
+        }
+
+        /**
+         * Return the buffer with the double values of the field; the SI values for a field with a unit.
+         * @return the buffer with the double values of the field (may be longer than the number of values), or null
+         */
+        public double[] getDoubles()
+        {
+            return this.doubles;
+        }
+
+        /**
+         * Return the buffer with the boolean values of the field.
+         * @return the buffer with the boolean values of the field (may be longer than the number of values), or null
+         */
+        public boolean[] getBooleans()
+        {
+            return this.booleans;
+        }
+
+        /**
+         * Return the buffer with the char value of the field.
+         * @return the buffer with the char value of the field (may be longer than one), or null
+         */
+        public char[] getChars()
+        {
+            return this.chars;
+        }
+
+        /**
+         * Return the buffer with the String values of the field.
+         * @return the buffer with the String values of the field (may be longer than the number of values), or null
+         */
+        public String[] getStrings()
+        {
+            return this.strings;
+        }
+
+        /**
+         * Return the display unit of the field.
+         * @return the display unit of the field, or null if the field has no unit
+         */
+        public Unit<?> getUnit()
+        {
+            return this.unit;
+        }
+
+        /**
+         * Return the decoded object of a field type that is not stored in a primitive buffer.
+         * @return the decoded object, or null if the field is stored in a primitive buffer
+         */
+        public Object getObject()
+        {
+            return this.object;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Field [fieldType=" + this.fieldType + ", rows=" + this.rows + ", cols=" + this.cols
+                    + (null == this.unit ? "" : ", unit=" + this.unit.getId())
+                    + (null == this.object ? "" : ", object=" + this.object) + "]";
+        }
+    }
+
+}
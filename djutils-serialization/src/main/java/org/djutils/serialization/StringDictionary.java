@@ -0,0 +1,394 @@
+package org.djutils.serialization;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.djutils.exceptions.Throw;
+import org.djutils.serialization.serializers.ObjectSerializer;
+import org.djutils.serialization.serializers.Pointer;
+import org.djutils.serialization.serializers.Serializer;
+import org.djutils.serialization.serializers.StringArraySerializer;
+
+/**
+ * Session-scoped dictionary of Strings for a stream of messages. The first time that a String is encoded, it is transmitted
+ * in full, together with the id that it gets in the dictionary; after that, it is transmitted as a variable length integer
+ * that refers to the id. See <code>FieldTypes.STRING_DICT</code> and <code>FieldTypes.STRING_DICT_ARRAY</code>. The sender
+ * encodes with <code>TypedMessage.encode(endianness, dictionary, content)</code>; the receiver decodes with
+ * <code>TypedMessage.decodeToObjectDataTypes(endianness, buffer, dictionary)</code> or
+ * <code>decodeToPrimitiveDataTypes</code>. Each side of a stream needs its own StringDictionary, and the messages must be
+ * decoded in the order in which they were encoded.
+ * <p>
+ * The number of Strings in the dictionary is bounded by its capacity. When a new String is added to a full dictionary, the
+ * String that was added longest ago is evicted (first in, first out) and the new String gets its id. As every new String is
+ * transmitted with its id, the receiving dictionary does not have to know the eviction policy; it only has to have at least
+ * the capacity of the sending dictionary.
+ * </p>
+ * <p>
+ * The dictionary of the sender is only changed when a message is encoded successfully. A StringDictionary is not thread-safe.
+ * </p>
+ * <p>
+ * Copyright (c) 2016-2025 Delft University of Technology, PO Box 5, 2600 AA, Delft, the Netherlands. All rights reserved. <br>
+ * BSD-style license. See <a href="https://sim0mq.org/docs/current/license.html">OpenTrafficSim License</a>.
+ * </p>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://www.tudelft.nl/staff/p.knoppers/">Peter Knoppers</a>
+ */
+public final class StringDictionary
+{
+    /** The maximum number of Strings in the dictionary. */
+    private final int capacity;
+
+    /** The Strings, indexed by id. */
+    private final String[] strings;
+
+    /** Sequence number of the definition of each String in the dictionary of the sender (id is sequence number % capacity). */
+    private final Map<String, Long> sequenceNumbers = new HashMap<>();
+
+    /** Number of definitions in all successfully encoded messages. */
+    private long definitions = 0;
+
+    /** Sequence numbers of the Strings that are defined in the message that is being encoded. */
+    private final Map<String, Long> pendingSequenceNumbers = new HashMap<>();
+
+    /** The Strings that are defined in the message that is being encoded, in order of definition. */
+    private final List<String> pendingStrings = new ArrayList<>();
+
+    /** Codes of the Strings of the message that is being encoded, determined when the size of the message is computed. */
+    private int[] codes = new int[16];
+
+    /** Number of codes of the message that is being encoded. */
+    private int numberOfCodes = 0;
+
+    /** Number of codes that have been written. */
+    private int writtenCodes = 0;
+
+    /** Whether this dictionary is used for encoding (true), decoding (false), or not used yet (null). */
+    private Boolean encoding = null;
+
+    /** Serializer for a String that uses this dictionary. */
+    private final Serializer<String> stringSerializer = new ObjectSerializer<String>(FieldTypes.STRING_DICT, "String_dict")
+    {
+        @Override
+        public int size(final String string)
+        {
+            return codeSize(plan(string), string);
+        }
+
+        @Override
+        public void serialize(final String string, final byte[] buffer, final Pointer pointer, final Endianness endianness)
+        {
+            write(string, buffer, pointer, endianness);
+        }
+
+        @Override
+        public String deSerialize(final byte[] buffer, final Pointer pointer, final Endianness endianness)
+                throws SerializationException
+        {
+            return read(buffer, pointer, endianness);
+        }
+    };
+
+    /** Serializer for a String array that uses this dictionary. */
+    private final Serializer<String[]> stringArraySerializer =
+            new StringArraySerializer(FieldTypes.STRING_DICT_ARRAY, "String_dict_array")
+            {
+                @Override
+                public int size(final String[] stringArray)
+                {
+                    int size = 4;
+                    for (String string : stringArray)
+                    {
+                        size += codeSize(plan(string), string);
+                    }
+                    return size;
+                }
+
+                @Override
+                public void serialize(final String[] stringArray, final byte[] buffer, final Pointer pointer,
+                        final Endianness endianness)
+                {
+                    endianness.encodeInt(stringArray.length, buffer, pointer.getAndIncrement(4));
+                    for (String string : stringArray)
+                    {
+                        write(string, buffer, pointer, endianness);
+                    }
+                }
+
+                @Override
+                public String[] deSerialize(final byte[] buffer, final Pointer pointer, final Endianness endianness)
+                        throws SerializationException
+                {
+                    int size = endianness.decodeInt(buffer, pointer.getAndIncrement(4));
+                    String[] result = new String[size];
+                    for (int i = 0; i < size; i++)
+                    {
+                        result[i] = read(buffer, pointer, endianness);
+                    }
+                    return result;
+                }
+            };
+
+    /** Decoders into primitive data types, extended with the decoders of this dictionary; created when first needed. */
+    private Map<Byte, Serializer<?>> primitiveDataDecoders = null;
+
+    /** Decoders into object data types, extended with the decoders of this dictionary; created when first needed. */
+    private Map<Byte, Serializer<?>> objectDecoders = null;
+
+    /**
+     * Construct a new, empty StringDictionary.
+     * @param capacity the maximum number of Strings in the dictionary; the dictionary of the receiver must have at least the
+     *            capacity of the dictionary of the sender
+     * @throws IllegalArgumentException when capacity &lt; 1 or capacity &gt; 2<sup>30</sup>
+     */
+    public StringDictionary(final int capacity)
+    {
+        Throw.when(capacity < 1 || capacity > 1 << 30, IllegalArgumentException.class,
+                "capacity must be at least 1 and at most 2^30");
+        this.capacity = capacity;
+        this.strings = new String[capacity];
+    }
+
+    /**
+     * Return the maximum number of Strings in the dictionary.
+     * @return the maximum number of Strings in the dictionary
+     */
+    public int getCapacity()
+    {
+        return this.capacity;
+    }
+
+    /**
+     * Return the number of Strings in the dictionary.
+     * @return the number of Strings in the dictionary
+     */
+    public int size()
+    {
+        int result = 0;
+        for (String string : this.strings)
+        {
+            if (null != string)
+            {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Remove all Strings from the dictionary, e.g., when a new session starts. The dictionaries on both sides of a stream
+     * must be cleared at the same point in the stream.
+     */
+    public void clear()
+    {
+        Arrays.fill(this.strings, null);
+        this.sequenceNumbers.clear();
+        this.definitions = 0;
+    }
+
+    /**
+     * Return the serializer for a String or String array that uses this dictionary.
+     * @param object the object to serialize
+     * @return the serializer that uses this dictionary, or null if object is not a String or a String array
+     */
+    Serializer<?> findEncoder(final Object object)
+    {
+        return object instanceof String ? this.stringSerializer
+                : object instanceof String[] ? this.stringArraySerializer : null;
+    }
+
+    /**
+     * Return a map of decoders that is extended with the decoders of this dictionary.
+     * @param decoderMap TypedObject.PRIMITIVE_DATA_DECODERS or TypedObject.OBJECT_DECODERS
+     * @return the extended map of decoders
+     */
+    Map<Byte, Serializer<?>> decoders(final Map<Byte, Serializer<?>> decoderMap)
+    {
+        boolean primitive = decoderMap == TypedObject.PRIMITIVE_DATA_DECODERS;
+        Map<Byte, Serializer<?>> result = primitive ? this.primitiveDataDecoders : this.objectDecoders;
+        if (null == result)
+        {
+            result = new HashMap<>(decoderMap);
+            result.put(FieldTypes.STRING_DICT, this.stringSerializer);
+            result.put(FieldTypes.STRING_DICT_ARRAY, this.stringArraySerializer);
+            if (primitive)
+            {
+                this.primitiveDataDecoders = result;
+            }
+            else
+            {
+                this.objectDecoders = result;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Prepare for encoding a message.
+     * @throws IllegalStateException when this dictionary has been used for decoding
+     */
+    void beginMessage()
+    {
+        checkRole(true);
+        this.pendingSequenceNumbers.clear();
+        this.pendingStrings.clear();
+        this.numberOfCodes = 0;
+        this.writtenCodes = 0;
+    }
+
+    /**
+     * Add the Strings that were defined in a successfully encoded message to the dictionary.
+     */
+    void commitMessage()
+    {
+        for (String string : this.pendingStrings)
+        {
+            long sequenceNumber = this.definitions++;
+            int id = (int) (sequenceNumber % this.capacity);
+            String evicted = this.strings[id];
+            if (null != evicted && Long.valueOf(sequenceNumber - this.capacity).equals(this.sequenceNumbers.get(evicted)))
+            {
+                this.sequenceNumbers.remove(evicted);
+            }
+            this.strings[id] = string;
+            this.sequenceNumbers.put(string, sequenceNumber);
+        }
+        this.pendingStrings.clear();
+        this.pendingSequenceNumbers.clear();
+    }
+
+    /**
+     * Determine the code of a String in the message that is being encoded: twice the id, plus one if the String is new.
+     * @param string the String
+     * @return the code of the String
+     */
+    private int plan(final String string)
+    {
+        Throw.whenNull(string, "string may not be null");
+        long next = this.definitions + this.pendingStrings.size();
+        Long sequenceNumber = this.pendingSequenceNumbers.get(string);
+        if (null == sequenceNumber)
+        {
+            sequenceNumber = this.sequenceNumbers.get(string);
+        }
+        int code;
+        if (null != sequenceNumber && next - sequenceNumber < this.capacity)
+        {
+            code = (int) (sequenceNumber % this.capacity) << 1;
+        }
+        else
+        {
+            this.pendingSequenceNumbers.put(string, next);
+            this.pendingStrings.add(string);
+            code = ((int) (next % this.capacity) << 1) | 1;
+        }
+        if (this.numberOfCodes == this.codes.length)
+        {
+            this.codes = Arrays.copyOf(this.codes, 2 * this.codes.length);
+        }
+        this.codes[this.numberOfCodes++] = code;
+        return code;
+    }
+
+    /**
+     * Return the number of bytes needed for a String with a given code.
+     * @param code the code of the String
+     * @param string the String
+     * @return the number of bytes needed for the String
+     */
+    private static int codeSize(final int code, final String string)
+    {
+        int size = 1;
+        for (int rest = code >>> 7; rest != 0; rest >>>= 7)
+        {
+            size++;
+        }
+        return 0 == (code & 1) ? size : size + 4 + Endianness.utf8Length(string);
+    }
+
+    /**
+     * Write the next String of the message that is being encoded.
+     * @param string the String
+     * @param buffer the buffer to write to
+     * @param pointer position in the buffer
+     * @param endianness the endianness for the length of a new String
+     */
+    private void write(final String string, final byte[] buffer, final Pointer pointer, final Endianness endianness)
+    {
+        Throw.when(this.writtenCodes >= this.numberOfCodes, IllegalStateException.class,
+                "size of the message was not computed before it was serialized");
+        int code = this.codes[this.writtenCodes++];
+        int p = pointer.get();
+        int rest = code;
+        while ((rest & ~0x7F) != 0)
+        {
+            buffer[p++] = (byte) ((rest & 0x7F) | 0x80);
+            rest >>>= 7;
+        }
+        buffer[p++] = (byte) rest;
+        pointer.inc(p - pointer.get());
+        if (0 != (code & 1))
+        {
+            pointer.inc(endianness.encodeUTF8String(string, buffer, pointer.get()));
+        }
+    }
+
+    /**
+     * Read a String, and add it to the dictionary if it is new.
+     * @param buffer the buffer to read from
+     * @param pointer position in the buffer
+     * @param endianness the endianness for the length of a new String
+     * @return the String
+     * @throws SerializationException when the String refers to an id that is not in the dictionary
+     */
+    private String read(final byte[] buffer, final Pointer pointer, final Endianness endianness) throws SerializationException
+    {
+        checkRole(false);
+        int code = 0;
+        for (int shift = 0;; shift += 7)
+        {
+            Throw.when(shift > 28, SerializationException.class, "Bad variable length integer at position %d", pointer.get());
+            byte b = buffer[pointer.getAndIncrement(1)];
+            code |= (b & 0x7F) << shift;
+            if (b >= 0)
+            {
+                break;
+            }
+        }
+        int id = code >>> 1;
+        Throw.when(id >= this.capacity, SerializationException.class,
+                "String id %d exceeds the capacity %d of the dictionary", id, this.capacity);
+        if (0 != (code & 1))
+        {
+            int bytesUsed = endianness.decodeInt(buffer, pointer.get());
+            this.strings[id] = endianness.decodeUTF8String(buffer, pointer.get());
+            pointer.inc(4 + bytesUsed);
+        }
+        Throw.when(null == this.strings[id], SerializationException.class, "String id %d is not in the dictionary", id);
+        return this.strings[id];
+    }
+
+    /**
+     * Check that this dictionary is used for one direction only.
+     * @param forEncoding whether the dictionary is about to be used for encoding
+     * @throws IllegalStateException when the dictionary has been used for the other direction
+     */
+    private void checkRole(final boolean forEncoding)
+    {
+        if (null == this.encoding)
+        {
+            this.encoding = forEncoding;
+        }
+        Throw.when(this.encoding != forEncoding, IllegalStateException.class,
+                "A StringDictionary can be used either for encoding or for decoding");
+    }
+
+    @Override
+    public String toString()
+    {
+        return "StringDictionary [capacity=" + this.capacity + ", size=" + size() + "]";
+    }
+
+}
@@ -91,11 +91,57 @@ public final class TypedMessage
      * @return the zeroMQ message to send as a byte array
      * @throws SerializationException on unknown data type
      */
-    @SuppressWarnings({"unchecked", "rawtypes"})
     private static byte[] encode(final boolean utf8, final Endianness endianness, final Object... content)
             throws SerializationException
     {
-        Serializer[] serializers = buildEncoderList(utf8, content);
+        return encode(buildEncoderList(utf8, content), endianness, content);
+    }
+
+    /**
+     * Encode the object array into a byte[] message, using a session-scoped dictionary for the String and String array fields.
+     * A String that was encoded before with the same dictionary is transmitted as a reference to its id in the dictionary.
+     * The other fields are encoded as by <code>encodeUTF8</code>. The message must be decoded with a decode method that takes
+     * the StringDictionary of the receiving side of the stream.
+     * @param endianness encoder for multi-byte values
+     * @param dictionary the dictionary of the sending side of the stream
+     * @param content the objects to encode
+     * @return the zeroMQ message to send as a byte array
+     * @throws SerializationException on unknown data type
+     * @throws IllegalStateException when the dictionary has been used for decoding
+     */
+    @SuppressWarnings("rawtypes")
+    public static byte[] encode(final Endianness endianness, final StringDictionary dictionary, final Object... content)
+            throws SerializationException
+    {
+        Throw.whenNull(dictionary, "dictionary may not be null");
+        Serializer[] serializers = buildEncoderList(true, content);
+        for (int i = 0; i < content.length; i++)
+        {
+            Serializer<?> serializer = dictionary.findEncoder(content[i]);
+            if (null != serializer)
+            {
+                serializers[i] = serializer;
+            }
+        }
+        dictionary.beginMessage();
+        byte[] message = encode(serializers, endianness, content);
+        // Only a message that is actually sent may change the dictionary
+        dictionary.commitMessage();
+        return message;
+    }
+
+    /**
+     * Encode the object array with the given serializers.
+     * @param serializers the serializers, one for each object
+     * @param endianness encoder for multi-byte values
+     * @param content the objects to encode
+     * @return the zeroMQ message to send as a byte array
+     * @throws SerializationException on unknown data type
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static byte[] encode(final Serializer[] serializers, final Endianness endianness, final Object... content)
+            throws SerializationException
+    {
         // Pass one: compute total size
         int size = 0;
         for (int i = 0; i < serializers.length; i++)
@@ -144,6 +190,80 @@ public final class TypedMessage
         return decode(endianness, buffer, TypedObject.OBJECT_DECODERS);
     }
 
+    /**
+     * Decode a message that was encoded with a session-scoped string dictionary into an object array, constructing Java
+     * Primitive data arrays and matrices where possible. Messages of a stream must be decoded in the order in which they were
+     * encoded.
+     * @param endianness use big-endian or little-endian encoding
+     * @param buffer the byte array to decode
+     * @param dictionary the dictionary of the receiving side of the stream
+     * @return an array of objects of the right type
+     * @throws SerializationException on unknown data type, or a reference to a String that is not in the dictionary
+     * @throws IllegalStateException when the dictionary has been used for encoding
+     */
+    public static Object[] decodeToPrimitiveDataTypes(final Endianness endianness, final byte[] buffer,
+            final StringDictionary dictionary) throws SerializationException
+    {
+        Throw.whenNull(dictionary, "dictionary may not be null");
+        return decode(endianness, buffer, dictionary.decoders(TypedObject.PRIMITIVE_DATA_DECODERS));
+    }
+
+    /**
+     * Decode a message that was encoded with a session-scoped string dictionary into an object array, constructing Java Object
+     * arrays and matrices where possible. Messages of a stream must be decoded in the order in which they were encoded.
+     * @param endianness use big-endian or little-endian encoding
+     * @param buffer the byte array to decode
+     * @param dictionary the dictionary of the receiving side of the stream
+     * @return an array of objects of the right type
+     * @throws SerializationException on unknown data type, or a reference to a String that is not in the dictionary
+     * @throws IllegalStateException when the dictionary has been used for encoding
+     */
+    public static Object[] decodeToObjectDataTypes(final Endianness endianness, final byte[] buffer,
+            final StringDictionary dictionary) throws SerializationException
+    {
+        Throw.whenNull(dictionary, "dictionary may not be null");
+        return decode(endianness, buffer, dictionary.decoders(TypedObject.OBJECT_DECODERS));
+    }
+
+    /**
+     * Decode the message into a reusable holder. The primitive values, arrays and matrices of the message are stored in the
+     * buffers of the holder, which are only reallocated when a field needs more room than before. Decoding messages of the
+     * same shape into the same holder therefore does not allocate memory, except for String values.
+     * @param endianness use big-endian or little-endian encoding
+     * @param buffer the byte array to decode
+     * @param holder the holder to decode the message into
+     * @return the holder
+     * @throws SerializationException on unknown data type
+     */
+    public static MessageHolder decodeInto(final Endianness endianness, final byte[] buffer, final MessageHolder holder)
+            throws SerializationException
+    {
+        Throw.whenNull(holder, "holder may not be null");
+        holder.decode(endianness, buffer, TypedObject.PRIMITIVE_DATA_DECODERS);
+        return holder;
+    }
+
+    /**
+     * Decode a message that was encoded with a session-scoped string dictionary into a reusable holder. Fields with dictionary
+     * Strings are stored as objects in the holder. Messages of a stream must be decoded in the order in which they were
+     * encoded.
+     * @param endianness use big-endian or little-endian encoding
+     * @param buffer the byte array to decode
+     * @param holder the holder to decode the message into
+     * @param dictionary the dictionary of the receiving side of the stream
+     * @return the holder
+     * @throws SerializationException on unknown data type, or a reference to a String that is not in the dictionary
+     * @throws IllegalStateException when the dictionary has been used for encoding
+     */
+    public static MessageHolder decodeInto(final Endianness endianness, final byte[] buffer, final MessageHolder holder,
+            final StringDictionary dictionary) throws SerializationException
+    {
+        Throw.whenNull(holder, "holder may not be null");
+        Throw.whenNull(dictionary, "dictionary may not be null");
+        holder.decode(endianness, buffer, dictionary.decoders(TypedObject.PRIMITIVE_DATA_DECODERS));
+        return holder;
+    }
+
     /**
      * Decode the message into an object array.
      * @param endianness use big-endian or little-endian encoding
@@ -154,10 +274,27 @@ public final class TypedMessage
      */
     public static Object[] decode(final Endianness endianness, final byte[] buffer, final Map<Byte, Serializer<?>> decoderMap)
             throws SerializationException
+    {
+        return decode(endianness, buffer, 0, buffer.length, decoderMap);
+    }
+
+    /**
+     * Decode the message that occupies part of a buffer into an object array.
+     * @param endianness use big-endian or little-endian encoding
+     * @param buffer the byte array that holds the message
+     * @param start the position of the first byte of the message
+     * @param end the position just beyond the last byte of the message
+     * @param decoderMap the map with decoders to use
+     * @return an array of objects of the right type
+     * @throws SerializationException on unknown data type
+     */
+    static Object[] decode(final Endianness endianness, final byte[] buffer, final int start, final int end,
+            final Map<Byte, Serializer<?>> decoderMap) throws SerializationException
     {
         List<Object> list = new ArrayList<>();
         Pointer pointer = new Pointer();
-        while (pointer.get() < buffer.length)
+        pointer.inc(start);
+        while (pointer.get() < end)
         {
             Byte fieldType = buffer[pointer.getAndIncrement(1)];
             Serializer<?> serializer = decoderMap.get(fieldType);
@@ -0,0 +1,277 @@
+package org.djutils.serialization;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import org.djutils.exceptions.Throw;
+import org.djutils.serialization.serializers.Pointer;
+import org.djutils.serialization.serializers.Serializer;
+
+/**
+ * Encoding and decoding of batches of independent messages on an Executor. A batch is encoded into one buffer, in which each
+ * message is preceded by its length in bytes, encoded as a 32-bit int with the endianness of the batch. This is the same
+ * format as the logs that are read by the BulkSerialDataDecoder.
+ * <p>
+ * Encoding takes three steps: the serializers and the sizes of the messages are determined in parallel, the offsets of the
+ * messages in the buffer are computed as the prefix sum of the sizes, and the messages are encoded in parallel into their own
+ * slices of the buffer. Decoding first locates the messages by walking the lengths, and then decodes the messages in
+ * parallel. The messages are divided into chunks of consecutive messages; each chunk is one task for the executor. Messages
+ * that use a StringDictionary depend on the messages before them, and can therefore not be encoded in a batch.
+ * </p>
+ * <p>
+ * Copyright (c) 2016-2025 Delft University of Technology, PO Box 5, 2600 AA, Delft, the Netherlands. All rights reserved. <br>
+ * BSD-style license. See <a href="https://sim0mq.org/docs/current/license.html">OpenTrafficSim License</a>.
+ * </p>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://www.tudelft.nl/staff/p.knoppers/">Peter Knoppers</a>
+ */
+public final class TypedMessageBatch
+{
+    /** Number of chunks per available processor, to balance chunks with messages of different sizes. */
+    private static final int CHUNKS_PER_PROCESSOR = 4;
+
+    /**
+     * Do not instantiate this utility class.
+     */
+    private TypedMessageBatch()
+    {
+        // Utility class; do not instantiate.
+    }
+
+    /**
+     * Encode a batch of messages into one buffer. Use UTF8 for the characters and for the Strings.
+     * @param endianness encoder to use for multi-byte values and for the lengths of the messages
+     * @param contents the objects to encode, one array per message
+     * @param executor the executor that encodes the messages
+     * @return the buffer with the messages, each preceded by its length
+     * @throws SerializationException on unknown data type, or when the batch does not fit in one buffer
+     */
+    public static byte[] encodeUTF8(final Endianness endianness, final List<Object[]> contents, final Executor executor)
+            throws SerializationException
+    {
+        return encode(true, endianness, contents, executor);
+    }
+
+    /**
+     * Encode a batch of messages into one buffer. Use UTF16 for the characters and for the Strings.
+     * @param endianness encoder to use for multi-byte values and for the lengths of the messages
+     * @param contents the objects to encode, one array per message
+     * @param executor the executor that encodes the messages
+     * @return the buffer with the messages, each preceded by its length
+     * @throws SerializationException on unknown data type, or when the batch does not fit in one buffer
+     */
+    public static byte[] encodeUTF16(final Endianness endianness, final List<Object[]> contents, final Executor executor)
+            throws SerializationException
+    {
+        return encode(false, endianness, contents, executor);
+    }
+
+    /**
+     * Encode a batch of messages into one buffer.
+     * @param utf8 whether to encode String fields and characters in utf8 or not
+     * @param endianness encoder to use for multi-byte values and for the lengths of the messages
+     * @param contents the objects to encode, one array per message
+     * @param executor the executor that encodes the messages
+     * @return the buffer with the messages, each preceded by its length
+     * @throws SerializationException on unknown data type, or when the batch does not fit in one buffer
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static byte[] encode(final boolean utf8, final Endianness endianness, final List<Object[]> contents,
+            final Executor executor) throws SerializationException
+    {
+        Throw.whenNull(endianness, "endianness may not be null");
+        Throw.whenNull(contents, "contents may not be null");
+        Throw.whenNull(executor, "executor may not be null");
+        Object[][] messages = contents.toArray(new Object[contents.size()][]);
+        int n = messages.length;
+        Serializer[][] serializers = new Serializer[n][];
+        int[] sizes = new int[n];
+        forEach(n, executor, (i) ->
+        {
+            Throw.whenNull(messages[i], "content of message %d may not be null", i);
+            serializers[i] = TypedMessage.buildEncoderList(utf8, messages[i]);
+            long size = 0;
+            for (int field = 0; field < serializers[i].length; field++)
+            {
+                size += serializers[i][field].sizeWithPrefix(messages[i][field]);
+            }
+            Throw.when(size > Integer.MAX_VALUE, SerializationException.class, "Message %d is too large", i);
+            sizes[i] = (int) size;
+        });
+
+        // the offset of each message is the prefix sum of the sizes and lengths of the messages before it
+        int[] offsets = new int[n];
+        long offset = 0;
+        for (int i = 0; i < n; i++)
+        {
+            offsets[i] = (int) offset;
+            offset += 4 + sizes[i];
+            Throw.when(offset > Integer.MAX_VALUE - 8, SerializationException.class, "Batch too large for one buffer");
+        }
+
+        byte[] buffer = new byte[(int) offset];
+        forEach(n, executor, (i) ->
+        {
+            endianness.encodeInt(sizes[i], buffer, offsets[i]);
+            Pointer pointer = new Pointer();
+            pointer.inc(offsets[i] + 4);
+            for (int field = 0; field < serializers[i].length; field++)
+            {
+                serializers[i][field].serializeWithPrefix(messages[i][field], buffer, pointer, endianness);
+            }
+            Throw.when(pointer.get() != offsets[i] + 4 + sizes[i], SerializationException.class,
+                    "Data size error in message %d (reserved %d, used %d)", i, sizes[i], pointer.get() - offsets[i] - 4);
+        });
+        return buffer;
+    }
+
+    /**
+     * Decode a batch of messages, constructing Java Primitive data arrays and matrices where possible.
+     * @param endianness use big-endian or little-endian encoding for the values and the lengths of the messages
+     * @param buffer the buffer with the messages, each preceded by its length
+     * @param executor the executor that decodes the messages
+     * @return a list with an array of objects of the right type for each message
+     * @throws SerializationException on unknown data type, or a bad message length
+     */
+    public static List<Object[]> decodeToPrimitiveDataTypes(final Endianness endianness, final byte[] buffer,
+            final Executor executor) throws SerializationException
+    {
+        return decode(endianness, buffer, TypedObject.PRIMITIVE_DATA_DECODERS, executor);
+    }
+
+    /**
+     * Decode a batch of messages, constructing Java Object arrays and matrices where possible.
+     * @param endianness use big-endian or little-endian encoding for the values and the lengths of the messages
+     * @param buffer the buffer with the messages, each preceded by its length
+     * @param executor the executor that decodes the messages
+     * @return a list with an array of objects of the right type for each message
+     * @throws SerializationException on unknown data type, or a bad message length
+     */
+    public static List<Object[]> decodeToObjectDataTypes(final Endianness endianness, final byte[] buffer,
+            final Executor executor) throws SerializationException
+    {
+        return decode(endianness, buffer, TypedObject.OBJECT_DECODERS, executor);
+    }
+
+    /**
+     * Decode a batch of messages.
+     * @param endianness use big-endian or little-endian encoding for the values and the lengths of the messages
+     * @param buffer the buffer with the messages, each preceded by its length
+     * @param decoderMap the map with decoders to use
+     * @param executor the executor that decodes the messages
+     * @return a list with an array of objects of the right type for each message
+     * @throws SerializationException on unknown data type, or a bad message length
+     */
+    private static List<Object[]> decode(final Endianness endianness, final byte[] buffer,
+            final Map<Byte, Serializer<?>> decoderMap, final Executor executor) throws SerializationException
+    {
+        Throw.whenNull(endianness, "endianness may not be null");
+        Throw.whenNull(buffer, "buffer may not be null");
+        Throw.whenNull(executor, "executor may not be null");
+        int[] offsets = offsets(endianness, buffer);
+        int n = offsets.length - 1;
+        Object[][] result = new Object[n][];
+        forEach(n, executor, (i) -> result[i] = TypedMessage.decode(endianness, buffer, offsets[i] + 4, offsets[i + 1],
+                decoderMap));
+        return Arrays.asList(result);
+    }
+
+    /**
+     * Locate the messages in a buffer by walking their lengths.
+     * @param endianness the endianness of the lengths
+     * @param buffer the buffer with the messages, each preceded by its length
+     * @return the offsets of the lengths of the messages, followed by the length of the buffer
+     * @throws SerializationException when a length is negative, or extends beyond the end of the buffer
+     */
+    private static int[] offsets(final Endianness endianness, final byte[] buffer) throws SerializationException
+    {
+        int[] offsets = new int[16];
+        int n = 0;
+        int offset = 0;
+        while (offset < buffer.length)
+        {
+            Throw.when(buffer.length - offset < 4, SerializationException.class, "Truncated message length at position %d",
+                    offset);
+            int length = endianness.decodeInt(buffer, offset);
+            Throw.when(length < 0 || length > buffer.length - offset - 4, SerializationException.class,
+                    "Bad message length %d at position %d", length, offset);
+            if (n + 1 == offsets.length)
+            {
+                offsets = Arrays.copyOf(offsets, 2 * offsets.length);
+            }
+            offsets[n++] = offset;
+            offset += 4 + length;
+        }
+        offsets[n] = offset;
+        return Arrays.copyOf(offsets, n + 1);
+    }
+
+    /**
+     * Execute a task for the messages 0 to n - 1, in chunks of consecutive messages, and wait until all chunks are done.
+     * @param n the number of messages
+     * @param executor the executor for the chunks
+     * @param task the task for one message
+     * @throws SerializationException when the task for a message fails
+     */
+    private static void forEach(final int n, final Executor executor, final MessageTask task) throws SerializationException
+    {
+        int chunks = Math.min(n, CHUNKS_PER_PROCESSOR * Runtime.getRuntime().availableProcessors());
+        List<CompletableFuture<Void>> futures = new ArrayList<>(chunks);
+        for (int chunk = 0; chunk < chunks; chunk++)
+        {
+            int from = (int) ((long) n * chunk / chunks);
+            int to = (int) ((long) n * (chunk + 1) / chunks);
+            futures.add(CompletableFuture.runAsync(() ->
+            {
+                try
+                {
+                    for (int i = from; i < to; i++)
+                    {
+                        task.run(i);
+                    }
+                }
+                catch (SerializationException exception)
+                {
+                    throw new SerializationRuntimeException(exception);
+                }
+            }, executor));
+        }
+        try
+        {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[chunks])).join();
+        }
+        catch (CompletionException exception)
+        {
+            if (exception.getCause() instanceof SerializationRuntimeException
+                    && exception.getCause().getCause() instanceof SerializationException)
+            {
+                throw (SerializationException) exception.getCause().getCause();
+            }
+            if (exception.getCause() instanceof RuntimeException)
+            {
+                throw (RuntimeException) exception.getCause();
+            }
+            throw exception;
+        }
+    }
+
+    /**
+     * Task for one message of a batch.
+     */
+    @FunctionalInterface
+    private interface MessageTask
+    {
+        /**
+         * Process one message.
+         * @param i the index of the message
+         * @throws SerializationException when the message cannot be processed
+         */
+        void run(int i) throws SerializationException;
+    }
+
+}
@@ -226,7 +226,7 @@ public final class TypedObject
                 @Override
                 public int size(final String object)
                 {
-                    return 4 + object.getBytes(UTF16).length;
+                    return 4 + 2 * object.length();
                 }
 
                 @Override
@@ -236,13 +236,7 @@ public final class TypedObject
                     // Note that according to https://stackoverflow.com/questions/74887443, String.length returns the number of
                     // code units (i.e. the number of 16-bit char values) needed to make up the String and not the number of
                     // Unicode codepoints.
-                    char[] chars = new char[string.length()];
-                    string.getChars(0, chars.length, chars, 0);
-                    endianness.encodeInt(chars.length, buffer, pointer.getAndIncrement(4));
-                    for (char c : chars)
-                    {
-                        endianness.encodeChar(c, buffer, pointer.getAndIncrement(2));
-                    }
+                    pointer.inc(endianness.encodeUTF16String(string, buffer, pointer.get()));
                 }
 
                 @Override
@@ -260,18 +254,13 @@ public final class TypedObject
         @Override
         public int size(final String string)
         {
-            return 4 + string.getBytes(UTF8).length;
+            return 4 + Endianness.utf8Length(string);
         }
 
         @Override
         public void serialize(final String string, final byte[] buffer, final Pointer pointer, final Endianness endianness)
         {
-            byte[] s = string.getBytes(UTF8);
-            endianness.encodeInt(s.length, buffer, pointer.getAndIncrement(4));
-            for (byte b : s)
-            {
-                buffer[pointer.getAndIncrement(1)] = b;
-            }
+            pointer.inc(endianness.encodeUTF8String(string, buffer, pointer.get()));
         }
 
         @Override
@@ -1139,7 +1128,7 @@ public final class TypedObject
 
     /** Converter for array of SerializebleObject using UTF16 for strings and characters. */
     protected static final Serializer<SerializableObject<?>[]> COMPOUND_ARRAY_SERIALIZER_UTF16 =
-            new ObjectSerializer<SerializableObject<?>[]>((byte) 120, "Compound")
+            new ObjectSerializer<SerializableObject<?>[]>(FieldTypes.COMPOUND_ARRAY_UTF16, "Compound")
             {
 
                 @SuppressWarnings({"unchecked", "rawtypes"})
@@ -1215,7 +1204,7 @@ public final class TypedObject
 
     /** Converter for array of SerializebleObject using UTF8 for strings and characters. */
     protected static final Serializer<SerializableObject<?>[]> COMPOUND_ARRAY_SERIALIZER_UTF8 =
-            new ObjectSerializer<SerializableObject<?>[]>((byte) 121, "Compound")
+            new ObjectSerializer<SerializableObject<?>[]>(FieldTypes.COMPOUND_ARRAY_UTF8, "Compound")
             {
 
                 @SuppressWarnings({"unchecked", "rawtypes"})
@@ -1299,7 +1288,7 @@ public final class TypedObject
                     int size = 4;
                     for (String string : stringArray)
                     {
-                        size += 4 + string.getBytes(UTF8).length;
+                        size += 4 + Endianness.utf8Length(string);
                     }
                     return size;
                 }
@@ -1311,12 +1300,7 @@ public final class TypedObject
                     endianness.encodeInt(stringArray.length, buffer, pointer.getAndIncrement(4));
                     for (String string : stringArray)
                     {
-                        byte[] s = string.getBytes(UTF8);
-                        endianness.encodeInt(s.length, buffer, pointer.getAndIncrement(4));
-                        for (byte b : s)
-                        {
-                            buffer[pointer.getAndIncrement(1)] = b;
-                        }
+                        pointer.inc(endianness.encodeUTF8String(string, buffer, pointer.get()));
                     }
                 }
 
@@ -1347,7 +1331,7 @@ public final class TypedObject
                     int size = 4;
                     for (String string : stringArray)
                     {
-                        size += 4 + string.getBytes(UTF16).length;
+                        size += 4 + 2 * string.length();
                     }
                     return size;
                 }
@@ -1362,13 +1346,7 @@ public final class TypedObject
                         // Note that according to https://stackoverflow.com/questions/74887443, String.length returns
                         // the number of code units (i.e. the number of 16-bit char values) needed to make up the String
                         // and not the number of Unicode codepoints.
-                        char[] chars = new char[string.length()];
-                        string.getChars(0, chars.length, chars, 0);
-                        endianness.encodeInt(chars.length, buffer, pointer.getAndIncrement(4));
-                        for (char c : chars)
-                        {
-                            endianness.encodeChar(c, buffer, pointer.getAndIncrement(2));
-                        }
+                        pointer.inc(endianness.encodeUTF16String(string, buffer, pointer.get()));
                     }
                 }
 
@@ -1398,7 +1376,7 @@ public final class TypedObject
                     {
                         for (String string : stringArray)
                         {
-                            size += 4 + string.getBytes(UTF8).length;
+                            size += 4 + Endianness.utf8Length(string);
                         }
                     }
                     return size;
@@ -1418,12 +1396,7 @@ public final class TypedObject
                                 "Jagged matrix is not allowed");
                         for (int j = 0; j < width; j++)
                         {
-                            byte[] s = stringMatrix[i][j].getBytes(UTF8);
-                            endianness.encodeInt(s.length, buffer, pointer.getAndIncrement(4));
-                            for (byte b : s)
-                            {
-                                buffer[pointer.getAndIncrement(1)] = b;
-                            }
+                            pointer.inc(endianness.encodeUTF8String(stringMatrix[i][j], buffer, pointer.get()));
                         }
                     }
                 }
@@ -1460,7 +1433,7 @@ public final class TypedObject
                     {
                         for (String string : stringArray)
                         {
-                            size += 4 + string.getBytes(UTF16).length;
+                            size += 4 + 2 * string.length();
                         }
                     }
                     return size;
@@ -1483,13 +1456,7 @@ public final class TypedObject
                             // Note that according to https://stackoverflow.com/questions/74887443, String.length returns
                             // the number of code units (i.e. the number of 16-bit char values) needed to make up the String
                             // and not the number of Unicode codepoints.
-                            char[] chars = new char[stringMatrix[i][j].length()];
-                            stringMatrix[i][j].getChars(0, chars.length, chars, 0);
-                            endianness.encodeInt(chars.length, buffer, pointer.getAndIncrement(4));
-                            for (char c : chars)
-                            {
-                                endianness.encodeChar(c, buffer, pointer.getAndIncrement(2));
-                            }
+                            pointer.inc(endianness.encodeUTF16String(stringMatrix[i][j], buffer, pointer.get()));
                         }
                     }
                 }
@@ -0,0 +1,215 @@
+package org.djutils.serialization;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.djunits.unit.LengthUnit;
+import org.djunits.unit.SpeedUnit;
+import org.djunits.value.storage.StorageType;
+import org.djunits.value.vdouble.scalar.Length;
+import org.djunits.value.vdouble.vector.SpeedVector;
+import org.djutils.test.UnitTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * BulkSerialDataDecoderTest tests dumping logs of messages with the BulkSerialDataDecoder.
+ * <p>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>.
+ * </p>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ */
+public class BulkSerialDataDecoderTest
+{
+    /**
+     * Create the messages of a log.
+     * @param endianness the endianness
+     * @param count the number of messages
+     * @return the messages
+     * @throws SerializationException when that happens uncaught this test has failed
+     */
+    private static byte[][] messages(final Endianness endianness, final int count) throws SerializationException
+    {
+        StringDictionary dictionary = new StringDictionary(100);
+        byte[][] messages = new byte[count][];
+        for (int i = 0; i < count; i++)
+        {
+            switch (i % 4)
+            {
+                case 0:
+                    messages[i] = TypedMessage.encodeUTF8(endianness, (byte) i, (short) -i, i, (long) i << 33, 0.5f, i / 4.0,
+                            true, 'c', "text\n" + i);
+                    break;
+                case 1:
+                    messages[i] = TypedMessage.encodeUTF16(endianness, new int[] {1, 2, i}, new double[][] {{1, 2}, {3, 4}},
+                            new String[] {"a", "b"}, '€', "€" + i);
+                    break;
+                case 2:
+                    messages[i] = TypedMessage.encodeUTF8(endianness, new Length(i, LengthUnit.KILOMETER),
+                            new SpeedVector(new double[] {10.0, 20.0}, SpeedUnit.KM_PER_HOUR, StorageType.DENSE),
+                            new TypedObject.MinimalSerializableObject[] {
+                                    new TypedObject.MinimalSerializableObject(List.of(i, "x")),
+                                    new TypedObject.MinimalSerializableObject(List.of(-i, "y"))});
+                    break;
+                default:
+                    messages[i] = TypedMessage.encode(endianness, dictionary, "name" + (i % 3), new String[] {"p", "q"});
+                    break;
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * Write messages to a log, each message preceded by its length.
+     * @param file the file
+     * @param endianness the endianness
+     * @param messages the messages
+     * @param trailer bytes to append to the log
+     * @throws IOException when that happens uncaught this test has failed
+     */
+    private static void writeLog(final Path file, final Endianness endianness, final byte[][] messages, final byte... trailer)
+            throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] length = new byte[4];
+        for (byte[] message : messages)
+        {
+            endianness.encodeInt(message.length, length, 0);
+            out.write(length);
+            out.write(message);
+        }
+        out.write(trailer);
+        Files.write(file, out.toByteArray());
+    }
+
+    /**
+     * Dump a log to a String.
+     * @param decoder the decoder
+     * @param file the log
+     * @param expectedCount the expected number of messages
+     * @return the output
+     * @throws IOException when that happens uncaught this test has failed
+     */
+    private static String dump(final BulkSerialDataDecoder decoder, final Path file, final long expectedCount)
+            throws IOException
+    {
+        StringWriter writer = new StringWriter();
+        assertEquals(expectedCount, decoder.dump(file, writer));
+        return writer.toString();
+    }
+
+    /**
+     * The output of the sequential and parallel dump is identical, independent of the sizes of the segments and windows.
+     * @param dir temporary directory for the log
+     * @throws Exception when that happens uncaught this test has failed
+     */
+    @Test
+    public void testDump(@TempDir final Path dir) throws Exception
+    {
+        for (Endianness endianness : new Endianness[] {Endianness.BIG_ENDIAN, Endianness.LITTLE_ENDIAN})
+        {
+            Path file = dir.resolve("log-" + endianness);
+            byte[][] messages = messages(endianness, 200);
+            writeLog(file, endianness, messages);
+            String expected = dump(new BulkSerialDataDecoder(endianness), file, 200);
+            assertTrue(expected.startsWith("Message 0 at 00000004, length " + messages[0].length + "\n"), expected);
+            assertTrue(expected.contains("Message 199 at "));
+            assertFalse(expected.contains("Error"), expected);
+            assertTrue(expected.contains(": \"text.0\"\n"), "control characters are replaced");
+            assertTrue(expected.contains(": \"€1\"\n"));
+            assertTrue(expected.contains(": length 3: 1 2 1 \n"));
+            assertTrue(expected.contains(": height 2, width 2: 1.0 2.0 3.0 4.0 \n"));
+            assertTrue(expected.contains(": length 2: \"a\" \"b\" \n"));
+            assertTrue(expected.contains(": 2.0km\n"));
+            assertTrue(expected.contains(": length 2: 10.0km/h 20.0km/h \n"), expected);
+            assertTrue(expected.contains(": length 2, fields 2: {2, \"x\"} {-2, \"y\"} \n"));
+            assertTrue(expected.contains(": #0=\"name0\"\n"));
+            assertTrue(expected.contains(": #0\n"), "a known dictionary String is printed as its id");
+
+            for (int parallelism : new int[] {1, 3})
+            {
+                BulkSerialDataDecoder decoder =
+                        new BulkSerialDataDecoder(endianness).setParallelism(parallelism).setSegmentSize(100);
+                decoder.setWindowSize(1000);
+                assertEquals(expected, dump(decoder, file, 200), "parallelism " + parallelism);
+            }
+        }
+    }
+
+    /**
+     * Only the fields of the selected types are printed, and messages without such fields are skipped.
+     * @param dir temporary directory for the log
+     * @throws Exception when that happens uncaught this test has failed
+     */
+    @Test
+    public void testFilter(@TempDir final Path dir) throws Exception
+    {
+        Endianness endianness = Endianness.BIG_ENDIAN;
+        Path file = dir.resolve("log");
+        writeLog(file, endianness, messages(endianness, 8));
+        BulkSerialDataDecoder decoder = new BulkSerialDataDecoder(endianness).setFieldTypes(FieldTypes.DOUBLE_64_UNIT);
+        String output = dump(decoder, file, 8);
+        assertEquals(4, output.lines().count(), output);
+        assertTrue(output.startsWith("Message 2 at "), output);
+        assertTrue(output.contains("Message 6 at "));
+        assertTrue(output.lines().allMatch(line -> line.startsWith("Message") || line.endsWith("km")));
+        assertEquals(dump(decoder.setParallelism(2).setSegmentSize(1), file, 8), output);
+
+        decoder.setFieldTypes();
+        assertEquals(dump(new BulkSerialDataDecoder(endianness), file, 8), dump(decoder, file, 8));
+    }
+
+    /**
+     * Bad messages result in error lines.
+     * @param dir temporary directory for the log
+     * @throws Exception when that happens uncaught this test has failed
+     */
+    @Test
+    public void testErrors(@TempDir final Path dir) throws Exception
+    {
+        Endianness endianness = Endianness.LITTLE_ENDIAN;
+        BulkSerialDataDecoder decoder = new BulkSerialDataDecoder(endianness);
+        Path file = dir.resolve("log");
+
+        // unknown field type, and an array that extends beyond the message; the next message is decoded normally
+        byte[][] messages = new byte[][] {new byte[] {FieldTypes.INT_32, 1, 0, 0, 0, (byte) 99},
+                new byte[] {FieldTypes.INT_32_ARRAY, 9, 0, 0, 0, 1, 0, 0, 0}, TypedMessage.encodeUTF8(endianness, 5)};
+        writeLog(file, endianness, messages);
+        String output = dump(decoder, file, 3);
+        assertTrue(output.contains("  00000004 Integer_32: 1\n  Error at 00000009: unknown field type 99\n"), output);
+        assertTrue(output.contains("  Error at 0000000e: field extends beyond the end of the message\n"), output);
+        assertTrue(output.endsWith("Integer_32: 5\n"), output);
+
+        // bad length and truncated length end the dump
+        writeLog(file, endianness, messages, new byte[] {100, 0, 0, 0, 1});
+        output = dump(decoder, file, 3);
+        assertTrue(output.endsWith("Error: bad message length 100 at address 00000020\n"), output);
+        writeLog(file, endianness, messages, new byte[] {1, 0});
+        assertTrue(dump(decoder, file, 3).endsWith("Error: truncated message length at address 00000020\n"));
+
+        // message decoding without a log
+        assertEquals("Message 0 at 00000000, length 5\n  00000000 Integer_32: 5\n",
+                decoder.dumpMessage(TypedMessage.encodeUTF8(endianness, 5)));
+        assertTrue(decoder.toString().startsWith("BulkSerialDataDecoder"));
+
+        UnitTest.testFail(() -> new BulkSerialDataDecoder(null), NullPointerException.class);
+        UnitTest.testFail(() -> decoder.setParallelism(0), IllegalArgumentException.class);
+        UnitTest.testFail(() -> decoder.setSegmentSize(0), IllegalArgumentException.class);
+        UnitTest.testFail(() -> decoder.setFieldTypes((byte[]) null), NullPointerException.class);
+        UnitTest.testFail(() -> decoder.dumpMessage(null), NullPointerException.class);
+        UnitTest.testFail(() -> decoder.dump(null, new StringWriter()), NullPointerException.class);
+        UnitTest.testFail(() -> decoder.dump(file, null), NullPointerException.class);
+    }
+
+}
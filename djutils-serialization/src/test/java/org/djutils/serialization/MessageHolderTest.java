@@ -0,0 +1,203 @@
+package org.djutils.serialization;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.djunits.unit.ElectricalCurrentUnit;
+import org.djunits.unit.LengthUnit;
+import org.djunits.value.storage.StorageType;
+import org.djunits.value.vdouble.matrix.ElectricalCurrentMatrix;
+import org.djunits.value.vdouble.scalar.Length;
+import org.djunits.value.vfloat.vector.FloatLengthVector;
+import org.djutils.test.UnitTest;
+import org.junit.jupiter.api.Test;
+
+/**
+ * MessageHolderTest tests decoding messages into a reusable MessageHolder.
+ * <p>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>.
+ * </p>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ */
+public class MessageHolderTest
+{
+    /**
+     * Create a message with all primitive field types; the size of the arrays and matrices depends on n.
+     * @param n the size parameter
+     * @return the content of the message
+     */
+    private static Object[] content(final int n)
+    {
+        double[] doubles = new double[n];
+        long[][] longs = new long[2][n];
+        String[] strings = new String[n];
+        for (int i = 0; i < n; i++)
+        {
+            doubles[i] = i * 1.5;
+            longs[0][i] = i;
+            longs[1][i] = -i * 1000000000000L;
+            strings[i] = "s" + i;
+        }
+        return new Object[] {(byte) 12, (short) -3, 42 + n, 1L << 40, 2.5f, Math.PI, true, 'x', "text", new byte[] {1, 2, 3},
+                new short[] {4, 5}, new int[] {6, 7, 8, n}, new float[] {0.5f}, doubles, new boolean[] {true, false},
+                '\u20ac', longs, new int[][] {{1, 2}, {3, 4}, {5, 6}}, strings};
+    }
+
+    /**
+     * Decoding into a holder yields the same values as decoding into objects, for UTF-8 and UTF-16 encoding.
+     * @throws SerializationException when that happens uncaught this test has failed
+     */
+    @Test
+    public void testPrimitiveFields() throws SerializationException
+    {
+        for (Endianness endianness : new Endianness[] {Endianness.BIG_ENDIAN, Endianness.LITTLE_ENDIAN})
+        {
+            for (boolean utf8 : new boolean[] {true, false})
+            {
+                Object[] content = content(5);
+                byte[] message =
+                        utf8 ? TypedMessage.encodeUTF8(endianness, content) : TypedMessage.encodeUTF16(endianness, content);
+                Object[] expected = TypedMessage.decodeToPrimitiveDataTypes(endianness, message);
+                MessageHolder holder = TypedMessage.decodeInto(endianness, message, new MessageHolder());
+                assertEquals(expected.length, holder.getNumberOfFields());
+                assertEquals((byte) 12, holder.getField(0).getBytes()[0]);
+                assertEquals((short) -3, holder.getField(1).getShorts()[0]);
+                assertEquals(47, holder.getField(2).getInts()[0]);
+                assertEquals(1L << 40, holder.getField(3).getLongs()[0]);
+                assertEquals(2.5f, holder.getField(4).getFloats()[0]);
+                assertEquals(Math.PI, holder.getField(5).getDoubles()[0]);
+                assertTrue(holder.getField(6).getBooleans()[0]);
+                assertEquals('x', holder.getField(7).getChars()[0]);
+                assertEquals("text", holder.getField(8).getStrings()[0]);
+                assertEquals(0, holder.getField(8).getNumberOfDimensions());
+                assertArrayEquals((byte[]) expected[9], Arrays.copyOf(holder.getField(9).getBytes(), 3));
+                assertArrayEquals((short[]) expected[10], Arrays.copyOf(holder.getField(10).getShorts(), 2));
+                assertArrayEquals((int[]) expected[11], Arrays.copyOf(holder.getField(11).getInts(), 4));
+                assertArrayEquals((float[]) expected[12], Arrays.copyOf(holder.getField(12).getFloats(), 1));
+                assertArrayEquals((double[]) expected[13], Arrays.copyOf(holder.getField(13).getDoubles(), 5));
+                assertEquals(1, holder.getField(13).getNumberOfDimensions());
+                assertEquals(5, holder.getField(13).getCols());
+                assertArrayEquals((boolean[]) expected[14], Arrays.copyOf(holder.getField(14).getBooleans(), 2));
+                assertEquals(expected[15], holder.getField(15).getChars()[0]);
+                assertEquals(utf8 ? FieldTypes.CHAR_8 : FieldTypes.CHAR_16, holder.getField(15).getFieldType());
+                MessageHolder.Field longs = holder.getField(16);
+                assertEquals(2, longs.getNumberOfDimensions());
+                assertEquals(2, longs.getRows());
+                assertEquals(5, longs.getCols());
+                assertEquals(10, longs.getLength());
+                assertEquals(-4000000000000L, longs.getLongs()[1 * 5 + 4], "matrices are stored row by row");
+                assertEquals(5, holder.getField(17).getInts()[2 * 2 + 0]);
+                assertArrayEquals((String[]) expected[18], Arrays.copyOf(holder.getField(18).getStrings(), 5));
+                assertNull(holder.getField(18).getUnit());
+                assertNull(holder.getField(18).getObject());
+                assertTrue(holder.toString().startsWith("MessageHolder"));
+            }
+        }
+    }
+
+    /**
+     * Values with a unit are stored as SI values with their display unit.
+     * @throws SerializationException when that happens uncaught this test has failed
+     */
+    @Test
+    public void testUnitFields() throws SerializationException
+    {
+        Endianness endianness = Endianness.LITTLE_ENDIAN;
+        Length length = new Length(123.4, LengthUnit.FOOT);
+        FloatLengthVector lengths =
+                new FloatLengthVector(new float[] {1.5f, 2.5f}, LengthUnit.KILOMETER, StorageType.DENSE);
+        ElectricalCurrentMatrix currents = new ElectricalCurrentMatrix(new double[][] {{1.2, 2.3, 3.4}, {5.5, 6.6, 7.7}},
+                ElectricalCurrentUnit.MILLIAMPERE, StorageType.DENSE);
+        byte[] message = TypedMessage.encodeUTF8(endianness, length, lengths, currents);
+        MessageHolder holder = TypedMessage.decodeInto(endianness, message, new MessageHolder());
+        assertEquals(3, holder.getNumberOfFields());
+        assertEquals(FieldTypes.DOUBLE_64_UNIT, holder.getField(0).getFieldType());
+        assertEquals(LengthUnit.FOOT, holder.getField(0).getUnit());
+        assertEquals(length.getSI(), holder.getField(0).getDoubles()[0]);
+        assertEquals(LengthUnit.KILOMETER, holder.getField(1).getUnit());
+        assertEquals(2500f, holder.getField(1).getFloats()[1]);
+        assertEquals(ElectricalCurrentUnit.MILLIAMPERE, holder.getField(2).getUnit());
+        assertEquals(3, holder.getField(2).getCols());
+        assertEquals(currents.getSI(1, 2), holder.getField(2).getDoubles()[5], 1E-12);
+        assertTrue(holder.getField(2).toString().contains("unit"));
+    }
+
+    /**
+     * The buffers are reused for messages of the same shape, and only grow when a field needs more room.
+     * @throws SerializationException when that happens uncaught this test has failed
+     */
+    @Test
+    public void testReuse() throws SerializationException
+    {
+        Endianness endianness = Endianness.BIG_ENDIAN;
+        MessageHolder holder = new MessageHolder();
+        TypedMessage.decodeInto(endianness, TypedMessage.encodeUTF8(endianness, content(8)), holder);
+        MessageHolder.Field field = holder.getField(13);
+        double[] doubles = field.getDoubles();
+        long[] longs = holder.getField(16).getLongs();
+
+        // smaller and equal messages reuse the buffers
+        for (int n : new int[] {3, 8, 0, 8})
+        {
+            assertSame(holder, TypedMessage.decodeInto(endianness, TypedMessage.encodeUTF8(endianness, content(n)), holder));
+            assertSame(field, holder.getField(13));
+            assertSame(doubles, holder.getField(13).getDoubles());
+            assertSame(longs, holder.getField(16).getLongs());
+            assertEquals(n, holder.getField(13).getLength());
+            assertEquals(42 + n, holder.getField(2).getInts()[0]);
+        }
+
+        // a larger message grows the buffer
+        TypedMessage.decodeInto(endianness, TypedMessage.encodeUTF8(endianness, content(9)), holder);
+        assertNotSame(doubles, holder.getField(13).getDoubles());
+        assertEquals(16, holder.getField(13).getDoubles().length, "buffers grow by doubling");
+        assertEquals(12.0, holder.getField(13).getDoubles()[8]);
+
+        // a message with fewer fields
+        TypedMessage.decodeInto(endianness, TypedMessage.encodeUTF8(endianness, 1, 2), holder);
+        assertEquals(2, holder.getNumberOfFields());
+        assertEquals(2, holder.getField(1).getInts()[0]);
+        UnitTest.testFail(() -> holder.getField(2), IndexOutOfBoundsException.class);
+        UnitTest.testFail(() -> holder.getField(-1), IndexOutOfBoundsException.class);
+        assertSame(field, TypedMessage.decodeInto(endianness, TypedMessage.encodeUTF8(endianness, content(1)), holder).getField(13),
+                "Field objects are reused");
+    }
+
+    /**
+     * Test dictionary Strings and bad messages.
+     * @throws SerializationException when that happens uncaught this test has failed
+     */
+    @Test
+    public void testDictionaryAndErrors() throws SerializationException
+    {
+        Endianness endianness = Endianness.BIG_ENDIAN;
+        StringDictionary sender = new StringDictionary(10);
+        StringDictionary receiver = new StringDictionary(10);
+        MessageHolder holder = new MessageHolder();
+        TypedMessage.decodeInto(endianness, TypedMessage.encode(endianness, sender, "abc", 3.0), holder, receiver);
+        assertEquals("abc", holder.getField(0).getObject());
+        assertEquals(3.0, holder.getField(1).getDoubles()[0]);
+
+        UnitTest.testFail(() -> TypedMessage.decodeInto(endianness, new byte[] {1, 2}, null), NullPointerException.class);
+        UnitTest.testFail(() -> TypedMessage.decodeInto(endianness, new byte[] {1, 2}, holder, null), NullPointerException.class);
+        UnitTest.testFail(() -> TypedMessage.decodeInto(endianness, new byte[] {(byte) 99}, holder), SerializationException.class);
+        // array with a length that does not fit in the message
+        UnitTest.testFail(() -> TypedMessage.decodeInto(endianness, new byte[] {FieldTypes.LONG_64_ARRAY, 0, 0, 1, 0, 0}, holder),
+                SerializationException.class);
+        UnitTest.testFail(() -> TypedMessage.decodeInto(endianness, new byte[] {FieldTypes.INT_32_ARRAY, -1, -1, -1, -1}, holder),
+                SerializationException.class);
+        // unknown unit
+        UnitTest.testFail(() -> TypedMessage.decodeInto(endianness,
+                new byte[] {FieldTypes.DOUBLE_64_UNIT, 100, 100, 0, 0, 0, 0, 0, 0, 0, 0}, holder), SerializationException.class);
+    }
+
+}
@@ -0,0 +1,131 @@
+package org.djutils.serialization;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.djutils.test.UnitTest;
+import org.junit.jupiter.api.Test;
+
+/**
+ * StringDictionaryTest tests the encoding and decoding of Strings with a session-scoped string dictionary.
+ * <p>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>.
+ * </p>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ */
+public class StringDictionaryTest
+{
+    /**
+     * Test that repeated Strings are transmitted as references.
+     * @throws SerializationException when that happens uncaught this test has failed
+     */
+    @Test
+    public void testReferences() throws SerializationException
+    {
+        for (Endianness endianness : new Endianness[] {Endianness.BIG_ENDIAN, Endianness.LITTLE_ENDIAN})
+        {
+            StringDictionary sender = new StringDictionary(100);
+            StringDictionary receiver = new StringDictionary(100);
+            Object[] content = new Object[] {"vehicle-0001", 12.5, "DRIVING", new String[] {"lane1", "lane2", "lane1"}, 3};
+            byte[] first = TypedMessage.encode(endianness, sender, content);
+            byte[] second = TypedMessage.encode(endianness, sender, content);
+            assertTrue(second.length < first.length, "repeated strings are sent as references");
+            assertEquals(TypedMessage.encodeUTF8(endianness, 12.5, 3).length + 2 + 2 + 5 + 3, second.length,
+                    "a reference takes one byte");
+            assertEquals(4, sender.size());
+
+            Object[] decoded1 = TypedMessage.decodeToObjectDataTypes(endianness, first, receiver);
+            Object[] decoded2 = TypedMessage.decodeToObjectDataTypes(endianness, second, receiver);
+            for (Object[] decoded : new Object[][] {decoded1, decoded2})
+            {
+                assertEquals(content.length, decoded.length);
+                assertEquals(content[0], decoded[0]);
+                assertEquals(content[1], decoded[1]);
+                assertEquals(content[2], decoded[2]);
+                assertArrayEquals((String[]) content[3], (String[]) decoded[3]);
+                assertEquals(content[4], decoded[4]);
+            }
+            assertSame(decoded1[0], decoded2[0], "referenced string is not decoded again");
+            assertEquals(4, receiver.size());
+
+            byte[] third = TypedMessage.encode(endianness, sender, "DRIVING");
+            assertArrayEquals(new byte[] {FieldTypes.STRING_DICT, 2}, third, "DRIVING has id 1");
+            assertEquals("DRIVING", TypedMessage.decodeToPrimitiveDataTypes(endianness, third, receiver)[0]);
+        }
+    }
+
+    /**
+     * Test the bounded size of the dictionaries and the eviction of Strings.
+     * @throws SerializationException when that happens uncaught this test has failed
+     */
+    @Test
+    public void testEviction() throws SerializationException
+    {
+        Endianness endianness = Endianness.BIG_ENDIAN;
+        Random random = new Random(12);
+        StringDictionary sender = new StringDictionary(7);
+        StringDictionary receiver = new StringDictionary(10);
+        for (int message = 0; message < 500; message++)
+        {
+            // More distinct strings than the capacity, also within one message
+            String[] strings = new String[random.nextInt(12)];
+            for (int i = 0; i < strings.length; i++)
+            {
+                strings[i] = "id" + random.nextInt(15);
+            }
+            String single = "state" + random.nextInt(3);
+            byte[] encoded = TypedMessage.encode(endianness, sender, single, strings, message);
+            Object[] decoded = TypedMessage.decodeToObjectDataTypes(endianness, encoded, receiver);
+            assertEquals(single, decoded[0]);
+            assertArrayEquals(strings, (String[]) decoded[1]);
+            assertEquals(message, decoded[2]);
+            assertTrue(sender.size() <= 7);
+        }
+        assertEquals(7, sender.size());
+        assertEquals(7, receiver.size(), "receiver only stores the ids that the sender uses");
+    }
+
+    /**
+     * Test that a message that fails to encode does not change the dictionary, and other errors.
+     * @throws SerializationException when that happens uncaught this test has failed
+     */
+    @Test
+    public void testErrors() throws SerializationException
+    {
+        Endianness endianness = Endianness.LITTLE_ENDIAN;
+        StringDictionary sender = new StringDictionary(10);
+        StringDictionary receiver = new StringDictionary(10);
+        byte[] first = TypedMessage.encode(endianness, sender, "a");
+        UnitTest.testFail(() -> TypedMessage.encode(endianness, sender, "b", new String[][] {{"x", "y"}, {"z"}}),
+                SerializationException.class);
+        assertEquals(1, sender.size(), "failed message does not change the dictionary");
+        byte[] second = TypedMessage.encode(endianness, sender, "b", "a");
+        assertEquals("a", TypedMessage.decodeToObjectDataTypes(endianness, first, receiver)[0]);
+        assertArrayEquals(new Object[] {"b", "a"}, TypedMessage.decodeToObjectDataTypes(endianness, second, receiver));
+
+        // reference to a string that the receiver has not seen
+        UnitTest.testFail(() -> TypedMessage.decodeToObjectDataTypes(endianness, second, new StringDictionary(10)),
+                SerializationException.class);
+        // id beyond the capacity of the receiver
+        UnitTest.testFail(() -> TypedMessage.decodeToObjectDataTypes(endianness, second, new StringDictionary(1)),
+                SerializationException.class);
+        // a dictionary is used for one direction only
+        UnitTest.testFail(() -> TypedMessage.decodeToObjectDataTypes(endianness, first, sender), IllegalStateException.class);
+        UnitTest.testFail(() -> TypedMessage.encode(endianness, receiver, "a"), IllegalStateException.class);
+        UnitTest.testFail(() -> new StringDictionary(0), IllegalArgumentException.class);
+        UnitTest.testFail(() -> TypedMessage.encode(endianness, sender, (String) null), NullPointerException.class);
+
+        receiver.clear();
+        assertEquals(0, receiver.size());
+        assertEquals(10, receiver.getCapacity());
+        assertTrue(receiver.toString().startsWith("StringDictionary"));
+    }
+
+}
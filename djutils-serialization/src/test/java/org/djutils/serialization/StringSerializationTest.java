@@ -1,10 +1,13 @@
 package org.djutils.serialization;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
 
 import org.djutils.decoderdumper.HexDumper;
 import org.djutils.serialization.util.SerialDataDumper;
@@ -210,4 +213,49 @@ public class StringSerializationTest extends AbstractSerializationTest
         }
     }
 
+    /**
+     * Test that the direct encoding of Strings yields the same bytes as String.getBytes, also for unpaired surrogates.
+     * @throws SerializationException on error
+     */
+    @Test
+    public void testDirectEncoding() throws SerializationException
+    {
+        Random random = new Random(1234);
+        char[] samples = new char[] {'a', 'Z', '~', '\u0000', '\u007F', '\u0080', '\u00A9', '\u07FF', '\u0800', '\u2030',
+                '\uFFFF', '\uD83D', '\uDE00', '\uDBFF', '\uDC00'};
+        for (int n = 0; n < 1000; n++)
+        {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(20);
+            for (int i = 0; i < length; i++)
+            {
+                sb.append(samples[random.nextInt(samples.length)]);
+            }
+            String s = sb.toString();
+            byte[] expected = s.getBytes(StandardCharsets.UTF_8);
+            assertEquals(expected.length, Endianness.utf8Length(s), s);
+            for (Endianness endianness : new Endianness[] {Endianness.BIG_ENDIAN, Endianness.LITTLE_ENDIAN})
+            {
+                byte[] buffer = new byte[2 + 4 + expected.length];
+                assertEquals(4 + expected.length, endianness.encodeUTF8String(s, buffer, 2));
+                assertEquals(expected.length, endianness.decodeInt(buffer, 2));
+                byte[] encoded = new byte[expected.length];
+                System.arraycopy(buffer, 6, encoded, 0, encoded.length);
+                assertArrayEquals(expected, encoded, s);
+
+                buffer = new byte[4 + 2 * s.length()];
+                assertEquals(buffer.length, endianness.encodeUTF16String(s, buffer, 0));
+                assertEquals(s, endianness.decodeUTF16String(buffer, 0));
+
+                // Unpaired surrogates can not be represented in UTF-8; they are decoded as '?'
+                String[] array = new String[] {s, "abc", s};
+                String lossy = new String(expected, StandardCharsets.UTF_8);
+                assertArrayEquals(new String[] {lossy, "abc", lossy}, (String[]) TypedObject
+                        .decodeToObjectDataTypes(endianness, TypedObject.encodeUTF8(endianness, array)));
+                assertArrayEquals(array, (String[]) TypedObject.decodeToObjectDataTypes(endianness,
+                        TypedObject.encodeUTF16(endianness, array)));
+            }
+        }
+    }
+
 }
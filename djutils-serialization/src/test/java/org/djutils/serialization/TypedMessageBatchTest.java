@@ -0,0 +1,158 @@
+package org.djutils.serialization;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import org.djunits.unit.LengthUnit;
+import org.djunits.value.vdouble.scalar.Length;
+import org.djutils.test.UnitTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * TypedMessageBatchTest tests the parallel encoding and decoding of batches of messages.
+ * <p>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>.
+ * </p>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ */
+public class TypedMessageBatchTest
+{
+    /**
+     * Create the contents of a batch of messages of different sizes.
+     * @param count the number of messages
+     * @return the contents of the messages
+     */
+    private static List<Object[]> contents(final int count)
+    {
+        List<Object[]> contents = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+        {
+            double[] doubles = new double[i % 50];
+            Arrays.fill(doubles, i);
+            contents.add(new Object[] {i, "message " + i, doubles, new Length(i, LengthUnit.METER), 'x'});
+        }
+        return contents;
+    }
+
+    /**
+     * A batch encodes to the concatenation of the individually encoded messages with their lengths, and decodes to the same
+     * values, with different executors.
+     * @throws Exception when that happens uncaught this test has failed
+     */
+    @Test
+    public void testEncodeDecode() throws Exception
+    {
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        try
+        {
+            for (Endianness endianness : new Endianness[] {Endianness.BIG_ENDIAN, Endianness.LITTLE_ENDIAN})
+            {
+                for (boolean utf8 : new boolean[] {true, false})
+                {
+                    List<Object[]> contents = contents(1000);
+                    byte[] expected = new byte[0];
+                    for (Object[] content : contents)
+                    {
+                        byte[] message = utf8 ? TypedMessage.encodeUTF8(endianness, content)
+                                : TypedMessage.encodeUTF16(endianness, content);
+                        int offset = expected.length;
+                        expected = Arrays.copyOf(expected, offset + 4 + message.length);
+                        endianness.encodeInt(message.length, expected, offset);
+                        System.arraycopy(message, 0, expected, offset + 4, message.length);
+                    }
+                    for (Executor executor : new Executor[] {pool, ForkJoinPool.commonPool(), Runnable::run})
+                    {
+                        byte[] batch = utf8 ? TypedMessageBatch.encodeUTF8(endianness, contents, executor)
+                                : TypedMessageBatch.encodeUTF16(endianness, contents, executor);
+                        assertArrayEquals(expected, batch);
+                        List<Object[]> decoded = TypedMessageBatch.decodeToPrimitiveDataTypes(endianness, batch, executor);
+                        assertEquals(contents.size(), decoded.size());
+                        for (int i = 0; i < contents.size(); i++)
+                        {
+                            assertEquals(i, decoded.get(i)[0]);
+                            assertEquals("message " + i, decoded.get(i)[1]);
+                            assertArrayEquals((double[]) contents.get(i)[2], (double[]) decoded.get(i)[2]);
+                            assertEquals(contents.get(i)[3], decoded.get(i)[3]);
+                            assertEquals('x', decoded.get(i)[4]);
+                        }
+                        assertTrue(TypedMessageBatch.decodeToObjectDataTypes(endianness, batch, executor)
+                                .get(7)[2] instanceof Double[]);
+                    }
+                }
+            }
+            assertEquals(0, TypedMessageBatch.encodeUTF8(Endianness.BIG_ENDIAN, List.of(), pool).length);
+            assertEquals(0, TypedMessageBatch.decodeToPrimitiveDataTypes(Endianness.BIG_ENDIAN, new byte[0], pool).size());
+            List<Object[]> empty = TypedMessageBatch.decodeToPrimitiveDataTypes(Endianness.BIG_ENDIAN,
+                    TypedMessageBatch.encodeUTF8(Endianness.BIG_ENDIAN, List.of(new Object[0], new Object[0]), pool), pool);
+            assertEquals(2, empty.size());
+            assertEquals(0, empty.get(1).length);
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * A batch can be dumped as a log by the BulkSerialDataDecoder.
+     * @param dir temporary directory for the log
+     * @throws Exception when that happens uncaught this test has failed
+     */
+    @Test
+    public void testBatchAsLog(@TempDir final Path dir) throws Exception
+    {
+        Path file = dir.resolve("log");
+        Files.write(file, TypedMessageBatch.encodeUTF8(Endianness.LITTLE_ENDIAN, contents(20), ForkJoinPool.commonPool()));
+        StringWriter writer = new StringWriter();
+        assertEquals(20, new BulkSerialDataDecoder(Endianness.LITTLE_ENDIAN).dump(file, writer));
+        assertTrue(writer.toString().contains("\"message 19\""));
+    }
+
+    /**
+     * Test bad contents and bad buffers.
+     * @throws SerializationException when that happens uncaught this test has failed
+     */
+    @Test
+    public void testErrors() throws SerializationException
+    {
+        Endianness endianness = Endianness.BIG_ENDIAN;
+        Executor executor = ForkJoinPool.commonPool();
+        List<Object[]> contents = contents(100);
+        contents.set(57, new Object[] {1, new Object()});
+        UnitTest.testFail(() -> TypedMessageBatch.encodeUTF8(endianness, contents, executor), SerializationException.class);
+        contents.set(57, null);
+        UnitTest.testFail(() -> TypedMessageBatch.encodeUTF16(endianness, contents, executor), NullPointerException.class);
+        UnitTest.testFail(() -> TypedMessageBatch.encodeUTF8(null, contents(1), executor), NullPointerException.class);
+        UnitTest.testFail(() -> TypedMessageBatch.encodeUTF8(endianness, null, executor), NullPointerException.class);
+        UnitTest.testFail(() -> TypedMessageBatch.encodeUTF8(endianness, contents(1), null), NullPointerException.class);
+
+        byte[] batch = TypedMessageBatch.encodeUTF8(endianness, contents(10), executor);
+        UnitTest.testFail(() -> TypedMessageBatch.decodeToPrimitiveDataTypes(endianness, Arrays.copyOf(batch, batch.length - 1),
+                executor), SerializationException.class);
+        UnitTest.testFail(() -> TypedMessageBatch.decodeToPrimitiveDataTypes(endianness, Arrays.copyOf(batch, batch.length + 2),
+                executor), SerializationException.class);
+        byte[] badType = batch.clone();
+        badType[4] = (byte) 99;
+        UnitTest.testFail(() -> TypedMessageBatch.decodeToObjectDataTypes(endianness, badType, executor),
+                SerializationException.class);
+        UnitTest.testFail(() -> TypedMessageBatch.decodeToObjectDataTypes(endianness, null, executor),
+                NullPointerException.class);
+    }
+
+}
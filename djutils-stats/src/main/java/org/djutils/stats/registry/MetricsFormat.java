@@ -0,0 +1,242 @@
+package org.djutils.stats.registry;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MetricsFormat defines the formats in which the snapshots of a StatisticsRegistry can be exported:
+ * <ul>
+ * <li>PROMETHEUS: the Prometheus text exposition format, version 0.0.4, with one gauge per name and value, e.g.,
+ * <code>queue_length_mean{station="A"} 3.25 1735689600000</code>. Only the most recent snapshot is written, as a scraper
+ * expects the current values.</li>
+ * <li>CSV: one line per snapshot, statistic and value, with the columns <code>timestamp,name,tags,field,value</code>, where
+ * the tags are written as <code>key=value</code> pairs separated by semicolons.</li>
+ * <li>JSON: an array with an object per snapshot, holding the timestamp and the samples; values that are NaN or infinite are
+ * written as <code>null</code>.</li>
+ * </ul>
+ * <br>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>. <br>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://www.tudelft.nl/pknoppers">Peter Knoppers</a>
+ */
+public enum MetricsFormat
+{
+    /** The Prometheus text exposition format; only the most recent snapshot is written. */
+    PROMETHEUS("text/plain; version=0.0.4; charset=utf-8")
+    {
+        @Override
+        public void write(final List<RegistrySnapshot> snapshots, final Writer writer) throws IOException
+        {
+            if (snapshots.isEmpty())
+            {
+                return;
+            }
+            RegistrySnapshot snapshot = snapshots.get(snapshots.size() - 1);
+            // all lines of a metric family have to be written together, so collect the lines per family first
+            Map<String, List<String>> families = new LinkedHashMap<>();
+            Map<String, String> help = new LinkedHashMap<>();
+            for (Sample sample : snapshot.samples())
+            {
+                String labels = prometheusLabels(sample.tags());
+                for (Map.Entry<String, Double> value : sample.values().entrySet())
+                {
+                    String family = sample.name() + "_" + value.getKey();
+                    help.putIfAbsent(family, sample.description());
+                    families.computeIfAbsent(family, f -> new ArrayList<>()).add(family + labels + " "
+                            + prometheusValue(value.getValue()) + " " + snapshot.timeMillis() + "\n");
+                }
+            }
+            for (Map.Entry<String, List<String>> family : families.entrySet())
+            {
+                writer.write("# HELP " + family.getKey() + " "
+                        + help.get(family.getKey()).replace("\\", "\\\\").replace("\n", "\\n") + "\n");
+                writer.write("# TYPE " + family.getKey() + " gauge\n");
+                for (String line : family.getValue())
+                {
+                    writer.write(line);
+                }
+            }
+        }
+    },
+
+    /** Comma separated values, with one line per snapshot, statistic and value. */
+    CSV("text/csv; charset=utf-8")
+    {
+        @Override
+        public void write(final List<RegistrySnapshot> snapshots, final Writer writer) throws IOException
+        {
+            writer.write("timestamp,name,tags,field,value\n");
+            for (RegistrySnapshot snapshot : snapshots)
+            {
+                for (Sample sample : snapshot.samples())
+                {
+                    StringBuilder tags = new StringBuilder();
+                    for (Map.Entry<String, String> tag : sample.tags().entrySet())
+                    {
+                        tags.append(tags.length() == 0 ? "" : ";").append(tag.getKey()).append('=').append(tag.getValue());
+                    }
+                    String prefix = snapshot.timeMillis() + "," + sample.name() + "," + csvField(tags.toString()) + ",";
+                    for (Map.Entry<String, Double> value : sample.values().entrySet())
+                    {
+                        writer.write(prefix + value.getKey() + "," + value.getValue() + "\n");
+                    }
+                }
+            }
+        }
+    },
+
+    /** JSON, with an object per snapshot; NaN and infinite values are written as null. */
+    JSON("application/json; charset=utf-8")
+    {
+        @Override
+        public void write(final List<RegistrySnapshot> snapshots, final Writer writer) throws IOException
+        {
+            writer.write("[");
+            String snapshotSeparator = "\n";
+            for (RegistrySnapshot snapshot : snapshots)
+            {
+                writer.write(snapshotSeparator + "{\"timestamp\":" + snapshot.timeMillis() + ",\"samples\":[");
+                snapshotSeparator = ",\n";
+                String sampleSeparator = "\n";
+                for (Sample sample : snapshot.samples())
+                {
+                    StringBuilder sb = new StringBuilder();
+                    sb.append(sampleSeparator).append("{\"name\":").append(jsonString(sample.name())).append(",\"tags\":{");
+                    sampleSeparator = ",\n";
+                    String separator = "";
+                    for (Map.Entry<String, String> tag : sample.tags().entrySet())
+                    {
+                        sb.append(separator).append(jsonString(tag.getKey())).append(':').append(jsonString(tag.getValue()));
+                        separator = ",";
+                    }
+                    sb.append("},\"description\":").append(jsonString(sample.description())).append(",\"values\":{");
+                    separator = "";
+                    for (Map.Entry<String, Double> value : sample.values().entrySet())
+                    {
+                        double v = value.getValue();
+                        sb.append(separator).append(jsonString(value.getKey())).append(':')
+                                .append(Double.isFinite(v) ? Double.toString(v) : "null");
+                        separator = ",";
+                    }
+                    sb.append("}}");
+                    writer.write(sb.toString());
+                }
+                writer.write("]}");
+            }
+            writer.write("\n]\n");
+        }
+    };
+
+    /** The MIME content type of the format, for use in an HTTP response. */
+    private final String contentType;
+
+    /**
+     * Construct a MetricsFormat.
+     * @param contentType the MIME content type of the format
+     */
+    MetricsFormat(final String contentType)
+    {
+        this.contentType = contentType;
+    }
+
+    /**
+     * Return the MIME content type of the format, for use in an HTTP response.
+     * @return the MIME content type of the format
+     */
+    public String getContentType()
+    {
+        return this.contentType;
+    }
+
+    /**
+     * Write snapshots in this format. The snapshots are expected in chronological order.
+     * @param snapshots the snapshots to write, oldest first
+     * @param writer the writer to write the snapshots to; the writer is not closed
+     * @throws IOException when writing fails
+     */
+    public abstract void write(List<RegistrySnapshot> snapshots, Writer writer) throws IOException;
+
+    /**
+     * Return the tags as a Prometheus label set, e.g., <code>{replication="3",station="A"}</code>.
+     * @param tags the tags
+     * @return the label set, or an empty string when there are no tags
+     */
+    static String prometheusLabels(final Map<String, String> tags)
+    {
+        if (tags.isEmpty())
+        {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder("{");
+        for (Map.Entry<String, String> tag : tags.entrySet())
+        {
+            sb.append(sb.length() == 1 ? "" : ",").append(tag.getKey()).append("=\"")
+                    .append(tag.getValue().replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n")).append('"');
+        }
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Return a value in the Prometheus notation, which uses NaN, +Inf and -Inf for the special values.
+     * @param value the value
+     * @return the value in the Prometheus notation
+     */
+    static String prometheusValue(final double value)
+    {
+        if (Double.isNaN(value))
+        {
+            return "NaN";
+        }
+        if (Double.isInfinite(value))
+        {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        return Double.toString(value);
+    }
+
+    /**
+     * Return a CSV field, quoted when it contains a comma, a quote or a line break.
+     * @param field the field
+     * @return the field, quoted when necessary
+     */
+    static String csvField(final String field)
+    {
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0 && field.indexOf('\r') < 0)
+        {
+            return field;
+        }
+        return "\"" + field.replace("\"", "\"\"") + "\"";
+    }
+
+    /**
+     * Return a string as a quoted JSON string.
+     * @param s the string
+     * @return the quoted and escaped string
+     */
+    static String jsonString(final String s)
+    {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < s.length(); i++)
+        {
+            char c = s.charAt(i);
+            switch (c)
+            {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> sb.append(c < 0x20 ? String.format("\\u%04x", (int) c) : String.valueOf(c));
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+}
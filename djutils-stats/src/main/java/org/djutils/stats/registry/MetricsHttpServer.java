@@ -0,0 +1,155 @@
+package org.djutils.stats.registry;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import org.djutils.exceptions.Throw;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * MetricsHttpServer serves the snapshots of a StatisticsSampler over HTTP, using the HTTP server of the JDK. The paths are
+ * <code>/metrics</code> for the most recent snapshot in the Prometheus text format, which can be scraped by Prometheus, and
+ * <code>/metrics.csv</code> and <code>/metrics.json</code> for all snapshots in the ring buffer of the sampler. A request only
+ * reads the ring buffer of the sampler, and never samples the statistics itself. <br>
+ * <br>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>. <br>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://www.tudelft.nl/pknoppers">Peter Knoppers</a>
+ */
+public class MetricsHttpServer implements AutoCloseable
+{
+    /** The sampler whose snapshots are served. */
+    private final StatisticsSampler sampler;
+
+    /** The HTTP server. */
+    private final HttpServer server;
+
+    /**
+     * Construct and start a server for the snapshots of a sampler on the loopback address, so the metrics can only be read from
+     * the local machine.
+     * @param sampler the sampler whose snapshots are served
+     * @param port the port to listen on; 0 selects a free port
+     * @throws IOException when the server cannot be started
+     * @throws NullPointerException when sampler is null
+     * @throws IllegalArgumentException when port is not in the range 0 to 65535
+     */
+    public MetricsHttpServer(final StatisticsSampler sampler, final int port) throws IOException
+    {
+        this(sampler, new InetSocketAddress(InetAddress.getLoopbackAddress(), checkPort(port)));
+    }
+
+    /**
+     * Construct and start a server for the snapshots of a sampler. Note that the server does not authenticate its clients, so
+     * an address other than the loopback address makes the metrics readable for anyone who can reach that address.
+     * @param sampler the sampler whose snapshots are served
+     * @param address the address to listen on
+     * @throws IOException when the server cannot be started
+     * @throws NullPointerException when sampler or address is null
+     */
+    public MetricsHttpServer(final StatisticsSampler sampler, final InetSocketAddress address) throws IOException
+    {
+        Throw.whenNull(sampler, "sampler cannot be null");
+        Throw.whenNull(address, "address cannot be null");
+        this.sampler = sampler;
+        this.server = HttpServer.create(address, 0);
+        this.server.createContext("/metrics", exchange -> respond(exchange, MetricsFormat.PROMETHEUS));
+        this.server.createContext("/metrics.csv", exchange -> respond(exchange, MetricsFormat.CSV));
+        this.server.createContext("/metrics.json", exchange -> respond(exchange, MetricsFormat.JSON));
+        this.server.start();
+    }
+
+    /**
+     * Check the port number.
+     * @param port the port number
+     * @return the port number
+     * @throws IllegalArgumentException when port is not in the range 0 to 65535
+     */
+    private static int checkPort(final int port)
+    {
+        Throw.when(port < 0 || port > 65535, IllegalArgumentException.class, "port must be in the range 0 to 65535");
+        return port;
+    }
+
+    /**
+     * Return the address on which the server listens.
+     * @return the address on which the server listens
+     */
+    public InetSocketAddress getAddress()
+    {
+        return this.server.getAddress();
+    }
+
+    /**
+     * Return the port on which the server listens.
+     * @return the port on which the server listens
+     */
+    public int getPort()
+    {
+        return this.server.getAddress().getPort();
+    }
+
+    /**
+     * Answer a request with the snapshots of the sampler.
+     * @param exchange the request and response
+     * @param format the format of the response
+     * @throws IOException when the response cannot be sent
+     */
+    private void respond(final HttpExchange exchange, final MetricsFormat format) throws IOException
+    {
+        try (exchange)
+        {
+            // the contexts match on prefix, so /metrics would also answer /metricsfoo
+            String path = exchange.getRequestURI().getPath();
+            if (!path.equals(exchange.getHttpContext().getPath()))
+            {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            if (!"GET".equals(exchange.getRequestMethod()) && !"HEAD".equals(exchange.getRequestMethod()))
+            {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            StringWriter writer = new StringWriter();
+            this.sampler.export(format, writer);
+            byte[] body = writer.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", format.getContentType());
+            if ("HEAD".equals(exchange.getRequestMethod()))
+            {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length == 0 ? -1 : body.length);
+            try (OutputStream out = exchange.getResponseBody())
+            {
+                out.write(body);
+            }
+        }
+    }
+
+    /**
+     * Stop the server, waiting at most one second for requests that are being answered.
+     */
+    @Override
+    public void close()
+    {
+        this.server.stop(1);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "MetricsHttpServer [port=" + getPort() + "]";
+    }
+
+}
@@ -0,0 +1,23 @@
+package org.djutils.stats.registry;
+
+import java.util.Map;
+
+import org.djutils.stats.summarizers.Statistic;
+
+/**
+ * RegisteredStatistic is an entry of the StatisticsRegistry: a statistic with the name and the tags under which it has been
+ * registered. The name and the tags together identify the entry. <br>
+ * <br>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>. <br>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://www.tudelft.nl/pknoppers">Peter Knoppers</a>
+ * @param name the name of the statistic
+ * @param tags the unmodifiable, sorted tags of the statistic
+ * @param statistic the statistic
+ */
+public record RegisteredStatistic(String name, Map<String, String> tags, Statistic statistic)
+{
+}
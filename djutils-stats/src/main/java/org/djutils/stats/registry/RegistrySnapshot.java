@@ -0,0 +1,19 @@
+package org.djutils.stats.registry;
+
+import java.util.List;
+
+/**
+ * RegistrySnapshot contains the samples of all statistics of a StatisticsRegistry at one moment of sampling. <br>
+ * <br>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>. <br>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://www.tudelft.nl/pknoppers">Peter Knoppers</a>
+ * @param timeMillis the wall clock time of the sampling, in milliseconds since the epoch
+ * @param samples the unmodifiable list of samples, sorted on name and tags
+ */
+public record RegistrySnapshot(long timeMillis, List<Sample> samples)
+{
+}
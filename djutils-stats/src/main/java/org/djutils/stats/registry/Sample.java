@@ -0,0 +1,107 @@
+package org.djutils.stats.registry;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.djutils.stats.summarizers.Counter;
+import org.djutils.stats.summarizers.CounterSnapshot;
+import org.djutils.stats.summarizers.ExponentialDecayTally;
+import org.djutils.stats.summarizers.Statistic;
+import org.djutils.stats.summarizers.Tally;
+import org.djutils.stats.summarizers.TallySnapshot;
+import org.djutils.stats.summarizers.TallyStatistic;
+import org.djutils.stats.summarizers.WeightedTally;
+import org.djutils.stats.summarizers.WeightedTallySnapshot;
+import org.djutils.stats.summarizers.WindowedTally;
+
+/**
+ * Sample contains the values of one registered statistic at the moment of sampling. The values that are sampled depend on the
+ * type of statistic: a Tally provides n, sum, mean, stdev, min and max; a WeightedTally provides n, the weighted sum, the
+ * weighted mean, the weighted stdev, min and max; a Counter provides n and count; other statistics provide what their interface
+ * offers. Tallies, weighted tallies, windowed tallies, exponential decay tallies and counters are sampled with a lock-once
+ * snapshot, so the values of one sample are consistent. <br>
+ * <br>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>. <br>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://www.tudelft.nl/pknoppers">Peter Knoppers</a>
+ * @param name the name under which the statistic has been registered
+ * @param tags the unmodifiable, sorted tags under which the statistic has been registered
+ * @param description the description of the statistic at the moment of sampling
+ * @param values the unmodifiable values of the statistic, in a fixed order per type of statistic
+ */
+public record Sample(String name, Map<String, String> tags, String description, Map<String, Double> values)
+{
+    /**
+     * Sample the values of a registered statistic.
+     * @param entry the registered statistic
+     * @return a sample with the current values of the statistic
+     */
+    public static Sample of(final RegisteredStatistic entry)
+    {
+        Statistic statistic = entry.statistic();
+        Map<String, Double> values = new LinkedHashMap<>();
+        if (statistic instanceof Tally tally)
+        {
+            TallySnapshot snapshot = tally.snapshot();
+            values.put("n", (double) snapshot.n());
+            values.put("sum", snapshot.sum());
+            values.put("mean", snapshot.getSampleMean());
+            values.put("stdev", snapshot.getSampleStDev());
+            values.put("min", snapshot.min());
+            values.put("max", snapshot.max());
+        }
+        else if (statistic instanceof WeightedTally weightedTally)
+        {
+            WeightedTallySnapshot snapshot = weightedTally.snapshot();
+            values.put("n", (double) snapshot.n());
+            values.put("weighted_sum", snapshot.weightedSum());
+            values.put("weighted_mean", snapshot.getWeightedPopulationMean());
+            values.put("weighted_stdev", snapshot.getWeightedPopulationStDev());
+            values.put("min", snapshot.min());
+            values.put("max", snapshot.max());
+        }
+        else if (statistic instanceof Counter counter)
+        {
+            CounterSnapshot snapshot = counter.snapshot();
+            values.put("n", (double) snapshot.n());
+            values.put("count", (double) snapshot.count());
+        }
+        else if (statistic instanceof WindowedTally windowedTally)
+        {
+            TallySnapshot snapshot = windowedTally.snapshot();
+            values.put("n", (double) snapshot.n());
+            values.put("sum", snapshot.sum());
+            values.put("mean", snapshot.getSampleMean());
+            values.put("stdev", snapshot.getSampleStDev());
+            values.put("min", snapshot.min());
+            values.put("max", snapshot.max());
+        }
+        else if (statistic instanceof ExponentialDecayTally decayTally)
+        {
+            WeightedTallySnapshot snapshot = decayTally.snapshot();
+            values.put("n", (double) snapshot.n());
+            values.put("weight", snapshot.sumOfWeights());
+            values.put("mean", snapshot.getWeightedPopulationMean());
+            values.put("stdev", snapshot.getWeightedPopulationStDev());
+            values.put("min", snapshot.min());
+            values.put("max", snapshot.max());
+        }
+        else if (statistic instanceof TallyStatistic tallyStatistic)
+        {
+            values.put("n", (double) tallyStatistic.getN());
+            values.put("min", tallyStatistic.getMin());
+            values.put("max", tallyStatistic.getMax());
+        }
+        else
+        {
+            values.put("n", (double) statistic.getN());
+        }
+        String description = statistic.getDescription() == null ? "" : statistic.getDescription();
+        return new Sample(entry.name(), entry.tags(), description, Collections.unmodifiableMap(values));
+    }
+
+}
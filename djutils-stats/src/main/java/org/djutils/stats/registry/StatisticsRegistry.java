@@ -0,0 +1,210 @@
+package org.djutils.stats.registry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import org.djutils.exceptions.Throw;
+import org.djutils.stats.summarizers.Statistic;
+
+/**
+ * StatisticsRegistry keeps track of statistics under a name and a set of tags, e.g., the name <code>queue_length</code> with
+ * the tags <code>{station=A, replication=3}</code>. A name and a set of tags identify at most one statistic. The names and the
+ * tag keys have to be valid metric and label names in the Prometheus sense, so the contents of the registry can be exported
+ * without renaming. The registry is thread-safe; registering and unregistering statistics never waits for a sampler that
+ * reads the registry, and vice versa. <br>
+ * <br>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>. <br>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://www.tudelft.nl/pknoppers">Peter Knoppers</a>
+ */
+public class StatisticsRegistry
+{
+    /** The pattern for a valid name. */
+    private static final Pattern NAME_PATTERN = Pattern.compile("[a-zA-Z_][a-zA-Z0-9_]*");
+
+    /** The ordering of the entries: on name, and then on tags. */
+    private static final Comparator<RegisteredStatistic> ORDER =
+            Comparator.comparing(RegisteredStatistic::name).thenComparing(entry -> entry.tags().toString());
+
+    /** The registered statistics, keyed on name and tags. */
+    private final Map<Key, RegisteredStatistic> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Register a statistic under a name without tags.
+     * @param name the name of the statistic
+     * @param statistic the statistic
+     * @return the statistic, to allow for <code>Tally t = registry.register("t", new Tally("t"));</code>
+     * @param <S> the type of statistic
+     * @throws NullPointerException when name or statistic is null
+     * @throws IllegalArgumentException when name is not a valid name, or when a statistic has already been registered under
+     *             the name
+     */
+    public <S extends Statistic> S register(final String name, final S statistic)
+    {
+        return register(name, Map.of(), statistic);
+    }
+
+    /**
+     * Register a statistic under a name and a set of tags.
+     * @param name the name of the statistic
+     * @param tags the tags of the statistic; the map is copied
+     * @param statistic the statistic
+     * @return the statistic, to allow for <code>Tally t = registry.register("t", tags, new Tally("t"));</code>
+     * @param <S> the type of statistic
+     * @throws NullPointerException when name, tags, a tag value or statistic is null
+     * @throws IllegalArgumentException when name or a tag key is not a valid name, or when a statistic has already been
+     *             registered under the name and the tags
+     */
+    public <S extends Statistic> S register(final String name, final Map<String, String> tags, final S statistic)
+    {
+        Throw.whenNull(statistic, "statistic cannot be null");
+        Key key = key(name, tags);
+        RegisteredStatistic entry = new RegisteredStatistic(key.name(), key.tags(), statistic);
+        Throw.when(this.entries.putIfAbsent(key, entry) != null, IllegalArgumentException.class,
+                "a statistic has already been registered with name %s and tags %s", name, key.tags());
+        return statistic;
+    }
+
+    /**
+     * Remove the statistic with a name and no tags from the registry.
+     * @param name the name of the statistic
+     * @return the statistic that has been removed, or null when no statistic was registered under the name
+     * @throws NullPointerException when name is null
+     * @throws IllegalArgumentException when name is not a valid name
+     */
+    public Statistic unregister(final String name)
+    {
+        return unregister(name, Map.of());
+    }
+
+    /**
+     * Remove the statistic with a name and a set of tags from the registry.
+     * @param name the name of the statistic
+     * @param tags the tags of the statistic
+     * @return the statistic that has been removed, or null when no statistic was registered under the name and the tags
+     * @throws NullPointerException when name, tags or a tag value is null
+     * @throws IllegalArgumentException when name or a tag key is not a valid name
+     */
+    public Statistic unregister(final String name, final Map<String, String> tags)
+    {
+        RegisteredStatistic entry = this.entries.remove(key(name, tags));
+        return entry == null ? null : entry.statistic();
+    }
+
+    /**
+     * Return the statistic with a name and no tags.
+     * @param name the name of the statistic
+     * @return the statistic, or null when no statistic has been registered under the name
+     * @throws NullPointerException when name is null
+     * @throws IllegalArgumentException when name is not a valid name
+     */
+    public Statistic get(final String name)
+    {
+        return get(name, Map.of());
+    }
+
+    /**
+     * Return the statistic with a name and a set of tags.
+     * @param name the name of the statistic
+     * @param tags the tags of the statistic
+     * @return the statistic, or null when no statistic has been registered under the name and the tags
+     * @throws NullPointerException when name, tags or a tag value is null
+     * @throws IllegalArgumentException when name or a tag key is not a valid name
+     */
+    public Statistic get(final String name, final Map<String, String> tags)
+    {
+        RegisteredStatistic entry = this.entries.get(key(name, tags));
+        return entry == null ? null : entry.statistic();
+    }
+
+    /**
+     * Return the registered statistics, sorted on name and tags. The list is a copy, and does not change when statistics are
+     * registered or unregistered afterwards.
+     * @return the registered statistics, sorted on name and tags
+     */
+    public List<RegisteredStatistic> entries()
+    {
+        List<RegisteredStatistic> list = new ArrayList<>(this.entries.values());
+        list.sort(ORDER);
+        return list;
+    }
+
+    /**
+     * Return the number of registered statistics.
+     * @return the number of registered statistics
+     */
+    public int size()
+    {
+        return this.entries.size();
+    }
+
+    /**
+     * Remove all statistics from the registry.
+     */
+    public void clear()
+    {
+        this.entries.clear();
+    }
+
+    /**
+     * Sample all registered statistics.
+     * @param timeMillis the time to store in the snapshot, in milliseconds since the epoch
+     * @return a snapshot with a sample of each registered statistic, sorted on name and tags
+     */
+    public RegistrySnapshot sample(final long timeMillis)
+    {
+        List<Sample> samples = new ArrayList<>(this.entries.size());
+        for (RegisteredStatistic entry : entries())
+        {
+            samples.add(Sample.of(entry));
+        }
+        return new RegistrySnapshot(timeMillis, Collections.unmodifiableList(samples));
+    }
+
+    /**
+     * Check a name and tags, and make the key for the map of entries.
+     * @param name the name of the statistic
+     * @param tags the tags of the statistic
+     * @return the key with the name and an unmodifiable, sorted copy of the tags
+     */
+    private static Key key(final String name, final Map<String, String> tags)
+    {
+        Throw.whenNull(name, "name cannot be null");
+        Throw.whenNull(tags, "tags cannot be null");
+        Throw.when(!NAME_PATTERN.matcher(name).matches(), IllegalArgumentException.class, "name %s is not a valid name", name);
+        Map<String, String> sortedTags = new TreeMap<>();
+        for (Map.Entry<String, String> tag : tags.entrySet())
+        {
+            Throw.whenNull(tag.getValue(), "value of tag %s cannot be null", tag.getKey());
+            Throw.when(!NAME_PATTERN.matcher(tag.getKey()).matches() || tag.getKey().startsWith("__"),
+                    IllegalArgumentException.class, "tag key %s is not a valid name", tag.getKey());
+            sortedTags.put(tag.getKey(), tag.getValue());
+        }
+        return new Key(name, Collections.unmodifiableMap(sortedTags));
+    }
+
+    @Override
+    public String toString()
+    {
+        return "StatisticsRegistry [size=" + size() + "]";
+    }
+
+    /**
+     * The key of an entry in the registry.
+     * @param name the name of the statistic
+     * @param tags the unmodifiable, sorted tags of the statistic
+     */
+    private record Key(String name, Map<String, String> tags)
+    {
+    }
+
+}
@@ -0,0 +1,367 @@
+package org.djutils.stats.registry;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+import org.djutils.exceptions.Throw;
+
+/**
+ * StatisticsSampler takes snapshots of all statistics in a StatisticsRegistry, either on request or periodically on a
+ * background thread, and keeps the most recent snapshots in a bounded ring buffer. The snapshots can be exported to a file in
+ * one of the MetricsFormats, on request or after each periodic sample, and can be served over HTTP by a MetricsHttpServer.
+ * <p>
+ * Sampling is meant to have a low overhead for the threads that register values in the statistics. The registry is read
+ * without locking it, and each statistic is locked only for as long as it takes to copy its fields; tallies and weighted
+ * tallies are copied with their lock-once snapshot method. Formatting and writing the exports happen afterwards on the
+ * sampling thread, and readers of the ring buffer never lock the sampler or the statistics.
+ * </p>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>. <br>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://www.tudelft.nl/pknoppers">Peter Knoppers</a>
+ */
+public class StatisticsSampler implements AutoCloseable
+{
+    /** The registry to sample. */
+    private final StatisticsRegistry registry;
+
+    /** The wall clock, in milliseconds since the epoch. */
+    private final LongSupplier clock;
+
+    /** The ring buffer with the most recent snapshots, each with its sequence number. */
+    private final AtomicReferenceArray<Slot> history;
+
+    /** The number of snapshots that have been taken; the sequence number of the next snapshot. */
+    private final AtomicLong sampleCount = new AtomicLong();
+
+    /** The number of periodic samples or exports that failed with an exception. */
+    private final AtomicLong failureCount = new AtomicLong();
+
+    /** The files to which the snapshots are exported after each periodic sample. */
+    private final List<FileExport> fileExports = new CopyOnWriteArrayList<>();
+
+    /** The lock that makes sure that only one snapshot is taken at a time. */
+    private final Object sampleLock = new Object();
+
+    /** The executor of the periodic sampling, or null when the sampler has not been started. */
+    private ScheduledExecutorService executor = null;
+
+    /**
+     * Construct a sampler for a registry, using the system clock.
+     * @param registry the registry to sample
+     * @param capacity the maximum number of snapshots to keep
+     * @throws NullPointerException when registry is null
+     * @throws IllegalArgumentException when capacity is less than 1
+     */
+    public StatisticsSampler(final StatisticsRegistry registry, final int capacity)
+    {
+        this(registry, capacity, System::currentTimeMillis);
+    }
+
+    /**
+     * Construct a sampler for a registry.
+     * @param registry the registry to sample
+     * @param capacity the maximum number of snapshots to keep
+     * @param clock the clock that provides the time of the snapshots, in milliseconds; for a simulation this can be the
+     *            simulation clock
+     * @throws NullPointerException when registry or clock is null
+     * @throws IllegalArgumentException when capacity is less than 1
+     */
+    public StatisticsSampler(final StatisticsRegistry registry, final int capacity, final LongSupplier clock)
+    {
+        Throw.whenNull(registry, "registry cannot be null");
+        Throw.whenNull(clock, "clock cannot be null");
+        Throw.when(capacity < 1, IllegalArgumentException.class, "capacity must be > 0");
+        this.registry = registry;
+        this.clock = clock;
+        this.history = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * Return the registry that is sampled.
+     * @return the registry that is sampled
+     */
+    public StatisticsRegistry getRegistry()
+    {
+        return this.registry;
+    }
+
+    /**
+     * Return the maximum number of snapshots that are kept.
+     * @return the maximum number of snapshots that are kept
+     */
+    public int getCapacity()
+    {
+        return this.history.length();
+    }
+
+    /**
+     * Return the number of snapshots that have been taken, including the ones that have been dropped from the ring buffer.
+     * @return the number of snapshots that have been taken
+     */
+    public long getSampleCount()
+    {
+        return this.sampleCount.get();
+    }
+
+    /**
+     * Return the number of periodic samples or exports that failed with an exception. A failure does not stop the periodic
+     * sampling.
+     * @return the number of periodic samples or exports that failed
+     */
+    public long getFailureCount()
+    {
+        return this.failureCount.get();
+    }
+
+    /**
+     * Take a snapshot of all statistics in the registry, and store it in the ring buffer.
+     * @return the snapshot
+     */
+    public RegistrySnapshot sampleNow()
+    {
+        synchronized (this.sampleLock)
+        {
+            RegistrySnapshot snapshot = this.registry.sample(this.clock.getAsLong());
+            long sequence = this.sampleCount.get();
+            this.history.set((int) (sequence % this.history.length()), new Slot(sequence, snapshot));
+            this.sampleCount.set(sequence + 1);
+            return snapshot;
+        }
+    }
+
+    /**
+     * Return the most recent snapshot.
+     * @return the most recent snapshot, or null when no snapshot has been taken yet
+     */
+    public RegistrySnapshot getLatest()
+    {
+        long count = this.sampleCount.get();
+        if (count == 0)
+        {
+            return null;
+        }
+        // when the slot has been overwritten in the meantime, it holds an even more recent snapshot
+        return this.history.get((int) ((count - 1) % this.history.length())).snapshot();
+    }
+
+    /**
+     * Return the snapshots in the ring buffer, oldest first. Snapshots that are overwritten while the history is collected are
+     * left out, so the result is always in chronological order.
+     * @return the snapshots in the ring buffer, oldest first
+     */
+    public List<RegistrySnapshot> getHistory()
+    {
+        long count = this.sampleCount.get();
+        List<RegistrySnapshot> result = new ArrayList<>();
+        for (long sequence = Math.max(0, count - this.history.length()); sequence < count; sequence++)
+        {
+            Slot slot = this.history.get((int) (sequence % this.history.length()));
+            if (slot.sequence() == sequence)
+            {
+                result.add(slot.snapshot());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Start taking a snapshot periodically on a background (daemon) thread. The first snapshot is taken after one period.
+     * After each snapshot, the snapshots are exported to the files that have been added with addFileExport.
+     * @param periodMillis the time between two snapshots, in milliseconds
+     * @throws IllegalArgumentException when periodMillis is less than 1
+     * @throws IllegalStateException when the sampler has already been started
+     */
+    public synchronized void start(final long periodMillis)
+    {
+        Throw.when(periodMillis < 1, IllegalArgumentException.class, "periodMillis must be > 0");
+        Throw.when(this.executor != null, IllegalStateException.class, "sampler has already been started");
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable ->
+        {
+            Thread thread = new Thread(runnable, "StatisticsSampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.scheduleAtFixedRate(this::sampleAndExport, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Return whether the periodic sampling has been started.
+     * @return whether the periodic sampling has been started
+     */
+    public synchronized boolean isStarted()
+    {
+        return this.executor != null;
+    }
+
+    /**
+     * Stop the periodic sampling. A snapshot or an export that is in progress is completed. The sampler can be started again.
+     */
+    public synchronized void stop()
+    {
+        if (this.executor != null)
+        {
+            this.executor.shutdown();
+            try
+            {
+                this.executor.awaitTermination(10, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException exception)
+            {
+                Thread.currentThread().interrupt();
+            }
+            this.executor = null;
+        }
+    }
+
+    /**
+     * Stop the periodic sampling.
+     */
+    @Override
+    public void close()
+    {
+        stop();
+    }
+
+    /**
+     * Take a periodic snapshot and export the snapshots. Exceptions are counted rather than thrown, since an exception would
+     * end the periodic sampling.
+     */
+    private void sampleAndExport()
+    {
+        try
+        {
+            sampleNow();
+        }
+        catch (RuntimeException exception)
+        {
+            this.failureCount.incrementAndGet();
+            return;
+        }
+        for (FileExport fileExport : this.fileExports)
+        {
+            try
+            {
+                export(fileExport.file(), fileExport.format());
+            }
+            catch (IOException | RuntimeException exception)
+            {
+                this.failureCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Export the snapshots to a file after each periodic snapshot.
+     * @param file the file to export the snapshots to; the file is replaced at each export
+     * @param format the format of the export
+     * @throws NullPointerException when file or format is null
+     */
+    public void addFileExport(final Path file, final MetricsFormat format)
+    {
+        Throw.whenNull(file, "file cannot be null");
+        Throw.whenNull(format, "format cannot be null");
+        this.fileExports.add(new FileExport(file, format));
+    }
+
+    /**
+     * Stop exporting the snapshots to a file.
+     * @param file the file to which the snapshots were exported
+     * @return whether the file was exported to
+     */
+    public boolean removeFileExport(final Path file)
+    {
+        return this.fileExports.removeIf(fileExport -> fileExport.file().equals(file));
+    }
+
+    /**
+     * Write the snapshots in the ring buffer to a writer. The PROMETHEUS format only writes the most recent snapshot.
+     * @param format the format of the export
+     * @param writer the writer; the writer is not closed
+     * @throws IOException when writing fails
+     * @throws NullPointerException when format or writer is null
+     */
+    public void export(final MetricsFormat format, final Writer writer) throws IOException
+    {
+        Throw.whenNull(format, "format cannot be null");
+        Throw.whenNull(writer, "writer cannot be null");
+        format.write(getHistory(), writer);
+    }
+
+    /**
+     * Write the snapshots in the ring buffer to a file. The snapshots are written to a temporary file in the same directory
+     * first, which then replaces the file, so a reader of the file never sees a partially written export.
+     * @param file the file to write to
+     * @param format the format of the export
+     * @throws IOException when writing fails
+     * @throws NullPointerException when file or format is null
+     */
+    public void export(final Path file, final MetricsFormat format) throws IOException
+    {
+        Throw.whenNull(file, "file cannot be null");
+        Throw.whenNull(format, "format cannot be null");
+        Path absolute = file.toAbsolutePath();
+        Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try
+        {
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8))
+            {
+                format.write(getHistory(), writer);
+            }
+            try
+            {
+                Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException exception)
+            {
+                Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        finally
+        {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "StatisticsSampler [capacity=" + getCapacity() + ", sampleCount=" + getSampleCount() + ", started="
+                + isStarted() + "]";
+    }
+
+    /**
+     * A snapshot in the ring buffer, with its sequence number.
+     * @param sequence the sequence number of the snapshot
+     * @param snapshot the snapshot
+     */
+    private record Slot(long sequence, RegistrySnapshot snapshot)
+    {
+    }
+
+    /**
+     * A file to which the snapshots are exported after each periodic sample.
+     * @param file the file
+     * @param format the format of the export
+     */
+    private record FileExport(Path file, MetricsFormat format)
+    {
+    }
+
+}
@@ -0,0 +1,613 @@
+package org.djutils.stats.summarizers;
+
+import java.util.Arrays;
+
+import org.djutils.exceptions.Throw;
+import org.djutils.stats.ConfidenceInterval;
+import org.djutils.stats.DistStudentT;
+
+/**
+ * The BatchMeansTally summarizes a long series of observations that are not independent, such as the waiting times of
+ * successive customers in a steady-state simulation. The confidence interval of the Tally assumes independent observations,
+ * and is much too narrow for positively autocorrelated output. The BatchMeansTally groups the observations into batches of
+ * equal size, and uses the means of the batches, which are nearly independent when the batches are large enough, to calculate
+ * the confidence interval with the Student t distribution.
+ * <p>
+ * The number of batches is bounded: when all batches are filled, adjacent batches are combined pairwise and the batch size is
+ * doubled. The batch size therefore grows with the length of the run while the memory use stays constant, and the number of
+ * completed batches stays between half the maximum number of batches and the maximum number of batches. Next to the batch
+ * means, the tally estimates the lag-k autocorrelation of the observations for lags up to a given maximum lag, in a memory
+ * proportional to that maximum lag. The method {@link #isPrecisionReached(double, double)} can be used as a stopping rule to
+ * end a long run as soon as the confidence interval is narrow enough.
+ * </p>
+ * <p>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>.
+ * </p>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ */
+public class BatchMeansTally implements TallyStatistic
+{
+    /** The default maximum number of batches. */
+    public static final int DEFAULT_MAX_BATCHES = 40;
+
+    /** The default maximum lag for which the autocorrelation is estimated. */
+    public static final int DEFAULT_MAX_LAG = 10;
+
+    /** The moments of all observations. */
+    private final Moments moments = new Moments();
+
+    /** The sums of the completed batches. */
+    private final double[] batchSums;
+
+    /** The number of completed batches. */
+    private int batchCount;
+
+    /** The number of observations per batch. */
+    private long batchSize;
+
+    /** The sum of the observations in the batch that is being filled. */
+    private double currentSum;
+
+    /** The number of observations in the batch that is being filled. */
+    private long currentCount;
+
+    /** The maximum lag for which the autocorrelation is estimated. */
+    private final int maxLag;
+
+    /** The first observation, that is subtracted from all observations to keep the sums of products small. */
+    private double shift;
+
+    /** The first maxLag shifted observations. */
+    private final double[] head;
+
+    /** Ring buffer with the last maxLag shifted observations. */
+    private final double[] recent;
+
+    /** The sums of the products of the shifted observations that are k apart, at index k - 1. */
+    private final double[] lagProducts;
+
+    /** The sum of the shifted observations. */
+    private double shiftedSum;
+
+    /** The description of this tally. */
+    private String description;
+
+    /** the synchronized lock. */
+    @SuppressWarnings("checkstyle:visibilitymodifier")
+    protected Object semaphore = new Object();
+
+    /**
+     * Constructs a new BatchMeansTally with the default maximum number of batches and the default maximum lag.
+     * @param description the description of this tally
+     * @throws NullPointerException when description is null
+     */
+    public BatchMeansTally(final String description)
+    {
+        this(description, DEFAULT_MAX_BATCHES, DEFAULT_MAX_LAG);
+    }
+
+    /**
+     * Constructs a new BatchMeansTally.
+     * @param description the description of this tally
+     * @param maxBatches the maximum number of batches; an even number of at least 4
+     * @param maxLag the maximum lag for which the autocorrelation of the observations is estimated; 0 or more
+     * @throws NullPointerException when description is null
+     * @throws IllegalArgumentException when maxBatches is less than 4 or odd, or when maxLag is negative
+     */
+    public BatchMeansTally(final String description, final int maxBatches, final int maxLag)
+    {
+        Throw.whenNull(description, "description cannot be null");
+        Throw.when(maxBatches < 4 || maxBatches % 2 != 0, IllegalArgumentException.class,
+                "maxBatches must be an even number >= 4");
+        Throw.when(maxLag < 0, IllegalArgumentException.class, "maxLag cannot be negative");
+        this.description = description;
+        this.batchSums = new double[maxBatches];
+        this.maxLag = maxLag;
+        this.head = new double[maxLag];
+        this.recent = new double[maxLag];
+        this.lagProducts = new double[maxLag];
+        initialize();
+    }
+
+    @Override
+    public void initialize()
+    {
+        synchronized (this.semaphore)
+        {
+            this.moments.clear();
+            this.batchCount = 0;
+            this.batchSize = 1;
+            this.currentSum = 0.0;
+            this.currentCount = 0;
+            this.shift = 0.0;
+            this.shiftedSum = 0.0;
+            Arrays.fill(this.lagProducts, 0.0);
+        }
+    }
+
+    @Override
+    public String getDescription()
+    {
+        return this.description;
+    }
+
+    @Override
+    public void setDescription(final String description)
+    {
+        this.description = description;
+    }
+
+    /**
+     * Ingest an array of values.
+     * @param values the values to register
+     */
+    public void register(final double... values)
+    {
+        for (double value : values)
+        {
+            register(value);
+        }
+    }
+
+    /**
+     * Process one observed value.
+     * @param value the value to process
+     * @return the value
+     * @throws IllegalArgumentException when value is NaN
+     */
+    public double register(final double value)
+    {
+        Throw.when(Double.isNaN(value), IllegalArgumentException.class, "value may not be NaN");
+        synchronized (this.semaphore)
+        {
+            long n = this.moments.getN();
+            if (n == 0)
+            {
+                this.shift = value;
+            }
+            this.moments.register(value);
+            double y = value - this.shift;
+            if (this.maxLag > 0)
+            {
+                // the product with the observation maxLag back has to be added before that observation is overwritten
+                for (int k = 1; k <= Math.min(this.maxLag, n); k++)
+                {
+                    this.lagProducts[k - 1] += y * this.recent[(int) ((n - k) % this.maxLag)];
+                }
+                this.recent[(int) (n % this.maxLag)] = y;
+                if (n < this.maxLag)
+                {
+                    this.head[(int) n] = y;
+                }
+            }
+            this.shiftedSum += y;
+
+            this.currentSum += value;
+            this.currentCount++;
+            if (this.currentCount == this.batchSize)
+            {
+                this.batchSums[this.batchCount++] = this.currentSum;
+                this.currentSum = 0.0;
+                this.currentCount = 0;
+                if (this.batchCount == this.batchSums.length)
+                {
+                    for (int i = 0; i < this.batchCount / 2; i++)
+                    {
+                        this.batchSums[i] = this.batchSums[2 * i] + this.batchSums[2 * i + 1];
+                    }
+                    this.batchCount /= 2;
+                    this.batchSize *= 2;
+                }
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public long getN()
+    {
+        synchronized (this.semaphore)
+        {
+            return this.moments.getN();
+        }
+    }
+
+    @Override
+    public double getMin()
+    {
+        synchronized (this.semaphore)
+        {
+            return this.moments.getMin();
+        }
+    }
+
+    @Override
+    public double getMax()
+    {
+        synchronized (this.semaphore)
+        {
+            return this.moments.getMax();
+        }
+    }
+
+    /**
+     * Returns the sample mean of all observations, or NaN when no observations were registered.
+     * @return the sample mean of all observations
+     */
+    public double getSampleMean()
+    {
+        synchronized (this.semaphore)
+        {
+            return this.moments.getMean();
+        }
+    }
+
+    /**
+     * Returns the (unbiased) sample variance of all observations, or NaN when less than two observations were registered. Note
+     * that this is the variance of a single observation, not the variance of the mean.
+     * @return the sample variance of all observations
+     */
+    public double getSampleVariance()
+    {
+        synchronized (this.semaphore)
+        {
+            long n = this.moments.getN();
+            return n > 1 ? this.moments.getM2() / (n - 1) : Double.NaN;
+        }
+    }
+
+    /**
+     * Returns the (unbiased) sample standard deviation of all observations, or NaN when less than two observations were
+     * registered.
+     * @return the sample standard deviation of all observations
+     */
+    public double getSampleStDev()
+    {
+        return Math.sqrt(getSampleVariance());
+    }
+
+    /**
+     * Return the maximum number of batches.
+     * @return the maximum number of batches
+     */
+    public int getMaxBatches()
+    {
+        return this.batchSums.length;
+    }
+
+    /**
+     * Return the maximum lag for which the autocorrelation of the observations is estimated.
+     * @return the maximum lag for which the autocorrelation of the observations is estimated
+     */
+    public int getMaxLag()
+    {
+        return this.maxLag;
+    }
+
+    /**
+     * Return the number of completed batches.
+     * @return the number of completed batches
+     */
+    public int getBatchCount()
+    {
+        synchronized (this.semaphore)
+        {
+            return this.batchCount;
+        }
+    }
+
+    /**
+     * Return the number of observations per batch.
+     * @return the number of observations per batch
+     */
+    public long getBatchSize()
+    {
+        synchronized (this.semaphore)
+        {
+            return this.batchSize;
+        }
+    }
+
+    /**
+     * Return the means of the completed batches, in the order of registration.
+     * @return the means of the completed batches
+     */
+    public double[] getBatchMeans()
+    {
+        synchronized (this.semaphore)
+        {
+            double[] means = new double[this.batchCount];
+            for (int i = 0; i < this.batchCount; i++)
+            {
+                means[i] = this.batchSums[i] / this.batchSize;
+            }
+            return means;
+        }
+    }
+
+    /**
+     * Return the grand mean of the completed batches, which is the mean of the observations that are part of a completed batch.
+     * The observations in the batch that is being filled are not included. Returns NaN when no batch has been completed.
+     * @return the grand mean of the completed batches
+     */
+    public double getBatchMean()
+    {
+        double[] means = getBatchMeans();
+        return means.length == 0 ? Double.NaN : getMean(means);
+    }
+
+    /**
+     * Return the (unbiased) sample variance of the batch means, or NaN when less than two batches have been completed.
+     * @return the sample variance of the batch means
+     */
+    public double getBatchMeansVariance()
+    {
+        double[] means = getBatchMeans();
+        if (means.length < 2)
+        {
+            return Double.NaN;
+        }
+        double grandMean = getMean(means);
+        double sum = 0.0;
+        for (double mean : means)
+        {
+            sum += (mean - grandMean) * (mean - grandMean);
+        }
+        return sum / (means.length - 1);
+    }
+
+    /**
+     * Return the lag-1 autocorrelation of the batch means, or NaN when less than three batches have been completed. A value
+     * close to zero indicates that the batches are large enough to consider the batch means as independent.
+     * @return the lag-1 autocorrelation of the batch means
+     */
+    public double getBatchMeansAutocorrelation()
+    {
+        double[] means = getBatchMeans();
+        if (means.length < 3)
+        {
+            return Double.NaN;
+        }
+        double grandMean = getMean(means);
+        double numerator = 0.0;
+        double denominator = 0.0;
+        for (int i = 0; i < means.length; i++)
+        {
+            denominator += (means[i] - grandMean) * (means[i] - grandMean);
+            if (i > 0)
+            {
+                numerator += (means[i] - grandMean) * (means[i - 1] - grandMean);
+            }
+        }
+        return denominator > 0.0 ? numerator / denominator : Double.NaN;
+    }
+
+    /**
+     * Return the mean of an array of values.
+     * @param values the values
+     * @return the mean of the values
+     */
+    private static double getMean(final double[] values)
+    {
+        double sum = 0.0;
+        for (double value : values)
+        {
+            sum += value;
+        }
+        return sum / values.length;
+    }
+
+    /**
+     * Return the lag-k autocorrelation of the observations, i.e., the correlation between observations that are k apart in the
+     * order of registration. The estimator is the usual one that divides the sum of the lagged products by the sum of squares
+     * around the overall mean. The lag-0 autocorrelation is 1 by definition.
+     * @param lag the lag k, between 0 and the maximum lag (inclusive)
+     * @return the lag-k autocorrelation of the observations, or NaN when there are not more than k observations or all
+     *         observations are equal
+     * @throws IllegalArgumentException when lag is negative or larger than the maximum lag
+     */
+    public double getAutocorrelation(final int lag)
+    {
+        Throw.when(lag < 0 || lag > this.maxLag, IllegalArgumentException.class, "lag should be between 0 and %d (inclusive)",
+                this.maxLag);
+        synchronized (this.semaphore)
+        {
+            long n = this.moments.getN();
+            double sumOfSquares = this.moments.getM2();
+            if (n <= lag || sumOfSquares <= 0.0)
+            {
+                return Double.NaN;
+            }
+            if (lag == 0)
+            {
+                return 1.0;
+            }
+            double mean = this.shiftedSum / n;
+            double prefix = 0.0;
+            double suffix = 0.0;
+            for (int j = 0; j < lag; j++)
+            {
+                prefix += this.head[j];
+                suffix += this.recent[(int) Math.floorMod(n - 1 - j, (long) this.maxLag)];
+            }
+            // sum over t of (y_t - mean)(y_{t-k} - mean), expanded in the sums that are kept
+            double numerator = this.lagProducts[lag - 1] - mean * (2.0 * this.shiftedSum - prefix - suffix)
+                    + (n - lag) * mean * mean;
+            return numerator / sumOfSquares;
+        }
+    }
+
+    /**
+     * Return an estimate of the number of independent observations that carry the same information about the mean as the
+     * observations that were registered, n / (1 + 2 * sum of the autocorrelations). The sum stops at the maximum lag or at the
+     * first autocorrelation that is not positive, whichever comes first. Returns NaN when less than two observations were
+     * registered or all observations are equal.
+     * @return the effective sample size
+     */
+    public double getEffectiveSampleSize()
+    {
+        synchronized (this.semaphore)
+        {
+            long n = this.moments.getN();
+            if (n < 2 || this.moments.getM2() <= 0.0)
+            {
+                return Double.NaN;
+            }
+            double sum = 0.0;
+            for (int lag = 1; lag <= Math.min(this.maxLag, n - 1); lag++)
+            {
+                double rho = getAutocorrelation(lag);
+                if (!(rho > 0.0))
+                {
+                    break;
+                }
+                sum += rho;
+            }
+            return n / (1.0 + 2.0 * sum);
+        }
+    }
+
+    /**
+     * Compute the two-sided confidence interval of the steady-state mean, based on the batch means.
+     * @param alpha the confidence level of the interval, e.g., 0.05 for a 95% interval
+     * @return the confidence interval of the mean, or null when less than two batches have been completed
+     * @throws IllegalArgumentException when alpha is not between 0 and 1 (inclusive)
+     */
+    public double[] getConfidenceInterval(final double alpha)
+    {
+        return getConfidenceInterval(alpha, ConfidenceInterval.BOTH_SIDE_CONFIDENCE);
+    }
+
+    /**
+     * Compute the confidence interval of the steady-state mean, based on the batch means. The interval is centered around the
+     * grand mean of the completed batches, and its half width is the Student t quantile with (batchCount - 1) degrees of
+     * freedom times the standard error of the batch means.
+     * @param alpha the confidence level of the interval, e.g., 0.05 for a 95% interval
+     * @param side the side of the confidence interval
+     * @return the confidence interval of the mean, or null when less than two batches have been completed
+     * @throws NullPointerException when side is null
+     * @throws IllegalArgumentException when alpha is not between 0 and 1 (inclusive)
+     */
+    public double[] getConfidenceInterval(final double alpha, final ConfidenceInterval side)
+    {
+        Throw.whenNull(side, "type of confidence level cannot be null");
+        Throw.when(alpha < 0 || alpha > 1, IllegalArgumentException.class,
+                "confidenceLevel should be between 0 and 1 (inclusive)");
+        synchronized (this.semaphore)
+        {
+            double halfWidth = getHalfWidth(alpha, side);
+            if (Double.isNaN(halfWidth))
+            {
+                return null;
+            }
+            double mean = getBatchMean();
+            double[] result = {mean - halfWidth, mean + halfWidth};
+            if (side.equals(ConfidenceInterval.LEFT_SIDE_CONFIDENCE))
+            {
+                result[1] = mean;
+            }
+            if (side.equals(ConfidenceInterval.RIGHT_SIDE_CONFIDENCE))
+            {
+                result[0] = mean;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Return the half width of the two-sided confidence interval of the steady-state mean, based on the batch means.
+     * @param alpha the confidence level of the interval, e.g., 0.05 for a 95% interval
+     * @return the half width of the confidence interval, or NaN when less than two batches have been completed
+     * @throws IllegalArgumentException when alpha is not between 0 and 1 (inclusive)
+     */
+    public double getHalfWidth(final double alpha)
+    {
+        Throw.when(alpha < 0 || alpha > 1, IllegalArgumentException.class,
+                "confidenceLevel should be between 0 and 1 (inclusive)");
+        return getHalfWidth(alpha, ConfidenceInterval.BOTH_SIDE_CONFIDENCE);
+    }
+
+    /**
+     * Return the width of the confidence interval on the given side of the mean.
+     * @param alpha the confidence level of the interval
+     * @param side the side of the confidence interval
+     * @return the width of the confidence interval on the given side of the mean, or NaN when less than two batches have been
+     *         completed
+     */
+    private double getHalfWidth(final double alpha, final ConfidenceInterval side)
+    {
+        synchronized (this.semaphore)
+        {
+            if (this.batchCount < 2)
+            {
+                return Double.NaN;
+            }
+            double level = side.equals(ConfidenceInterval.BOTH_SIDE_CONFIDENCE) ? 1 - alpha / 2.0 : 1 - alpha;
+            double t = DistStudentT.getInverseCumulativeProbability(this.batchCount - 1, level);
+            return t * Math.sqrt(getBatchMeansVariance() / this.batchCount);
+        }
+    }
+
+    /**
+     * Return whether the two-sided confidence interval of the steady-state mean is narrow enough, i.e., whether its half width
+     * is at most the given fraction of the absolute value of the mean. This can be used as a stopping rule for a long run. To
+     * avoid stopping on a lucky early estimate, the rule only holds when all batches have been filled at least once, i.e.,
+     * when the batch size has been doubled at least once.
+     * @param alpha the confidence level of the interval, e.g., 0.05 for a 95% interval
+     * @param relativePrecision the maximum ratio of the half width and the absolute value of the mean, e.g., 0.01 for 1%
+     * @return whether the confidence interval of the mean is narrow enough
+     * @throws IllegalArgumentException when alpha is not between 0 and 1 (inclusive), or when relativePrecision is not positive
+     */
+    public boolean isPrecisionReached(final double alpha, final double relativePrecision)
+    {
+        Throw.when(!(relativePrecision > 0.0), IllegalArgumentException.class, "relativePrecision must be > 0");
+        double halfWidth = getHalfWidth(alpha);
+        synchronized (this.semaphore)
+        {
+            return this.batchSize > 1 && halfWidth <= relativePrecision * Math.abs(getBatchMean());
+        }
+    }
+
+    /**
+     * Return a string representing a header for a textual table with a monospaced font that can contain multiple batch means
+     * tallies.
+     * @return header for the textual table.
+     */
+    public static String reportHeader()
+    {
+        return "-".repeat(128) + String.format("%n| %-48.48s | %6.6s | %10.10s | %10.10s | %10.10s | %6.6s | %8.8s | %5.5s |%n",
+                "Batch means tally name", "n", "mean", "st.dev", "95% hw", "batch", "size", "rho1") + "-".repeat(128);
+    }
+
+    @Override
+    public String reportLine()
+    {
+        synchronized (this.semaphore)
+        {
+            return String.format("| %-48.48s | %6d | %s | %s | %s | %6d | %8d | %s |", getDescription(), getN(),
+                    formatFixed(getSampleMean(), 10), formatFixed(getSampleStDev(), 10), formatFixed(getHalfWidth(0.05), 10),
+                    getBatchCount(), getBatchSize(), formatFixed(this.maxLag > 0 ? getAutocorrelation(1) : Double.NaN, 5));
+        }
+    }
+
+    /**
+     * Return a string representing a footer for a textual table with a monospaced font that can contain multiple batch means
+     * tallies.
+     * @return footer for the textual table
+     */
+    public static String reportFooter()
+    {
+        return "-".repeat(128);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "BatchMeansTally [description=" + this.description + ", n=" + getN() + ", batchCount=" + getBatchCount()
+                + ", batchSize=" + getBatchSize() + ", maxLag=" + this.maxLag + "]";
+    }
+
+}
@@ -0,0 +1,93 @@
+package org.djutils.stats.summarizers;
+
+import org.djutils.exceptions.Throw;
+
+/**
+ * The CountWindowedTally summarizes the most recent observations, e.g., the last 1000 observations. The window is divided
+ * into <code>bucketCount</code> buckets of <code>windowSize / bucketCount</code> observations each; when the most recent bucket
+ * is full, the oldest bucket is dropped. The window therefore holds at least <code>windowSize - windowSize / bucketCount +
+ * 1</code> and at most <code>windowSize</code> of the most recent observations (or all observations when fewer values have been
+ * registered).
+ * <p>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>.
+ * </p>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ */
+public class CountWindowedTally extends WindowedTally
+{
+    /** The number of observations in one bucket. */
+    private final long bucketSize;
+
+    /** The number of registered observations since the initialization. */
+    private long registrations;
+
+    /**
+     * Constructs a new CountWindowedTally.
+     * @param description the description of this tally
+     * @param windowSize the maximum number of observations in the window; must be a multiple of bucketCount
+     * @param bucketCount the number of buckets in which the window is divided
+     * @throws NullPointerException when description is null
+     * @throws IllegalArgumentException when bucketCount is less than 1, or windowSize is not a positive multiple of
+     *             bucketCount
+     */
+    public CountWindowedTally(final String description, final long windowSize, final int bucketCount)
+    {
+        super(description, bucketCount);
+        Throw.when(windowSize < bucketCount || windowSize % bucketCount != 0, IllegalArgumentException.class,
+                "windowSize must be a positive multiple of bucketCount; got %d and %d", windowSize, bucketCount);
+        this.bucketSize = windowSize / bucketCount;
+    }
+
+    @Override
+    public void initialize()
+    {
+        synchronized (this.semaphore)
+        {
+            super.initialize();
+            this.registrations = 0;
+        }
+    }
+
+    /**
+     * Return the maximum number of observations in the window.
+     * @return the maximum number of observations in the window
+     */
+    public long getWindowSize()
+    {
+        return this.bucketSize * getBucketCount();
+    }
+
+    /**
+     * Return the number of observations that have been registered since the initialization, including the observations that
+     * are no longer in the window.
+     * @return the number of observations that have been registered since the initialization
+     */
+    public long getTotalN()
+    {
+        return this.registrations;
+    }
+
+    @Override
+    protected long registrationBucketIndex()
+    {
+        return this.registrations++ / this.bucketSize;
+    }
+
+    @Override
+    protected long queryBucketIndex()
+    {
+        // the window only moves when values are registered
+        return (this.registrations - 1) / this.bucketSize;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CountWindowedTally [description=" + getDescription() + ", windowSize=" + getWindowSize() + ", bucketCount="
+                + getBucketCount() + ", n=" + getN() + ", totalN=" + this.registrations + "]";
+    }
+
+}
@@ -1,5 +1,8 @@
 package org.djutils.stats.summarizers;
 
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
 import org.djutils.exceptions.Throw;
 
 /**
@@ -15,6 +18,9 @@ import org.djutils.exceptions.Throw;
  */
 public class Counter implements Statistic
 {
+    /** The version of the binary form of the state. */
+    private static final byte VERSION = 1;
+
     /** count represents the value of the counter. */
     private long count = 0;
 
@@ -38,6 +44,34 @@ public class Counter implements Statistic
         initialize();
     }
 
+    /**
+     * Constructs a Counter with a state that was stored with <code>toByteArray</code>, e.g., to continue a simulation from a
+     * checkpoint.
+     * @param description the description for this counter
+     * @param state the state that was stored with <code>toByteArray</code>
+     * @throws NullPointerException when description or state is null
+     * @throws IllegalArgumentException when state does not contain a valid state of a Counter
+     */
+    public Counter(final String description, final byte[] state)
+    {
+        Throw.whenNull(description, "description cannot be null");
+        Throw.whenNull(state, "state may not be null");
+        this.description = description;
+        try
+        {
+            ByteBuffer buffer = ByteBuffer.wrap(state);
+            Throw.when(buffer.get() != VERSION, IllegalArgumentException.class, "unknown version of the stored state");
+            this.n = buffer.getLong();
+            this.count = buffer.getLong();
+            Throw.when(buffer.hasRemaining(), IllegalArgumentException.class, "stored state has trailing bytes");
+            Throw.when(this.n < 0, IllegalArgumentException.class, "stored number of observations is negative");
+        }
+        catch (BufferUnderflowException exception)
+        {
+            throw new IllegalArgumentException("stored state is truncated", exception);
+        }
+    }
+
     /**
      * Returns the current counter value.
      * @return the counter value
@@ -74,6 +108,32 @@ public class Counter implements Statistic
         return value;
     }
 
+    /**
+     * Return an immutable snapshot of the number of observations and the value of this counter, taken with one acquisition of
+     * the lock.
+     * @return an immutable snapshot of the state of this counter
+     */
+    public CounterSnapshot snapshot()
+    {
+        synchronized (this.semaphore)
+        {
+            return new CounterSnapshot(this.n, this.count);
+        }
+    }
+
+    /**
+     * Store the number of observations and the value of this counter in a compact binary form of 17 bytes, from which the
+     * counter can be restored with the <code>Counter(String, byte[])</code> constructor.
+     * @return the state of this counter in binary form
+     */
+    public byte[] toByteArray()
+    {
+        synchronized (this.semaphore)
+        {
+            return ByteBuffer.allocate(17).put(VERSION).putLong(this.n).putLong(this.count).array();
+        }
+    }
+
     /**
      * Initialize the counter.
      */
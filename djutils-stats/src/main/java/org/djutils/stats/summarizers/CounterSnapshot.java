@@ -0,0 +1,19 @@
+package org.djutils.stats.summarizers;
+
+/**
+ * CounterSnapshot is an immutable copy of the state of a Counter at one moment in time, taken with a single acquisition of the
+ * counter's lock, so the number of observations and the value of the counter belong together, also when other threads
+ * register values in the meantime.
+ * <p>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>.
+ * </p>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ * @param n the number of observations
+ * @param count the value of the counter
+ */
+public record CounterSnapshot(long n, long count)
+{
+}
@@ -0,0 +1,300 @@
+package org.djutils.stats.summarizers;
+
+import java.util.function.DoubleSupplier;
+
+import org.djutils.exceptions.Throw;
+
+/**
+ * The ExponentialDecayTally calculates an exponentially weighted mean and variance, in which the weight of an observation halves
+ * every <code>halfLife</code>. The age of an observation is measured either in observations (each registration is one time
+ * unit) or with a clock, which can be the wall clock or, e.g., a simulation clock. The weighted mean and variance are updated in
+ * constant time and memory. The sum of the weights is the effective number of observations. Minimum and maximum are not
+ * weighted: they are the extreme values of all observations since the initialization. Exponentially decaying quantiles can be
+ * estimated with an ExponentialDecayAccumulator.
+ * <p>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>.
+ * </p>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ */
+public class ExponentialDecayTally implements TallyStatistic
+{
+    /** The half-life of the weight of an observation. */
+    private final double halfLife;
+
+    /** The decay rate, ln(2) / halfLife. */
+    private final double decayRate;
+
+    /** The clock that provides the current time, or null when the age is measured in observations. */
+    private final DoubleSupplier clock;
+
+    /** The number of observations since the initialization. */
+    private long n;
+
+    /** The sum of the weights at lastTime. */
+    private double weight;
+
+    /** The weighted mean. */
+    private double mean;
+
+    /** The weighted summation for the second moment at lastTime. */
+    private double m2;
+
+    /** The time of the last update of weight and m2. */
+    private double lastTime;
+
+    /** The minimum observed value. */
+    private double min;
+
+    /** The maximum observed value. */
+    private double max;
+
+    /** The description of this tally. */
+    private String description;
+
+    /** the synchronized lock. */
+    @SuppressWarnings("checkstyle:visibilitymodifier")
+    protected Object semaphore = new Object();
+
+    /**
+     * Constructs a new ExponentialDecayTally that measures the age of an observation in observations.
+     * @param description the description of this tally
+     * @param halfLife the number of observations after which the weight of an observation has halved
+     * @throws NullPointerException when description is null
+     * @throws IllegalArgumentException when halfLife is not positive and finite
+     */
+    public ExponentialDecayTally(final String description, final double halfLife)
+    {
+        this(description, halfLife, null);
+    }
+
+    /**
+     * Constructs a new ExponentialDecayTally that measures the age of an observation with a clock.
+     * @param description the description of this tally
+     * @param halfLife the time, in the time unit of the clock, after which the weight of an observation has halved
+     * @param clock the clock that provides the current time, or null to measure the age of an observation in observations
+     * @throws NullPointerException when description is null
+     * @throws IllegalArgumentException when halfLife is not positive and finite
+     */
+    public ExponentialDecayTally(final String description, final double halfLife, final DoubleSupplier clock)
+    {
+        Throw.whenNull(description, "description cannot be null");
+        Throw.when(!Double.isFinite(halfLife) || halfLife <= 0.0, IllegalArgumentException.class,
+                "halfLife must be positive and finite");
+        this.description = description;
+        this.halfLife = halfLife;
+        this.decayRate = Math.log(2.0) / halfLife;
+        this.clock = clock;
+        initialize();
+    }
+
+    @Override
+    public void initialize()
+    {
+        synchronized (this.semaphore)
+        {
+            this.n = 0;
+            this.weight = 0.0;
+            this.mean = 0.0;
+            this.m2 = 0.0;
+            this.lastTime = Double.NaN;
+            this.min = Double.NaN;
+            this.max = Double.NaN;
+        }
+    }
+
+    @Override
+    public String getDescription()
+    {
+        return this.description;
+    }
+
+    @Override
+    public void setDescription(final String description)
+    {
+        this.description = description;
+    }
+
+    /**
+     * Return the half-life of the weight of an observation.
+     * @return the half-life of the weight of an observation
+     */
+    public double getHalfLife()
+    {
+        return this.halfLife;
+    }
+
+    /**
+     * Decay the weight and the second moment to the current time. When the age is measured in observations, the time is the
+     * number of registered observations. This method is called while holding the semaphore.
+     */
+    private void decay()
+    {
+        double now = this.clock == null ? this.n : this.clock.getAsDouble();
+        Throw.when(!Double.isFinite(now), IllegalStateException.class, "clock returned non-finite time %f", now);
+        if (Double.isNaN(this.lastTime))
+        {
+            this.lastTime = now;
+        }
+        else if (now > this.lastTime)
+        {
+            double factor = Math.exp(-this.decayRate * (now - this.lastTime));
+            this.weight *= factor;
+            this.m2 *= factor;
+            this.lastTime = now;
+        }
+    }
+
+    /**
+     * Ingest an array of values.
+     * @param values the values to register
+     */
+    public void register(final double... values)
+    {
+        for (double value : values)
+        {
+            register(value);
+        }
+    }
+
+    /**
+     * Process one observed value.
+     * @param value the value to process
+     * @return the value
+     * @throws IllegalArgumentException when value is NaN
+     */
+    public double register(final double value)
+    {
+        Throw.when(Double.isNaN(value), IllegalArgumentException.class, "value may not be NaN");
+        synchronized (this.semaphore)
+        {
+            if (this.n == 0)
+            {
+                this.min = value;
+                this.max = value;
+            }
+            this.n++;
+            decay();
+            // weighted incremental update with weight 1 (West, 1979)
+            this.weight += 1.0;
+            double delta = value - this.mean;
+            this.mean += delta / this.weight;
+            this.m2 += delta * (value - this.mean);
+            this.min = Math.min(this.min, value);
+            this.max = Math.max(this.max, value);
+        }
+        return value;
+    }
+
+    @Override
+    public long getN()
+    {
+        return this.n;
+    }
+
+    /**
+     * Return the sum of the current weights of the observations, i.e., the effective number of observations. For a constant
+     * rate of observations, this converges to the number of observations in <code>halfLife / ln(2)</code>.
+     * @return the sum of the current weights of the observations
+     */
+    public double getWeight()
+    {
+        synchronized (this.semaphore)
+        {
+            if (this.n > 0)
+            {
+                decay();
+            }
+            return this.weight;
+        }
+    }
+
+    /**
+     * Return the exponentially weighted mean, or NaN when no observations were registered.
+     * @return the exponentially weighted mean
+     */
+    public double getMean()
+    {
+        synchronized (this.semaphore)
+        {
+            return this.n > 0 ? this.mean : Double.NaN;
+        }
+    }
+
+    /**
+     * Return the exponentially weighted (population) variance, or NaN when no observations were registered.
+     * @return the exponentially weighted variance
+     */
+    public double getVariance()
+    {
+        synchronized (this.semaphore)
+        {
+            if (this.n > 0)
+            {
+                decay();
+                return this.m2 / this.weight;
+            }
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Return the exponentially weighted (population) standard deviation, or NaN when no observations were registered.
+     * @return the exponentially weighted standard deviation
+     */
+    public double getStDev()
+    {
+        return Math.sqrt(getVariance());
+    }
+
+    /**
+     * Return an immutable snapshot of the number of observations, the current sum of the weights, the weighted mean and the
+     * weighted variance, the minimum and the maximum, taken with one acquisition of the lock after decaying the weights to the
+     * current time. The sum of the weights times the variance is stored as the weighted second moment of the snapshot, so the
+     * weighted population mean and variance of the snapshot are the ones of this tally.
+     * @return an immutable snapshot of the state of this tally
+     */
+    public WeightedTallySnapshot snapshot()
+    {
+        synchronized (this.semaphore)
+        {
+            if (this.n == 0)
+            {
+                return new WeightedTallySnapshot(0, 0.0, 0.0, 0.0, 0.0, Double.NaN, Double.NaN);
+            }
+            decay();
+            return new WeightedTallySnapshot(this.n, this.weight, this.mean, this.m2, this.weight * this.mean, this.min,
+                    this.max);
+        }
+    }
+
+    @Override
+    public double getMin()
+    {
+        return this.min;
+    }
+
+    @Override
+    public double getMax()
+    {
+        return this.max;
+    }
+
+    @Override
+    public String reportLine()
+    {
+        return String.format("| %-48.48s | %6d | %s | %s | %s | %s |", getDescription(), getN(), formatFixed(getMean(), 10),
+                formatFixed(getStDev(), 10), formatFixed(getMin(), 10), formatFixed(getMax(), 10));
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ExponentialDecayTally [description=" + this.description + ", halfLife=" + this.halfLife + ", n=" + this.n
+                + ", weight=" + this.weight + ", mean=" + this.mean + ", m2=" + this.m2 + ", min=" + this.min + ", max="
+                + this.max + "]";
+    }
+
+}
@@ -0,0 +1,196 @@
+package org.djutils.stats.summarizers;
+
+/**
+ * Moments keeps the number of observations, the sum, the first four central moment sums, the minimum and the maximum of a
+ * series of values. Two Moments can be merged into the Moments of the combined series, which makes it possible to keep the
+ * moments of sub-windows in a ring buffer and to combine them into the moments of the whole window.
+ * <p>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>.
+ * </p>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ */
+final class Moments
+{
+    /** The number of observations. */
+    private long n;
+
+    /** The sum of the observations. */
+    private double sum;
+
+    /** The mean of the observations. */
+    private double m1;
+
+    /** The summation for the second moment (variance). */
+    private double m2;
+
+    /** The summation for the third moment (skewness). */
+    private double m3;
+
+    /** The summation for the fourth moment (kurtosis). */
+    private double m4;
+
+    /** The minimum observed value. */
+    private double min = Double.NaN;
+
+    /** The maximum observed value. */
+    private double max = Double.NaN;
+
+    /**
+     * Forget all observations.
+     */
+    void clear()
+    {
+        this.n = 0;
+        this.sum = 0.0;
+        this.m1 = 0.0;
+        this.m2 = 0.0;
+        this.m3 = 0.0;
+        this.m4 = 0.0;
+        this.min = Double.NaN;
+        this.max = Double.NaN;
+    }
+
+    /**
+     * Process one observed value, using the same update formulas as the Tally.
+     * @param value the value to process
+     */
+    void register(final double value)
+    {
+        if (this.n == 0)
+        {
+            this.min = value;
+            this.max = value;
+        }
+        this.n++;
+        double delta = value - this.m1;
+        double oldm2 = this.m2;
+        double oldm3 = this.m3;
+        this.m1 += delta / this.n;
+        this.m2 += delta * (value - this.m1);
+        this.m3 += -3 * oldm2 * delta / this.n + (this.n - 1) * (this.n - 2) * delta * delta * delta / this.n / this.n;
+        this.m4 += -4 * oldm3 * delta / this.n + 6 * oldm2 * delta * delta / this.n / this.n
+                + (this.n - 1) * (this.n * this.n - 3 * this.n + 3) * delta * delta * delta * delta / this.n / this.n / this.n;
+        this.sum += value;
+        this.min = Math.min(this.min, value);
+        this.max = Math.max(this.max, value);
+    }
+
+    /**
+     * Add the observations of another Moments to this Moments.
+     * @param other the Moments to add
+     */
+    void merge(final Moments other)
+    {
+        if (other.n == 0)
+        {
+            return;
+        }
+        if (this.n == 0)
+        {
+            this.n = other.n;
+            this.sum = other.sum;
+            this.m1 = other.m1;
+            this.m2 = other.m2;
+            this.m3 = other.m3;
+            this.m4 = other.m4;
+            this.min = other.min;
+            this.max = other.max;
+            return;
+        }
+        // Eq 2.1, 3.1 and 3.2 in https://prod-ng.sandia.gov/techlib-noauth/access-control.cgi/2008/086212.pdf
+        double na = this.n;
+        double nb = other.n;
+        double n = na + nb;
+        double delta = other.m1 - this.m1;
+        double delta2 = delta * delta;
+        double m2 = this.m2 + other.m2 + delta2 * na * nb / n;
+        double m3 = this.m3 + other.m3 + delta2 * delta * na * nb * (na - nb) / n / n
+                + 3 * delta * (na * other.m2 - nb * this.m2) / n;
+        double m4 = this.m4 + other.m4 + delta2 * delta2 * na * nb * (na * na - na * nb + nb * nb) / n / n / n
+                + 6 * delta2 * (na * na * other.m2 + nb * nb * this.m2) / n / n + 4 * delta * (na * other.m3 - nb * this.m3) / n;
+        this.m1 += delta * nb / n;
+        this.m2 = m2;
+        this.m3 = m3;
+        this.m4 = m4;
+        this.n += other.n;
+        this.sum += other.sum;
+        this.min = Math.min(this.min, other.min);
+        this.max = Math.max(this.max, other.max);
+    }
+
+    /**
+     * Return the number of observations.
+     * @return the number of observations
+     */
+    long getN()
+    {
+        return this.n;
+    }
+
+    /**
+     * Return the sum of the observations.
+     * @return the sum of the observations
+     */
+    double getSum()
+    {
+        return this.sum;
+    }
+
+    /**
+     * Return the mean of the observations, or NaN when there are no observations.
+     * @return the mean of the observations
+     */
+    double getMean()
+    {
+        return this.n > 0 ? this.m1 : Double.NaN;
+    }
+
+    /**
+     * Return the summation for the second moment.
+     * @return the summation for the second moment
+     */
+    double getM2()
+    {
+        return this.m2;
+    }
+
+    /**
+     * Return the summation for the third moment.
+     * @return the summation for the third moment
+     */
+    double getM3()
+    {
+        return this.m3;
+    }
+
+    /**
+     * Return the summation for the fourth moment.
+     * @return the summation for the fourth moment
+     */
+    double getM4()
+    {
+        return this.m4;
+    }
+
+    /**
+     * Return the minimum observed value, or NaN when there are no observations.
+     * @return the minimum observed value
+     */
+    double getMin()
+    {
+        return this.min;
+    }
+
+    /**
+     * Return the maximum observed value, or NaN when there are no observations.
+     * @return the maximum observed value
+     */
+    double getMax()
+    {
+        return this.max;
+    }
+
+}
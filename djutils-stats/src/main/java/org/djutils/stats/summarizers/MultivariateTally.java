@@ -0,0 +1,558 @@
+package org.djutils.stats.summarizers;
+
+import java.util.Arrays;
+
+import org.djutils.exceptions.Throw;
+
+/**
+ * The MultivariateTally registers a series of observations of a vector of <code>dimension</code> variables, e.g., the flows on
+ * a number of links at the same moments, and provides the means, the covariances and the correlations of the variables, and
+ * the coefficients of a linear regression of one variable on others. The means and the co-moments are updated per observation
+ * with Welford's method, which is numerically stable, and the co-moments are kept in a packed triangular array of
+ * <code>dimension * (dimension + 1) / 2</code> doubles, so the memory use does not depend on the number of observations.
+ * MultivariateTallies of, e.g., parallel replications can be merged into the tally of all observations.
+ * <p>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>.
+ * </p>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ */
+public class MultivariateTally implements Statistic
+{
+    /** The number of variables. */
+    private final int dimension;
+
+    /** The means of the variables. */
+    private final double[] means;
+
+    /** The co-moments; element i * (i + 1) / 2 + j, with j &lt;= i, holds the sum of the products of the deviations of i and j. */
+    private final double[] comoments;
+
+    /** The deviations of the observation that is being registered from the old means. */
+    private final double[] deltas;
+
+    /** The number of observations. */
+    private long n;
+
+    /** The description of this tally. */
+    private String description;
+
+    /** the synchronized lock. */
+    @SuppressWarnings("checkstyle:visibilitymodifier")
+    protected Object semaphore = new Object();
+
+    /**
+     * Constructs a new MultivariateTally.
+     * @param description the description of this tally
+     * @param dimension the number of variables of an observation
+     * @throws NullPointerException when description is null
+     * @throws IllegalArgumentException when dimension is less than 1, or too large for the packed array
+     */
+    public MultivariateTally(final String description, final int dimension)
+    {
+        Throw.whenNull(description, "description cannot be null");
+        Throw.when(dimension < 1, IllegalArgumentException.class, "dimension must be > 0");
+        long length = (long) dimension * (dimension + 1) / 2;
+        Throw.when(length > Integer.MAX_VALUE - 8, IllegalArgumentException.class, "dimension %d is too large", dimension);
+        this.description = description;
+        this.dimension = dimension;
+        this.means = new double[dimension];
+        this.comoments = new double[(int) length];
+        this.deltas = new double[dimension];
+        initialize();
+    }
+
+    @Override
+    public void initialize()
+    {
+        synchronized (this.semaphore)
+        {
+            this.n = 0;
+            Arrays.fill(this.means, 0.0);
+            Arrays.fill(this.comoments, 0.0);
+        }
+    }
+
+    @Override
+    public String getDescription()
+    {
+        return this.description;
+    }
+
+    @Override
+    public void setDescription(final String description)
+    {
+        this.description = description;
+    }
+
+    /**
+     * Return the number of variables of an observation.
+     * @return the number of variables of an observation
+     */
+    public int getDimension()
+    {
+        return this.dimension;
+    }
+
+    @Override
+    public long getN()
+    {
+        return this.n;
+    }
+
+    /**
+     * Return the index in the packed triangular array of the co-moment of two variables.
+     * @param i the index of the first variable
+     * @param j the index of the second variable
+     * @return the index in the packed triangular array
+     */
+    private static int index(final int i, final int j)
+    {
+        return (int) (i >= j ? (long) i * (i + 1) / 2 + j : (long) j * (j + 1) / 2 + i);
+    }
+
+    /**
+     * Check the index of a variable.
+     * @param i the index of a variable
+     * @throws IndexOutOfBoundsException when i is not the index of a variable
+     */
+    private void checkIndex(final int i)
+    {
+        Throw.when(i < 0 || i >= this.dimension, IndexOutOfBoundsException.class, "variable index %d not in range 0..%d", i,
+                this.dimension - 1);
+    }
+
+    /**
+     * Process one observation of all variables.
+     * @param observation the values of the variables, in the order of the variables
+     * @return the observation
+     * @throws NullPointerException when observation is null
+     * @throws IllegalArgumentException when the length of observation differs from the dimension, or when one of the values is
+     *             NaN; in that case the observation is not registered
+     */
+    public double[] register(final double... observation)
+    {
+        Throw.whenNull(observation, "observation cannot be null");
+        Throw.when(observation.length != this.dimension, IllegalArgumentException.class,
+                "observation has %d values instead of %d", observation.length, this.dimension);
+        for (double value : observation)
+        {
+            Throw.when(Double.isNaN(value), IllegalArgumentException.class, "value may not be NaN");
+        }
+        synchronized (this.semaphore)
+        {
+            this.n++;
+            for (int i = 0; i < this.dimension; i++)
+            {
+                this.deltas[i] = observation[i] - this.means[i];
+                this.means[i] += this.deltas[i] / this.n;
+            }
+            // C(i, j) += (x(i) - oldMean(i)) * (x(j) - newMean(j)), row by row through the packed array
+            int k = 0;
+            for (int i = 0; i < this.dimension; i++)
+            {
+                double deltaI = this.deltas[i];
+                for (int j = 0; j <= i; j++)
+                {
+                    this.comoments[k++] += deltaI * (observation[j] - this.means[j]);
+                }
+            }
+        }
+        return observation;
+    }
+
+    /**
+     * Process a number of observations of all variables.
+     * @param observations the observations; each observation holds the values of the variables, in the order of the variables
+     * @throws NullPointerException when observations or one of the observations is null
+     * @throws IllegalArgumentException when the length of an observation differs from the dimension, or when one of the values
+     *             is NaN; the observations before that observation have been registered
+     */
+    public void register(final double[][] observations)
+    {
+        Throw.whenNull(observations, "observations cannot be null");
+        for (double[] observation : observations)
+        {
+            register(observation);
+        }
+    }
+
+    /**
+     * Add the observations of another MultivariateTally with the same dimension to this tally, e.g., to combine the tallies of
+     * parallel replications. The result is the same, apart from rounding, as when all observations had been registered in this
+     * tally. The other tally is not changed.
+     * @param other the tally to merge into this tally
+     * @throws NullPointerException when other is null
+     * @throws IllegalArgumentException when the dimension of other differs from the dimension of this tally, or when other is
+     *             this tally
+     */
+    public void merge(final MultivariateTally other)
+    {
+        Throw.whenNull(other, "other cannot be null");
+        Throw.when(other == this, IllegalArgumentException.class, "cannot merge a tally with itself");
+        Throw.when(other.dimension != this.dimension, IllegalArgumentException.class,
+                "cannot merge tallies with a different dimension (%d and %d)", this.dimension, other.dimension);
+        double[] otherMeans;
+        double[] otherComoments;
+        long nb;
+        synchronized (other.semaphore)
+        {
+            nb = other.n;
+            otherMeans = other.means.clone();
+            otherComoments = other.comoments.clone();
+        }
+        if (nb == 0)
+        {
+            return;
+        }
+        synchronized (this.semaphore)
+        {
+            // Eq 3.1 in https://prod-ng.sandia.gov/techlib-noauth/access-control.cgi/2008/086212.pdf
+            double na = this.n;
+            double total = na + nb;
+            for (int i = 0; i < this.dimension; i++)
+            {
+                this.deltas[i] = otherMeans[i] - this.means[i];
+            }
+            int k = 0;
+            for (int i = 0; i < this.dimension; i++)
+            {
+                for (int j = 0; j <= i; j++)
+                {
+                    this.comoments[k] += otherComoments[k] + this.deltas[i] * this.deltas[j] * na * nb / total;
+                    k++;
+                }
+            }
+            for (int i = 0; i < this.dimension; i++)
+            {
+                this.means[i] += this.deltas[i] * nb / total;
+            }
+            this.n += nb;
+        }
+    }
+
+    /**
+     * Return the mean of a variable.
+     * @param i the index of the variable
+     * @return the mean of the variable, or NaN when there are no observations
+     * @throws IndexOutOfBoundsException when i is not the index of a variable
+     */
+    public double getMean(final int i)
+    {
+        checkIndex(i);
+        synchronized (this.semaphore)
+        {
+            return this.n > 0 ? this.means[i] : Double.NaN;
+        }
+    }
+
+    /**
+     * Return the means of the variables.
+     * @return a copy of the means of the variables; all NaN when there are no observations
+     */
+    public double[] getMeans()
+    {
+        synchronized (this.semaphore)
+        {
+            double[] result = this.means.clone();
+            if (this.n == 0)
+            {
+                Arrays.fill(result, Double.NaN);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Return the (unbiased) sample covariance of two variables.
+     * @param i the index of the first variable
+     * @param j the index of the second variable
+     * @return the sample covariance of the two variables, or NaN when there are less than two observations
+     * @throws IndexOutOfBoundsException when i or j is not the index of a variable
+     */
+    public double getSampleCovariance(final int i, final int j)
+    {
+        checkIndex(i);
+        checkIndex(j);
+        synchronized (this.semaphore)
+        {
+            return this.n > 1 ? this.comoments[index(i, j)] / (this.n - 1) : Double.NaN;
+        }
+    }
+
+    /**
+     * Return the (biased) population covariance of two variables.
+     * @param i the index of the first variable
+     * @param j the index of the second variable
+     * @return the population covariance of the two variables, or NaN when there are no observations
+     * @throws IndexOutOfBoundsException when i or j is not the index of a variable
+     */
+    public double getPopulationCovariance(final int i, final int j)
+    {
+        checkIndex(i);
+        checkIndex(j);
+        synchronized (this.semaphore)
+        {
+            return this.n > 0 ? this.comoments[index(i, j)] / this.n : Double.NaN;
+        }
+    }
+
+    /**
+     * Return the (unbiased) sample variance of a variable.
+     * @param i the index of the variable
+     * @return the sample variance of the variable, or NaN when there are less than two observations
+     * @throws IndexOutOfBoundsException when i is not the index of a variable
+     */
+    public double getSampleVariance(final int i)
+    {
+        return getSampleCovariance(i, i);
+    }
+
+    /**
+     * Return the (unbiased) sample standard deviation of a variable.
+     * @param i the index of the variable
+     * @return the sample standard deviation of the variable, or NaN when there are less than two observations
+     * @throws IndexOutOfBoundsException when i is not the index of a variable
+     */
+    public double getSampleStDev(final int i)
+    {
+        return Math.sqrt(getSampleVariance(i));
+    }
+
+    /**
+     * Return the Pearson correlation coefficient of two variables.
+     * @param i the index of the first variable
+     * @param j the index of the second variable
+     * @return the correlation coefficient of the two variables, or NaN when there are less than two observations or when one of
+     *         the variables has no variation
+     * @throws IndexOutOfBoundsException when i or j is not the index of a variable
+     */
+    public double getCorrelation(final int i, final int j)
+    {
+        checkIndex(i);
+        checkIndex(j);
+        synchronized (this.semaphore)
+        {
+            return correlation(i, j);
+        }
+    }
+
+    /**
+     * Return the correlation of two variables; called while holding the semaphore.
+     * @param i the index of the first variable
+     * @param j the index of the second variable
+     * @return the correlation coefficient of the two variables, or NaN when it is not defined
+     */
+    private double correlation(final int i, final int j)
+    {
+        double cii = this.comoments[index(i, i)];
+        double cjj = this.comoments[index(j, j)];
+        if (this.n < 2 || cii <= 0.0 || cjj <= 0.0)
+        {
+            return Double.NaN;
+        }
+        // clamp the rounding errors, so the correlation of a variable with itself is exactly 1
+        return i == j ? 1.0 : Math.max(-1.0, Math.min(1.0, this.comoments[index(i, j)] / Math.sqrt(cii * cjj)));
+    }
+
+    /**
+     * Return the (unbiased) sample covariance matrix of the variables.
+     * @return the sample covariance matrix, with NaN values when there are less than two observations
+     */
+    public double[][] getSampleCovarianceMatrix()
+    {
+        double[][] result = new double[this.dimension][this.dimension];
+        synchronized (this.semaphore)
+        {
+            for (int i = 0; i < this.dimension; i++)
+            {
+                for (int j = 0; j <= i; j++)
+                {
+                    double covariance = this.n > 1 ? this.comoments[index(i, j)] / (this.n - 1) : Double.NaN;
+                    result[i][j] = covariance;
+                    result[j][i] = covariance;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Return the correlation matrix of the variables.
+     * @return the correlation matrix, with NaN values for the correlations that are not defined
+     */
+    public double[][] getCorrelationMatrix()
+    {
+        double[][] result = new double[this.dimension][this.dimension];
+        synchronized (this.semaphore)
+        {
+            for (int i = 0; i < this.dimension; i++)
+            {
+                for (int j = 0; j <= i; j++)
+                {
+                    double correlation = correlation(i, j);
+                    result[i][j] = correlation;
+                    result[j][i] = correlation;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Return the slope of the least squares line <code>y = intercept + slope * x</code> through the observations of two
+     * variables.
+     * @param y the index of the dependent variable
+     * @param x the index of the independent variable
+     * @return the slope, or NaN when there are less than two observations or when x has no variation
+     * @throws IndexOutOfBoundsException when y or x is not the index of a variable
+     */
+    public double getRegressionSlope(final int y, final int x)
+    {
+        checkIndex(y);
+        checkIndex(x);
+        synchronized (this.semaphore)
+        {
+            double cxx = this.comoments[index(x, x)];
+            return this.n < 2 || cxx <= 0.0 ? Double.NaN : this.comoments[index(x, y)] / cxx;
+        }
+    }
+
+    /**
+     * Return the coefficients of the least squares regression <code>y = b0 + b1 * x1 + ... + bp * xp</code> of one variable on
+     * a number of other variables. The coefficients are solved from the normal equations in terms of the covariances.
+     * @param y the index of the dependent variable
+     * @param x the indices of the independent variables
+     * @return the coefficients <code>[b0, b1, ..., bp]</code>, where b0 is the intercept; all NaN when there are not more
+     *         observations than independent variables, or when the independent variables are (nearly) linearly dependent
+     * @throws NullPointerException when x is null
+     * @throws IndexOutOfBoundsException when y or one of the x values is not the index of a variable
+     */
+    public double[] getRegressionCoefficients(final int y, final int... x)
+    {
+        Throw.whenNull(x, "x cannot be null");
+        checkIndex(y);
+        for (int xi : x)
+        {
+            checkIndex(xi);
+        }
+        int p = x.length;
+        double[][] system = new double[p][p + 1];
+        double[] result = new double[p + 1];
+        double[] means;
+        synchronized (this.semaphore)
+        {
+            if (this.n <= p)
+            {
+                Arrays.fill(result, Double.NaN);
+                return result;
+            }
+            for (int r = 0; r < p; r++)
+            {
+                for (int c = 0; c < p; c++)
+                {
+                    system[r][c] = this.comoments[index(x[r], x[c])];
+                }
+                system[r][p] = this.comoments[index(x[r], y)];
+            }
+            means = this.means.clone();
+        }
+        if (!solve(system))
+        {
+            Arrays.fill(result, Double.NaN);
+            return result;
+        }
+        result[0] = means[y];
+        for (int r = 0; r < p; r++)
+        {
+            result[r + 1] = system[r][p];
+            result[0] -= system[r][p] * means[x[r]];
+        }
+        return result;
+    }
+
+    /**
+     * Solve a system of linear equations in place with Gaussian elimination with partial pivoting. After a successful solve,
+     * the last column holds the solution.
+     * @param system the augmented matrix of the system, with p rows and p + 1 columns
+     * @return whether the system could be solved; false when the matrix is (nearly) singular
+     */
+    private static boolean solve(final double[][] system)
+    {
+        int p = system.length;
+        double scale = 0.0;
+        for (int r = 0; r < p; r++)
+        {
+            scale = Math.max(scale, Math.abs(system[r][r]));
+        }
+        double epsilon = 1E-12 * scale;
+        for (int col = 0; col < p; col++)
+        {
+            int pivot = col;
+            for (int r = col + 1; r < p; r++)
+            {
+                if (Math.abs(system[r][col]) > Math.abs(system[pivot][col]))
+                {
+                    pivot = r;
+                }
+            }
+            if (!(Math.abs(system[pivot][col]) > epsilon))
+            {
+                return false;
+            }
+            double[] swap = system[col];
+            system[col] = system[pivot];
+            system[pivot] = swap;
+            for (int r = 0; r < p; r++)
+            {
+                if (r != col)
+                {
+                    double factor = system[r][col] / system[col][col];
+                    for (int c = col; c <= p; c++)
+                    {
+                        system[r][c] -= factor * system[col][c];
+                    }
+                }
+            }
+        }
+        for (int r = 0; r < p; r++)
+        {
+            system[r][p] /= system[r][r];
+        }
+        return true;
+    }
+
+    /**
+     * Return a string representing a header for a textual table with a monospaced font that can contain multiple statistics.
+     * @return header for the textual table.
+     */
+    public static String reportHeader()
+    {
+        return "-".repeat(74) + String.format("%n| %-48.48s | %6.6s | %10.10s |%n", "Multivariate Tally name", "n", "dimension")
+                + "-".repeat(74);
+    }
+
+    @Override
+    public String reportLine()
+    {
+        return String.format("| %-48.48s | %6d | %10d |", getDescription(), getN(), getDimension());
+    }
+
+    /**
+     * Return a string representing a footer for a textual table with a monospaced font that can contain multiple statistics.
+     * @return footer for the textual table
+     */
+    public static String reportFooter()
+    {
+        return "-".repeat(74);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "MultivariateTally [description=" + this.description + ", dimension=" + this.dimension + ", n=" + this.n + "]";
+    }
+
+}
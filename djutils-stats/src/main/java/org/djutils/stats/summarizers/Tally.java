@@ -77,6 +77,34 @@ public class Tally implements TallyStatistic
         initialize();
     }
 
+    /**
+     * Constructs a Tally with a state that was stored with <code>toByteArray</code>, e.g., to continue a simulation from a
+     * checkpoint. The state of the quantile accumulator is not part of the state of the tally; the quantile accumulator has to
+     * be restored separately, and is used as is.
+     * @param description the description of this tally
+     * @param quantileAccumulator the input series accumulator that can approximate or compute quantiles, with its restored
+     *            state
+     * @param state the state that was stored with <code>toByteArray</code>
+     * @throws NullPointerException when description, quantileAccumulator or state is null
+     * @throws IllegalArgumentException when state does not contain a valid state of a Tally
+     */
+    public Tally(final String description, final QuantileAccumulator quantileAccumulator, final byte[] state)
+    {
+        Throw.whenNull(description, "description cannot be null");
+        Throw.whenNull(quantileAccumulator, "quantileAccumulator cannot be null");
+        TallySnapshot snapshot = TallySnapshot.fromByteArray(state);
+        this.description = description;
+        this.quantileAccumulator = quantileAccumulator;
+        this.n = snapshot.n();
+        this.sum = snapshot.sum();
+        this.m1 = snapshot.m1();
+        this.m2 = snapshot.m2();
+        this.m3 = snapshot.m3();
+        this.m4 = snapshot.m4();
+        this.min = snapshot.min();
+        this.max = snapshot.max();
+    }
+
     @Override
     public void initialize()
     {
@@ -180,6 +208,31 @@ public class Tally implements TallyStatistic
         return this.n;
     }
 
+    /**
+     * Return an immutable snapshot of the number of observations, the sum, the moments, the minimum and the maximum of this
+     * tally, taken with one acquisition of the lock. Statistics that are calculated from the snapshot are consistent with each
+     * other, also when other threads register values in the meantime.
+     * @return an immutable snapshot of the state of this tally
+     */
+    public TallySnapshot snapshot()
+    {
+        synchronized (this.semaphore)
+        {
+            return new TallySnapshot(this.n, this.sum, this.m1, this.m2, this.m3, this.m4, this.min, this.max);
+        }
+    }
+
+    /**
+     * Store the number of observations, the sum, the moments, the minimum and the maximum of this tally in a compact binary
+     * form, from which the tally can be restored exactly with the <code>Tally(String, QuantileAccumulator, byte[])</code>
+     * constructor. The state of the quantile accumulator is not included.
+     * @return the state of this tally in binary form
+     */
+    public byte[] toByteArray()
+    {
+        return snapshot().toByteArray();
+    }
+
     /**
      * Return the sum of the values of the observations.
      * @return the sum of the values of the observations
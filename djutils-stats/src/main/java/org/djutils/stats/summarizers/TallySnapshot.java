@@ -0,0 +1,277 @@
+package org.djutils.stats.summarizers;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import org.djutils.exceptions.Throw;
+import org.djutils.stats.ConfidenceInterval;
+import org.djutils.stats.DistNormalTable;
+
+/**
+ * TallySnapshot is an immutable copy of the state of a Tally at one moment in time, taken with a single acquisition of the
+ * tally's lock. All statistics that are derived from the moments are calculated from the snapshot without further
+ * synchronization, so a report that uses several statistics is consistent, also when other threads register values in the
+ * meantime. The formulas are the same as the ones used by the Tally. Quantiles are not part of the snapshot, as they depend on
+ * the quantile accumulator of the tally. The snapshot can be stored in a compact binary form with <code>toByteArray</code>, and
+ * a Tally can be restored exactly from that form.
+ * <p>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>.
+ * </p>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ * @param n the number of observations
+ * @param sum the sum of the observations
+ * @param m1 the mean of the observations (0 when there are no observations)
+ * @param m2 the summation for the second moment
+ * @param m3 the summation for the third moment
+ * @param m4 the summation for the fourth moment
+ * @param min the minimum observed value, NaN when there are no observations
+ * @param max the maximum observed value, NaN when there are no observations
+ */
+public record TallySnapshot(long n, double sum, double m1, double m2, double m3, double m4, double min, double max)
+{
+    /** The version of the binary form of the state. */
+    private static final byte VERSION = 1;
+
+    /** The number of bytes of the binary form of the state. */
+    static final int BYTES = 1 + 8 * 8;
+
+    /**
+     * Returns the sample mean of the observations.
+     * @return the sample mean, or NaN when there are no observations
+     */
+    public double getSampleMean()
+    {
+        return this.n > 0 ? this.m1 : Double.NaN;
+    }
+
+    /**
+     * Returns the population mean of the observations.
+     * @return the population mean, or NaN when there are no observations
+     */
+    public double getPopulationMean()
+    {
+        return getSampleMean();
+    }
+
+    /**
+     * Returns the (unbiased) sample variance of the observations.
+     * @return the sample variance, or NaN when there are less than two observations
+     */
+    public double getSampleVariance()
+    {
+        return this.n > 1 ? this.m2 / (this.n - 1) : Double.NaN;
+    }
+
+    /**
+     * Returns the (biased) population variance of the observations.
+     * @return the population variance, or NaN when there are no observations
+     */
+    public double getPopulationVariance()
+    {
+        return this.n > 0 ? this.m2 / this.n : Double.NaN;
+    }
+
+    /**
+     * Returns the (unbiased) sample standard deviation of the observations.
+     * @return the sample standard deviation, or NaN when there are less than two observations
+     */
+    public double getSampleStDev()
+    {
+        return Math.sqrt(getSampleVariance());
+    }
+
+    /**
+     * Returns the (biased) population standard deviation of the observations.
+     * @return the population standard deviation, or NaN when there are no observations
+     */
+    public double getPopulationStDev()
+    {
+        return Math.sqrt(getPopulationVariance());
+    }
+
+    /**
+     * Return the (unbiased) sample skewness of the observations.
+     * @return the sample skewness, or NaN when there are less than three observations
+     */
+    public double getSampleSkewness()
+    {
+        return this.n > 2 ? getPopulationSkewness() * Math.sqrt(this.n * (this.n - 1)) / (this.n - 2) : Double.NaN;
+    }
+
+    /**
+     * Return the (biased) population skewness of the observations.
+     * @return the population skewness, or NaN when there are less than two observations
+     */
+    public double getPopulationSkewness()
+    {
+        return this.n > 1 ? (this.m3 / this.n) / Math.pow(getPopulationVariance(), 1.5) : Double.NaN;
+    }
+
+    /**
+     * Return the sample kurtosis of the observations.
+     * @return the sample kurtosis, or NaN when there are less than four observations
+     */
+    public double getSampleKurtosis()
+    {
+        if (this.n > 3)
+        {
+            double sVar = getSampleVariance();
+            return this.m4 / (this.n - 1) / sVar / sVar;
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Return the (biased) population kurtosis of the observations.
+     * @return the population kurtosis, or NaN when there are less than three observations
+     */
+    public double getPopulationKurtosis()
+    {
+        return this.n > 2 ? (this.m4 / this.n) / (this.m2 / this.n) / (this.m2 / this.n) : Double.NaN;
+    }
+
+    /**
+     * Return the sample excess kurtosis of the observations.
+     * @return the sample excess kurtosis, or NaN when there are less than four observations
+     */
+    public double getSampleExcessKurtosis()
+    {
+        if (this.n > 3)
+        {
+            double g2 = getPopulationExcessKurtosis();
+            return (1.0 * (this.n - 1) / (this.n - 2) / (this.n - 3)) * ((this.n + 1) * g2 + 6.0);
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Return the population excess kurtosis of the observations.
+     * @return the population excess kurtosis, or NaN when there are less than three observations
+     */
+    public double getPopulationExcessKurtosis()
+    {
+        return this.n > 2 ? getPopulationKurtosis() - 3.0 : Double.NaN;
+    }
+
+    /**
+     * Returns the confidence interval on either side of the mean.
+     * @param alpha Alpha is the significance level used to compute the confidence level. The confidence level equals
+     *            100*(1 - alpha)%, or in other words, an alpha of 0.05 indicates a 95 percent confidence level.
+     * @return the confidence interval, or null when there are less than two observations
+     * @throws IllegalArgumentException when alpha is less than 0 or larger than 1
+     */
+    public double[] getConfidenceInterval(final double alpha)
+    {
+        return getConfidenceInterval(alpha, ConfidenceInterval.BOTH_SIDE_CONFIDENCE);
+    }
+
+    /**
+     * Returns the confidence interval based of the mean, in the same way as the Tally.
+     * @param alpha Alpha is the significance level used to compute the confidence level. The confidence level equals
+     *            100*(1 - alpha)%, or in other words, an alpha of 0.05 indicates a 95 percent confidence level.
+     * @param side the side of the confidence interval with respect to the mean
+     * @return the confidence interval, or null when there are less than two observations
+     * @throws IllegalArgumentException when alpha is less than 0 or larger than 1
+     * @throws NullPointerException when side is null
+     */
+    public double[] getConfidenceInterval(final double alpha, final ConfidenceInterval side)
+    {
+        Throw.whenNull(side, "type of confidence level cannot be null");
+        Throw.when(alpha < 0 || alpha > 1, IllegalArgumentException.class,
+                "confidenceLevel should be between 0 and 1 (inclusive)");
+        if (this.n < 2)
+        {
+            return null;
+        }
+        double sampleMean = getSampleMean();
+        double level = 1 - alpha;
+        if (side.equals(ConfidenceInterval.BOTH_SIDE_CONFIDENCE))
+        {
+            level = 1 - alpha / 2.0;
+        }
+        double z = DistNormalTable.getInverseCumulativeProbability(0.0, 1.0, level);
+        double confidence = z * Math.sqrt(getSampleVariance() / this.n);
+        double[] result = {sampleMean - confidence, sampleMean + confidence};
+        if (side.equals(ConfidenceInterval.LEFT_SIDE_CONFIDENCE))
+        {
+            result[1] = sampleMean;
+        }
+        if (side.equals(ConfidenceInterval.RIGHT_SIDE_CONFIDENCE))
+        {
+            result[0] = sampleMean;
+        }
+        result[0] = Math.max(result[0], this.min);
+        result[1] = Math.min(result[1], this.max);
+        return result;
+    }
+
+    /**
+     * Store the snapshot in a compact binary form of 65 bytes, in big-endian order.
+     * @return the snapshot in binary form
+     */
+    public byte[] toByteArray()
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(BYTES);
+        write(buffer);
+        return buffer.array();
+    }
+
+    /**
+     * Write the snapshot in binary form to a buffer.
+     * @param buffer the buffer to write to
+     */
+    void write(final ByteBuffer buffer)
+    {
+        buffer.put(VERSION);
+        buffer.putLong(this.n);
+        buffer.putDouble(this.sum);
+        buffer.putDouble(this.m1);
+        buffer.putDouble(this.m2);
+        buffer.putDouble(this.m3);
+        buffer.putDouble(this.m4);
+        buffer.putDouble(this.min);
+        buffer.putDouble(this.max);
+    }
+
+    /**
+     * Create a snapshot from a state that was stored with <code>toByteArray</code>.
+     * @param bytes the stored state
+     * @return the snapshot with the stored state
+     * @throws NullPointerException when bytes is null
+     * @throws IllegalArgumentException when bytes does not contain a valid state
+     */
+    public static TallySnapshot fromByteArray(final byte[] bytes)
+    {
+        Throw.whenNull(bytes, "bytes may not be null");
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        TallySnapshot result = read(buffer);
+        Throw.when(buffer.hasRemaining(), IllegalArgumentException.class, "stored state has trailing bytes");
+        return result;
+    }
+
+    /**
+     * Read a snapshot in binary form from a buffer.
+     * @param buffer the buffer to read from
+     * @return the snapshot
+     * @throws IllegalArgumentException when the buffer does not contain a valid state
+     */
+    static TallySnapshot read(final ByteBuffer buffer)
+    {
+        try
+        {
+            Throw.when(buffer.get() != VERSION, IllegalArgumentException.class, "unknown version of the stored state");
+            TallySnapshot result = new TallySnapshot(buffer.getLong(), buffer.getDouble(), buffer.getDouble(),
+                    buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+            Throw.when(result.n < 0, IllegalArgumentException.class, "stored number of observations is negative");
+            return result;
+        }
+        catch (BufferUnderflowException exception)
+        {
+            throw new IllegalArgumentException("stored state is truncated", exception);
+        }
+    }
+
+}
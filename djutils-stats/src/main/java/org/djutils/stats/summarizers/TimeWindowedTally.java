@@ -0,0 +1,93 @@
+package org.djutils.stats.summarizers;
+
+import java.util.function.DoubleSupplier;
+
+import org.djutils.exceptions.Throw;
+
+/**
+ * The TimeWindowedTally summarizes the observations of the most recent period of time, e.g., the observations of the last
+ * minute. The time is provided by a clock, which can be the wall clock or, e.g., a simulation clock. The window is divided into
+ * <code>bucketCount</code> buckets of <code>windowLength / bucketCount</code> time units each; a bucket covers a fixed interval
+ * of the clock, and is dropped when its interval has completely left the window. The window therefore holds the observations
+ * of at least the last <code>windowLength - windowLength / bucketCount</code> and at most the last <code>windowLength</code>
+ * time units. A clock that goes back in time is treated as a clock that stands still.
+ * <p>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>.
+ * </p>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ */
+public class TimeWindowedTally extends WindowedTally
+{
+    /** The length of the interval of one bucket. */
+    private final double bucketLength;
+
+    /** The clock that provides the current time. */
+    private final DoubleSupplier clock;
+
+    /**
+     * Constructs a new TimeWindowedTally that uses the system clock, in seconds, as the clock.
+     * @param description the description of this tally
+     * @param windowLength the length of the window in seconds
+     * @param bucketCount the number of buckets in which the window is divided
+     * @throws NullPointerException when description is null
+     * @throws IllegalArgumentException when bucketCount is less than 1, or windowLength is not positive and finite
+     */
+    public TimeWindowedTally(final String description, final double windowLength, final int bucketCount)
+    {
+        this(description, windowLength, bucketCount, () -> System.nanoTime() / 1.0E9);
+    }
+
+    /**
+     * Constructs a new TimeWindowedTally.
+     * @param description the description of this tally
+     * @param windowLength the length of the window, in the time unit of the clock
+     * @param bucketCount the number of buckets in which the window is divided
+     * @param clock the clock that provides the current time
+     * @throws NullPointerException when description or clock is null
+     * @throws IllegalArgumentException when bucketCount is less than 1, or windowLength is not positive and finite
+     */
+    public TimeWindowedTally(final String description, final double windowLength, final int bucketCount,
+            final DoubleSupplier clock)
+    {
+        super(description, bucketCount);
+        Throw.when(!Double.isFinite(windowLength) || windowLength <= 0.0, IllegalArgumentException.class,
+                "windowLength must be positive and finite");
+        Throw.whenNull(clock, "clock cannot be null");
+        this.bucketLength = windowLength / bucketCount;
+        this.clock = clock;
+    }
+
+    /**
+     * Return the length of the window, in the time unit of the clock.
+     * @return the length of the window
+     */
+    public double getWindowLength()
+    {
+        return this.bucketLength * getBucketCount();
+    }
+
+    @Override
+    protected long registrationBucketIndex()
+    {
+        double time = this.clock.getAsDouble();
+        Throw.when(!Double.isFinite(time), IllegalStateException.class, "clock returned non-finite time %f", time);
+        return (long) Math.floor(time / this.bucketLength);
+    }
+
+    @Override
+    protected long queryBucketIndex()
+    {
+        return registrationBucketIndex();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "TimeWindowedTally [description=" + getDescription() + ", windowLength=" + getWindowLength() + ", bucketCount="
+                + getBucketCount() + ", n=" + getN() + "]";
+    }
+
+}
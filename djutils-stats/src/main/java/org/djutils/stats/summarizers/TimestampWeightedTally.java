@@ -1,5 +1,7 @@
 package org.djutils.stats.summarizers;
 
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.util.Calendar;
 
 import org.djutils.exceptions.Throw;
@@ -40,6 +42,35 @@ public class TimestampWeightedTally extends WeightedTally
         super(description);
     }
 
+    /**
+     * Construct a TimestampWeightedTally with a state that was stored with <code>toByteArray</code>, e.g., to continue a
+     * simulation from a checkpoint. Besides the weighted moments, the state contains the start time, the last timestamp, the
+     * last value and whether the tally is still active, so registration continues exactly where it was stored.
+     * @param description the description of this TimestampWeightedTally
+     * @param state the state that was stored with <code>toByteArray</code>
+     * @throws NullPointerException when description or state is null
+     * @throws IllegalArgumentException when state does not contain a valid state of a TimestampWeightedTally
+     */
+    public TimestampWeightedTally(final String description, final byte[] state)
+    {
+        super(description);
+        Throw.whenNull(state, "state may not be null");
+        try
+        {
+            ByteBuffer buffer = ByteBuffer.wrap(state);
+            restore(WeightedTallySnapshot.read(buffer));
+            this.startTime = buffer.getDouble();
+            this.lastTimestamp = buffer.getDouble();
+            this.lastValue = buffer.getDouble();
+            this.active = buffer.get() != 0;
+            Throw.when(buffer.hasRemaining(), IllegalArgumentException.class, "stored state has trailing bytes");
+        }
+        catch (BufferUnderflowException exception)
+        {
+            throw new IllegalArgumentException("stored state is truncated", exception);
+        }
+    }
+
     @Override
     public void initialize()
     {
@@ -95,6 +126,27 @@ public class TimestampWeightedTally extends WeightedTally
         return this.lastValue;
     }
 
+    /**
+     * Store the weighted moments, the minimum and the maximum of this tally, together with the start time, the last timestamp,
+     * the last value and whether the tally is active, in a compact binary form of 82 bytes. The tally can be restored exactly
+     * with the <code>TimestampWeightedTally(String, byte[])</code> constructor.
+     * @return the state of this tally in binary form
+     */
+    @Override
+    public byte[] toByteArray()
+    {
+        synchronized (super.semaphore)
+        {
+            ByteBuffer buffer = ByteBuffer.allocate(WeightedTallySnapshot.BYTES + 3 * 8 + 1);
+            snapshot().write(buffer);
+            buffer.putDouble(this.startTime);
+            buffer.putDouble(this.lastTimestamp);
+            buffer.putDouble(this.lastValue);
+            buffer.put(this.active ? (byte) 1 : (byte) 0);
+            return buffer.array();
+        }
+    }
+
     /**
      * Process one observed Calender-based value. The time used will be the Calendar's time in milliseconds. Silently ignore
      * when a value is registered, but tally is not active, i.e. when endObservations() has been called.
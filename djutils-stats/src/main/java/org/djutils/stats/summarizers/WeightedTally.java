@@ -56,6 +56,20 @@ public class WeightedTally implements TallyStatistic
         initialize();
     }
 
+    /**
+     * Construct a WeightedTally with a state that was stored with <code>toByteArray</code>, e.g., to continue a simulation from
+     * a checkpoint.
+     * @param description the description of this WeightedTally
+     * @param state the state that was stored with <code>toByteArray</code>
+     * @throws NullPointerException when description or state is null
+     * @throws IllegalArgumentException when state does not contain a valid state of a WeightedTally
+     */
+    public WeightedTally(final String description, final byte[] state)
+    {
+        this(description);
+        restore(WeightedTallySnapshot.fromByteArray(state));
+    }
+
     @Override
     public void initialize()
     {
@@ -144,6 +158,49 @@ public class WeightedTally implements TallyStatistic
         return this.n;
     }
 
+    /**
+     * Return an immutable snapshot of the number of observations, the weighted moments, the minimum and the maximum of this
+     * tally, taken with one acquisition of the lock. Statistics that are calculated from the snapshot are consistent with each
+     * other, also when other threads register values in the meantime.
+     * @return an immutable snapshot of the state of this tally
+     */
+    public WeightedTallySnapshot snapshot()
+    {
+        synchronized (this.semaphore)
+        {
+            return new WeightedTallySnapshot(this.n, this.sumOfWeights, this.weightedMean, this.weightTimesVariance,
+                    this.weightedSum, this.min, this.max);
+        }
+    }
+
+    /**
+     * Store the number of observations, the weighted moments, the minimum and the maximum of this tally in a compact binary
+     * form, from which the tally can be restored exactly with the <code>WeightedTally(String, byte[])</code> constructor.
+     * @return the state of this tally in binary form
+     */
+    public byte[] toByteArray()
+    {
+        return snapshot().toByteArray();
+    }
+
+    /**
+     * Set the state of this tally to the state of a snapshot.
+     * @param state the state to restore
+     */
+    void restore(final WeightedTallySnapshot state)
+    {
+        synchronized (this.semaphore)
+        {
+            this.n = state.n();
+            this.sumOfWeights = state.sumOfWeights();
+            this.weightedMean = state.weightedMean();
+            this.weightTimesVariance = state.weightTimesVariance();
+            this.weightedSum = state.weightedSum();
+            this.min = state.min();
+            this.max = state.max();
+        }
+    }
+
     /**
      * Retrieve the current weighted sample mean of all observations since the initialization.
      * @return the current weighted sample mean
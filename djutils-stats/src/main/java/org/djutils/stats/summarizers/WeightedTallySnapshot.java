@@ -0,0 +1,158 @@
+package org.djutils.stats.summarizers;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import org.djutils.exceptions.Throw;
+
+/**
+ * WeightedTallySnapshot is an immutable copy of the state of a WeightedTally (or TimestampWeightedTally) at one moment in time,
+ * taken with a single acquisition of the tally's lock. All statistics that are derived from the weighted moments are calculated
+ * from the snapshot without further synchronization, so a report that uses several statistics is consistent, also when other
+ * threads register values in the meantime. The formulas are the same as the ones used by the WeightedTally. The snapshot can
+ * be stored in a compact binary form with <code>toByteArray</code>, and a WeightedTally can be restored exactly from that form.
+ * <p>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>.
+ * </p>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ * @param n the number of observations with a non-zero weight
+ * @param sumOfWeights the sum of the weights
+ * @param weightedMean the weighted mean of the observations (0 when there are no observations)
+ * @param weightTimesVariance the sum of the weights times the weighted population variance
+ * @param weightedSum the weighted sum of the observations
+ * @param min the minimum observed value, NaN when there are no observations
+ * @param max the maximum observed value, NaN when there are no observations
+ */
+public record WeightedTallySnapshot(long n, double sumOfWeights, double weightedMean, double weightTimesVariance,
+        double weightedSum, double min, double max)
+{
+    /** The version of the binary form of the state. */
+    private static final byte VERSION = 1;
+
+    /** The number of bytes of the binary form of the state. */
+    static final int BYTES = 1 + 7 * 8;
+
+    /**
+     * Returns the weighted sample mean of the observations.
+     * @return the weighted sample mean, or NaN when there are no observations
+     */
+    public double getWeightedSampleMean()
+    {
+        return this.n > 0 ? this.weightedMean : Double.NaN;
+    }
+
+    /**
+     * Returns the weighted population mean of the observations.
+     * @return the weighted population mean, or NaN when there are no observations
+     */
+    public double getWeightedPopulationMean()
+    {
+        return getWeightedSampleMean();
+    }
+
+    /**
+     * Returns the weighted sample variance of the observations.
+     * @return the weighted sample variance, or NaN when there are less than two observations
+     */
+    public double getWeightedSampleVariance()
+    {
+        return this.n > 1 ? getWeightedPopulationVariance() * this.n / (this.n - 1) : Double.NaN;
+    }
+
+    /**
+     * Returns the weighted population variance of the observations.
+     * @return the weighted population variance, or NaN when there are no observations
+     */
+    public double getWeightedPopulationVariance()
+    {
+        return this.weightTimesVariance / this.sumOfWeights;
+    }
+
+    /**
+     * Returns the weighted sample standard deviation of the observations.
+     * @return the weighted sample standard deviation, or NaN when there are less than two observations
+     */
+    public double getWeightedSampleStDev()
+    {
+        return Math.sqrt(getWeightedSampleVariance());
+    }
+
+    /**
+     * Returns the weighted population standard deviation of the observations.
+     * @return the weighted population standard deviation, or NaN when there are no observations
+     */
+    public double getWeightedPopulationStDev()
+    {
+        return Math.sqrt(getWeightedPopulationVariance());
+    }
+
+    /**
+     * Store the snapshot in a compact binary form of 57 bytes, in big-endian order.
+     * @return the snapshot in binary form
+     */
+    public byte[] toByteArray()
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(BYTES);
+        write(buffer);
+        return buffer.array();
+    }
+
+    /**
+     * Write the snapshot in binary form to a buffer.
+     * @param buffer the buffer to write to
+     */
+    void write(final ByteBuffer buffer)
+    {
+        buffer.put(VERSION);
+        buffer.putLong(this.n);
+        buffer.putDouble(this.sumOfWeights);
+        buffer.putDouble(this.weightedMean);
+        buffer.putDouble(this.weightTimesVariance);
+        buffer.putDouble(this.weightedSum);
+        buffer.putDouble(this.min);
+        buffer.putDouble(this.max);
+    }
+
+    /**
+     * Create a snapshot from a state that was stored with <code>toByteArray</code>.
+     * @param bytes the stored state
+     * @return the snapshot with the stored state
+     * @throws NullPointerException when bytes is null
+     * @throws IllegalArgumentException when bytes does not contain a valid state
+     */
+    public static WeightedTallySnapshot fromByteArray(final byte[] bytes)
+    {
+        Throw.whenNull(bytes, "bytes may not be null");
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        WeightedTallySnapshot result = read(buffer);
+        Throw.when(buffer.hasRemaining(), IllegalArgumentException.class, "stored state has trailing bytes");
+        return result;
+    }
+
+    /**
+     * Read a snapshot in binary form from a buffer.
+     * @param buffer the buffer to read from
+     * @return the snapshot
+     * @throws IllegalArgumentException when the buffer does not contain a valid state
+     */
+    static WeightedTallySnapshot read(final ByteBuffer buffer)
+    {
+        try
+        {
+            Throw.when(buffer.get() != VERSION, IllegalArgumentException.class, "unknown version of the stored state");
+            WeightedTallySnapshot result = new WeightedTallySnapshot(buffer.getLong(), buffer.getDouble(), buffer.getDouble(),
+                    buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+            Throw.when(result.n < 0 || result.sumOfWeights < 0.0, IllegalArgumentException.class,
+                    "stored number of observations or sum of weights is negative");
+            return result;
+        }
+        catch (BufferUnderflowException exception)
+        {
+            throw new IllegalArgumentException("stored state is truncated", exception);
+        }
+    }
+
+}
@@ -0,0 +1,385 @@
+package org.djutils.stats.summarizers;
+
+import org.djutils.exceptions.Throw;
+
+/**
+ * The WindowedTally is the base class for tallies that only summarize the most recent observations, e.g., the observations of
+ * the last minute or the last 1000 observations. The window is divided into a fixed number of buckets that are kept in a ring
+ * buffer; each bucket holds the number of observations, the sum, the central moments, the minimum and the maximum of the
+ * observations in its part of the window. When the window moves on, the oldest bucket is cleared and reused. Registering a
+ * value therefore takes constant time and memory, and the statistics of the window are calculated by merging the buckets, which
+ * takes a time proportional to the number of buckets. The window moves in steps of one bucket, so the more buckets, the
+ * smoother the window moves.
+ * <p>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>.
+ * </p>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ */
+public abstract class WindowedTally implements TallyStatistic
+{
+    /** The ring buffer with the moments of the buckets. */
+    private final Moments[] buckets;
+
+    /** The index of the most recent bucket since the start of the window, or Long.MIN_VALUE when no bucket has been used. */
+    private long currentIndex;
+
+    /** The description of this tally. */
+    private String description;
+
+    /** the synchronized lock. */
+    @SuppressWarnings("checkstyle:visibilitymodifier")
+    protected Object semaphore = new Object();
+
+    /**
+     * Constructs a new WindowedTally.
+     * @param description the description of this tally
+     * @param bucketCount the number of buckets in which the window is divided
+     * @throws NullPointerException when description is null
+     * @throws IllegalArgumentException when bucketCount is less than 1
+     */
+    public WindowedTally(final String description, final int bucketCount)
+    {
+        Throw.whenNull(description, "description cannot be null");
+        Throw.when(bucketCount < 1, IllegalArgumentException.class, "bucketCount must be > 0");
+        this.description = description;
+        this.buckets = new Moments[bucketCount];
+        for (int i = 0; i < bucketCount; i++)
+        {
+            this.buckets[i] = new Moments();
+        }
+        this.currentIndex = Long.MIN_VALUE;
+    }
+
+    @Override
+    public void initialize()
+    {
+        synchronized (this.semaphore)
+        {
+            for (Moments bucket : this.buckets)
+            {
+                bucket.clear();
+            }
+            this.currentIndex = Long.MIN_VALUE;
+        }
+    }
+
+    @Override
+    public String getDescription()
+    {
+        return this.description;
+    }
+
+    @Override
+    public void setDescription(final String description)
+    {
+        this.description = description;
+    }
+
+    /**
+     * Return the number of buckets in which the window is divided.
+     * @return the number of buckets in which the window is divided
+     */
+    public int getBucketCount()
+    {
+        return this.buckets.length;
+    }
+
+    /**
+     * Ingest an array of values.
+     * @param values the values to register
+     */
+    public void register(final double... values)
+    {
+        for (double value : values)
+        {
+            register(value);
+        }
+    }
+
+    /**
+     * Process one observed value.
+     * @param value the value to process
+     * @return the value
+     * @throws IllegalArgumentException when value is NaN
+     */
+    public double register(final double value)
+    {
+        Throw.when(Double.isNaN(value), IllegalArgumentException.class, "value may not be NaN");
+        synchronized (this.semaphore)
+        {
+            advance(registrationBucketIndex());
+            this.buckets[(int) Math.floorMod(this.currentIndex, (long) this.buckets.length)].register(value);
+        }
+        return value;
+    }
+
+    /**
+     * Return the index of the bucket in which the next value has to be registered. The index counts the buckets since the start
+     * of the window, and may not decrease. This method is called while holding the semaphore.
+     * @return the index of the bucket in which the next value has to be registered
+     */
+    protected abstract long registrationBucketIndex();
+
+    /**
+     * Return the index of the most recent bucket of the window at the moment of a query. This method is called while holding
+     * the semaphore.
+     * @return the index of the most recent bucket of the window at the moment of a query
+     */
+    protected abstract long queryBucketIndex();
+
+    /**
+     * Move the window such that the bucket with the given index is the most recent bucket, clearing the buckets that drop out
+     * of the window. An index that is lower than the current index leaves the window unchanged.
+     * @param bucketIndex the index of the new most recent bucket
+     */
+    private void advance(final long bucketIndex)
+    {
+        if (this.currentIndex == Long.MIN_VALUE)
+        {
+            this.currentIndex = bucketIndex;
+            return;
+        }
+        if (bucketIndex <= this.currentIndex)
+        {
+            return;
+        }
+        if (bucketIndex - this.currentIndex >= this.buckets.length)
+        {
+            for (Moments bucket : this.buckets)
+            {
+                bucket.clear();
+            }
+        }
+        else
+        {
+            for (long index = this.currentIndex + 1; index <= bucketIndex; index++)
+            {
+                this.buckets[(int) Math.floorMod(index, (long) this.buckets.length)].clear();
+            }
+        }
+        this.currentIndex = bucketIndex;
+    }
+
+    /**
+     * Merge the buckets of the current window.
+     * @return the moments of the observations in the current window
+     */
+    private Moments window()
+    {
+        Moments window = new Moments();
+        synchronized (this.semaphore)
+        {
+            if (this.currentIndex != Long.MIN_VALUE)
+            {
+                advance(queryBucketIndex());
+            }
+            for (Moments bucket : this.buckets)
+            {
+                window.merge(bucket);
+            }
+        }
+        return window;
+    }
+
+    /**
+     * Return an immutable snapshot of the number of observations, the sum, the moments, the minimum and the maximum of the
+     * observations in the current window, taken with one acquisition of the lock. Statistics that are calculated from the
+     * snapshot all belong to the same window.
+     * @return an immutable snapshot of the observations in the current window
+     */
+    public TallySnapshot snapshot()
+    {
+        Moments window = window();
+        long n = window.getN();
+        return new TallySnapshot(n, window.getSum(), n > 0 ? window.getMean() : 0.0, window.getM2(), window.getM3(),
+                window.getM4(), window.getMin(), window.getMax());
+    }
+
+    /**
+     * Return the number of observations in the current window.
+     * @return the number of observations in the current window
+     */
+    @Override
+    public long getN()
+    {
+        return window().getN();
+    }
+
+    /**
+     * Return the sum of the observations in the current window.
+     * @return the sum of the observations in the current window
+     */
+    public double getSum()
+    {
+        return window().getSum();
+    }
+
+    /**
+     * Return the minimum of the observations in the current window, or NaN when the window holds no observations.
+     * @return the minimum of the observations in the current window
+     */
+    @Override
+    public double getMin()
+    {
+        return window().getMin();
+    }
+
+    /**
+     * Return the maximum of the observations in the current window, or NaN when the window holds no observations.
+     * @return the maximum of the observations in the current window
+     */
+    @Override
+    public double getMax()
+    {
+        return window().getMax();
+    }
+
+    /**
+     * Returns the sample mean of the observations in the current window, or NaN when the window holds no observations.
+     * @return the sample mean
+     */
+    public double getSampleMean()
+    {
+        return window().getMean();
+    }
+
+    /**
+     * Returns the population mean of the observations in the current window, or NaN when the window holds no observations.
+     * @return the population mean
+     */
+    public double getPopulationMean()
+    {
+        return getSampleMean();
+    }
+
+    /**
+     * Returns the (unbiased) sample variance of the observations in the current window, or NaN when the window holds less than
+     * two observations.
+     * @return the sample variance
+     */
+    public double getSampleVariance()
+    {
+        Moments window = window();
+        return window.getN() > 1 ? window.getM2() / (window.getN() - 1) : Double.NaN;
+    }
+
+    /**
+     * Returns the (biased) population variance of the observations in the current window, or NaN when the window holds no
+     * observations.
+     * @return the population variance
+     */
+    public double getPopulationVariance()
+    {
+        Moments window = window();
+        return window.getN() > 0 ? window.getM2() / window.getN() : Double.NaN;
+    }
+
+    /**
+     * Returns the (unbiased) sample standard deviation of the observations in the current window, or NaN when the window holds
+     * less than two observations.
+     * @return the sample standard deviation
+     */
+    public double getSampleStDev()
+    {
+        return Math.sqrt(getSampleVariance());
+    }
+
+    /**
+     * Returns the (biased) population standard deviation of the observations in the current window, or NaN when the window
+     * holds no observations.
+     * @return the population standard deviation
+     */
+    public double getPopulationStDev()
+    {
+        return Math.sqrt(getPopulationVariance());
+    }
+
+    /**
+     * Return the (biased) population skewness of the observations in the current window, using the same formula as the Tally.
+     * @return the population skewness, or NaN when the window holds less than two observations
+     */
+    public double getPopulationSkewness()
+    {
+        Moments window = window();
+        long n = window.getN();
+        return n > 1 ? (window.getM3() / n) / Math.pow(window.getM2() / n, 1.5) : Double.NaN;
+    }
+
+    /**
+     * Return the (unbiased) sample skewness of the observations in the current window, using the same formula as the Tally.
+     * @return the sample skewness, or NaN when the window holds less than three observations
+     */
+    public double getSampleSkewness()
+    {
+        Moments window = window();
+        long n = window.getN();
+        return n > 2 ? (window.getM3() / n) / Math.pow(window.getM2() / n, 1.5) * Math.sqrt(n * (n - 1)) / (n - 2)
+                : Double.NaN;
+    }
+
+    /**
+     * Return the (biased) population kurtosis of the observations in the current window, using the same formula as the Tally.
+     * @return the population kurtosis, or NaN when the window holds less than three observations
+     */
+    public double getPopulationKurtosis()
+    {
+        Moments window = window();
+        long n = window.getN();
+        return n > 2 ? (window.getM4() / n) / (window.getM2() / n) / (window.getM2() / n) : Double.NaN;
+    }
+
+    /**
+     * Return the sample kurtosis of the observations in the current window, using the same formula as the Tally.
+     * @return the sample kurtosis, or NaN when the window holds less than four observations
+     */
+    public double getSampleKurtosis()
+    {
+        Moments window = window();
+        long n = window.getN();
+        if (n > 3)
+        {
+            double sVar = window.getM2() / (n - 1);
+            return window.getM4() / (n - 1) / sVar / sVar;
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Return the population excess kurtosis of the observations in the current window.
+     * @return the population excess kurtosis, or NaN when the window holds less than three observations
+     */
+    public double getPopulationExcessKurtosis()
+    {
+        return getPopulationKurtosis() - 3.0;
+    }
+
+    /**
+     * Return the sample excess kurtosis of the observations in the current window, using the same formula as the Tally.
+     * @return the sample excess kurtosis, or NaN when the window holds less than four observations
+     */
+    public double getSampleExcessKurtosis()
+    {
+        Moments window = window();
+        long n = window.getN();
+        if (n > 3)
+        {
+            double g2 = (window.getM4() / n) / (window.getM2() / n) / (window.getM2() / n) - 3.0;
+            return (1.0 * (n - 1) / (n - 2) / (n - 3)) * ((n + 1) * g2 + 6.0);
+        }
+        return Double.NaN;
+    }
+
+    @Override
+    public String reportLine()
+    {
+        Moments window = window();
+        long n = window.getN();
+        return String.format("| %-48.48s | %6d | %s | %s | %s | %s |", getDescription(), n, formatFixed(window.getMean(), 10),
+                formatFixed(n > 0 ? Math.sqrt(window.getM2() / n) : Double.NaN, 10), formatFixed(window.getMin(), 10),
+                formatFixed(window.getMax(), 10));
+    }
+
+}
@@ -25,6 +25,9 @@ public class EventBasedCounter extends Counter implements EventProducer, EventLi
     /** The embedded EventProducer. */
     private EventProducer eventProducer = null;
 
+    /** Keeps track of the observations since the last publication of the statistics. */
+    private final PublicationThrottle publicationThrottle = new PublicationThrottle();
+
     /**
      * Construct a new EventBasedCounter.
      * @param description the description for this counter
@@ -46,6 +49,26 @@ public class EventBasedCounter extends Counter implements EventProducer, EventLi
         this.eventProducer = eventProducer;
     }
 
+    /**
+     * Return the policy that determines how often the statistics are published when observations are registered.
+     * @return the publication policy
+     */
+    public PublicationPolicy getPublicationPolicy()
+    {
+        return this.publicationThrottle.getPolicy();
+    }
+
+    /**
+     * Set the policy that determines how often the statistics are published when observations are registered. The default
+     * policy, PublicationPolicy.EVERY_OBSERVATION, publishes the statistics after every observation.
+     * @param publicationPolicy the new publication policy
+     * @throws NullPointerException when publicationPolicy is null
+     */
+    public void setPublicationPolicy(final PublicationPolicy publicationPolicy)
+    {
+        this.publicationThrottle.setPolicy(publicationPolicy);
+    }
+
     @Override
     public EventListenerMap getEventListenerMap()
     {
@@ -84,13 +107,41 @@ public class EventBasedCounter extends Counter implements EventProducer, EventLi
         if (hasListeners())
         {
             this.eventProducer.fireEvent(StatisticsEvents.OBSERVATION_ADDED_EVENT, value);
-            fireEvents();
+            if (this.publicationThrottle.observe())
+            {
+                publishEvents();
+            }
         }
         return value;
     }
 
     /**
-     * Method that can be overridden to fire own events or additional events when registering an observation.
+     * Publish the statistics events and the COUNTER_SNAPSHOT_EVENT now, regardless of the publication policy. This method can
+     * be used to publish the statistics on demand, e.g., at the end of a run or from a timer that updates a chart.
+     */
+    public void publish()
+    {
+        publishEvents();
+        this.publicationThrottle.published();
+    }
+
+    /**
+     * Fire the statistics events and the snapshot event to the listeners, without resetting the publication policy.
+     */
+    private void publishEvents()
+    {
+        if (hasListeners())
+        {
+            fireEvents();
+            if (getEventListenerMap().containsKey(StatisticsEvents.COUNTER_SNAPSHOT_EVENT))
+            {
+                this.eventProducer.fireEvent(StatisticsEvents.COUNTER_SNAPSHOT_EVENT, new Object[] {getN(), getCount()});
+            }
+        }
+    }
+
+    /**
+     * Method that can be overridden to fire own events or additional events when the statistics are published.
      */
     protected void fireEvents()
     {
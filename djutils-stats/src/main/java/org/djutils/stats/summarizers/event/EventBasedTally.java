@@ -7,6 +7,7 @@ import org.djutils.event.EventProducer;
 import org.djutils.event.LocalEventProducer;
 import org.djutils.exceptions.Throw;
 import org.djutils.stats.summarizers.Tally;
+import org.djutils.stats.summarizers.TallySnapshot;
 import org.djutils.stats.summarizers.quantileaccumulator.NoStorageAccumulator;
 import org.djutils.stats.summarizers.quantileaccumulator.QuantileAccumulator;
 
@@ -29,6 +30,9 @@ public class EventBasedTally extends Tally implements EventProducer, EventListen
     /** The embedded EventProducer. */
     private EventProducer eventProducer = null;
 
+    /** Keeps track of the observations since the last publication of the statistics. */
+    private final PublicationThrottle publicationThrottle = new PublicationThrottle();
+
     /**
      * Constructs a new EventBasedTally.
      * @param description the description of this tally
@@ -73,6 +77,26 @@ public class EventBasedTally extends Tally implements EventProducer, EventListen
         this.eventProducer = eventProducer;
     }
 
+    /**
+     * Return the policy that determines how often the statistics are published when observations are registered.
+     * @return the publication policy
+     */
+    public PublicationPolicy getPublicationPolicy()
+    {
+        return this.publicationThrottle.getPolicy();
+    }
+
+    /**
+     * Set the policy that determines how often the statistics are published when observations are registered. The default
+     * policy, PublicationPolicy.EVERY_OBSERVATION, publishes the statistics after every observation.
+     * @param publicationPolicy the new publication policy
+     * @throws NullPointerException when publicationPolicy is null
+     */
+    public void setPublicationPolicy(final PublicationPolicy publicationPolicy)
+    {
+        this.publicationThrottle.setPolicy(publicationPolicy);
+    }
+
     @Override
     public EventListenerMap getEventListenerMap()
     {
@@ -108,13 +132,47 @@ public class EventBasedTally extends Tally implements EventProducer, EventListen
         if (hasListeners())
         {
             this.eventProducer.fireEvent(StatisticsEvents.OBSERVATION_ADDED_EVENT, value);
-            fireEvents();
+            if (this.publicationThrottle.observe())
+            {
+                publishEvents();
+            }
         }
         return value;
     }
 
     /**
-     * Method that can be overridden to fire own events or additional events when registering an observation.
+     * Publish the statistics events and the TALLY_SNAPSHOT_EVENT now, regardless of the publication policy. This method can be
+     * used to publish the statistics on demand, e.g., at the end of a run or from a timer that updates a chart.
+     */
+    public void publish()
+    {
+        publishEvents();
+        this.publicationThrottle.published();
+    }
+
+    /**
+     * Fire the statistics events and the snapshot event to the listeners, without resetting the publication policy.
+     */
+    private void publishEvents()
+    {
+        if (hasListeners())
+        {
+            fireEvents();
+            if (getEventListenerMap().containsKey(StatisticsEvents.TALLY_SNAPSHOT_EVENT))
+            {
+                TallySnapshot state = snapshot();
+                Object[] content = new Object[] {state.n(), state.min(), state.max(), state.getPopulationMean(),
+                        state.getPopulationVariance(), state.getPopulationSkewness(), state.getPopulationKurtosis(),
+                        state.getPopulationExcessKurtosis(), state.getPopulationStDev(), state.sum(), state.getSampleMean(),
+                        state.getSampleVariance(), state.getSampleSkewness(), state.getSampleKurtosis(),
+                        state.getSampleExcessKurtosis(), state.getSampleStDev()};
+                this.eventProducer.fireEvent(StatisticsEvents.TALLY_SNAPSHOT_EVENT, content);
+            }
+        }
+    }
+
+    /**
+     * Method that can be overridden to fire own events or additional events when the statistics are published.
      */
     protected void fireEvents()
     {
@@ -10,6 +10,7 @@ import org.djutils.event.LocalEventProducer;
 import org.djutils.event.TimedEvent;
 import org.djutils.exceptions.Throw;
 import org.djutils.stats.summarizers.TimestampWeightedTally;
+import org.djutils.stats.summarizers.WeightedTallySnapshot;
 
 /**
  * The TimestampWeightedTally class defines a time-weighted tally based on timestamped data. The difference with a normal
@@ -30,6 +31,12 @@ public class EventBasedTimestampWeightedTally extends TimestampWeightedTally imp
     /** The embedded EventProducer. */
     private EventProducer eventProducer = null;
 
+    /** Keeps track of the observations since the last publication of the statistics. */
+    private final PublicationThrottle publicationThrottle = new PublicationThrottle();
+
+    /** The timestamp of the last registered observation, used for publication on demand; null when there is none. */
+    private Object lastRegisteredTimestamp;
+
     /**
      * constructs a new EventBasedTimestampWeightedTally with a description.
      * @param description the description of this EventBasedTimestampWeightedTally
@@ -51,6 +58,26 @@ public class EventBasedTimestampWeightedTally extends TimestampWeightedTally imp
         this.eventProducer = eventProducer;
     }
 
+    /**
+     * Return the policy that determines how often the statistics are published when observations are registered.
+     * @return the publication policy
+     */
+    public PublicationPolicy getPublicationPolicy()
+    {
+        return this.publicationThrottle.getPolicy();
+    }
+
+    /**
+     * Set the policy that determines how often the statistics are published when observations are registered. The default
+     * policy, PublicationPolicy.EVERY_OBSERVATION, publishes the statistics after every observation.
+     * @param publicationPolicy the new publication policy
+     * @throws NullPointerException when publicationPolicy is null
+     */
+    public void setPublicationPolicy(final PublicationPolicy publicationPolicy)
+    {
+        this.publicationThrottle.setPolicy(publicationPolicy);
+    }
+
     @Override
     public EventListenerMap getEventListenerMap()
     {
@@ -61,6 +88,7 @@ public class EventBasedTimestampWeightedTally extends TimestampWeightedTally imp
     public void initialize()
     {
         super.initialize();
+        this.lastRegisteredTimestamp = null;
         if (this.eventProducer != null)
         {
             this.eventProducer.fireEvent(StatisticsEvents.INITIALIZED_EVENT);
@@ -118,10 +146,14 @@ public class EventBasedTimestampWeightedTally extends TimestampWeightedTally imp
     public double register(final Calendar timestamp, final double value)
     {
         super.register(timestamp, value);
+        this.lastRegisteredTimestamp = timestamp;
         if (hasListeners())
         {
             this.eventProducer.fireEvent(StatisticsEvents.TIMESTAMPED_OBSERVATION_ADDED_EVENT, new Object[] {timestamp, value});
-            fireEvents(timestamp);
+            if (this.publicationThrottle.observe())
+            {
+                publishEvents();
+            }
         }
         return value;
     }
@@ -140,10 +172,14 @@ public class EventBasedTimestampWeightedTally extends TimestampWeightedTally imp
     public double register(final Number timestamp, final double value)
     {
         super.register(timestamp, value);
+        this.lastRegisteredTimestamp = timestamp;
         if (hasListeners())
         {
             this.eventProducer.fireEvent(StatisticsEvents.TIMESTAMPED_OBSERVATION_ADDED_EVENT, new Object[] {timestamp, value});
-            fireEvents(timestamp);
+            if (this.publicationThrottle.observe())
+            {
+                publishEvents();
+            }
         }
         return value;
     }
@@ -167,8 +203,51 @@ public class EventBasedTimestampWeightedTally extends TimestampWeightedTally imp
     }
 
     /**
-     * Method that can be overridden to fire own events or additional events when registering an observation. This method takes
-     * an Object because Number itself is NOT comparable.
+     * Publish the timed statistics events and the TIMED_WEIGHTED_TALLY_SNAPSHOT_EVENT now, regardless of the publication policy,
+     * with the timestamp of the last registered observation. This method can be used to publish the statistics on demand,
+     * e.g., at the end of a run or from a timer that updates a chart. Nothing is published when no observations have been
+     * registered since the initialization.
+     */
+    public void publish()
+    {
+        publishEvents();
+        this.publicationThrottle.published();
+    }
+
+    /**
+     * Fire the statistics events and the snapshot event to the listeners, without resetting the publication policy.
+     */
+    private void publishEvents()
+    {
+        if (hasListeners() && this.lastRegisteredTimestamp != null)
+        {
+            fireEvents(this.lastRegisteredTimestamp);
+            if (getEventListenerMap().containsKey(StatisticsEvents.TIMED_WEIGHTED_TALLY_SNAPSHOT_EVENT))
+            {
+                fireSnapshotEvent(this.lastRegisteredTimestamp);
+            }
+        }
+    }
+
+    /**
+     * Fire the TIMED_WEIGHTED_TALLY_SNAPSHOT_EVENT. This method takes an Object because Number itself is NOT comparable.
+     * @param <T> a type for the timestamp that is Comparable
+     * @param timestamp the timestamp to use in the TimedEvent
+     */
+    private <T extends Comparable<T>> void fireSnapshotEvent(final Object timestamp)
+    {
+        WeightedTallySnapshot state = snapshot();
+        Object[] content = new Object[] {state.n(), state.min(), state.max(), state.getWeightedPopulationMean(),
+                state.getWeightedPopulationVariance(), state.getWeightedPopulationStDev(), state.weightedSum(),
+                state.getWeightedSampleMean(), state.getWeightedSampleVariance(), state.getWeightedSampleStDev()};
+        @SuppressWarnings("unchecked")
+        T castedTimestamp = (T) timestamp;
+        fireTimedEvent(StatisticsEvents.TIMED_WEIGHTED_TALLY_SNAPSHOT_EVENT, content, castedTimestamp);
+    }
+
+    /**
+     * Method that can be overridden to fire own events or additional events when the statistics are published. This method
+     * takes an Object because Number itself is NOT comparable.
      * @param <T> a type for the timestamp that is Comparable
      * @param timestamp the timestamp to use in the TimedEvents
      */
@@ -7,6 +7,7 @@ import org.djutils.event.EventProducer;
 import org.djutils.event.LocalEventProducer;
 import org.djutils.exceptions.Throw;
 import org.djutils.stats.summarizers.WeightedTally;
+import org.djutils.stats.summarizers.WeightedTallySnapshot;
 
 /**
  * The EventBasedWeightedTally class defines a time-weighted tally that can be notified with weights and values using the
@@ -26,6 +27,9 @@ public class EventBasedWeightedTally extends WeightedTally implements EventProdu
     /** The embedded EventProducer. */
     private EventProducer eventProducer = null;
 
+    /** Keeps track of the observations since the last publication of the statistics. */
+    private final PublicationThrottle publicationThrottle = new PublicationThrottle();
+
     /**
      * Construct a new WeightedTally with a description.
      * @param description the description of this WeightedTally
@@ -47,6 +51,26 @@ public class EventBasedWeightedTally extends WeightedTally implements EventProdu
         this.eventProducer = eventProducer;
     }
 
+    /**
+     * Return the policy that determines how often the statistics are published when observations are registered.
+     * @return the publication policy
+     */
+    public PublicationPolicy getPublicationPolicy()
+    {
+        return this.publicationThrottle.getPolicy();
+    }
+
+    /**
+     * Set the policy that determines how often the statistics are published when observations are registered. The default
+     * policy, PublicationPolicy.EVERY_OBSERVATION, publishes the statistics after every observation.
+     * @param publicationPolicy the new publication policy
+     * @throws NullPointerException when publicationPolicy is null
+     */
+    public void setPublicationPolicy(final PublicationPolicy publicationPolicy)
+    {
+        this.publicationThrottle.setPolicy(publicationPolicy);
+    }
+
     @Override
     public EventListenerMap getEventListenerMap()
     {
@@ -86,13 +110,45 @@ public class EventBasedWeightedTally extends WeightedTally implements EventProdu
         if (hasListeners())
         {
             this.eventProducer.fireEvent(StatisticsEvents.WEIGHTED_OBSERVATION_ADDED_EVENT, new Object[] {weight, value});
-            fireEvents();
+            if (this.publicationThrottle.observe())
+            {
+                publishEvents();
+            }
         }
         return value;
     }
 
     /**
-     * Method that can be overridden to fire own events or additional events when registering an observation.
+     * Publish the statistics events and the WEIGHTED_TALLY_SNAPSHOT_EVENT now, regardless of the publication policy. This
+     * method can be used to publish the statistics on demand, e.g., at the end of a run or from a timer that updates a chart.
+     */
+    public void publish()
+    {
+        publishEvents();
+        this.publicationThrottle.published();
+    }
+
+    /**
+     * Fire the statistics events and the snapshot event to the listeners, without resetting the publication policy.
+     */
+    private void publishEvents()
+    {
+        if (hasListeners())
+        {
+            fireEvents();
+            if (getEventListenerMap().containsKey(StatisticsEvents.WEIGHTED_TALLY_SNAPSHOT_EVENT))
+            {
+                WeightedTallySnapshot state = snapshot();
+                Object[] content = new Object[] {state.n(), state.min(), state.max(), state.getWeightedPopulationMean(),
+                        state.getWeightedPopulationVariance(), state.getWeightedPopulationStDev(), state.weightedSum(),
+                        state.getWeightedSampleMean(), state.getWeightedSampleVariance(), state.getWeightedSampleStDev()};
+                this.eventProducer.fireEvent(StatisticsEvents.WEIGHTED_TALLY_SNAPSHOT_EVENT, content);
+            }
+        }
+    }
+
+    /**
+     * Method that can be overridden to fire own events or additional events when the statistics are published.
      */
     protected void fireEvents()
     {
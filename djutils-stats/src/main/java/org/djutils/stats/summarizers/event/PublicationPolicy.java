@@ -0,0 +1,139 @@
+package org.djutils.stats.summarizers.event;
+
+import org.djutils.exceptions.Throw;
+
+/**
+ * PublicationPolicy determines how often an event based statistic publishes its statistics events and its snapshot event
+ * when observations are registered. Publishing after every observation creates more than a dozen events per observation,
+ * which can slow down a simulation considerably when, e.g., a live chart listens to the statistic. A policy can publish after
+ * every <i>n</i> observations, at most once every <i>t</i> milliseconds of wall clock time, a combination of both, or only on
+ * demand, i.e., when the <code>publish()</code> method of the statistic is called. Events that carry an individual observation,
+ * such as the OBSERVATION_ADDED_EVENT, are not subject to the policy, since leaving them out would lose observations. <br>
+ * <br>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>. <br>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://www.tudelft.nl/pknoppers">Peter Knoppers</a>
+ */
+public final class PublicationPolicy
+{
+    /** Publish the statistics after every observation; this is the default policy. */
+    public static final PublicationPolicy EVERY_OBSERVATION = new PublicationPolicy(1, 0L);
+
+    /** Only publish the statistics when the <code>publish()</code> method of the statistic is called. */
+    public static final PublicationPolicy ON_DEMAND = new PublicationPolicy(0, 0L);
+
+    /** The number of observations between publications, or 0 when the statistics are only published on demand. */
+    private final int observations;
+
+    /** The minimum wall clock time between publications, in milliseconds. */
+    private final long minimumIntervalMillis;
+
+    /**
+     * Create a publication policy.
+     * @param observations the number of observations between publications, or 0 to only publish on demand
+     * @param minimumIntervalMillis the minimum wall clock time between publications, in milliseconds
+     */
+    private PublicationPolicy(final int observations, final long minimumIntervalMillis)
+    {
+        this.observations = observations;
+        this.minimumIntervalMillis = minimumIntervalMillis;
+    }
+
+    /**
+     * Return a policy that publishes the statistics after every <code>n</code> observations.
+     * @param n the number of observations between publications
+     * @return a policy that publishes the statistics after every n observations
+     * @throws IllegalArgumentException when n is less than 1
+     */
+    public static PublicationPolicy everyObservations(final int n)
+    {
+        return of(n, 0L);
+    }
+
+    /**
+     * Return a policy that publishes the statistics at an observation when at least <code>millis</code> milliseconds of wall
+     * clock time have passed since the last publication. The statistics of the last observations before a pause are therefore
+     * only published at the next observation, or when the <code>publish()</code> method of the statistic is called.
+     * @param millis the minimum wall clock time between publications, in milliseconds
+     * @return a policy that publishes the statistics at most once every millis milliseconds
+     * @throws IllegalArgumentException when millis is negative
+     */
+    public static PublicationPolicy atMostEveryMillis(final long millis)
+    {
+        return of(1, millis);
+    }
+
+    /**
+     * Return a policy that publishes the statistics when at least <code>n</code> observations have been registered, and at
+     * least <code>millis</code> milliseconds of wall clock time have passed, since the last publication.
+     * @param n the minimum number of observations between publications
+     * @param millis the minimum wall clock time between publications, in milliseconds
+     * @return a policy that publishes the statistics after n observations, but at most once every millis milliseconds
+     * @throws IllegalArgumentException when n is less than 1, or millis is negative
+     */
+    public static PublicationPolicy of(final int n, final long millis)
+    {
+        Throw.when(n < 1, IllegalArgumentException.class, "number of observations must be > 0; got %d", n);
+        Throw.when(millis < 0, IllegalArgumentException.class, "minimum interval must be >= 0; got %d", millis);
+        return n == 1 && millis == 0L ? EVERY_OBSERVATION : new PublicationPolicy(n, millis);
+    }
+
+    /**
+     * Return the (minimum) number of observations between publications, or 0 when the statistics are only published on demand.
+     * @return the number of observations between publications
+     */
+    public int getObservations()
+    {
+        return this.observations;
+    }
+
+    /**
+     * Return the minimum wall clock time between publications, in milliseconds.
+     * @return the minimum wall clock time between publications, in milliseconds
+     */
+    public long getMinimumIntervalMillis()
+    {
+        return this.minimumIntervalMillis;
+    }
+
+    /**
+     * Return whether the statistics are only published on demand.
+     * @return whether the statistics are only published on demand
+     */
+    public boolean isOnDemand()
+    {
+        return this.observations == 0;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return 31 * this.observations + Long.hashCode(this.minimumIntervalMillis);
+    }
+
+    @Override
+    public boolean equals(final Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass())
+        {
+            return false;
+        }
+        PublicationPolicy other = (PublicationPolicy) obj;
+        return this.observations == other.observations && this.minimumIntervalMillis == other.minimumIntervalMillis;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "PublicationPolicy [observations=" + this.observations + ", minimumIntervalMillis=" + this.minimumIntervalMillis
+                + "]";
+    }
+
+}
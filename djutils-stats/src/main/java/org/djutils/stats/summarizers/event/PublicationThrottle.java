@@ -0,0 +1,91 @@
+package org.djutils.stats.summarizers.event;
+
+import org.djutils.exceptions.Throw;
+
+/**
+ * PublicationThrottle keeps track of the observations and the wall clock time since the last publication of an event based
+ * statistic, and decides with its PublicationPolicy whether the statistics have to be published at an observation. The
+ * throttle is thread-safe, since observations can be registered from several threads after the summarizer released its lock.
+ * <br>
+ * <br>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>. <br>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://www.tudelft.nl/pknoppers">Peter Knoppers</a>
+ */
+final class PublicationThrottle
+{
+    /** The publication policy. */
+    private volatile PublicationPolicy policy = PublicationPolicy.EVERY_OBSERVATION;
+
+    /** the semaphore. */
+    private final Object semaphore = new Object();
+
+    /** The number of observations since the last publication. */
+    private long unpublished = 0;
+
+    /** The wall clock time of the last publication, in nanoseconds. */
+    private long lastPublicationNanos = System.nanoTime();
+
+    /**
+     * Return the publication policy.
+     * @return the publication policy
+     */
+    PublicationPolicy getPolicy()
+    {
+        return this.policy;
+    }
+
+    /**
+     * Set a new publication policy.
+     * @param policy the new publication policy
+     * @throws NullPointerException when policy is null
+     */
+    void setPolicy(final PublicationPolicy policy)
+    {
+        this.policy = Throw.whenNull(policy, "policy cannot be null");
+    }
+
+    /**
+     * Count an observation, and return whether the statistics have to be published according to the policy. When true is
+     * returned, the publication is claimed for the calling thread, so concurrent observations do not publish the same batch.
+     * @return whether the statistics have to be published
+     */
+    boolean observe()
+    {
+        PublicationPolicy currentPolicy = this.policy;
+        synchronized (this.semaphore)
+        {
+            this.unpublished++;
+            if (currentPolicy.isOnDemand() || this.unpublished < currentPolicy.getObservations())
+            {
+                return false;
+            }
+            long now = System.nanoTime();
+            if (currentPolicy.getMinimumIntervalMillis() != 0L
+                    && now - this.lastPublicationNanos < currentPolicy.getMinimumIntervalMillis() * 1_000_000L)
+            {
+                return false;
+            }
+            this.unpublished = 0;
+            this.lastPublicationNanos = now;
+            return true;
+        }
+    }
+
+    /**
+     * Register that the statistics have been published on demand. A publication that was claimed by observe() does not need
+     * this call; resetting the count then could lose the observations that other threads registered in the meantime.
+     */
+    void published()
+    {
+        synchronized (this.semaphore)
+        {
+            this.unpublished = 0;
+            this.lastPublicationNanos = System.nanoTime();
+        }
+    }
+
+}
@@ -346,4 +346,70 @@ public final class StatisticsEvents
             new MetaData("Weighted sample stdDev value", "Weighted sample stdDev Double value",
                     new ObjectDescriptor("Weighted sample stdDev value", "Weighted sample stdDev Double value", Double.class)));
 
+    /* ********************** SNAPSHOT EVENTS WITH ALL STATISTICS OF A STATISTIC AT ONCE ************************ */
+
+    /**
+     * TALLY_SNAPSHOT_EVENT is fired when a tally publishes its statistics. The event should define the Statistic as the source
+     * and an Object[] with { n, min, max, population mean, population variance, population skewness, population kurtosis,
+     * population excess kurtosis, population stdev, sum, sample mean, sample variance, sample skewness, sample kurtosis, sample
+     * excess kurtosis, sample stdev } as the content, where n is a Long and the other values are Doubles.
+     */
+    public static final EventType TALLY_SNAPSHOT_EVENT = new EventType("TALLY_SNAPSHOT_EVENT",
+            new MetaData("Tally statistics", "Long n and Double statistics of a tally",
+                    snapshotDescriptors("Minimum value", "Maximum value", "Population mean value", "Population variance value",
+                            "Population skewness value", "Population kurtosis value", "Population excess kurtosis value",
+                            "Population stdDev value", "Sum value", "Sample mean value", "Sample variance value",
+                            "Sample skewness value", "Sample kurtosis value", "Sample excess kurtosis value",
+                            "Sample stdDev value")));
+
+    /**
+     * WEIGHTED_TALLY_SNAPSHOT_EVENT is fired when a weighted tally publishes its statistics. The event should define the
+     * Statistic as the source and an Object[] with { n, min, max, weighted population mean, weighted population variance,
+     * weighted population stdev, weighted sum, weighted sample mean, weighted sample variance, weighted sample stdev } as the
+     * content, where n is a Long and the other values are Doubles.
+     */
+    public static final EventType WEIGHTED_TALLY_SNAPSHOT_EVENT = new EventType("WEIGHTED_TALLY_SNAPSHOT_EVENT",
+            new MetaData("Weighted tally statistics", "Long n and Double statistics of a weighted tally",
+                    snapshotDescriptors("Minimum value", "Maximum value", "Weighted population mean value",
+                            "Weighted population variance value", "Weighted population stdDev value", "Weighted sum value",
+                            "Weighted sample mean value", "Weighted sample variance value",
+                            "Weighted sample stdDev value")));
+
+    /**
+     * TIMED_WEIGHTED_TALLY_SNAPSHOT_EVENT is fired as a timed event when a timestamp weighted tally publishes its statistics.
+     * The event should define the Statistic as the source, the timestamp of the last observation as the timestamp, and the
+     * same content as the WEIGHTED_TALLY_SNAPSHOT_EVENT.
+     */
+    public static final EventType TIMED_WEIGHTED_TALLY_SNAPSHOT_EVENT = new EventType("TIMED_WEIGHTED_TALLY_SNAPSHOT_EVENT",
+            new MetaData("Weighted tally statistics", "Long n and Double statistics of a timestamp weighted tally",
+                    snapshotDescriptors("Minimum value", "Maximum value", "Weighted population mean value",
+                            "Weighted population variance value", "Weighted population stdDev value", "Weighted sum value",
+                            "Weighted sample mean value", "Weighted sample variance value",
+                            "Weighted sample stdDev value")));
+
+    /**
+     * COUNTER_SNAPSHOT_EVENT is fired when a counter publishes its statistics. The event should define the Statistic as the
+     * source and an Object[] with the Long values { n, count } as the content.
+     */
+    public static final EventType COUNTER_SNAPSHOT_EVENT = new EventType("COUNTER_SNAPSHOT_EVENT",
+            new MetaData("Counter statistics", "Long n and Long count of a counter",
+                    new ObjectDescriptor[] {new ObjectDescriptor("eventCount", "Long event count", Long.class),
+                            new ObjectDescriptor("count", "Number of registered events", Long.class)}));
+
+    /**
+     * Create the descriptors of the content of a snapshot event: the Long number of observations, followed by Double values.
+     * @param names the names of the Double values
+     * @return the descriptors of the content of a snapshot event
+     */
+    private static ObjectDescriptor[] snapshotDescriptors(final String... names)
+    {
+        ObjectDescriptor[] descriptors = new ObjectDescriptor[names.length + 1];
+        descriptors[0] = new ObjectDescriptor("eventCount", "Long event count", Long.class);
+        for (int i = 0; i < names.length; i++)
+        {
+            descriptors[i + 1] = new ObjectDescriptor(names[i], names[i].replace(" value", " Double value"), Double.class);
+        }
+        return descriptors;
+    }
+
 }
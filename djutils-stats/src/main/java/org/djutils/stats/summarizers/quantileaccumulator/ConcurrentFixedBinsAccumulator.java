@@ -0,0 +1,399 @@
+package org.djutils.stats.summarizers.quantileaccumulator;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.djutils.exceptions.Throw;
+import org.djutils.stats.summarizers.Tally;
+
+/**
+ * ConcurrentFixedBinsAccumulator.java. <br>
+ * Thread-safe variant of the FixedBinsAccumulator, for values that are registered by several threads at the same time. The
+ * counts are kept in a number of stripes; each stripe is a binary indexed (Fenwick) tree of atomic counters, and a thread
+ * registers its values in the stripe that belongs to the thread. Threads that register values therefore rarely update the
+ * same counters, and no locks are used. Registering a value takes O(log(binCount)) time; computing a quantile or a
+ * cumulative probability takes O(stripes * log(binCount)) time, as the stripes are added while descending the trees.
+ * Quantiles and cumulative probabilities that are computed while other threads register values reflect the values that were
+ * registered so far, but not necessarily at one moment in time.
+ * <br>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>. <br>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://www.tudelft.nl/pknoppers">Peter Knoppers</a>
+ */
+public class ConcurrentFixedBinsAccumulator implements QuantileAccumulator
+{
+    /** Center value of minimum bin. */
+    private final double minimumBinCenter;
+
+    /** Width of each bin. */
+    private final double binWidth;
+
+    /** Number of bins. */
+    private final int binCount;
+
+    /** Binary indexed trees of the counts, one per stripe; element i (1-based) covers bins i - (i &amp; -i) to i - 1. */
+    private final AtomicLongArray[] trees;
+
+    /** Total number of registered values. */
+    private final LongAdder totalCount = new LongAdder();
+
+    /** Count number of registered items that fall below the range. */
+    private final LongAdder belowCount = new LongAdder();
+
+    /** Count number of registered items that fall above the range. */
+    private final LongAdder aboveCount = new LongAdder();
+
+    /**
+     * Construct a new ConcurrentFixedBinsAccumulator with one stripe per available processor, rounded up to a power of two.
+     * @param minimumBinCenter center value of bin for minimum value of range (minimum value in range is
+     *            <code>minimumBinCenter - binWidth / 2</code>, maximum value in range is
+     *            <code>minimumBinCenter + binWidth * (binCount - 0.5)</code>)
+     * @param binWidth width of each bin
+     * @param binCount number of bins
+     */
+    public ConcurrentFixedBinsAccumulator(final double minimumBinCenter, final double binWidth, final int binCount)
+    {
+        this(minimumBinCenter, binWidth, binCount, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Construct a new ConcurrentFixedBinsAccumulator.
+     * @param minimumBinCenter center value of bin for minimum value of range (minimum value in range is
+     *            <code>minimumBinCenter - binWidth / 2</code>, maximum value in range is
+     *            <code>minimumBinCenter + binWidth * (binCount - 0.5)</code>)
+     * @param binWidth width of each bin
+     * @param binCount number of bins
+     * @param stripes the minimum number of stripes; rounded up to a power of two
+     */
+    public ConcurrentFixedBinsAccumulator(final double minimumBinCenter, final double binWidth, final int binCount,
+            final int stripes)
+    {
+        Throw.when(!Double.isFinite(minimumBinCenter), IllegalArgumentException.class, "minimumBinCenter must be finite");
+        Throw.when(!Double.isFinite(binWidth), IllegalArgumentException.class, "binWidth must be finite");
+        Throw.when(binWidth <= 0, IllegalArgumentException.class, "binWidth must be positive");
+        Throw.when(binCount < 1, IllegalArgumentException.class, "binCount must be > 0");
+        Throw.when(stripes < 1 || stripes > 1 << 16, IllegalArgumentException.class, "stripes must be in the range 1 to 65536");
+        this.minimumBinCenter = minimumBinCenter;
+        this.binWidth = binWidth;
+        this.binCount = binCount;
+        this.trees = new AtomicLongArray[stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1];
+        for (int stripe = 0; stripe < this.trees.length; stripe++)
+        {
+            this.trees[stripe] = new AtomicLongArray(binCount + 1);
+        }
+    }
+
+    /**
+     * Retrieve the bin width.
+     * @return the bin width
+     */
+    public double getBinWidth()
+    {
+        return this.binWidth;
+    }
+
+    /**
+     * Retrieve the bin count.
+     * @return the bin count
+     */
+    public int getBinCount()
+    {
+        return this.binCount;
+    }
+
+    /**
+     * Retrieve the number of stripes.
+     * @return the number of stripes
+     */
+    public int getStripeCount()
+    {
+        return this.trees.length;
+    }
+
+    /**
+     * Retrieve the total number of registered values.
+     * @return the total number of registered values
+     */
+    public long getN()
+    {
+        return this.totalCount.sum();
+    }
+
+    /**
+     * Retrieve the number of registered values that were below the range of this ConcurrentFixedBinsAccumulator.
+     * @return the number of registered values that were below the range of this ConcurrentFixedBinsAccumulator
+     */
+    public long getBelowCount()
+    {
+        return this.belowCount.sum();
+    }
+
+    /**
+     * Retrieve the number of registered values that were above the range of this ConcurrentFixedBinsAccumulator.
+     * @return the number of registered values that were above the range of this ConcurrentFixedBinsAccumulator
+     */
+    public long getAboveCount()
+    {
+        return this.aboveCount.sum();
+    }
+
+    /**
+     * Return the center of a particular bin.
+     * @param bin int the bin number
+     * @return the center of requested bin
+     */
+    public double getBinCenter(final int bin)
+    {
+        Throw.when(bin < 0 || bin >= this.binCount, IllegalArgumentException.class, "bin must be in range 0..%d; got %d",
+                this.binCount - 1, bin);
+        return this.minimumBinCenter + bin * this.binWidth;
+    }
+
+    @Override
+    public double register(final double value)
+    {
+        Throw.when(Double.isNaN(value), IllegalArgumentException.class, "accumulator can not accumlate NaN value");
+        int bin = (int) Math.rint((value - this.minimumBinCenter) / this.binWidth);
+        if (bin < 0)
+        {
+            this.belowCount.increment();
+        }
+        else if (bin >= this.binCount)
+        {
+            this.aboveCount.increment();
+        }
+        else
+        {
+            AtomicLongArray tree = stripe();
+            for (int i = bin + 1; i <= this.binCount; i += i & -i)
+            {
+                tree.getAndIncrement(i);
+            }
+        }
+        this.totalCount.increment();
+        return value;
+    }
+
+    /**
+     * Ingest a number of values with weight 1.
+     * @param values the values
+     * @throws IllegalArgumentException when one of the values is NaN; in that case none of the values is registered
+     */
+    public void register(final double... values)
+    {
+        for (double value : values)
+        {
+            Throw.when(Double.isNaN(value), IllegalArgumentException.class, "accumulator can not accumlate NaN value");
+        }
+        for (double value : values)
+        {
+            register(value);
+        }
+    }
+
+    /**
+     * Return the stripe of the current thread.
+     * @return the stripe of the current thread
+     */
+    private AtomicLongArray stripe()
+    {
+        // spread the identity hash codes of the threads over the stripes
+        int hash = System.identityHashCode(Thread.currentThread()) * 0x9E3779B9;
+        return this.trees[(hash >>> 16) & (this.trees.length - 1)];
+    }
+
+    /**
+     * Return the number of registered values in the range of the bins, up to and including a bin.
+     * @param bin the bin
+     * @return the number of registered values in the bins 0 to bin (inclusive)
+     */
+    private long cumulative(final int bin)
+    {
+        long count = 0;
+        for (int i = bin + 1; i > 0; i -= i & -i)
+        {
+            for (AtomicLongArray tree : this.trees)
+            {
+                count += tree.get(i);
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public double getQuantile(final Tally tally, final double probability)
+    {
+        Throw.when(!Double.isFinite(probability) || probability < 0.0 || probability > 1.0, IllegalArgumentException.class,
+                "probability must be a value between 0 and 1");
+        long usableCount = cumulative(this.binCount - 1);
+        if (usableCount == 0)
+        {
+            return Double.NaN;
+        }
+        // descend the trees to the first bin for which the cumulative count is at least the requested count
+        long remaining = (long) Math.ceil(usableCount * probability);
+        int bin = 0;
+        for (int step = Integer.highestOneBit(this.binCount); step > 0; step >>= 1)
+        {
+            if (bin + step <= this.binCount)
+            {
+                long count = 0;
+                for (AtomicLongArray tree : this.trees)
+                {
+                    count += tree.get(bin + step);
+                }
+                if (count < remaining)
+                {
+                    bin += step;
+                    remaining -= count;
+                }
+            }
+        }
+        return Math.min(bin, this.binCount - 1) * this.binWidth + this.minimumBinCenter;
+    }
+
+    @Override
+    public double getCumulativeProbability(final Tally tally, final double quantile) throws IllegalArgumentException
+    {
+        Throw.when(Double.isNaN(quantile), IllegalArgumentException.class, "quantile may not be NaN");
+        long total = this.totalCount.sum();
+        if (total == 0)
+        {
+            return Double.NaN;
+        }
+        double floatBin = (quantile - this.minimumBinCenter) / this.binWidth;
+        int bin = (int) Math.rint(floatBin);
+        if (bin < 0)
+        {
+            return 0.0;
+        }
+        if (bin >= this.binCount)
+        {
+            return 1.0;
+        }
+        long cumulative = cumulative(bin);
+        long count = cumulative - (bin == 0 ? 0 : cumulative(bin - 1));
+        return Math.min(1.0, (cumulative + (floatBin - bin - 0.5) * count) / total);
+    }
+
+    /**
+     * {@inheritDoc} Values that are registered by other threads during the reset may or may not be counted afterwards.
+     */
+    @Override
+    public void initialize()
+    {
+        for (AtomicLongArray tree : this.trees)
+        {
+            for (int i = 0; i < tree.length(); i++)
+            {
+                tree.set(i, 0L);
+            }
+        }
+        this.belowCount.reset();
+        this.aboveCount.reset();
+        this.totalCount.reset();
+    }
+
+    /**
+     * Store the state of this accumulator in a compact binary form, from which it can be restored exactly with
+     * <code>fromByteArray</code>. The state has the same form as the state of a FixedBinsAccumulator, so either accumulator can
+     * be restored from it. Values that are registered by other threads while the state is stored may or may not be included.
+     * @return the state of this accumulator in binary form
+     */
+    public byte[] toByteArray()
+    {
+        long[] counts = new long[this.binCount];
+        long previous = 0;
+        for (int bin = 0; bin < this.binCount; bin++)
+        {
+            long cumulative = cumulative(bin);
+            counts[bin] = cumulative - previous;
+            previous = cumulative;
+        }
+        return FixedBinsAccumulator.encode(this.minimumBinCenter, this.binWidth, getBelowCount(), getAboveCount(), counts);
+    }
+
+    /**
+     * Create an accumulator with one stripe per available processor from a state that was stored with
+     * <code>toByteArray</code> of a ConcurrentFixedBinsAccumulator or a FixedBinsAccumulator.
+     * @param bytes the stored state
+     * @return an accumulator with the stored state
+     * @throws NullPointerException when bytes is null
+     * @throws IllegalArgumentException when bytes does not contain a valid state
+     */
+    public static ConcurrentFixedBinsAccumulator fromByteArray(final byte[] bytes)
+    {
+        return fromByteArray(bytes, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create an accumulator from a state that was stored with <code>toByteArray</code> of a ConcurrentFixedBinsAccumulator or a
+     * FixedBinsAccumulator. The restored counts are all placed in the first stripe.
+     * @param bytes the stored state
+     * @param stripes the minimum number of stripes; rounded up to a power of two
+     * @return an accumulator with the stored state
+     * @throws NullPointerException when bytes is null
+     * @throws IllegalArgumentException when bytes does not contain a valid state
+     */
+    public static ConcurrentFixedBinsAccumulator fromByteArray(final byte[] bytes, final int stripes)
+    {
+        Throw.whenNull(bytes, "bytes may not be null");
+        try
+        {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            Throw.when(buffer.get() != FixedBinsAccumulator.VERSION, IllegalArgumentException.class,
+                    "unknown version of the stored state");
+            double minimumBinCenter = buffer.getDouble();
+            double binWidth = buffer.getDouble();
+            int binCount = buffer.getInt();
+            Throw.when(binCount > buffer.remaining(), IllegalArgumentException.class, "stored number of bins is not valid");
+            ConcurrentFixedBinsAccumulator result =
+                    new ConcurrentFixedBinsAccumulator(minimumBinCenter, binWidth, binCount, stripes);
+            long below = StateEncoding.getVarLong(buffer);
+            long above = StateEncoding.getVarLong(buffer);
+            result.belowCount.add(below);
+            result.aboveCount.add(above);
+            long total = below + above;
+            // linear time construction of the tree of the first stripe: every node passes its sum on to its parent
+            long[] tree = new long[binCount + 1];
+            for (int bin = 0; bin < binCount; bin++)
+            {
+                tree[bin + 1] = StateEncoding.getVarLong(buffer);
+                total += tree[bin + 1];
+            }
+            Throw.when(buffer.hasRemaining(), IllegalArgumentException.class, "stored state has trailing bytes");
+            for (int i = 1; i < tree.length; i++)
+            {
+                int parent = i + (i & -i);
+                if (parent < tree.length)
+                {
+                    tree[parent] += tree[i];
+                }
+            }
+            for (int i = 1; i < tree.length; i++)
+            {
+                result.trees[0].set(i, tree[i]);
+            }
+            result.totalCount.add(total);
+            return result;
+        }
+        catch (BufferUnderflowException exception)
+        {
+            throw new IllegalArgumentException("stored state is truncated", exception);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ConcurrentFixedBinsAccumulator [minimumBinCenter=" + this.minimumBinCenter + ", binWidth=" + this.binWidth
+                + ", binCount=" + this.binCount + ", stripes=" + this.trees.length + ", totalCount=" + getN()
+                + ", belowCount=" + getBelowCount() + ", aboveCount=" + getAboveCount() + "]";
+    }
+
+}
@@ -0,0 +1,348 @@
+package org.djutils.stats.summarizers.quantileaccumulator;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.DoubleSupplier;
+
+import org.djutils.exceptions.Throw;
+import org.djutils.stats.summarizers.Tally;
+
+/**
+ * ExponentialDecayAccumulator.java. <br>
+ * Accumulator with a fixed set of bins of the same width, in which the weight of a registered value halves every
+ * <code>halfLife</code>, so quantiles and cumulative probabilities follow the recent values. The age of a value is measured
+ * either in registered values or with a clock, which can be the wall clock or, e.g., a simulation clock. Instead of decaying all
+ * bins at every registration, the weight of a new value grows exponentially with its time (forward decay); when the weights
+ * become too large, all bins are scaled down at once. Registering a value therefore takes constant amortized time, and
+ * computing a quantile or a cumulative probability takes O(binCount) time.
+ * <br>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>. <br>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://www.tudelft.nl/pknoppers">Peter Knoppers</a>
+ */
+public class ExponentialDecayAccumulator implements QuantileAccumulator
+{
+    /** The version of the binary form of the state. */
+    private static final byte VERSION = 1;
+
+    /** The weight above which all weights are scaled down. */
+    private static final double MAX_WEIGHT = 1.0E100;
+
+    /** Center value of minimum bin. */
+    private final double minimumBinCenter;
+
+    /** Width of each bin. */
+    private final double binWidth;
+
+    /** The half-life of the weight of a value. */
+    private final double halfLife;
+
+    /** The decay rate, ln(2) / halfLife. */
+    private final double decayRate;
+
+    /** The clock that provides the current time, or null when the age is measured in registered values. */
+    private final DoubleSupplier clock;
+
+    /** The weights of the bins, relative to the landmark time. */
+    private final double[] weights;
+
+    /** The weight of the values below the range, relative to the landmark time. */
+    private double belowWeight;
+
+    /** The weight of the values above the range, relative to the landmark time. */
+    private double aboveWeight;
+
+    /** The time at which a registered value gets weight 1. */
+    private double landmark;
+
+    /** Total number of registered values. */
+    private long totalCount;
+
+    /**
+     * Construct a new ExponentialDecayAccumulator that measures the age of a value in registered values.
+     * @param minimumBinCenter center value of bin for minimum value of range (minimum value in range is
+     *            <code>minimumBinCenter - binWidth / 2</code>, maximum value in range is
+     *            <code>minimumBinCenter + binWidth * (binCount - 0.5)</code>)
+     * @param binWidth width of each bin
+     * @param binCount number of bins
+     * @param halfLife the number of registered values after which the weight of a value has halved
+     */
+    public ExponentialDecayAccumulator(final double minimumBinCenter, final double binWidth, final int binCount,
+            final double halfLife)
+    {
+        this(minimumBinCenter, binWidth, binCount, halfLife, null);
+    }
+
+    /**
+     * Construct a new ExponentialDecayAccumulator that measures the age of a value with a clock.
+     * @param minimumBinCenter center value of bin for minimum value of range (minimum value in range is
+     *            <code>minimumBinCenter - binWidth / 2</code>, maximum value in range is
+     *            <code>minimumBinCenter + binWidth * (binCount - 0.5)</code>)
+     * @param binWidth width of each bin
+     * @param binCount number of bins
+     * @param halfLife the time, in the time unit of the clock, after which the weight of a value has halved
+     * @param clock the clock that provides the current time, or null to measure the age of a value in registered values
+     */
+    public ExponentialDecayAccumulator(final double minimumBinCenter, final double binWidth, final int binCount,
+            final double halfLife, final DoubleSupplier clock)
+    {
+        Throw.when(!Double.isFinite(minimumBinCenter), IllegalArgumentException.class, "minimumBinCenter must be finite");
+        Throw.when(!Double.isFinite(binWidth), IllegalArgumentException.class, "binWidth must be finite");
+        Throw.when(binWidth <= 0, IllegalArgumentException.class, "binWidth must be positive");
+        Throw.when(binCount < 1, IllegalArgumentException.class, "binCount must be > 0");
+        Throw.when(!Double.isFinite(halfLife) || halfLife <= 0.0, IllegalArgumentException.class,
+                "halfLife must be positive and finite");
+        this.minimumBinCenter = minimumBinCenter;
+        this.binWidth = binWidth;
+        this.halfLife = halfLife;
+        this.decayRate = Math.log(2.0) / halfLife;
+        this.clock = clock;
+        this.weights = new double[binCount];
+        initialize();
+    }
+
+    /**
+     * Retrieve the bin width.
+     * @return the bin width
+     */
+    public double getBinWidth()
+    {
+        return this.binWidth;
+    }
+
+    /**
+     * Retrieve the bin count.
+     * @return the bin count
+     */
+    public int getBinCount()
+    {
+        return this.weights.length;
+    }
+
+    /**
+     * Retrieve the half-life of the weight of a value.
+     * @return the half-life of the weight of a value
+     */
+    public double getHalfLife()
+    {
+        return this.halfLife;
+    }
+
+    /**
+     * Retrieve the total number of registered values.
+     * @return the total number of registered values
+     */
+    public long getN()
+    {
+        return this.totalCount;
+    }
+
+    /**
+     * Return the center of a particular bin.
+     * @param bin int the bin number
+     * @return the center of requested bin
+     */
+    public double getBinCenter(final int bin)
+    {
+        Throw.when(bin < 0 || bin >= this.weights.length, IllegalArgumentException.class, "bin must be in range 0..%d; got %d",
+                this.weights.length - 1, bin);
+        return this.minimumBinCenter + bin * this.binWidth;
+    }
+
+    @Override
+    public double register(final double value)
+    {
+        Throw.when(Double.isNaN(value), IllegalArgumentException.class, "accumulator can not accumlate NaN value");
+        double now = this.clock == null ? this.totalCount : this.clock.getAsDouble();
+        Throw.when(!Double.isFinite(now), IllegalStateException.class, "clock returned non-finite time %f", now);
+        if (Double.isNaN(this.landmark))
+        {
+            this.landmark = now;
+        }
+        double weight = Math.exp(this.decayRate * (now - this.landmark));
+        if (weight > MAX_WEIGHT)
+        {
+            // move the landmark to now, which scales all earlier weights down
+            double scale = 1.0 / weight;
+            for (int bin = 0; bin < this.weights.length; bin++)
+            {
+                this.weights[bin] *= scale;
+            }
+            this.belowWeight *= scale;
+            this.aboveWeight *= scale;
+            this.landmark = now;
+            weight = 1.0;
+        }
+        int bin = (int) Math.rint((value - this.minimumBinCenter) / this.binWidth);
+        if (bin < 0)
+        {
+            this.belowWeight += weight;
+        }
+        else if (bin >= this.weights.length)
+        {
+            this.aboveWeight += weight;
+        }
+        else
+        {
+            this.weights[bin] += weight;
+        }
+        this.totalCount++;
+        return value;
+    }
+
+    /**
+     * {@inheritDoc} Values below or above the range of the bins are not taken into account.
+     */
+    @Override
+    public double getQuantile(final Tally tally, final double probability)
+    {
+        Throw.when(!Double.isFinite(probability) || probability < 0.0 || probability > 1.0, IllegalArgumentException.class,
+                "probability must be a value between 0 and 1");
+        double usableWeight = 0.0;
+        for (double weight : this.weights)
+        {
+            usableWeight += weight;
+        }
+        if (usableWeight == 0.0)
+        {
+            return Double.NaN;
+        }
+        double target = usableWeight * probability;
+        double cumulative = 0.0;
+        int lastBin = 0;
+        for (int bin = 0; bin < this.weights.length; bin++)
+        {
+            if (this.weights[bin] > 0.0)
+            {
+                cumulative += this.weights[bin];
+                lastBin = bin;
+                if (cumulative >= target)
+                {
+                    break;
+                }
+            }
+        }
+        return getBinCenter(lastBin);
+    }
+
+    @Override
+    public double getCumulativeProbability(final Tally tally, final double quantile) throws IllegalArgumentException
+    {
+        Throw.when(Double.isNaN(quantile), IllegalArgumentException.class, "quantile may not be NaN");
+        if (this.totalCount == 0)
+        {
+            return Double.NaN;
+        }
+        double totalWeight = this.belowWeight + this.aboveWeight;
+        for (double weight : this.weights)
+        {
+            totalWeight += weight;
+        }
+        double floatBin = (quantile - this.minimumBinCenter) / this.binWidth;
+        int bin = (int) Math.rint(floatBin);
+        if (bin < 0)
+        {
+            return this.belowWeight / totalWeight;
+        }
+        if (bin >= this.weights.length)
+        {
+            return 1.0;
+        }
+        double cumulative = this.belowWeight;
+        for (int i = 0; i <= bin; i++)
+        {
+            cumulative += this.weights[i];
+        }
+        return Math.min(1.0, (cumulative + (floatBin - bin - 0.5) * this.weights[bin]) / totalWeight);
+    }
+
+    @Override
+    public void initialize()
+    {
+        Arrays.fill(this.weights, 0.0);
+        this.belowWeight = 0.0;
+        this.aboveWeight = 0.0;
+        this.landmark = Double.NaN;
+        this.totalCount = 0;
+    }
+
+    /**
+     * Store the state of this accumulator in binary form, from which it can be restored exactly with
+     * <code>fromByteArray</code>. The clock is not part of the state, but whether a clock is used is.
+     * @return the state of this accumulator in binary form
+     */
+    public byte[] toByteArray()
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(62 + 8 * this.weights.length);
+        buffer.put(VERSION);
+        buffer.put(this.clock == null ? (byte) 0 : (byte) 1);
+        buffer.putDouble(this.minimumBinCenter);
+        buffer.putDouble(this.binWidth);
+        buffer.putInt(this.weights.length);
+        buffer.putDouble(this.halfLife);
+        buffer.putDouble(this.belowWeight);
+        buffer.putDouble(this.aboveWeight);
+        buffer.putDouble(this.landmark);
+        buffer.putLong(this.totalCount);
+        for (double weight : this.weights)
+        {
+            buffer.putDouble(weight);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Create an accumulator from a state that was stored with <code>toByteArray</code>. The restored accumulator continues with
+     * the given clock, which should continue the time of the clock of the stored accumulator.
+     * @param bytes the stored state
+     * @param clock the clock that provides the current time, or null when the stored accumulator measured the age of a value
+     *            in registered values
+     * @return an accumulator with the stored state
+     * @throws NullPointerException when bytes is null
+     * @throws IllegalArgumentException when bytes does not contain a valid state, or when a clock is given for a state without
+     *             a clock or vice versa
+     */
+    public static ExponentialDecayAccumulator fromByteArray(final byte[] bytes, final DoubleSupplier clock)
+    {
+        Throw.whenNull(bytes, "bytes may not be null");
+        try
+        {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            Throw.when(buffer.get() != VERSION, IllegalArgumentException.class, "unknown version of the stored state");
+            Throw.when((buffer.get() != 0) != (clock != null), IllegalArgumentException.class,
+                    "a clock should be given if and only if the stored accumulator used a clock");
+            double minimumBinCenter = buffer.getDouble();
+            double binWidth = buffer.getDouble();
+            int binCount = buffer.getInt();
+            Throw.when(binCount > buffer.remaining() / 8, IllegalArgumentException.class, "stored number of bins is not valid");
+            ExponentialDecayAccumulator result =
+                    new ExponentialDecayAccumulator(minimumBinCenter, binWidth, binCount, buffer.getDouble(), clock);
+            result.belowWeight = buffer.getDouble();
+            result.aboveWeight = buffer.getDouble();
+            result.landmark = buffer.getDouble();
+            result.totalCount = buffer.getLong();
+            for (int bin = 0; bin < binCount; bin++)
+            {
+                result.weights[bin] = buffer.getDouble();
+            }
+            Throw.when(buffer.hasRemaining(), IllegalArgumentException.class, "stored state has trailing bytes");
+            return result;
+        }
+        catch (BufferUnderflowException exception)
+        {
+            throw new IllegalArgumentException("stored state is truncated", exception);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ExponentialDecayAccumulator [minimumBinCenter=" + this.minimumBinCenter + ", binWidth=" + this.binWidth
+                + ", binCount=" + this.weights.length + ", halfLife=" + this.halfLife + ", totalCount=" + this.totalCount + "]";
+    }
+
+}
@@ -1,11 +1,17 @@
 package org.djutils.stats.summarizers.quantileaccumulator;
 
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
 import org.djutils.exceptions.Throw;
 import org.djutils.stats.summarizers.Tally;
 
 /**
  * FixedBinsAccumulator.java. <br>
- * This accumulator is created with a caller prescribes set of bins. All bins have the same width.
+ * This accumulator is created with a caller prescribes set of bins. All bins have the same width. Besides the count of each
+ * bin, the accumulator maintains a binary indexed (Fenwick) tree of the counts, so registering a value, computing a quantile
+ * and computing a cumulative probability all take O(log(binCount)) time, also when values are registered between queries.
  * <br>
  * Copyright (c) 2021-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
  * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
@@ -16,6 +22,9 @@ import org.djutils.stats.summarizers.Tally;
  */
 public class FixedBinsAccumulator implements QuantileAccumulator
 {
+    /** The version of the binary form of the state. */
+    static final byte VERSION = 1;
+
     /** Center value of minimum bin. */
     private final double minimumBinCenter;
 
@@ -25,8 +34,8 @@ public class FixedBinsAccumulator implements QuantileAccumulator
     /** Storage for the accumulated values. */
     private long[] accumulator;
 
-    /** Cumulative counts. */
-    private long[] cumulatives = null;
+    /** Binary indexed tree of the counts; element i (1-based) holds the sum of the counts of bins i - (i &amp; -i) to i - 1. */
+    private long[] tree;
 
     /** Total number of registered values. */
     private long totalCount = 0;
@@ -56,7 +65,7 @@ public class FixedBinsAccumulator implements QuantileAccumulator
         this.belowCount = 0;
         this.aboveCount = 0;
         this.accumulator = new long[binCount];
-        this.cumulatives = null;
+        this.tree = new long[binCount + 1];
         this.totalCount = 0;
     }
 
@@ -121,9 +130,7 @@ public class FixedBinsAccumulator implements QuantileAccumulator
     public double register(final double value)
     {
         Throw.when(Double.isNaN(value), IllegalArgumentException.class, "accumulator can not accumlate NaN value");
-        this.cumulatives = null;
-        double floatBin = (value - this.minimumBinCenter) / binWidth;
-        int bin = (int) Math.rint(floatBin);
+        int bin = (int) Math.rint((value - this.minimumBinCenter) / this.binWidth);
         if (bin < 0)
         {
             this.belowCount++;
@@ -135,50 +142,110 @@ public class FixedBinsAccumulator implements QuantileAccumulator
         else
         {
             this.accumulator[bin]++;
+            for (int i = bin + 1; i < this.tree.length; i += i & -i)
+            {
+                this.tree[i]++;
+            }
         }
         this.totalCount++;
         return value;
     }
-    
+
+    /**
+     * Ingest a number of values with weight 1. When many values are registered at once, the counts of the bins are updated
+     * first, and the binary indexed tree is rebuilt once in O(binCount) time, instead of being updated for every value.
+     * @param values the values
+     * @throws IllegalArgumentException when one of the values is NaN; in that case none of the values is registered
+     */
+    public void register(final double... values)
+    {
+        for (double value : values)
+        {
+            Throw.when(Double.isNaN(value), IllegalArgumentException.class, "accumulator can not accumlate NaN value");
+        }
+        if ((long) values.length * (33 - Integer.numberOfLeadingZeros(this.accumulator.length)) < this.accumulator.length)
+        {
+            for (double value : values)
+            {
+                register(value);
+            }
+            return;
+        }
+        for (double value : values)
+        {
+            int bin = (int) Math.rint((value - this.minimumBinCenter) / this.binWidth);
+            if (bin < 0)
+            {
+                this.belowCount++;
+            }
+            else if (bin >= this.accumulator.length)
+            {
+                this.aboveCount++;
+            }
+            else
+            {
+                this.accumulator[bin]++;
+            }
+        }
+        this.totalCount += values.length;
+        rebuildTree();
+    }
+
     /**
-     * Compute the cumulative values if not already available.
+     * Rebuild the binary indexed tree from the counts of the bins in linear time.
      */
-    private void ensureCumulatives()
+    private void rebuildTree()
     {
-        if (null == this.cumulatives)
+        // linear time construction: every node passes its sum on to its parent
+        System.arraycopy(this.accumulator, 0, this.tree, 1, this.accumulator.length);
+        for (int i = 1; i < this.tree.length; i++)
         {
-            long count = 0;
-            this.cumulatives = new long[this.accumulator.length];
-            for (int bin = 0; bin < this.accumulator.length; bin++)
+            int parent = i + (i & -i);
+            if (parent < this.tree.length)
             {
-                count += this.accumulator[bin];
-                this.cumulatives[bin] = count;
+                this.tree[parent] += this.tree[i];
             }
         }
     }
 
+    /**
+     * Return the number of registered values in the range of the bins, up to and including a bin.
+     * @param bin the bin
+     * @return the number of registered values in the bins 0 to bin (inclusive)
+     */
+    private long cumulative(final int bin)
+    {
+        long count = 0;
+        for (int i = bin + 1; i > 0; i -= i & -i)
+        {
+            count += this.tree[i];
+        }
+        return count;
+    }
+
     @Override
     public double getQuantile(final Tally tally, final double probability)
     {
         Throw.when(!Double.isFinite(probability) || probability < 0.0 || probability > 1.0, IllegalArgumentException.class,
                 "probability must be a value between 0 and 1");
-        ensureCumulatives();
         // TODO do something clever with belowCount and aboveCount (could involve the tally as well)
         long usableCount = this.totalCount - this.belowCount - this.aboveCount;
         if (usableCount == 0)
         {
             return Double.NaN;
         }
-        double value = (usableCount) * probability;
-        // TODO use bisection to home in
-        for (int bin = 0; bin < this.cumulatives.length; bin++)
+        // descend the tree to the first bin for which the cumulative count is at least the requested count
+        long remaining = (long) Math.ceil(usableCount * probability);
+        int bin = 0;
+        for (int step = Integer.highestOneBit(this.accumulator.length); step > 0; step >>= 1)
         {
-            if (this.cumulatives[bin] >= value)
+            if (bin + step < this.tree.length && this.tree[bin + step] < remaining)
             {
-                return bin * this.binWidth + this.minimumBinCenter;
+                bin += step;
+                remaining -= this.tree[bin];
             }
         }
-        return 0; // cannot happen
+        return Math.min(bin, this.accumulator.length - 1) * this.binWidth + this.minimumBinCenter;
     }
 
     @Override
@@ -190,7 +257,7 @@ public class FixedBinsAccumulator implements QuantileAccumulator
         {
             return Double.NaN;
         }
-        double floatBin = (quantile - this.minimumBinCenter) / binWidth;
+        double floatBin = (quantile - this.minimumBinCenter) / this.binWidth;
         int bin = (int) Math.rint(floatBin);
         if (bin < 0)
         {
@@ -200,8 +267,7 @@ public class FixedBinsAccumulator implements QuantileAccumulator
         {
             return 1.0;
         }
-        ensureCumulatives();
-        return 1.0 * this.cumulatives[bin] / this.totalCount + (floatBin - bin - 0.5) * this.accumulator[bin] / this.totalCount;
+        return 1.0 * cumulative(bin) / this.totalCount + (floatBin - bin - 0.5) * this.accumulator[bin] / this.totalCount;
     }
 
     @Override
@@ -210,10 +276,85 @@ public class FixedBinsAccumulator implements QuantileAccumulator
         this.belowCount = 0;
         this.aboveCount = 0;
         this.accumulator = new long[this.accumulator.length];
-        this.cumulatives = null;
+        this.tree = new long[this.tree.length];
         this.totalCount = 0;
     }
 
+    /**
+     * Store the state of this accumulator in a compact binary form, from which it can be restored exactly with
+     * <code>fromByteArray</code>. The counts are stored as variable length integers, so an empty bin takes one byte. The state
+     * has the same form as the state of a ConcurrentFixedBinsAccumulator, so either accumulator can be restored from it.
+     * @return the state of this accumulator in binary form
+     */
+    public byte[] toByteArray()
+    {
+        return encode(this.minimumBinCenter, this.binWidth, this.belowCount, this.aboveCount, this.accumulator);
+    }
+
+    /**
+     * Encode the state of a fixed bins accumulator.
+     * @param minimumBinCenter center value of the minimum bin
+     * @param binWidth width of each bin
+     * @param belowCount number of registered values below the range
+     * @param aboveCount number of registered values above the range
+     * @param counts the counts of the bins
+     * @return the state in binary form
+     */
+    static byte[] encode(final double minimumBinCenter, final double binWidth, final long belowCount, final long aboveCount,
+            final long[] counts)
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(21 + StateEncoding.MAX_VAR_LONG_BYTES * (counts.length + 2));
+        buffer.put(VERSION);
+        buffer.putDouble(minimumBinCenter);
+        buffer.putDouble(binWidth);
+        buffer.putInt(counts.length);
+        StateEncoding.putVarLong(buffer, belowCount);
+        StateEncoding.putVarLong(buffer, aboveCount);
+        for (long count : counts)
+        {
+            StateEncoding.putVarLong(buffer, count);
+        }
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    /**
+     * Create an accumulator from a state that was stored with <code>toByteArray</code> of a FixedBinsAccumulator or a
+     * ConcurrentFixedBinsAccumulator.
+     * @param bytes the stored state
+     * @return an accumulator with the stored state
+     * @throws NullPointerException when bytes is null
+     * @throws IllegalArgumentException when bytes does not contain a valid state
+     */
+    public static FixedBinsAccumulator fromByteArray(final byte[] bytes)
+    {
+        Throw.whenNull(bytes, "bytes may not be null");
+        try
+        {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            Throw.when(buffer.get() != VERSION, IllegalArgumentException.class, "unknown version of the stored state");
+            double minimumBinCenter = buffer.getDouble();
+            double binWidth = buffer.getDouble();
+            int binCount = buffer.getInt();
+            Throw.when(binCount > buffer.remaining(), IllegalArgumentException.class, "stored number of bins is not valid");
+            FixedBinsAccumulator result = new FixedBinsAccumulator(minimumBinCenter, binWidth, binCount);
+            result.belowCount = StateEncoding.getVarLong(buffer);
+            result.aboveCount = StateEncoding.getVarLong(buffer);
+            result.totalCount = result.belowCount + result.aboveCount;
+            for (int bin = 0; bin < binCount; bin++)
+            {
+                result.accumulator[bin] = StateEncoding.getVarLong(buffer);
+                result.totalCount += result.accumulator[bin];
+            }
+            Throw.when(buffer.hasRemaining(), IllegalArgumentException.class, "stored state has trailing bytes");
+            result.rebuildTree();
+            return result;
+        }
+        catch (BufferUnderflowException exception)
+        {
+            throw new IllegalArgumentException("stored state is truncated", exception);
+        }
+    }
+
     @Override
     public String toString()
     {
@@ -1,5 +1,7 @@
 package org.djutils.stats.summarizers.quantileaccumulator;
 
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -13,6 +15,9 @@ import org.djutils.stats.summarizers.Tally;
  */
 public class FullStorageAccumulator implements QuantileAccumulator
 {
+    /** The version of the binary form of the state. */
+    private static final byte VERSION = 1;
+
     /** Storage for the accumulated values. */
     private List<Double> accumulator = new ArrayList<>();
 
@@ -147,6 +152,58 @@ public class FullStorageAccumulator implements QuantileAccumulator
         this.accumulator.clear();
     }
 
+    /**
+     * Store the registered values in binary form, from which the accumulator can be restored exactly with
+     * <code>fromByteArray</code>. The state takes 8 bytes per registered value.
+     * @return the state of this accumulator in binary form
+     */
+    public byte[] toByteArray()
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(5 + 8 * this.accumulator.size());
+        buffer.put(VERSION);
+        buffer.putInt(this.accumulator.size());
+        for (double value : this.accumulator)
+        {
+            buffer.putDouble(value);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Create an accumulator from a state that was stored with <code>toByteArray</code>.
+     * @param bytes the stored state
+     * @return an accumulator with the stored state
+     * @throws NullPointerException when bytes is null
+     * @throws IllegalArgumentException when bytes does not contain a valid state
+     */
+    public static FullStorageAccumulator fromByteArray(final byte[] bytes)
+    {
+        Throw.whenNull(bytes, "bytes may not be null");
+        try
+        {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            Throw.when(buffer.get() != VERSION, IllegalArgumentException.class, "unknown version of the stored state");
+            int size = buffer.getInt();
+            Throw.when(size < 0 || size > buffer.remaining() / 8, IllegalArgumentException.class,
+                    "stored number of values is not valid");
+            FullStorageAccumulator result = new FullStorageAccumulator();
+            result.accumulator = new ArrayList<>(size);
+            for (int i = 0; i < size; i++)
+            {
+                double value = buffer.getDouble();
+                Throw.when(Double.isNaN(value), IllegalArgumentException.class, "stored value is NaN");
+                result.accumulator.add(value);
+            }
+            Throw.when(buffer.hasRemaining(), IllegalArgumentException.class, "stored state has trailing bytes");
+            result.isSorted = false;
+            return result;
+        }
+        catch (BufferUnderflowException exception)
+        {
+            throw new IllegalArgumentException("stored state is truncated", exception);
+        }
+    }
+
     @Override
     public String toString()
     {
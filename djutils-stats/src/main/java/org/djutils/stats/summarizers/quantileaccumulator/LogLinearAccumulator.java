@@ -0,0 +1,557 @@
+package org.djutils.stats.summarizers.quantileaccumulator;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.djutils.exceptions.Throw;
+import org.djutils.stats.summarizers.Tally;
+
+/**
+ * LogLinearAccumulator.java. <br>
+ * Quantile accumulator with log-linear buckets, in the style of HdrHistogram. Each power of two of the absolute value is
+ * divided into a fixed number of buckets of equal width, so the relative width of a bucket, and thereby the relative error
+ * of a quantile, is at most <code>10<sup>-significantDigits</sup></code>, over the full range of double values. The buckets
+ * are found from the bits of the double value: the exponent and the most significant bits of the mantissa form the index of
+ * the bucket. The counts are kept in a <code>long[]</code> for the positive values and one for the negative values; these
+ * arrays cover the range of values that has been registered and only grow when a value falls outside that range. Registering
+ * a value therefore takes constant time and does not allocate memory once the range has been covered. With 3 significant
+ * digits, values between 1 microsecond and 1 hour occupy 32 powers of two of 1024 buckets each.
+ * <p>
+ * Two accumulators with the same number of significant digits can be merged without loss of information, and the state of an
+ * accumulator can be stored in a compact byte array, in which the counts are stored as variable length integers.
+ * </p>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>. <br>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://www.tudelft.nl/pknoppers">Peter Knoppers</a>
+ */
+public class LogLinearAccumulator implements QuantileAccumulator
+{
+    /** Version of the format of the byte array with the state. */
+    private static final byte VERSION = 1;
+
+    /** Number of significant decimal digits. */
+    private final int significantDigits;
+
+    /** Number of bits of the double value that are discarded to obtain the index of the bucket. */
+    private final int shift;
+
+    /** Counts of the positive values. */
+    private final Buckets positive = new Buckets();
+
+    /** Counts of the negative values, indexed by the absolute value. */
+    private final Buckets negative = new Buckets();
+
+    /** Number of registered zeros. */
+    private long zeroCount = 0;
+
+    /** Total number of registered values. */
+    private long totalCount = 0;
+
+    /** Minimum registered value. */
+    private double min = Double.NaN;
+
+    /** Maximum registered value. */
+    private double max = Double.NaN;
+
+    /**
+     * Construct a new LogLinearAccumulator.
+     * @param significantDigits the number of significant decimal digits of the quantiles; from 1 to 5
+     * @throws IllegalArgumentException when significantDigits is not in the range 1 to 5
+     */
+    public LogLinearAccumulator(final int significantDigits)
+    {
+        Throw.when(significantDigits < 1 || significantDigits > 5, IllegalArgumentException.class,
+                "significantDigits must be in the range 1 to 5");
+        this.significantDigits = significantDigits;
+        this.shift = 52 - (int) Math.ceil(significantDigits * Math.log(10) / Math.log(2));
+    }
+
+    /**
+     * Retrieve the number of significant decimal digits.
+     * @return the number of significant decimal digits
+     */
+    public int getSignificantDigits()
+    {
+        return this.significantDigits;
+    }
+
+    /**
+     * Retrieve the total number of registered values.
+     * @return the total number of registered values
+     */
+    public long getN()
+    {
+        return this.totalCount;
+    }
+
+    /**
+     * Retrieve the number of buckets that are currently allocated for the positive and negative values.
+     * @return the number of buckets that are currently allocated
+     */
+    public int getBucketCount()
+    {
+        return this.positive.counts.length + this.negative.counts.length;
+    }
+
+    @Override
+    public double register(final double value)
+    {
+        Throw.when(Double.isNaN(value), IllegalArgumentException.class, "accumulator can not accumlate NaN value");
+        if (value > 0.0)
+        {
+            this.positive.add(key(value), 1);
+        }
+        else if (value < 0.0)
+        {
+            this.negative.add(key(-value), 1);
+        }
+        else
+        {
+            this.zeroCount++;
+        }
+        if (this.totalCount++ == 0)
+        {
+            this.min = value;
+            this.max = value;
+        }
+        else if (value < this.min)
+        {
+            this.min = value;
+        }
+        else if (value > this.max)
+        {
+            this.max = value;
+        }
+        return value;
+    }
+
+    /**
+     * Return the key of the bucket of a positive value.
+     * @param value the positive value
+     * @return the key of the bucket of the value
+     */
+    private int key(final double value)
+    {
+        return (int) (Double.doubleToRawLongBits(value) >>> this.shift);
+    }
+
+    /**
+     * Return the smallest absolute value of a bucket.
+     * @param key the key of the bucket
+     * @return the smallest absolute value of the bucket
+     */
+    private double lower(final int key)
+    {
+        return Double.longBitsToDouble((long) key << this.shift);
+    }
+
+    /**
+     * Return the absolute value just beyond the largest absolute value of a bucket.
+     * @param key the key of the bucket
+     * @return the absolute value just beyond the bucket
+     */
+    private double upper(final int key)
+    {
+        return Double.longBitsToDouble((long) (key + 1) << this.shift);
+    }
+
+    /**
+     * Return the value that represents a bucket: the middle of the bucket.
+     * @param key the key of the bucket
+     * @return the value that represents the bucket
+     */
+    private double middle(final int key)
+    {
+        double lower = lower(key);
+        return Double.isInfinite(lower) ? lower : lower + (upper(key) - lower) / 2.0;
+    }
+
+    @Override
+    public double getQuantile(final Tally tally, final double probability)
+    {
+        Throw.when(!Double.isFinite(probability) || probability < 0.0 || probability > 1.0, IllegalArgumentException.class,
+                "probability must be a value between 0 and 1");
+        if (this.totalCount == 0)
+        {
+            return Double.NaN;
+        }
+        long rank = Math.max(1, (long) Math.ceil(probability * this.totalCount));
+        if (rank == 1 || rank == this.totalCount)
+        {
+            // the extreme values are known exactly
+            return rank == 1 ? this.min : this.max;
+        }
+        double value;
+        long count = this.negative.total;
+        if (rank <= count)
+        {
+            value = -middle(this.negative.keyAtRank(rank, true));
+        }
+        else if (rank <= count + this.zeroCount)
+        {
+            value = 0.0;
+        }
+        else
+        {
+            value = middle(this.positive.keyAtRank(rank - count - this.zeroCount, false));
+        }
+        return Math.max(this.min, Math.min(this.max, value));
+    }
+
+    @Override
+    public double getCumulativeProbability(final Tally tally, final double quantile) throws IllegalArgumentException
+    {
+        Throw.when(Double.isNaN(quantile), IllegalArgumentException.class, "quantile may not be NaN");
+        if (this.totalCount == 0)
+        {
+            return Double.NaN;
+        }
+        if (quantile < this.min)
+        {
+            return 0.0;
+        }
+        if (quantile >= this.max)
+        {
+            return 1.0;
+        }
+        double count;
+        if (quantile < 0.0)
+        {
+            // negative values with an absolute value of at least -quantile
+            int key = key(-quantile);
+            double lower = lower(key);
+            count = this.negative.countAbove(key) + this.negative.get(key) * (upper(key) + quantile) / (upper(key) - lower);
+        }
+        else if (quantile == 0.0)
+        {
+            count = this.negative.total + this.zeroCount;
+        }
+        else
+        {
+            int key = key(quantile);
+            double lower = lower(key);
+            count = this.negative.total + this.zeroCount + this.positive.total - this.positive.get(key)
+                    - this.positive.countAbove(key) + this.positive.get(key) * (quantile - lower) / (upper(key) - lower);
+        }
+        return count / this.totalCount;
+    }
+
+    /**
+     * Add the counts of another LogLinearAccumulator to this accumulator. The result is the same as when all values that were
+     * registered in the other accumulator had been registered in this accumulator.
+     * @param other the other accumulator
+     * @throws NullPointerException when other is null
+     * @throws IllegalArgumentException when the other accumulator has a different number of significant digits
+     */
+    public void merge(final LogLinearAccumulator other)
+    {
+        Throw.whenNull(other, "other may not be null");
+        Throw.when(other.significantDigits != this.significantDigits, IllegalArgumentException.class,
+                "cannot merge accumulators with different numbers of significant digits");
+        if (other.totalCount == 0)
+        {
+            return;
+        }
+        this.positive.merge(other.positive);
+        this.negative.merge(other.negative);
+        this.zeroCount += other.zeroCount;
+        this.min = this.totalCount == 0 ? other.min : Math.min(this.min, other.min);
+        this.max = this.totalCount == 0 ? other.max : Math.max(this.max, other.max);
+        this.totalCount += other.totalCount;
+    }
+
+    @Override
+    public void initialize()
+    {
+        this.positive.clear();
+        this.negative.clear();
+        this.zeroCount = 0;
+        this.totalCount = 0;
+        this.min = Double.NaN;
+        this.max = Double.NaN;
+    }
+
+    /**
+     * Store the state of this accumulator in a byte array. Only the buckets between the lowest and the highest non-empty
+     * bucket are stored, and the counts are stored as variable length integers, so an empty bucket takes one byte.
+     * @return the state of this accumulator
+     */
+    public byte[] toByteArray()
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(34 + this.positive.maxSize() + this.negative.maxSize());
+        buffer.put(VERSION);
+        buffer.put((byte) this.significantDigits);
+        buffer.putLong(this.totalCount);
+        buffer.putLong(this.zeroCount);
+        buffer.putDouble(this.min);
+        buffer.putDouble(this.max);
+        this.positive.write(buffer);
+        this.negative.write(buffer);
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    /**
+     * Create an accumulator from a state that was stored with <code>toByteArray</code>.
+     * @param bytes the stored state
+     * @return an accumulator with the stored state
+     * @throws NullPointerException when bytes is null
+     * @throws IllegalArgumentException when bytes does not contain a valid state
+     */
+    public static LogLinearAccumulator fromByteArray(final byte[] bytes)
+    {
+        Throw.whenNull(bytes, "bytes may not be null");
+        try
+        {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            Throw.when(buffer.get() != VERSION, IllegalArgumentException.class, "unknown version of the stored state");
+            LogLinearAccumulator result = new LogLinearAccumulator(buffer.get());
+            result.totalCount = buffer.getLong();
+            result.zeroCount = buffer.getLong();
+            result.min = buffer.getDouble();
+            result.max = buffer.getDouble();
+            result.positive.read(buffer);
+            result.negative.read(buffer);
+            Throw.when(buffer.hasRemaining(), IllegalArgumentException.class, "stored state has trailing bytes");
+            Throw.when(result.zeroCount < 0 || result.positive.total + result.negative.total + result.zeroCount
+                    != result.totalCount, IllegalArgumentException.class, "stored counts are inconsistent");
+            return result;
+        }
+        catch (BufferUnderflowException exception)
+        {
+            throw new IllegalArgumentException("stored state is truncated", exception);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "LogLinearAccumulator [significantDigits=" + this.significantDigits + ", totalCount=" + this.totalCount
+                + ", zeroCount=" + this.zeroCount + ", min=" + this.min + ", max=" + this.max + ", bucketCount="
+                + getBucketCount() + "]";
+    }
+
+    /**
+     * Auto-ranging array of counts for the keys of the absolute values of one sign.
+     */
+    private static final class Buckets
+    {
+        /** Number of buckets of a new array. */
+        private static final int INITIAL_SIZE = 64;
+
+        /** The counts; element i holds the count of key offset + i. */
+        private long[] counts = new long[0];
+
+        /** The key of the first element of the counts. */
+        private int offset = 0;
+
+        /** The sum of the counts. */
+        private long total = 0;
+
+        /**
+         * Add to the count of a key, growing the array when the key is outside its range.
+         * @param key the key
+         * @param count the number to add
+         */
+        void add(final int key, final long count)
+        {
+            int index = key - this.offset;
+            if (index < 0 || index >= this.counts.length)
+            {
+                cover(key, key);
+                index = key - this.offset;
+            }
+            this.counts[index] += count;
+            this.total += count;
+        }
+
+        /**
+         * Grow the array to cover a range of keys; the array at least doubles in size.
+         * @param low the lowest key to cover
+         * @param high the highest key to cover
+         */
+        private void cover(final int low, final int high)
+        {
+            if (this.counts.length == 0)
+            {
+                int size = Math.max(INITIAL_SIZE, high - low + 1);
+                this.offset = Math.max(0, low - (size - (high - low + 1)) / 2);
+                this.counts = new long[size];
+                return;
+            }
+            int newLow = Math.min(low, this.offset);
+            int newHigh = Math.max(high, this.offset + this.counts.length - 1);
+            int size = Math.max(newHigh - newLow + 1, 2 * this.counts.length);
+            // divide the extra room over both sides, as values may arrive at either side of the range
+            int newOffset = Math.max(0, newLow - (size - (newHigh - newLow + 1)) / 2);
+            long[] newCounts = new long[size];
+            System.arraycopy(this.counts, 0, newCounts, this.offset - newOffset, this.counts.length);
+            this.counts = newCounts;
+            this.offset = newOffset;
+        }
+
+        /**
+         * Return the count of a key.
+         * @param key the key
+         * @return the count of the key
+         */
+        long get(final int key)
+        {
+            int index = key - this.offset;
+            return index < 0 || index >= this.counts.length ? 0 : this.counts[index];
+        }
+
+        /**
+         * Return the sum of the counts of the keys above a key.
+         * @param key the key
+         * @return the sum of the counts of the keys above the key
+         */
+        long countAbove(final int key)
+        {
+            long count = 0;
+            for (int index = this.counts.length - 1; index >= 0 && index + this.offset > key; index--)
+            {
+                count += this.counts[index];
+            }
+            return count;
+        }
+
+        /**
+         * Return the key of the value with a rank, counting from the lowest or from the highest key.
+         * @param rank the rank, starting at 1
+         * @param descending whether to count from the highest key
+         * @return the key of the value with the rank
+         */
+        int keyAtRank(final long rank, final boolean descending)
+        {
+            long count = 0;
+            int n = this.counts.length;
+            for (int i = 0; i < n; i++)
+            {
+                int index = descending ? n - 1 - i : i;
+                count += this.counts[index];
+                if (count >= rank)
+                {
+                    return index + this.offset;
+                }
+            }
+            throw new IllegalStateException("rank " + rank + " exceeds the number of values " + this.total);
+        }
+
+        /**
+         * Add the counts of other buckets.
+         * @param other the other buckets
+         */
+        void merge(final Buckets other)
+        {
+            int first = other.first();
+            if (first < 0)
+            {
+                return;
+            }
+            int last = other.last();
+            if (this.counts.length == 0 || first + other.offset < this.offset
+                    || last + other.offset >= this.offset + this.counts.length)
+            {
+                cover(first + other.offset, last + other.offset);
+            }
+            for (int index = first; index <= last; index++)
+            {
+                this.counts[index + other.offset - this.offset] += other.counts[index];
+            }
+            this.total += other.total;
+        }
+
+        /**
+         * Return the index of the first non-zero count.
+         * @return the index of the first non-zero count, or -1 when all counts are zero
+         */
+        private int first()
+        {
+            for (int index = 0; index < this.counts.length; index++)
+            {
+                if (this.counts[index] != 0)
+                {
+                    return index;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Return the index of the last non-zero count.
+         * @return the index of the last non-zero count, or -1 when all counts are zero
+         */
+        private int last()
+        {
+            for (int index = this.counts.length - 1; index >= 0; index--)
+            {
+                if (this.counts[index] != 0)
+                {
+                    return index;
+                }
+            }
+            return -1;
+        }
+
+        /** Clear the counts, keeping the array. */
+        void clear()
+        {
+            Arrays.fill(this.counts, 0L);
+            this.total = 0;
+        }
+
+        /**
+         * Return the maximum number of bytes that write needs.
+         * @return the maximum number of bytes that write needs
+         */
+        int maxSize()
+        {
+            return 8 + StateEncoding.MAX_VAR_LONG_BYTES * this.counts.length;
+        }
+
+        /**
+         * Write the non-empty range of counts: the first key, the number of counts and the counts as variable length integers.
+         * @param buffer the buffer to write to
+         */
+        void write(final ByteBuffer buffer)
+        {
+            int first = first();
+            int last = last();
+            buffer.putInt(first < 0 ? 0 : first + this.offset);
+            buffer.putInt(last - first + (first < 0 ? 0 : 1));
+            for (int index = Math.max(0, first); index <= last; index++)
+            {
+                StateEncoding.putVarLong(buffer, this.counts[index]);
+            }
+        }
+
+        /**
+         * Read counts that were written by write.
+         * @param buffer the buffer to read from
+         * @throws IllegalArgumentException when the stored counts are not valid
+         */
+        void read(final ByteBuffer buffer)
+        {
+            int first = buffer.getInt();
+            int size = buffer.getInt();
+            Throw.when(first < 0 || size < 0 || size > buffer.remaining(), IllegalArgumentException.class,
+                    "stored range of buckets is not valid");
+            if (size == 0)
+            {
+                return;
+            }
+            cover(first, first + size - 1);
+            for (int index = 0; index < size; index++)
+            {
+                long count = StateEncoding.getVarLong(buffer);
+                this.counts[first + index - this.offset] = count;
+                this.total += count;
+            }
+        }
+    }
+
+}
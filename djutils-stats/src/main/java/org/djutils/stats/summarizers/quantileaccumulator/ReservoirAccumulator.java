@@ -0,0 +1,432 @@
+package org.djutils.stats.summarizers.quantileaccumulator;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.djutils.exceptions.Throw;
+import org.djutils.stats.summarizers.Tally;
+
+/**
+ * ReservoirAccumulator.java. <br>
+ * Accumulator that keeps a uniform random sample of at most <code>capacity</code> of the registered values, using a fixed
+ * amount of memory. Quantiles and cumulative probabilities are computed from the sample, in the same way as the
+ * FullStorageAccumulator computes them from all values, and the sample itself can be retrieved, e.g., for a scatter plot or a
+ * histogram. The sample is maintained with Algorithm L of Li (1994): once the reservoir is full, the number of values to skip
+ * until the next replacement is drawn in advance, so most registrations only decrement the skip count. The expected number of
+ * random numbers that is drawn for <code>n</code> values is <code>O(capacity * (1 + log(n / capacity)))</code>.
+ * <p>
+ * Reservoirs of, e.g., parallel replications can be merged into a uniform sample of all values of both reservoirs, in which each
+ * reservoir is represented in proportion to the number of values it has registered. The random generator can be seeded to make
+ * the sample reproducible.
+ * </p>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>. <br>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://www.tudelft.nl/pknoppers">Peter Knoppers</a>
+ */
+public class ReservoirAccumulator implements QuantileAccumulator
+{
+    /** The version of the binary form of the state. */
+    private static final byte VERSION = 1;
+
+    /** The random generator. */
+    private final SplittableRandom random;
+
+    /** The sampled values; the first <code>size</code> elements are in use. */
+    private final double[] reservoir;
+
+    /** The number of sampled values. */
+    private int size;
+
+    /** The sorted sampled values, or null when the sample has changed since it was last sorted. */
+    private double[] sorted = null;
+
+    /** Total number of registered values. */
+    private long totalCount;
+
+    /**
+     * The largest random key of the values in the full reservoir; a value of which the key is smaller than this threshold
+     * replaces a random value in the reservoir. Only used when the reservoir is full.
+     */
+    private double threshold;
+
+    /** The number of values that will be skipped before the next replacement. Only used when the reservoir is full. */
+    private long skip;
+
+    /**
+     * Construct a new ReservoirAccumulator with an unpredictable seed.
+     * @param capacity the maximum number of values in the sample
+     * @throws IllegalArgumentException when capacity is less than 1
+     */
+    public ReservoirAccumulator(final int capacity)
+    {
+        this(capacity, new SplittableRandom());
+    }
+
+    /**
+     * Construct a new ReservoirAccumulator with a seed, so the sample is reproducible.
+     * @param capacity the maximum number of values in the sample
+     * @param seed the seed of the random generator
+     * @throws IllegalArgumentException when capacity is less than 1
+     */
+    public ReservoirAccumulator(final int capacity, final long seed)
+    {
+        this(capacity, new SplittableRandom(seed));
+    }
+
+    /**
+     * Construct a new ReservoirAccumulator.
+     * @param capacity the maximum number of values in the sample
+     * @param random the random generator
+     */
+    private ReservoirAccumulator(final int capacity, final SplittableRandom random)
+    {
+        Throw.when(capacity < 1, IllegalArgumentException.class, "capacity must be > 0");
+        this.reservoir = new double[capacity];
+        this.random = random;
+        initialize();
+    }
+
+    /**
+     * Retrieve the maximum number of values in the sample.
+     * @return the maximum number of values in the sample
+     */
+    public int getCapacity()
+    {
+        return this.reservoir.length;
+    }
+
+    /**
+     * Retrieve the total number of registered values.
+     * @return the total number of registered values
+     */
+    public long getN()
+    {
+        return this.totalCount;
+    }
+
+    /**
+     * Retrieve the number of values in the sample, which is the minimum of the capacity and the number of registered values.
+     * @return the number of values in the sample
+     */
+    public int getSampleSize()
+    {
+        return this.size;
+    }
+
+    /**
+     * Return a copy of the sampled values, in no particular order.
+     * @return a copy of the sampled values
+     */
+    public double[] getSample()
+    {
+        return Arrays.copyOf(this.reservoir, this.size);
+    }
+
+    /**
+     * Return a random number in the range (0, 1].
+     * @return a random number in the range (0, 1]
+     */
+    private double nextOpenDouble()
+    {
+        return 1.0 - this.random.nextDouble();
+    }
+
+    /**
+     * Draw the number of values to skip before the next replacement, given the current threshold.
+     */
+    private void drawSkip()
+    {
+        // floor(log(u) / log(1 - threshold)) is geometrically distributed; the cast saturates for extremely small thresholds
+        this.skip = (long) Math.floor(Math.log(nextOpenDouble()) / Math.log1p(-this.threshold));
+    }
+
+    @Override
+    public double register(final double value)
+    {
+        Throw.when(Double.isNaN(value), IllegalArgumentException.class, "accumulator can not accumlate NaN value");
+        this.totalCount++;
+        if (this.size < this.reservoir.length)
+        {
+            this.reservoir[this.size++] = value;
+            this.sorted = null;
+            if (this.size == this.reservoir.length)
+            {
+                // the threshold is the largest of capacity uniform random keys
+                this.threshold = Math.exp(Math.log(nextOpenDouble()) / this.reservoir.length);
+                drawSkip();
+            }
+            return value;
+        }
+        if (this.skip > 0)
+        {
+            this.skip--;
+            return value;
+        }
+        this.reservoir[this.random.nextInt(this.reservoir.length)] = value;
+        this.sorted = null;
+        this.threshold *= Math.exp(Math.log(nextOpenDouble()) / this.reservoir.length);
+        drawSkip();
+        return value;
+    }
+
+    /**
+     * Ingest a number of values with weight 1.
+     * @param values the values
+     * @throws IllegalArgumentException when one of the values is NaN; in that case none of the values is registered
+     */
+    public void register(final double... values)
+    {
+        for (double value : values)
+        {
+            Throw.when(Double.isNaN(value), IllegalArgumentException.class, "accumulator can not accumlate NaN value");
+        }
+        for (double value : values)
+        {
+            register(value);
+        }
+    }
+
+    /**
+     * Generate random keys for the sampled values that have the distribution of the keys of a reservoir with random keys: when
+     * the reservoir is full, one value has the threshold as its key, and the others have keys that are uniformly distributed
+     * below the threshold; otherwise, all keys are uniformly distributed between 0 and 1.
+     * @param accumulator the accumulator for which the keys are generated
+     * @return the keys of the sampled values of the accumulator
+     */
+    private double[] keys(final ReservoirAccumulator accumulator)
+    {
+        double[] keys = new double[accumulator.size];
+        boolean full = accumulator.size == accumulator.reservoir.length;
+        double scale = full ? accumulator.threshold : 1.0;
+        for (int i = 0; i < keys.length; i++)
+        {
+            keys[i] = scale * this.random.nextDouble();
+        }
+        if (full)
+        {
+            keys[this.random.nextInt(keys.length)] = accumulator.threshold;
+        }
+        return keys;
+    }
+
+    /**
+     * Merge the sample of another accumulator with the same capacity into this accumulator. The result is a uniform random
+     * sample of all values that have been registered in both accumulators, as if they had been registered in one accumulator:
+     * each accumulator contributes to the sample in proportion to its number of registered values. The other accumulator is
+     * not changed.
+     * @param other the accumulator to merge into this accumulator
+     * @throws NullPointerException when other is null
+     * @throws IllegalArgumentException when other is this accumulator, or when the capacities differ
+     */
+    public void merge(final ReservoirAccumulator other)
+    {
+        Throw.whenNull(other, "other may not be null");
+        Throw.when(other == this, IllegalArgumentException.class, "cannot merge an accumulator with itself");
+        Throw.when(other.reservoir.length != this.reservoir.length, IllegalArgumentException.class,
+                "cannot merge accumulators with a different capacity (%d and %d)", this.reservoir.length,
+                other.reservoir.length);
+        if (other.size == 0)
+        {
+            return;
+        }
+        // keep the values with the smallest keys of both reservoirs, and continue with the largest kept key as threshold
+        double[] keys = new double[this.size + other.size];
+        double[] values = new double[keys.length];
+        System.arraycopy(keys(this), 0, keys, 0, this.size);
+        System.arraycopy(keys(other), 0, keys, this.size, other.size);
+        System.arraycopy(this.reservoir, 0, values, 0, this.size);
+        System.arraycopy(other.reservoir, 0, values, this.size, other.size);
+        this.size = Math.min(this.reservoir.length, keys.length);
+        double[] sortedKeys = keys.clone();
+        Arrays.sort(sortedKeys);
+        double largestKey = sortedKeys[this.size - 1];
+        // first the values with a key below the largest kept key, then values with that key until the reservoir is filled
+        int kept = 0;
+        for (int i = 0; i < keys.length; i++)
+        {
+            if (keys[i] < largestKey)
+            {
+                this.reservoir[kept++] = values[i];
+            }
+        }
+        for (int i = 0; i < keys.length && kept < this.size; i++)
+        {
+            if (keys[i] == largestKey)
+            {
+                this.reservoir[kept++] = values[i];
+            }
+        }
+        this.totalCount += other.totalCount;
+        this.sorted = null;
+        if (this.size == this.reservoir.length)
+        {
+            this.threshold = largestKey;
+            drawSkip();
+        }
+    }
+
+    /**
+     * Return the sorted sample, sorting it when it has changed.
+     * @return the sorted sample
+     */
+    private double[] sorted()
+    {
+        if (this.sorted == null)
+        {
+            this.sorted = getSample();
+            Arrays.sort(this.sorted);
+        }
+        return this.sorted;
+    }
+
+    /**
+     * {@inheritDoc} The quantile is interpolated between the sampled values, in the same way as the FullStorageAccumulator
+     * does for all values. The tally is not used, and may be null.
+     */
+    @Override
+    public double getQuantile(final Tally tally, final double probability)
+    {
+        Throw.when(!Double.isFinite(probability) || probability < 0.0 || probability > 1.0, IllegalArgumentException.class,
+                "probability must be a value between 0 and 1");
+        if (this.size == 0)
+        {
+            return Double.NaN;
+        }
+        double[] values = sorted();
+        double doubleIndex = (values.length - 1) * probability;
+        int index = Math.min((int) Math.floor(doubleIndex), values.length - 1);
+        if (index >= values.length - 1)
+        {
+            return values[index];
+        }
+        double fraction = doubleIndex - index;
+        return values[index + 1] * fraction + values[index] * (1.0 - fraction);
+    }
+
+    /**
+     * {@inheritDoc} The fraction is computed from the sample; a sampled value that equals the quantile counts for one half, in
+     * the same way as the FullStorageAccumulator does for all values. The tally is not used, and may be null.
+     */
+    @Override
+    public double getCumulativeProbability(final Tally tally, final double quantile) throws IllegalArgumentException
+    {
+        Throw.when(Double.isNaN(quantile), IllegalArgumentException.class, "quantile may not be NaN");
+        if (this.size == 0)
+        {
+            return Double.NaN;
+        }
+        double[] values = sorted();
+        return (countBelow(values, quantile, false) + countBelow(values, quantile, true)) / 2.0 / values.length;
+    }
+
+    /**
+     * Return the number of sorted values that are less than (or equal to) a value.
+     * @param values the sorted values
+     * @param value the value
+     * @param inclusive whether values that are equal to the value are counted
+     * @return the number of sorted values that are less than (or equal to) the value
+     */
+    private static int countBelow(final double[] values, final double value, final boolean inclusive)
+    {
+        int low = 0;
+        int high = values.length;
+        while (low < high)
+        {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < value || (inclusive && values[mid] == value))
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public void initialize()
+    {
+        this.size = 0;
+        this.sorted = null;
+        this.totalCount = 0;
+        this.threshold = 1.0;
+        this.skip = 0;
+    }
+
+    /**
+     * Store the state of this accumulator in binary form, from which it can be restored with <code>fromByteArray</code>. The
+     * state of the random generator is not included.
+     * @return the state of this accumulator in binary form
+     */
+    public byte[] toByteArray()
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(33 + 8 * this.size);
+        buffer.put(VERSION);
+        buffer.putInt(this.reservoir.length);
+        buffer.putLong(this.totalCount);
+        buffer.putDouble(this.threshold);
+        buffer.putLong(this.skip);
+        buffer.putInt(this.size);
+        for (int i = 0; i < this.size; i++)
+        {
+            buffer.putDouble(this.reservoir[i]);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Create an accumulator from a state that was stored with <code>toByteArray</code>.
+     * @param bytes the stored state
+     * @param seed the seed of the random generator of the restored accumulator
+     * @return an accumulator with the stored state
+     * @throws NullPointerException when bytes is null
+     * @throws IllegalArgumentException when bytes does not contain a valid state
+     */
+    public static ReservoirAccumulator fromByteArray(final byte[] bytes, final long seed)
+    {
+        Throw.whenNull(bytes, "bytes may not be null");
+        try
+        {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            Throw.when(buffer.get() != VERSION, IllegalArgumentException.class, "unknown version of the stored state");
+            int capacity = buffer.getInt();
+            Throw.when(capacity < 1, IllegalArgumentException.class, "stored capacity is not valid");
+            ReservoirAccumulator result = new ReservoirAccumulator(capacity, seed);
+            result.totalCount = buffer.getLong();
+            result.threshold = buffer.getDouble();
+            Throw.when(!(result.threshold > 0.0 && result.threshold <= 1.0), IllegalArgumentException.class,
+                    "stored threshold is not valid");
+            result.skip = buffer.getLong();
+            Throw.when(result.skip < 0, IllegalArgumentException.class, "stored skip count is not valid");
+            result.size = buffer.getInt();
+            Throw.when(result.size < 0 || result.size > capacity || result.size > result.totalCount
+                    || (result.size < capacity && result.size != result.totalCount), IllegalArgumentException.class,
+                    "stored sample size is not valid");
+            for (int i = 0; i < result.size; i++)
+            {
+                result.reservoir[i] = buffer.getDouble();
+            }
+            Throw.when(buffer.hasRemaining(), IllegalArgumentException.class, "stored state has trailing bytes");
+            return result;
+        }
+        catch (BufferUnderflowException exception)
+        {
+            throw new IllegalArgumentException("stored state is truncated", exception);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ReservoirAccumulator [capacity=" + this.reservoir.length + ", sampleSize=" + this.size + ", totalCount="
+                + this.totalCount + "]";
+    }
+
+}
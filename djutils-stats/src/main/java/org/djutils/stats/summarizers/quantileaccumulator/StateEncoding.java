@@ -0,0 +1,71 @@
+package org.djutils.stats.summarizers.quantileaccumulator;
+
+import java.nio.ByteBuffer;
+
+import org.djutils.exceptions.Throw;
+
+/**
+ * StateEncoding.java. <br>
+ * Helper methods for the compact binary form of the state of the accumulators. Counts are written as variable length integers
+ * of 7 bits per byte, least significant group first, so the many small or zero counts of a histogram take one byte each.
+ * <br>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>. <br>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://www.tudelft.nl/pknoppers">Peter Knoppers</a>
+ */
+final class StateEncoding
+{
+    /** The maximum number of bytes of a variable length long. */
+    static final int MAX_VAR_LONG_BYTES = 10;
+
+    /**
+     * Utility class.
+     */
+    private StateEncoding()
+    {
+        // utility class
+    }
+
+    /**
+     * Write a non-negative long as a variable length integer.
+     * @param buffer the buffer to write to
+     * @param value the value to write
+     */
+    static void putVarLong(final ByteBuffer buffer, final long value)
+    {
+        long remaining = value;
+        while ((remaining & ~0x7FL) != 0)
+        {
+            buffer.put((byte) (remaining & 0x7F | 0x80));
+            remaining >>>= 7;
+        }
+        buffer.put((byte) remaining);
+    }
+
+    /**
+     * Read a non-negative long that was written by putVarLong.
+     * @param buffer the buffer to read from
+     * @return the value
+     * @throws IllegalArgumentException when the stored value is not valid
+     */
+    static long getVarLong(final ByteBuffer buffer)
+    {
+        long value = 0;
+        for (int shift = 0;; shift += 7)
+        {
+            Throw.when(shift > 63, IllegalArgumentException.class, "stored count is not valid");
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0)
+            {
+                break;
+            }
+        }
+        Throw.when(value < 0, IllegalArgumentException.class, "stored count is negative");
+        return value;
+    }
+
+}
@@ -1,8 +1,12 @@
 package org.djutils.stats.summarizers.quantileaccumulator;
 
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
 import org.djutils.exceptions.Throw;
 import org.djutils.stats.summarizers.Tally;
 
+import com.tdunning.math.stats.MergingDigest;
 import com.tdunning.math.stats.TDigest;
 
 /**
@@ -23,6 +27,9 @@ public class TDigestAccumulator implements QuantileAccumulator
     /** The compression used to create the TDigest (required to re-initialize). */
     private final int compression;
 
+    /** The version of the binary form of the state. */
+    private static final byte VERSION = 1;
+
     /** The compression used by the parameter-less constructor. */
     public static final int DEFAULT_COMPRESSION = 100;
 
@@ -73,6 +80,46 @@ public class TDigestAccumulator implements QuantileAccumulator
         this.tDigest = TDigest.createDigest(this.compression);
     }
 
+    /**
+     * Store the centroids of the t-digest in binary form, using the encoding of the t-digest library, from which the
+     * accumulator can be restored with <code>fromByteArray</code>. Values that have been registered but not yet merged into the
+     * centroids are merged first, so the quantiles of this accumulator and the restored accumulator are the same.
+     * @return the state of this accumulator in binary form
+     */
+    public byte[] toByteArray()
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(5 + this.tDigest.byteSize());
+        buffer.put(VERSION);
+        buffer.putInt(this.compression);
+        this.tDigest.asBytes(buffer);
+        return buffer.array();
+    }
+
+    /**
+     * Create an accumulator from a state that was stored with <code>toByteArray</code>.
+     * @param bytes the stored state
+     * @return an accumulator with the stored state
+     * @throws NullPointerException when bytes is null
+     * @throws IllegalArgumentException when bytes does not contain a valid state
+     */
+    public static TDigestAccumulator fromByteArray(final byte[] bytes)
+    {
+        Throw.whenNull(bytes, "bytes may not be null");
+        try
+        {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            Throw.when(buffer.get() != VERSION, IllegalArgumentException.class, "unknown version of the stored state");
+            TDigestAccumulator result = new TDigestAccumulator(buffer.getInt());
+            result.tDigest = MergingDigest.fromBytes(buffer);
+            Throw.when(buffer.hasRemaining(), IllegalArgumentException.class, "stored state has trailing bytes");
+            return result;
+        }
+        catch (BufferUnderflowException | IllegalStateException exception)
+        {
+            throw new IllegalArgumentException("stored state is not valid", exception);
+        }
+    }
+
     @Override
     public final String toString()
     {
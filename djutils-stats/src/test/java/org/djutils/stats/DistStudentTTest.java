@@ -0,0 +1,82 @@
+package org.djutils.stats;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.djutils.test.UnitTest;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the DistStudentT class. <br>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ */
+public class DistStudentTTest
+{
+    /**
+     * Test the inverse cumulative probabilities against the values of a t table.
+     */
+    @Test
+    public void testQuantiles()
+    {
+        assertEquals(12.7062047362, DistStudentT.getInverseCumulativeProbability(1, 0.975), 1E-9);
+        assertEquals(63.6567411629, DistStudentT.getInverseCumulativeProbability(1, 0.995), 1E-9);
+        assertEquals(4.3026527297, DistStudentT.getInverseCumulativeProbability(2, 0.975), 1E-9);
+        assertEquals(2.0150483733, DistStudentT.getInverseCumulativeProbability(5, 0.95), 1E-9);
+        assertEquals(2.5705818366, DistStudentT.getInverseCumulativeProbability(5, 0.975), 1E-9);
+        assertEquals(2.2281388520, DistStudentT.getInverseCumulativeProbability(10, 0.975), 1E-9);
+        assertEquals(3.1692726726, DistStudentT.getInverseCumulativeProbability(10, 0.995), 1E-9);
+        assertEquals(2.0422724563, DistStudentT.getInverseCumulativeProbability(30, 0.975), 1E-9);
+        assertEquals(1.9599639845, DistStudentT.getInverseCumulativeProbability(100000000, 0.975), 1E-6,
+                "a large number of degrees of freedom gives the normal distribution");
+        assertEquals(-2.2281388520, DistStudentT.getInverseCumulativeProbability(10, 0.025), 1E-9);
+        assertEquals(0.0, DistStudentT.getInverseCumulativeProbability(7, 0.5));
+        assertEquals(Double.POSITIVE_INFINITY, DistStudentT.getInverseCumulativeProbability(7, 1.0));
+        assertEquals(Double.NEGATIVE_INFINITY, DistStudentT.getInverseCumulativeProbability(7, 0.0));
+    }
+
+    /**
+     * Test the cumulative probabilities, and that the inverse cumulative probability is the inverse.
+     */
+    @Test
+    public void testCumulativeProbabilities()
+    {
+        for (double t = -20.0; t <= 20.0; t += 0.25)
+        {
+            // the t distribution with 1 degree of freedom is the Cauchy distribution, with 2 degrees of freedom it has a
+            // closed form as well
+            assertEquals(0.5 + Math.atan(t) / Math.PI, DistStudentT.getCumulativeProbability(1, t), 1E-13, "t=" + t);
+            assertEquals(0.5 + t / (2.0 * Math.sqrt(2.0 + t * t)), DistStudentT.getCumulativeProbability(2, t), 1E-13);
+        }
+        for (int df : new int[] {1, 2, 3, 4, 7, 15, 39, 100, 1000})
+        {
+            double previous = 0.0;
+            for (double p = 0.001; p < 1.0; p += 0.001)
+            {
+                double t = DistStudentT.getInverseCumulativeProbability(df, p);
+                assertTrue(t > previous || p < 0.5, "quantiles are increasing");
+                previous = t;
+                assertEquals(p, DistStudentT.getCumulativeProbability(df, t), 1E-12, "df=" + df + ", p=" + p);
+                assertEquals(1.0 - p, DistStudentT.getCumulativeProbability(df, -t), 1E-12, "symmetry");
+            }
+        }
+        assertEquals(0.5, DistStudentT.getCumulativeProbability(3, 0.0), 1E-15);
+        assertEquals(1.0, DistStudentT.getCumulativeProbability(3, Double.POSITIVE_INFINITY));
+        assertEquals(0.0, DistStudentT.getCumulativeProbability(3, Double.NEGATIVE_INFINITY));
+        assertEquals(0.0, DistStudentT.getCumulativeProbability(3, -1E200), 1E-100);
+    }
+
+    /**
+     * Test the exceptions.
+     */
+    @Test
+    public void testErrors()
+    {
+        UnitTest.testFail(() -> DistStudentT.getCumulativeProbability(0, 1.0), IllegalArgumentException.class);
+        UnitTest.testFail(() -> DistStudentT.getCumulativeProbability(1, Double.NaN), IllegalArgumentException.class);
+        UnitTest.testFail(() -> DistStudentT.getInverseCumulativeProbability(0, 0.5), IllegalArgumentException.class);
+        UnitTest.testFail(() -> DistStudentT.getInverseCumulativeProbability(3, -0.1), IllegalArgumentException.class);
+        UnitTest.testFail(() -> DistStudentT.getInverseCumulativeProbability(3, 1.1), IllegalArgumentException.class);
+        UnitTest.testFail(() -> DistStudentT.getInverseCumulativeProbability(3, Double.NaN), IllegalArgumentException.class);
+    }
+
+}
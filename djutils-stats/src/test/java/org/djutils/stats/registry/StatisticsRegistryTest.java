@@ -0,0 +1,292 @@
+package org.djutils.stats.registry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.djutils.stats.summarizers.Counter;
+import org.djutils.stats.summarizers.CountWindowedTally;
+import org.djutils.stats.summarizers.ExponentialDecayTally;
+import org.djutils.stats.summarizers.Tally;
+import org.djutils.stats.summarizers.WeightedTally;
+import org.djutils.test.UnitTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * StatisticsRegistryTest tests the StatisticsRegistry, the StatisticsSampler, the MetricsFormats and the MetricsHttpServer.
+ * <br>
+ * <br>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>. <br>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://www.tudelft.nl/pknoppers">Peter Knoppers</a>
+ */
+public class StatisticsRegistryTest
+{
+    /** A temporary directory for the file exports. */
+    @TempDir
+    @SuppressWarnings("checkstyle:visibilitymodifier")
+    Path tempDir;
+
+    /**
+     * Test registering, finding and unregistering statistics, and the samples that are taken of them.
+     */
+    @Test
+    public void testRegistry()
+    {
+        StatisticsRegistry registry = new StatisticsRegistry();
+        Tally tally = registry.register("waiting_time", Map.of("station", "A"), new Tally("waiting time at A"));
+        WeightedTally weightedTally = registry.register("utilization", new WeightedTally("utilization"));
+        Counter counter = registry.register("arrivals", Map.of("station", "A", "run", "1"), new Counter("arrivals"));
+        registry.register("window", new CountWindowedTally("window", 10, 2));
+        registry.register("decay", new ExponentialDecayTally("decay", 10.0));
+        registry.register("waiting_time", Map.of("station", "B"), new Tally("waiting time at B"));
+        assertEquals(6, registry.size());
+        assertSame(tally, registry.get("waiting_time", Map.of("station", "A")));
+        assertSame(weightedTally, registry.get("utilization"));
+        assertSame(counter, registry.get("arrivals", Map.of("run", "1", "station", "A")), "tag order does not matter");
+        assertNull(registry.get("waiting_time"));
+        assertNull(registry.get("unknown"));
+        assertTrue(registry.toString().contains("6"));
+
+        List<RegisteredStatistic> entries = registry.entries();
+        assertEquals("arrivals", entries.get(0).name());
+        assertEquals("[run, station]", entries.get(0).tags().keySet().toString(), "tags are sorted");
+        assertEquals("waiting_time", entries.get(3).name());
+        assertEquals("{station=A}", entries.get(3).tags().toString());
+        assertEquals("{station=B}", entries.get(4).tags().toString());
+        assertEquals("window", entries.get(5).name());
+
+        tally.register(1.0, 2.0, 3.0);
+        weightedTally.register(2.0, 4.0);
+        weightedTally.register(6.0, 8.0);
+        counter.register(5);
+        RegistrySnapshot snapshot = registry.sample(1234L);
+        assertEquals(1234L, snapshot.timeMillis());
+        assertEquals(6, snapshot.samples().size());
+        Sample arrivals = snapshot.samples().get(0);
+        assertEquals(Map.of("n", 1.0, "count", 5.0), arrivals.values());
+        Sample waiting = snapshot.samples().get(3);
+        assertEquals("waiting time at A", waiting.description());
+        assertEquals(List.of("n", "sum", "mean", "stdev", "min", "max"), List.copyOf(waiting.values().keySet()));
+        assertEquals(3.0, waiting.values().get("n"));
+        assertEquals(2.0, waiting.values().get("mean"));
+        assertEquals(1.0, waiting.values().get("stdev"), 1E-12);
+        Sample utilization = snapshot.samples().get(2);
+        assertEquals(7.0, utilization.values().get("weighted_mean"), 1E-12);
+        assertEquals(2.0, utilization.values().get("n"));
+        assertTrue(Double.isNaN(snapshot.samples().get(4).values().get("mean")), "empty tally has no mean");
+        assertTrue(snapshot.samples().get(1).values().containsKey("weight"), "decay tally");
+        assertTrue(snapshot.samples().get(5).values().containsKey("sum"), "windowed tally");
+
+        assertSame(counter, registry.unregister("arrivals", Map.of("station", "A", "run", "1")));
+        assertNull(registry.unregister("arrivals", Map.of("station", "A", "run", "1")));
+        assertSame(weightedTally, registry.unregister("utilization"));
+        assertEquals(4, registry.size());
+        registry.clear();
+        assertEquals(0, registry.size());
+        assertEquals(0, registry.sample(0L).samples().size());
+
+        UnitTest.testFail(() -> registry.register(null, new Tally("t")), NullPointerException.class);
+        UnitTest.testFail(() -> registry.register("t", null), NullPointerException.class);
+        UnitTest.testFail(() -> registry.register("t", null, new Tally("t")), NullPointerException.class);
+        UnitTest.testFail(() -> registry.register("1t", new Tally("t")), IllegalArgumentException.class);
+        UnitTest.testFail(() -> registry.register("t-t", new Tally("t")), IllegalArgumentException.class);
+        UnitTest.testFail(() -> registry.register("t", Map.of("a b", "x"), new Tally("t")), IllegalArgumentException.class);
+        UnitTest.testFail(() -> registry.register("t", Map.of("__a", "x"), new Tally("t")), IllegalArgumentException.class);
+        registry.register("t", new Tally("t"));
+        UnitTest.testFail(() -> registry.register("t", new Tally("t2")), IllegalArgumentException.class);
+        UnitTest.testFail(() -> registry.get("t t"), IllegalArgumentException.class);
+    }
+
+    /**
+     * Test the ring buffer of the sampler, the formats and the file export.
+     * @throws IOException when that happens uncaught this test has failed
+     */
+    @Test
+    public void testSamplerAndFormats() throws IOException
+    {
+        StatisticsRegistry registry = new StatisticsRegistry();
+        Tally tally = registry.register("latency", Map.of("node", "a\"b"), new Tally("latency, in s"));
+        Counter counter = registry.register("jobs", new Counter("jobs"));
+        AtomicLong time = new AtomicLong(1000L);
+        StatisticsSampler sampler = new StatisticsSampler(registry, 3, time::get);
+        assertSame(registry, sampler.getRegistry());
+        assertEquals(3, sampler.getCapacity());
+        assertNull(sampler.getLatest());
+        assertEquals(0, sampler.getHistory().size());
+        for (int i = 1; i <= 5; i++)
+        {
+            tally.register(i);
+            counter.register(1);
+            time.set(1000L * i);
+            sampler.sampleNow();
+        }
+        assertEquals(5, sampler.getSampleCount());
+        assertEquals(5000L, sampler.getLatest().timeMillis());
+        List<RegistrySnapshot> history = sampler.getHistory();
+        assertEquals(3, history.size(), "the ring buffer keeps the 3 most recent snapshots");
+        assertEquals(3000L, history.get(0).timeMillis());
+        assertEquals(5000L, history.get(2).timeMillis());
+        assertEquals(3.0, history.get(0).samples().get(0).values().get("count"));
+
+        StringWriter prometheus = new StringWriter();
+        sampler.export(MetricsFormat.PROMETHEUS, prometheus);
+        String text = prometheus.toString();
+        assertTrue(text.contains("# HELP jobs_count jobs\n# TYPE jobs_count gauge\njobs_count 5.0 5000\n"), text);
+        assertTrue(text.contains("latency_mean{node=\"a\\\"b\"} 3.0 5000\n"), text);
+        assertTrue(text.contains("# HELP latency_min latency, in s\n"), text);
+        assertEquals(1, text.split("\njobs_count ", -1).length - 1, "only the latest snapshot");
+
+        StringWriter csv = new StringWriter();
+        sampler.export(MetricsFormat.CSV, csv);
+        String[] lines = csv.toString().split("\n");
+        assertEquals("timestamp,name,tags,field,value", lines[0]);
+        assertEquals(1 + 3 * (2 + 6), lines.length);
+        assertEquals("3000,jobs,,n,3.0", lines[1]);
+        assertTrue(csv.toString().contains("5000,latency,\"node=a\"\"b\",max,5.0\n"), csv.toString());
+
+        StringWriter json = new StringWriter();
+        sampler.export(MetricsFormat.JSON, json);
+        assertTrue(json.toString().startsWith("[\n{\"timestamp\":3000,\"samples\":[\n{\"name\":\"jobs\",\"tags\":{},"),
+                json.toString());
+        assertTrue(json.toString().contains("{\"name\":\"latency\",\"tags\":{\"node\":\"a\\\"b\"},"), json.toString());
+        assertTrue(json.toString().endsWith("]}\n]\n"));
+
+        registry.register("empty", new Tally("empty\nline"));
+        sampler.sampleNow();
+        StringWriter special = new StringWriter();
+        sampler.export(MetricsFormat.PROMETHEUS, special);
+        assertTrue(special.toString().contains("empty_mean NaN 5000\n"), special.toString());
+        assertTrue(special.toString().contains("# HELP empty_mean empty\\nline\n"), special.toString());
+        special = new StringWriter();
+        sampler.export(MetricsFormat.JSON, special);
+        assertTrue(special.toString().contains("\"mean\":null"));
+        assertEquals("+Inf", MetricsFormat.prometheusValue(Double.POSITIVE_INFINITY));
+        assertEquals("-Inf", MetricsFormat.prometheusValue(Double.NEGATIVE_INFINITY));
+        assertEquals("\"\\t\\u0001\\\\\"", MetricsFormat.jsonString("\t\u0001\\"));
+        StringWriter nothing = new StringWriter();
+        MetricsFormat.PROMETHEUS.write(List.of(), nothing);
+        assertEquals("", nothing.toString());
+        assertTrue(MetricsFormat.PROMETHEUS.getContentType().startsWith("text/plain"));
+
+        Path file = this.tempDir.resolve("metrics.csv");
+        sampler.export(file, MetricsFormat.CSV);
+        assertEquals(1 + 3 * (2 + 6) + 6, Files.readAllLines(file).size());
+        sampler.export(file, MetricsFormat.PROMETHEUS);
+        assertTrue(Files.readString(file).startsWith("# HELP"), "the file is replaced");
+        try (var files = Files.list(this.tempDir))
+        {
+            assertEquals(1, files.count(), "no temporary files are left behind");
+        }
+
+        UnitTest.testFail(() -> new StatisticsSampler(null, 3), NullPointerException.class);
+        UnitTest.testFail(() -> new StatisticsSampler(registry, 3, null), NullPointerException.class);
+        UnitTest.testFail(() -> new StatisticsSampler(registry, 0), IllegalArgumentException.class);
+        UnitTest.testFail(() -> sampler.export((MetricsFormat) null, new StringWriter()), NullPointerException.class);
+        UnitTest.testFail(() -> sampler.export(MetricsFormat.CSV, null), NullPointerException.class);
+        UnitTest.testFail(() -> sampler.export(file, null), NullPointerException.class);
+        UnitTest.testFail(() -> sampler.addFileExport(null, MetricsFormat.CSV), NullPointerException.class);
+        UnitTest.testFail(() -> sampler.start(0), IllegalArgumentException.class);
+    }
+
+    /**
+     * Test the periodic sampling with a file export, while another thread registers values, and the HTTP server.
+     * @throws Exception when that happens uncaught this test has failed
+     */
+    @Test
+    public void testPeriodicSamplingAndServer() throws Exception
+    {
+        StatisticsRegistry registry = new StatisticsRegistry();
+        Tally tally = registry.register("value", new Tally("value"));
+        Path file = this.tempDir.resolve("metrics.prom");
+        try (StatisticsSampler sampler = new StatisticsSampler(registry, 100))
+        {
+            sampler.addFileExport(file, MetricsFormat.PROMETHEUS);
+            sampler.start(5);
+            assertTrue(sampler.isStarted());
+            UnitTest.testFail(() -> sampler.start(5), IllegalStateException.class);
+            Thread producer = new Thread(() ->
+            {
+                for (int i = 0; i < 200000; i++)
+                {
+                    tally.register(i % 100);
+                }
+            });
+            producer.start();
+            producer.join();
+            long deadline = System.currentTimeMillis() + 10000;
+            while (sampler.getSampleCount() < 3 && System.currentTimeMillis() < deadline)
+            {
+                Thread.sleep(5);
+            }
+            sampler.stop();
+            assertTrue(!sampler.isStarted());
+            assertTrue(sampler.getSampleCount() >= 3);
+            assertEquals(0, sampler.getFailureCount());
+            assertTrue(Files.readString(file).contains("value_n "));
+            assertTrue(sampler.removeFileExport(file));
+            assertTrue(!sampler.removeFileExport(file));
+            List<RegistrySnapshot> history = sampler.getHistory();
+            for (int i = 1; i < history.size(); i++)
+            {
+                assertTrue(history.get(i).samples().get(0).values().get("n") >= history.get(i - 1).samples().get(0)
+                        .values().get("n"), "snapshots are in chronological order");
+            }
+            sampler.sampleNow();
+            assertEquals(200000.0, sampler.getLatest().samples().get(0).values().get("n"));
+            assertTrue(sampler.toString().startsWith("StatisticsSampler"));
+
+            try (MetricsHttpServer server = new MetricsHttpServer(sampler, 0))
+            {
+                assertTrue(server.getAddress().getAddress().isLoopbackAddress(), "only local clients by default");
+                assertTrue(server.getPort() > 0);
+                assertTrue(server.toString().contains(Integer.toString(server.getPort())));
+                String base = "http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + server.getPort();
+                HttpURLConnection connection = (HttpURLConnection) new URL(base + "/metrics").openConnection();
+                assertEquals(200, connection.getResponseCode());
+                assertTrue(connection.getContentType().startsWith("text/plain"));
+                try (InputStream in = connection.getInputStream())
+                {
+                    assertTrue(new String(in.readAllBytes(), StandardCharsets.UTF_8).contains("value_n 200000.0 "));
+                }
+                connection = (HttpURLConnection) new URL(base + "/metrics.json").openConnection();
+                assertEquals(200, connection.getResponseCode());
+                assertEquals("application/json; charset=utf-8", connection.getContentType());
+                connection = (HttpURLConnection) new URL(base + "/metrics.csv").openConnection();
+                assertEquals(200, connection.getResponseCode());
+                connection = (HttpURLConnection) new URL(base + "/metricsx").openConnection();
+                assertEquals(404, connection.getResponseCode());
+                connection = (HttpURLConnection) new URL(base + "/metrics").openConnection();
+                connection.setRequestMethod("DELETE");
+                assertEquals(405, connection.getResponseCode());
+            }
+            try (MetricsHttpServer server =
+                    new MetricsHttpServer(sampler, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0)))
+            {
+                assertEquals(InetAddress.getLoopbackAddress(), server.getAddress().getAddress());
+            }
+            UnitTest.testFail(() -> new MetricsHttpServer(sampler, -1), IllegalArgumentException.class);
+            UnitTest.testFail(() -> new MetricsHttpServer(null, 0), NullPointerException.class);
+        }
+    }
+
+}
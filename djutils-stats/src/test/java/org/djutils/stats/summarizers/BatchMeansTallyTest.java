@@ -0,0 +1,243 @@
+package org.djutils.stats.summarizers;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.djutils.stats.ConfidenceInterval;
+import org.djutils.stats.DistStudentT;
+import org.djutils.test.UnitTest;
+import org.junit.jupiter.api.Test;
+
+/**
+ * BatchMeansTallyTest tests the BatchMeansTally.
+ * <p>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>.
+ * </p>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ */
+public class BatchMeansTallyTest
+{
+    /**
+     * The batches are combined pairwise when they are all filled, and the batch means are the means of the observations.
+     */
+    @Test
+    public void testBatches()
+    {
+        BatchMeansTally bmt = new BatchMeansTally("batches", 4, 2);
+        assertEquals("batches", bmt.getDescription());
+        assertEquals(4, bmt.getMaxBatches());
+        assertEquals(2, bmt.getMaxLag());
+        assertEquals(0, bmt.getN());
+        assertEquals(0, bmt.getBatchCount());
+        assertEquals(1, bmt.getBatchSize());
+        assertTrue(Double.isNaN(bmt.getSampleMean()));
+        assertTrue(Double.isNaN(bmt.getMin()));
+        assertTrue(Double.isNaN(bmt.getBatchMean()));
+        assertTrue(Double.isNaN(bmt.getBatchMeansVariance()));
+        assertTrue(Double.isNaN(bmt.getAutocorrelation(1)));
+        assertTrue(Double.isNaN(bmt.getEffectiveSampleSize()));
+        assertNull(bmt.getConfidenceInterval(0.05));
+        assertTrue(Double.isNaN(bmt.getHalfWidth(0.05)));
+        assertFalse(bmt.isPrecisionReached(0.05, 0.1));
+
+        bmt.register(1.0, 2.0, 3.0);
+        assertEquals(3, bmt.getBatchCount());
+        assertArrayEquals(new double[] {1.0, 2.0, 3.0}, bmt.getBatchMeans());
+        bmt.register(4.0);
+        assertEquals(2, bmt.getBatchCount(), "4 batches are combined into 2");
+        assertEquals(2, bmt.getBatchSize());
+        assertArrayEquals(new double[] {1.5, 3.5}, bmt.getBatchMeans());
+        for (int i = 5; i <= 12; i++)
+        {
+            bmt.register(i);
+        }
+        assertEquals(12, bmt.getN());
+        assertEquals(4, bmt.getBatchSize(), "4 batches of size 2 were combined into 2 batches of size 4");
+        assertArrayEquals(new double[] {2.5, 6.5, 10.5}, bmt.getBatchMeans());
+        bmt.register(13.0);
+        assertEquals(3, bmt.getBatchCount(), "the last observation is in a batch that is being filled");
+        assertEquals(6.5, bmt.getBatchMean(), 1E-12);
+        assertEquals(7.0, bmt.getSampleMean(), 1E-12);
+        assertEquals(1.0, bmt.getMin());
+        assertEquals(13.0, bmt.getMax());
+        assertEquals(13 * 14 / 12.0, bmt.getSampleVariance(), 1E-12);
+        assertEquals(Math.sqrt(13 * 14 / 12.0), bmt.getSampleStDev(), 1E-12);
+        assertEquals(16.0, bmt.getBatchMeansVariance(), 1E-12);
+
+        double halfWidth = DistStudentT.getInverseCumulativeProbability(2, 0.975) * Math.sqrt(16.0 / 3.0);
+        assertEquals(halfWidth, bmt.getHalfWidth(0.05), 1E-9);
+        double[] ci = bmt.getConfidenceInterval(0.05);
+        assertEquals(6.5 - halfWidth, ci[0], 1E-9);
+        assertEquals(6.5 + halfWidth, ci[1], 1E-9);
+        double oneSided = DistStudentT.getInverseCumulativeProbability(2, 0.95) * Math.sqrt(16.0 / 3.0);
+        ci = bmt.getConfidenceInterval(0.05, ConfidenceInterval.LEFT_SIDE_CONFIDENCE);
+        assertEquals(6.5 - oneSided, ci[0], 1E-9);
+        assertEquals(6.5, ci[1], 1E-9);
+        ci = bmt.getConfidenceInterval(0.05, ConfidenceInterval.RIGHT_SIDE_CONFIDENCE);
+        assertEquals(6.5, ci[0], 1E-9);
+        assertEquals(6.5 + oneSided, ci[1], 1E-9);
+        assertEquals(0.0, bmt.getBatchMeansAutocorrelation(), 1E-12);
+        assertTrue(bmt.isPrecisionReached(0.05, 2.0));
+        assertFalse(bmt.isPrecisionReached(0.05, 1.0));
+
+        assertTrue(bmt.toString().startsWith("BatchMeansTally"));
+        assertTrue(bmt.reportLine().startsWith("| batches"));
+        assertEquals(BatchMeansTally.reportFooter().length(), bmt.reportLine().length());
+        assertTrue(BatchMeansTally.reportHeader().contains("Batch means tally name"));
+        bmt.setDescription("other");
+        assertEquals("other", bmt.getDescription());
+
+        bmt.initialize();
+        assertEquals(0, bmt.getN());
+        assertEquals(0, bmt.getBatchCount());
+        assertEquals(1, bmt.getBatchSize());
+        assertTrue(Double.isNaN(bmt.getAutocorrelation(1)));
+        bmt.register(5.0, 3.0, 5.0, 3.0);
+        assertEquals(-0.75, bmt.getAutocorrelation(1), 1E-12);
+        assertEquals(0.5, bmt.getAutocorrelation(2), 1E-12);
+        assertEquals(1.0, bmt.getAutocorrelation(0));
+    }
+
+    /**
+     * The streaming autocorrelation is the same as the autocorrelation that is calculated from all stored observations.
+     */
+    @Test
+    public void testAutocorrelation()
+    {
+        Random random = new Random(24680);
+        int n = 5000;
+        double[] values = new double[n];
+        BatchMeansTally bmt = new BatchMeansTally("acf", 20, 15);
+        for (int i = 0; i < n; i++)
+        {
+            values[i] = 1000.0 + 10.0 * Math.sin(i / 7.0) + random.nextGaussian();
+            bmt.register(values[i]);
+            if (i == 8 || i == 100 || i == n - 1)
+            {
+                double mean = 0.0;
+                for (int j = 0; j <= i; j++)
+                {
+                    mean += values[j];
+                }
+                mean /= i + 1;
+                double sumOfSquares = 0.0;
+                for (int j = 0; j <= i; j++)
+                {
+                    sumOfSquares += (values[j] - mean) * (values[j] - mean);
+                }
+                for (int lag = 1; lag <= Math.min(15, i); lag++)
+                {
+                    double sum = 0.0;
+                    for (int j = lag; j <= i; j++)
+                    {
+                        sum += (values[j] - mean) * (values[j - lag] - mean);
+                    }
+                    assertEquals(sum / sumOfSquares, bmt.getAutocorrelation(lag), 1E-9, "n=" + (i + 1) + ", lag=" + lag);
+                }
+                if (i == 8)
+                {
+                    assertTrue(Double.isNaN(bmt.getAutocorrelation(9)), "not enough observations for lag 9");
+                }
+            }
+        }
+        BatchMeansTally noLag = new BatchMeansTally("noLag", 20, 0);
+        noLag.register(values);
+        assertEquals(bmt.getBatchMean(), noLag.getBatchMean(), 0.0);
+        assertEquals(n, noLag.getEffectiveSampleSize(), 0.0);
+        assertTrue(noLag.reportLine().contains("NaN"));
+    }
+
+    /**
+     * For an autoregressive process, the batch means confidence interval covers the true mean where the interval of the Tally,
+     * which assumes independent observations, is much too narrow.
+     */
+    @Test
+    public void testAutoregressiveProcess()
+    {
+        double phi = 0.9;
+        double mu = 50.0;
+        int runs = 100;
+        int n = 20000;
+        int tallyCovered = 0;
+        int batchCovered = 0;
+        Random random = new Random(97531);
+        BatchMeansTally bmt = new BatchMeansTally("ar1");
+        Tally tally = new Tally("ar1");
+        for (int run = 0; run < runs; run++)
+        {
+            bmt.initialize();
+            tally.initialize();
+            double x = mu;
+            for (int i = 0; i < n; i++)
+            {
+                x = mu + phi * (x - mu) + random.nextGaussian();
+                bmt.register(x);
+                tally.register(x);
+            }
+            assertEquals(phi, bmt.getAutocorrelation(1), 0.03);
+            assertEquals(phi * phi, bmt.getAutocorrelation(2), 0.05);
+            // the effective sample size of an AR(1) process is n / (1 + 2 sum phi^k), here with the sum up to the maximum lag
+            double rhoSum = phi * (1.0 - Math.pow(phi, bmt.getMaxLag())) / (1.0 - phi);
+            assertEquals(n / (1.0 + 2.0 * rhoSum), bmt.getEffectiveSampleSize(), n * 0.02);
+            assertTrue(bmt.getBatchCount() >= 20 && bmt.getBatchCount() < 40);
+            assertTrue(Math.abs(bmt.getBatchMeansAutocorrelation()) < 0.6, "batches are large enough");
+            double[] bci = bmt.getConfidenceInterval(0.05);
+            double[] tci = tally.getConfidenceInterval(0.05);
+            assertTrue(bci[1] - bci[0] > 3.0 * (tci[1] - tci[0]), "the batch means interval is much wider");
+            batchCovered += bci[0] <= mu && mu <= bci[1] ? 1 : 0;
+            tallyCovered += tci[0] <= mu && mu <= tci[1] ? 1 : 0;
+        }
+        assertTrue(batchCovered >= 88, "batch means coverage is close to 95%: " + batchCovered);
+        assertTrue(tallyCovered < 60, "i.i.d. coverage is far below 95%: " + tallyCovered);
+    }
+
+    /**
+     * A run can be stopped as soon as the required precision has been reached.
+     */
+    @Test
+    public void testStoppingRule()
+    {
+        Random random = new Random(1357);
+        BatchMeansTally bmt = new BatchMeansTally("stop", 20, 1);
+        double x = 0.0;
+        while (!bmt.isPrecisionReached(0.05, 0.01))
+        {
+            x = 0.8 * x + random.nextGaussian();
+            bmt.register(10.0 + x);
+        }
+        assertTrue(bmt.getHalfWidth(0.05) <= 0.1 * 1.01);
+        assertTrue(bmt.getBatchSize() > 1);
+        double[] ci = bmt.getConfidenceInterval(0.05);
+        assertEquals(bmt.getHalfWidth(0.05), (ci[1] - ci[0]) / 2.0, 1E-9);
+    }
+
+    /**
+     * Test the exceptions.
+     */
+    @Test
+    public void testErrors()
+    {
+        UnitTest.testFail(() -> new BatchMeansTally(null), NullPointerException.class);
+        UnitTest.testFail(() -> new BatchMeansTally("x", 2, 1), IllegalArgumentException.class);
+        UnitTest.testFail(() -> new BatchMeansTally("x", 5, 1), IllegalArgumentException.class);
+        UnitTest.testFail(() -> new BatchMeansTally("x", 4, -1), IllegalArgumentException.class);
+        BatchMeansTally bmt = new BatchMeansTally("x", 4, 2);
+        UnitTest.testFail(() -> bmt.register(Double.NaN), IllegalArgumentException.class);
+        UnitTest.testFail(() -> bmt.getAutocorrelation(-1), IllegalArgumentException.class);
+        UnitTest.testFail(() -> bmt.getAutocorrelation(3), IllegalArgumentException.class);
+        UnitTest.testFail(() -> bmt.getConfidenceInterval(-0.1), IllegalArgumentException.class);
+        UnitTest.testFail(() -> bmt.getConfidenceInterval(0.05, null), NullPointerException.class);
+        UnitTest.testFail(() -> bmt.getHalfWidth(1.1), IllegalArgumentException.class);
+        UnitTest.testFail(() -> bmt.isPrecisionReached(0.05, 0.0), IllegalArgumentException.class);
+        UnitTest.testFail(() -> bmt.isPrecisionReached(0.05, Double.NaN), IllegalArgumentException.class);
+    }
+
+}
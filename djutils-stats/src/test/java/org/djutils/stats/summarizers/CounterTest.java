@@ -46,6 +46,7 @@ public class CounterTest
         }
         assertEquals(100, counter.getN());
         assertEquals(value, counter.getCount());
+        assertEquals(new CounterSnapshot(100, value), counter.snapshot());
 
         Counter counterLong = new Counter("A very " + "long ".repeat(20) + " description");
         counterLong.register(1000);
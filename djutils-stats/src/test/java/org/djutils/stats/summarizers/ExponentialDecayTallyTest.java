@@ -0,0 +1,124 @@
+package org.djutils.stats.summarizers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.djutils.test.UnitTest;
+import org.junit.jupiter.api.Test;
+
+/**
+ * ExponentialDecayTallyTest tests the ExponentialDecayTally.
+ * <p>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>.
+ * </p>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ */
+public class ExponentialDecayTallyTest
+{
+    /**
+     * Test the decay per observation against a direct calculation of the weighted mean and variance.
+     */
+    @Test
+    public void testDecayPerObservation()
+    {
+        ExponentialDecayTally edt = new ExponentialDecayTally("decay", 10.0);
+        assertEquals("decay", edt.getDescription());
+        edt.setDescription("ewma");
+        assertEquals("ewma", edt.getDescription());
+        assertEquals(10.0, edt.getHalfLife());
+        assertEquals(0, edt.getN());
+        assertEquals(0.0, edt.getWeight());
+        assertTrue(Double.isNaN(edt.getMean()));
+        assertTrue(Double.isNaN(edt.getVariance()));
+        assertTrue(Double.isNaN(edt.getStDev()));
+        assertTrue(Double.isNaN(edt.getMin()));
+        assertTrue(Double.isNaN(edt.getMax()));
+
+        double[] values = new double[200];
+        for (int i = 0; i < values.length; i++)
+        {
+            values[i] = (i < 100 ? 10.0 : 50.0) + (i % 5);
+            edt.register(values[i]);
+            double w = 0.0;
+            double s = 0.0;
+            for (int j = 0; j <= i; j++)
+            {
+                double weight = Math.pow(0.5, (i - j) / 10.0);
+                w += weight;
+                s += weight * values[j];
+            }
+            double mean = s / w;
+            double ss = 0.0;
+            for (int j = 0; j <= i; j++)
+            {
+                ss += Math.pow(0.5, (i - j) / 10.0) * (values[j] - mean) * (values[j] - mean);
+            }
+            assertEquals(w, edt.getWeight(), 1E-9);
+            assertEquals(mean, edt.getMean(), 1E-9);
+            assertEquals(ss / w, edt.getVariance(), 1E-9);
+        }
+        // the mean follows the level shift; min and max are not weighted
+        assertEquals(52.0, edt.getMean(), 0.1);
+        assertEquals(10.0, edt.getMin());
+        assertEquals(54.0, edt.getMax());
+        assertEquals(200, edt.getN());
+        assertEquals(10.0 / Math.log(2.0), edt.getWeight(), 1.0);
+        assertTrue(edt.reportLine().contains("ewma"));
+        assertTrue(edt.toString().contains("n=200"));
+        WeightedTallySnapshot snapshot = edt.snapshot();
+        assertEquals(200, snapshot.n());
+        assertEquals(edt.getWeight(), snapshot.sumOfWeights(), 1E-12);
+        assertEquals(edt.getMean(), snapshot.getWeightedPopulationMean(), 1E-12);
+        assertEquals(edt.getStDev(), snapshot.getWeightedPopulationStDev(), 1E-12);
+        assertEquals(10.0, snapshot.min());
+        assertEquals(54.0, snapshot.max());
+
+        edt.initialize();
+        assertEquals(0, edt.getN());
+        assertTrue(Double.isNaN(edt.getMean()));
+        assertEquals(0, edt.snapshot().n());
+        assertTrue(Double.isNaN(edt.snapshot().getWeightedPopulationMean()));
+        edt.register(1.0, 3.0);
+        assertEquals(1.0, edt.getMin());
+        assertEquals(3.0, edt.getMax());
+
+        UnitTest.testFail(() -> new ExponentialDecayTally(null, 1.0), NullPointerException.class);
+        UnitTest.testFail(() -> new ExponentialDecayTally("x", 0.0), IllegalArgumentException.class);
+        UnitTest.testFail(() -> new ExponentialDecayTally("x", Double.NaN), IllegalArgumentException.class);
+        UnitTest.testFail(() -> edt.register(Double.NaN), IllegalArgumentException.class);
+    }
+
+    /**
+     * Test the decay with a clock.
+     */
+    @Test
+    public void testDecayWithClock()
+    {
+        double[] time = new double[] {0.0};
+        ExponentialDecayTally edt = new ExponentialDecayTally("clock", 2.0, () -> time[0]);
+        edt.register(4.0);
+        edt.register(8.0);
+        assertEquals(2.0, edt.getWeight(), 1E-12);
+        assertEquals(6.0, edt.getMean(), 1E-12);
+        assertEquals(4.0, edt.getVariance(), 1E-12);
+        // the weights halve after 2 time units, but the mean and variance stay the same without observations
+        time[0] = 2.0;
+        assertEquals(1.0, edt.getWeight(), 1E-12);
+        assertEquals(6.0, edt.getMean(), 1E-12);
+        assertEquals(4.0, edt.getVariance(), 1E-12);
+        assertEquals(2.0, edt.getStDev(), 1E-12);
+        // a new observation weighs as much as the two old ones together
+        edt.register(12.0);
+        assertEquals(2.0, edt.getWeight(), 1E-12);
+        assertEquals(9.0, edt.getMean(), 1E-12);
+        // a clock that goes back in time stands still
+        time[0] = 1.0;
+        assertEquals(2.0, edt.getWeight(), 1E-12);
+        time[0] = Double.POSITIVE_INFINITY;
+        UnitTest.testFail(() -> edt.register(1.0), IllegalStateException.class);
+    }
+
+}
@@ -0,0 +1,198 @@
+package org.djutils.stats.summarizers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.djutils.test.UnitTest;
+import org.junit.jupiter.api.Test;
+
+/**
+ * MultivariateTallyTest tests the MultivariateTally.
+ * <p>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>.
+ * </p>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ */
+public class MultivariateTallyTest
+{
+    /**
+     * Generate observations of 4 variables: x0 is normal, x1 = 2 * x0 + 1 + noise, x2 is independent of x0, and
+     * x3 = 3 + x0 - x2 exactly. A large offset is added to test the numerical stability.
+     * @param seed the seed
+     * @param n the number of observations
+     * @return the observations
+     */
+    private static double[][] observations(final long seed, final int n)
+    {
+        Random random = new Random(seed);
+        double[][] observations = new double[n][];
+        for (int k = 0; k < n; k++)
+        {
+            double x0 = 1E6 + random.nextGaussian();
+            double x1 = 2.0 * x0 + 1.0 + 0.5 * random.nextGaussian();
+            double x2 = 1E6 + 3.0 * random.nextGaussian();
+            observations[k] = new double[] {x0, x1, x2, 3.0 + x0 - x2};
+        }
+        return observations;
+    }
+
+    /**
+     * Compute the sample covariance of two variables in two passes.
+     * @param observations the observations
+     * @param i the first variable
+     * @param j the second variable
+     * @return the sample covariance
+     */
+    private static double covariance(final double[][] observations, final int i, final int j)
+    {
+        double meanI = 0.0;
+        double meanJ = 0.0;
+        for (double[] observation : observations)
+        {
+            meanI += observation[i] / observations.length;
+            meanJ += observation[j] / observations.length;
+        }
+        double sum = 0.0;
+        for (double[] observation : observations)
+        {
+            sum += (observation[i] - meanI) * (observation[j] - meanJ);
+        }
+        return sum / (observations.length - 1);
+    }
+
+    /** The statistics equal the ones computed in two passes over all data. */
+    @Test
+    public void testStatistics()
+    {
+        MultivariateTally tally = new MultivariateTally("flows", 4);
+        assertEquals("flows", tally.getDescription());
+        assertEquals(4, tally.getDimension());
+        assertEquals(0, tally.getN());
+        assertTrue(Double.isNaN(tally.getMean(0)));
+        assertTrue(Double.isNaN(tally.getMeans()[3]));
+        assertTrue(Double.isNaN(tally.getPopulationCovariance(0, 1)));
+        double[][] observations = observations(1L, 10000);
+        tally.register(observations[0]);
+        assertTrue(Double.isNaN(tally.getSampleCovariance(0, 1)));
+        assertEquals(0.0, tally.getPopulationCovariance(0, 1));
+        assertTrue(Double.isNaN(tally.getCorrelation(0, 1)));
+        for (int k = 1; k < observations.length; k++)
+        {
+            tally.register(observations[k]);
+        }
+        assertEquals(10000, tally.getN());
+        double[][] covariances = tally.getSampleCovarianceMatrix();
+        double[][] correlations = tally.getCorrelationMatrix();
+        for (int i = 0; i < 4; i++)
+        {
+            for (int j = 0; j < 4; j++)
+            {
+                double expected = covariance(observations, i, j);
+                assertEquals(expected, tally.getSampleCovariance(i, j), 1E-9 * (1.0 + Math.abs(expected)), i + "," + j);
+                assertEquals(tally.getSampleCovariance(i, j), covariances[i][j], 0.0);
+                assertEquals(expected * 9999 / 10000, tally.getPopulationCovariance(i, j), 1E-9 * (1.0 + Math.abs(expected)));
+                double expectedCorrelation =
+                        expected / Math.sqrt(covariance(observations, i, i) * covariance(observations, j, j));
+                assertEquals(expectedCorrelation, tally.getCorrelation(i, j), 1E-9);
+                assertEquals(tally.getCorrelation(i, j), correlations[i][j], 0.0);
+            }
+            assertEquals(1.0, tally.getCorrelation(i, i));
+            assertEquals(Math.sqrt(tally.getSampleVariance(i)), tally.getSampleStDev(i), 0.0);
+        }
+        assertEquals(1E6, tally.getMean(0), 0.05);
+        assertEquals(tally.getMean(1), tally.getMeans()[1], 0.0);
+        assertEquals(0.97, tally.getCorrelation(0, 1), 0.01, "x1 depends strongly on x0");
+        assertEquals(0.0, tally.getCorrelation(0, 2), 0.05, "x2 is independent of x0");
+
+        assertEquals(2.0, tally.getRegressionSlope(1, 0), 0.02);
+        double[] simple = tally.getRegressionCoefficients(1, 0);
+        assertEquals(tally.getRegressionSlope(1, 0), simple[1], 1E-9);
+        assertEquals(tally.getMean(1) - simple[1] * tally.getMean(0), simple[0], 1E-6);
+        double[] multiple = tally.getRegressionCoefficients(3, 0, 2);
+        assertEquals(3, multiple.length);
+        assertEquals(3.0, multiple[0], 1E-3, "intercept");
+        assertEquals(1.0, multiple[1], 1E-9);
+        assertEquals(-1.0, multiple[2], 1E-9);
+        assertTrue(Double.isNaN(tally.getRegressionCoefficients(1, 0, 0)[1]), "dependent regressors");
+        assertTrue(Double.isNaN(tally.getRegressionCoefficients(3, 0, 2, 3)[0]), "y is a combination of the regressors");
+        assertEquals(tally.getMean(2), tally.getRegressionCoefficients(2)[0], 0.0, "no regressors: the mean");
+
+        assertTrue(tally.toString().contains("dimension=4"));
+        assertTrue(tally.reportLine().contains("flows"));
+        assertTrue(MultivariateTally.reportHeader().contains("dimension"));
+        assertEquals(74, MultivariateTally.reportFooter().length());
+        tally.setDescription("other");
+        assertEquals("other", tally.getDescription());
+        tally.initialize();
+        assertEquals(0, tally.getN());
+        assertTrue(Double.isNaN(tally.getMean(0)));
+        assertTrue(Double.isNaN(tally.getSampleCovarianceMatrix()[1][0]));
+        assertTrue(Double.isNaN(tally.getRegressionSlope(1, 0)));
+        assertTrue(Double.isNaN(tally.getRegressionCoefficients(1, 0)[0]));
+    }
+
+    /** Merged tallies give the same statistics as one tally with all observations. */
+    @Test
+    public void testMerge()
+    {
+        double[][] observations = observations(2L, 3000);
+        MultivariateTally all = new MultivariateTally("all", 4);
+        all.register(observations);
+        MultivariateTally[] parts = new MultivariateTally[] {new MultivariateTally("a", 4), new MultivariateTally("b", 4),
+                new MultivariateTally("c", 4)};
+        for (int k = 0; k < observations.length; k++)
+        {
+            // unequal parts
+            parts[k < 100 ? 0 : k < 1000 ? 1 : 2].register(observations[k]);
+        }
+        MultivariateTally merged = new MultivariateTally("merged", 4);
+        merged.merge(new MultivariateTally("empty", 4));
+        merged.merge(parts[1]);
+        merged.merge(parts[0]);
+        merged.merge(parts[2]);
+        assertEquals(all.getN(), merged.getN());
+        assertEquals(2000, parts[2].getN(), "merged tallies are not changed");
+        for (int i = 0; i < 4; i++)
+        {
+            assertEquals(all.getMean(i), merged.getMean(i), 1E-6);
+            for (int j = 0; j < 4; j++)
+            {
+                double expected = all.getSampleCovariance(i, j);
+                assertEquals(expected, merged.getSampleCovariance(i, j), 1E-9 * (1.0 + Math.abs(expected)));
+            }
+        }
+
+        UnitTest.testFail(() -> merged.merge(null), NullPointerException.class);
+        UnitTest.testFail(() -> merged.merge(merged), IllegalArgumentException.class);
+        UnitTest.testFail(() -> merged.merge(new MultivariateTally("x", 3)), IllegalArgumentException.class);
+    }
+
+    /** Test the exceptions. */
+    @Test
+    public void testErrors()
+    {
+        UnitTest.testFail(() -> new MultivariateTally(null, 2), NullPointerException.class);
+        UnitTest.testFail(() -> new MultivariateTally("t", 0), IllegalArgumentException.class);
+        UnitTest.testFail(() -> new MultivariateTally("t", 100000), IllegalArgumentException.class);
+        UnitTest.testFail(() -> new MultivariateTally("t", 65536), IllegalArgumentException.class);
+        MultivariateTally tally = new MultivariateTally("t", 2);
+        UnitTest.testFail(() -> tally.register((double[]) null), NullPointerException.class);
+        UnitTest.testFail(() -> tally.register((double[][]) null), NullPointerException.class);
+        UnitTest.testFail(() -> tally.register(1.0), IllegalArgumentException.class);
+        UnitTest.testFail(() -> tally.register(1.0, 2.0, 3.0), IllegalArgumentException.class);
+        UnitTest.testFail(() -> tally.register(1.0, Double.NaN), IllegalArgumentException.class);
+        assertEquals(0, tally.getN(), "no observations were registered");
+        UnitTest.testFail(() -> tally.getMean(2), IndexOutOfBoundsException.class);
+        UnitTest.testFail(() -> tally.getSampleCovariance(0, -1), IndexOutOfBoundsException.class);
+        UnitTest.testFail(() -> tally.getCorrelation(2, 0), IndexOutOfBoundsException.class);
+        UnitTest.testFail(() -> tally.getRegressionSlope(0, 2), IndexOutOfBoundsException.class);
+        UnitTest.testFail(() -> tally.getRegressionCoefficients(0, 1, 2), IndexOutOfBoundsException.class);
+        UnitTest.testFail(() -> tally.getRegressionCoefficients(0, (int[]) null), NullPointerException.class);
+    }
+
+}
@@ -0,0 +1,176 @@
+package org.djutils.stats.summarizers;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.djutils.stats.summarizers.quantileaccumulator.FixedBinsAccumulator;
+import org.djutils.stats.summarizers.quantileaccumulator.NoStorageAccumulator;
+import org.djutils.test.UnitTest;
+import org.junit.jupiter.api.Test;
+
+/**
+ * SummarizerStateTest tests storing the state of the summarizers in binary form, and restoring them from that state.
+ * <p>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>.
+ * </p>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ */
+public class SummarizerStateTest
+{
+    /** A restored Tally has exactly the state of the stored Tally, and continues in the same way. */
+    @Test
+    public void testTally()
+    {
+        Random random = new Random(42);
+        FixedBinsAccumulator accumulator = new FixedBinsAccumulator(0.0, 0.1, 100);
+        Tally tally = new Tally("tally", accumulator);
+        Tally empty = new Tally("empty", new NoStorageAccumulator(), tally.toByteArray());
+        assertEquals(0, empty.getN());
+        assertTrue(Double.isNaN(empty.getMin()));
+        for (int i = 0; i < 1000; i++)
+        {
+            tally.register(random.nextDouble() * 10.0);
+        }
+        byte[] state = tally.toByteArray();
+        assertEquals(65, state.length);
+        Tally restored = new Tally("restored", FixedBinsAccumulator.fromByteArray(accumulator.toByteArray()), state);
+        assertEquals("restored", restored.getDescription());
+        assertEquals(tally.snapshot(), restored.snapshot());
+        assertEquals(tally.getQuantile(0.3), restored.getQuantile(0.3), 0.0);
+        for (int i = 0; i < 100; i++)
+        {
+            double value = random.nextDouble() * 10.0;
+            tally.register(value);
+            restored.register(value);
+        }
+        assertEquals(tally.snapshot(), restored.snapshot(), "the restored tally continues exactly");
+        assertArrayEquals(tally.toByteArray(), restored.toByteArray());
+        assertEquals(tally.snapshot(), TallySnapshot.fromByteArray(tally.snapshot().toByteArray()));
+
+        UnitTest.testFail(() -> new Tally("t", new NoStorageAccumulator(), null), NullPointerException.class);
+        UnitTest.testFail(() -> new Tally(null, new NoStorageAccumulator(), state), NullPointerException.class);
+        UnitTest.testFail(() -> new Tally("t", null, state), NullPointerException.class);
+        UnitTest.testFail(() -> new Tally("t", new NoStorageAccumulator(), Arrays.copyOf(state, 64)),
+                IllegalArgumentException.class);
+        UnitTest.testFail(() -> new Tally("t", new NoStorageAccumulator(), Arrays.copyOf(state, 66)),
+                IllegalArgumentException.class);
+        byte[] badVersion = state.clone();
+        badVersion[0] = 2;
+        UnitTest.testFail(() -> new Tally("t", new NoStorageAccumulator(), badVersion), IllegalArgumentException.class);
+        byte[] negative = state.clone();
+        negative[1] = (byte) 0x80;
+        UnitTest.testFail(() -> new Tally("t", new NoStorageAccumulator(), negative), IllegalArgumentException.class);
+    }
+
+    /** Restored weighted tallies have exactly the state of the stored tallies, and continue in the same way. */
+    @Test
+    public void testWeightedTally()
+    {
+        Random random = new Random(43);
+        WeightedTally weightedTally = new WeightedTally("weighted");
+        TimestampWeightedTally timestampTally = new TimestampWeightedTally("timestamped");
+        double time = 0.0;
+        for (int i = 0; i < 1000; i++)
+        {
+            double value = random.nextDouble();
+            weightedTally.register(random.nextDouble(), value);
+            time += random.nextDouble();
+            timestampTally.register(time, value);
+        }
+        byte[] weightedState = weightedTally.toByteArray();
+        assertEquals(57, weightedState.length);
+        WeightedTally weightedRestored = new WeightedTally("restored", weightedState);
+        assertEquals(weightedTally.snapshot(), weightedRestored.snapshot());
+        assertEquals(weightedTally.snapshot(), WeightedTallySnapshot.fromByteArray(weightedTally.snapshot().toByteArray()));
+
+        byte[] timestampState = timestampTally.toByteArray();
+        assertEquals(82, timestampState.length);
+        TimestampWeightedTally timestampRestored = new TimestampWeightedTally("restored", timestampState);
+        assertEquals(timestampTally.snapshot(), timestampRestored.snapshot());
+        assertEquals(timestampTally.getLastValue(), timestampRestored.getLastValue());
+        assertTrue(timestampRestored.isActive());
+        double lastTime = time;
+        UnitTest.testFail(() -> timestampRestored.register(lastTime - 1.0, 1.0), "the last timestamp is restored",
+                IllegalArgumentException.class);
+        for (int i = 0; i < 100; i++)
+        {
+            double value = random.nextDouble();
+            double weight = random.nextDouble();
+            weightedTally.register(weight, value);
+            weightedRestored.register(weight, value);
+            time += random.nextDouble();
+            timestampTally.register(time, value);
+            timestampRestored.register(time, value);
+        }
+        timestampTally.endObservations(time + 1.0);
+        timestampRestored.endObservations(time + 1.0);
+        assertEquals(weightedTally.snapshot(), weightedRestored.snapshot(), "the restored tally continues exactly");
+        assertEquals(timestampTally.snapshot(), timestampRestored.snapshot(), "the restored tally continues exactly");
+        assertFalse(new TimestampWeightedTally("ended", timestampTally.toByteArray()).isActive());
+        TimestampWeightedTally fresh = new TimestampWeightedTally("fresh", new TimestampWeightedTally("t").toByteArray());
+        fresh.register(1.0, 2.0);
+        fresh.register(3.0, 4.0);
+        assertEquals(2.0, fresh.getWeightedPopulationMean(), 0.0, "the start time of an empty tally is restored");
+
+        UnitTest.testFail(() -> new WeightedTally("t", (byte[]) null), NullPointerException.class);
+        UnitTest.testFail(() -> new WeightedTally("t", timestampState), IllegalArgumentException.class);
+        UnitTest.testFail(() -> new WeightedTally("t", Arrays.copyOf(weightedState, 56)), IllegalArgumentException.class);
+        UnitTest.testFail(() -> new TimestampWeightedTally("t", (byte[]) null), NullPointerException.class);
+        UnitTest.testFail(() -> new TimestampWeightedTally("t", weightedState), IllegalArgumentException.class);
+        UnitTest.testFail(() -> new TimestampWeightedTally("t", Arrays.copyOf(timestampState, 83)),
+                IllegalArgumentException.class);
+    }
+
+    /** A restored Counter has exactly the state of the stored Counter. */
+    @Test
+    public void testCounter()
+    {
+        Counter counter = new Counter("counter");
+        counter.register(3);
+        counter.register(-1);
+        byte[] state = counter.toByteArray();
+        assertEquals(17, state.length);
+        Counter restored = new Counter("restored", state);
+        assertEquals(2, restored.getN());
+        assertEquals(2, restored.getCount());
+        restored.register(5);
+        assertEquals(7, restored.getCount());
+        UnitTest.testFail(() -> new Counter("c", null), NullPointerException.class);
+        UnitTest.testFail(() -> new Counter(null, state), NullPointerException.class);
+        UnitTest.testFail(() -> new Counter("c", Arrays.copyOf(state, 16)), IllegalArgumentException.class);
+        UnitTest.testFail(() -> new Counter("c", Arrays.copyOf(state, 18)), IllegalArgumentException.class);
+        byte[] badVersion = state.clone();
+        badVersion[0] = 0;
+        UnitTest.testFail(() -> new Counter("c", badVersion), IllegalArgumentException.class);
+    }
+
+    /** Checkpointing and restoring many tallies is cheap. */
+    @Test
+    public void testManyTallies()
+    {
+        Tally[] tallies = new Tally[100000];
+        for (int i = 0; i < tallies.length; i++)
+        {
+            tallies[i] = new Tally("t" + i);
+            tallies[i].register(i, i + 1.0);
+        }
+        byte[][] states = new byte[tallies.length][];
+        for (int i = 0; i < tallies.length; i++)
+        {
+            states[i] = tallies[i].toByteArray();
+        }
+        for (int i = 0; i < tallies.length; i += 997)
+        {
+            assertEquals(i + 0.5, new Tally("r", new NoStorageAccumulator(), states[i]).getSampleMean(), 0.0);
+        }
+    }
+
+}
@@ -0,0 +1,151 @@
+package org.djutils.stats.summarizers;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.djutils.stats.ConfidenceInterval;
+import org.djutils.test.UnitTest;
+import org.junit.jupiter.api.Test;
+
+/**
+ * TallySnapshotTest tests the TallySnapshot and the WeightedTallySnapshot.
+ * <p>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>.
+ * </p>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ */
+public class TallySnapshotTest
+{
+    /** The statistics of a snapshot are the statistics of the tally at the moment of the snapshot. */
+    @Test
+    public void testTallySnapshot()
+    {
+        Tally tally = new Tally("tally");
+        TallySnapshot empty = tally.snapshot();
+        assertEquals(0, empty.n());
+        assertTrue(Double.isNaN(empty.min()));
+        assertTrue(Double.isNaN(empty.getSampleMean()));
+        assertTrue(Double.isNaN(empty.getPopulationVariance()));
+        assertTrue(Double.isNaN(empty.getSampleStDev()));
+        assertTrue(Double.isNaN(empty.getPopulationSkewness()));
+        assertTrue(Double.isNaN(empty.getSampleKurtosis()));
+        assertTrue(Double.isNaN(empty.getPopulationExcessKurtosis()));
+        assertNull(empty.getConfidenceInterval(0.05));
+
+        Random random = new Random(97531);
+        for (int i = 0; i < 1000; i++)
+        {
+            tally.register(random.nextDouble() * random.nextDouble() * 100);
+            if (i < 5 || i % 97 == 0)
+            {
+                TallySnapshot snapshot = tally.snapshot();
+                assertEquals(tally.getN(), snapshot.n());
+                assertEquals(tally.getSum(), snapshot.sum());
+                assertEquals(tally.getMin(), snapshot.min());
+                assertEquals(tally.getMax(), snapshot.max());
+                assertEquals(tally.getSampleMean(), snapshot.getSampleMean());
+                assertEquals(tally.getPopulationMean(), snapshot.getPopulationMean());
+                assertEquals(tally.getSampleVariance(), snapshot.getSampleVariance());
+                assertEquals(tally.getPopulationVariance(), snapshot.getPopulationVariance());
+                assertEquals(tally.getSampleStDev(), snapshot.getSampleStDev());
+                assertEquals(tally.getPopulationStDev(), snapshot.getPopulationStDev());
+                assertEquals(tally.getSampleSkewness(), snapshot.getSampleSkewness());
+                assertEquals(tally.getPopulationSkewness(), snapshot.getPopulationSkewness());
+                assertEquals(tally.getSampleKurtosis(), snapshot.getSampleKurtosis());
+                assertEquals(tally.getPopulationKurtosis(), snapshot.getPopulationKurtosis());
+                assertEquals(tally.getSampleExcessKurtosis(), snapshot.getSampleExcessKurtosis());
+                assertEquals(tally.getPopulationExcessKurtosis(), snapshot.getPopulationExcessKurtosis());
+                for (ConfidenceInterval side : ConfidenceInterval.values())
+                {
+                    assertArrayEquals(tally.getConfidenceInterval(0.05, side), snapshot.getConfidenceInterval(0.05, side));
+                }
+                assertArrayEquals(tally.getConfidenceInterval(0.1), snapshot.getConfidenceInterval(0.1));
+            }
+        }
+        // the snapshot is immutable
+        TallySnapshot snapshot = tally.snapshot();
+        tally.register(1000.0);
+        assertEquals(1000, snapshot.n());
+        assertEquals(snapshot, new TallySnapshot(snapshot.n(), snapshot.sum(), snapshot.m1(), snapshot.m2(), snapshot.m3(),
+                snapshot.m4(), snapshot.min(), snapshot.max()));
+        UnitTest.testFail(() -> snapshot.getConfidenceInterval(0.05, null), NullPointerException.class);
+        UnitTest.testFail(() -> snapshot.getConfidenceInterval(-0.1), IllegalArgumentException.class);
+        UnitTest.testFail(() -> snapshot.getConfidenceInterval(1.1), IllegalArgumentException.class);
+    }
+
+    /** The statistics of a weighted snapshot are the statistics of the weighted tally at the moment of the snapshot. */
+    @Test
+    public void testWeightedTallySnapshot()
+    {
+        WeightedTally tally = new WeightedTally("weighted");
+        WeightedTallySnapshot empty = tally.snapshot();
+        assertEquals(0, empty.n());
+        assertTrue(Double.isNaN(empty.getWeightedSampleMean()));
+        assertTrue(Double.isNaN(empty.getWeightedPopulationVariance()));
+        assertTrue(Double.isNaN(empty.getWeightedSampleStDev()));
+        Random random = new Random(86420);
+        for (int i = 0; i < 100; i++)
+        {
+            tally.register(random.nextDouble() * 3, random.nextGaussian() * 10);
+            WeightedTallySnapshot snapshot = tally.snapshot();
+            assertEquals(tally.getN(), snapshot.n());
+            assertEquals(tally.getMin(), snapshot.min());
+            assertEquals(tally.getMax(), snapshot.max());
+            assertEquals(tally.getWeightedSum(), snapshot.weightedSum());
+            assertEquals(tally.getWeightedSampleMean(), snapshot.getWeightedSampleMean());
+            assertEquals(tally.getWeightedPopulationMean(), snapshot.getWeightedPopulationMean());
+            assertEquals(tally.getWeightedSampleVariance(), snapshot.getWeightedSampleVariance());
+            assertEquals(tally.getWeightedPopulationVariance(), snapshot.getWeightedPopulationVariance());
+            assertEquals(tally.getWeightedSampleStDev(), snapshot.getWeightedSampleStDev());
+            assertEquals(tally.getWeightedPopulationStDev(), snapshot.getWeightedPopulationStDev());
+        }
+
+        TimestampWeightedTally timestamped = new TimestampWeightedTally("timestamped");
+        timestamped.register(0.0, 2.0);
+        timestamped.register(1.0, 4.0);
+        timestamped.register(3.0, 0.0);
+        WeightedTallySnapshot snapshot = timestamped.snapshot();
+        assertEquals(3.0, snapshot.sumOfWeights(), 1E-12);
+        assertEquals(10.0 / 3.0, snapshot.getWeightedPopulationMean(), 1E-12);
+    }
+
+    /**
+     * A snapshot is consistent while other threads register values.
+     * @throws InterruptedException when that happens uncaught this test has failed
+     */
+    @Test
+    public void testConsistency() throws InterruptedException
+    {
+        Tally tally = new Tally("concurrent");
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++)
+        {
+            threads[t] = new Thread(() ->
+            {
+                for (int i = 0; i < 50000; i++)
+                {
+                    tally.register(2.0);
+                }
+            });
+            threads[t].start();
+        }
+        for (int i = 0; i < 1000; i++)
+        {
+            TallySnapshot snapshot = tally.snapshot();
+            assertEquals(2.0 * snapshot.n(), snapshot.sum(), 0.0, "sum and n are taken at the same moment");
+        }
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+        assertEquals(200000, tally.snapshot().n());
+    }
+
+}
@@ -0,0 +1,180 @@
+package org.djutils.stats.summarizers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.djutils.test.UnitTest;
+import org.junit.jupiter.api.Test;
+
+/**
+ * WindowedTallyTest tests the CountWindowedTally and the TimeWindowedTally.
+ * <p>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>.
+ * </p>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ */
+public class WindowedTallyTest
+{
+    /**
+     * Compare the statistics of a windowed tally with those of a Tally that holds the same observations.
+     * @param expected the tally with the observations of the window
+     * @param windowed the windowed tally
+     */
+    private static void assertSameStatistics(final Tally expected, final WindowedTally windowed)
+    {
+        double eps = 1E-9;
+        assertEquals(expected.getN(), windowed.getN());
+        assertEquals(expected.getSum(), windowed.getSum(), eps * Math.abs(expected.getSum()));
+        assertEquals(expected.getMin(), windowed.getMin(), 0.0);
+        assertEquals(expected.getMax(), windowed.getMax(), 0.0);
+        assertEquals(expected.getSampleMean(), windowed.getSampleMean(), eps);
+        assertEquals(expected.getPopulationMean(), windowed.getPopulationMean(), eps);
+        assertEquals(expected.getSampleVariance(), windowed.getSampleVariance(), eps);
+        assertEquals(expected.getPopulationVariance(), windowed.getPopulationVariance(), eps);
+        assertEquals(expected.getSampleStDev(), windowed.getSampleStDev(), eps);
+        assertEquals(expected.getPopulationStDev(), windowed.getPopulationStDev(), eps);
+        assertEquals(expected.getSampleSkewness(), windowed.getSampleSkewness(), eps);
+        assertEquals(expected.getPopulationSkewness(), windowed.getPopulationSkewness(), eps);
+        assertEquals(expected.getSampleKurtosis(), windowed.getSampleKurtosis(), eps);
+        assertEquals(expected.getPopulationKurtosis(), windowed.getPopulationKurtosis(), eps);
+        assertEquals(expected.getSampleExcessKurtosis(), windowed.getSampleExcessKurtosis(), eps);
+        assertEquals(expected.getPopulationExcessKurtosis(), windowed.getPopulationExcessKurtosis(), eps);
+    }
+
+    /**
+     * Test the CountWindowedTally.
+     */
+    @Test
+    public void testCountWindow()
+    {
+        CountWindowedTally cwt = new CountWindowedTally("last 100", 100, 10);
+        assertEquals("last 100", cwt.getDescription());
+        cwt.setDescription("window");
+        assertEquals("window", cwt.getDescription());
+        assertEquals(100, cwt.getWindowSize());
+        assertEquals(10, cwt.getBucketCount());
+        assertEquals(0, cwt.getN());
+        assertTrue(Double.isNaN(cwt.getMin()));
+        assertTrue(Double.isNaN(cwt.getMax()));
+        assertTrue(Double.isNaN(cwt.getSampleMean()));
+        assertTrue(Double.isNaN(cwt.getPopulationVariance()));
+        assertTrue(Double.isNaN(cwt.getSampleVariance()));
+        assertTrue(Double.isNaN(cwt.getPopulationSkewness()));
+        assertTrue(Double.isNaN(cwt.getSampleKurtosis()));
+        assertEquals(0.0, cwt.getSum());
+        assertTrue(cwt.reportLine().contains("window"));
+
+        Random random = new Random(2468);
+        double[] values = new double[1000];
+        for (int i = 0; i < values.length; i++)
+        {
+            values[i] = random.nextDouble() * 10 + (i / 100) * 20;
+            cwt.register(values[i]);
+            // the window holds the values of the complete buckets plus the current, partially filled, bucket
+            int windowStart = Math.max(0, (i / 10 - 9) * 10);
+            Tally expected = new Tally("expected");
+            for (int j = windowStart; j <= i; j++)
+            {
+                expected.register(values[j]);
+            }
+            if (i % 7 == 0 || i < 15)
+            {
+                assertSameStatistics(expected, cwt);
+            }
+        }
+        assertEquals(1000, cwt.getTotalN());
+        TallySnapshot snapshot = cwt.snapshot();
+        assertEquals(cwt.getN(), snapshot.n());
+        assertEquals(cwt.getSum(), snapshot.sum(), 1E-9);
+        assertEquals(cwt.getSampleMean(), snapshot.getSampleMean(), 1E-12);
+        assertEquals(cwt.getSampleStDev(), snapshot.getSampleStDev(), 1E-12);
+        assertEquals(cwt.getSampleKurtosis(), snapshot.getSampleKurtosis(), 1E-9);
+        assertEquals(cwt.getMin(), snapshot.min());
+        assertEquals(cwt.getMax(), snapshot.max());
+        assertTrue(cwt.toString().contains("totalN=1000"));
+        assertTrue(cwt.reportLine().contains("   100 |"));
+
+        cwt.initialize();
+        assertEquals(0, cwt.getN());
+        assertEquals(0, cwt.snapshot().n());
+        assertTrue(Double.isNaN(cwt.snapshot().getSampleMean()));
+        assertEquals(0, cwt.getTotalN());
+        cwt.register(1.0, 2.0, 3.0);
+        assertEquals(2.0, cwt.getSampleMean(), 1E-12);
+        assertEquals(1.0, cwt.getSampleVariance(), 1E-12);
+
+        UnitTest.testFail(() -> new CountWindowedTally(null, 100, 10), NullPointerException.class);
+        UnitTest.testFail(() -> new CountWindowedTally("x", 100, 0), IllegalArgumentException.class);
+        UnitTest.testFail(() -> new CountWindowedTally("x", 105, 10), IllegalArgumentException.class);
+        UnitTest.testFail(() -> new CountWindowedTally("x", 5, 10), IllegalArgumentException.class);
+        UnitTest.testFail(() -> cwt.register(Double.NaN), IllegalArgumentException.class);
+    }
+
+    /**
+     * Test the TimeWindowedTally with a controlled clock.
+     */
+    @Test
+    public void testTimeWindow()
+    {
+        double[] time = new double[] {0.0};
+        TimeWindowedTally twt = new TimeWindowedTally("last minute", 60.0, 6, () -> time[0]);
+        assertEquals(60.0, twt.getWindowLength(), 1E-12);
+        assertEquals(6, twt.getBucketCount());
+        assertEquals(0, twt.getN());
+
+        // one observation per second, with value equal to the time
+        for (int t = 0; t < 100; t++)
+        {
+            time[0] = t + 0.5;
+            twt.register(t + 0.5);
+        }
+        // at time 99.5, the buckets [40, 50) to [90, 100) are in the window
+        Tally expected = new Tally("expected");
+        for (int t = 40; t < 100; t++)
+        {
+            expected.register(t + 0.5);
+        }
+        assertSameStatistics(expected, twt);
+
+        // the window moves on without new observations
+        time[0] = 125.0;
+        expected.initialize();
+        for (int t = 70; t < 100; t++)
+        {
+            expected.register(t + 0.5);
+        }
+        assertSameStatistics(expected, twt);
+        // a clock that goes back in time stands still
+        time[0] = 110.0;
+        twt.register(110.0);
+        expected.register(110.0);
+        assertSameStatistics(expected, twt);
+        time[0] = 1000.0;
+        assertEquals(0, twt.getN());
+        assertTrue(Double.isNaN(twt.getSampleMean()));
+        twt.register(-4.0);
+        assertEquals(1, twt.getN());
+        assertEquals(-4.0, twt.getMin());
+        assertTrue(twt.toString().startsWith("TimeWindowedTally"));
+
+        twt.initialize();
+        assertEquals(0, twt.getN());
+        time[0] = Double.NaN;
+        UnitTest.testFail(() -> twt.register(1.0), IllegalStateException.class);
+
+        TimeWindowedTally wallClock = new TimeWindowedTally("wall clock", 3600.0, 60);
+        wallClock.register(1.0, 3.0);
+        assertEquals(2.0, wallClock.getSampleMean(), 1E-12);
+
+        UnitTest.testFail(() -> new TimeWindowedTally("x", 0.0, 10), IllegalArgumentException.class);
+        UnitTest.testFail(() -> new TimeWindowedTally("x", Double.POSITIVE_INFINITY, 10), IllegalArgumentException.class);
+        UnitTest.testFail(() -> new TimeWindowedTally("x", 10.0, 0), IllegalArgumentException.class);
+        UnitTest.testFail(() -> new TimeWindowedTally("x", 10.0, 10, null), NullPointerException.class);
+    }
+
+}
@@ -0,0 +1,245 @@
+package org.djutils.stats.summarizers.event;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Calendar;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.djutils.event.Event;
+import org.djutils.event.EventListener;
+import org.djutils.event.TimedEvent;
+import org.djutils.test.UnitTest;
+import org.junit.jupiter.api.Test;
+
+/**
+ * PublicationPolicyTest tests the publication policies of the event based statistics. <br>
+ * <br>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>. <br>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://www.tudelft.nl/pknoppers">Peter Knoppers</a>
+ */
+public class PublicationPolicyTest
+{
+    /** Test the construction of the policies. */
+    @Test
+    public void testPolicy()
+    {
+        assertEquals(1, PublicationPolicy.EVERY_OBSERVATION.getObservations());
+        assertEquals(0L, PublicationPolicy.EVERY_OBSERVATION.getMinimumIntervalMillis());
+        assertFalse(PublicationPolicy.EVERY_OBSERVATION.isOnDemand());
+        assertTrue(PublicationPolicy.ON_DEMAND.isOnDemand());
+        assertEquals(PublicationPolicy.EVERY_OBSERVATION, PublicationPolicy.everyObservations(1));
+        assertEquals(PublicationPolicy.EVERY_OBSERVATION, PublicationPolicy.atMostEveryMillis(0));
+        PublicationPolicy policy = PublicationPolicy.of(10, 100L);
+        assertEquals(10, policy.getObservations());
+        assertEquals(100L, policy.getMinimumIntervalMillis());
+        assertEquals(policy, PublicationPolicy.of(10, 100L));
+        assertEquals(policy.hashCode(), PublicationPolicy.of(10, 100L).hashCode());
+        assertNotEquals(policy, PublicationPolicy.of(10, 101L));
+        assertNotEquals(policy, PublicationPolicy.everyObservations(10));
+        assertNotEquals(policy, null);
+        assertNotEquals(policy, "policy");
+        assertTrue(policy.toString().contains("observations=10"));
+        UnitTest.testFail(() -> PublicationPolicy.everyObservations(0), IllegalArgumentException.class);
+        UnitTest.testFail(() -> PublicationPolicy.atMostEveryMillis(-1), IllegalArgumentException.class);
+    }
+
+    /** Test the publication of the EventBasedTally. */
+    @Test
+    public void testTally()
+    {
+        EventBasedTally tally = new EventBasedTally("tally");
+        assertEquals(PublicationPolicy.EVERY_OBSERVATION, tally.getPublicationPolicy());
+        LoggingEventListener observations = new LoggingEventListener();
+        LoggingEventListener means = new LoggingEventListener();
+        LoggingEventListener snapshots = new LoggingEventListener();
+        tally.addListener(observations, StatisticsEvents.OBSERVATION_ADDED_EVENT);
+        tally.addListener(means, StatisticsEvents.POPULATION_MEAN_EVENT);
+        tally.addListener(snapshots, StatisticsEvents.TALLY_SNAPSHOT_EVENT);
+        tally.register(1.0);
+        assertEquals(1, means.getNumberOfEvents());
+        assertEquals(1, snapshots.getNumberOfEvents());
+
+        tally.setPublicationPolicy(PublicationPolicy.everyObservations(10));
+        for (int i = 2; i <= 25; i++)
+        {
+            tally.register(i);
+        }
+        assertEquals(25, observations.getNumberOfEvents(), "observations are not throttled");
+        assertEquals(3, means.getNumberOfEvents());
+        assertEquals(3, snapshots.getNumberOfEvents());
+        Object[] snapshot = (Object[]) snapshots.getLastEvent().getContent();
+        assertEquals(16, snapshot.length);
+        // the policy counts the observations since the last publication, at observation 1
+        assertEquals(21L, snapshot[0]);
+        assertEquals(1.0, snapshot[1]);
+        assertEquals(21.0, snapshot[2]);
+        assertEquals(11.0, snapshot[3]);
+        assertEquals(231.0, snapshot[9]);
+
+        tally.setPublicationPolicy(PublicationPolicy.ON_DEMAND);
+        for (int i = 26; i <= 100; i++)
+        {
+            tally.register(i);
+        }
+        assertEquals(3, snapshots.getNumberOfEvents());
+        tally.publish();
+        assertEquals(4, snapshots.getNumberOfEvents());
+        assertEquals(4, means.getNumberOfEvents());
+        assertEquals(100L, ((Object[]) snapshots.getLastEvent().getContent())[0]);
+        assertEquals(50.5, (double) means.getLastEvent().getContent(), 1E-12);
+
+        // a long minimum interval publishes the first observation after the interval only
+        tally.setPublicationPolicy(PublicationPolicy.atMostEveryMillis(1_000_000L));
+        tally.register(101.0);
+        tally.register(102.0);
+        assertEquals(4, snapshots.getNumberOfEvents());
+        tally.setPublicationPolicy(PublicationPolicy.atMostEveryMillis(1L));
+        try
+        {
+            Thread.sleep(5);
+        }
+        catch (InterruptedException exception)
+        {
+            // Ignore
+        }
+        tally.register(103.0);
+        assertEquals(5, snapshots.getNumberOfEvents());
+        tally.register(104.0);
+        assertTrue(snapshots.getNumberOfEvents() <= 6);
+        UnitTest.testFail(() -> tally.setPublicationPolicy(null), NullPointerException.class);
+    }
+
+    /** Test the publication of the EventBasedWeightedTally. */
+    @Test
+    public void testWeightedTally()
+    {
+        EventBasedWeightedTally tally = new EventBasedWeightedTally("weighted");
+        LoggingEventListener snapshots = new LoggingEventListener();
+        tally.addListener(snapshots, StatisticsEvents.WEIGHTED_TALLY_SNAPSHOT_EVENT);
+        tally.setPublicationPolicy(PublicationPolicy.everyObservations(2));
+        assertEquals(2, tally.getPublicationPolicy().getObservations());
+        tally.register(1.0, 10.0);
+        assertNull(snapshots.getLastEvent());
+        tally.register(3.0, 20.0);
+        Object[] snapshot = (Object[]) snapshots.getLastEvent().getContent();
+        assertEquals(10, snapshot.length);
+        assertEquals(2L, snapshot[0]);
+        assertEquals(17.5, (double) snapshot[3], 1E-12);
+        assertEquals(70.0, (double) snapshot[6], 1E-12);
+        tally.register(1.0, 30.0);
+        tally.publish();
+        assertEquals(2, snapshots.getNumberOfEvents());
+        assertEquals(3L, ((Object[]) snapshots.getLastEvent().getContent())[0]);
+    }
+
+    /** Test the publication of the EventBasedTimestampWeightedTally. */
+    @Test
+    public void testTimestampWeightedTally()
+    {
+        EventBasedTimestampWeightedTally tally = new EventBasedTimestampWeightedTally("timestamped");
+        LoggingEventListener snapshots = new LoggingEventListener();
+        LoggingEventListener timedMeans = new LoggingEventListener();
+        tally.addListener(snapshots, StatisticsEvents.TIMED_WEIGHTED_TALLY_SNAPSHOT_EVENT);
+        tally.addListener(timedMeans, StatisticsEvents.TIMED_WEIGHTED_POPULATION_MEAN_EVENT);
+        tally.setPublicationPolicy(PublicationPolicy.ON_DEMAND);
+        assertTrue(tally.getPublicationPolicy().isOnDemand());
+        tally.publish();
+        assertNull(snapshots.getLastEvent(), "nothing to publish without observations");
+        tally.register(0.0, 2.0);
+        tally.register(1.0, 4.0);
+        tally.register(3.0, 0.0);
+        assertNull(snapshots.getLastEvent());
+        tally.publish();
+        assertEquals(1, snapshots.getNumberOfEvents());
+        assertEquals(1, timedMeans.getNumberOfEvents());
+        TimedEvent<?> event = (TimedEvent<?>) snapshots.getLastEvent();
+        assertEquals(3.0, event.getTimeStamp());
+        Object[] snapshot = (Object[]) event.getContent();
+        assertEquals(10, snapshot.length);
+        assertEquals(10.0 / 3.0, (double) snapshot[3], 1E-12);
+
+        tally.setPublicationPolicy(PublicationPolicy.EVERY_OBSERVATION);
+        Calendar calendar = Calendar.getInstance();
+        EventBasedTimestampWeightedTally calendarTally = new EventBasedTimestampWeightedTally("calendar");
+        calendarTally.addListener(snapshots, StatisticsEvents.TIMED_WEIGHTED_TALLY_SNAPSHOT_EVENT);
+        calendarTally.register(calendar, 1.0);
+        assertEquals(2, snapshots.getNumberOfEvents());
+        assertEquals(calendar, ((TimedEvent<?>) snapshots.getLastEvent()).getTimeStamp());
+        calendarTally.initialize();
+        calendarTally.publish();
+        assertEquals(2, snapshots.getNumberOfEvents());
+    }
+
+    /** Test the publication of the EventBasedCounter. */
+    @Test
+    public void testCounter()
+    {
+        EventBasedCounter counter = new EventBasedCounter("counter");
+        LoggingEventListener snapshots = new LoggingEventListener();
+        LoggingEventListener counts = new LoggingEventListener();
+        counter.addListener(snapshots, StatisticsEvents.COUNTER_SNAPSHOT_EVENT);
+        counter.addListener(counts, StatisticsEvents.COUNT_EVENT);
+        counter.setPublicationPolicy(PublicationPolicy.everyObservations(5));
+        assertEquals(5, counter.getPublicationPolicy().getObservations());
+        for (int i = 0; i < 12; i++)
+        {
+            counter.register(2);
+        }
+        assertEquals(2, snapshots.getNumberOfEvents());
+        assertEquals(2, counts.getNumberOfEvents());
+        assertEquals(10L, ((Object[]) snapshots.getLastEvent().getContent())[0]);
+        assertEquals(20L, ((Object[]) snapshots.getLastEvent().getContent())[1]);
+        counter.publish();
+        assertEquals(24L, ((Object[]) snapshots.getLastEvent().getContent())[1]);
+    }
+
+    /**
+     * Observations that are registered concurrently are counted exactly once by the publication policy.
+     * @throws InterruptedException when that happens uncaught this test has failed
+     */
+    @Test
+    public void testConcurrentObservations() throws InterruptedException
+    {
+        EventBasedCounter counter = new EventBasedCounter("concurrent");
+        AtomicInteger publications = new AtomicInteger();
+        counter.addListener(new EventListener()
+        {
+            /** */
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public void notify(final Event event)
+            {
+                publications.incrementAndGet();
+            }
+        }, StatisticsEvents.COUNT_EVENT);
+        counter.setPublicationPolicy(PublicationPolicy.everyObservations(10));
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++)
+        {
+            threads[t] = new Thread(() ->
+            {
+                for (int i = 0; i < 25000; i++)
+                {
+                    counter.register(1);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+        assertEquals(100000L, counter.getN());
+        assertEquals(10000, publications.get(), "every tenth observation is published once");
+    }
+
+}
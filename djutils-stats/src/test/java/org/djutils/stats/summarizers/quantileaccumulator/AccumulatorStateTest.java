@@ -0,0 +1,160 @@
+package org.djutils.stats.summarizers.quantileaccumulator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.djutils.stats.summarizers.Tally;
+import org.djutils.test.UnitTest;
+import org.junit.jupiter.api.Test;
+
+/**
+ * AccumulatorStateTest tests storing the state of the quantile accumulators in binary form, and restoring them from that state.
+ * <br>
+ * <br>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>. <br>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://www.tudelft.nl/pknoppers">Peter Knoppers</a>
+ */
+public class AccumulatorStateTest
+{
+    /**
+     * Return normally distributed values.
+     * @param seed the seed of the random stream
+     * @param n the number of values
+     * @return normally distributed values around 50 with a standard deviation of 15
+     */
+    private static double[] values(final long seed, final int n)
+    {
+        Random random = new Random(seed);
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++)
+        {
+            values[i] = random.nextGaussian() * 15.0 + 50.0;
+        }
+        return values;
+    }
+
+    /**
+     * Assert that two accumulators give the same quantiles and cumulative probabilities.
+     * @param expected the stored accumulator
+     * @param actual the restored accumulator
+     * @param tally the tally to pass to the accumulators
+     */
+    private static void assertSameResults(final QuantileAccumulator expected, final QuantileAccumulator actual,
+            final Tally tally)
+    {
+        for (double p = 0.0; p <= 1.0; p += 0.01)
+        {
+            assertEquals(expected.getQuantile(tally, p), actual.getQuantile(tally, p), 0.0, "quantile " + p);
+            assertEquals(expected.getCumulativeProbability(tally, p * 100), actual.getCumulativeProbability(tally, p * 100), 0.0,
+                    "cdf " + p * 100);
+        }
+    }
+
+    /** The fixed bins accumulators restore exactly, and can restore each other's state. */
+    @Test
+    public void testFixedBins()
+    {
+        FixedBinsAccumulator fba = new FixedBinsAccumulator(0.0, 0.5, 200);
+        ConcurrentFixedBinsAccumulator cfba = new ConcurrentFixedBinsAccumulator(0.0, 0.5, 200, 4);
+        for (double value : values(1, 10000))
+        {
+            fba.register(value);
+            cfba.register(value);
+        }
+        byte[] state = fba.toByteArray();
+        assertTrue(state.length < 200 * 3, "counts are stored as variable length integers");
+        assertArrayEquals(state, cfba.toByteArray(), "both accumulators have the same form of state");
+        FixedBinsAccumulator restored = FixedBinsAccumulator.fromByteArray(state);
+        assertEquals(fba.getN(), restored.getN());
+        assertEquals(fba.getBelowCount(), restored.getBelowCount());
+        assertEquals(fba.getAboveCount(), restored.getAboveCount());
+        assertSameResults(fba, restored, null);
+        ConcurrentFixedBinsAccumulator concurrentRestored = ConcurrentFixedBinsAccumulator.fromByteArray(state);
+        assertEquals(cfba.getN(), concurrentRestored.getN());
+        assertSameResults(cfba, concurrentRestored, null);
+        assertArrayEquals(state, ConcurrentFixedBinsAccumulator.fromByteArray(state, 2).toByteArray());
+        restored.register(10.0);
+        concurrentRestored.register(10.0);
+        assertArrayEquals(restored.toByteArray(), concurrentRestored.toByteArray());
+
+        UnitTest.testFail(() -> FixedBinsAccumulator.fromByteArray(null), NullPointerException.class);
+        UnitTest.testFail(() -> ConcurrentFixedBinsAccumulator.fromByteArray(null), NullPointerException.class);
+        UnitTest.testFail(() -> FixedBinsAccumulator.fromByteArray(Arrays.copyOf(state, state.length - 1)),
+                IllegalArgumentException.class);
+        UnitTest.testFail(() -> ConcurrentFixedBinsAccumulator.fromByteArray(Arrays.copyOf(state, state.length + 1)),
+                IllegalArgumentException.class);
+        byte[] badVersion = state.clone();
+        badVersion[0] = 9;
+        UnitTest.testFail(() -> FixedBinsAccumulator.fromByteArray(badVersion), IllegalArgumentException.class);
+        UnitTest.testFail(() -> ConcurrentFixedBinsAccumulator.fromByteArray(badVersion), IllegalArgumentException.class);
+    }
+
+    /** The full storage, t-digest and exponential decay accumulators restore exactly. */
+    @Test
+    public void testOtherAccumulators()
+    {
+        Tally tally = new Tally("tally");
+        FullStorageAccumulator fsa = new FullStorageAccumulator();
+        TDigestAccumulator tda = new TDigestAccumulator(50);
+        ExponentialDecayAccumulator eda = new ExponentialDecayAccumulator(0.0, 1.0, 100, 500.0);
+        double[] clock = new double[] {0.0};
+        ExponentialDecayAccumulator timed = new ExponentialDecayAccumulator(0.0, 1.0, 100, 20.0, () -> clock[0]);
+        for (double value : values(2, 5000))
+        {
+            tally.register(value);
+            fsa.register(value);
+            tda.register(value);
+            eda.register(value);
+            clock[0] += 0.01;
+            timed.register(value);
+        }
+        byte[] fsaState = fsa.toByteArray();
+        FullStorageAccumulator fsaRestored = FullStorageAccumulator.fromByteArray(fsaState);
+        assertEquals(5 + 8 * 5000, fsaState.length);
+        assertSameResults(fsa, fsaRestored, tally);
+        assertArrayEquals(fsaState, FullStorageAccumulator.fromByteArray(fsaState).toByteArray());
+
+        byte[] tdaState = tda.toByteArray();
+        TDigestAccumulator tdaRestored = TDigestAccumulator.fromByteArray(tdaState);
+        assertTrue(tdaState.length < 5000, "the t-digest is compact");
+        assertSameResults(tda, tdaRestored, tally);
+        assertTrue(tdaRestored.toString().contains("compression=50"));
+
+        ExponentialDecayAccumulator edaRestored = ExponentialDecayAccumulator.fromByteArray(eda.toByteArray(), null);
+        assertEquals(eda.getN(), edaRestored.getN());
+        assertEquals(eda.getHalfLife(), edaRestored.getHalfLife());
+        assertSameResults(eda, edaRestored, null);
+        ExponentialDecayAccumulator timedRestored = ExponentialDecayAccumulator.fromByteArray(timed.toByteArray(), () -> clock[0]);
+        assertSameResults(timed, timedRestored, null);
+        clock[0] += 10.0;
+        eda.register(90.0);
+        edaRestored.register(90.0);
+        timed.register(90.0);
+        timedRestored.register(90.0);
+        assertArrayEquals(eda.toByteArray(), edaRestored.toByteArray(), "the restored accumulator continues exactly");
+        assertArrayEquals(timed.toByteArray(), timedRestored.toByteArray(), "the restored accumulator continues exactly");
+
+        UnitTest.testFail(() -> FullStorageAccumulator.fromByteArray(null), NullPointerException.class);
+        UnitTest.testFail(() -> FullStorageAccumulator.fromByteArray(Arrays.copyOf(fsaState, 20)),
+                IllegalArgumentException.class);
+        UnitTest.testFail(() -> TDigestAccumulator.fromByteArray(null), NullPointerException.class);
+        UnitTest.testFail(() -> TDigestAccumulator.fromByteArray(Arrays.copyOf(tdaState, tdaState.length + 1)),
+                IllegalArgumentException.class);
+        UnitTest.testFail(() -> ExponentialDecayAccumulator.fromByteArray(null, null), NullPointerException.class);
+        UnitTest.testFail(() -> ExponentialDecayAccumulator.fromByteArray(eda.toByteArray(), () -> 0.0),
+                IllegalArgumentException.class);
+        UnitTest.testFail(() -> ExponentialDecayAccumulator.fromByteArray(timed.toByteArray(), null),
+                IllegalArgumentException.class);
+        UnitTest.testFail(() -> ExponentialDecayAccumulator.fromByteArray(Arrays.copyOf(eda.toByteArray(), 70), null),
+                IllegalArgumentException.class);
+    }
+
+}
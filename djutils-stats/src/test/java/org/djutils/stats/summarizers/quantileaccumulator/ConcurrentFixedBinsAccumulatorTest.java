@@ -0,0 +1,125 @@
+package org.djutils.stats.summarizers.quantileaccumulator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.djutils.test.UnitTest;
+import org.junit.jupiter.api.Test;
+
+/**
+ * ConcurrentFixedBinsAccumulatorTest.java. <br>
+ * <br>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>. <br>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://www.tudelft.nl/pknoppers">Peter Knoppers</a>
+ */
+public class ConcurrentFixedBinsAccumulatorTest
+{
+    /**
+     * Values that are registered by several threads give the same results as the same values in a FixedBinsAccumulator.
+     * @throws InterruptedException when that happens uncaught this test has failed
+     */
+    @Test
+    public void testConcurrentRegistration() throws InterruptedException
+    {
+        int threadCount = 8;
+        int perThread = 20000;
+        ConcurrentFixedBinsAccumulator cfba = new ConcurrentFixedBinsAccumulator(0.0, 0.5, 400, 5);
+        assertEquals(8, cfba.getStripeCount(), "stripes are rounded up to a power of two");
+        assertEquals(400, cfba.getBinCount());
+        assertEquals(0.5, cfba.getBinWidth());
+        assertEquals(10.0, cfba.getBinCenter(20));
+        assertTrue(Double.isNaN(cfba.getQuantile(null, 0.5)), "quantile cannot be computed yet");
+        assertTrue(Double.isNaN(cfba.getCumulativeProbability(null, 0.5)), "probability cannot be computed yet");
+        FixedBinsAccumulator fba = new FixedBinsAccumulator(0.0, 0.5, 400);
+        double[][] values = new double[threadCount][perThread];
+        Random random = new Random(13579);
+        for (int t = 0; t < threadCount; t++)
+        {
+            for (int i = 0; i < perThread; i++)
+            {
+                values[t][i] = random.nextGaussian() * 40 + 100;
+            }
+            fba.register(values[t]);
+        }
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++)
+        {
+            double[] threadValues = values[t];
+            Thread thread = new Thread(() ->
+            {
+                for (int i = 0; i < threadValues.length; i += 2)
+                {
+                    cfba.register(threadValues[i]);
+                }
+                cfba.register(Arrays.copyOfRange(threadValues, 1, threadValues.length));
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+        // the bulk registration above registered every other value twice; compensate in the reference accumulator
+        for (int t = 0; t < threadCount; t++)
+        {
+            for (int i = 2; i < perThread; i += 2)
+            {
+                fba.register(values[t][i]);
+            }
+        }
+        assertEquals(fba.getN(), cfba.getN());
+        assertEquals(fba.getBelowCount(), cfba.getBelowCount());
+        assertEquals(fba.getAboveCount(), cfba.getAboveCount());
+        for (double p = 0.0; p <= 1.0; p += 0.01)
+        {
+            assertEquals(fba.getQuantile(null, p), cfba.getQuantile(null, p), 0.0, "quantile " + p);
+            assertEquals(fba.getCumulativeProbability(null, p * 200), cfba.getCumulativeProbability(null, p * 200), 1E-12);
+        }
+        assertEquals(0.0, cfba.getCumulativeProbability(null, -10.0));
+        assertEquals(1.0, cfba.getCumulativeProbability(null, 1000.0));
+        assertTrue(cfba.toString().startsWith("ConcurrentFixedBinsAccumulator "));
+
+        cfba.initialize();
+        assertEquals(0, cfba.getN());
+        assertEquals(0, cfba.getBelowCount());
+        assertTrue(Double.isNaN(cfba.getQuantile(null, 0.5)));
+        cfba.register(7.0);
+        assertEquals(7.0, cfba.getQuantile(null, 0.5));
+        assertEquals(1, new ConcurrentFixedBinsAccumulator(0.0, 1.0, 10, 1).getStripeCount());
+        assertTrue(new ConcurrentFixedBinsAccumulator(0.0, 1.0, 10).getStripeCount() >= 1);
+    }
+
+    /**
+     * Test the exceptions.
+     */
+    @Test
+    public void testErrors()
+    {
+        UnitTest.testFail(() -> new ConcurrentFixedBinsAccumulator(Double.NaN, 1.0, 10), IllegalArgumentException.class);
+        UnitTest.testFail(() -> new ConcurrentFixedBinsAccumulator(0.0, Double.POSITIVE_INFINITY, 10),
+                IllegalArgumentException.class);
+        UnitTest.testFail(() -> new ConcurrentFixedBinsAccumulator(0.0, 0.0, 10), IllegalArgumentException.class);
+        UnitTest.testFail(() -> new ConcurrentFixedBinsAccumulator(0.0, 1.0, 0), IllegalArgumentException.class);
+        UnitTest.testFail(() -> new ConcurrentFixedBinsAccumulator(0.0, 1.0, 10, 0), IllegalArgumentException.class);
+        ConcurrentFixedBinsAccumulator cfba = new ConcurrentFixedBinsAccumulator(0.0, 1.0, 10);
+        UnitTest.testFail(() -> cfba.getBinCenter(-1), IllegalArgumentException.class);
+        UnitTest.testFail(() -> cfba.getBinCenter(10), IllegalArgumentException.class);
+        UnitTest.testFail(() -> cfba.register(Double.NaN), IllegalArgumentException.class);
+        UnitTest.testFail(() -> cfba.register(new double[] {1.0, Double.NaN}), IllegalArgumentException.class);
+        assertEquals(0, cfba.getN(), "no values were registered");
+        UnitTest.testFail(() -> cfba.getQuantile(null, -0.1), IllegalArgumentException.class);
+        UnitTest.testFail(() -> cfba.getQuantile(null, Double.NaN), IllegalArgumentException.class);
+        UnitTest.testFail(() -> cfba.getCumulativeProbability(null, Double.NaN), IllegalArgumentException.class);
+    }
+
+}
@@ -0,0 +1,109 @@
+package org.djutils.stats.summarizers.quantileaccumulator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.djutils.stats.summarizers.Tally;
+import org.djutils.test.UnitTest;
+import org.junit.jupiter.api.Test;
+
+/**
+ * ExponentialDecayAccumulatorTest.java. <br>
+ * <br>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>. <br>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://www.tudelft.nl/pknoppers">Peter Knoppers</a>
+ */
+public class ExponentialDecayAccumulatorTest
+{
+    /**
+     * The quantiles follow the recent values.
+     */
+    @Test
+    public void testDecay()
+    {
+        ExponentialDecayAccumulator eda = new ExponentialDecayAccumulator(0.0, 1.0, 100, 50.0);
+        assertEquals(1.0, eda.getBinWidth());
+        assertEquals(100, eda.getBinCount());
+        assertEquals(50.0, eda.getHalfLife());
+        assertEquals(17.0, eda.getBinCenter(17));
+        assertTrue(Double.isNaN(eda.getQuantile(null, 0.5)), "quantile cannot be computed yet");
+        assertTrue(Double.isNaN(eda.getCumulativeProbability(null, 0.5)), "probability cannot be computed yet");
+        Tally tally = new Tally("decaying quantiles", eda);
+        for (int i = 0; i < 1000; i++)
+        {
+            tally.register(20.0);
+        }
+        assertEquals(20.0, tally.getQuantile(0.5));
+        // after one half-life of a new level, half of the weight is at the new level
+        for (int i = 0; i < 50; i++)
+        {
+            tally.register(80.0);
+        }
+        assertEquals(0.5, eda.getCumulativeProbability(null, 50.0), 0.01);
+        assertEquals(20.0, tally.getQuantile(0.45));
+        assertEquals(80.0, tally.getQuantile(0.55));
+        // after ten half-lives, the old level has (almost) disappeared; this also scales down the weights
+        for (int i = 0; i < 10000; i++)
+        {
+            tally.register(80.0);
+        }
+        assertEquals(80.0, tally.getQuantile(0.001));
+        assertEquals(20.0, tally.getQuantile(0.0), "the old level keeps a tiny weight");
+        assertEquals(80.0, tally.getQuantile(1.0));
+        assertEquals(11050, eda.getN());
+        assertEquals(0.0, eda.getCumulativeProbability(null, 79.5), 1E-12);
+        assertEquals(0.5, eda.getCumulativeProbability(null, 80.0), 1E-12);
+        assertEquals(1.0, eda.getCumulativeProbability(null, 80.5), 1E-12);
+        assertEquals(1.0, eda.getCumulativeProbability(null, 500.0));
+        assertTrue(eda.toString().contains("totalCount=11050"));
+
+        // values below and above the range count for the cumulative probability, but not for the quantiles
+        tally.register(-1000.0);
+        assertTrue(eda.getCumulativeProbability(null, -10.0) > 0.0);
+        assertEquals(20.0, tally.getQuantile(0.0));
+        tally.register(1000.0);
+        assertTrue(eda.getCumulativeProbability(null, 90.0) < 1.0);
+
+        eda.initialize();
+        assertEquals(0, eda.getN());
+        assertTrue(Double.isNaN(eda.getQuantile(null, 0.5)));
+
+        UnitTest.testFail(() -> new ExponentialDecayAccumulator(Double.NaN, 1.0, 10, 1.0), IllegalArgumentException.class);
+        UnitTest.testFail(() -> new ExponentialDecayAccumulator(0.0, Double.NaN, 10, 1.0), IllegalArgumentException.class);
+        UnitTest.testFail(() -> new ExponentialDecayAccumulator(0.0, -1.0, 10, 1.0), IllegalArgumentException.class);
+        UnitTest.testFail(() -> new ExponentialDecayAccumulator(0.0, 1.0, 0, 1.0), IllegalArgumentException.class);
+        UnitTest.testFail(() -> new ExponentialDecayAccumulator(0.0, 1.0, 10, 0.0), IllegalArgumentException.class);
+        UnitTest.testFail(() -> eda.register(Double.NaN), IllegalArgumentException.class);
+        UnitTest.testFail(() -> eda.getQuantile(null, 1.1), IllegalArgumentException.class);
+        UnitTest.testFail(() -> eda.getCumulativeProbability(null, Double.NaN), IllegalArgumentException.class);
+        UnitTest.testFail(() -> eda.getBinCenter(10000), IllegalArgumentException.class);
+    }
+
+    /**
+     * The weights decay with the time of a clock.
+     */
+    @Test
+    public void testClock()
+    {
+        double[] time = new double[] {0.0};
+        ExponentialDecayAccumulator eda = new ExponentialDecayAccumulator(0.0, 1.0, 10, 1.0, () -> time[0]);
+        eda.register(2.0);
+        eda.register(2.0);
+        eda.register(2.0);
+        time[0] = 2.0;
+        // one new value weighs 4 times as much as an old value
+        eda.register(7.0);
+        assertEquals(3.0 / 7.0, eda.getCumulativeProbability(null, 2.5), 1E-12);
+        assertEquals(7.0, eda.getQuantile(null, 0.5));
+        time[0] = 1000.0;
+        eda.register(5.0);
+        assertEquals(5.0, eda.getQuantile(null, 0.01));
+        time[0] = Double.NaN;
+        UnitTest.testFail(() -> eda.register(1.0), IllegalStateException.class);
+    }
+
+}
@@ -4,6 +4,9 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.util.Arrays;
+import java.util.Random;
+
 import org.junit.jupiter.api.Test;
 
 /**
@@ -229,4 +232,78 @@ public class FixedBinsAccumulatorTest
         assertTrue(fba.toString().startsWith("FixedBinsAccumulator "), "toString returns something descriptive");
     }
 
+    /**
+     * Test that the quantiles and cumulative probabilities of the binary indexed tree match those of a plain cumulative count,
+     * when queries are interleaved with registrations, and when values are registered in bulk.
+     */
+    @Test
+    public void testCumulativeIndex()
+    {
+        Random random = new Random(2468);
+        int binCount = 1000;
+        FixedBinsAccumulator fba = new FixedBinsAccumulator(0.0, 0.1, binCount);
+        FixedBinsAccumulator bulk = new FixedBinsAccumulator(0.0, 0.1, binCount);
+        long[] counts = new long[binCount];
+        double[] values = new double[5000];
+        for (int i = 0; i < values.length; i++)
+        {
+            values[i] = random.nextGaussian() * 20 + 50;
+            fba.register(values[i]);
+            int bin = (int) Math.rint(values[i] / 0.1);
+            if (bin >= 0 && bin < binCount)
+            {
+                counts[bin]++;
+            }
+            if (i % 100 == 99)
+            {
+                long usable = i + 1 - fba.getBelowCount() - fba.getAboveCount();
+                for (double p : new double[] {0.0, 0.01, 0.5, 0.9, 0.99, 1.0})
+                {
+                    long cumulative = 0;
+                    int expected = 0;
+                    while (cumulative + counts[expected] < usable * p)
+                    {
+                        cumulative += counts[expected++];
+                    }
+                    assertEquals(expected * 0.1, fba.getQuantile(null, p), 1E-9, "quantile " + p + " after " + (i + 1));
+                }
+                double quantile = random.nextDouble() * 99;
+                int bin2 = (int) Math.rint(quantile / 0.1);
+                long cumulative = 0;
+                for (int b = 0; b <= bin2; b++)
+                {
+                    cumulative += counts[b];
+                }
+                assertEquals((cumulative + (quantile / 0.1 - bin2 - 0.5) * counts[bin2]) / (i + 1),
+                        fba.getCumulativeProbability(null, quantile), 1E-12);
+            }
+        }
+
+        // bulk registration in small batches (tree updates) and large batches (tree rebuild) gives the same result
+        bulk.register(new double[] {values[0], values[1]});
+        bulk.register(Arrays.copyOfRange(values, 2, values.length));
+        assertEquals(fba.getN(), bulk.getN());
+        assertEquals(fba.getBelowCount(), bulk.getBelowCount());
+        assertEquals(fba.getAboveCount(), bulk.getAboveCount());
+        for (double p = 0.0; p <= 1.0; p += 0.01)
+        {
+            assertEquals(fba.getQuantile(null, p), bulk.getQuantile(null, p), 0.0);
+            assertEquals(fba.getCumulativeProbability(null, p * 100), bulk.getCumulativeProbability(null, p * 100), 1E-15);
+        }
+        bulk.register(50.0);
+        fba.register(50.0);
+        assertEquals(fba.getCumulativeProbability(null, 50.0), bulk.getCumulativeProbability(null, 50.0), 1E-15);
+
+        try
+        {
+            bulk.register(new double[] {1.0, Double.NaN});
+            fail("NaN value should have thrown an IllegalArgumentException");
+        }
+        catch (IllegalArgumentException iae)
+        {
+            // Ignore expected exception
+        }
+        assertEquals(fba.getN(), bulk.getN(), "no values were registered");
+    }
+
 }
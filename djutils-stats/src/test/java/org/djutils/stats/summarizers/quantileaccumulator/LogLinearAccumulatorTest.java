@@ -0,0 +1,180 @@
+package org.djutils.stats.summarizers.quantileaccumulator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.djutils.stats.summarizers.Tally;
+import org.djutils.test.UnitTest;
+import org.junit.jupiter.api.Test;
+
+/**
+ * LogLinearAccumulatorTest.java. <br>
+ * <br>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>. <br>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://www.tudelft.nl/pknoppers">Peter Knoppers</a>
+ */
+public class LogLinearAccumulatorTest
+{
+    /**
+     * The quantiles have the configured relative precision over a wide range of values.
+     */
+    @Test
+    public void testQuantiles()
+    {
+        Random random = new Random(1234);
+        int n = 200000;
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++)
+        {
+            // log-uniform between 1 microsecond and 1 hour
+            values[i] = 1E-6 * Math.pow(3.6E9, random.nextDouble());
+        }
+        for (int digits = 1; digits <= 5; digits++)
+        {
+            LogLinearAccumulator lla = new LogLinearAccumulator(digits);
+            assertEquals(digits, lla.getSignificantDigits());
+            assertTrue(Double.isNaN(lla.getQuantile(null, 0.5)), "quantile cannot be computed yet");
+            assertTrue(Double.isNaN(lla.getCumulativeProbability(null, 0.5)), "probability cannot be computed yet");
+            Tally tally = new Tally("latency", lla);
+            for (double value : values)
+            {
+                tally.register(value);
+            }
+            assertEquals(n, lla.getN());
+            double[] sorted = values.clone();
+            Arrays.sort(sorted);
+            for (double p : new double[] {0.01, 0.1, 0.25, 0.5, 0.9, 0.99, 0.999, 0.9999})
+            {
+                double exact = sorted[(int) Math.ceil(p * n) - 1];
+                assertEquals(exact, tally.getQuantile(p), exact * Math.pow(10, -digits), "p" + p + ", " + digits + " digits");
+                double cdf = lla.getCumulativeProbability(null, exact);
+                assertEquals(p, cdf, 2.0 * Math.pow(10, -digits) + 1.0 / n, "cdf at p" + p + ", " + digits + " digits");
+            }
+            assertEquals(sorted[0], tally.getQuantile(0.0), 0.0, "0% quantile is the minimum");
+            assertEquals(sorted[n - 1], tally.getQuantile(1.0), 0.0, "100% quantile is the maximum");
+            assertEquals(0.0, lla.getCumulativeProbability(null, 1E-7));
+            assertEquals(1.0, lla.getCumulativeProbability(null, 3600.0));
+        }
+        LogLinearAccumulator lla = new LogLinearAccumulator(3);
+        for (double value : values)
+        {
+            lla.register(value);
+        }
+        assertTrue(lla.getBucketCount() <= 4 * 32 * 1024, "3 digits over 32 powers of two need 32 * 1024 buckets, plus room");
+    }
+
+    /**
+     * Negative values, zeros and infinite values are ordered correctly.
+     */
+    @Test
+    public void testSigns()
+    {
+        LogLinearAccumulator lla = new LogLinearAccumulator(2);
+        double[] values = new double[] {-1000, -100, -10, -1, 0, 1, 10, 100, 1000, 10000};
+        for (double value : values)
+        {
+            lla.register(value);
+        }
+        for (int i = 0; i < values.length; i++)
+        {
+            double p = (i + 1.0) / values.length;
+            assertEquals(values[i], lla.getQuantile(null, p), Math.abs(values[i]) * 0.01, "p=" + p);
+            // a value is assumed to be spread uniformly over its bucket
+            assertEquals(p, lla.getCumulativeProbability(null, values[i]), 0.101, "cdf at " + values[i]);
+        }
+        assertEquals(0.2, lla.getCumulativeProbability(null, -50), 0.01);
+        assertEquals(0.8, lla.getCumulativeProbability(null, 500), 0.01);
+        lla.register(Double.POSITIVE_INFINITY);
+        lla.register(Double.NEGATIVE_INFINITY);
+        assertEquals(Double.NEGATIVE_INFINITY, lla.getQuantile(null, 0.0));
+        assertEquals(Double.POSITIVE_INFINITY, lla.getQuantile(null, 1.0));
+        assertEquals(-1000, lla.getQuantile(null, 2.0 / 12), 10);
+        assertEquals(10000, lla.getQuantile(null, 11.0 / 12), 100);
+        UnitTest.testFail(() -> lla.register(Double.NaN), IllegalArgumentException.class);
+        UnitTest.testFail(() -> lla.getQuantile(null, -0.01), IllegalArgumentException.class);
+        UnitTest.testFail(() -> lla.getQuantile(null, 1.01), IllegalArgumentException.class);
+        UnitTest.testFail(() -> lla.getQuantile(null, Double.NaN), IllegalArgumentException.class);
+        UnitTest.testFail(() -> lla.getCumulativeProbability(null, Double.NaN), IllegalArgumentException.class);
+        UnitTest.testFail(() -> new LogLinearAccumulator(0), IllegalArgumentException.class);
+        UnitTest.testFail(() -> new LogLinearAccumulator(6), IllegalArgumentException.class);
+    }
+
+    /**
+     * Merging accumulators gives the same state as registering all values in one accumulator, and the state survives a
+     * round trip through a byte array.
+     */
+    @Test
+    public void testMergeAndSnapshot()
+    {
+        Random random = new Random(5678);
+        LogLinearAccumulator all = new LogLinearAccumulator(3);
+        LogLinearAccumulator[] parts = new LogLinearAccumulator[] {new LogLinearAccumulator(3), new LogLinearAccumulator(3),
+                new LogLinearAccumulator(3)};
+        for (int i = 0; i < 30000; i++)
+        {
+            // each part covers a different range, so merging has to grow the buckets in both directions
+            int part = i % 3;
+            double value = (random.nextDouble() - 0.2) * Math.pow(1000, part - 1);
+            all.register(value);
+            parts[part].register(value);
+        }
+        LogLinearAccumulator merged = new LogLinearAccumulator(3);
+        merged.merge(parts[1]);
+        merged.merge(parts[0]);
+        merged.merge(parts[2]);
+        merged.merge(new LogLinearAccumulator(3));
+        assertEquals(all.getN(), merged.getN());
+        assertArrayEquals(all.toByteArray(), merged.toByteArray(), "merge is exact");
+        for (double p = 0.0; p <= 1.0; p += 0.01)
+        {
+            assertEquals(all.getQuantile(null, p), merged.getQuantile(null, p), 0.0);
+        }
+
+        byte[] bytes = all.toByteArray();
+        assertTrue(bytes.length < all.getBucketCount() * 3, "snapshot is compact");
+        LogLinearAccumulator restored = LogLinearAccumulator.fromByteArray(bytes);
+        assertArrayEquals(bytes, restored.toByteArray());
+        assertEquals(all.toString(), restored.toString().replace("bucketCount=" + restored.getBucketCount(),
+                "bucketCount=" + all.getBucketCount()));
+        for (double p = 0.0; p <= 1.0; p += 0.01)
+        {
+            assertEquals(all.getQuantile(null, p), restored.getQuantile(null, p), 0.0);
+            assertEquals(all.getCumulativeProbability(null, p - 0.5), restored.getCumulativeProbability(null, p - 0.5), 0.0);
+        }
+        restored.register(12.0);
+        assertEquals(all.getN() + 1, restored.getN());
+
+        LogLinearAccumulator empty = LogLinearAccumulator.fromByteArray(new LogLinearAccumulator(2).toByteArray());
+        assertEquals(0, empty.getN());
+        assertTrue(Double.isNaN(empty.getQuantile(null, 0.5)));
+
+        all.initialize();
+        assertEquals(0, all.getN());
+        assertTrue(Double.isNaN(all.getQuantile(null, 0.5)));
+        all.register(-3.0);
+        assertEquals(-3.0, all.getQuantile(null, 0.5));
+
+        UnitTest.testFail(() -> merged.merge(null), NullPointerException.class);
+        UnitTest.testFail(() -> merged.merge(new LogLinearAccumulator(2)), IllegalArgumentException.class);
+        UnitTest.testFail(() -> LogLinearAccumulator.fromByteArray(null), NullPointerException.class);
+        UnitTest.testFail(() -> LogLinearAccumulator.fromByteArray(Arrays.copyOf(bytes, bytes.length - 1)),
+                IllegalArgumentException.class);
+        UnitTest.testFail(() -> LogLinearAccumulator.fromByteArray(Arrays.copyOf(bytes, bytes.length + 1)),
+                IllegalArgumentException.class);
+        byte[] badVersion = bytes.clone();
+        badVersion[0] = 99;
+        UnitTest.testFail(() -> LogLinearAccumulator.fromByteArray(badVersion), IllegalArgumentException.class);
+        byte[] badCount = bytes.clone();
+        badCount[9]++;
+        UnitTest.testFail(() -> LogLinearAccumulator.fromByteArray(badCount), IllegalArgumentException.class);
+    }
+
+}
@@ -0,0 +1,227 @@
+package org.djutils.stats.summarizers.quantileaccumulator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.djutils.stats.summarizers.Tally;
+import org.djutils.test.UnitTest;
+import org.junit.jupiter.api.Test;
+
+/**
+ * ReservoirAccumulatorTest.java. <br>
+ * <br>
+ * Copyright (c) 2025-2025 Delft University of Technology, Jaffalaan 5, 2628 BX Delft, the Netherlands. All rights reserved. See
+ * for project information <a href="https://djutils.org" target="_blank"> https://djutils.org</a>. The DJUTILS project is
+ * distributed under a three-clause BSD-style license, which can be found at
+ * <a href="https://djutils.org/docs/license.html" target="_blank"> https://djutils.org/docs/license.html</a>. <br>
+ * @author <a href="https://www.tudelft.nl/averbraeck">Alexander Verbraeck</a>
+ * @author <a href="https://www.tudelft.nl/pknoppers">Peter Knoppers</a>
+ */
+public class ReservoirAccumulatorTest
+{
+    /**
+     * Every registered value has the same probability to be in the sample.
+     */
+    @Test
+    public void testUniformity()
+    {
+        int n = 1000;
+        int capacity = 50;
+        int trials = 2000;
+        int[] included = new int[n];
+        for (int trial = 0; trial < trials; trial++)
+        {
+            ReservoirAccumulator ra = new ReservoirAccumulator(capacity, trial);
+            for (int i = 0; i < n; i++)
+            {
+                ra.register(i);
+            }
+            assertEquals(capacity, ra.getSampleSize());
+            for (double value : ra.getSample())
+            {
+                included[(int) value]++;
+            }
+        }
+        // expected inclusion count is trials * capacity / n = 100 per value; compare the averages of blocks of 100 values
+        for (int block = 0; block < 10; block++)
+        {
+            int sum = 0;
+            for (int i = block * 100; i < (block + 1) * 100; i++)
+            {
+                sum += included[i];
+            }
+            assertEquals(100.0, sum / 100.0, 5.0, "block " + block);
+        }
+    }
+
+    /**
+     * Quantiles and cumulative probabilities of the sample approximate the ones of all values, and the sample is reproducible
+     * with a seed.
+     */
+    @Test
+    public void testQuantiles()
+    {
+        Random random = new Random(99);
+        ReservoirAccumulator ra = new ReservoirAccumulator(5000, 123L);
+        ReservoirAccumulator same = new ReservoirAccumulator(5000, 123L);
+        assertEquals(5000, ra.getCapacity());
+        assertTrue(Double.isNaN(ra.getQuantile(null, 0.5)), "quantile cannot be computed yet");
+        assertTrue(Double.isNaN(ra.getCumulativeProbability(null, 0.5)), "probability cannot be computed yet");
+        Tally tally = new Tally("tally", ra);
+        double[] values = new double[200000];
+        for (int i = 0; i < values.length; i++)
+        {
+            values[i] = random.nextGaussian() * 10.0 + 100.0;
+        }
+        tally.register(values);
+        same.register(values);
+        assertEquals(values.length, ra.getN());
+        assertEquals(5000, ra.getSampleSize());
+        assertArrayEquals(ra.getSample(), same.getSample(), "same seed, same sample");
+        Arrays.sort(values);
+        for (double p : new double[] {0.05, 0.25, 0.5, 0.75, 0.95})
+        {
+            double exact = values[(int) (p * values.length)];
+            assertEquals(exact, tally.getQuantile(p), 1.0, "p=" + p);
+            assertEquals(p, tally.getCumulativeProbability(exact), 0.02, "cdf at p=" + p);
+        }
+        double[] sample = ra.getSample();
+        Arrays.sort(sample);
+        assertEquals(sample[0], ra.getQuantile(null, 0.0));
+        assertEquals(sample[sample.length - 1], ra.getQuantile(null, 1.0));
+        assertEquals(0.0, ra.getCumulativeProbability(null, sample[0] - 1.0));
+        assertEquals(1.0, ra.getCumulativeProbability(null, sample[sample.length - 1] + 1.0));
+        assertTrue(ra.toString().startsWith("ReservoirAccumulator "));
+
+        ReservoirAccumulator small = new ReservoirAccumulator(10);
+        small.register(1.0, 2.0, 2.0, 3.0);
+        assertEquals(4, small.getSampleSize());
+        assertEquals(2.0, small.getQuantile(null, 0.5));
+        assertEquals(2.5, small.getQuantile(null, 5.0 / 6.0), 1E-12);
+        assertEquals(0.5, small.getCumulativeProbability(null, 2.0), "ties count for one half");
+        assertEquals(0.25, small.getCumulativeProbability(null, 1.5));
+        small.initialize();
+        assertEquals(0, small.getN());
+        assertEquals(0, small.getSampleSize());
+        assertTrue(Double.isNaN(small.getQuantile(null, 0.5)));
+
+        UnitTest.testFail(() -> new ReservoirAccumulator(0), IllegalArgumentException.class);
+        UnitTest.testFail(() -> small.register(Double.NaN), IllegalArgumentException.class);
+        UnitTest.testFail(() -> small.register(new double[] {1.0, Double.NaN}), IllegalArgumentException.class);
+        assertEquals(0, small.getN(), "no values were registered");
+        UnitTest.testFail(() -> small.getQuantile(null, 1.1), IllegalArgumentException.class);
+        UnitTest.testFail(() -> small.getQuantile(null, Double.NaN), IllegalArgumentException.class);
+        UnitTest.testFail(() -> small.getCumulativeProbability(null, Double.NaN), IllegalArgumentException.class);
+    }
+
+    /**
+     * Merged reservoirs represent each reservoir in proportion to its number of registered values, and the merged reservoir
+     * continues to sample uniformly.
+     */
+    @Test
+    public void testMerge()
+    {
+        int trials = 500;
+        double fromLarge = 0.0;
+        double fromLater = 0.0;
+        for (int trial = 0; trial < trials; trial++)
+        {
+            ReservoirAccumulator a = new ReservoirAccumulator(100, 2 * trial);
+            ReservoirAccumulator b = new ReservoirAccumulator(100, 2 * trial + 1);
+            for (int i = 0; i < 1000; i++)
+            {
+                a.register(0.0);
+            }
+            for (int i = 0; i < 9000; i++)
+            {
+                b.register(1.0);
+            }
+            a.merge(b);
+            assertEquals(10000, a.getN());
+            assertEquals(100, a.getSampleSize());
+            fromLarge += Arrays.stream(a.getSample()).sum() / 100.0;
+            // 10000 more values after the merge should make up half of the sample
+            for (int i = 0; i < 10000; i++)
+            {
+                a.register(2.0);
+            }
+            fromLater += Arrays.stream(a.getSample()).filter(v -> v == 2.0).count() / 100.0;
+        }
+        assertEquals(0.9, fromLarge / trials, 0.01, "the large reservoir provides 90% of the merged sample");
+        assertEquals(0.5, fromLater / trials, 0.01, "the merged reservoir continues uniformly");
+
+        ReservoirAccumulator partial = new ReservoirAccumulator(10, 1L);
+        partial.register(1.0, 2.0, 3.0);
+        ReservoirAccumulator other = new ReservoirAccumulator(10, 2L);
+        other.register(4.0, 5.0);
+        partial.merge(other);
+        partial.merge(new ReservoirAccumulator(10));
+        assertEquals(5, partial.getSampleSize());
+        assertEquals(5, partial.getN());
+        assertEquals(3.0, partial.getQuantile(null, 0.5));
+        other.register(6.0, 7.0, 8.0, 9.0, 10.0, 11.0);
+        partial.merge(other);
+        assertEquals(10, partial.getSampleSize(), "the reservoir is full after the merge");
+        assertEquals(13, partial.getN());
+        partial.register(12.0);
+        assertEquals(10, partial.getSampleSize());
+
+        UnitTest.testFail(() -> partial.merge(null), NullPointerException.class);
+        UnitTest.testFail(() -> partial.merge(partial), IllegalArgumentException.class);
+        UnitTest.testFail(() -> partial.merge(new ReservoirAccumulator(11)), IllegalArgumentException.class);
+    }
+
+    /**
+     * The state survives a round trip through a byte array.
+     */
+    @Test
+    public void testState()
+    {
+        ReservoirAccumulator ra = new ReservoirAccumulator(20, 5L);
+        for (int i = 0; i < 1000; i++)
+        {
+            ra.register(i);
+        }
+        byte[] bytes = ra.toByteArray();
+        ReservoirAccumulator restored = ReservoirAccumulator.fromByteArray(bytes, 6L);
+        assertArrayEquals(ra.getSample(), restored.getSample());
+        assertEquals(ra.getN(), restored.getN());
+        assertArrayEquals(bytes, restored.toByteArray());
+        for (int i = 1000; i < 2000; i++)
+        {
+            restored.register(i);
+        }
+        assertEquals(2000, restored.getN());
+        assertFalse(Arrays.equals(bytes, restored.toByteArray()));
+        ReservoirAccumulator empty = ReservoirAccumulator.fromByteArray(new ReservoirAccumulator(1000000).toByteArray(), 1L);
+        assertEquals(1000000, empty.getCapacity());
+
+        UnitTest.testFail(() -> ReservoirAccumulator.fromByteArray(null, 1L), NullPointerException.class);
+        UnitTest.testFail(() -> ReservoirAccumulator.fromByteArray(Arrays.copyOf(bytes, bytes.length - 1), 1L),
+                IllegalArgumentException.class);
+        UnitTest.testFail(() -> ReservoirAccumulator.fromByteArray(Arrays.copyOf(bytes, bytes.length + 1), 1L),
+                IllegalArgumentException.class);
+        byte[] badVersion = bytes.clone();
+        badVersion[0] = 3;
+        UnitTest.testFail(() -> ReservoirAccumulator.fromByteArray(badVersion, 1L), IllegalArgumentException.class);
+        byte[] badSize = bytes.clone();
+        badSize[32] = 21;
+        UnitTest.testFail(() -> ReservoirAccumulator.fromByteArray(badSize, 1L), IllegalArgumentException.class);
+        for (double threshold : new double[] {0.0, -0.5, 1.5, Double.NaN})
+        {
+            byte[] badThreshold = bytes.clone();
+            ByteBuffer.wrap(badThreshold).putDouble(13, threshold);
+            UnitTest.testFail(() -> ReservoirAccumulator.fromByteArray(badThreshold, 1L), IllegalArgumentException.class);
+        }
+        byte[] badSkip = bytes.clone();
+        ByteBuffer.wrap(badSkip).putLong(21, -1L);
+        UnitTest.testFail(() -> ReservoirAccumulator.fromByteArray(badSkip, 1L), IllegalArgumentException.class);
+    }
+
+}